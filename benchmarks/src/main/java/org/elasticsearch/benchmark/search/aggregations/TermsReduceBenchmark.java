@@ -11,12 +11,18 @@ import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.search.QueryPhaseResultConsumer;
 import org.elasticsearch.action.search.SearchPhaseController;
 import org.elasticsearch.action.search.SearchProgressListener;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
@@ -44,6 +50,8 @@ import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -64,6 +72,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @State(Scope.Thread)
 @Fork(value = 1)
 public class TermsReduceBenchmark {
+    private static final NamedWriteableRegistry REGISTRY = new NamedWriteableRegistry(
+        Collections.singletonList(new NamedWriteableRegistry.Entry(InternalAggregation.class, StringTerms.NAME, StringTerms::new))
+    );
 
     private final SearchPhaseController controller = new SearchPhaseController(
         (task, req) -> new InternalAggregation.ReduceContextBuilder() {
@@ -103,7 +114,16 @@ public class TermsReduceBenchmark {
         @Param({ "1", "10", "100" })
         int cardinalityFactor;
 
+        /**
+         * How the shard results reach the reduce: {@code reference} reduces the objects built by the shards while {@code row}
+         * and {@code columnar} first deserialize them from the per-bucket and the columnar wire formats, like the coordinating
+         * node does with the responses of remote shards.
+         */
+        @Param({ "reference", "row", "columnar" })
+        String wireFormat;
+
         List<InternalAggregations> aggsList;
+        List<BytesReference> serializedAggsList;
 
         @Setup
         public void setup() {
@@ -117,6 +137,23 @@ public class TermsReduceBenchmark {
             for (int i = 0; i < numShards; i++) {
                 aggsList.add(InternalAggregations.from(Collections.singletonList(newTerms(rand, dict, true))));
             }
+            if (wireFormat.equals("reference") == false) {
+                serializedAggsList = new ArrayList<>();
+                for (InternalAggregations aggs : aggsList) {
+                    try (BytesStreamOutput out = new BytesStreamOutput()) {
+                        out.setVersion(wireVersion());
+                        aggs.writeTo(out);
+                        serializedAggsList.add(out.bytes());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+        }
+
+        private Version wireVersion() {
+            // buckets are serialized column by column from 7.16.3
+            return wireFormat.equals("columnar") ? Version.V_7_16_3 : Version.V_7_16_2;
         }
 
         private StringTerms newTerms(Random rand, BytesRef[] dict, boolean withNested) {
@@ -154,7 +191,15 @@ public class TermsReduceBenchmark {
 
         @Override
         public InternalAggregations get(int index) {
-            return aggsList.get(index);
+            if (serializedAggsList == null) {
+                return aggsList.get(index);
+            }
+            try (StreamInput in = new NamedWriteableAwareStreamInput(serializedAggsList.get(index).streamInput(), REGISTRY)) {
+                in.setVersion(wireVersion());
+                return InternalAggregations.readFrom(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
 
         @Override
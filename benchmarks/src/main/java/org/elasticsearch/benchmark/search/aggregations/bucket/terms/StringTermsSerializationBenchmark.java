@@ -9,8 +9,13 @@
 package org.elasticsearch.benchmark.search.aggregations.bucket.terms;
 
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.DelayableWriteable;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -28,6 +33,7 @@ import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -45,11 +51,23 @@ public class StringTermsSerializationBenchmark {
     @Param(value = { "1000" })
     private int buckets;
 
+    /**
+     * {@code row} serializes each bucket with its key, doc count and sub-aggregations, {@code columnar} serializes
+     * the keys, the doc counts and the sub-aggregations of all buckets one after the other.
+     */
+    @Param(value = { "row", "columnar" })
+    private String wireFormat;
+
+    private Version version;
     private DelayableWriteable<InternalAggregations> results;
+    private BytesReference serialized;
 
     @Setup
-    public void initResults() {
+    public void initResults() throws IOException {
+        // buckets are serialized column by column from 7.16.3
+        version = wireFormat.equals("columnar") ? Version.V_7_16_3 : Version.V_7_16_2;
         results = DelayableWriteable.referencing(InternalAggregations.from(org.elasticsearch.core.List.of(newTerms(true))));
+        serialized = write();
     }
 
     private StringTerms newTerms(boolean withNested) {
@@ -80,4 +98,21 @@ public class StringTermsSerializationBenchmark {
     public DelayableWriteable<InternalAggregations> serialize() {
         return results.asSerialized(InternalAggregations::readFrom, REGISTRY);
     }
+
+    @Benchmark
+    public BytesReference write() throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            results.writeTo(out);
+            return out.bytes();
+        }
+    }
+
+    @Benchmark
+    public InternalAggregations read() throws IOException {
+        try (StreamInput in = new NamedWriteableAwareStreamInput(serialized.streamInput(), REGISTRY)) {
+            in.setVersion(version);
+            return DelayableWriteable.delayed(InternalAggregations::readFrom, in).expand();
+        }
+    }
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations.metrics;
+
+import org.HdrHistogram.DoubleHistogram;
+import org.elasticsearch.search.aggregations.metrics.DDSketchState;
+import org.elasticsearch.search.aggregations.metrics.TDigestState;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the sketches behind the {@code percentiles} methods. Besides the time it takes to collect values into a
+ * sketch and to merge per-shard sketches, each benchmark reports the memory used by a single sketch and the maximum
+ * relative error of a few common percentiles as auxiliary counters.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class PercentilesSketchBenchmark {
+
+    private static final double[] PERCENTS = new double[] { 50, 90, 99, 99.9 };
+    private static final int SHARDS = 16;
+
+    @Param({ "tdigest", "hdr", "ddsketch" })
+    public String method;
+
+    @Param({ "100", "10000" })
+    public int valuesPerSketch;
+
+    /**
+     * {@code lognormal} looks like latencies, {@code uniform} spreads values evenly over six orders of magnitude.
+     */
+    @Param({ "lognormal", "uniform" })
+    public String distribution;
+
+    private double[] values;
+    private Sketch[] shardSketches;
+    private long bytesPerSketch;
+    private double maxRelativeError;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        values = new double[valuesPerSketch];
+        for (int i = 0; i < values.length; i++) {
+            switch (distribution) {
+                case "lognormal":
+                    values[i] = Math.exp(5 + 2 * random.nextGaussian());
+                    break;
+                case "uniform":
+                    values[i] = 1 + random.nextDouble() * 1_000_000;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown distribution [" + distribution + "]");
+            }
+        }
+
+        shardSketches = new Sketch[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            shardSketches[i] = newSketch();
+        }
+        Sketch sketch = newSketch();
+        for (int i = 0; i < values.length; i++) {
+            sketch.add(values[i]);
+            shardSketches[i % SHARDS].add(values[i]);
+        }
+        bytesPerSketch = sketch.bytes();
+
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        maxRelativeError = 0;
+        for (double percent : PERCENTS) {
+            double expected = sorted[(int) (percent / 100 * (sorted.length - 1))];
+            double actual = sketch.quantile(percent / 100);
+            maxRelativeError = Math.max(maxRelativeError, Math.abs(actual - expected) / expected);
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long bytesPerSketch;
+        public double maxRelativeError;
+    }
+
+    @Benchmark
+    public Sketch collect(Footprint footprint) {
+        Sketch sketch = newSketch();
+        for (double value : values) {
+            sketch.add(value);
+        }
+        footprint.bytesPerSketch = bytesPerSketch;
+        footprint.maxRelativeError = maxRelativeError;
+        return sketch;
+    }
+
+    @Benchmark
+    public Sketch merge(Footprint footprint) {
+        Sketch merged = newSketch();
+        for (Sketch sketch : shardSketches) {
+            merged.merge(sketch);
+        }
+        footprint.bytesPerSketch = bytesPerSketch;
+        footprint.maxRelativeError = maxRelativeError;
+        return merged;
+    }
+
+    private Sketch newSketch() {
+        switch (method) {
+            case "tdigest":
+                return new TDigestSketch();
+            case "hdr":
+                return new HdrSketch();
+            case "ddsketch":
+                return new DDSketchSketch();
+            default:
+                throw new IllegalArgumentException("unknown method [" + method + "]");
+        }
+    }
+
+    /**
+     * The operations the aggregators perform on their sketches, using the default settings of each method.
+     */
+    public interface Sketch {
+        void add(double value);
+
+        void merge(Sketch other);
+
+        double quantile(double q);
+
+        long bytes();
+    }
+
+    private static class TDigestSketch implements Sketch {
+        private final TDigestState state = new TDigestState(100);
+
+        @Override
+        public void add(double value) {
+            state.add(value);
+        }
+
+        @Override
+        public void merge(Sketch other) {
+            state.add(((TDigestSketch) other).state);
+        }
+
+        @Override
+        public double quantile(double q) {
+            return state.quantile(q);
+        }
+
+        @Override
+        public long bytes() {
+            return state.byteSize();
+        }
+    }
+
+    private static class HdrSketch implements Sketch {
+        private final DoubleHistogram state;
+
+        HdrSketch() {
+            state = new DoubleHistogram(3);
+            state.setAutoResize(true);
+        }
+
+        @Override
+        public void add(double value) {
+            state.recordValue(value);
+        }
+
+        @Override
+        public void merge(Sketch other) {
+            state.add(((HdrSketch) other).state);
+        }
+
+        @Override
+        public double quantile(double q) {
+            return state.getValueAtPercentile(q * 100);
+        }
+
+        @Override
+        public long bytes() {
+            return state.getEstimatedFootprintInBytes();
+        }
+    }
+
+    private static class DDSketchSketch implements Sketch {
+        private final DDSketchState state = new DDSketchState(0.01);
+
+        @Override
+        public void add(double value) {
+            state.add(value);
+        }
+
+        @Override
+        public void merge(Sketch other) {
+            state.add(((DDSketchSketch) other).state);
+        }
+
+        @Override
+        public double quantile(double q) {
+            return state.quantile(q);
+        }
+
+        @Override
+        public long bytes() {
+            return state.ramBytesUsed();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations.pipeline;
+
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.histogram.InternalHistogram;
+import org.elasticsearch.search.aggregations.metrics.InternalSum;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares resolving the {@code buckets_path} of a pipeline aggregation bucket by bucket into boxed values, like
+ * {@code derivative} does, with resolving the values of all buckets at once into a primitive array, like
+ * {@code moving_fn}, {@code serial_diff} and {@code cumulative_sum} do.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class ResolveBucketValuesBenchmark {
+
+    @Param({ "100", "10000" })
+    public int buckets;
+
+    /**
+     * {@code sum} resolves a metric of the bucket, {@code _count} its document count.
+     */
+    @Param({ "sum", "_count" })
+    public String bucketsPath;
+
+    private InternalHistogram histogram;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        List<InternalHistogram.Bucket> histogramBuckets = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            InternalAggregations aggregations = InternalAggregations.from(
+                Collections.singletonList(new InternalSum("sum", random.nextDouble() * 1000, DocValueFormat.RAW, null))
+            );
+            // every tenth bucket is a gap
+            long docCount = i % 10 == 0 ? 0 : 1 + random.nextInt(100);
+            histogramBuckets.add(new InternalHistogram.Bucket(i, docCount, false, DocValueFormat.RAW, aggregations));
+        }
+        histogram = new InternalHistogram("histo", histogramBuckets, BucketOrder.key(true), 0, null, DocValueFormat.RAW, false, null);
+    }
+
+    @Benchmark
+    public double perBucket() {
+        double total = 0;
+        for (InternalHistogram.Bucket bucket : histogram.getBuckets()) {
+            Double value = BucketHelpers.resolveBucketValue(histogram, bucket, bucketsPath, GapPolicy.SKIP);
+            if (value != null && Double.isNaN(value) == false) {
+                total += value;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double allBuckets() {
+        double total = 0;
+        for (double value : BucketHelpers.resolveBucketValues(histogram, histogram.getBuckets(), bucketsPath, GapPolicy.SKIP)) {
+            if (Double.isNaN(value) == false) {
+                total += value;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.searchablesnapshots;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.SparseFileTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of looking up ranges of a hot cached file when many search threads read it concurrently. The tracked file is made
+ * of {@code ranges} completed ranges separated by small holes, and every invocation reads a random range that is already present, which
+ * is the common case for frequently accessed files of searchable snapshots.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@Threads(64)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SparseFileTrackerBenchmark {
+
+    private static final long RANGE_SIZE = 8192L;
+    private static final long HOLE_SIZE = 512L;
+
+    @Param({ "1", "64", "1024" })
+    private int ranges;
+
+    private SparseFileTracker tracker;
+
+    @Setup
+    public void setup() {
+        final SortedSet<ByteRange> completedRanges = new TreeSet<>();
+        for (int i = 0; i < ranges; i++) {
+            final long start = i * (RANGE_SIZE + HOLE_SIZE);
+            completedRanges.add(ByteRange.of(start, start + RANGE_SIZE));
+        }
+        tracker = new SparseFileTracker("benchmark", ranges * (RANGE_SIZE + HOLE_SIZE), completedRanges);
+    }
+
+    private ByteRange randomPresentRange() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final long start = random.nextInt(ranges) * (RANGE_SIZE + HOLE_SIZE) + random.nextLong(RANGE_SIZE / 2);
+        return ByteRange.of(start, start + random.nextLong(1L, RANGE_SIZE / 2));
+    }
+
+    @Benchmark
+    public List<SparseFileTracker.Gap> waitForRange() {
+        final ByteRange range = randomPresentRange();
+        final List<SparseFileTracker.Gap> gaps = tracker.waitForRange(range, range, ActionListener.wrap(() -> {}));
+        if (gaps.isEmpty() == false) {
+            throw new AssertionError("range " + range + " should be present");
+        }
+        return gaps;
+    }
+
+    @Benchmark
+    public boolean waitForRangeIfPending() {
+        return tracker.waitForRangeIfPending(randomPresentRange(), ActionListener.wrap(() -> {}));
+    }
+
+    @Benchmark
+    public ByteRange getAbsentRangeWithin() {
+        return tracker.getAbsentRangeWithin(randomPresentRange());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.vectors;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.xpack.vectors.query.DenseVectorOperations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar and the Vector API implementations of the {@code dense_vector} functions over vectors of
+ * typical embedding sizes. Each invocation scores a query vector against a batch of encoded document vectors.
+ * The Vector API implementation is only used when running on Java 17, where the build adds the incubator module to
+ * the JVM that runs the benchmarks and JMH passes it on to its forks. Otherwise {@code vector_api} measures the scalar
+ * implementation too.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class DenseVectorFunctionsBenchmark {
+
+    private static final int DOCS = 1000;
+
+    @Param({ "384", "768", "1024" })
+    public int dims;
+
+    @Param({ "scalar", "vector_api" })
+    public String implementation;
+
+    private DenseVectorOperations operations;
+    private float[] queryVector;
+    private BytesRef[] docVectors;
+
+    @Setup
+    public void setup() {
+        switch (implementation) {
+            case "scalar":
+                operations = DenseVectorOperations.scalar();
+                break;
+            case "vector_api":
+                operations = DenseVectorOperations.getInstance();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown implementation [" + implementation + "]");
+        }
+        Random random = new Random(0);
+        queryVector = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            queryVector[i] = random.nextFloat() * 2 - 1;
+        }
+        docVectors = new BytesRef[DOCS];
+        for (int d = 0; d < DOCS; d++) {
+            // the encoding of indices created on or after 7.5: the values followed by the magnitude
+            ByteBuffer buffer = ByteBuffer.allocate((dims + 1) * Float.BYTES);
+            double magnitude = 0;
+            for (int i = 0; i < dims; i++) {
+                float value = random.nextFloat() * 2 - 1;
+                buffer.putFloat(value);
+                magnitude += value * value;
+            }
+            buffer.putFloat((float) Math.sqrt(magnitude));
+            docVectors[d] = new BytesRef(buffer.array());
+        }
+    }
+
+    @Benchmark
+    public double dotProduct() {
+        double sum = 0;
+        for (BytesRef docVector : docVectors) {
+            sum += operations.dotProduct(queryVector, docVector);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double l1Norm() {
+        double sum = 0;
+        for (BytesRef docVector : docVectors) {
+            sum += operations.l1Norm(queryVector, docVector);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double l2Norm() {
+        double sum = 0;
+        for (BytesRef docVector : docVectors) {
+            sum += operations.l2Norm(queryVector, docVector);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.percolator;
+
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.core.CheckedFunction;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches the queries that a percolate request decodes from the stored query builders of candidate matches, keyed by
+ * their serialized form. Registered queries that only differ by their metadata are serialized identically, so they are
+ * decoded once per request and share the same {@link Query} across segments and across the query and fetch phases,
+ * which also lets {@link PercolateQuery} verify them once. The cache stops growing once the serialized queries that it
+ * holds reach a maximum size.
+ */
+final class DecodedQueryCache {
+
+    static final int DEFAULT_MAX_CACHED_BYTES = 1 << 20;
+
+    private final Map<BytesRef, Query> queries = new HashMap<>();
+    private final int maxCachedBytes;
+    private long cachedBytes;
+
+    DecodedQueryCache(int maxCachedBytes) {
+        this.maxCachedBytes = maxCachedBytes;
+    }
+
+    /**
+     * Returns the query that the provided stored query builder decodes to, decoding it with the decoder unless an
+     * identical stored query builder was already decoded.
+     */
+    Query getOrDecode(BytesRef source, CheckedFunction<BytesRef, Query, IOException> decoder) throws IOException {
+        Query query = queries.get(source);
+        if (query == null) {
+            query = decoder.apply(source);
+            if (query != null && cachedBytes + source.length <= maxCachedBytes) {
+                // doc values reuse their bytes
+                queries.put(BytesRef.deepCopyOf(source), query);
+                cachedBytes += source.length;
+            }
+        }
+        return query;
+    }
+
+    int size() {
+        return queries.size();
+    }
+}
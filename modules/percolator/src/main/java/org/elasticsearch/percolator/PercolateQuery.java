@@ -28,16 +28,25 @@ import org.apache.lucene.util.Bits;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.core.CheckedFunction;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.profile.query.DebugInfoProvider;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 final class PercolateQuery extends Query implements Accountable {
 
     // cost of matching the query against the document, arbitrary as it would be really complex to estimate
     private static final float MATCH_COST = 1000;
+    // the score of candidate queries that don't match the documents, scores are never negative
+    private static final float NO_MATCH = -1f;
+    // the maximum number of verified queries whose results are kept to verify equal candidate queries only once
+    static final int MAX_VERIFIED_QUERIES = 10_000;
 
     private final String name;
     private final QueryStore queryStore;
@@ -87,110 +96,191 @@ final class PercolateQuery extends Query implements Accountable {
     public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
         final Weight verifiedMatchesWeight = verifiedMatchesQuery.createWeight(searcher, ScoreMode.COMPLETE_NO_SCORES, boost);
         final Weight candidateMatchesWeight = candidateMatchesQuery.createWeight(searcher, ScoreMode.COMPLETE_NO_SCORES, boost);
-        return new Weight(this) {
-            @Override
-            public void extractTerms(Set<Term> set) {}
-
-            @Override
-            public Explanation explain(LeafReaderContext leafReaderContext, int docId) throws IOException {
-                Scorer scorer = scorer(leafReaderContext);
-                if (scorer != null) {
-                    TwoPhaseIterator twoPhaseIterator = scorer.twoPhaseIterator();
-                    int result = twoPhaseIterator.approximation().advance(docId);
-                    if (result == docId) {
-                        if (twoPhaseIterator.matches()) {
-                            if (scoreMode.needsScores()) {
-                                CheckedFunction<Integer, Query, IOException> percolatorQueries = queryStore.getQueries(leafReaderContext);
-                                Query query = percolatorQueries.apply(docId);
-                                Explanation detail = percolatorIndexSearcher.explain(query, 0);
-                                return Explanation.match(scorer.score(), "PercolateQuery", detail);
-                            } else {
-                                return Explanation.match(scorer.score(), "PercolateQuery");
-                            }
+        final boolean profiling = searcher instanceof ContextIndexSearcher && ((ContextIndexSearcher) searcher).isProfiling();
+        return new PercolateWeight(scoreMode, candidateMatchesWeight, verifiedMatchesWeight, profiling);
+    }
+
+    /**
+     * Verifies candidate matches by running their queries against the percolated documents. Candidates are verified in
+     * two phases: their queries are first decoded from the stored query builders, then searched in the documents. Only
+     * candidates whose decoded queries are equal, which happens when registered queries only differ by their metadata,
+     * are verified once: queries that merely share extracted terms are verified one by one, in the order of the candidates
+     * and on the thread that runs the search. The number of candidates is reported in the profile results, and the time
+     * spent in each phase too when the search is profiled.
+     */
+    private final class PercolateWeight extends Weight implements DebugInfoProvider {
+
+        private final ScoreMode scoreMode;
+        private final Weight candidateMatchesWeight;
+        private final Weight verifiedMatchesWeight;
+        // the scores of the queries that were verified, or NO_MATCH
+        private final Map<Query, Float> verifiedQueries = new HashMap<>();
+
+        private long candidates;
+        private long matchedByExtraction;
+        private long decodedQueries;
+        private long decodeTimeInNanos;
+        private long verifications;
+        private long verificationCacheHits;
+        private long verifyTimeInNanos;
+        // only measure the time of the phases when the search is profiled, as it would otherwise never be reported
+        private final boolean profiling;
+
+        PercolateWeight(ScoreMode scoreMode, Weight candidateMatchesWeight, Weight verifiedMatchesWeight, boolean profiling) {
+            super(PercolateQuery.this);
+            this.scoreMode = scoreMode;
+            this.candidateMatchesWeight = candidateMatchesWeight;
+            this.verifiedMatchesWeight = verifiedMatchesWeight;
+            this.profiling = profiling;
+        }
+
+        @Override
+        public void extractTerms(Set<Term> set) {}
+
+        @Override
+        public Explanation explain(LeafReaderContext leafReaderContext, int docId) throws IOException {
+            Scorer scorer = scorer(leafReaderContext);
+            if (scorer != null) {
+                TwoPhaseIterator twoPhaseIterator = scorer.twoPhaseIterator();
+                int result = twoPhaseIterator.approximation().advance(docId);
+                if (result == docId) {
+                    if (twoPhaseIterator.matches()) {
+                        if (scoreMode.needsScores()) {
+                            CheckedFunction<Integer, Query, IOException> percolatorQueries = queryStore.getQueries(leafReaderContext);
+                            Query query = percolatorQueries.apply(docId);
+                            Explanation detail = percolatorIndexSearcher.explain(query, 0);
+                            return Explanation.match(scorer.score(), "PercolateQuery", detail);
+                        } else {
+                            return Explanation.match(scorer.score(), "PercolateQuery");
                         }
                     }
                 }
-                return Explanation.noMatch("PercolateQuery");
             }
+            return Explanation.noMatch("PercolateQuery");
+        }
 
-            @Override
-            public Scorer scorer(LeafReaderContext leafReaderContext) throws IOException {
-                final Scorer approximation = candidateMatchesWeight.scorer(leafReaderContext);
-                if (approximation == null) {
-                    return null;
-                }
-
-                final CheckedFunction<Integer, Query, IOException> percolatorQueries = queryStore.getQueries(leafReaderContext);
-                if (scoreMode.needsScores()) {
-                    return new BaseScorer(this, approximation) {
-
-                        float score;
+        @Override
+        public Scorer scorer(LeafReaderContext leafReaderContext) throws IOException {
+            final Scorer approximation = candidateMatchesWeight.scorer(leafReaderContext);
+            if (approximation == null) {
+                return null;
+            }
 
-                        @Override
-                        boolean matchDocId(int docId) throws IOException {
-                            Query query = percolatorQueries.apply(docId);
-                            if (query != null) {
-                                if (nonNestedDocsFilter != null) {
-                                    query = new BooleanQuery.Builder().add(query, Occur.MUST)
-                                        .add(nonNestedDocsFilter, Occur.FILTER)
-                                        .build();
-                                }
-                                TopDocs topDocs = percolatorIndexSearcher.search(query, 1);
-                                if (topDocs.scoreDocs.length > 0) {
-                                    score = topDocs.scoreDocs[0].score;
-                                    return true;
-                                } else {
-                                    return false;
-                                }
-                            } else {
-                                return false;
-                            }
+            final CheckedFunction<Integer, Query, IOException> percolatorQueries = queryStore.getQueries(leafReaderContext);
+            if (scoreMode.needsScores()) {
+                return new BaseScorer(this, approximation) {
+
+                    float score;
+
+                    @Override
+                    boolean matchDocId(int docId) throws IOException {
+                        candidates++;
+                        Query query = decode(percolatorQueries, docId);
+                        if (query != null) {
+                            score = verify(query);
+                            return score != NO_MATCH;
+                        } else {
+                            return false;
                         }
+                    }
+
+                    @Override
+                    public float score() throws IOException {
+                        return score;
+                    }
+                };
+            } else {
+                ScorerSupplier verifiedDocsScorer = verifiedMatchesWeight.scorerSupplier(leafReaderContext);
+                Bits verifiedDocsBits = Lucene.asSequentialAccessBits(leafReaderContext.reader().maxDoc(), verifiedDocsScorer);
+                return new BaseScorer(this, approximation) {
+
+                    @Override
+                    public float score() throws IOException {
+                        return 0f;
+                    }
 
-                        @Override
-                        public float score() throws IOException {
-                            return score;
+                    boolean matchDocId(int docId) throws IOException {
+                        candidates++;
+                        // We use the verifiedDocsBits to skip the expensive MemoryIndex verification.
+                        // If docId also appears in the verifiedDocsBits then that means during indexing
+                        // we were able to extract all query terms and for this candidate match
+                        // and we determined based on the nature of the query that it is safe to skip
+                        // the MemoryIndex verification.
+                        if (verifiedDocsBits.get(docId)) {
+                            matchedByExtraction++;
+                            return true;
                         }
-                    };
-                } else {
-                    ScorerSupplier verifiedDocsScorer = verifiedMatchesWeight.scorerSupplier(leafReaderContext);
-                    Bits verifiedDocsBits = Lucene.asSequentialAccessBits(leafReaderContext.reader().maxDoc(), verifiedDocsScorer);
-                    return new BaseScorer(this, approximation) {
-
-                        @Override
-                        public float score() throws IOException {
-                            return 0f;
+                        Query query = decode(percolatorQueries, docId);
+                        if (query == null) {
+                            return false;
                         }
+                        return verify(query) != NO_MATCH;
+                    }
+                };
+            }
+        }
 
-                        boolean matchDocId(int docId) throws IOException {
-                            // We use the verifiedDocsBits to skip the expensive MemoryIndex verification.
-                            // If docId also appears in the verifiedDocsBits then that means during indexing
-                            // we were able to extract all query terms and for this candidate match
-                            // and we determined based on the nature of the query that it is safe to skip
-                            // the MemoryIndex verification.
-                            if (verifiedDocsBits.get(docId)) {
-                                return true;
-                            }
-                            Query query = percolatorQueries.apply(docId);
-                            if (query == null) {
-                                return false;
-                            }
-                            if (nonNestedDocsFilter != null) {
-                                query = new BooleanQuery.Builder().add(query, Occur.MUST).add(nonNestedDocsFilter, Occur.FILTER).build();
-                            }
-                            return Lucene.exists(percolatorIndexSearcher, query);
-                        }
-                    };
-                }
+        private Query decode(CheckedFunction<Integer, Query, IOException> percolatorQueries, int docId) throws IOException {
+            decodedQueries++;
+            if (profiling == false) {
+                return percolatorQueries.apply(docId);
+            }
+            final long start = System.nanoTime();
+            try {
+                return percolatorQueries.apply(docId);
+            } finally {
+                decodeTimeInNanos += System.nanoTime() - start;
             }
+        }
 
-            @Override
-            public boolean isCacheable(LeafReaderContext ctx) {
-                // This query uses a significant amount of memory, let's never
-                // cache it or compound queries that wrap it.
-                return false;
+        /**
+         * Returns the score of the query on the percolated documents, or {@link #NO_MATCH} if it doesn't match any of them.
+         */
+        private float verify(Query query) throws IOException {
+            Float cachedScore = verifiedQueries.get(query);
+            if (cachedScore != null) {
+                verificationCacheHits++;
+                return cachedScore;
+            }
+            final long start = profiling ? System.nanoTime() : 0L;
+            Query filteredQuery = query;
+            if (nonNestedDocsFilter != null) {
+                filteredQuery = new BooleanQuery.Builder().add(query, Occur.MUST).add(nonNestedDocsFilter, Occur.FILTER).build();
+            }
+            final float score;
+            if (scoreMode.needsScores()) {
+                TopDocs topDocs = percolatorIndexSearcher.search(filteredQuery, 1);
+                score = topDocs.scoreDocs.length > 0 ? topDocs.scoreDocs[0].score : NO_MATCH;
+            } else {
+                score = Lucene.exists(percolatorIndexSearcher, filteredQuery) ? 0f : NO_MATCH;
             }
-        };
+            verifications++;
+            if (profiling) {
+                verifyTimeInNanos += System.nanoTime() - start;
+            }
+            if (verifiedQueries.size() < MAX_VERIFIED_QUERIES) {
+                verifiedQueries.put(query, score);
+            }
+            return score;
+        }
+
+        @Override
+        public boolean isCacheable(LeafReaderContext ctx) {
+            // This query uses a significant amount of memory, let's never
+            // cache it or compound queries that wrap it.
+            return false;
+        }
+
+        @Override
+        public void collectDebugInfo(BiConsumer<String, Object> add) {
+            add.accept("candidates", candidates);
+            add.accept("matched_by_extraction", matchedByExtraction);
+            add.accept("decoded_queries", decodedQueries);
+            add.accept("decode_time_in_nanos", decodeTimeInNanos);
+            add.accept("verifications", verifications);
+            add.accept("verification_cache_hits", verificationCacheHits);
+            add.accept("verify_time_in_nanos", verifyTimeInNanos);
+        }
     }
 
     String getName() {
@@ -29,7 +29,6 @@ import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BitDocIdSet;
 import org.apache.lucene.util.BitSet;
-import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ResourceNotFoundException;
@@ -665,6 +664,8 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
     static PercolateQuery.QueryStore createStore(MappedFieldType queryBuilderFieldType, SearchExecutionContext context) {
         Version indexVersion = context.indexVersionCreated();
         NamedWriteableRegistry registry = context.getWriteableRegistry();
+        // shared by all segments and by the fetch phase, so that each distinct stored query is decoded once per request
+        DecodedQueryCache decodedQueries = new DecodedQueryCache(DecodedQueryCache.DEFAULT_MAX_CACHED_BYTES);
         return ctx -> {
             LeafReader leafReader = ctx.reader();
             BinaryDocValues binaryDocValues = leafReader.getBinaryDocValues(queryBuilderFieldType.name());
@@ -674,29 +675,30 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
             if (indexVersion.onOrAfter(Version.V_6_0_0_beta2)) {
                 return docId -> {
                     if (binaryDocValues.advanceExact(docId)) {
-                        BytesRef qbSource = binaryDocValues.binaryValue();
-                        try (InputStream in = new ByteArrayInputStream(qbSource.bytes, qbSource.offset, qbSource.length)) {
-                            try (
-                                StreamInput input = new NamedWriteableAwareStreamInput(
-                                    new InputStreamStreamInput(in, qbSource.length),
-                                    registry
-                                )
-                            ) {
-                                input.setVersion(indexVersion);
-                                // Query builder's content is stored via BinaryFieldMapper, which has a custom encoding
-                                // to encode multiple binary values into a single binary doc values field.
-                                // This is the reason we need to first need to read the number of values and
-                                // then the length of the field value in bytes.
-                                int numValues = input.readVInt();
-                                assert numValues == 1;
-                                int valueLength = input.readVInt();
-                                assert valueLength > 0;
-                                QueryBuilder queryBuilder = input.readNamedWriteable(QueryBuilder.class);
-                                assert in.read() == -1;
-                                queryBuilder = Rewriteable.rewrite(queryBuilder, context);
-                                return queryBuilder.toQuery(context);
+                        return decodedQueries.getOrDecode(binaryDocValues.binaryValue(), qbSource -> {
+                            try (InputStream in = new ByteArrayInputStream(qbSource.bytes, qbSource.offset, qbSource.length)) {
+                                try (
+                                    StreamInput input = new NamedWriteableAwareStreamInput(
+                                        new InputStreamStreamInput(in, qbSource.length),
+                                        registry
+                                    )
+                                ) {
+                                    input.setVersion(indexVersion);
+                                    // Query builder's content is stored via BinaryFieldMapper, which has a custom encoding
+                                    // to encode multiple binary values into a single binary doc values field.
+                                    // This is the reason we need to first need to read the number of values and
+                                    // then the length of the field value in bytes.
+                                    int numValues = input.readVInt();
+                                    assert numValues == 1;
+                                    int valueLength = input.readVInt();
+                                    assert valueLength > 0;
+                                    QueryBuilder queryBuilder = input.readNamedWriteable(QueryBuilder.class);
+                                    assert in.read() == -1;
+                                    queryBuilder = Rewriteable.rewrite(queryBuilder, context);
+                                    return queryBuilder.toQuery(context);
+                                }
                             }
-                        }
+                        });
                     } else {
                         return null;
                     }
@@ -704,28 +706,29 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
             } else {
                 return docId -> {
                     if (binaryDocValues.advanceExact(docId)) {
-                        BytesRef qbSource = binaryDocValues.binaryValue();
-                        if (qbSource.length > 0) {
-                            XContent xContent = PercolatorFieldMapper.QUERY_BUILDER_CONTENT_TYPE.xContent();
-                            try (
-                                XContentParser sourceParser = xContent.createParser(
-                                    context.getXContentRegistry(),
-                                    LoggingDeprecationHandler.INSTANCE,
-                                    qbSource.bytes,
-                                    qbSource.offset,
-                                    qbSource.length
-                                )
-                            ) {
-                                QueryBuilder queryBuilder = PercolatorFieldMapper.parseQueryBuilder(
-                                    sourceParser,
-                                    sourceParser.getTokenLocation()
-                                );
-                                queryBuilder = Rewriteable.rewrite(queryBuilder, context);
-                                return queryBuilder.toQuery(context);
+                        return decodedQueries.getOrDecode(binaryDocValues.binaryValue(), qbSource -> {
+                            if (qbSource.length > 0) {
+                                XContent xContent = PercolatorFieldMapper.QUERY_BUILDER_CONTENT_TYPE.xContent();
+                                try (
+                                    XContentParser sourceParser = xContent.createParser(
+                                        context.getXContentRegistry(),
+                                        LoggingDeprecationHandler.INSTANCE,
+                                        qbSource.bytes,
+                                        qbSource.offset,
+                                        qbSource.length
+                                    )
+                                ) {
+                                    QueryBuilder queryBuilder = PercolatorFieldMapper.parseQueryBuilder(
+                                        sourceParser,
+                                        sourceParser.getTokenLocation()
+                                    );
+                                    queryBuilder = Rewriteable.rewrite(queryBuilder, context);
+                                    return queryBuilder.toQuery(context);
+                                }
+                            } else {
+                                return null;
                             }
-                        } else {
-                            return null;
-                        }
+                        });
                     } else {
                         return null;
                     }
@@ -0,0 +1,65 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.percolator;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class DecodedQueryCacheTests extends ESTestCase {
+
+    public void testIdenticalSourcesAreDecodedOnce() throws IOException {
+        DecodedQueryCache cache = new DecodedQueryCache(DecodedQueryCache.DEFAULT_MAX_CACHED_BYTES);
+        AtomicInteger decoded = new AtomicInteger();
+        byte[] bytes = new byte[] { 0, 1, 2, 3, 4 };
+        Query first = cache.getOrDecode(new BytesRef(bytes, 1, 3), source -> {
+            decoded.incrementAndGet();
+            return new TermQuery(new Term("field", BytesRef.deepCopyOf(source)));
+        });
+        // doc values reuse their bytes, so the cache must not keep a reference to them
+        bytes[2] = 42;
+        Query second = cache.getOrDecode(new BytesRef(new byte[] { 1, 2, 3 }), source -> {
+            decoded.incrementAndGet();
+            return new TermQuery(new Term("field", BytesRef.deepCopyOf(source)));
+        });
+        assertThat(second, sameInstance(first));
+        assertThat(decoded.get(), equalTo(1));
+
+        cache.getOrDecode(new BytesRef(new byte[] { 1, 2, 4 }), source -> {
+            decoded.incrementAndGet();
+            return new TermQuery(new Term("field", BytesRef.deepCopyOf(source)));
+        });
+        assertThat(decoded.get(), equalTo(2));
+        assertThat(cache.size(), equalTo(2));
+    }
+
+    public void testNullQueriesAreNotCached() throws IOException {
+        DecodedQueryCache cache = new DecodedQueryCache(DecodedQueryCache.DEFAULT_MAX_CACHED_BYTES);
+        assertNull(cache.getOrDecode(new BytesRef(), source -> null));
+        assertThat(cache.size(), equalTo(0));
+    }
+
+    public void testStopsCachingWhenFull() throws IOException {
+        int maxCachedBytes = randomIntBetween(1, 10);
+        DecodedQueryCache cache = new DecodedQueryCache(maxCachedBytes);
+        for (int i = 0; i < 20; i++) {
+            BytesRef source = new BytesRef(new byte[] { (byte) i });
+            cache.getOrDecode(source, s -> new TermQuery(new Term("field", BytesRef.deepCopyOf(s))));
+        }
+        assertThat(cache.size(), equalTo(maxCachedBytes));
+    }
+}
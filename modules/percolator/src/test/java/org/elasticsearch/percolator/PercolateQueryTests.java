@@ -15,34 +15,43 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.memory.MemoryIndex;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.search.spans.SpanNearQuery;
 import org.apache.lucene.search.spans.SpanTermQuery;
 import org.apache.lucene.store.Directory;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.search.profile.query.DebugInfoProvider;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.After;
 import org.junit.Before;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.arrayWithSize;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 
 public class PercolateQueryTests extends ESTestCase {
@@ -198,4 +207,56 @@ public class PercolateQueryTests extends ESTestCase {
         assertThat(explanation.getDetails(), arrayWithSize(1));
     }
 
+    public void testEqualCandidateQueriesAreVerifiedOnce() throws Exception {
+        int numDocs = randomIntBetween(2, 32);
+        List<Iterable<? extends IndexableField>> docs = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            docs.add(Collections.singleton(new StringField("select", "a", Field.Store.NO)));
+        }
+        indexWriter.addDocuments(docs);
+        indexWriter.close();
+        directoryReader = DirectoryReader.open(directory);
+        // not a wrapping searcher, so that the weight reports its debug info
+        IndexSearcher shardSearcher = new IndexSearcher(directoryReader);
+        shardSearcher.setQueryCache(null);
+
+        // every candidate decodes to a different but equal query, like registered queries that only differ by their metadata
+        String term = randomFrom("fox", "cat");
+        PercolateQuery.QueryStore queryStore = ctx -> docId -> new TermQuery(new Term("field", term));
+        MemoryIndex memoryIndex = new MemoryIndex();
+        memoryIndex.addField("field", "the quick brown fox jumps over the lazy dog", new WhitespaceAnalyzer());
+        PercolateQuery query = new PercolateQuery(
+            "_name",
+            queryStore,
+            Collections.singletonList(new BytesArray("a")),
+            new TermQuery(new Term("select", "a")),
+            memoryIndex.createSearcher(),
+            null,
+            new MatchNoDocsQuery("")
+        );
+        ScoreMode scoreMode = randomFrom(ScoreMode.COMPLETE, ScoreMode.COMPLETE_NO_SCORES);
+        Weight weight = shardSearcher.createWeight(shardSearcher.rewrite(query), scoreMode, 1f);
+        int matches = 0;
+        for (LeafReaderContext context : directoryReader.leaves()) {
+            Scorer scorer = weight.scorer(context);
+            if (scorer == null) {
+                continue;
+            }
+            DocIdSetIterator iterator = scorer.iterator();
+            while (iterator.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+                matches++;
+            }
+        }
+        assertThat(matches, equalTo(term.equals("fox") ? numDocs : 0));
+
+        Map<String, Object> debugInfo = new HashMap<>();
+        ((DebugInfoProvider) weight).collectDebugInfo(debugInfo::put);
+        assertThat(debugInfo.get("candidates"), equalTo((long) numDocs));
+        assertThat(debugInfo.get("decoded_queries"), equalTo((long) numDocs));
+        assertThat(debugInfo.get("verifications"), equalTo(1L));
+        assertThat(debugInfo.get("verification_cache_hits"), equalTo((long) numDocs - 1));
+        assertThat(debugInfo.get("matched_by_extraction"), equalTo(0L));
+        assertThat((Long) debugInfo.get("decode_time_in_nanos"), greaterThanOrEqualTo(0L));
+        assertThat((Long) debugInfo.get("verify_time_in_nanos"), greaterThanOrEqualTo(0L));
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport.netty4;
+
+import org.elasticsearch.ESNetty4IntegTestCase;
+import org.elasticsearch.action.admin.indices.recovery.RecoveryResponse;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.recovery.RecoverySettings;
+import org.elasticsearch.indices.recovery.RecoveryState;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.elasticsearch.test.store.MockFSIndexStore;
+import org.elasticsearch.transport.Compression;
+import org.elasticsearch.transport.TransportSettings;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ * Recovers replicas over the netty transport, which sends the file chunks of the recovery as file regions.
+ */
+@ESIntegTestCase.ClusterScope(numDataNodes = 0, scope = ESIntegTestCase.Scope.TEST)
+public class Netty4RecoveryIT extends ESNetty4IntegTestCase {
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal, Settings otherSettings) {
+        return Settings.builder()
+            .put(super.nodeSettings(nodeOrdinal, otherSettings))
+            // file regions are only sent as such if the message is not compressed
+            .put(TransportSettings.TRANSPORT_COMPRESS.getKey(), Compression.Enabled.FALSE)
+            .build();
+    }
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getMockPlugins() {
+        // the mock directories wrap the directory of the store, so its files would not be sent as file regions
+        final List<Class<? extends Plugin>> mockPlugins = new ArrayList<>(super.getMockPlugins());
+        mockPlugins.remove(MockFSIndexStore.TestPlugin.class);
+        return mockPlugins;
+    }
+
+    public void testRecoverReplicaWithFileRegions() throws Exception {
+        final String sourceNode = internalCluster().startNode();
+        final String indexName = "test";
+        createIndex(
+            indexName,
+            Settings.builder()
+                .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+                .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+                .put(
+                    IndexModule.INDEX_STORE_TYPE_SETTING.getKey(),
+                    randomFrom(IndexModule.Type.NIOFS, IndexModule.Type.MMAPFS, IndexModule.Type.HYBRIDFS).getSettingsKey()
+                )
+                .build()
+        );
+
+        int numDocs = 0;
+        for (int i = between(1, 5); i > 0; i--) {
+            final IndexRequestBuilder[] builders = new IndexRequestBuilder[between(10, 100)];
+            for (int j = 0; j < builders.length; j++) {
+                builders[j] = client().prepareIndex(indexName, "_doc").setSource("field", randomAlphaOfLength(between(10, 1000)));
+            }
+            indexRandom(false, false, builders);
+            numDocs += builders.length;
+            client().admin().indices().prepareFlush(indexName).get();
+        }
+
+        final Store store = internalCluster().getInstance(IndicesService.class, sourceNode)
+            .indexServiceSafe(resolveIndex(indexName))
+            .getShard(0)
+            .store();
+        assertThat(store.localFilesDirectory(), notNullValue());
+
+        final String targetNode = internalCluster().startNode();
+        for (RecoverySettings recoverySettings : internalCluster().getInstances(RecoverySettings.class)) {
+            // send the files in several chunks
+            recoverySettings.setChunkSize(new ByteSizeValue(between(1, 16), ByteSizeUnit.KB));
+        }
+        client().admin()
+            .indices()
+            .prepareUpdateSettings(indexName)
+            .setSettings(Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 1))
+            .get();
+        ensureGreen(indexName);
+
+        final RecoveryResponse response = client().admin().indices().prepareRecoveries(indexName).get();
+        RecoveryState replicaRecovery = null;
+        for (RecoveryState recoveryState : response.shardRecoveryStates().get(indexName)) {
+            if (recoveryState.getPrimary() == false) {
+                replicaRecovery = recoveryState;
+            }
+        }
+        assertThat(replicaRecovery, notNullValue());
+        assertThat(replicaRecovery.getTargetNode().getName(), equalTo(targetNode));
+        assertThat(replicaRecovery.getIndex().recoveredFileCount(), greaterThan(0));
+        assertThat(replicaRecovery.getIndex().recoveredBytes(), greaterThan(0L));
+
+        internalCluster().stopRandomNode(s -> sourceNode.equals(s.get("node.name")));
+        ensureYellow(indexName);
+        refresh(indexName);
+        assertHitCount(client().prepareSearch(indexName).setSize(0).get(), numDocs);
+    }
+}
@@ -14,6 +14,7 @@ import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
 
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ExceptionsHelper;
@@ -28,6 +29,8 @@ import org.elasticsearch.transport.Transports;
 
 import java.nio.channels.ClosedChannelException;
 import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
 import java.util.Queue;
 
 /**
@@ -88,9 +91,10 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
-        assert msg instanceof ByteBuf;
+        assert msg instanceof ByteBuf || msg instanceof MultiPartMessage;
         assert Transports.assertDefaultThreadContext(transport.getThreadPool().getThreadContext());
-        final boolean queued = queuedWrites.offer(new WriteOperation((ByteBuf) msg, promise));
+        final List<Object> parts = msg instanceof MultiPartMessage ? ((MultiPartMessage) msg).parts() : Collections.singletonList(msg);
+        final boolean queued = queuedWrites.offer(new WriteOperation(parts, promise));
         assert queued;
         assert Transports.assertDefaultThreadContext(transport.getThreadPool().getThreadContext());
     }
@@ -136,34 +140,41 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
                 break;
             }
             final WriteOperation write = currentWrite;
-            final int readableBytes = write.buf.readableBytes();
-            final int bufferSize = Math.min(readableBytes, 1 << 18);
-            final int readerIndex = write.buf.readerIndex();
-            final boolean sliced = readableBytes != bufferSize;
-            final ByteBuf writeBuffer;
-            if (sliced) {
-                writeBuffer = write.buf.retainedSlice(readerIndex, bufferSize);
-                write.buf.readerIndex(readerIndex + bufferSize);
+            final Object part = write.currentPart();
+            final Object writeMessage;
+            if (part instanceof ByteBuf) {
+                final ByteBuf buf = (ByteBuf) part;
+                final int readableBytes = buf.readableBytes();
+                final int bufferSize = Math.min(readableBytes, 1 << 18);
+                final int readerIndex = buf.readerIndex();
+                if (readableBytes != bufferSize) {
+                    writeMessage = buf.retainedSlice(readerIndex, bufferSize);
+                    buf.readerIndex(readerIndex + bufferSize);
+                } else {
+                    writeMessage = write.nextPart();
+                }
             } else {
-                writeBuffer = write.buf;
+                // file regions are written as a whole, the channel transfers them in chunks as it becomes writable
+                writeMessage = write.nextPart();
             }
-            final ChannelFuture writeFuture = ctx.write(writeBuffer);
+            final boolean fileRegion = writeMessage instanceof ByteBuf == false;
+            final ChannelFuture writeFuture = ctx.write(writeMessage);
             needsFlush = true;
-            if (sliced == false) {
+            if (write.isDone()) {
                 currentWrite = null;
                 writeFuture.addListener(future -> {
                     assert ctx.executor().inEventLoop();
                     if (future.isSuccess()) {
                         write.promise.trySuccess();
                     } else {
-                        write.promise.tryFailure(future.cause());
+                        onWriteFailure(ctx, write, fileRegion, future.cause());
                     }
                 });
             } else {
                 writeFuture.addListener(future -> {
                     assert ctx.executor().inEventLoop();
                     if (future.isSuccess() == false) {
-                        write.promise.tryFailure(future.cause());
+                        onWriteFailure(ctx, write, fileRegion, future.cause());
                     }
                 });
             }
@@ -182,6 +193,14 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
         return true;
     }
 
+    private static void onWriteFailure(ChannelHandlerContext ctx, WriteOperation write, boolean fileRegion, Throwable cause) {
+        write.promise.tryFailure(cause);
+        if (fileRegion) {
+            // reading the file failed rather than the channel, but the message is incomplete on the wire so the channel is unusable now
+            ctx.close();
+        }
+    }
+
     private void failQueuedWrites() {
         if (currentWrite != null) {
             final WriteOperation current = currentWrite;
@@ -196,18 +215,52 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
 
     private static final class WriteOperation {
 
-        private final ByteBuf buf;
+        private final List<Object> parts;
 
         private final ChannelPromise promise;
 
-        WriteOperation(ByteBuf buf, ChannelPromise promise) {
-            this.buf = buf;
+        private int partIndex;
+
+        WriteOperation(List<Object> parts, ChannelPromise promise) {
+            this.parts = parts;
             this.promise = promise;
         }
 
+        Object currentPart() {
+            return parts.get(partIndex);
+        }
+
+        Object nextPart() {
+            return parts.get(partIndex++);
+        }
+
+        boolean isDone() {
+            return partIndex == parts.size();
+        }
+
         void failAsClosedChannel() {
             promise.tryFailure(new ClosedChannelException());
-            buf.release();
+            while (isDone() == false) {
+                ReferenceCountUtil.release(nextPart());
+            }
+        }
+    }
+
+    /**
+     * A message made of {@link ByteBuf}s and {@link io.netty.channel.FileRegion}s that are written in order without any other message
+     * being interleaved, completing the write promise once the last part has been written.
+     */
+    static final class MultiPartMessage {
+
+        private final List<Object> parts;
+
+        MultiPartMessage(List<Object> parts) {
+            assert parts.isEmpty() == false;
+            this.parts = parts;
+        }
+
+        List<Object> parts() {
+            return parts;
         }
     }
 }
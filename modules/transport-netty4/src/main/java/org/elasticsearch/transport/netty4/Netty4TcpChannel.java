@@ -8,19 +8,31 @@
 
 package org.elasticsearch.transport.netty4;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.ReferenceCountUtil;
 
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
 import org.elasticsearch.core.CompletableContext;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.transport.TcpChannel;
 import org.elasticsearch.transport.TransportException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Netty4TcpChannel implements TcpChannel {
 
@@ -131,15 +143,89 @@ public class Netty4TcpChannel implements TcpChannel {
         return (InetSocketAddress) channel.remoteAddress();
     }
 
+    /**
+     * File regions are read into memory if the channel is encrypted since TLS needs to see the bytes.
+     */
+    @Override
+    public boolean supportsFileRegions() {
+        return channel.pipeline().get(SslHandler.class) == null;
+    }
+
     @Override
     public void sendMessage(BytesReference reference, ActionListener<Void> listener) {
-        channel.writeAndFlush(Netty4Utils.toByteBuf(reference), addPromise(listener, channel));
+        final Object message;
+        try {
+            message = toMessage(reference);
+        } catch (IOException e) {
+            listener.onFailure(e);
+            return;
+        } catch (UncheckedIOException e) {
+            // a file region that is read into memory, e.g. because the channel is encrypted, fails to read its file
+            listener.onFailure(e.getCause());
+            return;
+        }
+        channel.writeAndFlush(message, addPromise(listener, channel));
 
         if (channel.eventLoop().isShutdown()) {
             listener.onFailure(new TransportException("Cannot send message, event loop is shutting down."));
         }
     }
 
+    /**
+     * Turns the given reference into a single {@link ByteBuf}, or into a {@link Netty4MessageChannelHandler.MultiPartMessage} that sends
+     * the {@link FileRegionBytesReference} parts of the reference as {@link DefaultFileRegion}s so that their bytes are transferred
+     * straight from the file to the socket if the channel {@link #supportsFileRegions() supports} it.
+     */
+    private Object toMessage(BytesReference reference) throws IOException {
+        final List<BytesReference> components = new ArrayList<>();
+        if (collectComponents(reference, components) == false || supportsFileRegions() == false) {
+            return Netty4Utils.toByteBuf(reference);
+        }
+        final List<Object> parts = new ArrayList<>();
+        final List<BytesReference> pending = new ArrayList<>();
+        boolean success = false;
+        try {
+            for (BytesReference component : components) {
+                if (component instanceof FileRegionBytesReference) {
+                    if (pending.isEmpty() == false) {
+                        parts.add(Netty4Utils.toByteBuf(CompositeBytesReference.of(pending.toArray(new BytesReference[0]))));
+                        pending.clear();
+                    }
+                    final FileRegionBytesReference fileRegion = (FileRegionBytesReference) component;
+                    // the file region closes the file channel once it has been written
+                    final FileChannel fileChannel = FileChannel.open(fileRegion.path(), StandardOpenOption.READ);
+                    parts.add(new DefaultFileRegion(fileChannel, fileRegion.position(), fileRegion.length()));
+                } else {
+                    pending.add(component);
+                }
+            }
+            if (pending.isEmpty() == false) {
+                parts.add(Netty4Utils.toByteBuf(CompositeBytesReference.of(pending.toArray(new BytesReference[0]))));
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                parts.forEach(ReferenceCountUtil::release);
+            }
+        }
+        return new Netty4MessageChannelHandler.MultiPartMessage(parts);
+    }
+
+    /**
+     * Flattens the given reference into the given list and returns whether it contains any file regions that can be sent as such.
+     */
+    private static boolean collectComponents(BytesReference reference, List<BytesReference> components) {
+        if (reference instanceof CompositeBytesReference) {
+            boolean hasFileRegions = false;
+            for (BytesReference component : ((CompositeBytesReference) reference).references()) {
+                hasFileRegions |= collectComponents(component, components);
+            }
+            return hasFileRegions;
+        }
+        components.add(reference);
+        return reference instanceof FileRegionBytesReference;
+    }
+
     public Channel getNettyChannel() {
         return channel;
     }
@@ -0,0 +1,232 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.network.NetworkService;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.SharedGroupFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class Netty4MessageChannelHandlerTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+    private Netty4Transport transport;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+        transport = new Netty4Transport(
+            Settings.EMPTY,
+            Version.CURRENT,
+            threadPool,
+            new NetworkService(Collections.emptyList()),
+            PageCacheRecycler.NON_RECYCLING_INSTANCE,
+            new NamedWriteableRegistry(Collections.emptyList()),
+            new NoneCircuitBreakerService(),
+            new SharedGroupFactory(Settings.EMPTY)
+        );
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        ThreadPool.terminate(threadPool, 10L, TimeUnit.SECONDS);
+        super.tearDown();
+    }
+
+    public void testWriteMultiPartMessage() throws IOException {
+        final EmbeddedChannel channel = new EmbeddedChannel(newHandler());
+        final byte[] header = randomByteArrayOfLength(randomIntBetween(1, 1 << 19));
+        final byte[] fileBytes = randomByteArrayOfLength(randomIntBetween(1, 1 << 16));
+        final byte[] trailer = randomByteArrayOfLength(randomIntBetween(1, 1 << 10));
+        final byte[] otherMessage = randomByteArrayOfLength(randomIntBetween(1, 1 << 10));
+
+        final ChannelPromise multiPartPromise = channel.newPromise();
+        channel.write(
+            new Netty4MessageChannelHandler.MultiPartMessage(
+                Arrays.asList(Unpooled.wrappedBuffer(header), newFileRegion(fileBytes), Unpooled.wrappedBuffer(trailer))
+            ),
+            multiPartPromise
+        );
+        final ChannelPromise otherPromise = channel.newPromise();
+        channel.write(Unpooled.wrappedBuffer(otherMessage), otherPromise);
+        assertFalse(multiPartPromise.isDone());
+        channel.flush();
+
+        assertTrue(multiPartPromise.isSuccess());
+        assertTrue(otherPromise.isSuccess());
+        // the parts of the message are written in order, and before any other message
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(header);
+        expected.write(fileBytes);
+        expected.write(trailer);
+        expected.write(otherMessage);
+        assertArrayEquals(expected.toByteArray(), readOutbound(channel));
+        assertFalse(channel.finish());
+    }
+
+    public void testWriteFailureOfFileRegionClosesChannel() throws IOException {
+        final IOException exception = new IOException("simulated");
+        final EmbeddedChannel channel = new EmbeddedChannel(new FailingHandler(FileRegion.class, exception), newHandler());
+        final ByteBuf trailer = Unpooled.wrappedBuffer(randomByteArrayOfLength(randomIntBetween(1, 1 << 10)));
+
+        final ChannelPromise promise = channel.newPromise();
+        channel.writeAndFlush(
+            new Netty4MessageChannelHandler.MultiPartMessage(
+                Arrays.asList(
+                    Unpooled.wrappedBuffer(randomByteArrayOfLength(randomIntBetween(1, 1 << 10))),
+                    newFileRegion(randomByteArrayOfLength(randomIntBetween(1, 1 << 10))),
+                    trailer
+                )
+            ),
+            promise
+        );
+        channel.runPendingTasks();
+
+        assertThat(promise.cause(), sameInstance(exception));
+        // the message is incomplete on the wire
+        assertFalse(channel.isOpen());
+        assertThat(trailer.refCnt(), equalTo(0));
+    }
+
+    public void testWriteFailureOfByteBufDoesNotCloseChannel() {
+        final IOException exception = new IOException("simulated");
+        final EmbeddedChannel channel = new EmbeddedChannel(new FailingHandler(ByteBuf.class, exception), newHandler());
+
+        final ChannelPromise promise = channel.newPromise();
+        channel.writeAndFlush(Unpooled.wrappedBuffer(randomByteArrayOfLength(randomIntBetween(1, 1 << 10))), promise);
+        channel.runPendingTasks();
+
+        assertThat(promise.cause(), sameInstance(exception));
+        assertTrue(channel.isOpen());
+        assertFalse(channel.finish());
+    }
+
+    public void testCloseReleasesPendingParts() throws IOException {
+        final EmbeddedChannel channel = new EmbeddedChannel(newHandler());
+        final ByteBuf header = Unpooled.wrappedBuffer(randomByteArrayOfLength(randomIntBetween(1, 1 << 10)));
+        final Path file = createTempFile();
+        Files.write(file, randomByteArrayOfLength(randomIntBetween(1, 1 << 10)));
+        final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        final DefaultFileRegion fileRegion = new DefaultFileRegion(fileChannel, 0L, fileChannel.size());
+
+        final ChannelPromise promise = channel.newPromise();
+        channel.write(new Netty4MessageChannelHandler.MultiPartMessage(Arrays.asList(header, fileRegion)), promise);
+        channel.close();
+
+        assertThat(promise.cause(), instanceOf(ClosedChannelException.class));
+        assertThat(header.refCnt(), equalTo(0));
+        assertThat(fileRegion.refCnt(), equalTo(0));
+        assertFalse(fileChannel.isOpen());
+        assertThat(channel.readOutbound(), nullValue());
+    }
+
+    private Netty4MessageChannelHandler newHandler() {
+        return new Netty4MessageChannelHandler(PageCacheRecycler.NON_RECYCLING_INSTANCE, transport);
+    }
+
+    private FileRegion newFileRegion(byte[] bytes) throws IOException {
+        final Path file = createTempFile();
+        final int position = randomIntBetween(0, 10);
+        final byte[] fileBytes = new byte[position + bytes.length + randomIntBetween(0, 10)];
+        System.arraycopy(bytes, 0, fileBytes, position, bytes.length);
+        Files.write(file, fileBytes);
+        return new DefaultFileRegion(FileChannel.open(file, StandardOpenOption.READ), position, bytes.length);
+    }
+
+    /**
+     * Reads and releases the outbound messages of the given channel, and returns their bytes.
+     */
+    static byte[] readOutbound(EmbeddedChannel channel) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Object message;
+        while ((message = channel.readOutbound()) != null) {
+            try {
+                writeMessage(message, bytes);
+            } finally {
+                ReferenceCountUtil.release(message);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the bytes of the given {@link ByteBuf} or {@link FileRegion} to the given output.
+     */
+    static void writeMessage(Object message, ByteArrayOutputStream output) throws IOException {
+        if (message instanceof ByteBuf) {
+            final ByteBuf buf = (ByteBuf) message;
+            buf.getBytes(buf.readerIndex(), output, buf.readableBytes());
+        } else {
+            final FileRegion fileRegion = (FileRegion) message;
+            final WritableByteChannel target = Channels.newChannel(output);
+            while (fileRegion.transferred() < fileRegion.count()) {
+                fileRegion.transferTo(target, fileRegion.transferred());
+            }
+        }
+    }
+
+    /**
+     * Fails the writes of messages of the given type, and passes the other ones through.
+     */
+    private static class FailingHandler extends ChannelOutboundHandlerAdapter {
+
+        private final Class<?> failingType;
+        private final Exception exception;
+
+        FailingHandler(Class<?> failingType, Exception exception) {
+            this.failingType = failingType;
+            this.exception = exception;
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (failingType.isInstance(msg)) {
+                ReferenceCountUtil.release(msg);
+                promise.setFailure(exception);
+            } else {
+                ctx.write(msg, promise);
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.ReferenceCountUtil;
+
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class Netty4TcpChannelTests extends ESTestCase {
+
+    public void testSendBytesAsByteBuf() throws Exception {
+        final CapturingHandler capturingHandler = new CapturingHandler();
+        final Netty4TcpChannel channel = newChannel(new EmbeddedChannel(capturingHandler));
+        final BytesReference reference = new BytesArray(randomByteArrayOfLength(randomIntBetween(1, 1 << 10)));
+
+        sendMessage(channel, reference);
+
+        assertThat(capturingHandler.messages.size(), equalTo(1));
+        assertThat(capturingHandler.messages.get(0), instanceOf(ByteBuf.class));
+        assertArrayEquals(BytesReference.toBytes(reference), capturingHandler.readMessages());
+    }
+
+    public void testSendFileRegionsAsMultiPartMessage() throws Exception {
+        final CapturingHandler capturingHandler = new CapturingHandler();
+        final Netty4TcpChannel channel = newChannel(new EmbeddedChannel(capturingHandler));
+        final FileRegionBytesReference fileRegion = newFileRegion();
+        final BytesReference reference = CompositeBytesReference.of(
+            new BytesArray(randomByteArrayOfLength(randomIntBetween(1, 1 << 10))),
+            CompositeBytesReference.of(new BytesArray(randomByteArrayOfLength(randomIntBetween(1, 1 << 10))), fileRegion),
+            new BytesArray(randomByteArrayOfLength(randomIntBetween(1, 1 << 10)))
+        );
+
+        sendMessage(channel, reference);
+
+        assertThat(capturingHandler.messages.size(), equalTo(1));
+        assertThat(capturingHandler.messages.get(0), instanceOf(Netty4MessageChannelHandler.MultiPartMessage.class));
+        final List<Object> parts = ((Netty4MessageChannelHandler.MultiPartMessage) capturingHandler.messages.get(0)).parts();
+        assertThat(parts.size(), equalTo(3));
+        assertThat(parts.get(0), instanceOf(ByteBuf.class));
+        assertThat(parts.get(1), instanceOf(DefaultFileRegion.class));
+        assertThat(parts.get(2), instanceOf(ByteBuf.class));
+        final DefaultFileRegion defaultFileRegion = (DefaultFileRegion) parts.get(1);
+        assertThat(defaultFileRegion.position(), equalTo(fileRegion.position()));
+        assertThat(defaultFileRegion.count(), equalTo((long) fileRegion.length()));
+        assertArrayEquals(BytesReference.toBytes(reference), capturingHandler.readMessages());
+    }
+
+    public void testSendFileRegionsAsByteBufOverTls() throws Exception {
+        final CapturingHandler capturingHandler = new CapturingHandler();
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(newSslHandler(), capturingHandler);
+        final Netty4TcpChannel channel = newChannel(embeddedChannel);
+        final BytesReference reference = CompositeBytesReference.of(
+            new BytesArray(randomByteArrayOfLength(randomIntBetween(1, 1 << 10))),
+            newFileRegion()
+        );
+
+        sendMessage(channel, reference);
+
+        // TLS needs to see the bytes so the file region is read into memory
+        assertThat(capturingHandler.messages.size(), equalTo(1));
+        assertThat(capturingHandler.messages.get(0), instanceOf(ByteBuf.class));
+        assertArrayEquals(BytesReference.toBytes(reference), capturingHandler.readMessages());
+        embeddedChannel.close();
+    }
+
+    public void testSendMissingFileRegionFailsListener() throws Exception {
+        final CapturingHandler capturingHandler = new CapturingHandler();
+        final Netty4TcpChannel channel = newChannel(new EmbeddedChannel(capturingHandler));
+        final Path file = createTempDir().resolve("missing");
+        final BytesReference reference = CompositeBytesReference.of(
+            new BytesArray(randomByteArrayOfLength(randomIntBetween(1, 1 << 10))),
+            new FileRegionBytesReference(file, 0L, randomIntBetween(1, 1 << 10))
+        );
+
+        final PlainActionFuture<Void> future = PlainActionFuture.newFuture();
+        channel.sendMessage(reference, future);
+
+        final ExecutionException e = expectThrows(ExecutionException.class, future::get);
+        assertThat(e.getCause(), instanceOf(NoSuchFileException.class));
+        assertThat(capturingHandler.messages, empty());
+    }
+
+    public void testSendMissingFileRegionOverTlsFailsListener() throws Exception {
+        final CapturingHandler capturingHandler = new CapturingHandler();
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(newSslHandler(), capturingHandler);
+        final Netty4TcpChannel channel = newChannel(embeddedChannel);
+        final Path file = createTempDir().resolve("missing");
+        final BytesReference reference = CompositeBytesReference.of(
+            new BytesArray(randomByteArrayOfLength(randomIntBetween(1, 1 << 10))),
+            new FileRegionBytesReference(file, 0L, randomIntBetween(1, 1 << 10))
+        );
+
+        // reading the file region into memory fails before anything is written
+        final PlainActionFuture<Void> future = PlainActionFuture.newFuture();
+        channel.sendMessage(reference, future);
+
+        final ExecutionException e = expectThrows(ExecutionException.class, future::get);
+        assertThat(e.getCause(), instanceOf(NoSuchFileException.class));
+        assertThat(capturingHandler.messages, empty());
+        embeddedChannel.close();
+    }
+
+    public void testSupportsFileRegionsUnlessEncrypted() throws Exception {
+        assertTrue(newChannel(new EmbeddedChannel(new CapturingHandler())).supportsFileRegions());
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(newSslHandler(), new CapturingHandler());
+        assertFalse(newChannel(embeddedChannel).supportsFileRegions());
+        embeddedChannel.close();
+    }
+
+    private static SslHandler newSslHandler() throws Exception {
+        final SSLEngine sslEngine = SSLContext.getDefault().createSSLEngine();
+        sslEngine.setUseClientMode(false);
+        return new SslHandler(sslEngine);
+    }
+
+    private static Netty4TcpChannel newChannel(EmbeddedChannel embeddedChannel) {
+        return new Netty4TcpChannel(embeddedChannel, false, "default", embeddedChannel.newSucceededFuture());
+    }
+
+    private static void sendMessage(Netty4TcpChannel channel, BytesReference reference) {
+        final PlainActionFuture<Void> future = PlainActionFuture.newFuture();
+        channel.sendMessage(reference, future);
+        assertTrue(future.isDone());
+        future.actionGet();
+    }
+
+    private FileRegionBytesReference newFileRegion() throws IOException {
+        final Path file = createTempFile();
+        final int position = randomIntBetween(0, 1 << 10);
+        final int length = randomIntBetween(1, 1 << 10);
+        Files.write(file, randomByteArrayOfLength(position + length + randomIntBetween(0, 1 << 10)));
+        return new FileRegionBytesReference(file, position, length);
+    }
+
+    /**
+     * Captures the written messages rather than passing them on to the channel.
+     */
+    private static class CapturingHandler extends ChannelOutboundHandlerAdapter {
+
+        private final List<Object> messages = new ArrayList<>();
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            messages.add(msg);
+            promise.setSuccess();
+        }
+
+        /**
+         * Reads and releases the captured messages, and returns their bytes.
+         */
+        byte[] readMessages() throws IOException {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            for (Object message : messages) {
+                final List<Object> parts = message instanceof Netty4MessageChannelHandler.MultiPartMessage
+                    ? ((Netty4MessageChannelHandler.MultiPartMessage) message).parts()
+                    : Collections.singletonList(message);
+                for (Object part : parts) {
+                    try {
+                        Netty4MessageChannelHandlerTests.writeMessage(part, bytes);
+                    } finally {
+                        ReferenceCountUtil.release(part);
+                    }
+                }
+            }
+            messages.clear();
+            return bytes.toByteArray();
+        }
+    }
+}
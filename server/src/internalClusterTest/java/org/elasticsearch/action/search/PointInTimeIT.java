@@ -24,14 +24,20 @@ import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.search.SearchContextMissingException;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
 import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.ESIntegTestCase;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -45,6 +51,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.in;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 
 public class PointInTimeIT extends ESIntegTestCase {
@@ -397,6 +404,84 @@ public class PointInTimeIT extends ESIntegTestCase {
         }
     }
 
+    public void testCompositePrefetchPages() throws Exception {
+        createIndex("test", Settings.builder().put("index.number_of_shards", randomIntBetween(1, 3)).build());
+        int numDocs = randomIntBetween(10, 200);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("test", "_doc").setId(Integer.toString(i)).setSource("value", randomIntBetween(0, 100)).get();
+        }
+        refresh("test");
+        String pit = openPointInTime(new String[] { "test" }, TimeValue.timeValueMinutes(2));
+        try {
+            int size = randomIntBetween(1, 10);
+            SortOrder order = randomFrom(SortOrder.values());
+            List<Map<String, Object>> expected = collectCompositePages(pit, size, order, 1);
+            assertThat(collectCompositePages(pit, size, order, randomIntBetween(2, 5)), equalTo(expected));
+        } finally {
+            closePointInTime(pit);
+        }
+    }
+
+    public void testCompositePrefetchPagesWithRuntimeMappings() throws Exception {
+        createIndex("test", Settings.builder().put("index.number_of_shards", randomIntBetween(1, 3)).build());
+        int numDocs = randomIntBetween(10, 200);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("test", "_doc").setId(Integer.toString(i)).setSource("value", randomIntBetween(0, 100)).get();
+        }
+        refresh("test");
+        // shadows the numeric field with a keyword runtime field, which sorts the values differently
+        Map<String, Object> runtimeMappings = Collections.singletonMap("value", Collections.singletonMap("type", "keyword"));
+        String pit = openPointInTime(new String[] { "test" }, TimeValue.timeValueMinutes(2));
+        try {
+            int size = randomIntBetween(1, 10);
+            // the first page prefetches all the buckets, so the buckets of the first request are the only ones stored
+            int prefetchPages = 101;
+            List<Map<String, Object>> expected = collectCompositePages(pit, size, SortOrder.ASC, 1, Collections.emptyMap());
+            List<Map<String, Object>> expectedRuntime = collectCompositePages(pit, size, SortOrder.ASC, 1, runtimeMappings);
+            assertThat(collectCompositePages(pit, size, SortOrder.ASC, prefetchPages, runtimeMappings), equalTo(expectedRuntime));
+            assertThat(collectCompositePages(pit, size, SortOrder.ASC, prefetchPages, Collections.emptyMap()), equalTo(expected));
+        } finally {
+            closePointInTime(pit);
+        }
+    }
+
+    private List<Map<String, Object>> collectCompositePages(String pit, int size, SortOrder order, int prefetchPages) {
+        return collectCompositePages(pit, size, order, prefetchPages, Collections.emptyMap());
+    }
+
+    private List<Map<String, Object>> collectCompositePages(
+        String pit,
+        int size,
+        SortOrder order,
+        int prefetchPages,
+        Map<String, Object> runtimeMappings
+    ) {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        Map<String, Object> afterKey = null;
+        while (true) {
+            CompositeAggregationBuilder composite = new CompositeAggregationBuilder(
+                "composite",
+                Collections.singletonList(new TermsValuesSourceBuilder("value").field("value").order(order))
+            ).size(size).prefetchPages(prefetchPages).aggregateAfter(afterKey);
+            SearchResponse response = client().prepareSearch()
+                .setPointInTime(new PointInTimeBuilder(pit))
+                .setSize(0)
+                .setRuntimeMappings(runtimeMappings)
+                .addAggregation(composite)
+                .get();
+            assertNoFailures(response);
+            CompositeAggregation result = response.getAggregations().get("composite");
+            if (result.getBuckets().isEmpty()) {
+                return keys;
+            }
+            assertThat(result.getBuckets().size(), lessThanOrEqualTo(size));
+            for (CompositeAggregation.Bucket bucket : result.getBuckets()) {
+                keys.add(bucket.getKey());
+            }
+            afterKey = result.afterKey();
+        }
+    }
+
     @SuppressWarnings({ "rawtypes", "unchecked" })
     private void assertPagination(PointInTimeBuilder pit, int expectedNumDocs, int size, SortBuilder<?>... sorts) throws Exception {
         Set<String> seen = new HashSet<>();
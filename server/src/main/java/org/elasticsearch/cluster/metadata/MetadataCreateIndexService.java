@@ -1056,6 +1056,7 @@ public class MetadataCreateIndexService {
         }
         validateTranslogRetentionSettings(indexSettings);
         validateStoreTypeSetting(indexSettings);
+        validateDocValuesSkipIndexSetting(indexSettings);
         return indexSettings;
     }
 
@@ -1607,4 +1608,23 @@ public class MetadataCreateIndexService {
             );
         }
     }
+
+    /**
+     * Nodes before {@link Version#V_7_16_3} can't read doc values written with a skip index, so indices that may be allocated
+     * to such nodes can't enable it.
+     */
+    public static void validateDocValuesSkipIndexSetting(Settings indexSettings) {
+        final Version indexVersionCreated = IndexMetadata.SETTING_INDEX_VERSION_CREATED.get(indexSettings);
+        if (IndexSettings.INDEX_DOC_VALUES_SKIP_INDEX_SETTING.get(indexSettings) && indexVersionCreated.before(Version.V_7_16_3)) {
+            throw new IllegalArgumentException(
+                "["
+                    + IndexSettings.INDEX_DOC_VALUES_SKIP_INDEX_SETTING.getKey()
+                    + "] requires all nodes of the cluster to be on version ["
+                    + Version.V_7_16_3
+                    + "] or later but the index is created with version ["
+                    + indexVersionCreated
+                    + "]"
+            );
+        }
+    }
 }
@@ -17,6 +17,8 @@ import org.apache.lucene.util.RamUsageEstimator;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.stream.IntStream;
 
@@ -136,6 +138,13 @@ public final class CompositeBytesReference extends AbstractBytesReference {
         return result;
     }
 
+    /**
+     * @return the bytes references that this composite is made of, in order
+     */
+    public List<BytesReference> references() {
+        return Collections.unmodifiableList(Arrays.asList(references));
+    }
+
     @Override
     public int length() {
         return length;
@@ -0,0 +1,142 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.bytes;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.apache.lucene.util.FutureObjects;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.io.Channels;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link BytesReference} that points at a region of a file on disk rather than holding the bytes on heap. Transports that are able to
+ * send a file region without copying it through user space (e.g. using {@code sendfile}) can pick the region up from an outbound message
+ * via {@link #writeTo(OutputStream)} when writing to a {@link FileRegionOutput}. Any other access reads the region into memory the first
+ * time it is needed, so the file must not change while this reference is in use.
+ */
+public final class FileRegionBytesReference extends AbstractBytesReference {
+
+    private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(FileRegionBytesReference.class);
+
+    private final Path path;
+    private final long position;
+    private final int length;
+
+    private volatile BytesReference bytes;
+
+    public FileRegionBytesReference(Path path, long position, int length) {
+        if (position < 0L) {
+            throw new IllegalArgumentException("position must be non-negative but was [" + position + "]");
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("length must be non-negative but was [" + length + "]");
+        }
+        this.path = path;
+        this.position = position;
+        this.length = length;
+    }
+
+    /**
+     * An output that can take file regions without having their bytes copied into it.
+     */
+    public interface FileRegionOutput {
+
+        /**
+         * Appends the given file region to this output.
+         */
+        void writeFileRegion(FileRegionBytesReference fileRegion) throws IOException;
+    }
+
+    /**
+     * @return the path of the file this region belongs to
+     */
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * @return the position of the first byte of this region in the file
+     */
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public byte get(int index) {
+        return bytes().get(index);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public BytesReference slice(int from, int length) {
+        FutureObjects.checkFromIndexSize(from, length, this.length);
+        if (from == 0 && this.length == length) {
+            return this;
+        }
+        return new FileRegionBytesReference(path, position + from, length);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        final BytesReference bytes = this.bytes;
+        return SHALLOW_SIZE + (bytes == null ? 0L : bytes.ramBytesUsed());
+    }
+
+    @Override
+    public void writeTo(OutputStream os) throws IOException {
+        if (os instanceof FileRegionOutput) {
+            ((FileRegionOutput) os).writeFileRegion(this);
+        } else {
+            bytes().writeTo(os);
+        }
+    }
+
+    @Override
+    public BytesRef toBytesRef() {
+        return bytes().toBytesRef();
+    }
+
+    @Override
+    public BytesRefIterator iterator() {
+        return bytes().iterator();
+    }
+
+    private BytesReference bytes() {
+        BytesReference bytes = this.bytes;
+        if (bytes == null) {
+            if (length == 0) {
+                bytes = BytesArray.EMPTY;
+            } else {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    bytes = new BytesArray(Channels.readFromFileChannel(channel, position, length));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("failed to read [" + length + "] bytes at [" + position + "] from [" + path + "]", e);
+                }
+            }
+            this.bytes = bytes;
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "FileRegionBytesReference{path=" + path + ", position=" + position + ", length=" + length + '}';
+    }
+}
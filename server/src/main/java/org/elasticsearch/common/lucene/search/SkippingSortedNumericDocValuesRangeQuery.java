@@ -0,0 +1,216 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.lucene.search;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.elasticsearch.index.codec.skipindex.DocValuesSkipIndex;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * A range query over sorted numeric doc values, equivalent to
+ * {@link org.apache.lucene.document.SortedNumericDocValuesField#newSlowRangeQuery}, that uses the
+ * {@link DocValuesSkipIndex} of the doc values when available. Blocks of documents whose values can't be in the range
+ * are skipped without reading any value, and documents of blocks whose values are all in the range match without
+ * reading their values.
+ */
+public final class SkippingSortedNumericDocValuesRangeQuery extends Query {
+
+    private final String field;
+    private final long lowerValue;
+    private final long upperValue;
+
+    public SkippingSortedNumericDocValuesRangeQuery(String field, long lowerValue, long upperValue) {
+        this.field = Objects.requireNonNull(field);
+        this.lowerValue = lowerValue;
+        this.upperValue = upperValue;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public long getLowerValue() {
+        return lowerValue;
+    }
+
+    public long getUpperValue() {
+        return upperValue;
+    }
+
+    @Override
+    public Query rewrite(IndexReader reader) throws IOException {
+        if (lowerValue == Long.MIN_VALUE && upperValue == Long.MAX_VALUE) {
+            return new DocValuesFieldExistsQuery(field);
+        }
+        return super.rewrite(reader);
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        return new ConstantScoreWeight(this, boost) {
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) throws IOException {
+                final FieldInfo fieldInfo = context.reader().getFieldInfos().fieldInfo(field);
+                if (fieldInfo == null) {
+                    return null;
+                }
+                final SortedNumericDocValues values = DocValues.getSortedNumeric(context.reader(), field);
+                final DocValuesSkipIndex skipIndex = DocValuesSkipIndex.get(values);
+                final NumericDocValues singleton = DocValues.unwrapSingleton(values);
+                final DocIdSetIterator approximation;
+                if (skipIndex == null) {
+                    approximation = values;
+                } else {
+                    approximation = new SkippingIterator(values, skipIndex, lowerValue, upperValue);
+                }
+                final TwoPhaseIterator iterator = new TwoPhaseIterator(approximation) {
+
+                    @Override
+                    public boolean matches() throws IOException {
+                        if (skipIndex != null && skipIndex.within(skipIndex.block(values.docID()), lowerValue, upperValue)) {
+                            // all values of the block are in the range and the approximation only returns docs with a value
+                            return true;
+                        }
+                        if (singleton != null) {
+                            final long value = singleton.longValue();
+                            return value >= lowerValue && value <= upperValue;
+                        }
+                        for (int i = 0, count = values.docValueCount(); i < count; ++i) {
+                            final long value = values.nextValue();
+                            if (value < lowerValue) {
+                                continue;
+                            }
+                            // Values are sorted, so the first value that is >= lowerValue is our best candidate
+                            return value <= upperValue;
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public float matchCost() {
+                        return 2; // 2 comparisons
+                    }
+                };
+                return new ConstantScoreScorer(this, score(), scoreMode, iterator);
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext ctx) {
+                return DocValues.isCacheable(ctx, field);
+            }
+        };
+    }
+
+    /**
+     * Iterates over the documents that have a value, skipping over the blocks whose values can't be in the range.
+     */
+    static final class SkippingIterator extends DocIdSetIterator {
+
+        private final DocIdSetIterator in;
+        private final DocValuesSkipIndex skipIndex;
+        private final long lowerValue;
+        private final long upperValue;
+        private int doc = -1;
+
+        SkippingIterator(DocIdSetIterator in, DocValuesSkipIndex skipIndex, long lowerValue, long upperValue) {
+            this.in = in;
+            this.skipIndex = skipIndex;
+            this.lowerValue = lowerValue;
+            this.upperValue = upperValue;
+        }
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            return advance(doc + 1);
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            int next = target;
+            while (true) {
+                int block = skipIndex.block(next);
+                while (block < skipIndex.numBlocks() && skipIndex.intersects(block, lowerValue, upperValue) == false) {
+                    block++;
+                }
+                if (block >= skipIndex.numBlocks()) {
+                    return doc = NO_MORE_DOCS;
+                }
+                next = Math.max(next, block << skipIndex.blockShift());
+                final int current = in.docID() >= next ? in.docID() : in.advance(next);
+                if (current == NO_MORE_DOCS) {
+                    return doc = NO_MORE_DOCS;
+                }
+                if (skipIndex.block(current) == block) {
+                    return doc = current;
+                }
+                // the candidate block had no value after the target, check the block of the next document with a value
+                next = current;
+            }
+        }
+
+        @Override
+        public long cost() {
+            return in.cost();
+        }
+    }
+
+    @Override
+    public String toString(String field) {
+        StringBuilder b = new StringBuilder();
+        if (this.field.equals(field) == false) {
+            b.append(this.field).append(":");
+        }
+        return b.append("[").append(lowerValue).append(" TO ").append(upperValue).append("]").toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        SkippingSortedNumericDocValuesRangeQuery that = (SkippingSortedNumericDocValuesRangeQuery) obj;
+        return Objects.equals(field, that.field) && lowerValue == that.lowerValue && upperValue == that.upperValue;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, lowerValue, upperValue);
+    }
+}
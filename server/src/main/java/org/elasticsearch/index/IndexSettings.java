@@ -337,6 +337,18 @@ public final class IndexSettings {
         Property.Final
     );
 
+    /**
+     * Specifies whether numeric doc values should be written with a skip index that records the minimum and maximum
+     * value of every block of documents, see {@link org.elasticsearch.index.codec.skipindex.SkipIndexDocValuesFormat}. Only indices
+     * created on or after {@link Version#V_7_16_3} can enable it.
+     */
+    public static final Setting<Boolean> INDEX_DOC_VALUES_SKIP_INDEX_SETTING = Setting.boolSetting(
+        "index.doc_values.skip_index",
+        false,
+        Property.IndexScope,
+        Property.Final
+    );
+
     /**
      * Controls how many soft-deleted documents will be kept around before being merged away. Keeping more deleted
      * documents increases the chance of operation-based recoveries and allows querying a longer history of documents.
@@ -505,6 +517,7 @@ public final class IndexSettings {
     private final IndexScopedSettings scopedSettings;
     private long gcDeletesInMillis = DEFAULT_GC_DELETES.millis();
     private final boolean softDeleteEnabled;
+    private final boolean docValuesSkipIndexEnabled;
     private volatile long softDeleteRetentionOperations;
 
     private volatile long retentionLeaseMillis;
@@ -642,6 +655,8 @@ public final class IndexSettings {
         mergeSchedulerConfig = new MergeSchedulerConfig(this);
         gcDeletesInMillis = scopedSettings.get(INDEX_GC_DELETES_SETTING).getMillis();
         softDeleteEnabled = version.onOrAfter(Version.V_6_5_0) && scopedSettings.get(INDEX_SOFT_DELETES_SETTING);
+        // older nodes can't read doc values with a skip index, so it is only written on indices that can't be allocated to them
+        docValuesSkipIndexEnabled = version.onOrAfter(Version.V_7_16_3) && scopedSettings.get(INDEX_DOC_VALUES_SKIP_INDEX_SETTING);
         softDeleteRetentionOperations = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING);
         retentionLeaseMillis = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING).millis();
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
@@ -1247,6 +1262,13 @@ public final class IndexSettings {
         return softDeleteEnabled;
     }
 
+    /**
+     * Returns <code>true</code> if numeric doc values are written with a skip index.
+     */
+    public boolean isDocValuesSkipIndexEnabled() {
+        return docValuesSkipIndexEnabled;
+    }
+
     private void setSoftDeleteRetentionOperations(long ops) {
         this.softDeleteRetentionOperations = ops;
     }
@@ -14,6 +14,7 @@ import org.apache.lucene.codecs.PostingsFormat;
 import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
 import org.apache.lucene.codecs.lucene87.Lucene87Codec;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.codec.skipindex.SkipIndexDocValuesFormat;
 import org.elasticsearch.index.mapper.MapperService;
 
 /**
@@ -27,8 +28,7 @@ import org.elasticsearch.index.mapper.MapperService;
 public class PerFieldMappingPostingFormatCodec extends Lucene87Codec {
 
     private final MapperService mapperService;
-    // Always enable compression on binary doc values
-    private final DocValuesFormat docValuesFormat = new Lucene80DocValuesFormat(Lucene80DocValuesFormat.Mode.BEST_COMPRESSION);
+    private final DocValuesFormat docValuesFormat;
 
     static {
         assert Codec.forName(Lucene.LATEST_CODEC).getClass().isAssignableFrom(PerFieldMappingPostingFormatCodec.class)
@@ -38,6 +38,12 @@ public class PerFieldMappingPostingFormatCodec extends Lucene87Codec {
     public PerFieldMappingPostingFormatCodec(Mode compressionMode, MapperService mapperService) {
         super(compressionMode);
         this.mapperService = mapperService;
+        if (mapperService.getIndexSettings().isDocValuesSkipIndexEnabled()) {
+            this.docValuesFormat = new SkipIndexDocValuesFormat();
+        } else {
+            // Always enable compression on binary doc values
+            this.docValuesFormat = new Lucene80DocValuesFormat(Lucene80DocValuesFormat.Mode.BEST_COMPRESSION);
+        }
     }
 
     @Override
@@ -51,6 +57,10 @@ public class PerFieldMappingPostingFormatCodec extends Lucene87Codec {
 
     @Override
     public DocValuesFormat getDocValuesFormatForField(String field) {
-        return docValuesFormat;
+        DocValuesFormat format = mapperService.mappingLookup().getDocValuesFormat(field);
+        if (format == null) {
+            return docValuesFormat;
+        }
+        return format;
     }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.skipindex;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.core.Nullable;
+
+/**
+ * A per-segment index of the minimum and maximum value of a numeric doc values field for every block of
+ * {@code 2^blockShift} consecutive documents. It allows consumers of the doc values to skip blocks that can't
+ * contain any matching value, and to process blocks whose values all fall into the same bucket in bulk.
+ * The index is computed at flush and merge time by {@link SkipIndexDocValuesFormat} and fully loaded in
+ * memory when the segment is opened.
+ */
+public final class DocValuesSkipIndex implements Accountable {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(DocValuesSkipIndex.class);
+
+    private final int maxDoc;
+    private final int blockShift;
+    private final long[] minValues;
+    private final long[] maxValues;
+    private final int[] docCounts;
+
+    DocValuesSkipIndex(int maxDoc, int blockShift, long[] minValues, long[] maxValues, int[] docCounts) {
+        assert minValues.length == maxValues.length && minValues.length == docCounts.length;
+        assert minValues.length == numBlocks(maxDoc, blockShift);
+        this.maxDoc = maxDoc;
+        this.blockShift = blockShift;
+        this.minValues = minValues;
+        this.maxValues = maxValues;
+        this.docCounts = docCounts;
+    }
+
+    static int numBlocks(int maxDoc, int blockShift) {
+        return (int) ((maxDoc + (1L << blockShift) - 1) >>> blockShift);
+    }
+
+    /**
+     * Returns the skip index of the provided doc values, or {@code null} if they don't carry one, which is the case
+     * for indices that don't enable {@code index.doc_values.skip_index} and for doc values that are wrapped
+     * to transform their values.
+     */
+    @Nullable
+    public static DocValuesSkipIndex get(SortedNumericDocValues values) {
+        if (values instanceof SkipIndexedDocValues) {
+            return ((SkipIndexedDocValues) values).skipIndex();
+        }
+        final NumericDocValues singleton = DocValues.unwrapSingleton(values);
+        if (singleton instanceof SkipIndexedDocValues) {
+            return ((SkipIndexedDocValues) singleton).skipIndex();
+        }
+        return null;
+    }
+
+    /**
+     * The number of documents per block is {@code 1 << blockShift}.
+     */
+    public int blockShift() {
+        return blockShift;
+    }
+
+    public int numBlocks() {
+        return minValues.length;
+    }
+
+    /**
+     * Returns the block that contains the provided document.
+     */
+    public int block(int doc) {
+        return doc >>> blockShift;
+    }
+
+    /**
+     * Returns the minimum value of the documents of the provided block. Only meaningful if {@link #docCount(int)} is
+     * greater than {@code 0}.
+     */
+    public long minValue(int block) {
+        return minValues[block];
+    }
+
+    /**
+     * Returns the maximum value of the documents of the provided block. Only meaningful if {@link #docCount(int)} is
+     * greater than {@code 0}.
+     */
+    public long maxValue(int block) {
+        return maxValues[block];
+    }
+
+    /**
+     * Returns the number of documents of the provided block that have at least one value.
+     */
+    public int docCount(int block) {
+        return docCounts[block];
+    }
+
+    /**
+     * Returns whether all documents of the provided block have at least one value.
+     */
+    public boolean isDense(int block) {
+        final int firstDoc = block << blockShift;
+        final int numDocs = (int) Math.min(1L << blockShift, (long) maxDoc - firstDoc);
+        return docCounts[block] == numDocs;
+    }
+
+    /**
+     * Returns whether some values of the provided block may fall within the {@code [min, max]} range.
+     */
+    public boolean intersects(int block, long min, long max) {
+        return docCounts[block] > 0 && minValues[block] <= max && maxValues[block] >= min;
+    }
+
+    /**
+     * Returns whether all values of the provided block fall within the {@code [min, max]} range.
+     */
+    public boolean within(int block, long min, long max) {
+        return docCounts[block] > 0 && minValues[block] >= min && maxValues[block] <= max;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return BASE_RAM_BYTES_USED
+            + RamUsageEstimator.sizeOf(minValues)
+            + RamUsageEstimator.sizeOf(maxValues)
+            + RamUsageEstimator.sizeOf(docCounts);
+    }
+}
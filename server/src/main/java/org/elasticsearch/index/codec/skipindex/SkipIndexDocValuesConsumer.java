@@ -0,0 +1,155 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.skipindex;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.IndexOutput;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+
+/**
+ * Writes doc values through the delegate consumer and the per-block minimum and maximum values of numeric fields
+ * to the skip index file. Merges go through {@link DocValuesConsumer#merge} which calls the {@code add*Field} methods
+ * with the merged values, so the skip index of merged segments is recomputed from scratch.
+ */
+final class SkipIndexDocValuesConsumer extends DocValuesConsumer {
+
+    private final DocValuesConsumer delegate;
+    private final int maxDoc;
+    private final int blockShift;
+    private IndexOutput out;
+
+    SkipIndexDocValuesConsumer(DocValuesConsumer delegate, SegmentWriteState state, int blockShift) throws IOException {
+        this.delegate = delegate;
+        this.maxDoc = state.segmentInfo.maxDoc();
+        this.blockShift = blockShift;
+        boolean success = false;
+        try {
+            final String fileName = IndexFileNames.segmentFileName(
+                state.segmentInfo.name,
+                state.segmentSuffix,
+                SkipIndexDocValuesFormat.EXTENSION
+            );
+            out = state.directory.createOutput(fileName, state.context);
+            CodecUtil.writeIndexHeader(
+                out,
+                SkipIndexDocValuesFormat.CODEC_NAME,
+                SkipIndexDocValuesFormat.VERSION_CURRENT,
+                state.segmentInfo.getId(),
+                state.segmentSuffix
+            );
+            out.writeVInt(blockShift);
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(out, delegate);
+            }
+        }
+    }
+
+    @Override
+    public void addNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addNumericField(field, valuesProducer);
+        writeSkipIndex(field, DocValues.singleton(valuesProducer.getNumeric(field)));
+    }
+
+    @Override
+    public void addSortedNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedNumericField(field, valuesProducer);
+        writeSkipIndex(field, valuesProducer.getSortedNumeric(field));
+    }
+
+    @Override
+    public void addBinaryField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addBinaryField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedSetField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedSetField(field, valuesProducer);
+    }
+
+    private void writeSkipIndex(FieldInfo field, SortedNumericDocValues values) throws IOException {
+        final int numBlocks = DocValuesSkipIndex.numBlocks(maxDoc, blockShift);
+        out.writeInt(field.number);
+        out.writeVInt(numBlocks);
+        int currentBlock = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        int docCount = 0;
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            final int block = doc >>> blockShift;
+            while (currentBlock < block) {
+                writeBlock(min, max, docCount);
+                currentBlock++;
+                min = Long.MAX_VALUE;
+                max = Long.MIN_VALUE;
+                docCount = 0;
+            }
+            // values of a document are sorted in ascending order
+            final int valueCount = values.docValueCount();
+            final long first = values.nextValue();
+            long last = first;
+            for (int i = 1; i < valueCount; i++) {
+                last = values.nextValue();
+            }
+            min = Math.min(min, first);
+            max = Math.max(max, last);
+            docCount++;
+        }
+        while (currentBlock < numBlocks) {
+            writeBlock(min, max, docCount);
+            currentBlock++;
+            min = Long.MAX_VALUE;
+            max = Long.MIN_VALUE;
+            docCount = 0;
+        }
+    }
+
+    private void writeBlock(long min, long max, int docCount) throws IOException {
+        out.writeVInt(docCount);
+        if (docCount > 0) {
+            out.writeZLong(min);
+            out.writeZLong(max);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean success = false;
+        try {
+            if (out != null) {
+                out.writeInt(-1); // end of fields marker
+                CodecUtil.writeFooter(out);
+            }
+            success = true;
+        } finally {
+            if (success) {
+                IOUtils.close(delegate, out);
+            } else {
+                IOUtils.closeWhileHandlingException(delegate, out);
+            }
+            out = null;
+        }
+    }
+}
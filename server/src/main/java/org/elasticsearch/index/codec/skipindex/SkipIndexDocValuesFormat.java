@@ -0,0 +1,66 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.skipindex;
+
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+
+import java.io.IOException;
+
+/**
+ * A {@link DocValuesFormat} that stores doc values with {@link Lucene80DocValuesFormat} and additionally writes a
+ * {@link DocValuesSkipIndex} for every numeric and sorted numeric field to a sidecar file. Doc values of these fields
+ * that are read through this format expose their skip index through {@link DocValuesSkipIndex#get}.
+ */
+public final class SkipIndexDocValuesFormat extends DocValuesFormat {
+
+    public static final String NAME = "ES716SkipIndex";
+
+    static final String CODEC_NAME = "ES716SkipIndex";
+    static final String EXTENSION = "dvs";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+
+    /**
+     * Blocks of 4096 documents: large enough to keep the index tiny, small enough to skip efficiently on index sorted
+     * or time-based data.
+     */
+    static final int DEFAULT_BLOCK_SHIFT = 12;
+
+    private final DocValuesFormat delegate;
+    private final int blockShift;
+
+    public SkipIndexDocValuesFormat() {
+        this(DEFAULT_BLOCK_SHIFT);
+    }
+
+    public SkipIndexDocValuesFormat(int blockShift) {
+        super(NAME);
+        if (blockShift < 1 || blockShift > 30) {
+            throw new IllegalArgumentException("blockShift must be in [1, 30], got [" + blockShift + "]");
+        }
+        // Always enable compression on binary doc values, like the default Elasticsearch codec
+        this.delegate = new Lucene80DocValuesFormat(Lucene80DocValuesFormat.Mode.BEST_COMPRESSION);
+        this.blockShift = blockShift;
+    }
+
+    @Override
+    public DocValuesConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+        return new SkipIndexDocValuesConsumer(delegate.fieldsConsumer(state), state, blockShift);
+    }
+
+    @Override
+    public DocValuesProducer fieldsProducer(SegmentReadState state) throws IOException {
+        return new SkipIndexDocValuesProducer(delegate.fieldsProducer(state), state);
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.skipindex;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads doc values through the delegate producer and attaches the {@link DocValuesSkipIndex} of numeric fields,
+ * which is fully loaded in memory when the segment is opened, to the doc values that it returns.
+ */
+final class SkipIndexDocValuesProducer extends DocValuesProducer {
+
+    private final DocValuesProducer delegate;
+    private final Map<String, DocValuesSkipIndex> skipIndexes;
+
+    SkipIndexDocValuesProducer(DocValuesProducer delegate, SegmentReadState state) throws IOException {
+        this.delegate = delegate;
+        boolean success = false;
+        try {
+            this.skipIndexes = readSkipIndexes(state);
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(delegate);
+            }
+        }
+    }
+
+    private static Map<String, DocValuesSkipIndex> readSkipIndexes(SegmentReadState state) throws IOException {
+        final String fileName = IndexFileNames.segmentFileName(
+            state.segmentInfo.name,
+            state.segmentSuffix,
+            SkipIndexDocValuesFormat.EXTENSION
+        );
+        final int maxDoc = state.segmentInfo.maxDoc();
+        final Map<String, DocValuesSkipIndex> skipIndexes = new HashMap<>();
+        try (ChecksumIndexInput in = state.directory.openChecksumInput(fileName, state.context)) {
+            Throwable priorE = null;
+            try {
+                CodecUtil.checkIndexHeader(
+                    in,
+                    SkipIndexDocValuesFormat.CODEC_NAME,
+                    SkipIndexDocValuesFormat.VERSION_START,
+                    SkipIndexDocValuesFormat.VERSION_CURRENT,
+                    state.segmentInfo.getId(),
+                    state.segmentSuffix
+                );
+                final int blockShift = in.readVInt();
+                for (int fieldNumber = in.readInt(); fieldNumber != -1; fieldNumber = in.readInt()) {
+                    final FieldInfo fieldInfo = state.fieldInfos.fieldInfo(fieldNumber);
+                    if (fieldInfo == null) {
+                        throw new CorruptIndexException("invalid field number: " + fieldNumber, in);
+                    }
+                    final int numBlocks = in.readVInt();
+                    if (numBlocks != DocValuesSkipIndex.numBlocks(maxDoc, blockShift)) {
+                        throw new CorruptIndexException("invalid number of blocks: " + numBlocks + " for maxDoc: " + maxDoc, in);
+                    }
+                    final long[] minValues = new long[numBlocks];
+                    final long[] maxValues = new long[numBlocks];
+                    final int[] docCounts = new int[numBlocks];
+                    for (int block = 0; block < numBlocks; block++) {
+                        docCounts[block] = in.readVInt();
+                        if (docCounts[block] > 0) {
+                            minValues[block] = in.readZLong();
+                            maxValues[block] = in.readZLong();
+                        } else {
+                            minValues[block] = Long.MAX_VALUE;
+                            maxValues[block] = Long.MIN_VALUE;
+                        }
+                    }
+                    skipIndexes.put(fieldInfo.name, new DocValuesSkipIndex(maxDoc, blockShift, minValues, maxValues, docCounts));
+                }
+            } catch (Throwable exception) {
+                priorE = exception;
+            } finally {
+                CodecUtil.checkFooter(in, priorE);
+            }
+        }
+        return skipIndexes;
+    }
+
+    @Override
+    public NumericDocValues getNumeric(FieldInfo field) throws IOException {
+        final NumericDocValues values = delegate.getNumeric(field);
+        final DocValuesSkipIndex skipIndex = skipIndexes.get(field.name);
+        return skipIndex == null ? values : new SkipIndexedNumericDocValues(values, skipIndex);
+    }
+
+    @Override
+    public SortedNumericDocValues getSortedNumeric(FieldInfo field) throws IOException {
+        final SortedNumericDocValues values = delegate.getSortedNumeric(field);
+        final DocValuesSkipIndex skipIndex = skipIndexes.get(field.name);
+        if (skipIndex == null) {
+            return values;
+        }
+        // keep single-valued fields unwrappable, many consumers have a fast path for them
+        final NumericDocValues singleton = DocValues.unwrapSingleton(values);
+        if (singleton != null) {
+            return DocValues.singleton(new SkipIndexedNumericDocValues(singleton, skipIndex));
+        }
+        return new SkipIndexedSortedNumericDocValues(values, skipIndex);
+    }
+
+    @Override
+    public BinaryDocValues getBinary(FieldInfo field) throws IOException {
+        return delegate.getBinary(field);
+    }
+
+    @Override
+    public SortedDocValues getSorted(FieldInfo field) throws IOException {
+        return delegate.getSorted(field);
+    }
+
+    @Override
+    public SortedSetDocValues getSortedSet(FieldInfo field) throws IOException {
+        return delegate.getSortedSet(field);
+    }
+
+    @Override
+    public void checkIntegrity() throws IOException {
+        // the skip index file is fully verified when it is loaded
+        delegate.checkIntegrity();
+    }
+
+    @Override
+    public DocValuesProducer getMergeInstance() throws IOException {
+        // merges recompute the skip index from the merged values
+        return delegate.getMergeInstance();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = delegate.ramBytesUsed();
+        for (DocValuesSkipIndex skipIndex : skipIndexes.values()) {
+            ramBytesUsed += skipIndex.ramBytesUsed();
+        }
+        return ramBytesUsed;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        final List<Accountable> resources = new ArrayList<>();
+        resources.add(Accountables.namedAccountable("delegate", delegate));
+        resources.addAll(Accountables.namedAccountables("skip index", skipIndexes));
+        return Collections.unmodifiableList(resources);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(delegate=" + delegate + ")";
+    }
+
+    private static final class SkipIndexedNumericDocValues extends NumericDocValues implements SkipIndexedDocValues {
+
+        private final NumericDocValues in;
+        private final DocValuesSkipIndex skipIndex;
+
+        SkipIndexedNumericDocValues(NumericDocValues in, DocValuesSkipIndex skipIndex) {
+            this.in = in;
+            this.skipIndex = skipIndex;
+        }
+
+        @Override
+        public DocValuesSkipIndex skipIndex() {
+            return skipIndex;
+        }
+
+        @Override
+        public long longValue() throws IOException {
+            return in.longValue();
+        }
+
+        @Override
+        public boolean advanceExact(int target) throws IOException {
+            return in.advanceExact(target);
+        }
+
+        @Override
+        public int docID() {
+            return in.docID();
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            return in.nextDoc();
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            return in.advance(target);
+        }
+
+        @Override
+        public long cost() {
+            return in.cost();
+        }
+    }
+
+    private static final class SkipIndexedSortedNumericDocValues extends SortedNumericDocValues implements SkipIndexedDocValues {
+
+        private final SortedNumericDocValues in;
+        private final DocValuesSkipIndex skipIndex;
+
+        SkipIndexedSortedNumericDocValues(SortedNumericDocValues in, DocValuesSkipIndex skipIndex) {
+            this.in = in;
+            this.skipIndex = skipIndex;
+        }
+
+        @Override
+        public DocValuesSkipIndex skipIndex() {
+            return skipIndex;
+        }
+
+        @Override
+        public long nextValue() throws IOException {
+            return in.nextValue();
+        }
+
+        @Override
+        public int docValueCount() {
+            return in.docValueCount();
+        }
+
+        @Override
+        public boolean advanceExact(int target) throws IOException {
+            return in.advanceExact(target);
+        }
+
+        @Override
+        public int docID() {
+            return in.docID();
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            return in.nextDoc();
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            return in.advance(target);
+        }
+
+        @Override
+        public long cost() {
+            return in.cost();
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfo;
 import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.index.Term;
@@ -877,11 +878,21 @@ public abstract class Engine implements Closeable {
         stats.addNormsMemoryInBytes(guardedRamBytesUsed(segmentReader.getNormsReader()));
         stats.addPointsMemoryInBytes(guardedRamBytesUsed(segmentReader.getPointsReader()));
         stats.addDocValuesMemoryInBytes(guardedRamBytesUsed(segmentReader.getDocValuesReader()));
+        final SegmentInfo segmentInfo = segmentReader.getSegmentInfo().info;
+        stats.addVectorGraph(
+            segmentAttribute(segmentInfo, SegmentsStats.VECTOR_GRAPH_MEMORY_ATTRIBUTE),
+            segmentAttribute(segmentInfo, SegmentsStats.VECTOR_GRAPH_BUILD_TIME_ATTRIBUTE)
+        );
         if (includeSegmentFileSizes) {
             stats.addFiles(getSegmentFileSizes(segmentReader));
         }
     }
 
+    private static long segmentAttribute(SegmentInfo segmentInfo, String key) {
+        final String value = segmentInfo.getAttribute(key);
+        return value == null ? 0L : Long.parseLong(value);
+    }
+
     private ImmutableOpenMap<String, SegmentsStats.FileStats> getSegmentFileSizes(SegmentReader segmentReader) {
         try {
             final ImmutableOpenMap.Builder<String, SegmentsStats.FileStats> files = ImmutableOpenMap.builder();
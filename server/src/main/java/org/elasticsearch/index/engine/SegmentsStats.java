@@ -17,6 +17,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.store.LuceneFilesExtensions;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
@@ -25,6 +26,17 @@ import java.io.IOException;
 
 public class SegmentsStats implements Writeable, ToXContentFragment {
 
+    /**
+     * Segment attribute holding the size, in bytes, of the nearest neighbour graphs of the vector fields of a segment, which
+     * are read off-heap and should fit in the filesystem cache for searches to be fast.
+     */
+    public static final String VECTOR_GRAPH_MEMORY_ATTRIBUTE = "es.vector_graph.memory_in_bytes";
+    /**
+     * Segment attribute holding the time, in milliseconds, that it took to build the nearest neighbour graphs of the vector
+     * fields of a segment when it was flushed or merged.
+     */
+    public static final String VECTOR_GRAPH_BUILD_TIME_ATTRIBUTE = "es.vector_graph.build_time_in_millis";
+
     private long count;
     private long memoryInBytes;
     private long termsMemoryInBytes;
@@ -37,6 +49,8 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
     private long versionMapMemoryInBytes;
     private long maxUnsafeAutoIdTimestamp = Long.MIN_VALUE;
     private long bitsetMemoryInBytes;
+    private long vectorGraphMemoryInBytes;
+    private long vectorGraphBuildTimeInMillis;
     private ImmutableOpenMap<String, FileStats> files = ImmutableOpenMap.of();
 
     public SegmentsStats() {}
@@ -54,6 +68,10 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         versionMapMemoryInBytes = in.readLong();
         bitsetMemoryInBytes = in.readLong();
         maxUnsafeAutoIdTimestamp = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_7_16_3)) {
+            vectorGraphMemoryInBytes = in.readVLong();
+            vectorGraphBuildTimeInMillis = in.readVLong();
+        }
 
         final int size = in.readVInt();
         final ImmutableOpenMap.Builder<String, FileStats> files = ImmutableOpenMap.builder(size);
@@ -109,6 +127,11 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         this.bitsetMemoryInBytes += bitsetMemoryInBytes;
     }
 
+    public void addVectorGraph(long vectorGraphMemoryInBytes, long vectorGraphBuildTimeInMillis) {
+        this.vectorGraphMemoryInBytes += vectorGraphMemoryInBytes;
+        this.vectorGraphBuildTimeInMillis += vectorGraphBuildTimeInMillis;
+    }
+
     public void addFiles(ImmutableOpenMap<String, FileStats> files) {
         final ImmutableOpenMap.Builder<String, FileStats> map = ImmutableOpenMap.builder(this.files);
         for (ObjectObjectCursor<String, FileStats> entry : files) {
@@ -138,6 +161,7 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         addIndexWriterMemoryInBytes(mergeStats.indexWriterMemoryInBytes);
         addVersionMapMemoryInBytes(mergeStats.versionMapMemoryInBytes);
         addBitsetMemoryInBytes(mergeStats.bitsetMemoryInBytes);
+        addVectorGraph(mergeStats.vectorGraphMemoryInBytes, mergeStats.vectorGraphBuildTimeInMillis);
         addFiles(mergeStats.files);
     }
 
@@ -258,6 +282,28 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         return new ByteSizeValue(bitsetMemoryInBytes);
     }
 
+    /**
+     * Memory used by the nearest neighbour graphs of vector fields, which are read off-heap and should fit in the filesystem cache.
+     */
+    public long getVectorGraphMemoryInBytes() {
+        return vectorGraphMemoryInBytes;
+    }
+
+    public ByteSizeValue getVectorGraphMemory() {
+        return new ByteSizeValue(vectorGraphMemoryInBytes);
+    }
+
+    /**
+     * Total time it took to build the nearest neighbour graphs of vector fields when the segments were written.
+     */
+    public long getVectorGraphBuildTimeInMillis() {
+        return vectorGraphBuildTimeInMillis;
+    }
+
+    public TimeValue getVectorGraphBuildTime() {
+        return new TimeValue(vectorGraphBuildTimeInMillis);
+    }
+
     public ImmutableOpenMap<String, FileStats> getFiles() {
         return files;
     }
@@ -284,6 +330,8 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         builder.humanReadableField(Fields.INDEX_WRITER_MEMORY_IN_BYTES, Fields.INDEX_WRITER_MEMORY, getIndexWriterMemory());
         builder.humanReadableField(Fields.VERSION_MAP_MEMORY_IN_BYTES, Fields.VERSION_MAP_MEMORY, getVersionMapMemory());
         builder.humanReadableField(Fields.FIXED_BIT_SET_MEMORY_IN_BYTES, Fields.FIXED_BIT_SET, getBitsetMemory());
+        builder.humanReadableField(Fields.VECTOR_GRAPH_MEMORY_IN_BYTES, Fields.VECTOR_GRAPH_MEMORY, getVectorGraphMemory());
+        builder.humanReadableField(Fields.VECTOR_GRAPH_BUILD_TIME_IN_MILLIS, Fields.VECTOR_GRAPH_BUILD_TIME, getVectorGraphBuildTime());
         builder.field(Fields.MAX_UNSAFE_AUTO_ID_TIMESTAMP, maxUnsafeAutoIdTimestamp);
         builder.startObject(Fields.FILE_SIZES);
         for (ObjectObjectCursor<String, FileStats> entry : files) {
@@ -318,6 +366,10 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         static final String MAX_UNSAFE_AUTO_ID_TIMESTAMP = "max_unsafe_auto_id_timestamp";
         static final String FIXED_BIT_SET = "fixed_bit_set";
         static final String FIXED_BIT_SET_MEMORY_IN_BYTES = "fixed_bit_set_memory_in_bytes";
+        static final String VECTOR_GRAPH_MEMORY = "vector_graph_memory";
+        static final String VECTOR_GRAPH_MEMORY_IN_BYTES = "vector_graph_memory_in_bytes";
+        static final String VECTOR_GRAPH_BUILD_TIME = "vector_graph_build_time";
+        static final String VECTOR_GRAPH_BUILD_TIME_IN_MILLIS = "vector_graph_build_time_in_millis";
         static final String FILE_SIZES = "file_sizes";
     }
 
@@ -335,6 +387,10 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         out.writeLong(versionMapMemoryInBytes);
         out.writeLong(bitsetMemoryInBytes);
         out.writeLong(maxUnsafeAutoIdTimestamp);
+        if (out.getVersion().onOrAfter(Version.V_7_16_3)) {
+            out.writeVLong(vectorGraphMemoryInBytes);
+            out.writeVLong(vectorGraphBuildTimeInMillis);
+        }
 
         out.writeVInt(files.size());
         for (FileStats file : files.values()) {
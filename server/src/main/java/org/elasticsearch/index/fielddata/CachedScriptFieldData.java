@@ -0,0 +1,257 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.fielddata;
+
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData.NumericType;
+import org.elasticsearch.index.fielddata.plain.LeafDoubleFieldData;
+import org.elasticsearch.index.fielddata.plain.LeafLongFieldData;
+import org.elasticsearch.script.AbstractLongFieldScript;
+import org.elasticsearch.script.DoubleFieldScript;
+
+import java.util.Arrays;
+
+/**
+ * Field data holding the values that the script of a runtime field computed for all documents of a segment, so that they can
+ * be cached and read back like doc values instead of running the script again for every request.
+ * <p>
+ * The memory is reserved on the breaker before it is allocated, while the values are computed, so that a segment whose values
+ * don't fit trips the breaker as soon as possible rather than after running the script on all of its documents. Once the values
+ * are computed the breaker holds exactly their {@link LeafFieldData#ramBytesUsed()}, which the field data cache releases when
+ * it drops them.
+ */
+final class CachedScriptFieldData {
+
+    private CachedScriptFieldData() {}
+
+    /**
+     * Whether the values of the given segment may be cached. The cache is keyed by the core cache key of the segment, which
+     * readers that hide fields, like the ones of field level security, share with the reader they wrap. The script could read
+     * different values through such a reader, so these values are computed on the fly rather than served to users that are
+     * allowed to see different fields.
+     */
+    static boolean isCacheable(LeafReaderContext context) {
+        final LeafReader reader = context.reader();
+        return reader.getFieldInfos() == FilterLeafReader.unwrap(reader).getFieldInfos();
+    }
+
+    /**
+     * Runs {@code script} on all the documents of its segment and returns the sorted values of every document.
+     */
+    static LeafLongFieldData longs(
+        AbstractLongFieldScript script,
+        int maxDoc,
+        NumericType numericType,
+        CircuitBreaker breaker,
+        String label
+    ) {
+        final Reservation reservation = new Reservation(breaker, label);
+        boolean success = false;
+        try {
+            final long offsetsBytes = sizeOfArray(maxDoc + 1, Integer.BYTES);
+            reservation.reserve(offsetsBytes);
+            final int[] offsets = new int[maxDoc + 1];
+            long[] values = new long[0];
+            int size = 0;
+            for (int doc = 0; doc < maxDoc; doc++) {
+                script.runForDoc(doc);
+                final int count = script.count();
+                if (count > 0) {
+                    if (size + count > values.length) {
+                        final int newLength = ArrayUtil.oversize(size + count, Long.BYTES);
+                        // the old and the new array are both alive while the values are copied
+                        reservation.reserve(offsetsBytes + sizeOfArray(values.length, Long.BYTES) + sizeOfArray(newLength, Long.BYTES));
+                        values = ArrayUtil.growExact(values, newLength);
+                    }
+                    System.arraycopy(script.values(), 0, values, size, count);
+                    Arrays.sort(values, size, size + count);
+                    size += count;
+                }
+                offsets[doc + 1] = size;
+            }
+            if (size < values.length) {
+                reservation.reserve(offsetsBytes + sizeOfArray(values.length, Long.BYTES) + sizeOfArray(size, Long.BYTES));
+                values = ArrayUtil.copyOfSubArray(values, 0, size);
+            }
+            final Longs longs = new Longs(offsets, values, numericType);
+            reservation.adjust(longs.ramBytesUsed());
+            success = true;
+            return longs;
+        } finally {
+            if (success == false) {
+                reservation.release();
+            }
+        }
+    }
+
+    /**
+     * Runs {@code script} on all the documents of its segment and returns the sorted values of every document.
+     */
+    static LeafDoubleFieldData doubles(DoubleFieldScript script, int maxDoc, CircuitBreaker breaker, String label) {
+        final Reservation reservation = new Reservation(breaker, label);
+        boolean success = false;
+        try {
+            final long offsetsBytes = sizeOfArray(maxDoc + 1, Integer.BYTES);
+            reservation.reserve(offsetsBytes);
+            final int[] offsets = new int[maxDoc + 1];
+            double[] values = new double[0];
+            int size = 0;
+            for (int doc = 0; doc < maxDoc; doc++) {
+                script.runForDoc(doc);
+                final int count = script.count();
+                if (count > 0) {
+                    if (size + count > values.length) {
+                        final int newLength = ArrayUtil.oversize(size + count, Double.BYTES);
+                        // the old and the new array are both alive while the values are copied
+                        reservation.reserve(
+                            offsetsBytes + sizeOfArray(values.length, Double.BYTES) + sizeOfArray(newLength, Double.BYTES)
+                        );
+                        values = ArrayUtil.growExact(values, newLength);
+                    }
+                    System.arraycopy(script.values(), 0, values, size, count);
+                    Arrays.sort(values, size, size + count);
+                    size += count;
+                }
+                offsets[doc + 1] = size;
+            }
+            if (size < values.length) {
+                reservation.reserve(offsetsBytes + sizeOfArray(values.length, Double.BYTES) + sizeOfArray(size, Double.BYTES));
+                values = ArrayUtil.copyOfSubArray(values, 0, size);
+            }
+            final Doubles doubles = new Doubles(offsets, values);
+            reservation.adjust(doubles.ramBytesUsed());
+            success = true;
+            return doubles;
+        } finally {
+            if (success == false) {
+                reservation.release();
+            }
+        }
+    }
+
+    private static long sizeOfArray(int length, int bytesPerElement) {
+        return RamUsageEstimator.alignObjectSize((long) RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) length * bytesPerElement);
+    }
+
+    /**
+     * The bytes reserved on the breaker for the values of a segment while they are computed.
+     */
+    private static final class Reservation {
+        private final CircuitBreaker breaker;
+        private final String label;
+        private long reserved;
+
+        Reservation(CircuitBreaker breaker, String label) {
+            this.breaker = breaker;
+            this.label = label;
+        }
+
+        /**
+         * Makes sure that at least {@code bytes} are reserved, tripping the breaker if they don't fit.
+         */
+        void reserve(long bytes) {
+            if (bytes > reserved) {
+                breaker.addEstimateBytesAndMaybeBreak(bytes - reserved, label);
+                reserved = bytes;
+            }
+        }
+
+        /**
+         * Sets the reserved bytes to exactly {@code bytes}.
+         */
+        void adjust(long bytes) {
+            breaker.addWithoutBreaking(bytes - reserved);
+            reserved = bytes;
+        }
+
+        void release() {
+            adjust(0);
+        }
+    }
+
+    private static final class Longs extends LeafLongFieldData {
+        // the values of document i are values[offsets[i]] to values[offsets[i + 1] - 1]
+        private final int[] offsets;
+        private final long[] values;
+
+        Longs(int[] offsets, long[] values, NumericType numericType) {
+            super(RamUsageEstimator.sizeOf(offsets) + RamUsageEstimator.sizeOf(values), numericType);
+            this.offsets = offsets;
+            this.values = values;
+        }
+
+        @Override
+        public SortedNumericDocValues getLongValues() {
+            return new AbstractSortedNumericDocValues() {
+                private int cursor;
+                private int count;
+
+                @Override
+                public boolean advanceExact(int target) {
+                    cursor = offsets[target];
+                    count = offsets[target + 1] - cursor;
+                    return count > 0;
+                }
+
+                @Override
+                public long nextValue() {
+                    return values[cursor++];
+                }
+
+                @Override
+                public int docValueCount() {
+                    return count;
+                }
+            };
+        }
+    }
+
+    private static final class Doubles extends LeafDoubleFieldData {
+        // the values of document i are values[offsets[i]] to values[offsets[i + 1] - 1]
+        private final int[] offsets;
+        private final double[] values;
+
+        Doubles(int[] offsets, double[] values) {
+            super(RamUsageEstimator.sizeOf(offsets) + RamUsageEstimator.sizeOf(values));
+            this.offsets = offsets;
+            this.values = values;
+        }
+
+        @Override
+        public SortedNumericDoubleValues getDoubleValues() {
+            return new SortedNumericDoubleValues() {
+                private int cursor;
+                private int count;
+
+                @Override
+                public boolean advanceExact(int target) {
+                    cursor = offsets[target];
+                    count = offsets[target + 1] - cursor;
+                    return count > 0;
+                }
+
+                @Override
+                public double nextValue() {
+                    return values[cursor++];
+                }
+
+                @Override
+                public int docValueCount() {
+                    return count;
+                }
+            };
+        }
+    }
+}
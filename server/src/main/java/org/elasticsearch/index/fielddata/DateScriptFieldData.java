@@ -11,35 +11,66 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.fielddata.plain.LeafLongFieldData;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.script.DateFieldScript;
+import org.elasticsearch.script.Script;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.aggregations.support.ValuesSourceType;
 
 public final class DateScriptFieldData extends IndexNumericFieldData {
 
-    public static class Builder implements IndexFieldData.Builder {
+    public static class Builder implements IndexFieldData.ScriptBuilder {
         private final String name;
         private final DateFieldScript.LeafFactory leafFactory;
+        private final Script cacheableScript;
 
         public Builder(String name, DateFieldScript.LeafFactory leafFactory) {
+            this(name, leafFactory, null);
+        }
+
+        public Builder(String name, DateFieldScript.LeafFactory leafFactory, @Nullable Script cacheableScript) {
             this.name = name;
             this.leafFactory = leafFactory;
+            this.cacheableScript = cacheableScript;
         }
 
         @Override
         public DateScriptFieldData build(IndexFieldDataCache cache, CircuitBreakerService breakerService) {
-            return new DateScriptFieldData(name, leafFactory);
+            return new DateScriptFieldData(name, leafFactory, null, null);
+        }
+
+        @Override
+        public Script cacheableScript() {
+            return cacheableScript;
+        }
+
+        @Override
+        public DateScriptFieldData buildCached(IndexFieldDataCache cache, CircuitBreakerService breakerService) {
+            return new DateScriptFieldData(name, leafFactory, cache, breakerService.getBreaker(CircuitBreaker.FIELDDATA));
         }
     }
 
     private final String fieldName;
     private final DateFieldScript.LeafFactory leafFactory;
-
-    private DateScriptFieldData(String fieldName, DateFieldScript.LeafFactory leafFactory) {
+    // the cache of the values computed for whole segments, null if the values are computed on the fly
+    @Nullable
+    private final IndexFieldDataCache cache;
+    private final CircuitBreaker breaker;
+
+    private DateScriptFieldData(
+        String fieldName,
+        DateFieldScript.LeafFactory leafFactory,
+        @Nullable IndexFieldDataCache cache,
+        @Nullable CircuitBreaker breaker
+    ) {
         this.fieldName = fieldName;
         this.leafFactory = leafFactory;
+        this.cache = cache;
+        this.breaker = breaker;
     }
 
     @Override
@@ -53,17 +84,33 @@ public final class DateScriptFieldData extends IndexNumericFieldData {
     }
 
     @Override
-    public DateScriptLeafFieldData load(LeafReaderContext context) {
-        try {
-            return loadDirect(context);
-        } catch (Exception e) {
-            throw ExceptionsHelper.convertToElastic(e);
+    public LeafLongFieldData load(LeafReaderContext context) {
+        if (cache != null && CachedScriptFieldData.isCacheable(context)) {
+            try {
+                return cache.load(context, this);
+            } catch (Exception e) {
+                if (ExceptionsHelper.unwrap(e, CircuitBreakingException.class) == null) {
+                    throw ExceptionsHelper.convertToElastic(e);
+                }
+                // not enough memory to keep the values of the whole segment, compute them on the fly instead
+            }
         }
+        return new DateScriptLeafFieldData(new LongScriptDocValues(leafFactory.newInstance(context)));
     }
 
     @Override
-    public DateScriptLeafFieldData loadDirect(LeafReaderContext context) {
-        return new DateScriptLeafFieldData(new LongScriptDocValues(leafFactory.newInstance(context)));
+    public LeafLongFieldData loadDirect(LeafReaderContext context) {
+        if (cache == null) {
+            return new DateScriptLeafFieldData(new LongScriptDocValues(leafFactory.newInstance(context)));
+        }
+        LeafLongFieldData fieldData = CachedScriptFieldData.longs(
+            leafFactory.newInstance(context),
+            context.reader().maxDoc(),
+            NumericType.DATE,
+            breaker,
+            fieldName
+        );
+        return fieldData;
     }
 
     @Override
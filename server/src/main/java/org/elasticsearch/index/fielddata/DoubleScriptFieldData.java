@@ -10,35 +10,66 @@ package org.elasticsearch.index.fielddata;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.fielddata.plain.LeafDoubleFieldData;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.script.DoubleFieldScript;
+import org.elasticsearch.script.Script;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.aggregations.support.ValuesSourceType;
 
 public final class DoubleScriptFieldData extends IndexNumericFieldData {
 
-    public static class Builder implements IndexFieldData.Builder {
+    public static class Builder implements IndexFieldData.ScriptBuilder {
         private final String name;
         private final DoubleFieldScript.LeafFactory leafFactory;
+        private final Script cacheableScript;
 
         public Builder(String name, DoubleFieldScript.LeafFactory leafFactory) {
+            this(name, leafFactory, null);
+        }
+
+        public Builder(String name, DoubleFieldScript.LeafFactory leafFactory, @Nullable Script cacheableScript) {
             this.name = name;
             this.leafFactory = leafFactory;
+            this.cacheableScript = cacheableScript;
         }
 
         @Override
         public DoubleScriptFieldData build(IndexFieldDataCache cache, CircuitBreakerService breakerService) {
-            return new DoubleScriptFieldData(name, leafFactory);
+            return new DoubleScriptFieldData(name, leafFactory, null, null);
+        }
+
+        @Override
+        public Script cacheableScript() {
+            return cacheableScript;
+        }
+
+        @Override
+        public DoubleScriptFieldData buildCached(IndexFieldDataCache cache, CircuitBreakerService breakerService) {
+            return new DoubleScriptFieldData(name, leafFactory, cache, breakerService.getBreaker(CircuitBreaker.FIELDDATA));
         }
     }
 
     private final String fieldName;
-    DoubleFieldScript.LeafFactory leafFactory;
-
-    private DoubleScriptFieldData(String fieldName, DoubleFieldScript.LeafFactory leafFactory) {
+    private final DoubleFieldScript.LeafFactory leafFactory;
+    // the cache of the values computed for whole segments, null if the values are computed on the fly
+    @Nullable
+    private final IndexFieldDataCache cache;
+    private final CircuitBreaker breaker;
+
+    private DoubleScriptFieldData(
+        String fieldName,
+        DoubleFieldScript.LeafFactory leafFactory,
+        @Nullable IndexFieldDataCache cache,
+        @Nullable CircuitBreaker breaker
+    ) {
         this.fieldName = fieldName;
         this.leafFactory = leafFactory;
+        this.cache = cache;
+        this.breaker = breaker;
     }
 
     @Override
@@ -52,17 +83,26 @@ public final class DoubleScriptFieldData extends IndexNumericFieldData {
     }
 
     @Override
-    public DoubleScriptLeafFieldData load(LeafReaderContext context) {
-        try {
-            return loadDirect(context);
-        } catch (Exception e) {
-            throw ExceptionsHelper.convertToElastic(e);
+    public LeafDoubleFieldData load(LeafReaderContext context) {
+        if (cache != null && CachedScriptFieldData.isCacheable(context)) {
+            try {
+                return cache.load(context, this);
+            } catch (Exception e) {
+                if (ExceptionsHelper.unwrap(e, CircuitBreakingException.class) == null) {
+                    throw ExceptionsHelper.convertToElastic(e);
+                }
+                // not enough memory to keep the values of the whole segment, compute them on the fly instead
+            }
         }
+        return new DoubleScriptLeafFieldData(new DoubleScriptDocValues(leafFactory.newInstance(context)));
     }
 
     @Override
-    public DoubleScriptLeafFieldData loadDirect(LeafReaderContext context) {
-        return new DoubleScriptLeafFieldData(new DoubleScriptDocValues(leafFactory.newInstance(context)));
+    public LeafDoubleFieldData loadDirect(LeafReaderContext context) {
+        if (cache == null) {
+            return new DoubleScriptLeafFieldData(new DoubleScriptDocValues(leafFactory.newInstance(context)));
+        }
+        return CachedScriptFieldData.doubles(leafFactory.newInstance(context), context.reader().maxDoc(), breaker, fieldName);
     }
 
     @Override
@@ -8,16 +8,20 @@
 
 package org.elasticsearch.index.fielddata;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 
 public class FieldDataStats implements Writeable, ToXContentFragment {
@@ -27,25 +31,41 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
     private static final String MEMORY_SIZE_IN_BYTES = "memory_size_in_bytes";
     private static final String EVICTIONS = "evictions";
     private static final String FIELDS = "fields";
+    private static final String GLOBAL_ORDINALS = "global_ordinals";
+    private static final String BUILD_TIME = "build_time";
+    private static final String BUILD_TIME_IN_MILLIS = "build_time_in_millis";
+    private static final String REUSE_COUNT = "reuse_count";
+    private static final String SHARD_MAX_VALUE_COUNT = "shard_max_value_count";
     private long memorySize;
     private long evictions;
     @Nullable
     private FieldMemoryStats fields;
+    private final GlobalOrdinalsStats globalOrdinalsStats;
 
     public FieldDataStats() {
-
+        this.globalOrdinalsStats = new GlobalOrdinalsStats(0, 0, null);
     }
 
     public FieldDataStats(StreamInput in) throws IOException {
         memorySize = in.readVLong();
         evictions = in.readVLong();
         fields = in.readOptionalWriteable(FieldMemoryStats::new);
+        if (in.getVersion().onOrAfter(Version.V_7_16_3)) {
+            globalOrdinalsStats = new GlobalOrdinalsStats(in);
+        } else {
+            globalOrdinalsStats = new GlobalOrdinalsStats(0, 0, null);
+        }
     }
 
     public FieldDataStats(long memorySize, long evictions, @Nullable FieldMemoryStats fields) {
+        this(memorySize, evictions, fields, new GlobalOrdinalsStats(0, 0, null));
+    }
+
+    public FieldDataStats(long memorySize, long evictions, @Nullable FieldMemoryStats fields, GlobalOrdinalsStats globalOrdinalsStats) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.fields = fields;
+        this.globalOrdinalsStats = Objects.requireNonNull(globalOrdinalsStats);
     }
 
     public void add(FieldDataStats stats) {
@@ -58,6 +78,7 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
                 fields.add(stats.fields);
             }
         }
+        this.globalOrdinalsStats.add(stats.globalOrdinalsStats);
     }
 
     public long getMemorySizeInBytes() {
@@ -77,11 +98,18 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         return fields;
     }
 
+    public GlobalOrdinalsStats getGlobalOrdinalsStats() {
+        return globalOrdinalsStats;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeOptionalWriteable(fields);
+        if (out.getVersion().onOrAfter(Version.V_7_16_3)) {
+            globalOrdinalsStats.writeTo(out);
+        }
     }
 
     @Override
@@ -92,6 +120,7 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         if (fields != null) {
             fields.toXContent(builder, FIELDS, MEMORY_SIZE_IN_BYTES, MEMORY_SIZE);
         }
+        globalOrdinalsStats.toXContent(builder, params);
         builder.endObject();
         return builder;
     }
@@ -101,11 +130,175 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         FieldDataStats that = (FieldDataStats) o;
-        return memorySize == that.memorySize && evictions == that.evictions && Objects.equals(fields, that.fields);
+        return memorySize == that.memorySize
+            && evictions == that.evictions
+            && Objects.equals(fields, that.fields)
+            && Objects.equals(globalOrdinalsStats, that.globalOrdinalsStats);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(memorySize, evictions, fields);
+        return Objects.hash(memorySize, evictions, fields, globalOrdinalsStats);
+    }
+
+    /**
+     * Statistics about the global ordinals that were built on refresh or on first use.
+     */
+    public static class GlobalOrdinalsStats implements ToXContentFragment, Writeable {
+
+        private long buildTimeMillis;
+        private long reuseCount;
+        @Nullable
+        private Map<String, GlobalOrdinalFieldStats> fieldGlobalOrdinalsStats;
+
+        public GlobalOrdinalsStats(long buildTimeMillis, long reuseCount, @Nullable Map<String, GlobalOrdinalFieldStats> fieldStats) {
+            this.buildTimeMillis = buildTimeMillis;
+            this.reuseCount = reuseCount;
+            this.fieldGlobalOrdinalsStats = fieldStats;
+        }
+
+        public GlobalOrdinalsStats(StreamInput in) throws IOException {
+            buildTimeMillis = in.readVLong();
+            reuseCount = in.readVLong();
+            if (in.readBoolean()) {
+                fieldGlobalOrdinalsStats = in.readMap(StreamInput::readString, GlobalOrdinalFieldStats::new);
+            }
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(buildTimeMillis);
+            out.writeVLong(reuseCount);
+            if (fieldGlobalOrdinalsStats != null) {
+                out.writeBoolean(true);
+                out.writeMap(fieldGlobalOrdinalsStats, StreamOutput::writeString, (o, v) -> v.writeTo(o));
+            } else {
+                out.writeBoolean(false);
+            }
+        }
+
+        public void add(GlobalOrdinalsStats other) {
+            buildTimeMillis += other.buildTimeMillis;
+            reuseCount += other.reuseCount;
+            if (other.fieldGlobalOrdinalsStats != null) {
+                if (fieldGlobalOrdinalsStats == null) {
+                    fieldGlobalOrdinalsStats = new HashMap<>();
+                }
+                for (Map.Entry<String, GlobalOrdinalFieldStats> entry : other.fieldGlobalOrdinalsStats.entrySet()) {
+                    fieldGlobalOrdinalsStats.merge(entry.getKey(), entry.getValue(), GlobalOrdinalFieldStats::merge);
+                }
+            }
+        }
+
+        public long getBuildTimeMillis() {
+            return buildTimeMillis;
+        }
+
+        public long getReuseCount() {
+            return reuseCount;
+        }
+
+        @Nullable
+        public Map<String, GlobalOrdinalFieldStats> getFieldGlobalOrdinalsStats() {
+            return fieldGlobalOrdinalsStats;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject(GLOBAL_ORDINALS);
+            builder.humanReadableField(BUILD_TIME_IN_MILLIS, BUILD_TIME, new TimeValue(buildTimeMillis));
+            builder.field(REUSE_COUNT, reuseCount);
+            if (fieldGlobalOrdinalsStats != null) {
+                builder.startObject(FIELDS);
+                for (Map.Entry<String, GlobalOrdinalFieldStats> entry : fieldGlobalOrdinalsStats.entrySet()) {
+                    builder.startObject(entry.getKey());
+                    builder.humanReadableField(BUILD_TIME_IN_MILLIS, BUILD_TIME, new TimeValue(entry.getValue().totalBuildingTime));
+                    builder.field(REUSE_COUNT, entry.getValue().reuseCount);
+                    builder.field(SHARD_MAX_VALUE_COUNT, entry.getValue().valueCount);
+                    builder.endObject();
+                }
+                builder.endObject();
+            }
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            GlobalOrdinalsStats that = (GlobalOrdinalsStats) o;
+            return buildTimeMillis == that.buildTimeMillis
+                && reuseCount == that.reuseCount
+                && Objects.equals(fieldGlobalOrdinalsStats, that.fieldGlobalOrdinalsStats);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(buildTimeMillis, reuseCount, fieldGlobalOrdinalsStats);
+        }
+    }
+
+    /**
+     * Global ordinals statistics of a single field: the total time spent building its global ordinals, the number of
+     * times a previous ordinal map could be reused and the maximum number of unique values seen on a shard.
+     */
+    public static class GlobalOrdinalFieldStats implements Writeable {
+
+        private final long totalBuildingTime;
+        private final long reuseCount;
+        private final long valueCount;
+
+        public GlobalOrdinalFieldStats(long totalBuildingTime, long reuseCount, long valueCount) {
+            this.totalBuildingTime = totalBuildingTime;
+            this.reuseCount = reuseCount;
+            this.valueCount = valueCount;
+        }
+
+        public GlobalOrdinalFieldStats(StreamInput in) throws IOException {
+            this.totalBuildingTime = in.readVLong();
+            this.reuseCount = in.readVLong();
+            this.valueCount = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(totalBuildingTime);
+            out.writeVLong(reuseCount);
+            out.writeVLong(valueCount);
+        }
+
+        public long getTotalBuildingTime() {
+            return totalBuildingTime;
+        }
+
+        public long getReuseCount() {
+            return reuseCount;
+        }
+
+        public long getValueCount() {
+            return valueCount;
+        }
+
+        GlobalOrdinalFieldStats merge(GlobalOrdinalFieldStats other) {
+            return new GlobalOrdinalFieldStats(
+                totalBuildingTime + other.totalBuildingTime,
+                reuseCount + other.reuseCount,
+                Math.max(valueCount, other.valueCount)
+            );
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            GlobalOrdinalFieldStats that = (GlobalOrdinalFieldStats) o;
+            return totalBuildingTime == that.totalBuildingTime && reuseCount == that.reuseCount && valueCount == that.valueCount;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(totalBuildingTime, reuseCount, valueCount);
+        }
     }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.fielddata;
+
+import org.elasticsearch.core.TimeValue;
+
+/**
+ * Information about global ordinals that is reported in the field data stats.
+ */
+public interface GlobalOrdinalsAccounting {
+
+    /**
+     * @return unique value count of global ordinals implementation
+     */
+    long getValueCount();
+
+    /**
+     * @return the total time spent building this global ordinals instance
+     */
+    TimeValue getBuildingTime();
+
+    /**
+     * @return whether the ordinal map of a previous point-in-time reader was reused instead of being rebuilt
+     */
+    boolean isReused();
+
+    /**
+     * Stops accounting for the memory that the given global ordinals, which were built for a newer point-in-time reader, reuse from
+     * this instance, since the newer instance accounts for it from now on.
+     *
+     * @return the number of bytes that this instance no longer accounts for
+     */
+    long handOverReusedMemory(GlobalOrdinalsAccounting newer);
+
+    /**
+     * Stops accounting for the memory of this instance, e.g. because it got removed from the cache.
+     *
+     * @return the number of bytes that this instance accounted for
+     */
+    long releaseMemory();
+}
@@ -27,6 +27,7 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.script.Script;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.MultiValueMode;
 import org.elasticsearch.search.aggregations.support.ValuesSourceType;
@@ -252,11 +253,40 @@ public interface IndexFieldData<FD extends LeafFieldData> {
         IndexFieldData<?> build(IndexFieldDataCache cache, CircuitBreakerService breakerService);
     }
 
+    /**
+     * A {@link Builder} for the field data of a runtime field, whose values are computed by a script. {@link #build} returns
+     * field data that runs the script for every document it is asked about.
+     */
+    interface ScriptBuilder extends Builder {
+
+        /**
+         * The script computing the values if they can be cached per segment, that is if they only depend on the documents and
+         * on the mapping, {@code null} otherwise.
+         */
+        @Nullable
+        Script cacheableScript();
+
+        /**
+         * Builds field data that runs the script on all documents of a segment the first time the segment is loaded, and keeps
+         * the resulting values in {@code cache}.
+         */
+        IndexFieldData<?> buildCached(IndexFieldDataCache cache, CircuitBreakerService breakerService);
+    }
+
     interface Global<FD extends LeafFieldData> extends IndexFieldData<FD> {
 
         IndexFieldData<FD> loadGlobal(DirectoryReader indexReader);
 
         IndexFieldData<FD> loadGlobalDirect(DirectoryReader indexReader) throws Exception;
 
+        /**
+         * Load the global field data for the provided reader, optionally reusing parts of the global field data that
+         * was previously loaded for an earlier point-in-time reader of the same shard.
+         */
+        default IndexFieldData<FD> loadGlobalDirect(DirectoryReader indexReader, @Nullable IndexFieldData<FD> previous)
+            throws Exception {
+            return loadGlobalDirect(indexReader);
+        }
+
     }
 }
@@ -12,12 +12,14 @@ import org.apache.lucene.util.Accountable;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
+import org.elasticsearch.script.Script;
 import org.elasticsearch.search.lookup.SearchLookup;
 
 import java.io.Closeable;
@@ -47,6 +49,16 @@ public class IndexFieldDataService extends AbstractIndexComponent implements Clo
         Property.IndexScope
     );
 
+    /**
+     * Whether the values that the scripts of runtime fields compute are cached per segment, for the runtime fields whose values
+     * only depend on the documents and on the mapping.
+     */
+    public static final Setting<Boolean> INDEX_FIELDDATA_CACHE_RUNTIME_FIELDS = Setting.boolSetting(
+        "index.fielddata.cache_runtime_fields",
+        false,
+        Property.IndexScope
+    );
+
     private final CircuitBreakerService circuitBreakerService;
 
     private final IndicesFieldDataCache indicesFieldDataCache;
@@ -127,6 +139,20 @@ public class IndexFieldDataService extends AbstractIndexComponent implements Clo
             }
         }
 
+        if (builder instanceof IndexFieldData.ScriptBuilder
+            && cache instanceof IndexFieldDataCache.None == false
+            && indexSettings.getValue(INDEX_FIELDDATA_CACHE_RUNTIME_FIELDS)) {
+            IndexFieldData.ScriptBuilder scriptBuilder = (IndexFieldData.ScriptBuilder) builder;
+            Script script = scriptBuilder.cacheableScript();
+            if (script != null) {
+                // The values depend on the mapping of the fields that the script reads, not only on the script itself. Entries
+                // cached for a previous mapping are never read again and go away when their segment is closed or evicted.
+                Tuple<Script, Long> valuesKey = new Tuple<>(script, indexSettings.getIndexMetadata().getMappingVersion());
+                IndexFieldDataCache valuesCache = indicesFieldDataCache.buildIndexFieldDataCache(listener, index(), fieldName, valuesKey);
+                return (IFD) scriptBuilder.buildCached(valuesCache, circuitBreakerService);
+            }
+        }
+
         return (IFD) builder.build(cache, circuitBreakerService);
     }
 
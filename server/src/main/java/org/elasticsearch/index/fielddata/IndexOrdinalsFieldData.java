@@ -11,6 +11,7 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.util.LongValues;
 
 /**
  * Specialization of {@link IndexFieldData} for data that is indexed with ordinals.
@@ -36,6 +37,16 @@ public interface IndexOrdinalsFieldData extends IndexFieldData.Global<LeafOrdina
      */
     OrdinalMap getOrdinalMap();
 
+    /**
+     * Returns the mapping from the ordinals of the segment at the given index to global ordinals,
+     * or null if global ordinals are not needed (constant value or single segment). Unlike {@link #getOrdinalMap()},
+     * this doesn't require global ordinals to be backed by a Lucene {@link OrdinalMap}.
+     */
+    default LongValues getGlobalOrdinalsMapping(int segmentIndex) {
+        final OrdinalMap ordinalMap = getOrdinalMap();
+        return ordinalMap == null ? null : ordinalMap.getGlobalOrds(segmentIndex);
+    }
+
     /**
      * Whether this field data is able to provide a mapping between global and segment ordinals,
      * by returning the underlying {@link OrdinalMap}. If this method returns false, then calling
@@ -11,37 +11,66 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.fielddata.plain.LeafLongFieldData;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.script.LongFieldScript;
+import org.elasticsearch.script.Script;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.aggregations.support.ValuesSourceType;
 
-import java.io.IOException;
-
 public final class LongScriptFieldData extends IndexNumericFieldData {
 
-    public static class Builder implements IndexFieldData.Builder {
+    public static class Builder implements IndexFieldData.ScriptBuilder {
         private final String name;
         private final LongFieldScript.LeafFactory leafFactory;
+        private final Script cacheableScript;
 
         public Builder(String name, LongFieldScript.LeafFactory leafFactory) {
+            this(name, leafFactory, null);
+        }
+
+        public Builder(String name, LongFieldScript.LeafFactory leafFactory, @Nullable Script cacheableScript) {
             this.name = name;
             this.leafFactory = leafFactory;
+            this.cacheableScript = cacheableScript;
         }
 
         @Override
         public LongScriptFieldData build(IndexFieldDataCache cache, CircuitBreakerService breakerService) {
-            return new LongScriptFieldData(name, leafFactory);
+            return new LongScriptFieldData(name, leafFactory, null, null);
+        }
+
+        @Override
+        public Script cacheableScript() {
+            return cacheableScript;
+        }
+
+        @Override
+        public LongScriptFieldData buildCached(IndexFieldDataCache cache, CircuitBreakerService breakerService) {
+            return new LongScriptFieldData(name, leafFactory, cache, breakerService.getBreaker(CircuitBreaker.FIELDDATA));
         }
     }
 
     private final String fieldName;
     private final LongFieldScript.LeafFactory leafFactory;
-
-    private LongScriptFieldData(String fieldName, LongFieldScript.LeafFactory leafFactory) {
+    // the cache of the values computed for whole segments, null if the values are computed on the fly
+    @Nullable
+    private final IndexFieldDataCache cache;
+    private final CircuitBreaker breaker;
+
+    private LongScriptFieldData(
+        String fieldName,
+        LongFieldScript.LeafFactory leafFactory,
+        @Nullable IndexFieldDataCache cache,
+        @Nullable CircuitBreaker breaker
+    ) {
         this.fieldName = fieldName;
         this.leafFactory = leafFactory;
+        this.cache = cache;
+        this.breaker = breaker;
     }
 
     @Override
@@ -55,17 +84,33 @@ public final class LongScriptFieldData extends IndexNumericFieldData {
     }
 
     @Override
-    public LongScriptLeafFieldData load(LeafReaderContext context) {
-        try {
-            return loadDirect(context);
-        } catch (Exception e) {
-            throw ExceptionsHelper.convertToElastic(e);
+    public LeafLongFieldData load(LeafReaderContext context) {
+        if (cache != null && CachedScriptFieldData.isCacheable(context)) {
+            try {
+                return cache.load(context, this);
+            } catch (Exception e) {
+                if (ExceptionsHelper.unwrap(e, CircuitBreakingException.class) == null) {
+                    throw ExceptionsHelper.convertToElastic(e);
+                }
+                // not enough memory to keep the values of the whole segment, compute them on the fly instead
+            }
         }
+        return new LongScriptLeafFieldData(new LongScriptDocValues(leafFactory.newInstance(context)));
     }
 
     @Override
-    public LongScriptLeafFieldData loadDirect(LeafReaderContext context) throws IOException {
-        return new LongScriptLeafFieldData(new LongScriptDocValues(leafFactory.newInstance(context)));
+    public LeafLongFieldData loadDirect(LeafReaderContext context) {
+        if (cache == null) {
+            return new LongScriptLeafFieldData(new LongScriptDocValues(leafFactory.newInstance(context)));
+        }
+        LeafLongFieldData fieldData = CachedScriptFieldData.longs(
+            leafFactory.newInstance(context),
+            context.reader().maxDoc(),
+            NumericType.LONG,
+            breaker,
+            fieldName
+        );
+        return fieldData;
     }
 
     @Override
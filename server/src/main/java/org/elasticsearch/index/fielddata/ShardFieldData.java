@@ -16,8 +16,10 @@ import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.fielddata.FieldDataStats.GlobalOrdinalFieldStats;
 import org.elasticsearch.index.shard.ShardId;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 
@@ -27,8 +29,13 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
     private final CounterMetric totalMetric = new CounterMetric();
     private final ConcurrentMap<String, CounterMetric> perFieldTotals = ConcurrentCollections.newConcurrentMap();
 
+    private final CounterMetric globalOrdinalsBuildTimeMetric = new CounterMetric();
+    private final CounterMetric globalOrdinalsReuseMetric = new CounterMetric();
+    private final ConcurrentMap<String, GlobalOrdinalFieldStats> perFieldGlobalOrdinals = ConcurrentCollections.newConcurrentMap();
+
     public FieldDataStats stats(String... fields) {
         ObjectLongHashMap<String> fieldTotals = null;
+        Map<String, GlobalOrdinalFieldStats> fieldGlobalOrdinals = null;
         if (CollectionUtils.isEmpty(fields) == false) {
             fieldTotals = new ObjectLongHashMap<>();
             for (Map.Entry<String, CounterMetric> entry : perFieldTotals.entrySet()) {
@@ -36,16 +43,39 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
                     fieldTotals.put(entry.getKey(), entry.getValue().count());
                 }
             }
+            fieldGlobalOrdinals = new HashMap<>();
+            for (Map.Entry<String, GlobalOrdinalFieldStats> entry : perFieldGlobalOrdinals.entrySet()) {
+                if (Regex.simpleMatch(fields, entry.getKey())) {
+                    fieldGlobalOrdinals.put(entry.getKey(), entry.getValue());
+                }
+            }
         }
         return new FieldDataStats(
             totalMetric.count(),
             evictionsMetric.count(),
-            fieldTotals == null ? null : new FieldMemoryStats(fieldTotals)
+            fieldTotals == null ? null : new FieldMemoryStats(fieldTotals),
+            new FieldDataStats.GlobalOrdinalsStats(
+                globalOrdinalsBuildTimeMetric.count(),
+                globalOrdinalsReuseMetric.count(),
+                fieldGlobalOrdinals
+            )
         );
     }
 
     @Override
     public void onCache(ShardId shardId, String fieldName, Accountable ramUsage) {
+        if (ramUsage instanceof GlobalOrdinalsAccounting) {
+            final GlobalOrdinalsAccounting globalOrdinals = (GlobalOrdinalsAccounting) ramUsage;
+            final long buildTimeMillis = globalOrdinals.getBuildingTime().millis();
+            final long reused = globalOrdinals.isReused() ? 1 : 0;
+            globalOrdinalsBuildTimeMetric.inc(buildTimeMillis);
+            globalOrdinalsReuseMetric.inc(reused);
+            perFieldGlobalOrdinals.merge(
+                fieldName,
+                new GlobalOrdinalFieldStats(buildTimeMillis, reused, globalOrdinals.getValueCount()),
+                GlobalOrdinalFieldStats::merge
+            );
+        }
         totalMetric.inc(ramUsage.ramBytesUsed());
         CounterMetric total = perFieldTotals.get(fieldName);
         if (total != null) {
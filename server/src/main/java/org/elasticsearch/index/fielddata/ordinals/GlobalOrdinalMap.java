@@ -0,0 +1,393 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.LongLongHashMap;
+
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps the ordinals of the segments of a reader to global ordinals, like Lucene's {@link OrdinalMap}. Unlike an {@link OrdinalMap},
+ * a {@link GlobalOrdinalMap} can also be built from the map of a previous point-in-time reader of the same shard: the segments that both
+ * readers share keep the relative order of their terms, so only the terms of the segments that were added since, e.g. by a refresh or a
+ * merge, need to be merged into them.
+ */
+public abstract class GlobalOrdinalMap implements Accountable {
+
+    /**
+     * @return the number of unique terms across all segments
+     */
+    public abstract long getValueCount();
+
+    /**
+     * @return the mapping from the ordinals of the segment at the given index to global ordinals
+     */
+    public abstract LongValues getGlobalOrds(int segmentIndex);
+
+    /**
+     * @return the ordinal of the given global ordinal in the first segment that contains its term
+     */
+    public abstract long getFirstSegmentOrd(long globalOrd);
+
+    /**
+     * @return the index of the first segment that contains the term of the given global ordinal
+     */
+    public abstract int getFirstSegmentNumber(long globalOrd);
+
+    /**
+     * @return the Lucene {@link OrdinalMap} this map delegates to, or {@code null} if this map was built incrementally
+     */
+    @Nullable
+    public abstract OrdinalMap getLuceneOrdinalMap();
+
+    /**
+     * Builds the map of the given segments by merging all their terms dictionaries.
+     */
+    public static GlobalOrdinalMap build(SortedSetDocValues[] subs) throws IOException {
+        return new LuceneGlobalOrdinalMap(OrdinalMap.build(null, subs, PackedInts.DEFAULT));
+    }
+
+    /**
+     * Builds the map of the given segments from the map of a previous reader. {@code previousSegments} holds, for each segment, the index
+     * it had in the previous reader or {@code -1} if it is a new segment. The terms of the new segments are merged with each other and
+     * then inserted among the terms of the shared segments that are still live, by seeking them in the terms dictionaries of the shared
+     * segments. Segments that were removed, e.g. because they got merged away, are never read since the previous reader may be closed
+     * already.
+     * <p>
+     * Only the terms dictionaries of the new segments are read, and the temporary arrays are sized to the terms of the new segments. The
+     * ordinals of the shared segments are still remapped in a single pass over the previous map since inserted terms shift them, and if
+     * segments were removed then a bit set over the previous global ordinals tracks which of them are still live.
+     *
+     * @return the incrementally built map, or {@code null} if the new segments hold more terms than the shared ones, or if no segment
+     * is shared, in which case merging all terms dictionaries is cheaper
+     */
+    @Nullable
+    public static GlobalOrdinalMap buildIncrementally(
+        GlobalOrdinalMap previous,
+        int previousSegmentCount,
+        int[] previousSegments,
+        SortedSetDocValues[] subs
+    ) throws IOException {
+        assert previousSegments.length == subs.length;
+        final long previousValueCount = previous.getValueCount();
+        if (previousValueCount >= ArrayUtil.MAX_ARRAY_LENGTH) {
+            return null;
+        }
+        final int[] newSegments = new int[previousSegmentCount];
+        Arrays.fill(newSegments, -1);
+        long sharedValueCount = 0;
+        long addedValueCount = 0;
+        int sharedSegmentCount = 0;
+        final List<Integer> addedSegments = new ArrayList<>();
+        for (int i = 0; i < subs.length; i++) {
+            if (previousSegments[i] >= 0) {
+                newSegments[previousSegments[i]] = i;
+                sharedValueCount += subs[i].getValueCount();
+                sharedSegmentCount++;
+            } else {
+                addedValueCount += subs[i].getValueCount();
+                addedSegments.add(i);
+            }
+        }
+        if (sharedValueCount == 0 || addedValueCount > sharedValueCount) {
+            return null;
+        }
+
+        // if segments were removed, find the terms of the previous map that are still live and, for the live terms whose first segment
+        // was removed, another segment that holds them
+        final LiveTerms liveTerms = sharedSegmentCount == previousSegmentCount
+            ? null
+            : LiveTerms.build(previous, newSegments, previousSegments, subs);
+        final int liveCount = liveTerms == null ? (int) previousValueCount : liveTerms.count;
+
+        // merge the terms of the new segments and find where each of them goes among the live terms
+        final OrdinalMap addedMap;
+        final long[] addedGlobalOrds;
+        final int[] insertionRanks;
+        final int[] insertedOrds;
+        int insertedCount = 0;
+        if (addedSegments.isEmpty()) {
+            addedMap = null;
+            addedGlobalOrds = new long[0];
+            insertionRanks = new int[0];
+            insertedOrds = new int[0];
+        } else {
+            final SortedSetDocValues[] addedSubs = new SortedSetDocValues[addedSegments.size()];
+            final TermsEnum[] addedTermsEnums = new TermsEnum[addedSegments.size()];
+            for (int k = 0; k < addedSubs.length; k++) {
+                addedSubs[k] = subs[addedSegments.get(k)];
+                addedTermsEnums[k] = addedSubs[k].termsEnum();
+            }
+            final TermsEnum[] sharedTermsEnums = new TermsEnum[subs.length];
+            final LongValues[] sharedPreviousGlobalOrds = new LongValues[subs.length];
+            for (int i = 0; i < subs.length; i++) {
+                if (previousSegments[i] >= 0) {
+                    sharedTermsEnums[i] = subs[i].termsEnum();
+                    sharedPreviousGlobalOrds[i] = previous.getGlobalOrds(previousSegments[i]);
+                }
+            }
+            addedMap = OrdinalMap.build(null, addedSubs, PackedInts.DEFAULT);
+            // the number of added terms is bounded by the number of shared terms, which is bounded by the previous value count
+            addedGlobalOrds = new long[(int) addedMap.getValueCount()];
+            insertionRanks = new int[addedGlobalOrds.length];
+            insertedOrds = new int[addedGlobalOrds.length];
+            for (int addedOrd = 0; addedOrd < addedGlobalOrds.length; addedOrd++) {
+                final TermsEnum addedTermsEnum = addedTermsEnums[addedMap.getFirstSegmentNumber(addedOrd)];
+                addedTermsEnum.seekExact(addedMap.getFirstSegmentOrd(addedOrd));
+                final BytesRef term = addedTermsEnum.term();
+                // the smallest live term that is greater than or equal to the added term is the smallest of the ceilings of the term in
+                // the shared segments, since live terms keep the order of the previous global ordinals
+                long ceilingPreviousOrd = -1;
+                boolean found = false;
+                for (int i = 0; i < subs.length && found == false; i++) {
+                    if (sharedTermsEnums[i] != null) {
+                        final TermsEnum.SeekStatus status = sharedTermsEnums[i].seekCeil(term);
+                        if (status != TermsEnum.SeekStatus.END) {
+                            final long previousOrd = sharedPreviousGlobalOrds[i].get(sharedTermsEnums[i].ord());
+                            if (ceilingPreviousOrd == -1 || previousOrd < ceilingPreviousOrd) {
+                                ceilingPreviousOrd = previousOrd;
+                            }
+                            found = status == TermsEnum.SeekStatus.FOUND;
+                        }
+                    }
+                }
+                final int rank = ceilingPreviousOrd == -1 ? liveCount : rank(liveTerms, ceilingPreviousOrd);
+                addedGlobalOrds[addedOrd] = rank + insertedCount;
+                if (found == false) {
+                    insertionRanks[insertedCount] = rank;
+                    insertedOrds[insertedCount++] = addedOrd;
+                }
+            }
+        }
+
+        // a live term moves up by the number of inserted terms that sort before it
+        final long valueCount = (long) liveCount + insertedCount;
+        final PackedLongValues[] globalOrds = new PackedLongValues[subs.length];
+        for (int i = 0, addedIndex = 0; i < subs.length; i++) {
+            final PackedLongValues.Builder builder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+            if (previousSegments[i] >= 0) {
+                final LongValues previousGlobalOrds = previous.getGlobalOrds(previousSegments[i]);
+                int inserted = 0;
+                for (long ord = 0; ord < subs[i].getValueCount(); ord++) {
+                    final int rank = rank(liveTerms, previousGlobalOrds.get(ord));
+                    while (inserted < insertedCount && insertionRanks[inserted] <= rank) {
+                        inserted++;
+                    }
+                    builder.add(rank + inserted);
+                }
+            } else {
+                final LongValues addedOrds = addedMap.getGlobalOrds(addedIndex++);
+                for (long ord = 0; ord < subs[i].getValueCount(); ord++) {
+                    builder.add(addedGlobalOrds[(int) addedOrds.get(ord)]);
+                }
+            }
+            globalOrds[i] = builder.build();
+        }
+
+        // the first segment of a live term is its first segment in the previous map if that segment is still there, and inserted terms
+        // come before the live term whose rank they got
+        final PackedLongValues.Builder firstSegmentsBuilder = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder globalOrdDeltasBuilder = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        long globalOrd = 0;
+        int previousOrd = -1;
+        for (int rank = 0, inserted = 0; rank <= liveCount; rank++) {
+            while (inserted < insertedCount && insertionRanks[inserted] == rank) {
+                final int addedOrd = insertedOrds[inserted++];
+                firstSegmentsBuilder.add(addedSegments.get(addedMap.getFirstSegmentNumber(addedOrd)));
+                globalOrdDeltasBuilder.add(globalOrd++ - addedMap.getFirstSegmentOrd(addedOrd));
+            }
+            if (rank == liveCount) {
+                break;
+            }
+            previousOrd = liveTerms == null ? rank : liveTerms.bits.nextSetBit(previousOrd + 1);
+            final int firstSegment = newSegments[previous.getFirstSegmentNumber(previousOrd)];
+            if (firstSegment >= 0) {
+                firstSegmentsBuilder.add(firstSegment);
+                globalOrdDeltasBuilder.add(globalOrd++ - previous.getFirstSegmentOrd(previousOrd));
+            } else {
+                assert liveTerms != null && liveTerms.otherSegments.containsKey(previousOrd) : "no segment holds [" + previousOrd + "]";
+                firstSegmentsBuilder.add(liveTerms.otherSegments.get(previousOrd));
+                globalOrdDeltasBuilder.add(globalOrd++ - liveTerms.otherSegmentOrds.get(previousOrd));
+            }
+        }
+        assert globalOrd == valueCount : globalOrd + " != " + valueCount;
+        return new IncrementalGlobalOrdinalMap(valueCount, globalOrds, firstSegmentsBuilder.build(), globalOrdDeltasBuilder.build());
+    }
+
+    /**
+     * @return the rank of the given previous global ordinal among the live terms
+     */
+    private static int rank(@Nullable LiveTerms liveTerms, long previousOrd) {
+        return liveTerms == null ? (int) previousOrd : liveTerms.rank((int) previousOrd);
+    }
+
+    /**
+     * The terms of a previous map that are still held by the shared segments, when some of the previous segments were removed.
+     */
+    private static final class LiveTerms {
+
+        private final FixedBitSet bits;
+        // the number of live terms before each word of the bit set
+        private final int[] wordRanks;
+        private final int count;
+        // for the live terms whose first segment was removed, the first shared segment that holds them and their ordinal in it
+        private final LongIntHashMap otherSegments;
+        private final LongLongHashMap otherSegmentOrds;
+
+        private LiveTerms(FixedBitSet bits, LongIntHashMap otherSegments, LongLongHashMap otherSegmentOrds) {
+            this.bits = bits;
+            this.otherSegments = otherSegments;
+            this.otherSegmentOrds = otherSegmentOrds;
+            final long[] words = bits.getBits();
+            this.wordRanks = new int[words.length];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                wordRanks[i] = count;
+                count += Long.bitCount(words[i]);
+            }
+            this.count = count;
+        }
+
+        static LiveTerms build(GlobalOrdinalMap previous, int[] newSegments, int[] previousSegments, SortedSetDocValues[] subs) {
+            final FixedBitSet bits = new FixedBitSet((int) previous.getValueCount());
+            final LongIntHashMap otherSegments = new LongIntHashMap();
+            final LongLongHashMap otherSegmentOrds = new LongLongHashMap();
+            for (int i = 0; i < subs.length; i++) {
+                if (previousSegments[i] >= 0) {
+                    final LongValues previousGlobalOrds = previous.getGlobalOrds(previousSegments[i]);
+                    for (long ord = 0; ord < subs[i].getValueCount(); ord++) {
+                        final long previousOrd = previousGlobalOrds.get(ord);
+                        if (bits.getAndSet((int) previousOrd) == false && newSegments[previous.getFirstSegmentNumber(previousOrd)] == -1) {
+                            otherSegments.put(previousOrd, i);
+                            otherSegmentOrds.put(previousOrd, ord);
+                        }
+                    }
+                }
+            }
+            return new LiveTerms(bits, otherSegments, otherSegmentOrds);
+        }
+
+        int rank(int previousOrd) {
+            final int word = previousOrd >> 6;
+            return wordRanks[word] + Long.bitCount(bits.getBits()[word] & ((1L << previousOrd) - 1));
+        }
+    }
+
+    private static final class LuceneGlobalOrdinalMap extends GlobalOrdinalMap {
+
+        private final OrdinalMap ordinalMap;
+
+        LuceneGlobalOrdinalMap(OrdinalMap ordinalMap) {
+            this.ordinalMap = ordinalMap;
+        }
+
+        @Override
+        public long getValueCount() {
+            return ordinalMap.getValueCount();
+        }
+
+        @Override
+        public LongValues getGlobalOrds(int segmentIndex) {
+            return ordinalMap.getGlobalOrds(segmentIndex);
+        }
+
+        @Override
+        public long getFirstSegmentOrd(long globalOrd) {
+            return ordinalMap.getFirstSegmentOrd(globalOrd);
+        }
+
+        @Override
+        public int getFirstSegmentNumber(long globalOrd) {
+            return ordinalMap.getFirstSegmentNumber(globalOrd);
+        }
+
+        @Override
+        public OrdinalMap getLuceneOrdinalMap() {
+            return ordinalMap;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return ordinalMap.ramBytesUsed();
+        }
+    }
+
+    private static final class IncrementalGlobalOrdinalMap extends GlobalOrdinalMap {
+
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(IncrementalGlobalOrdinalMap.class);
+
+        private final long valueCount;
+        private final PackedLongValues[] globalOrds;
+        private final PackedLongValues firstSegments;
+        private final PackedLongValues globalOrdDeltas;
+
+        IncrementalGlobalOrdinalMap(
+            long valueCount,
+            PackedLongValues[] globalOrds,
+            PackedLongValues firstSegments,
+            PackedLongValues globalOrdDeltas
+        ) {
+            this.valueCount = valueCount;
+            this.globalOrds = globalOrds;
+            this.firstSegments = firstSegments;
+            this.globalOrdDeltas = globalOrdDeltas;
+        }
+
+        @Override
+        public long getValueCount() {
+            return valueCount;
+        }
+
+        @Override
+        public LongValues getGlobalOrds(int segmentIndex) {
+            return globalOrds[segmentIndex];
+        }
+
+        @Override
+        public long getFirstSegmentOrd(long globalOrd) {
+            return globalOrd - globalOrdDeltas.get(globalOrd);
+        }
+
+        @Override
+        public int getFirstSegmentNumber(long globalOrd) {
+            return (int) firstSegments.get(globalOrd);
+        }
+
+        @Override
+        public OrdinalMap getLuceneOrdinalMap() {
+            return null;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            long size = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(globalOrds);
+            for (PackedLongValues values : globalOrds) {
+                size += values.ramBytesUsed();
+            }
+            return size + firstSegments.ramBytesUsed() + globalOrdDeltas.ramBytesUsed();
+        }
+    }
+}
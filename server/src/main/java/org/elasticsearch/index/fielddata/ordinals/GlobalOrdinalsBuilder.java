@@ -11,11 +11,11 @@ package org.elasticsearch.index.fielddata.ordinals;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.util.Accountable;
-import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
@@ -36,11 +36,15 @@ public enum GlobalOrdinalsBuilder {
     ;
 
     /**
-     * Build global ordinals for the provided {@link IndexReader}.
+     * Build global ordinals for the provided {@link IndexReader}. If the global ordinals that were built for a previous
+     * point-in-time reader of the same shard are provided, their {@link GlobalOrdinalMap} is reused as-is when the segment
+     * cores are unchanged, or extended with the terms of the new segments when the readers share segments, instead of
+     * merging the terms dictionaries of all segments again.
      */
     public static IndexOrdinalsFieldData build(
         final IndexReader indexReader,
         IndexOrdinalsFieldData indexFieldData,
+        @Nullable GlobalOrdinalsIndexFieldData previous,
         CircuitBreakerService breakerService,
         Logger logger,
         Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction
@@ -50,29 +54,60 @@ public enum GlobalOrdinalsBuilder {
 
         final LeafOrdinalsFieldData[] atomicFD = new LeafOrdinalsFieldData[indexReader.leaves().size()];
         final SortedSetDocValues[] subs = new SortedSetDocValues[indexReader.leaves().size()];
+        final IndexReader.CacheKey[] segmentKeys = new IndexReader.CacheKey[indexReader.leaves().size()];
+        final long[] segmentValueCounts = new long[indexReader.leaves().size()];
         for (int i = 0; i < indexReader.leaves().size(); ++i) {
-            atomicFD[i] = indexFieldData.load(indexReader.leaves().get(i));
+            final LeafReaderContext context = indexReader.leaves().get(i);
+            atomicFD[i] = indexFieldData.load(context);
             subs[i] = atomicFD[i].getOrdinalsValues();
+            final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+            segmentKeys[i] = cacheHelper == null ? null : cacheHelper.getKey();
+            segmentValueCounts[i] = subs[i].getValueCount();
         }
-        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        final int[] previousSegments = previous == null ? null : previous.findPreviousSegments(segmentKeys, subs);
+        GlobalOrdinalMap ordinalMap = null;
+        if (previousSegments != null) {
+            if (previous.hasSameSegments(previousSegments)) {
+                ordinalMap = previous.getGlobalOrdinalMap();
+            } else {
+                ordinalMap = GlobalOrdinalMap.buildIncrementally(
+                    previous.getGlobalOrdinalMap(),
+                    previous.getSegmentCount(),
+                    previousSegments,
+                    subs
+                );
+            }
+        }
+        final boolean reused = ordinalMap != null;
+        if (ordinalMap == null) {
+            ordinalMap = GlobalOrdinalMap.build(subs);
+        }
+        // a reused ordinal map is accounted by the newest global ordinals that use it, the cache releases it from the previous ones
         final long memorySizeInBytes = ordinalMap.ramBytesUsed();
         breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(memorySizeInBytes);
 
+        final TimeValue buildingTime = new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS);
         if (logger.isDebugEnabled()) {
             logger.debug(
-                "global-ordinals [{}][{}] took [{}]",
+                "global-ordinals [{}][{}] took [{}], reused [{}]",
                 indexFieldData.getFieldName(),
                 ordinalMap.getValueCount(),
-                new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS)
+                buildingTime,
+                reused
             );
         }
         return new GlobalOrdinalsIndexFieldData(
             indexFieldData.getFieldName(),
             indexFieldData.getValuesSourceType(),
             atomicFD,
+            segmentKeys,
+            segmentValueCounts,
             ordinalMap,
             memorySizeInBytes,
-            scriptFunction
+            scriptFunction,
+            buildingTime,
+            reused,
+            breakerService.getBreaker(CircuitBreaker.FIELDDATA)
         );
     }
 
@@ -103,14 +138,19 @@ public enum GlobalOrdinalsBuilder {
             };
             subs[i] = atomicFD[i].getOrdinalsValues();
         }
-        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        final GlobalOrdinalMap ordinalMap = GlobalOrdinalMap.build(subs);
         return new GlobalOrdinalsIndexFieldData(
             indexFieldData.getFieldName(),
             indexFieldData.getValuesSourceType(),
             atomicFD,
+            null,
+            null,
             ordinalMap,
             0,
-            AbstractLeafOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION
+            AbstractLeafOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION,
+            TimeValue.ZERO,
+            false,
+            null
         );
     }
 
@@ -8,14 +8,20 @@
 package org.elasticsearch.index.fielddata.ordinals;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.fielddata.GlobalOrdinalsAccounting;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
@@ -31,6 +37,8 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Function;
 
 /**
@@ -42,30 +50,111 @@ import java.util.function.Function;
  * this is done to avoid creating all segment's {@link TermsEnum} each time we want to access the values of a single
  * segment.
  */
-public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldData, Accountable {
+public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldData, Accountable, GlobalOrdinalsAccounting {
 
     private final String fieldName;
     private final ValuesSourceType valuesSourceType;
-    private final long memorySizeInBytes;
+    // the memory of the ordinal map is handed over to the global ordinals of a newer reader that reuse it as-is
+    private volatile long memorySizeInBytes;
+    private boolean memoryReleased;
 
-    private final OrdinalMap ordinalMap;
+    private final GlobalOrdinalMap ordinalMap;
     private final LeafOrdinalsFieldData[] segmentAfd;
     private final Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction;
 
+    @Nullable
+    private final IndexReader.CacheKey[] segmentKeys;
+    private final long[] segmentValueCounts;
+    private final TimeValue buildingTime;
+    private final boolean reused;
+    @Nullable
+    private final CircuitBreaker breaker;
+    // only built when a caller needs a Lucene ordinal map and the global ordinal map was built incrementally
+    private volatile OrdinalMap luceneOrdinalMap;
+    private volatile long luceneOrdinalMapSizeInBytes;
+
     protected GlobalOrdinalsIndexFieldData(
         String fieldName,
         ValuesSourceType valuesSourceType,
         LeafOrdinalsFieldData[] segmentAfd,
-        OrdinalMap ordinalMap,
+        @Nullable IndexReader.CacheKey[] segmentKeys,
+        @Nullable long[] segmentValueCounts,
+        GlobalOrdinalMap ordinalMap,
         long memorySizeInBytes,
-        Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction
+        Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction,
+        TimeValue buildingTime,
+        boolean reused,
+        @Nullable CircuitBreaker breaker
     ) {
         this.fieldName = fieldName;
         this.valuesSourceType = valuesSourceType;
         this.memorySizeInBytes = memorySizeInBytes;
         this.ordinalMap = ordinalMap;
         this.segmentAfd = segmentAfd;
+        this.segmentKeys = segmentKeys;
+        this.segmentValueCounts = segmentValueCounts;
         this.scriptFunction = scriptFunction;
+        this.buildingTime = buildingTime;
+        this.reused = reused;
+        this.breaker = breaker;
+        this.luceneOrdinalMap = ordinalMap.getLuceneOrdinalMap();
+    }
+
+    GlobalOrdinalMap getGlobalOrdinalMap() {
+        return ordinalMap;
+    }
+
+    int getSegmentCount() {
+        return segmentAfd.length;
+    }
+
+    /**
+     * Returns, for each of the provided segments, the index of the same segment in the reader of this instance or {@code -1} if this
+     * reader doesn't have it. The ordinals of a segment only depend on its terms dictionary, which is immutable for a given segment
+     * core, so segments with the same core can reuse the part of the {@link GlobalOrdinalMap} of this instance that maps them.
+     *
+     * @return the previous segment indices, or {@code null} if this instance has no segment in common with the provided ones
+     */
+    @Nullable
+    int[] findPreviousSegments(IndexReader.CacheKey[] otherSegmentKeys, SortedSetDocValues[] otherSegmentValues) {
+        if (segmentKeys == null) {
+            return null;
+        }
+        final Map<IndexReader.CacheKey, Integer> segmentIndices = new HashMap<>(segmentKeys.length);
+        for (int i = 0; i < segmentKeys.length; i++) {
+            if (segmentKeys[i] != null) {
+                segmentIndices.put(segmentKeys[i], i);
+            }
+        }
+        final int[] previousSegments = new int[otherSegmentKeys.length];
+        boolean shared = false;
+        for (int i = 0; i < otherSegmentKeys.length; i++) {
+            final Integer previousSegment = otherSegmentKeys[i] == null ? null : segmentIndices.get(otherSegmentKeys[i]);
+            // wrapped readers may share a core cache key while exposing a different set of fields
+            if (previousSegment != null && segmentValueCounts[previousSegment] == otherSegmentValues[i].getValueCount()) {
+                previousSegments[i] = previousSegment;
+                shared = true;
+            } else {
+                previousSegments[i] = -1;
+            }
+        }
+        return shared ? previousSegments : null;
+    }
+
+    /**
+     * Whether the provided previous segment indices, as returned by {@link #findPreviousSegments}, describe exactly the segments of
+     * this instance in the same order, which is typically the case when a refresh only applied deletes.
+     */
+    boolean hasSameSegments(int[] previousSegments) {
+        if (previousSegments.length != segmentAfd.length) {
+            return false;
+        }
+        for (int i = 0; i < previousSegments.length; i++) {
+            if (previousSegments[i] != i) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public IndexOrdinalsFieldData newConsumer(DirectoryReader source) {
@@ -118,7 +207,7 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
     @Override
     public long ramBytesUsed() {
-        return memorySizeInBytes;
+        return memorySizeInBytes + luceneOrdinalMapSizeInBytes;
     }
 
     @Override
@@ -127,6 +216,40 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
         return Collections.emptyList();
     }
 
+    @Override
+    public long getValueCount() {
+        return ordinalMap.getValueCount();
+    }
+
+    @Override
+    public TimeValue getBuildingTime() {
+        return buildingTime;
+    }
+
+    @Override
+    public boolean isReused() {
+        return reused;
+    }
+
+    @Override
+    public synchronized long handOverReusedMemory(GlobalOrdinalsAccounting newer) {
+        if (memoryReleased
+            || newer instanceof GlobalOrdinalsIndexFieldData == false
+            || ((GlobalOrdinalsIndexFieldData) newer).ordinalMap != ordinalMap) {
+            return 0L;
+        }
+        final long handedOver = memorySizeInBytes;
+        memorySizeInBytes = 0L;
+        return handedOver;
+    }
+
+    @Override
+    public synchronized long releaseMemory() {
+        final long released = ramBytesUsed();
+        memoryReleased = true;
+        return released;
+    }
+
     @Override
     public LeafOrdinalsFieldData load(LeafReaderContext context) {
         throw new IllegalStateException("load(LeafReaderContext) should not be called in this context");
@@ -134,7 +257,44 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
     @Override
     public OrdinalMap getOrdinalMap() {
-        return ordinalMap;
+        OrdinalMap map = luceneOrdinalMap;
+        if (map == null) {
+            map = buildLuceneOrdinalMap();
+        }
+        return map;
+    }
+
+    /**
+     * Builds the Lucene {@link OrdinalMap} of an incrementally built instance, for callers that can't work with a
+     * {@link GlobalOrdinalMap}. This merges the terms dictionaries of all segments, but only once per instance.
+     */
+    private synchronized OrdinalMap buildLuceneOrdinalMap() {
+        if (luceneOrdinalMap == null) {
+            final SortedSetDocValues[] subs = new SortedSetDocValues[segmentAfd.length];
+            for (int i = 0; i < segmentAfd.length; i++) {
+                subs[i] = segmentAfd[i].getOrdinalsValues();
+            }
+            final OrdinalMap map;
+            try {
+                map = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to build ordinal map", e);
+            }
+            // the size is released with the rest of this instance when it is removed from the cache, unless it was removed already
+            if (memoryReleased == false) {
+                if (breaker != null) {
+                    breaker.addWithoutBreaking(map.ramBytesUsed());
+                }
+                luceneOrdinalMapSizeInBytes = map.ramBytesUsed();
+            }
+            luceneOrdinalMap = map;
+        }
+        return luceneOrdinalMap;
+    }
+
+    @Override
+    public LongValues getGlobalOrdinalsMapping(int segmentIndex) {
+        return ordinalMap.getGlobalOrds(segmentIndex);
     }
 
     @Override
@@ -217,7 +377,7 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
         @Override
         public long ramBytesUsed() {
-            return memorySizeInBytes;
+            return GlobalOrdinalsIndexFieldData.this.ramBytesUsed();
         }
 
         @Override
@@ -268,7 +428,12 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
         @Override
         public OrdinalMap getOrdinalMap() {
-            return ordinalMap;
+            return GlobalOrdinalsIndexFieldData.this.getOrdinalMap();
+        }
+
+        @Override
+        public LongValues getGlobalOrdinalsMapping(int segmentIndex) {
+            return ordinalMap.getGlobalOrds(segmentIndex);
         }
 
     }
@@ -17,6 +17,7 @@ import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
@@ -137,7 +138,16 @@ public abstract class AbstractIndexOrdinalsFieldData implements IndexOrdinalsFie
 
     @Override
     public IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader) throws Exception {
-        return GlobalOrdinalsBuilder.build(indexReader, this, breakerService, logger, scriptFunction);
+        return GlobalOrdinalsBuilder.build(indexReader, this, null, breakerService, logger, scriptFunction);
+    }
+
+    @Override
+    public IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader, IndexFieldData<LeafOrdinalsFieldData> previous)
+        throws Exception {
+        final GlobalOrdinalsIndexFieldData previousGlobalOrdinals = previous instanceof GlobalOrdinalsIndexFieldData
+            ? (GlobalOrdinalsIndexFieldData) previous
+            : null;
+        return GlobalOrdinalsBuilder.build(indexReader, this, previousGlobalOrdinals, breakerService, logger, scriptFunction);
     }
 
     @Override
@@ -16,6 +16,8 @@ import org.elasticsearch.index.fielddata.LeafNumericFieldData;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.script.field.DocValuesField;
+import org.elasticsearch.script.field.DoubleDocValuesField;
 import org.elasticsearch.search.DocValueFormat;
 
 import java.io.IOException;
@@ -43,6 +45,11 @@ public abstract class LeafDoubleFieldData implements LeafNumericFieldData {
         return new ScriptDocValues.Doubles(getDoubleValues());
     }
 
+    @Override
+    public DocValuesField getScriptField(String name) {
+        return new DoubleDocValuesField(getDoubleValues(), name);
+    }
+
     @Override
     public final SortedBinaryDocValues getBytesValues() {
         return FieldData.toString(getDoubleValues());
@@ -16,6 +16,8 @@ import org.elasticsearch.index.fielddata.LeafNumericFieldData;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.script.field.DocValuesField;
+import org.elasticsearch.script.field.LongDocValuesField;
 import org.elasticsearch.search.DocValueFormat;
 
 import java.io.IOException;
@@ -57,6 +59,18 @@ public abstract class LeafLongFieldData implements LeafNumericFieldData {
         }
     }
 
+    @Override
+    public DocValuesField getScriptField(String name) {
+        switch (numericType) {
+            case DATE:
+            case DATE_NANOSECONDS:
+            case BOOLEAN:
+                return LeafNumericFieldData.super.getScriptField(name);
+            default:
+                return new LongDocValuesField(getLongValues(), name);
+        }
+    }
+
     @Override
     public final SortedBinaryDocValues getBytesValues() {
         return FieldData.toString(getLongValues());
@@ -17,6 +17,7 @@ import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.geo.ShapeRelation;
 import org.elasticsearch.common.time.DateMathParser;
 import org.elasticsearch.common.unit.Fuzziness;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.script.CompositeFieldScript;
 import org.elasticsearch.script.Script;
@@ -182,6 +183,19 @@ abstract class AbstractScriptFieldType<LeafFactory> extends MappedFieldType {
         return factory.apply(searchLookup);
     }
 
+    /**
+     * The script of this field if the values it computes can be cached per segment, {@code null} otherwise. The values must
+     * only depend on the documents and on the mapping, so the script must be deterministic and the search request must not
+     * define runtime fields that the script could read instead of the mapped ones.
+     */
+    @Nullable
+    protected final Script cacheableScript(SearchLookup searchLookup) {
+        if (isResultDeterministic && searchLookup.mappedRuntimeFieldsOnly()) {
+            return script;
+        }
+        return null;
+    }
+
     /**
      * Create a script leaf factory for queries.
      */
@@ -156,7 +156,8 @@ public class DateScriptFieldType extends AbstractScriptFieldType<DateFieldScript
 
     @Override
     public DateScriptFieldData.Builder fielddataBuilder(String fullyQualifiedIndexName, Supplier<SearchLookup> lookup) {
-        return new DateScriptFieldData.Builder(name(), leafFactory(lookup.get()));
+        SearchLookup searchLookup = lookup.get();
+        return new DateScriptFieldData.Builder(name(), leafFactory(searchLookup), cacheableScript(searchLookup));
     }
 
     @Override
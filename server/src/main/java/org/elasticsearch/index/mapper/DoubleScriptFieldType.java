@@ -98,7 +98,8 @@ public final class DoubleScriptFieldType extends AbstractScriptFieldType<DoubleF
 
     @Override
     public DoubleScriptFieldData.Builder fielddataBuilder(String fullyQualifiedIndexName, Supplier<SearchLookup> searchLookup) {
-        return new DoubleScriptFieldData.Builder(name(), leafFactory(searchLookup.get()));
+        SearchLookup lookup = searchLookup.get();
+        return new DoubleScriptFieldData.Builder(name(), leafFactory(lookup), cacheableScript(lookup));
     }
 
     @Override
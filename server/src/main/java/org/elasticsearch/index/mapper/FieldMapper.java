@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.mapper;
 
+import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.Explicit;
@@ -17,6 +18,7 @@ import org.elasticsearch.common.logging.DeprecationLogger;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.analysis.NamedAnalyzer;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptType;
@@ -218,6 +220,15 @@ public abstract class FieldMapper extends Mapper implements Cloneable {
         return false;
     }
 
+    /**
+     * The doc values format that this field needs, for instance to build additional data structures
+     * when segments are written, or {@code null} if the default format of the index should be used.
+     */
+    @Nullable
+    public DocValuesFormat docValuesFormat() {
+        return null;
+    }
+
     /**
      * Parse the field value using the provided {@link DocumentParserContext}.
      */
@@ -484,6 +495,10 @@ public abstract class FieldMapper extends Mapper implements Cloneable {
                 return mapperBuilders.isEmpty() == false;
             }
 
+            public boolean hasMultiField(String name) {
+                return mapperBuilders.containsKey(name);
+            }
+
             public MultiFields build(Mapper.Builder mainFieldBuilder, MapperBuilderContext context) {
                 if (mapperBuilders.isEmpty()) {
                     return empty();
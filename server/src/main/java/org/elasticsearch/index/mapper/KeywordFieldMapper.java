@@ -12,6 +12,7 @@ import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.FilteredTermsEnum;
 import org.apache.lucene.index.IndexOptions;
@@ -29,6 +30,7 @@ import org.apache.lucene.util.automaton.CompiledAutomaton;
 import org.apache.lucene.util.automaton.CompiledAutomaton.AUTOMATON_TYPE;
 import org.apache.lucene.util.automaton.MinimizationOperations;
 import org.apache.lucene.util.automaton.Operations;
+import org.elasticsearch.common.hash.MurmurHash3;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.AutomatonQueries;
 import org.elasticsearch.index.analysis.IndexAnalyzers;
@@ -61,6 +63,17 @@ public final class KeywordFieldMapper extends FieldMapper {
 
     public static final String CONTENT_TYPE = "keyword";
 
+    /**
+     * Name of the doc values field that holds the hashes of the values of fields that have {@code precompute_hash} enabled,
+     * relative to the field. Such fields can't have a multi-field with the same name.
+     */
+    static final String HASH_FIELD_NAME = "_hash";
+
+    /**
+     * Suffix of the doc values field that holds the hashes of the values of fields that have {@code precompute_hash} enabled.
+     */
+    public static final String HASH_FIELD_SUFFIX = "." + HASH_FIELD_NAME;
+
     public static class Defaults {
         public static final FieldType FIELD_TYPE = new FieldType();
 
@@ -126,6 +139,13 @@ public final class KeywordFieldMapper extends FieldMapper {
             false
         );
 
+        private final Parameter<Boolean> precomputeHash = Parameter.boolParam(
+            "precompute_hash",
+            false,
+            m -> toType(m).precomputeHash,
+            false
+        );
+
         private final Parameter<Map<String, String>> meta = Parameter.metaParam();
         private final Parameter<Float> boost = Parameter.boostParam();
 
@@ -156,6 +176,19 @@ public final class KeywordFieldMapper extends FieldMapper {
                     );
                 }
             }).precludesParameters(normalizer, ignoreAbove);
+
+            this.precomputeHash.addValidator(v -> {
+                if (v && hasDocValues.getValue() == false) {
+                    throw new IllegalArgumentException(
+                        "Field [" + precomputeHash.name + "] requires that [" + hasDocValues.name + "] is true"
+                    );
+                }
+                if (v && multiFieldsBuilder.hasMultiField(HASH_FIELD_NAME)) {
+                    throw new IllegalArgumentException(
+                        "Field [" + precomputeHash.name + "] can't be used with a multi-field named [" + HASH_FIELD_NAME + "]"
+                    );
+                }
+            });
         }
 
         public Builder(String name) {
@@ -187,6 +220,11 @@ public final class KeywordFieldMapper extends FieldMapper {
             return this;
         }
 
+        public Builder precomputeHash(boolean precomputeHash) {
+            this.precomputeHash.setValue(precomputeHash);
+            return this;
+        }
+
         private FieldValues<String> scriptValues() {
             if (script.get() == null) {
                 return null;
@@ -213,6 +251,7 @@ public final class KeywordFieldMapper extends FieldMapper {
                 similarity,
                 normalizer,
                 splitQueriesOnWhitespace,
+                precomputeHash,
                 script,
                 onScriptError,
                 boost,
@@ -269,6 +308,7 @@ public final class KeywordFieldMapper extends FieldMapper {
         private final boolean eagerGlobalOrdinals;
         private final FieldValues<String> scriptValues;
         private final boolean isDimension;
+        private final boolean precomputeHash;
 
         public KeywordFieldType(
             String name,
@@ -293,6 +333,7 @@ public final class KeywordFieldMapper extends FieldMapper {
             this.nullValue = builder.nullValue.getValue();
             this.scriptValues = builder.scriptValues();
             this.isDimension = builder.dimension.getValue();
+            this.precomputeHash = builder.precomputeHash.getValue();
         }
 
         public KeywordFieldType(String name, boolean isSearchable, boolean hasDocValues, Map<String, String> meta) {
@@ -303,6 +344,7 @@ public final class KeywordFieldMapper extends FieldMapper {
             this.eagerGlobalOrdinals = false;
             this.scriptValues = null;
             this.isDimension = false;
+            this.precomputeHash = false;
         }
 
         public KeywordFieldType(String name) {
@@ -324,6 +366,7 @@ public final class KeywordFieldMapper extends FieldMapper {
             this.eagerGlobalOrdinals = false;
             this.scriptValues = null;
             this.isDimension = false;
+            this.precomputeHash = false;
         }
 
         public KeywordFieldType(String name, NamedAnalyzer analyzer) {
@@ -334,6 +377,7 @@ public final class KeywordFieldMapper extends FieldMapper {
             this.eagerGlobalOrdinals = false;
             this.scriptValues = null;
             this.isDimension = false;
+            this.precomputeHash = false;
         }
 
         @Override
@@ -485,6 +529,14 @@ public final class KeywordFieldMapper extends FieldMapper {
         public boolean isDimension() {
             return isDimension;
         }
+
+        /**
+         * The name of the doc values field that holds the 64-bit murmur3 hashes of the values of this field,
+         * or {@code null} if hashes are not computed at index time.
+         */
+        public String precomputedHashFieldName() {
+            return precomputeHash ? name() + HASH_FIELD_SUFFIX : null;
+        }
     }
 
     /** The maximum keyword length allowed for a dimension field */
@@ -504,6 +556,7 @@ public final class KeywordFieldMapper extends FieldMapper {
     private final FieldValues<String> scriptValues;
     private final ScriptCompiler scriptCompiler;
     private final boolean dimension;
+    private final boolean precomputeHash;
 
     private final IndexAnalyzers indexAnalyzers;
 
@@ -540,6 +593,7 @@ public final class KeywordFieldMapper extends FieldMapper {
         this.indexAnalyzers = builder.indexAnalyzers;
         this.scriptCompiler = builder.scriptCompiler;
         this.dimension = builder.dimension.getValue();
+        this.precomputeHash = builder.precomputeHash.getValue();
     }
 
     @Override
@@ -611,6 +665,12 @@ public final class KeywordFieldMapper extends FieldMapper {
 
         if (fieldType().hasDocValues()) {
             context.doc().add(new SortedSetDocValuesField(fieldType().name(), binaryValue));
+            if (precomputeHash) {
+                // the same hash as the one that the cardinality aggregation computes at search time
+                final MurmurHash3.Hash128 hash = new MurmurHash3.Hash128();
+                MurmurHash3.hash128(binaryValue.bytes, binaryValue.offset, binaryValue.length, 0, hash);
+                context.doc().add(new SortedNumericDocValuesField(fieldType().precomputedHashFieldName(), hash.h1));
+            }
         }
     }
 
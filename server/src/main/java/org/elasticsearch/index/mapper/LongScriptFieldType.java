@@ -93,7 +93,8 @@ public final class LongScriptFieldType extends AbstractScriptFieldType<LongField
 
     @Override
     public LongScriptFieldData.Builder fielddataBuilder(String fullyQualifiedIndexName, Supplier<SearchLookup> searchLookup) {
-        return new LongScriptFieldData.Builder(name(), leafFactory(searchLookup.get()));
+        SearchLookup lookup = searchLookup.get();
+        return new LongScriptFieldData.Builder(name(), leafFactory(lookup), cacheableScript(lookup));
     }
 
     @Override
@@ -449,6 +449,16 @@ public abstract class MappedFieldType {
         }
     }
 
+    /**
+     * Fails unless the field can be searched on either its index structures or its doc values. Doc values are only searched on
+     * indices with a doc values skip index, which lets queries skip the blocks of documents that can't match.
+     */
+    protected final void failIfNotSearchable(SearchExecutionContext context) {
+        if (isIndexed == false && (hasDocValues() == false || context == null || context.docValuesSkipIndexEnabled() == false)) {
+            failIfNotIndexed();
+        }
+    }
+
     /**
      * @return if this field type should load global ordinals eagerly
      */
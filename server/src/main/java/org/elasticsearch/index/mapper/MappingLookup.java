@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.mapper;
 
+import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.codecs.PostingsFormat;
 import org.elasticsearch.cluster.metadata.DataStream;
 import org.elasticsearch.index.IndexSettings;
@@ -233,6 +234,16 @@ public final class MappingLookup {
         return completionFields.contains(field) ? CompletionFieldMapper.postingsFormat() : null;
     }
 
+    /**
+     * Gets the doc values format for a particular field
+     * @param field the field to retrieve a doc values format for
+     * @return the doc values format for the field, or {@code null} if the default format should be used
+     */
+    public DocValuesFormat getDocValuesFormat(String field) {
+        Mapper mapper = fieldMappers.get(field);
+        return mapper instanceof FieldMapper ? ((FieldMapper) mapper).docValuesFormat() : null;
+    }
+
     void checkLimits(IndexSettings settings) {
         checkFieldLimit(settings.getMappingTotalFieldsLimit());
         checkObjectDepthLimit(settings.getMappingDepthLimit());
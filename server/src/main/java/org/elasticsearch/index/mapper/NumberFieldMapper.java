@@ -30,6 +30,7 @@ import org.apache.lucene.util.NumericUtils;
 import org.elasticsearch.common.Explicit;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.lucene.search.Queries;
+import org.elasticsearch.common.lucene.search.SkippingSortedNumericDocValuesRangeQuery;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
@@ -258,8 +259,11 @@ public class NumberFieldMapper extends FieldMapper {
             }
 
             @Override
-            public Query termQuery(String field, Object value) {
+            public Query termQuery(String field, Object value, boolean isSearchable) {
                 float v = parseToFloat(value);
+                if (isSearchable == false) {
+                    return docValuesTermQuery(field, HalfFloatPoint.halfFloatToSortableShort(v));
+                }
                 return HalfFloatPoint.newExactQuery(field, v);
             }
 
@@ -281,6 +285,7 @@ public class NumberFieldMapper extends FieldMapper {
                 boolean includeLower,
                 boolean includeUpper,
                 boolean hasDocValues,
+                boolean isSearchable,
                 SearchExecutionContext context
             ) {
                 float l = Float.NEGATIVE_INFINITY;
@@ -299,12 +304,21 @@ public class NumberFieldMapper extends FieldMapper {
                     }
                     u = HalfFloatPoint.nextDown(u);
                 }
+                if (isSearchable == false) {
+                    return docValuesRangeQuery(
+                        field,
+                        HalfFloatPoint.halfFloatToSortableShort(l),
+                        HalfFloatPoint.halfFloatToSortableShort(u),
+                        context
+                    );
+                }
                 Query query = HalfFloatPoint.newRangeQuery(field, l, u);
                 if (hasDocValues) {
-                    Query dvQuery = SortedNumericDocValuesField.newSlowRangeQuery(
+                    Query dvQuery = docValuesRangeQuery(
                         field,
                         HalfFloatPoint.halfFloatToSortableShort(l),
-                        HalfFloatPoint.halfFloatToSortableShort(u)
+                        HalfFloatPoint.halfFloatToSortableShort(u),
+                        context
                     );
                     query = new IndexOrDocValuesQuery(query, dvQuery);
                 }
@@ -362,8 +376,11 @@ public class NumberFieldMapper extends FieldMapper {
             }
 
             @Override
-            public Query termQuery(String field, Object value) {
+            public Query termQuery(String field, Object value, boolean isSearchable) {
                 float v = parse(value, false);
+                if (isSearchable == false) {
+                    return docValuesTermQuery(field, NumericUtils.floatToSortableInt(v));
+                }
                 return FloatPoint.newExactQuery(field, v);
             }
 
@@ -384,6 +401,7 @@ public class NumberFieldMapper extends FieldMapper {
                 boolean includeLower,
                 boolean includeUpper,
                 boolean hasDocValues,
+                boolean isSearchable,
                 SearchExecutionContext context
             ) {
                 float l = Float.NEGATIVE_INFINITY;
@@ -400,12 +418,16 @@ public class NumberFieldMapper extends FieldMapper {
                         u = FloatPoint.nextDown(u);
                     }
                 }
+                if (isSearchable == false) {
+                    return docValuesRangeQuery(field, NumericUtils.floatToSortableInt(l), NumericUtils.floatToSortableInt(u), context);
+                }
                 Query query = FloatPoint.newRangeQuery(field, l, u);
                 if (hasDocValues) {
-                    Query dvQuery = SortedNumericDocValuesField.newSlowRangeQuery(
+                    Query dvQuery = docValuesRangeQuery(
                         field,
                         NumericUtils.floatToSortableInt(l),
-                        NumericUtils.floatToSortableInt(u)
+                        NumericUtils.floatToSortableInt(u),
+                        context
                     );
                     query = new IndexOrDocValuesQuery(query, dvQuery);
                 }
@@ -462,8 +484,11 @@ public class NumberFieldMapper extends FieldMapper {
             }
 
             @Override
-            public Query termQuery(String field, Object value) {
+            public Query termQuery(String field, Object value, boolean isSearchable) {
                 double v = parse(value, false);
+                if (isSearchable == false) {
+                    return docValuesTermQuery(field, NumericUtils.doubleToSortableLong(v));
+                }
                 return DoublePoint.newExactQuery(field, v);
             }
 
@@ -481,15 +506,25 @@ public class NumberFieldMapper extends FieldMapper {
                 boolean includeLower,
                 boolean includeUpper,
                 boolean hasDocValues,
+                boolean isSearchable,
                 SearchExecutionContext context
             ) {
                 return doubleRangeQuery(lowerTerm, upperTerm, includeLower, includeUpper, (l, u) -> {
+                    if (isSearchable == false) {
+                        return docValuesRangeQuery(
+                            field,
+                            NumericUtils.doubleToSortableLong(l),
+                            NumericUtils.doubleToSortableLong(u),
+                            context
+                        );
+                    }
                     Query query = DoublePoint.newRangeQuery(field, l, u);
                     if (hasDocValues) {
-                        Query dvQuery = SortedNumericDocValuesField.newSlowRangeQuery(
+                        Query dvQuery = docValuesRangeQuery(
                             field,
                             NumericUtils.doubleToSortableLong(l),
-                            NumericUtils.doubleToSortableLong(u)
+                            NumericUtils.doubleToSortableLong(u),
+                            context
                         );
                         query = new IndexOrDocValuesQuery(query, dvQuery);
                     }
@@ -552,8 +587,8 @@ public class NumberFieldMapper extends FieldMapper {
             }
 
             @Override
-            public Query termQuery(String field, Object value) {
-                return INTEGER.termQuery(field, value);
+            public Query termQuery(String field, Object value, boolean isSearchable) {
+                return INTEGER.termQuery(field, value, isSearchable);
             }
 
             @Override
@@ -569,9 +604,10 @@ public class NumberFieldMapper extends FieldMapper {
                 boolean includeLower,
                 boolean includeUpper,
                 boolean hasDocValues,
+                boolean isSearchable,
                 SearchExecutionContext context
             ) {
-                return INTEGER.rangeQuery(field, lowerTerm, upperTerm, includeLower, includeUpper, hasDocValues, context);
+                return INTEGER.rangeQuery(field, lowerTerm, upperTerm, includeLower, includeUpper, hasDocValues, isSearchable, context);
             }
 
             @Override
@@ -614,8 +650,8 @@ public class NumberFieldMapper extends FieldMapper {
             }
 
             @Override
-            public Query termQuery(String field, Object value) {
-                return INTEGER.termQuery(field, value);
+            public Query termQuery(String field, Object value, boolean isSearchable) {
+                return INTEGER.termQuery(field, value, isSearchable);
             }
 
             @Override
@@ -631,9 +667,10 @@ public class NumberFieldMapper extends FieldMapper {
                 boolean includeLower,
                 boolean includeUpper,
                 boolean hasDocValues,
+                boolean isSearchable,
                 SearchExecutionContext context
             ) {
-                return INTEGER.rangeQuery(field, lowerTerm, upperTerm, includeLower, includeUpper, hasDocValues, context);
+                return INTEGER.rangeQuery(field, lowerTerm, upperTerm, includeLower, includeUpper, hasDocValues, isSearchable, context);
             }
 
             @Override
@@ -676,11 +713,14 @@ public class NumberFieldMapper extends FieldMapper {
             }
 
             @Override
-            public Query termQuery(String field, Object value) {
+            public Query termQuery(String field, Object value, boolean isSearchable) {
                 if (hasDecimalPart(value)) {
                     return Queries.newMatchNoDocsQuery("Value [" + value + "] has a decimal part");
                 }
                 int v = parse(value, true);
+                if (isSearchable == false) {
+                    return docValuesTermQuery(field, v);
+                }
                 return IntPoint.newExactQuery(field, v);
             }
 
@@ -712,6 +752,7 @@ public class NumberFieldMapper extends FieldMapper {
                 boolean includeLower,
                 boolean includeUpper,
                 boolean hasDocValues,
+                boolean isSearchable,
                 SearchExecutionContext context
             ) {
                 int l = Integer.MIN_VALUE;
@@ -741,9 +782,16 @@ public class NumberFieldMapper extends FieldMapper {
                         --u;
                     }
                 }
+                if (isSearchable == false) {
+                    Query query = docValuesRangeQuery(field, l, u, context);
+                    if (context.indexSortedOnField(field)) {
+                        query = new IndexSortSortedNumericDocValuesRangeQuery(field, l, u, query);
+                    }
+                    return query;
+                }
                 Query query = IntPoint.newRangeQuery(field, l, u);
                 if (hasDocValues) {
-                    Query dvQuery = SortedNumericDocValuesField.newSlowRangeQuery(field, l, u);
+                    Query dvQuery = docValuesRangeQuery(field, l, u, context);
                     query = new IndexOrDocValuesQuery(query, dvQuery);
                     if (context.indexSortedOnField(field)) {
                         query = new IndexSortSortedNumericDocValuesRangeQuery(field, l, u, query);
@@ -792,11 +840,14 @@ public class NumberFieldMapper extends FieldMapper {
             }
 
             @Override
-            public Query termQuery(String field, Object value) {
+            public Query termQuery(String field, Object value, boolean isSearchable) {
                 if (hasDecimalPart(value)) {
                     return Queries.newMatchNoDocsQuery("Value [" + value + "] has a decimal part");
                 }
                 long v = parse(value, true);
+                if (isSearchable == false) {
+                    return docValuesTermQuery(field, v);
+                }
                 return LongPoint.newExactQuery(field, v);
             }
 
@@ -828,12 +879,20 @@ public class NumberFieldMapper extends FieldMapper {
                 boolean includeLower,
                 boolean includeUpper,
                 boolean hasDocValues,
+                boolean isSearchable,
                 SearchExecutionContext context
             ) {
                 return longRangeQuery(lowerTerm, upperTerm, includeLower, includeUpper, (l, u) -> {
+                    if (isSearchable == false) {
+                        Query query = docValuesRangeQuery(field, l, u, context);
+                        if (context.indexSortedOnField(field)) {
+                            query = new IndexSortSortedNumericDocValuesRangeQuery(field, l, u, query);
+                        }
+                        return query;
+                    }
                     Query query = LongPoint.newRangeQuery(field, l, u);
                     if (hasDocValues) {
-                        Query dvQuery = SortedNumericDocValuesField.newSlowRangeQuery(field, l, u);
+                        Query dvQuery = docValuesRangeQuery(field, l, u, context);
                         query = new IndexOrDocValuesQuery(query, dvQuery);
                         if (context.indexSortedOnField(field)) {
                             query = new IndexSortSortedNumericDocValuesRangeQuery(field, l, u, query);
@@ -883,10 +942,41 @@ public class NumberFieldMapper extends FieldMapper {
             return parser;
         }
 
-        public abstract Query termQuery(String field, Object value);
+        /**
+         * Builds a term query on the points of an indexed field.
+         */
+        public final Query termQuery(String field, Object value) {
+            return termQuery(field, value, true);
+        }
+
+        /**
+         * Builds a term query on the points of the field if it is searchable, or on its doc values otherwise. Doc values are only
+         * searched on indices with a doc values skip index, see {@link #docValuesTermQuery}.
+         */
+        public abstract Query termQuery(String field, Object value, boolean isSearchable);
 
         public abstract Query termsQuery(String field, Collection<?> values);
 
+        /**
+         * Builds a range query on the points of an indexed field, combined with its doc values if it has some.
+         */
+        public final Query rangeQuery(
+            String field,
+            Object lowerTerm,
+            Object upperTerm,
+            boolean includeLower,
+            boolean includeUpper,
+            boolean hasDocValues,
+            SearchExecutionContext context
+        ) {
+            return rangeQuery(field, lowerTerm, upperTerm, includeLower, includeUpper, hasDocValues, true, context);
+        }
+
+        /**
+         * Builds a range query on the points of the field if it is searchable, combined with its doc values if it has some.
+         * Fields that aren't searchable are queried on their doc values only, which is only done on indices with a doc values
+         * skip index.
+         */
         public abstract Query rangeQuery(
             String field,
             Object lowerTerm,
@@ -894,6 +984,7 @@ public class NumberFieldMapper extends FieldMapper {
             boolean includeLower,
             boolean includeUpper,
             boolean hasDocValues,
+            boolean isSearchable,
             SearchExecutionContext context
         );
 
@@ -1053,6 +1144,25 @@ public class NumberFieldMapper extends FieldMapper {
             }
             return builder.apply(l, u);
         }
+
+        /**
+         * Builds a term query on the doc values of a field that isn't indexed, using the sortable {@code long} encoding of the value.
+         * It is only used on indices with a doc values skip index, which lets the query skip the blocks that can't contain the value.
+         */
+        public static Query docValuesTermQuery(String field, long value) {
+            return new SkippingSortedNumericDocValuesRangeQuery(field, value, value);
+        }
+
+        /**
+         * Builds the doc values side of a range query on the sortable {@code long} encoding of the values. The query
+         * skips over blocks of documents using the doc values skip index if the index has one.
+         */
+        public static Query docValuesRangeQuery(String field, long lowerValue, long upperValue, SearchExecutionContext context) {
+            if (context != null && context.docValuesSkipIndexEnabled()) {
+                return new SkippingSortedNumericDocValuesRangeQuery(field, lowerValue, upperValue);
+            }
+            return SortedNumericDocValuesField.newSlowRangeQuery(field, lowerValue, upperValue);
+        }
     }
 
     public static class NumberFieldType extends SimpleMappedFieldType {
@@ -1132,8 +1242,7 @@ public class NumberFieldMapper extends FieldMapper {
 
         @Override
         public Query termQuery(Object value, SearchExecutionContext context) {
-            failIfNotIndexed();
-            Query query = type.termQuery(name(), value);
+            Query query = type.termQuery(name(), value, searchesPoints(context));
             if (boost() != 1f) {
                 query = new BoostQuery(query, boost());
             }
@@ -1142,8 +1251,8 @@ public class NumberFieldMapper extends FieldMapper {
 
         @Override
         public Query termsQuery(Collection<?> values, SearchExecutionContext context) {
-            failIfNotIndexed();
-            Query query = type.termsQuery(name(), values);
+            // fields that are only searchable on doc values match any of the doc values term queries
+            Query query = searchesPoints(context) ? type.termsQuery(name(), values) : super.termsQuery(values, context);
             if (boost() != 1f) {
                 query = new BoostQuery(query, boost());
             }
@@ -1158,14 +1267,30 @@ public class NumberFieldMapper extends FieldMapper {
             boolean includeUpper,
             SearchExecutionContext context
         ) {
-            failIfNotIndexed();
-            Query query = type.rangeQuery(name(), lowerTerm, upperTerm, includeLower, includeUpper, hasDocValues(), context);
+            Query query = type.rangeQuery(
+                name(),
+                lowerTerm,
+                upperTerm,
+                includeLower,
+                includeUpper,
+                hasDocValues(),
+                searchesPoints(context),
+                context
+            );
             if (boost() != 1f) {
                 query = new BoostQuery(query, boost());
             }
             return query;
         }
 
+        /**
+         * Whether queries on this field search its points, or its doc values otherwise. See {@link #failIfNotSearchable}.
+         */
+        private boolean searchesPoints(SearchExecutionContext context) {
+            failIfNotSearchable(context);
+            return isSearchable();
+        }
+
         @Override
         public Function<byte[], Number> pointReaderIfPossible() {
             if (isSearchable()) {
@@ -509,7 +509,8 @@ public class SearchExecutionContext extends QueryRewriteContext {
         if (this.lookup == null) {
             this.lookup = new SearchLookup(
                 this::getFieldType,
-                (fieldType, searchLookup) -> indexFieldDataService.apply(fieldType, fullyQualifiedIndex.getName(), searchLookup)
+                (fieldType, searchLookup) -> indexFieldDataService.apply(fieldType, fullyQualifiedIndex.getName(), searchLookup),
+                runtimeMappings.isEmpty()
             );
         }
         return this.lookup;
@@ -536,6 +537,14 @@ public class SearchExecutionContext extends QueryRewriteContext {
         return indexSortConfig.hasPrimarySortOnField(field);
     }
 
+    /**
+     * Whether numeric doc values of this index carry a per-block skip index, see
+     * {@link IndexSettings#INDEX_DOC_VALUES_SKIP_INDEX_SETTING}.
+     */
+    public boolean docValuesSkipIndexEnabled() {
+        return indexSettings.isDocValuesSkipIndexEnabled();
+    }
+
     public ParsedQuery toQuery(QueryBuilder queryBuilder) {
         return toQuery(queryBuilder, q -> {
             Query query = q.toQuery(this);
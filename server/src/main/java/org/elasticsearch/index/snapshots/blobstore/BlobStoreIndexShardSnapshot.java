@@ -10,6 +10,7 @@ package org.elasticsearch.index.snapshots.blobstore;
 
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -24,6 +25,8 @@ import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentParser;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.IntStream;
@@ -41,11 +44,14 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
     public static class FileInfo implements Writeable {
         public static final String SERIALIZE_WRITER_UUID = "serialize_writer_uuid";
 
+        public static final Version BLOCKS_VERSION = Version.V_7_16_3;
+
         private final String name;
         private final ByteSizeValue partSize;
         private final long partBytes;
         private final int numberOfParts;
         private final StoreFileMetadata metadata;
+        private final List<Block> blocks;
 
         /**
          * Constructs a new instance of file info
@@ -55,15 +61,30 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          * @param partSize     size of the single chunk
          */
         public FileInfo(String name, StoreFileMetadata metadata, ByteSizeValue partSize) {
+            this(name, metadata, partSize, Collections.emptyList());
+        }
+
+        /**
+         * Constructs a new instance of file info
+         *
+         * @param name         file name as stored in the blob store
+         * @param metadata  the files meta data
+         * @param partSize     size of the single chunk
+         * @param blocks       the content-addressed blocks that store the file, in order, or an empty list if the file is stored in parts
+         */
+        public FileInfo(String name, StoreFileMetadata metadata, ByteSizeValue partSize, List<Block> blocks) {
             this.name = Objects.requireNonNull(name);
             this.metadata = metadata;
+            this.blocks = org.elasticsearch.core.List.copyOf(blocks);
 
             long partBytes = Long.MAX_VALUE;
             if (partSize != null && partSize.getBytes() > 0) {
                 partBytes = partSize.getBytes();
             }
 
-            if (metadata.length() == 0) {
+            if (this.blocks.isEmpty() == false) {
+                numberOfParts = this.blocks.size();
+            } else if (metadata.length() == 0) {
                 numberOfParts = 1;
             } else {
                 long longNumberOfParts = 1L + (metadata.length() - 1L) / partBytes; // ceil(len/partBytes), but beware of long overflow
@@ -79,7 +100,12 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
         }
 
         public FileInfo(StreamInput in) throws IOException {
-            this(in.readString(), new StoreFileMetadata(in), in.readOptionalWriteable(ByteSizeValue::new));
+            this(
+                in.readString(),
+                new StoreFileMetadata(in),
+                in.readOptionalWriteable(ByteSizeValue::new),
+                in.getVersion().onOrAfter(BLOCKS_VERSION) ? in.readList(Block::new) : Collections.emptyList()
+            );
         }
 
         @Override
@@ -87,6 +113,13 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             out.writeString(name);
             metadata.writeTo(out);
             out.writeOptionalWriteable(partSize);
+            if (out.getVersion().onOrAfter(BLOCKS_VERSION)) {
+                out.writeList(blocks);
+            } else if (blocks.isEmpty() == false) {
+                throw new IllegalStateException(
+                    "cannot send file [" + name + "] stored in blocks to a node of version [" + out.getVersion() + "]"
+                );
+            }
         }
 
         /**
@@ -99,13 +132,15 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
         }
 
         /**
-         * Returns part name if file is stored as multiple parts
+         * Returns part name if file is stored as multiple parts, or the name of the blob of the block if the file is stored in blocks
          *
          * @param part part number
          * @return part name
          */
         public String partName(int part) {
-            if (numberOfParts > 1) {
+            if (blocks.isEmpty() == false) {
+                return blocks.get(part).blobName();
+            } else if (numberOfParts > 1) {
                 return name + ".part" + part;
             } else {
                 return name;
@@ -159,6 +194,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          */
         public long partBytes(int part) {
             assert 0 <= part && part < numberOfParts : part + " vs " + numberOfParts;
+            if (blocks.isEmpty() == false) {
+                return blocks.get(part).length();
+            }
             if (numberOfParts == 1) {
                 return length();
             }
@@ -181,6 +219,17 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             return numberOfParts;
         }
 
+        /**
+         * Returns the content-addressed blocks that store the file, in order, or an empty list if the file is stored in parts. Blocks are
+         * shared by all the files and snapshots of a shard that contain the same bytes, see
+         * {@link org.elasticsearch.repositories.blobstore.BlobStoreRepository#BLOCK_DEDUPLICATION_SETTING}.
+         *
+         * @return the blocks of the file
+         */
+        public List<Block> blocks() {
+            return blocks;
+        }
+
         /**
          * Returns file md5 checksum provided by {@link org.elasticsearch.index.store.Store}
          *
@@ -220,6 +269,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             if (partBytes != fileInfo.partBytes) {
                 return false;
             }
+            if (blocks.equals(fileInfo.blocks) == false) {
+                return false;
+            }
             if (name.equals(fileInfo.name) == false) {
                 return false;
             }
@@ -243,6 +295,8 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
         static final String WRITTEN_BY = "written_by";
         static final String META_HASH = "meta_hash";
         static final String WRITER_UUID = "writer_uuid";
+        static final String BLOCKS = "blocks";
+        static final String HASH = "hash";
 
         /**
          * Serializes file info into JSON
@@ -278,6 +332,17 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                 builder.field(WRITER_UUID, writerUuid.bytes, writerUuid.offset, writerUuid.length);
             }
 
+            if (file.blocks.isEmpty() == false) {
+                builder.startArray(BLOCKS);
+                for (Block block : file.blocks) {
+                    builder.startObject();
+                    builder.field(HASH, block.hash);
+                    builder.field(LENGTH, block.length);
+                    builder.endObject();
+                }
+                builder.endArray();
+            }
+
             builder.endObject();
         }
 
@@ -297,6 +362,7 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             String writtenBy = null;
             BytesRef metaHash = new BytesRef();
             BytesRef writerUuid = UNAVAILABLE_WRITER_UUID;
+            final List<Block> blocks = new ArrayList<>();
             XContentParserUtils.ensureExpectedToken(token, XContentParser.Token.START_OBJECT, parser);
             while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
                 if (token == XContentParser.Token.FIELD_NAME) {
@@ -325,6 +391,10 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                         } else {
                             XContentParserUtils.throwUnknownField(currentFieldName, parser.getTokenLocation());
                         }
+                    } else if (token == XContentParser.Token.START_ARRAY && BLOCKS.equals(currentFieldName)) {
+                        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                            blocks.add(Block.fromXContent(parser));
+                        }
                     } else {
                         XContentParserUtils.throwUnknownToken(token, parser.getTokenLocation());
                     }
@@ -344,8 +414,15 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                 throw new ElasticsearchParseException("missing or invalid written_by [" + writtenBy + "]");
             } else if (checksum == null) {
                 throw new ElasticsearchParseException("missing checksum for name [" + name + "]");
+            } else if (blocks.isEmpty() == false && blocks.stream().mapToLong(Block::length).sum() != length) {
+                throw new ElasticsearchParseException("blocks of file [" + name + "] do not match its length [" + length + "]");
             }
-            return new FileInfo(name, new StoreFileMetadata(physicalName, length, checksum, writtenBy, metaHash, writerUuid), partSize);
+            return new FileInfo(
+                name,
+                new StoreFileMetadata(physicalName, length, checksum, writtenBy, metaHash, writerUuid),
+                partSize,
+                blocks
+            );
         }
 
         @Override
@@ -360,10 +437,102 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                 + partBytes
                 + ", metadata: "
                 + metadata
+                + ", blocks: "
+                + blocks.size()
                 + "]";
         }
     }
 
+    /**
+     * A block of a file that is stored in a blob named after the hash of its contents, so that it is only stored once per shard even if
+     * it is contained in several files or snapshots.
+     */
+    public static class Block implements Writeable {
+
+        public static final String BLOB_PREFIX = "block-";
+
+        private final String hash;
+        private final long length;
+
+        /**
+         * @param hash   the hex encoded SHA-256 hash of the contents of the block
+         * @param length the length of the block
+         */
+        public Block(String hash, long length) {
+            if (length <= 0L) {
+                throw new IllegalArgumentException("block [" + hash + "] must not be empty");
+            }
+            this.hash = Objects.requireNonNull(hash);
+            this.length = length;
+        }
+
+        public Block(StreamInput in) throws IOException {
+            this(in.readString(), in.readVLong());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(hash);
+            out.writeVLong(length);
+        }
+
+        public String hash() {
+            return hash;
+        }
+
+        public long length() {
+            return length;
+        }
+
+        /**
+         * Returns the name of the blob that stores the block in the shard container
+         */
+        public String blobName() {
+            return BLOB_PREFIX + hash;
+        }
+
+        static Block fromXContent(XContentParser parser) throws IOException {
+            XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.currentToken(), parser);
+            String hash = null;
+            long length = -1L;
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                XContentParserUtils.ensureExpectedToken(XContentParser.Token.FIELD_NAME, token, parser);
+                final String currentFieldName = parser.currentName();
+                parser.nextToken();
+                if (FileInfo.HASH.equals(currentFieldName)) {
+                    hash = parser.text();
+                } else if (FileInfo.LENGTH.equals(currentFieldName)) {
+                    length = parser.longValue();
+                } else {
+                    XContentParserUtils.throwUnknownField(currentFieldName, parser.getTokenLocation());
+                }
+            }
+            if (hash == null || length <= 0L) {
+                throw new ElasticsearchParseException("missing or invalid block hash [" + hash + "] or length [" + length + "]");
+            }
+            return new Block(hash, length);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Block block = (Block) o;
+            return length == block.length && hash.equals(block.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hash, length);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + hash + "][" + length + "]";
+        }
+    }
+
     /**
      * Snapshot name
      */
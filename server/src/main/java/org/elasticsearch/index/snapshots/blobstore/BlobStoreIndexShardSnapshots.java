@@ -20,9 +20,11 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static java.util.Collections.unmodifiableMap;
 
@@ -145,6 +147,21 @@ public class BlobStoreIndexShardSnapshots implements Iterable<SnapshotFiles>, To
         return files.get(name);
     }
 
+    /**
+     * Returns the names of the blobs of all the blocks that are referenced by the files of the snapshots
+     *
+     * @return the names of the referenced block blobs
+     */
+    public Set<String> blockBlobNames() {
+        final Set<String> blockBlobNames = new HashSet<>();
+        for (FileInfo fileInfo : files.values()) {
+            for (BlobStoreIndexShardSnapshot.Block block : fileInfo.blocks()) {
+                blockBlobNames.add(block.blobName());
+            }
+        }
+        return blockBlobNames;
+    }
+
     @Override
     public Iterator<SnapshotFiles> iterator() {
         return shardSnapshots.iterator();
@@ -35,6 +35,8 @@ public enum LuceneFilesExtensions {
     // cache, so we use mmap, which provides better performance.
     DVD("dvd", "DocValues", false, true),
     DVM("dvm", "DocValues Metadata", true, false),
+    // Elasticsearch doc values skip index, fully loaded when the segment is opened
+    DVS("dvs", "DocValues Skip Index", true, false),
     FDM("fdm", "Field Metadata", true, false),
     FDT("fdt", "Field Data", false, false),
     FDX("fdx", "Field Index", false, false),
@@ -70,7 +72,15 @@ public enum LuceneFilesExtensions {
     TVX("tvx", "Term Vector Index", false, false),
     VEC("vec", "Vector Data", false, false),
     // Lucene 9.0 indexed vectors metadata
-    VEM("vem", "Vector Metadata", true, false);
+    VEM("vem", "Vector Metadata", true, false),
+    // Elasticsearch dense_vector HNSW vectors, read at random while the graph is searched
+    VGD("vgd", "Vector Graph Data", false, true),
+    // Elasticsearch dense_vector HNSW graphs, fully loaded when the segment is opened
+    VGI("vgi", "Vector Graph Index", true, false),
+    // Elasticsearch dense_vector quantized vectors, read for every matching document by vector functions
+    VQD("vqd", "Quantized Vector Data", false, true),
+    // Elasticsearch dense_vector quantized vectors metadata
+    VQM("vqm", "Quantized Vector Metadata", true, false);
 
     /**
      * Allow plugin developers of custom codecs to opt out of the assertion in {@link #fromExtension}
@@ -28,11 +28,13 @@ import org.apache.lucene.store.BufferedChecksum;
 import org.apache.lucene.store.ByteArrayDataInput;
 import org.apache.lucene.store.ChecksumIndexInput;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.Lock;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.NIOFSDirectory;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
@@ -180,6 +182,27 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
         return directory;
     }
 
+    /**
+     * Returns the path of the directory that holds the files of this store on the local file system if reading a file from the store
+     * returns exactly the bytes of the file on disk, or {@code null} otherwise. This is only the case if the store uses one of the built-in
+     * file system directories, only wrapped by the directories of the store itself which pass bytes through: directories provided or
+     * wrapped by plugins or tests may transform the bytes they read, for instance to decrypt them or to inject failures.
+     */
+    @Nullable
+    public Path localFilesDirectory() {
+        Directory unwrapped = directory();
+        while (unwrapped instanceof StoreDirectory || unwrapped instanceof ByteSizeCachingDirectory) {
+            unwrapped = ((FilterDirectory) unwrapped).getDelegate();
+        }
+        if (unwrapped.getClass() == NIOFSDirectory.class
+            || unwrapped.getClass() == MMapDirectory.class
+            || unwrapped.getClass() == FsDirectoryFactory.HybridDirectory.class
+            || unwrapped.getClass() == FsDirectoryFactory.PreLoadMMapDirectory.class) {
+            return ((FSDirectory) unwrapped).getDirectory();
+        }
+        return null;
+    }
+
     /**
      * Returns the last committed segments info for this store
      *
@@ -0,0 +1,214 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Caches the background frequencies that the {@code significant_terms} and {@code significant_text} aggregations look
+ * up for each candidate term. Looking up a frequency is a terms dictionary lookup, or a query if the aggregation has a
+ * {@code background_filter}, and the same frequencies are usually looked up again by the next requests on the same
+ * index.
+ * <p>
+ * Entries are keyed by the cache key of the top-level reader, so that they are only reused until the next refresh, and
+ * are removed by {@link #cleanCache()} once the reader is closed. The cache is bounded by
+ * {@link #INDICES_CACHE_SIZE_SETTING}, and its entries are accounted for in the request circuit breaker: frequencies
+ * that don't fit in the breaker are computed but not cached.
+ */
+public final class IndicesBackgroundFrequencyCache implements Closeable {
+
+    public static final Setting<ByteSizeValue> INDICES_CACHE_SIZE_SETTING = Setting.memorySizeSetting(
+        "indices.significant_terms.background_cache.size",
+        "1%",
+        Property.NodeScope
+    );
+
+    private final Set<IndexReader.CacheKey> registeredClosedListeners = ConcurrentCollections.newConcurrentSet();
+    private final Set<IndexReader.CacheKey> keysToClean = ConcurrentCollections.newConcurrentSet();
+    private final CircuitBreaker breaker;
+    private final Cache<Key, Long> cache;
+
+    public IndicesBackgroundFrequencyCache(Settings settings, CircuitBreaker breaker) {
+        this.breaker = breaker;
+        cache = CacheBuilder.<Key, Long>builder()
+            .setMaximumWeight(INDICES_CACHE_SIZE_SETTING.get(settings).getBytes())
+            .weigher((k, v) -> weight(k))
+            .removalListener(notification -> breaker.addWithoutBreaking(-weight(notification.getKey())))
+            .build();
+    }
+
+    private static long weight(Key key) {
+        return key.ramBytesUsed() + Long.BYTES;
+    }
+
+    /**
+     * Returns the cache helper whose key identifies the frequencies of {@code reader}, or {@code null} if they can't be
+     * cached. Frequencies depend on the live documents of the reader so they can only be cached if all segments expose a
+     * reader cache key, which readers that hide documents, like the ones of document level security, don't. They also
+     * depend on the fields that the reader exposes, but readers that hide fields, like the ones of field level security,
+     * share the cache key of the reader they wrap. Their frequencies aren't cached either so that they can't be served to
+     * users that are allowed to see different fields.
+     */
+    @Nullable
+    public static IndexReader.CacheHelper cacheHelper(IndexReader reader) {
+        for (LeafReaderContext leaf : reader.leaves()) {
+            final LeafReader leafReader = leaf.reader();
+            if (leafReader.getReaderCacheHelper() == null) {
+                return null;
+            }
+            if (leafReader.getFieldInfos() != FilterLeafReader.unwrap(leafReader).getFieldInfos()) {
+                return null;
+            }
+        }
+        return reader.getReaderCacheHelper();
+    }
+
+    /**
+     * Returns the number of documents of the reader that match {@code query} and {@code backgroundFilter}, computing it
+     * with {@code loader} if it isn't cached.
+     */
+    public long getOrCompute(
+        IndexReader.CacheHelper cacheHelper,
+        Query query,
+        @Nullable Query backgroundFilter,
+        CheckedSupplier<Long, IOException> loader
+    ) throws IOException {
+        final Key key = new Key(cacheHelper.getKey(), query, backgroundFilter);
+        final Long cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (registeredClosedListeners.add(key.readerCacheKey)) {
+            cacheHelper.addClosedListener(readerCacheKey -> {
+                if (registeredClosedListeners.remove(readerCacheKey)) {
+                    keysToClean.add(readerCacheKey);
+                }
+            });
+        }
+        final long frequency = loader.get();
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(weight(key), "<significant_terms_background_cache>");
+        } catch (CircuitBreakingException e) {
+            return frequency;
+        }
+        // a concurrent request may have cached the same frequency, which is then replaced and released from the breaker
+        cache.put(key, frequency);
+        return frequency;
+    }
+
+    /**
+     * Removes the entries of the readers that have been closed.
+     */
+    synchronized void cleanCache() {
+        final Set<IndexReader.CacheKey> currentKeysToClean = new HashSet<>();
+        for (Iterator<IndexReader.CacheKey> iterator = keysToClean.iterator(); iterator.hasNext();) {
+            currentKeysToClean.add(iterator.next());
+            iterator.remove();
+        }
+        if (currentKeysToClean.isEmpty() == false) {
+            for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext();) {
+                if (currentKeysToClean.contains(iterator.next().readerCacheKey)) {
+                    iterator.remove();
+                }
+            }
+        }
+        cache.refresh();
+    }
+
+    /**
+     * The number of cached frequencies.
+     */
+    public int count() {
+        return cache.count();
+    }
+
+    /**
+     * The number of frequencies that were found in the cache, and that had to be computed, since the node started.
+     */
+    public Cache.CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * The estimated memory used by the cached frequencies, in bytes.
+     */
+    public long ramBytesUsed() {
+        return cache.weight();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    private static class Key {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+        private static final long TERM_QUERY_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(TermQuery.class)
+            + RamUsageEstimator.shallowSizeOfInstance(Term.class)
+            + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER;
+
+        final IndexReader.CacheKey readerCacheKey;
+        final Query query;
+        final Query backgroundFilter;
+
+        Key(IndexReader.CacheKey readerCacheKey, Query query, @Nullable Query backgroundFilter) {
+            this.readerCacheKey = Objects.requireNonNull(readerCacheKey);
+            this.query = Objects.requireNonNull(query);
+            this.backgroundFilter = backgroundFilter;
+        }
+
+        long ramBytesUsed() {
+            // the background filter is shared by all the keys of a request so it isn't accounted for here
+            if (query instanceof TermQuery) {
+                return BASE_RAM_BYTES_USED + TERM_QUERY_RAM_BYTES_USED + ((TermQuery) query).getTerm().bytes().length;
+            }
+            return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(query, RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return readerCacheKey.equals(key.readerCacheKey)
+                && query.equals(key.query)
+                && Objects.equals(backgroundFilter, key.backgroundFilter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(readerCacheKey, query, backgroundFilter);
+        }
+    }
+}
@@ -227,6 +227,7 @@ public class IndicesService extends AbstractLifecycleComponent
     private final TimeValue cleanInterval;
     final IndicesRequestCache indicesRequestCache; // pkg-private for testing
     private final IndicesQueryCache indicesQueryCache;
+    private final IndicesBackgroundFrequencyCache indicesBackgroundFrequencyCache;
     private final MetaStateService metaStateService;
     private final Collection<Function<IndexSettings, Optional<EngineFactory>>> engineFactoryProviders;
     private final Map<String, IndexStorePlugin.DirectoryFactory> directoryFactories;
@@ -290,6 +291,10 @@ public class IndicesService extends AbstractLifecycleComponent
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indicesRequestCache = new IndicesRequestCache(settings);
         this.indicesQueryCache = new IndicesQueryCache(settings);
+        this.indicesBackgroundFrequencyCache = new IndicesBackgroundFrequencyCache(
+            settings,
+            circuitBreakerService.getBreaker(CircuitBreaker.REQUEST)
+        );
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
         indexingMemoryController = new IndexingMemoryController(
@@ -318,7 +323,14 @@ public class IndicesService extends AbstractLifecycleComponent
             }
         });
         this.cleanInterval = INDICES_CACHE_CLEAN_INTERVAL_SETTING.get(settings);
-        this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache, logger, threadPool, this.cleanInterval);
+        this.cacheCleaner = new CacheCleaner(
+            indicesFieldDataCache,
+            indicesRequestCache,
+            indicesBackgroundFrequencyCache,
+            logger,
+            threadPool,
+            this.cleanInterval
+        );
         this.metaStateService = metaStateService;
         this.engineFactoryProviders = engineFactoryProviders;
 
@@ -347,7 +359,8 @@ public class IndicesService extends AbstractLifecycleComponent
                     indicesFieldDataCache,
                     cacheCleaner,
                     indicesRequestCache,
-                    indicesQueryCache
+                    indicesQueryCache,
+                    indicesBackgroundFrequencyCache
                 );
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
@@ -902,6 +915,10 @@ public class IndicesService extends AbstractLifecycleComponent
         return indicesQueryCache;
     }
 
+    public IndicesBackgroundFrequencyCache getIndicesBackgroundFrequencyCache() {
+        return indicesBackgroundFrequencyCache;
+    }
+
     static class OldShardsStats implements IndexEventListener {
 
         final SearchStats searchStats = new SearchStats();
@@ -1402,16 +1419,19 @@ public class IndicesService extends AbstractLifecycleComponent
         private final TimeValue interval;
         private final AtomicBoolean closed = new AtomicBoolean(false);
         private final IndicesRequestCache requestCache;
+        private final IndicesBackgroundFrequencyCache backgroundFrequencyCache;
 
         CacheCleaner(
             IndicesFieldDataCache cache,
             IndicesRequestCache requestCache,
+            IndicesBackgroundFrequencyCache backgroundFrequencyCache,
             Logger logger,
             ThreadPool threadPool,
             TimeValue interval
         ) {
             this.cache = cache;
             this.requestCache = requestCache;
+            this.backgroundFrequencyCache = backgroundFrequencyCache;
             this.logger = logger;
             this.threadPool = threadPool;
             this.interval = interval;
@@ -1440,6 +1460,11 @@ public class IndicesService extends AbstractLifecycleComponent
             } catch (Exception e) {
                 logger.warn("Exception during periodic request cache cleanup:", e);
             }
+            try {
+                this.backgroundFrequencyCache.cleanCache();
+            } catch (Exception e) {
+                logger.warn("Exception during periodic background frequency cache cleanup:", e);
+            }
             // Reschedule itself to run again if not closed
             if (closed.get() == false) {
                 threadPool.scheduleUnlessShuttingDown(interval, ThreadPool.Names.SAME, this);
@@ -24,9 +24,11 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.GlobalOrdinalsAccounting;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fielddata.LeafFieldData;
@@ -37,6 +39,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.function.ToLongBiFunction;
 
 public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCache.Key, Accountable>, Releasable {
@@ -67,7 +71,20 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
     }
 
     public IndexFieldDataCache buildIndexFieldDataCache(IndexFieldDataCache.Listener listener, Index index, String fieldName) {
-        return new IndexFieldCache(logger, cache, index, fieldName, indicesFieldDataCacheListener, listener);
+        return new IndexFieldCache(logger, cache, index, fieldName, null, indicesFieldDataCacheListener, listener);
+    }
+
+    /**
+     * Builds a cache for field data whose values aren't fully determined by the field name, like the values of a runtime field,
+     * which also depend on its script. Caches built for the same index, field name and {@code valuesKey} share their entries.
+     */
+    public IndexFieldDataCache buildIndexFieldDataCache(
+        IndexFieldDataCache.Listener listener,
+        Index index,
+        String fieldName,
+        Object valuesKey
+    ) {
+        return new IndexFieldCache(logger, cache, index, fieldName, valuesKey, indicesFieldDataCacheListener, listener);
     }
 
     public Cache<Key, Accountable> getCache() {
@@ -79,14 +96,21 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         Key key = notification.getKey();
         assert key != null && key.listeners != null;
         IndexFieldCache indexCache = key.indexCache;
+        if (key.shardId != null) {
+            // only forget the entry if it is still the latest one of the shard, e.g. because its reader got closed with the shard
+            indexCache.lastGlobalKeys.remove(key.shardId, key);
+        }
         final Accountable value = notification.getValue();
+        final long sizeInBytes = value instanceof GlobalOrdinalsAccounting
+            ? ((GlobalOrdinalsAccounting) value).releaseMemory()
+            : value.ramBytesUsed();
         for (IndexFieldDataCache.Listener listener : key.listeners) {
             try {
                 listener.onRemoval(
                     key.shardId,
                     indexCache.fieldName,
                     notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED,
-                    value.ramBytesUsed()
+                    sizeInBytes
                 );
             } catch (Exception e) {
                 // load anyway since listeners should not throw exceptions
@@ -110,14 +134,27 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         private final Logger logger;
         final Index index;
         final String fieldName;
+        // identifies the values of the field when the field name isn't enough, null otherwise
+        @Nullable
+        private final Object valuesKey;
         private final Cache<Key, Accountable> cache;
         private final Listener[] listeners;
+        // the key of the global field data that was last loaded for each shard, so that it can be reused after a refresh
+        private final Map<ShardId, Key> lastGlobalKeys = ConcurrentCollections.newConcurrentMap();
 
-        IndexFieldCache(Logger logger, final Cache<Key, Accountable> cache, Index index, String fieldName, Listener... listeners) {
+        IndexFieldCache(
+            Logger logger,
+            final Cache<Key, Accountable> cache,
+            Index index,
+            String fieldName,
+            @Nullable Object valuesKey,
+            Listener... listeners
+        ) {
             this.logger = logger;
             this.listeners = listeners;
             this.index = index;
             this.fieldName = fieldName;
+            this.valuesKey = valuesKey;
             this.cache = cache;
         }
 
@@ -161,11 +198,20 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
                 throw new IllegalArgumentException("Reader " + indexReader + " does not support caching");
             }
             final Key key = new Key(this, cacheHelper.getKey(), shardId);
+            // the previous entry is only available as long as its reader is open, entries are invalidated on reader close
+            final Key previousKey = shardId == null ? null : lastGlobalKeys.get(shardId);
+            final Accountable previous = previousKey == null ? null : cache.get(previousKey);
             // noinspection unchecked
             final Accountable accountable = cache.computeIfAbsent(key, k -> {
                 ElasticsearchDirectoryReader.addReaderCloseListener(indexReader, IndexFieldCache.this);
                 Collections.addAll(k.listeners, this.listeners);
-                final Accountable ifd = (Accountable) indexFieldData.loadGlobalDirect(indexReader);
+                final Accountable ifd = (Accountable) indexFieldData.loadGlobalDirect(indexReader, (IndexFieldData<FD>) previous);
+                if (previous instanceof GlobalOrdinalsAccounting && ifd instanceof GlobalOrdinalsAccounting) {
+                    handOverReusedMemory(previousKey, (GlobalOrdinalsAccounting) previous, (GlobalOrdinalsAccounting) ifd);
+                }
+                if (shardId != null) {
+                    lastGlobalKeys.put(shardId, k);
+                }
                 for (Listener listener : k.listeners) {
                     try {
                         listener.onCache(shardId, fieldName, ifd);
@@ -179,6 +225,30 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
             return (IFD) accountable;
         }
 
+        /**
+         * Releases the memory that the global ordinals of a newer reader reuse from the previous ones, since the newer ones account for
+         * it already, so that it is not accounted twice until the previous reader gets closed.
+         */
+        private void handOverReusedMemory(Key previousKey, GlobalOrdinalsAccounting previous, GlobalOrdinalsAccounting newer) {
+            final long handedOver = previous.handOverReusedMemory(newer);
+            if (handedOver > 0L) {
+                for (Listener listener : previousKey.listeners) {
+                    try {
+                        listener.onRemoval(previousKey.shardId, fieldName, false, handedOver);
+                    } catch (Exception e) {
+                        // load anyway since listeners should not throw exceptions
+                        logger.error("Failed to call listener on global ordinals hand over", e);
+                    }
+                }
+            }
+        }
+
+        // pkg-private for testing
+        @Nullable
+        Key lastGlobalKey(ShardId shardId) {
+            return lastGlobalKeys.get(shardId);
+        }
+
         @Override
         public void onClose(CacheKey key) throws IOException {
             cache.invalidate(new Key(this, key, null));
@@ -187,6 +257,7 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
 
         @Override
         public void clear() {
+            lastGlobalKeys.clear();
             for (Key key : cache.keys()) {
                 if (key.indexCache.index.equals(index)) {
                     cache.invalidate(key);
@@ -198,6 +269,7 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
 
         @Override
         public void clear(String fieldName) {
+            lastGlobalKeys.clear();
             for (Key key : cache.keys()) {
                 if (key.indexCache.index.equals(index)) {
                     if (key.indexCache.fieldName.equals(fieldName)) {
@@ -210,6 +282,23 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
             // soon as possible
             cache.refresh();
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            // caches without a values key are only equal to themselves
+            if (valuesKey == null || o == null || getClass() != o.getClass()) return false;
+            IndexFieldCache that = (IndexFieldCache) o;
+            return valuesKey.equals(that.valuesKey) && index.equals(that.index) && fieldName.equals(that.fieldName);
+        }
+
+        @Override
+        public int hashCode() {
+            if (valuesKey == null) {
+                return System.identityHashCode(this);
+            }
+            return Objects.hash(index, fieldName, valuesKey);
+        }
     }
 
     public static class Key {
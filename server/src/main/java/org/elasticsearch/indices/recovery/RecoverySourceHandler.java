@@ -32,6 +32,7 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.unit.ByteSizeValue;
@@ -70,6 +71,7 @@ import org.elasticsearch.transport.Transports;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -1332,6 +1334,10 @@ public class RecoverySourceHandler {
 
         // use a smaller buffer than the configured chunk size if we only have files smaller than the chunk size
         final int bufferSize = files.length == 0 ? 0 : (int) Math.min(chunkSizeInBytes, files[files.length - 1].length());
+        // if the files can be read as they are from the local file system and the connection to the target writes file regions straight
+        // from the file to the network, e.g. because it is not encrypted, we send chunks as file regions rather than reading them into
+        // pooled buffers; the target verifies the checksums of the received files either way
+        final Path fileRegionsDirectory = recoveryTarget.supportsFileRegions() ? store.localFilesDirectory() : null;
         Releasable temporaryStoreRef = acquireStore(store);
         try {
             final Releasable storeRef = temporaryStoreRef;
@@ -1346,15 +1352,19 @@ public class RecoverySourceHandler {
                 final Deque<byte[]> buffers = new ConcurrentLinkedDeque<>();
                 final AtomicInteger liveBufferCount = new AtomicInteger(); // only used in assertions to verify proper recycling
                 IndexInput currentInput = null;
+                Path currentFile = null;
                 long offset = 0;
 
                 @Override
                 protected void onNewResource(StoreFileMetadata md) throws IOException {
                     offset = 0;
                     IOUtils.close(currentInput);
+                    currentInput = null;
+                    currentFile = null;
                     if (md.hashEqualsContents()) {
                         // we already have the file contents on heap no need to open the file again
-                        currentInput = null;
+                    } else if (fileRegionsDirectory != null) {
+                        currentFile = fileRegionsDirectory.resolve(md.name());
                     } else {
                         currentInput = store.directory().openInput(md.name(), IOContext.READONCE);
                     }
@@ -1373,6 +1383,14 @@ public class RecoverySourceHandler {
                 protected FileChunk nextChunkRequest(StoreFileMetadata md) throws IOException {
                     assert Transports.assertNotTransportThread("read file chunk");
                     cancellableThreads.checkForCancel();
+                    if (currentFile != null) {
+                        final int length = Math.toIntExact(Math.min(md.length() - offset, bufferSize));
+                        final boolean lastChunk = offset + length == md.length();
+                        final BytesReference content = new FileRegionBytesReference(currentFile, offset, length);
+                        final FileChunk chunk = new FileChunk(md, content, offset, lastChunk, () -> {});
+                        offset += length;
+                        return chunk;
+                    }
                     if (currentInput == null) {
                         // no input => reading directly from the metadata
                         assert md.hashEqualsContents();
@@ -110,6 +110,15 @@ public interface RecoveryTargetHandler {
         ActionListener<Void> listener
     );
 
+    /**
+     * Indicates if the chunks passed to {@link #writeFileChunk} reach the target without being read into memory if they are
+     * {@link org.elasticsearch.common.bytes.FileRegionBytesReference}s, see
+     * {@link org.elasticsearch.transport.Transport.Connection#supportsFileRegions()}.
+     */
+    default boolean supportsFileRegions() {
+        return false;
+    }
+
     /** writes a partial file chunk to the target store */
     void writeFileChunk(
         StoreFileMetadata fileMetadata,
@@ -37,6 +37,7 @@ import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.ConnectTransportException;
+import org.elasticsearch.transport.NodeNotConnectedException;
 import org.elasticsearch.transport.RemoteTransportException;
 import org.elasticsearch.transport.SendRequestTransportException;
 import org.elasticsearch.transport.TransportRequestOptions;
@@ -245,6 +246,16 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
         executeRetryableAction(action, request, TransportRequestOptions.EMPTY, responseListener, reader);
     }
 
+    @Override
+    public boolean supportsFileRegions() {
+        try {
+            return transportService.getConnection(targetNode).supportsFileRegions();
+        } catch (NodeNotConnectedException e) {
+            // sending the chunks will fail or be retried anyway
+            return false;
+        }
+    }
+
     @Override
     public void writeFileChunk(
         StoreFileMetadata fileMetadata,
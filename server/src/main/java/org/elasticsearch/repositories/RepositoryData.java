@@ -16,6 +16,7 @@ import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.common.xcontent.XContentParserUtils;
+import org.elasticsearch.core.CheckedFunction;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.snapshots.SnapshotId;
 import org.elasticsearch.snapshots.SnapshotInfo;
@@ -28,12 +29,15 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -630,6 +634,7 @@ public final class RepositoryData {
     private static final String INDEX_METADATA_LOOKUP = "index_metadata_lookup";
     private static final String SNAPSHOTS = "snapshots";
     private static final String INDICES = "indices";
+    private static final String INDEX_PARTITIONS = "index_partitions";
     private static final String INDEX_ID = "id";
     private static final String NAME = "name";
     private static final String UUID = "uuid";
@@ -655,6 +660,22 @@ public final class RepositoryData {
      */
     public XContentBuilder snapshotsToXContent(final XContentBuilder builder, final Version repoMetaVersion, boolean permitMissingUuid)
         throws IOException {
+        return snapshotsToXContent(builder, repoMetaVersion, permitMissingUuid, null);
+    }
+
+    /**
+     * Writes the snapshots metadata and either the related indices metadata or references to the blobs that hold it to x-content.
+     * @param permitMissingUuid   indicates whether we permit the repository- and cluster UUIDs to be missing,
+     *                            e.g. we are serializing for the in-memory cache or running tests
+     * @param indexPartitionBlobs names of the blobs that hold the {@link IndicesPartition}s of this instance as returned by
+     *                            {@link #partitionIndices}, or {@code null} to write the indices metadata inline
+     */
+    public XContentBuilder snapshotsToXContent(
+        final XContentBuilder builder,
+        final Version repoMetaVersion,
+        boolean permitMissingUuid,
+        @Nullable Collection<String> indexPartitionBlobs
+    ) throws IOException {
 
         final boolean shouldWriteUUIDS = SnapshotsService.includesUUIDs(repoMetaVersion);
         final boolean shouldWriteIndexGens = SnapshotsService.useIndexGenerations(repoMetaVersion);
@@ -668,7 +689,10 @@ public final class RepositoryData {
         if (shouldWriteShardGens) {
             // Add min version field to make it impossible for older ES versions to deserialize this object
             final Version minVersion;
-            if (shouldWriteUUIDS) {
+            if (indexPartitionBlobs != null) {
+                assert SnapshotsService.usePartitionedRepositoryData(repoMetaVersion) : repoMetaVersion;
+                minVersion = SnapshotsService.PARTITIONED_REPO_DATA_VERSION;
+            } else if (shouldWriteUUIDS) {
                 minVersion = SnapshotsService.UUIDS_IN_REPO_DATA_VERSION;
             } else if (shouldWriteIndexGens) {
                 minVersion = SnapshotsService.INDEX_GEN_IN_REPO_DATA_VERSION;
@@ -734,24 +758,29 @@ public final class RepositoryData {
         }
         builder.endArray();
 
-        // write the indices map
-        builder.startObject(INDICES);
-        for (final IndexId indexId : getIndices().values()) {
-            builder.startObject(indexId.getName());
-            builder.field(INDEX_ID, indexId.getId());
-            builder.startArray(SNAPSHOTS);
-            List<SnapshotId> snapshotIds = indexSnapshots.get(indexId);
-            assert snapshotIds != null;
-            for (final SnapshotId snapshotId : snapshotIds) {
-                builder.value(snapshotId.getUUID());
-            }
-            builder.endArray();
-            if (shouldWriteShardGens) {
-                builder.xContentList(SHARD_GENERATIONS, shardGenerations.getGens(indexId));
+        if (indexPartitionBlobs != null) {
+            // the indices map is stored in separate blobs
+            builder.stringListField(INDEX_PARTITIONS, indexPartitionBlobs);
+        } else {
+            // write the indices map
+            builder.startObject(INDICES);
+            for (final IndexId indexId : getIndices().values()) {
+                builder.startObject(indexId.getName());
+                builder.field(INDEX_ID, indexId.getId());
+                builder.startArray(SNAPSHOTS);
+                List<SnapshotId> snapshotIds = indexSnapshots.get(indexId);
+                assert snapshotIds != null;
+                for (final SnapshotId snapshotId : snapshotIds) {
+                    builder.value(snapshotId.getUUID());
+                }
+                builder.endArray();
+                if (shouldWriteShardGens) {
+                    builder.xContentList(SHARD_GENERATIONS, shardGenerations.getGens(indexId));
+                }
+                builder.endObject();
             }
             builder.endObject();
         }
-        builder.endObject();
 
         if (shouldWriteIndexGens) {
             builder.field(INDEX_METADATA_IDENTIFIERS, indexMetaDataGenerations.identifiers);
@@ -766,6 +795,36 @@ public final class RepositoryData {
         return indexMetaDataGenerations;
     }
 
+    /**
+     * Splits the metadata of the indices in this instance into at most {@code partitions} partitions by the hash of their index ids so
+     * that it can be stored in separate blobs, see {@link #snapshotsToXContent(XContentBuilder, Version, boolean, Collection)}. Empty
+     * partitions are omitted. The split is deterministic so that a partition whose indices did not change serializes to the same bytes
+     * as before.
+     */
+    public List<IndicesPartition> partitionIndices(int partitions) {
+        assert partitions > 0 : partitions;
+        final List<Map<IndexId, List<String>>> snapshotUUIDs = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            snapshotUUIDs.add(new TreeMap<>(Comparator.comparing(IndexId::getId)));
+        }
+        for (Map.Entry<IndexId, List<SnapshotId>> entry : indexSnapshots.entrySet()) {
+            final IndexId indexId = entry.getKey();
+            snapshotUUIDs.get(Math.floorMod(indexId.getId().hashCode(), partitions))
+                .put(indexId, entry.getValue().stream().map(SnapshotId::getUUID).collect(Collectors.toList()));
+        }
+        final List<IndicesPartition> result = new ArrayList<>();
+        for (Map<IndexId, List<String>> partition : snapshotUUIDs) {
+            if (partition.isEmpty() == false) {
+                final Map<IndexId, List<ShardGeneration>> gens = new HashMap<>(partition.size());
+                for (IndexId indexId : partition.keySet()) {
+                    gens.put(indexId, shardGenerations.getGens(indexId));
+                }
+                result.add(new IndicesPartition(partition, gens));
+            }
+        }
+        return result;
+    }
+
     /**
      * Reads an instance of {@link RepositoryData} from x-content, loading the snapshots and indices metadata.
      *
@@ -774,6 +833,26 @@ public final class RepositoryData {
      *                           from cached bytes that we trust to not contain broken generations.
      */
     public static RepositoryData snapshotsFromXContent(XContentParser parser, long genId, boolean fixBrokenShardGens) throws IOException {
+        return snapshotsFromXContent(parser, genId, fixBrokenShardGens, blobNames -> {
+            throw new IllegalStateException("cannot load index partitions " + blobNames + " referenced by index blob");
+        });
+    }
+
+    /**
+     * Reads an instance of {@link RepositoryData} from x-content, loading the snapshots metadata and the indices metadata either inline or
+     * from the {@link IndicesPartition}s referenced by the x-content.
+     *
+     * @param fixBrokenShardGens set to {@code true} to filter out broken shard generations read from the {@code parser} via
+     *                           {@link ShardGenerations#fixShardGeneration}. Used to disable fixing broken generations when reading
+     *                           from cached bytes that we trust to not contain broken generations.
+     * @param partitionsLoader   loads the {@link IndicesPartition}s with the given blob names, returning them in the same order
+     */
+    public static RepositoryData snapshotsFromXContent(
+        XContentParser parser,
+        long genId,
+        boolean fixBrokenShardGens,
+        CheckedFunction<List<String>, List<IndicesPartition>, IOException> partitionsLoader
+    ) throws IOException {
         XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.nextToken(), parser);
 
         final Map<String, SnapshotId> snapshots = new HashMap<>();
@@ -783,6 +862,7 @@ public final class RepositoryData {
         final ShardGenerations.Builder shardGenerations = ShardGenerations.builder();
         final Map<SnapshotId, Map<String, String>> indexMetaLookup = new HashMap<>();
         Map<String, String> indexMetaIdentifiers = null;
+        List<String> indexPartitionBlobs = null;
         String uuid = MISSING_UUID;
         String clusterUUID = MISSING_UUID;
         while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
@@ -794,6 +874,9 @@ public final class RepositoryData {
                 case INDICES:
                     parseIndices(parser, fixBrokenShardGens, snapshots, indexSnapshots, indexLookup, shardGenerations);
                     break;
+                case INDEX_PARTITIONS:
+                    indexPartitionBlobs = parseStringList(parser);
+                    break;
                 case INDEX_METADATA_IDENTIFIERS:
                     XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.nextToken(), parser);
                     indexMetaIdentifiers = parser.mapStrings();
@@ -826,6 +909,14 @@ public final class RepositoryData {
         // ensure we drained the stream completely
         XContentParserUtils.ensureExpectedToken(null, parser.nextToken(), parser);
 
+        if (indexPartitionBlobs != null) {
+            final List<IndicesPartition> indexPartitions = partitionsLoader.apply(indexPartitionBlobs);
+            assert indexPartitions.size() == indexPartitionBlobs.size() : indexPartitions.size() + " vs " + indexPartitionBlobs.size();
+            for (IndicesPartition indexPartition : indexPartitions) {
+                indexPartition.addTo(fixBrokenShardGens, snapshots, indexSnapshots, indexLookup, shardGenerations);
+            }
+        }
+
         return new RepositoryData(
             uuid,
             genId,
@@ -1026,6 +1117,35 @@ public final class RepositoryData {
         }
     }
 
+    /**
+     * Reads the names of the blobs holding the {@link IndicesPartition}s referenced by the x-content written by
+     * {@link #snapshotsToXContent(XContentBuilder, Version, boolean, Collection)}, skipping over everything else.
+     *
+     * @return the blob names, or an empty list if the indices metadata is stored inline
+     */
+    public static List<String> indexPartitionBlobsFromXContent(XContentParser parser) throws IOException {
+        XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.nextToken(), parser);
+        List<String> indexPartitionBlobs = Collections.emptyList();
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            if (INDEX_PARTITIONS.equals(parser.currentName())) {
+                indexPartitionBlobs = parseStringList(parser);
+            } else {
+                parser.nextToken();
+                parser.skipChildren();
+            }
+        }
+        return indexPartitionBlobs;
+    }
+
+    private static List<String> parseStringList(XContentParser parser) throws IOException {
+        XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_ARRAY, parser.nextToken(), parser);
+        final List<String> values = new ArrayList<>();
+        while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+            values.add(parser.text());
+        }
+        return values;
+    }
+
     private static String parseLegacySnapshotUUID(XContentParser parser) throws IOException {
         String uuid = null;
         while (parser.nextToken() != XContentParser.Token.END_OBJECT) {
@@ -1129,4 +1249,126 @@ public final class RepositoryData {
 
     }
 
+    /**
+     * The metadata of a subset of the indices in the repository, stored in a blob of its own rather than inline in the top-level index
+     * blob. Snapshots are referenced by their UUID only so that a parsed partition does not depend on the rest of the repository data and
+     * can be reused across repository generations for as long as its contents do not change.
+     */
+    public static final class IndicesPartition {
+
+        private final Map<IndexId, List<String>> snapshotUUIDs;
+
+        private final Map<IndexId, List<ShardGeneration>> shardGenerations;
+
+        private IndicesPartition(Map<IndexId, List<String>> snapshotUUIDs, Map<IndexId, List<ShardGeneration>> shardGenerations) {
+            assert snapshotUUIDs.keySet().equals(shardGenerations.keySet());
+            this.snapshotUUIDs = Collections.unmodifiableMap(snapshotUUIDs);
+            this.shardGenerations = Collections.unmodifiableMap(shardGenerations);
+        }
+
+        /**
+         * @return the indices in this partition
+         */
+        public Set<IndexId> indices() {
+            return snapshotUUIDs.keySet();
+        }
+
+        public XContentBuilder toXContent(XContentBuilder builder) throws IOException {
+            builder.startObject();
+            builder.startObject(INDICES);
+            for (Map.Entry<IndexId, List<String>> entry : snapshotUUIDs.entrySet()) {
+                final IndexId indexId = entry.getKey();
+                builder.startObject(indexId.getName());
+                builder.field(INDEX_ID, indexId.getId());
+                builder.stringListField(SNAPSHOTS, entry.getValue());
+                builder.xContentList(SHARD_GENERATIONS, shardGenerations.get(indexId));
+                builder.endObject();
+            }
+            builder.endObject();
+            builder.endObject();
+            return builder;
+        }
+
+        public static IndicesPartition fromXContent(XContentParser parser) throws IOException {
+            XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.nextToken(), parser);
+            XContentParserUtils.ensureFieldName(parser, parser.nextToken(), INDICES);
+            XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.nextToken(), parser);
+            final Map<IndexId, List<String>> snapshotUUIDs = new LinkedHashMap<>();
+            final Map<IndexId, List<ShardGeneration>> shardGenerations = new HashMap<>();
+            while (parser.nextToken() != XContentParser.Token.END_OBJECT) {
+                final String indexName = parser.currentName();
+                String indexUUID = null;
+                List<String> uuids = Collections.emptyList();
+                final List<ShardGeneration> gens = new ArrayList<>();
+                XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.nextToken(), parser);
+                while (parser.nextToken() != XContentParser.Token.END_OBJECT) {
+                    final String fieldName = parser.currentName();
+                    switch (fieldName) {
+                        case INDEX_ID:
+                            XContentParserUtils.ensureExpectedToken(XContentParser.Token.VALUE_STRING, parser.nextToken(), parser);
+                            indexUUID = parser.text();
+                            break;
+                        case SNAPSHOTS:
+                            uuids = parseStringList(parser);
+                            break;
+                        case SHARD_GENERATIONS:
+                            XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_ARRAY, parser.nextToken(), parser);
+                            while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                                gens.add(ShardGeneration.fromXContent(parser));
+                            }
+                            break;
+                        default:
+                            XContentParserUtils.throwUnknownField(fieldName, parser.getTokenLocation());
+                    }
+                }
+                if (indexUUID == null) {
+                    throw new ElasticsearchParseException("missing id of index [" + indexName + "] in index partition");
+                }
+                final IndexId indexId = new IndexId(indexName, indexUUID);
+                snapshotUUIDs.put(indexId, uuids);
+                shardGenerations.put(indexId, gens);
+            }
+            XContentParserUtils.ensureExpectedToken(XContentParser.Token.END_OBJECT, parser.nextToken(), parser);
+            return new IndicesPartition(snapshotUUIDs, shardGenerations);
+        }
+
+        /**
+         * Adds the indices in this partition to the maps and builder populated by {@link #parseIndices} when reading repository data
+         * that stores its indices metadata inline.
+         */
+        private void addTo(
+            boolean fixBrokenShardGens,
+            Map<String, SnapshotId> snapshots,
+            Map<IndexId, List<SnapshotId>> indexSnapshots,
+            Map<String, IndexId> indexLookup,
+            ShardGenerations.Builder shardGenerationsBuilder
+        ) {
+            for (Map.Entry<IndexId, List<String>> entry : snapshotUUIDs.entrySet()) {
+                final IndexId indexId = entry.getKey();
+                final List<SnapshotId> snapshotIds = new ArrayList<>(entry.getValue().size());
+                for (String uuid : entry.getValue()) {
+                    final SnapshotId snapshotId = snapshots.get(uuid);
+                    if (snapshotId == null) {
+                        throw new ElasticsearchParseException(
+                            "Detected a corrupted repository, index " + indexId + " references an unknown snapshot uuid [" + uuid + "]"
+                        );
+                    }
+                    snapshotIds.add(snapshotId);
+                }
+                indexSnapshots.put(indexId, Collections.unmodifiableList(snapshotIds));
+                indexLookup.put(indexId.getId(), indexId);
+                final List<ShardGeneration> gens = shardGenerations.get(indexId);
+                for (int i = 0; i < gens.size(); i++) {
+                    ShardGeneration parsedGen = gens.get(i);
+                    if (fixBrokenShardGens) {
+                        parsedGen = ShardGenerations.fixShardGeneration(parsedGen);
+                    }
+                    if (parsedGen != null) {
+                        shardGenerationsBuilder.put(indexId, i, parsedGen);
+                    }
+                }
+            }
+        }
+    }
+
 }
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.repositories.blobstore;
 
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
@@ -57,7 +58,9 @@ import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.compress.NotXContentException;
+import org.elasticsearch.common.hash.MessageDigests;
 import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
 import org.elasticsearch.common.metrics.CounterMetric;
@@ -68,11 +71,13 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.CountDown;
 import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
 import org.elasticsearch.core.CheckedConsumer;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.snapshots.IndexShardRestoreFailedException;
@@ -125,11 +130,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -137,9 +145,11 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -173,6 +183,12 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     public static final String INDEX_LATEST_BLOB = "index.latest";
 
+    /**
+     * Prefix of the root level blobs that hold the {@link RepositoryData.IndicesPartition}s referenced by the {@code index-N} blobs if
+     * {@link #REPOSITORY_DATA_PARTITIONS_SETTING} is set. The rest of the blob name is the hash of its contents.
+     */
+    public static final String INDICES_PARTITION_PREFIX = "indices-";
+
     private static final String TESTS_FILE = "tests-";
 
     public static final String METADATA_PREFIX = "meta-";
@@ -204,6 +220,11 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      */
     private static final String VIRTUAL_DATA_BLOB_PREFIX = "v__";
 
+    /**
+     * Minimum interval between two log messages reporting the progress of the deletion of the unreferenced blobs of deleted snapshots.
+     */
+    private static final TimeValue DELETION_PROGRESS_LOG_INTERVAL = TimeValue.timeValueSeconds(30);
+
     /**
      * When set to {@code true}, {@link #bestEffortConsistency} will be set to {@code true} and concurrent modifications of the repository
      * contents will not result in the repository being marked as corrupted.
@@ -257,6 +278,42 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      */
     public static final Setting<Boolean> USE_FOR_PEER_RECOVERY_SETTING = Setting.boolSetting("use_for_peer_recovery", false);
 
+    /**
+     * Setting that enables block-level deduplication. When enabled, new files are split into content-defined blocks that are stored once
+     * per shard under the hash of their contents, so that files that only differ by a few bytes from previously snapshotted files (for
+     * instance after a force-merge) only upload the blocks that changed. Blocks are deleted once no snapshot of the shard references them.
+     */
+    public static final Setting<Boolean> BLOCK_DEDUPLICATION_SETTING = Setting.boolSetting("block_deduplication", false);
+
+    /**
+     * Setting that defines the average size of the blocks of files when {@link #BLOCK_DEDUPLICATION_SETTING} is enabled. Blocks are at
+     * most four times larger than this size, and never larger than the {@link #chunkSize()} of the repository. Blocks are buffered in
+     * memory until their end is found, hence the low maximum value.
+     */
+    public static final Setting<ByteSizeValue> BLOCK_DEDUPLICATION_AVERAGE_SIZE_SETTING = Setting.byteSizeSetting(
+        "block_deduplication_average_size",
+        new ByteSizeValue(1, ByteSizeUnit.MB),
+        new ByteSizeValue(4, ByteSizeUnit.KB),
+        new ByteSizeValue(4, ByteSizeUnit.MB)
+    );
+
+    /**
+     * Setting that defines the number of partitions that the metadata of the indices in the repository is split into. When set, the
+     * {@code index-N} blob only references the partitions, each of which is stored in a blob named after the hash of its contents, so that
+     * an update of the repository only uploads the partitions of the indices that changed, and loading a new generation only reads and
+     * parses the partitions that are not already known. Defaults to {@code 0} which stores the metadata of all indices inline in the
+     * {@code index-N} blob.
+     */
+    public static final Setting<Integer> REPOSITORY_DATA_PARTITIONS_SETTING = Setting.intSetting("repository_data_partitions", 0, 0, 65536);
+
+    /**
+     * Setting that defines the maximum number of blobs to delete with a single call to
+     * {@link BlobContainer#deleteBlobsIgnoringIfNotExists} when deleting the unreferenced shard level blobs of deleted snapshots. Defaults
+     * to the maximum number of blobs of a single bulk delete request of the common cloud blob stores, so that each batch translates to a
+     * single request.
+     */
+    public static final Setting<Integer> DELETION_BATCH_SIZE_SETTING = Setting.intSetting("deletion_batch_size", 1000, 1);
+
     protected final boolean supportURLRepo;
 
     private final boolean compress;
@@ -271,6 +328,14 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private final CounterMetric restoreRateLimitingTimeInNanos = new CounterMetric();
 
+    private final boolean blockDeduplication;
+
+    private final long blockDeduplicationAverageSize;
+
+    private final int repositoryDataPartitions;
+
+    private final int deletionBatchSize;
+
     public static final ChecksumBlobStoreFormat<Metadata> GLOBAL_METADATA_FORMAT = new ChecksumBlobStoreFormat<>(
         "metadata",
         METADATA_NAME_FORMAT,
@@ -406,6 +471,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         cacheRepositoryData = CACHE_REPOSITORY_DATA.get(metadata.settings());
         bufferSize = Math.toIntExact(BUFFER_SIZE_SETTING.get(metadata.settings()).getBytes());
         this.maxSnapshotCount = MAX_SNAPSHOTS_SETTING.get(metadata.settings());
+        this.blockDeduplication = BLOCK_DEDUPLICATION_SETTING.get(metadata.settings());
+        this.blockDeduplicationAverageSize = BLOCK_DEDUPLICATION_AVERAGE_SIZE_SETTING.get(metadata.settings()).getBytes();
+        this.repositoryDataPartitions = REPOSITORY_DATA_PARTITIONS_SETTING.get(metadata.settings());
+        this.deletionBatchSize = DELETION_BATCH_SIZE_SETTING.get(metadata.settings());
     }
 
     @Override
@@ -999,22 +1068,105 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         Collection<ShardSnapshotMetaDeleteResult> deleteResults,
         ActionListener<Void> listener
     ) {
-        final Iterator<String> filesToDelete = resolveFilesToDelete(oldRepositoryData, snapshotIds, deleteResults);
-        if (filesToDelete.hasNext() == false) {
+        final List<String> filesToDelete = resolveFilesToDelete(oldRepositoryData, snapshotIds, deleteResults);
+        if (filesToDelete.isEmpty()) {
+            listener.onResponse(null);
+            return;
+        }
+        final BlockingQueue<List<String>> batches = new LinkedBlockingQueue<>();
+        for (int i = 0; i < filesToDelete.size(); i += deletionBatchSize) {
+            batches.add(filesToDelete.subList(i, Math.min(i + deletionBatchSize, filesToDelete.size())));
+        }
+        final DeletionProgress progress = new DeletionProgress(snapshotIds, filesToDelete.size());
+        // Start as many workers as fit into the snapshot pool at once at the most, each of them deletes one batch at a time so that a large
+        // delete neither runs sequentially nor floods the queue of the snapshot pool
+        final int workers = Math.min(threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(), batches.size());
+        final ActionListener<Void> batchesListener = new GroupedActionListener<Void>(listener.map(ignored -> {
+            progress.onCompletion();
+            return null;
+        }), workers).delegateResponse((l, e) -> {
+            batches.clear(); // Stop deleting the remaining batches if we run into any exception
+            logger.warn(() -> new ParameterizedMessage("{} Failed to delete some blobs during snapshot delete", snapshotIds), e);
+            l.onFailure(e);
+        });
+        for (int i = 0; i < workers; i++) {
+            executeOneDeletionBatch(batches, progress, batchesListener);
+        }
+    }
+
+    private void executeOneDeletionBatch(BlockingQueue<List<String>> batches, DeletionProgress progress, ActionListener<Void> listener) {
+        final List<String> batch = batches.poll();
+        if (batch == null) {
             listener.onResponse(null);
             return;
         }
         threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(ActionRunnable.wrap(listener, l -> {
-            try {
-                deleteFromContainer(blobContainer(), filesToDelete);
-                l.onResponse(null);
-            } catch (Exception e) {
-                logger.warn(() -> new ParameterizedMessage("{} Failed to delete some blobs during snapshot delete", snapshotIds), e);
-                throw e;
-            }
+            deleteFromContainer(blobContainer(), batch.iterator());
+            progress.onBatchDeleted(batch.size());
+            executeOneDeletionBatch(batches, progress, l);
         }));
     }
 
+    /**
+     * Tracks the progress of the deletion of the unreferenced shard level blobs of deleted snapshots, which is periodically logged along
+     * with the deletion throughput since deleting the blobs of large snapshots may take a long time.
+     */
+    private final class DeletionProgress {
+
+        private final Collection<SnapshotId> snapshotIds;
+
+        private final int totalBlobs;
+
+        private final long startTimeNanos;
+
+        private final AtomicInteger deletedBlobs = new AtomicInteger();
+
+        private final AtomicLong lastLogTimeNanos;
+
+        DeletionProgress(Collection<SnapshotId> snapshotIds, int totalBlobs) {
+            this.snapshotIds = snapshotIds;
+            this.totalBlobs = totalBlobs;
+            this.startTimeNanos = threadPool.relativeTimeInNanos();
+            this.lastLogTimeNanos = new AtomicLong(startTimeNanos);
+        }
+
+        void onBatchDeleted(int blobs) {
+            final int deleted = deletedBlobs.addAndGet(blobs);
+            final long lastLogTime = lastLogTimeNanos.get();
+            final long now = threadPool.relativeTimeInNanos();
+            if (deleted < totalBlobs
+                && now - lastLogTime >= DELETION_PROGRESS_LOG_INTERVAL.nanos()
+                && lastLogTimeNanos.compareAndSet(lastLogTime, now)) {
+                logger.info(
+                    "[{}] deleted [{}/{}] unreferenced blobs of snapshots {} so far at [{}] blobs per second",
+                    metadata.name(),
+                    deleted,
+                    totalBlobs,
+                    snapshotIds,
+                    blobsPerSecond(deleted, now)
+                );
+            }
+        }
+
+        void onCompletion() {
+            final long now = threadPool.relativeTimeInNanos();
+            final boolean tookLong = now - startTimeNanos >= DELETION_PROGRESS_LOG_INTERVAL.nanos();
+            logger.log(
+                tookLong ? Level.INFO : Level.DEBUG,
+                "[{}] deleted [{}] unreferenced blobs of snapshots {} in [{}] at [{}] blobs per second",
+                metadata.name(),
+                totalBlobs,
+                snapshotIds,
+                TimeValue.timeValueNanos(now - startTimeNanos),
+                blobsPerSecond(totalBlobs, now)
+            );
+        }
+
+        private long blobsPerSecond(int blobs, long now) {
+            return blobs * TimeUnit.SECONDS.toNanos(1) / Math.max(1L, now - startTimeNanos);
+        }
+    }
+
     // updates the shard state metadata for shards of a snapshot that is to be deleted. Also computes the files to be cleaned up.
     private void writeUpdatedShardMetaDataAndComputeDeletes(
         Collection<SnapshotId> snapshotIds,
@@ -1141,7 +1293,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
-    private Iterator<String> resolveFilesToDelete(
+    private List<String> resolveFilesToDelete(
         RepositoryData oldRepositoryData,
         Collection<SnapshotId> snapshotIds,
         Collection<ShardSnapshotMetaDeleteResult> deleteResults
@@ -1160,7 +1312,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         })).map(absolutePath -> {
             assert absolutePath.startsWith(basePath);
             return absolutePath.substring(basePathLen);
-        }).iterator();
+        }).collect(Collectors.toList());
     }
 
     /**
@@ -1191,7 +1343,11 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }, listener::onFailure), 2);
 
         final Executor executor = threadPool.executor(ThreadPool.Names.SNAPSHOT);
-        final List<String> staleRootBlobs = staleRootBlobs(newRepoData, rootBlobs.keySet());
+        final List<String> staleRootBlobs = staleRootBlobs(
+            newRepoData,
+            rootBlobs.keySet(),
+            liveIndexPartitionBlobs(newRepoData, rootBlobs.keySet())
+        );
         if (staleRootBlobs.isEmpty()) {
             groupedListener.onResponse(DeleteResult.ZERO);
         } else {
@@ -1205,7 +1361,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         if (foundIndices.keySet().equals(survivingIndexIds)) {
             groupedListener.onResponse(DeleteResult.ZERO);
         } else {
-            executor.execute(ActionRunnable.supply(groupedListener, () -> cleanupStaleIndices(foundIndices, survivingIndexIds)));
+            cleanupStaleIndices(foundIndices, survivingIndexIds, groupedListener);
         }
     }
 
@@ -1235,7 +1391,11 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 .stream()
                 .map(IndexId::getId)
                 .collect(Collectors.toSet());
-            final List<String> staleRootBlobs = staleRootBlobs(repositoryData, rootBlobs.keySet());
+            final List<String> staleRootBlobs = staleRootBlobs(
+                repositoryData,
+                rootBlobs.keySet(),
+                liveIndexPartitionBlobs(repositoryData, rootBlobs.keySet())
+            );
             if (survivingIndexIds.equals(foundIndices.keySet()) && staleRootBlobs.isEmpty()) {
                 // Nothing to clean up we return
                 listener.onResponse(new RepositoryCleanupResult(DeleteResult.ZERO));
@@ -1263,8 +1423,13 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
-    // Finds all blobs directly under the repository root path that are not referenced by the current RepositoryData
-    private static List<String> staleRootBlobs(RepositoryData repositoryData, Set<String> rootBlobNames) {
+    // Finds all blobs directly under the repository root path that are not referenced by the current RepositoryData, treating all index
+    // partition blobs as referenced if liveIndexPartitionBlobs is null
+    private static List<String> staleRootBlobs(
+        RepositoryData repositoryData,
+        Set<String> rootBlobNames,
+        @Nullable Set<String> liveIndexPartitionBlobs
+    ) {
         final Set<String> allSnapshotIds = repositoryData.getSnapshotIds().stream().map(SnapshotId::getUUID).collect(Collectors.toSet());
         return rootBlobNames.stream().filter(blob -> {
             if (FsBlobContainer.isTempBlobName(blob)) {
@@ -1285,11 +1450,67 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             } else if (blob.startsWith(INDEX_FILE_PREFIX)) {
                 // TODO: Include the current generation here once we remove keeping index-(N-1) around from #writeIndexGen
                 return repositoryData.getGenId() > Long.parseLong(blob.substring(INDEX_FILE_PREFIX.length()));
+            } else if (blob.startsWith(INDICES_PARTITION_PREFIX)) {
+                return liveIndexPartitionBlobs != null && liveIndexPartitionBlobs.contains(blob) == false;
             }
             return false;
         }).collect(Collectors.toList());
     }
 
+    /**
+     * Determines the index partition blobs that are still referenced by the {@code index-N} blob of the given repository data, by the
+     * latest known one, which may be newer if the given repository data was just rewritten by {@link #cleanup}, or by the previous
+     * {@code index-(N-1)} blob. The latter is deleted by {@link #writeIndexGen} as soon as {@code index-N} is written, but readers that
+     * loaded it just before may still be loading its partitions.
+     *
+     * @return the names of the referenced blobs, or {@code null} if they could not be determined in which case no index partition blob
+     *         must be deleted
+     */
+    @Nullable
+    private Set<String> liveIndexPartitionBlobs(RepositoryData repositoryData, Set<String> rootBlobNames) {
+        if (rootBlobNames.stream().noneMatch(blob -> blob.startsWith(INDICES_PARTITION_PREFIX))) {
+            return Collections.emptySet();
+        }
+        final Set<String> liveIndexPartitionBlobs = new HashSet<>();
+        try {
+            liveIndexPartitionBlobs.addAll(indexPartitionBlobs(repositoryData.getGenId()));
+            liveIndexPartitionBlobs.addAll(indexPartitionBlobs(latestKnownRepoGen.get()));
+            try {
+                liveIndexPartitionBlobs.addAll(indexPartitionBlobs(repositoryData.getGenId() - 1));
+            } catch (NoSuchFileException e) {
+                // the previous generation was replaced before this node became master, its readers are long gone
+            }
+        } catch (Exception e) {
+            logger.warn(
+                () -> new ParameterizedMessage("[{}] failed to determine the referenced index partition blobs", metadata.name()),
+                e
+            );
+            return null;
+        }
+        return liveIndexPartitionBlobs;
+    }
+
+    private Collection<String> indexPartitionBlobs(long generation) throws IOException {
+        if (generation < 0) {
+            return Collections.emptyList();
+        }
+        final Tuple<Long, Map<String, RepositoryData.IndicesPartition>> known = latestKnownIndexPartitions.get();
+        if (known.v1() == generation) {
+            return known.v2().keySet();
+        }
+        final Tuple<Long, Collection<String>> replaced = replacedIndexPartitionBlobs.get();
+        if (replaced.v1() == generation) {
+            return replaced.v2();
+        }
+        try (
+            InputStream blob = blobContainer().readBlob(INDEX_FILE_PREFIX + generation);
+            XContentParser parser = XContentType.JSON.xContent()
+                .createParser(NamedXContentRegistry.EMPTY, LoggingDeprecationHandler.INSTANCE, blob)
+        ) {
+            return RepositoryData.indexPartitionBlobsFromXContent(parser);
+        }
+    }
+
     private List<String> cleanupStaleRootFiles(
         long previousGeneration,
         Collection<SnapshotId> deletedSnapshots,
@@ -1302,7 +1523,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             if (logger.isInfoEnabled()) {
                 // If we're running root level cleanup as part of a snapshot delete we should not log the snapshot- and global metadata
                 // blobs associated with the just deleted snapshots as they are expected to exist and not stale. Otherwise every snapshot
-                // delete would also log a confusing INFO message about "stale blobs".
+                // delete would also log a confusing INFO message about "stale blobs". The same applies to the index partition blobs that
+                // were replaced by newer ones as part of writing the new index-N blob.
                 final Set<String> blobNamesToIgnore = deletedSnapshots.stream()
                     .flatMap(
                         snapshotId -> Stream.of(
@@ -1313,7 +1535,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     )
                     .collect(Collectors.toSet());
                 final List<String> blobsToLog = blobsToDelete.stream()
-                    .filter(b -> blobNamesToIgnore.contains(b) == false)
+                    .filter(b -> blobNamesToIgnore.contains(b) == false && b.startsWith(INDICES_PARTITION_PREFIX) == false)
                     .collect(Collectors.toList());
                 if (blobsToLog.isEmpty() == false) {
                     logger.info("[{}] Found stale root level blobs {}. Cleaning them up", metadata.name(), blobsToLog);
@@ -1334,16 +1556,50 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return Collections.emptyList();
     }
 
-    private DeleteResult cleanupStaleIndices(Map<String, BlobContainer> foundIndices, Set<String> survivingIndexIds) {
-        DeleteResult deleteResult = DeleteResult.ZERO;
-        for (Map.Entry<String, BlobContainer> indexEntry : foundIndices.entrySet()) {
+    private void cleanupStaleIndices(
+        Map<String, BlobContainer> foundIndices,
+        Set<String> survivingIndexIds,
+        ActionListener<DeleteResult> listener
+    ) {
+        final BlockingQueue<Map.Entry<String, BlobContainer>> staleIndices = foundIndices.entrySet()
+            .stream()
+            .filter(indexEntry -> survivingIndexIds.contains(indexEntry.getKey()) == false)
+            .collect(Collectors.toCollection(LinkedBlockingQueue::new));
+        if (staleIndices.isEmpty()) {
+            listener.onResponse(DeleteResult.ZERO);
+            return;
+        }
+        // Start as many workers as fit into the snapshot pool at once at the most, each of them deletes one stale index at a time
+        final int workers = Math.min(threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(), staleIndices.size());
+        final ActionListener<DeleteResult> workersListener = new GroupedActionListener<>(listener.map(deleteResults -> {
+            DeleteResult deleteResult = DeleteResult.ZERO;
+            for (DeleteResult result : deleteResults) {
+                deleteResult = deleteResult.add(result);
+            }
+            return deleteResult;
+        }), workers);
+        for (int i = 0; i < workers; i++) {
+            cleanupOneStaleIndex(staleIndices, DeleteResult.ZERO, workersListener);
+        }
+    }
+
+    private void cleanupOneStaleIndex(
+        BlockingQueue<Map.Entry<String, BlobContainer>> staleIndices,
+        DeleteResult deleteResult,
+        ActionListener<DeleteResult> listener
+    ) {
+        final Map.Entry<String, BlobContainer> indexEntry = staleIndices.poll();
+        if (indexEntry == null) {
+            listener.onResponse(deleteResult);
+            return;
+        }
+        threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(ActionRunnable.wrap(listener, l -> {
             final String indexSnId = indexEntry.getKey();
+            DeleteResult newDeleteResult = deleteResult;
             try {
-                if (survivingIndexIds.contains(indexSnId) == false) {
-                    logger.debug("[{}] Found stale index [{}]. Cleaning it up", metadata.name(), indexSnId);
-                    deleteResult = deleteResult.add(indexEntry.getValue().delete());
-                    logger.debug("[{}] Cleaned up stale index [{}]", metadata.name(), indexSnId);
-                }
+                logger.debug("[{}] Found stale index [{}]. Cleaning it up", metadata.name(), indexSnId);
+                newDeleteResult = newDeleteResult.add(indexEntry.getValue().delete());
+                logger.debug("[{}] Cleaned up stale index [{}]", metadata.name(), indexSnId);
             } catch (Exception e) {
                 logger.warn(
                     () -> new ParameterizedMessage(
@@ -1354,8 +1610,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     e
                 );
             }
-        }
-        return deleteResult;
+            cleanupOneStaleIndex(staleIndices, newDeleteResult, l);
+        }));
     }
 
     @Override
@@ -1701,6 +1957,18 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
     // Best effort cache of the latest known repository data
     private final AtomicReference<RepositoryData> latestKnownRepositoryData = new AtomicReference<>(RepositoryData.EMPTY);
 
+    // Best effort cache of the parsed index partitions by blob name that are referenced by the index-N blob of the given generation. Since
+    // index partition blobs are named after the hash of their contents, the parsed partitions can be reused when loading any generation,
+    // but they are only known to exist in the repository while that generation is the latest.
+    private final AtomicReference<Tuple<Long, Map<String, RepositoryData.IndicesPartition>>> latestKnownIndexPartitions =
+        new AtomicReference<>(Tuple.tuple(RepositoryData.EMPTY_REPO_GEN, Collections.emptyMap()));
+
+    // Names of the index partition blobs referenced by the index-N blob of the given generation, recorded when this node last wrote the
+    // next generation on top of it since index-N is deleted right after. Their partitions are kept for the readers that loaded index-N.
+    private final AtomicReference<Tuple<Long, Collection<String>>> replacedIndexPartitionBlobs = new AtomicReference<>(
+        Tuple.tuple(RepositoryData.EMPTY_REPO_GEN, Collections.emptyList())
+    );
+
     @Override
     public void getRepositoryData(ActionListener<RepositoryData> listener) {
         // RepositoryData is the responsibility of the elected master: we shouldn't be loading it on other nodes as we don't have good
@@ -2018,6 +2286,22 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         });
     }
 
+    /**
+     * Cache the parsed index partitions referenced by the {@code index-N} blob of the given generation if repository data caching is
+     * enabled.
+     */
+    private void cacheIndexPartitions(long generation, Map<String, RepositoryData.IndicesPartition> indexPartitions) {
+        if (cacheRepositoryData == false || bestEffortConsistency) {
+            return;
+        }
+        latestKnownIndexPartitions.updateAndGet(known -> {
+            if (known.v1() > generation) {
+                return known;
+            }
+            return Tuple.tuple(generation, indexPartitions);
+        });
+    }
+
     private RepositoryException corruptedStateException(@Nullable Exception cause, @Nullable Tuple<Long, String> previousWriterInfo) {
         return new RepositoryException(
             metadata.name(),
@@ -2119,7 +2403,16 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 XContentParser parser = XContentType.JSON.xContent()
                     .createParser(NamedXContentRegistry.EMPTY, LoggingDeprecationHandler.INSTANCE, blob)
             ) {
-                return RepositoryData.snapshotsFromXContent(parser, indexGen, true);
+                final Map<String, RepositoryData.IndicesPartition> indexPartitions = new LinkedHashMap<>();
+                final RepositoryData repositoryData = RepositoryData.snapshotsFromXContent(parser, indexGen, true, blobNames -> {
+                    final List<RepositoryData.IndicesPartition> partitions = readIndexPartitions(blobNames);
+                    for (int i = 0; i < blobNames.size(); i++) {
+                        indexPartitions.put(blobNames.get(i), partitions.get(i));
+                    }
+                    return partitions;
+                });
+                cacheIndexPartitions(indexGen, indexPartitions);
+                return repositoryData;
             }
         } catch (IOException ioe) {
             if (bestEffortConsistency) {
@@ -2134,6 +2427,121 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * Reads the {@link RepositoryData.IndicesPartition}s with the given blob names, reusing the partitions cached for the latest known
+     * repository generation. The remaining partitions are read in parallel on the {@link ThreadPool.Names#SNAPSHOT} pool, with the
+     * calling thread reading partitions as well so that this makes progress even if the pool is busy.
+     *
+     * @return the partitions in the order of the given blob names
+     */
+    private List<RepositoryData.IndicesPartition> readIndexPartitions(List<String> blobNames) throws IOException {
+        final Map<String, RepositoryData.IndicesPartition> knownIndexPartitions = latestKnownIndexPartitions.get().v2();
+        final RepositoryData.IndicesPartition[] indexPartitions = new RepositoryData.IndicesPartition[blobNames.size()];
+        final BlockingQueue<Integer> toRead = new LinkedBlockingQueue<>();
+        for (int i = 0; i < indexPartitions.length; i++) {
+            indexPartitions[i] = knownIndexPartitions.get(blobNames.get(i));
+            if (indexPartitions[i] == null) {
+                toRead.add(i);
+            }
+        }
+        if (toRead.isEmpty() == false) {
+            final CountDown remaining = new CountDown(toRead.size());
+            final PlainActionFuture<Void> future = PlainActionFuture.newFuture();
+            final Runnable reader = () -> {
+                Integer index;
+                while ((index = toRead.poll()) != null) {
+                    try {
+                        indexPartitions[index] = readIndexPartition(blobNames.get(index));
+                    } catch (Exception e) {
+                        toRead.clear();
+                        future.onFailure(e);
+                        return;
+                    }
+                    if (remaining.countDown()) {
+                        future.onResponse(null);
+                    }
+                }
+            };
+            final int workers = Math.min(threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(), toRead.size()) - 1;
+            final Executor executor = threadPool.executor(ThreadPool.Names.SNAPSHOT);
+            for (int i = 0; i < workers; i++) {
+                executor.execute(reader);
+            }
+            reader.run();
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while reading index partitions", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("failed to read index partitions", e.getCause());
+            }
+        }
+        return Arrays.asList(indexPartitions);
+    }
+
+    private RepositoryData.IndicesPartition readIndexPartition(String blobName) throws IOException {
+        try (
+            InputStream blob = blobContainer().readBlob(blobName);
+            XContentParser parser = XContentType.JSON.xContent()
+                .createParser(NamedXContentRegistry.EMPTY, LoggingDeprecationHandler.INSTANCE, blob)
+        ) {
+            return RepositoryData.IndicesPartition.fromXContent(parser);
+        }
+    }
+
+    /**
+     * Writes the {@link RepositoryData.IndicesPartition}s of the given repository data to blobs named after the hash of their contents if
+     * {@link #REPOSITORY_DATA_PARTITIONS_SETTING} is set. Partitions that are referenced by the {@code index-N} blob at the expected
+     * generation already are unchanged and are not written again. The partitions of the expected generation are remembered so that
+     * {@link #liveIndexPartitionBlobs} keeps them after that generation is replaced.
+     *
+     * @return the partitions by blob name, or {@code null} if the metadata of the indices must be written inline
+     */
+    @Nullable
+    private Map<String, RepositoryData.IndicesPartition> writeIndexPartitions(
+        RepositoryData repositoryData,
+        long expectedGen,
+        Version version
+    ) throws IOException {
+        if (repositoryDataPartitions == 0 || SnapshotsService.usePartitionedRepositoryData(version) == false) {
+            return null;
+        }
+        replacedIndexPartitionBlobs.set(Tuple.tuple(expectedGen, indexPartitionBlobs(expectedGen)));
+        final Tuple<Long, Map<String, RepositoryData.IndicesPartition>> known = latestKnownIndexPartitions.get();
+        final Map<String, RepositoryData.IndicesPartition> existingIndexPartitions = known.v1() == expectedGen
+            ? known.v2()
+            : Collections.emptyMap();
+        final Map<String, RepositoryData.IndicesPartition> indexPartitions = new LinkedHashMap<>();
+        int written = 0;
+        for (RepositoryData.IndicesPartition indexPartition : repositoryData.partitionIndices(repositoryDataPartitions)) {
+            final BytesReference bytes;
+            try (XContentBuilder xContentBuilder = XContentFactory.jsonBuilder()) {
+                bytes = BytesReference.bytes(indexPartition.toXContent(xContentBuilder));
+            }
+            final String blobName = INDICES_PARTITION_PREFIX + MessageDigests.toHexString(
+                MessageDigests.digest(bytes, MessageDigests.sha256())
+            );
+            final RepositoryData.IndicesPartition existing = existingIndexPartitions.get(blobName);
+            if (existing == null) {
+                blobContainer().writeBlob(blobName, bytes, false);
+                written++;
+            }
+            indexPartitions.put(blobName, existing == null ? indexPartition : existing);
+        }
+        logger.debug(
+            "[{}] wrote [{}] out of [{}] index partitions on top of generation [{}]",
+            metadata.name(),
+            written,
+            indexPartitions.size(),
+            expectedGen
+        );
+        return indexPartitions;
+    }
+
     private static String testBlobPrefix(String seed) {
         return TESTS_FILE + seed;
     }
@@ -2316,11 +2724,21 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             if (ensureSafeGenerationExists(expectedGen, listener::onFailure) == false) {
                 return;
             }
+            final Map<String, RepositoryData.IndicesPartition> indexPartitions = writeIndexPartitions(
+                newRepositoryData,
+                expectedGen,
+                version
+            );
             final String indexBlob = INDEX_FILE_PREFIX + Long.toString(newGen);
             logger.debug("Repository [{}] writing new index generational blob [{}]", metadata.name(), indexBlob);
             writeAtomic(blobContainer(), indexBlob, out -> {
                 try (XContentBuilder xContentBuilder = XContentFactory.jsonBuilder(Streams.noCloseStream(out))) {
-                    newRepositoryData.snapshotsToXContent(xContentBuilder, version);
+                    newRepositoryData.snapshotsToXContent(
+                        xContentBuilder,
+                        version,
+                        false,
+                        indexPartitions == null ? null : indexPartitions.keySet()
+                    );
                 }
             }, true);
             maybeWriteIndexLatest(newGen);
@@ -2370,6 +2788,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
                         logger.trace("[{}] successfully set safe repository generation to [{}]", metadata.name(), newGen);
                         cacheRepositoryData(newRepositoryData, version);
+                        cacheIndexPartitions(newGen, indexPartitions == null ? Collections.emptyMap() : indexPartitions);
                         threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(ActionRunnable.supply(listener, () -> {
                             // Delete all now outdated index files up to 1000 blobs back from the new generation.
                             // If there are more than 1000 dangling index-N cleanup functionality on repo delete will take care of them.
@@ -2690,6 +3109,9 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 .orElse(null);
 
             final List<BlobStoreIndexShardSnapshot.FileInfo> indexCommitPointFiles;
+            final boolean useBlocks = blockDeduplication
+                && SnapshotsService.useBlockDeduplication(context.getRepositoryMetaVersion());
+            final ShardBlocks shardBlocks = useBlocks ? new ShardBlocks(snapshots.blockBlobNames()) : null;
             int indexIncrementalFileCount = 0;
             int indexTotalNumberOfFiles = 0;
             long indexIncrementalSize = 0;
@@ -2741,8 +3163,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     if (existingFileInfo == null) {
                         indexIncrementalFileCount++;
                         indexIncrementalSize += md.length();
-                        // create a new FileInfo
-                        BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo = new BlobStoreIndexShardSnapshot.FileInfo(
+                        // create a new FileInfo, whose blocks are only known once it is uploaded if the shard uses blocks
+                        final BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo = new BlobStoreIndexShardSnapshot.FileInfo(
                             (needsWrite ? UPLOADED_DATA_BLOB_PREFIX : VIRTUAL_DATA_BLOB_PREFIX) + UUIDs.randomBase64UUID(),
                             md,
                             chunkSize()
@@ -2776,42 +3198,52 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             final boolean writeShardGens = SnapshotsService.useShardGenerations(context.getRepositoryMetaVersion());
             final boolean writeFileInfoWriterUUID = SnapshotsService.includeFileInfoWriterUUID(context.getRepositoryMetaVersion());
             // build a new BlobStoreIndexShardSnapshot, that includes this one and all the saved ones
-            List<SnapshotFiles> newSnapshotsList = new ArrayList<>();
-            newSnapshotsList.add(new SnapshotFiles(snapshotId.getName(), indexCommitPointFiles, context.stateIdentifier()));
-            for (SnapshotFiles point : snapshots) {
-                newSnapshotsList.add(point);
-            }
-            final BlobStoreIndexShardSnapshots updatedBlobStoreIndexShardSnapshots = new BlobStoreIndexShardSnapshots(newSnapshotsList);
-            final Runnable afterWriteSnapBlob;
+            final Function<List<BlobStoreIndexShardSnapshot.FileInfo>, BlobStoreIndexShardSnapshots> updatedShardSnapshots = files -> {
+                List<SnapshotFiles> newSnapshotsList = new ArrayList<>();
+                newSnapshotsList.add(new SnapshotFiles(snapshotId.getName(), files, context.stateIdentifier()));
+                for (SnapshotFiles point : snapshots) {
+                    newSnapshotsList.add(point);
+                }
+                return new BlobStoreIndexShardSnapshots(newSnapshotsList);
+            };
+            final Consumer<List<BlobStoreIndexShardSnapshot.FileInfo>> afterWriteSnapBlob;
             if (writeShardGens) {
-                // When using shard generations we can safely write the index-${uuid} blob before writing out any of the actual data
-                // for this shard since the uuid named blob will simply not be referenced in case of error and thus we will never
-                // reference a generation that has not had all its files fully upload.
                 indexGeneration = ShardGeneration.newGeneration();
-                try {
-                    final Map<String, String> serializationParams = Collections.singletonMap(
-                        BlobStoreIndexShardSnapshot.FileInfo.SERIALIZE_WRITER_UUID,
-                        Boolean.toString(writeFileInfoWriterUUID)
-                    );
-                    INDEX_SHARD_SNAPSHOTS_FORMAT.write(
-                        updatedBlobStoreIndexShardSnapshots,
-                        shardContainer,
-                        indexGeneration.toBlobNamePart(),
-                        compress,
-                        serializationParams
-                    );
-                } catch (IOException e) {
-                    throw new IndexShardSnapshotFailedException(
-                        shardId,
-                        "Failed to write shard level snapshot metadata for ["
-                            + snapshotId
-                            + "] to ["
-                            + INDEX_SHARD_SNAPSHOTS_FORMAT.blobName(indexGeneration.toBlobNamePart())
-                            + "]",
-                        e
-                    );
+                final Consumer<List<BlobStoreIndexShardSnapshot.FileInfo>> writeShardIndexBlob = files -> {
+                    try {
+                        final Map<String, String> serializationParams = Collections.singletonMap(
+                            BlobStoreIndexShardSnapshot.FileInfo.SERIALIZE_WRITER_UUID,
+                            Boolean.toString(writeFileInfoWriterUUID)
+                        );
+                        INDEX_SHARD_SNAPSHOTS_FORMAT.write(
+                            updatedShardSnapshots.apply(files),
+                            shardContainer,
+                            indexGeneration.toBlobNamePart(),
+                            compress,
+                            serializationParams
+                        );
+                    } catch (IOException e) {
+                        throw new IndexShardSnapshotFailedException(
+                            shardId,
+                            "Failed to write shard level snapshot metadata for ["
+                                + snapshotId
+                                + "] to ["
+                                + INDEX_SHARD_SNAPSHOTS_FORMAT.blobName(indexGeneration.toBlobNamePart())
+                                + "]",
+                            e
+                        );
+                    }
+                };
+                if (shardBlocks == null) {
+                    // When using shard generations we can safely write the index-${uuid} blob before writing out any of the actual data
+                    // for this shard since the uuid named blob will simply not be referenced in case of error and thus we will never
+                    // reference a generation that has not had all its files fully upload.
+                    writeShardIndexBlob.accept(indexCommitPointFiles);
+                    afterWriteSnapBlob = files -> {};
+                } else {
+                    // The blocks of the new files are only known once they are uploaded, so the index-${uuid} blob is written last.
+                    afterWriteSnapBlob = writeShardIndexBlob;
                 }
-                afterWriteSnapBlob = () -> {};
             } else {
                 // When not using shard generations we can only write the index-${N} blob after all other work for this shard has
                 // completed.
@@ -2830,13 +3262,13 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         + indexGeneration
                         + "] when deleting index-N blobs "
                         + blobsToDelete;
-                afterWriteSnapBlob = () -> {
+                afterWriteSnapBlob = files -> {
                     try {
                         final Map<String, String> serializationParams = Collections.singletonMap(
                             BlobStoreIndexShardSnapshot.FileInfo.SERIALIZE_WRITER_UUID,
                             Boolean.toString(writeFileInfoWriterUUID)
                         );
-                        writeShardIndexBlobAtomic(shardContainer, newGen, updatedBlobStoreIndexShardSnapshots, serializationParams);
+                        writeShardIndexBlobAtomic(shardContainer, newGen, updatedShardSnapshots.apply(files), serializationParams);
                     } catch (IOException e) {
                         throw new IndexShardSnapshotFailedException(
                             shardId,
@@ -2866,17 +3298,20 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             final StepListener<Collection<Void>> allFilesUploadedListener = new StepListener<>();
             allFilesUploadedListener.whenComplete(v -> {
                 final IndexShardSnapshotStatus.Copy lastSnapshotStatus = snapshotStatus.moveToFinalize(snapshotIndexCommit.getGeneration());
+                final List<BlobStoreIndexShardSnapshot.FileInfo> snapshotFiles = shardBlocks == null
+                    ? indexCommitPointFiles
+                    : shardBlocks.withBlocks(indexCommitPointFiles);
 
                 // now create and write the commit point
                 logger.trace("[{}] [{}] writing shard snapshot file", shardId, snapshotId);
                 final BlobStoreIndexShardSnapshot blobStoreIndexShardSnapshot = new BlobStoreIndexShardSnapshot(
                     snapshotId.getName(),
                     lastSnapshotStatus.getIndexVersion(),
-                    indexCommitPointFiles,
+                    snapshotFiles,
                     lastSnapshotStatus.getStartTime(),
                     threadPool.absoluteTimeInMillis() - lastSnapshotStatus.getStartTime(),
                     lastSnapshotStatus.getIncrementalFileCount(),
-                    lastSnapshotStatus.getIncrementalSize()
+                    lastSnapshotStatus.getIncrementalSize() - (shardBlocks == null ? 0L : shardBlocks.deduplicatedBytes.get())
                 );
                 try {
                     final String snapshotUUID = snapshotId.getUUID();
@@ -2894,7 +3329,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 } catch (IOException e) {
                     throw new IndexShardSnapshotFailedException(shardId, "Failed to write commit point", e);
                 }
-                afterWriteSnapBlob.run();
+                afterWriteSnapBlob.accept(snapshotFiles);
                 final ShardSnapshotResult shardSnapshotResult = new ShardSnapshotResult(
                     indexGeneration,
                     ByteSizeValue.ofBytes(blobStoreIndexShardSnapshot.totalSize()),
@@ -2912,7 +3347,16 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             final int workers = Math.min(threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(), indexIncrementalFileCount);
             final ActionListener<Void> filesListener = fileQueueListener(filesToSnapshot, workers, allFilesUploadedListener);
             for (int i = 0; i < workers; ++i) {
-                executeOneFileSnapshot(store, snapshotId, context.indexId(), snapshotStatus, filesToSnapshot, executor, filesListener);
+                executeOneFileSnapshot(
+                    store,
+                    snapshotId,
+                    context.indexId(),
+                    snapshotStatus,
+                    filesToSnapshot,
+                    shardBlocks,
+                    executor,
+                    filesListener
+                );
             }
         } catch (Exception e) {
             context.onFailure(e);
@@ -2925,6 +3369,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         IndexId indexId,
         IndexShardSnapshotStatus snapshotStatus,
         BlockingQueue<BlobStoreIndexShardSnapshot.FileInfo> filesToSnapshot,
+        @Nullable ShardBlocks shardBlocks,
         Executor executor,
         ActionListener<Void> listener
     ) throws InterruptedException {
@@ -2935,8 +3380,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         } else {
             executor.execute(ActionRunnable.wrap(listener, l -> {
                 try (Releasable ignored = incrementStoreRef(store, snapshotStatus, shardId)) {
-                    snapshotFile(snapshotFileInfo, indexId, shardId, snapshotId, snapshotStatus, store);
-                    executeOneFileSnapshot(store, snapshotId, indexId, snapshotStatus, filesToSnapshot, executor, l);
+                    snapshotFile(snapshotFileInfo, indexId, shardId, snapshotId, snapshotStatus, store, shardBlocks);
+                    executeOneFileSnapshot(store, snapshotId, indexId, snapshotStatus, filesToSnapshot, shardBlocks, executor, l);
                 }
             }));
         }
@@ -3338,13 +3783,14 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         );
     }
 
-    // Unused blobs are all previous index-, data- and meta-blobs and that are not referenced by the new index- as well as all
+    // Unused blobs are all previous index-, data-, block- and meta-blobs and that are not referenced by the new index- as well as all
     // temporary blobs
     private static List<String> unusedBlobs(
         Set<String> blobs,
         Set<String> survivingSnapshotUUIDs,
         BlobStoreIndexShardSnapshots updatedSnapshots
     ) {
+        final Set<String> referencedBlocks = updatedSnapshots.blockBlobNames();
         return blobs.stream()
             .filter(
                 blob -> blob.startsWith(SNAPSHOT_INDEX_PREFIX)
@@ -3354,6 +3800,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                             blob.substring(SNAPSHOT_PREFIX.length(), blob.length() - ".dat".length())
                         ) == false)
                     || (blob.startsWith(UPLOADED_DATA_BLOB_PREFIX) && updatedSnapshots.findNameFile(canonicalName(blob)) == null)
+                    || (blob.startsWith(BlobStoreIndexShardSnapshot.Block.BLOB_PREFIX) && referencedBlocks.contains(blob) == false)
                     || FsBlobContainer.isTempBlobName(blob)
             )
             .collect(Collectors.toList());
@@ -3450,6 +3897,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
     /**
      * Snapshot individual file
      * @param fileInfo file to be snapshotted
+     * @param shardBlocks the blocks of the shard if its files are split into blocks, or {@code null} if files are uploaded in parts
      */
     private void snapshotFile(
         BlobStoreIndexShardSnapshot.FileInfo fileInfo,
@@ -3457,40 +3905,39 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         ShardId shardId,
         SnapshotId snapshotId,
         IndexShardSnapshotStatus snapshotStatus,
-        Store store
+        Store store,
+        @Nullable ShardBlocks shardBlocks
     ) throws IOException {
         final BlobContainer shardContainer = shardContainer(indexId, shardId);
         final String file = fileInfo.physicalName();
         try (IndexInput indexInput = store.openVerifyingInput(file, IOContext.READONCE, fileInfo.metadata())) {
-            for (int i = 0; i < fileInfo.numberOfParts(); i++) {
-                final long partBytes = fileInfo.partBytes(i);
-
-                // Make reads abortable by mutating the snapshotStatus object
-                final InputStream inputStream = new FilterInputStream(
-                    maybeRateLimitSnapshots(new InputStreamIndexInput(indexInput, partBytes))
-                ) {
-                    @Override
-                    public int read() throws IOException {
-                        checkAborted();
-                        return super.read();
-                    }
-
-                    @Override
-                    public int read(byte[] b, int off, int len) throws IOException {
-                        checkAborted();
-                        return super.read(b, off, len);
-                    }
+            if (shardBlocks != null && fileInfo.length() > 0L) {
+                final InputStream inputStream = abortableInputStream(
+                    maybeRateLimitSnapshots(new InputStreamIndexInput(indexInput, fileInfo.length())),
+                    fileInfo,
+                    shardId,
+                    snapshotId,
+                    snapshotStatus
+                );
+                snapshotFileInBlocks(fileInfo, inputStream, shardContainer, shardBlocks);
+            } else {
+                for (int i = 0; i < fileInfo.numberOfParts(); i++) {
+                    final long partBytes = fileInfo.partBytes(i);
 
-                    private void checkAborted() {
-                        if (snapshotStatus.isAborted()) {
-                            logger.debug("[{}] [{}] Aborted on the file [{}], exiting", shardId, snapshotId, fileInfo.physicalName());
-                            throw new AbortedSnapshotException();
-                        }
-                    }
-                };
-                final String partName = fileInfo.partName(i);
-                logger.trace(() -> new ParameterizedMessage("[{}] Writing [{}] to [{}]", metadata.name(), partName, shardContainer.path()));
-                shardContainer.writeBlob(partName, inputStream, partBytes, false);
+                    // Make reads abortable by mutating the snapshotStatus object
+                    final InputStream inputStream = abortableInputStream(
+                        maybeRateLimitSnapshots(new InputStreamIndexInput(indexInput, partBytes)),
+                        fileInfo,
+                        shardId,
+                        snapshotId,
+                        snapshotStatus
+                    );
+                    final String partName = fileInfo.partName(i);
+                    logger.trace(
+                        () -> new ParameterizedMessage("[{}] Writing [{}] to [{}]", metadata.name(), partName, shardContainer.path())
+                    );
+                    shardContainer.writeBlob(partName, inputStream, partBytes, false);
+                }
             }
             Store.verify(indexInput);
             snapshotStatus.addProcessedFile(fileInfo.length());
@@ -3501,6 +3948,122 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    private static InputStream abortableInputStream(
+        InputStream inputStream,
+        BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+        ShardId shardId,
+        SnapshotId snapshotId,
+        IndexShardSnapshotStatus snapshotStatus
+    ) {
+        return new FilterInputStream(inputStream) {
+            @Override
+            public int read() throws IOException {
+                checkAborted();
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                checkAborted();
+                return super.read(b, off, len);
+            }
+
+            private void checkAborted() {
+                if (snapshotStatus.isAborted()) {
+                    logger.debug("[{}] [{}] Aborted on the file [{}], exiting", shardId, snapshotId, fileInfo.physicalName());
+                    throw new AbortedSnapshotException();
+                }
+            }
+        };
+    }
+
+    /**
+     * Snapshots a file by splitting it into content-defined blocks as it is read, see {@link #BLOCK_DEDUPLICATION_SETTING}. The name of a
+     * block is the hash of its contents so each block is buffered in memory until its end is found, and then only uploaded if neither the
+     * existing snapshots of the shard nor another file of this snapshot already have it. The buffer holds a single block, which is at most
+     * four times the average block size, and its pages come from the {@link BigArrays} of the repository so they are accounted for.
+     */
+    private void snapshotFileInBlocks(
+        BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+        InputStream inputStream,
+        BlobContainer shardContainer,
+        ShardBlocks shardBlocks
+    ) throws IOException {
+        final ByteSizeValue chunkSize = chunkSize();
+        final long maxBlockSize = Math.min(
+            4L * blockDeduplicationAverageSize,
+            chunkSize == null || chunkSize.getBytes() <= 0L ? Long.MAX_VALUE : chunkSize.getBytes()
+        );
+        final ContentDefinedBlockSplitter splitter = new ContentDefinedBlockSplitter(blockDeduplicationAverageSize, maxBlockSize);
+        final MessageDigest digest = MessageDigests.sha256();
+        final List<BlobStoreIndexShardSnapshot.Block> blocks = new ArrayList<>();
+        final byte[] buffer = new byte[Math.toIntExact(Math.min(bufferSize, fileInfo.length()))];
+        long uploadedBytes = 0L;
+        try (ReleasableBytesStreamOutput block = new ReleasableBytesStreamOutput(bigArrays)) {
+            int len;
+            while ((len = inputStream.read(buffer)) != -1) {
+                int offset = 0;
+                while (offset < len) {
+                    final int blockEnd = splitter.findBlockEnd(buffer, offset, len - offset);
+                    final int end = blockEnd < 0 ? len : blockEnd;
+                    digest.update(buffer, offset, end - offset);
+                    block.write(buffer, offset, end - offset);
+                    offset = end;
+                    if (blockEnd >= 0) {
+                        uploadedBytes += uploadBlock(block, digest, blocks, shardContainer, shardBlocks);
+                    }
+                }
+            }
+            if (block.size() > 0) {
+                uploadedBytes += uploadBlock(block, digest, blocks, shardContainer, shardBlocks);
+            }
+        }
+        shardBlocks.splitFiles.put(
+            fileInfo.name(),
+            new BlobStoreIndexShardSnapshot.FileInfo(fileInfo.name(), fileInfo.metadata(), fileInfo.partSize(), blocks)
+        );
+        shardBlocks.deduplicatedBytes.addAndGet(fileInfo.length() - uploadedBytes);
+        logger.debug(
+            "[{}] uploaded [{}] of the [{}] bytes of [{}] split into [{}] blocks",
+            metadata.name(),
+            uploadedBytes,
+            fileInfo.length(),
+            fileInfo.physicalName(),
+            blocks.size()
+        );
+    }
+
+    /**
+     * Completes the block buffered in the given output and uploads it unless it is already stored, then rewinds the output and resets the
+     * digest for the next block.
+     *
+     * @return the number of uploaded bytes
+     */
+    private long uploadBlock(
+        ReleasableBytesStreamOutput block,
+        MessageDigest digest,
+        List<BlobStoreIndexShardSnapshot.Block> blocks,
+        BlobContainer shardContainer,
+        ShardBlocks shardBlocks
+    ) throws IOException {
+        final BlobStoreIndexShardSnapshot.Block completed = new BlobStoreIndexShardSnapshot.Block(
+            MessageDigests.toHexString(digest.digest()),
+            block.size()
+        );
+        blocks.add(completed);
+        long uploadedBytes = 0L;
+        if (shardBlocks.existingBlocks.contains(completed.blobName()) == false && shardBlocks.newBlocks.add(completed.blobName())) {
+            logger.trace(
+                () -> new ParameterizedMessage("[{}] Writing [{}] to [{}]", metadata.name(), completed.blobName(), shardContainer.path())
+            );
+            shardContainer.writeBlob(completed.blobName(), block.bytes().streamInput(), completed.length(), false);
+            uploadedBytes = completed.length();
+        }
+        // rewinds rather than resets the output, which keeps its pages for the next block
+        block.seek(0L);
+        return uploadedBytes;
+    }
+
     private static void failStoreIfCorrupted(Store store, Exception e) {
         if (Lucene.isCorruptionException(e)) {
             try {
@@ -3529,6 +4092,35 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return bufferSize;
     }
 
+    /**
+     * The blocks of a shard snapshot whose files are split into blocks, see {@link #BLOCK_DEDUPLICATION_SETTING}.
+     */
+    private static final class ShardBlocks {
+
+        // names of the blocks that the existing snapshots of the shard reference
+        private final Set<String> existingBlocks;
+
+        // names of the blocks that are uploaded, or being uploaded, by this snapshot
+        private final Set<String> newBlocks = ConcurrentCollections.newConcurrentSet();
+
+        // the uploaded files with their blocks, by blob name
+        private final Map<String, BlobStoreIndexShardSnapshot.FileInfo> splitFiles = ConcurrentCollections.newConcurrentMap();
+
+        // number of bytes of the uploaded files that were not uploaded because their blocks were already stored
+        private final AtomicLong deduplicatedBytes = new AtomicLong();
+
+        ShardBlocks(Set<String> existingBlocks) {
+            this.existingBlocks = existingBlocks;
+        }
+
+        /**
+         * @return the given files, with their blocks for the files that were uploaded
+         */
+        List<BlobStoreIndexShardSnapshot.FileInfo> withBlocks(List<BlobStoreIndexShardSnapshot.FileInfo> files) {
+            return files.stream().map(file -> splitFiles.getOrDefault(file.name(), file)).collect(Collectors.toList());
+        }
+    }
+
     /**
      * The result of removing a snapshot from a shard folder in the repository.
      */
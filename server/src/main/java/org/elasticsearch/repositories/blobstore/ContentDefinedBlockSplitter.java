@@ -0,0 +1,83 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+/**
+ * Splits files into blocks whose boundaries depend on their contents rather than on their offsets, so that inserting or removing bytes
+ * in a file only changes the blocks around the modification and the other blocks can be deduplicated against those of previously
+ * snapshotted files.
+ *
+ * A boundary is placed after a byte when the high bits of a rolling gear hash of the preceding bytes are all zero, which happens on
+ * average once every {@code averageSize} bytes. Blocks are never smaller than a quarter of the average size (except for the last block of
+ * a file) and never larger than the given maximum size.
+ *
+ * A splitter keeps track of the block being scanned, so it splits a single file whose bytes are passed in order to
+ * {@link #findBlockEnd(byte[], int, int)}.
+ */
+final class ContentDefinedBlockSplitter {
+
+    /**
+     * Random values for each byte value, used to compute the rolling hash. They must never change since they define where the boundaries
+     * of the blocks are, so they are derived from a fixed seed with SplitMix64 rather than from a {@link java.util.Random}.
+     */
+    private static final long[] GEAR = new long[256];
+
+    static {
+        long state = 0x5EED5EED5EED5EEDL;
+        for (int i = 0; i < GEAR.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            long z = state;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+
+    private final long minSize;
+    private final long maxSize;
+    private final long mask;
+
+    // length and rolling hash of the bytes of the current block that were scanned so far
+    private long blockLength;
+    private long hash;
+
+    /**
+     * @param averageSize the average size of the blocks, rounded down to a power of two
+     * @param maxSize     the maximum size of the blocks
+     */
+    ContentDefinedBlockSplitter(long averageSize, long maxSize) {
+        if (averageSize < 4L) {
+            throw new IllegalArgumentException("average block size must be at least [4] but was [" + averageSize + "]");
+        }
+        final long average = Long.highestOneBit(averageSize);
+        final int bits = Long.numberOfTrailingZeros(average);
+        this.minSize = Math.min(average / 4L, maxSize);
+        this.maxSize = maxSize;
+        this.mask = (average - 1L) << (Long.SIZE - bits);
+    }
+
+    /**
+     * Scans the given bytes, which directly follow the bytes scanned so far, for the end of the current block.
+     *
+     * @return the offset right after the last byte of the current block if the block ends within the given bytes, in which case the next
+     *         bytes belong to a new block, or {@code -1} if the current block goes on after the given bytes
+     */
+    int findBlockEnd(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash << 1) + GEAR[bytes[i] & 0xFF];
+            blockLength += 1L;
+            if (blockLength >= maxSize || (blockLength >= minSize && (hash & mask) == 0L)) {
+                blockLength = 0L;
+                hash = 0L;
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+}
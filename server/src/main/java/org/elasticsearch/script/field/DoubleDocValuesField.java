@@ -0,0 +1,96 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.script.field;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link DoubleField} backed by {@link SortedNumericDoubleValues}. The values of the current document are copied into
+ * a reused {@code double[]} so that reading them never boxes.
+ */
+public class DoubleDocValuesField implements DoubleField, DocValuesField {
+
+    private final SortedNumericDoubleValues input;
+    private final String name;
+
+    private double[] values = new double[0];
+    private int count;
+
+    public DoubleDocValuesField(SortedNumericDoubleValues input, String name) {
+        this.input = input;
+        this.name = name;
+    }
+
+    @Override
+    public void setNextDocId(int docId) throws IOException {
+        if (input.advanceExact(docId)) {
+            resize(input.docValueCount());
+            for (int i = 0; i < count; i++) {
+                values[i] = input.nextValue();
+            }
+        } else {
+            resize(0);
+        }
+    }
+
+    private void resize(int newSize) {
+        count = newSize;
+        values = ArrayUtil.grow(values, count);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public List<Double> getValues() {
+        if (isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Double> doubleValues = new ArrayList<>(count);
+
+        for (int index = 0; index < count; ++index) {
+            doubleValues.add(values[index]);
+        }
+
+        return doubleValues;
+    }
+
+    @Override
+    public double getValue(double defaultValue) {
+        return count == 0 ? defaultValue : values[0];
+    }
+
+    @Override
+    public double getValue(int index, double defaultValue) {
+        if (index < 0 || index >= count) {
+            return defaultValue;
+        }
+
+        return values[index];
+    }
+}
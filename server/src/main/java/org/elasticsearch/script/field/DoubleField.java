@@ -0,0 +1,27 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.script.field;
+
+import java.util.List;
+
+/**
+ * A field with {@code double} values. Scripts that declare or cast to this type read the values as primitives
+ * through a regular interface call rather than through dynamic dispatch.
+ */
+public interface DoubleField extends Field {
+
+    /** Return all the values as a {@code List}. */
+    List<Double> getValues();
+
+    /** Returns the 0th index value as a {@code double} if it exists, otherwise {@code defaultValue}. */
+    double getValue(double defaultValue);
+
+    /** Returns the value at {@code index} as a {@code double} if it exists, otherwise {@code defaultValue}. */
+    double getValue(int index, double defaultValue);
+}
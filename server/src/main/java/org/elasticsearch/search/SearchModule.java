@@ -160,6 +160,8 @@ import org.elasticsearch.search.aggregations.metrics.GeoBoundsAggregationBuilder
 import org.elasticsearch.search.aggregations.metrics.GeoCentroidAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.InternalAvg;
 import org.elasticsearch.search.aggregations.metrics.InternalCardinality;
+import org.elasticsearch.search.aggregations.metrics.InternalDDSketchPercentileRanks;
+import org.elasticsearch.search.aggregations.metrics.InternalDDSketchPercentiles;
 import org.elasticsearch.search.aggregations.metrics.InternalExtendedStats;
 import org.elasticsearch.search.aggregations.metrics.InternalGeoBounds;
 import org.elasticsearch.search.aggregations.metrics.InternalGeoCentroid;
@@ -442,6 +444,7 @@ public class SearchModule {
                 PercentilesAggregationBuilder::parse
             ).addResultReader(InternalTDigestPercentiles.NAME, InternalTDigestPercentiles::new)
                 .addResultReader(InternalHDRPercentiles.NAME, InternalHDRPercentiles::new)
+                .addResultReader(InternalDDSketchPercentiles.NAME, InternalDDSketchPercentiles::new)
                 .setAggregatorRegistrar(PercentilesAggregationBuilder::registerAggregators),
             builder
         );
@@ -452,6 +455,7 @@ public class SearchModule {
                 PercentileRanksAggregationBuilder::parse
             ).addResultReader(InternalTDigestPercentileRanks.NAME, InternalTDigestPercentileRanks::new)
                 .addResultReader(InternalHDRPercentileRanks.NAME, InternalHDRPercentileRanks::new)
+                .addResultReader(InternalDDSketchPercentileRanks.NAME, InternalDDSketchPercentileRanks::new)
                 .setAggregatorRegistrar(PercentileRanksAggregationBuilder::registerAggregators),
             builder
         );
@@ -1232,7 +1232,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 context::getRelativeTimeInMillis,
                 context::isCancelled,
                 context::buildFilteredQuery,
-                enableRewriteAggsToFilterByFilter
+                enableRewriteAggsToFilterByFilter,
+                context.readerContext().singleSession() ? null : context.readerContext(),
+                source.runtimeMappings(),
+                indicesService.getIndicesBackgroundFrequencyCache()
             );
             context.addReleasable(aggContext);
             try {
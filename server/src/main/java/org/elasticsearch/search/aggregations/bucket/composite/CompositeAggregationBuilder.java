@@ -8,6 +8,7 @@
 
 package org.elasticsearch.search.aggregations.bucket.composite;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
@@ -24,6 +25,7 @@ import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +40,7 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
     public static final ParseField AFTER_FIELD_NAME = new ParseField("after");
     public static final ParseField SIZE_FIELD_NAME = new ParseField("size");
     public static final ParseField SOURCES_FIELD_NAME = new ParseField("sources");
+    public static final ParseField PREFETCH_PAGES_FIELD_NAME = new ParseField("prefetch_pages");
 
     public static final ConstructingObjectParser<CompositeAggregationBuilder, String> PARSER = new ConstructingObjectParser<>(
         NAME,
@@ -51,6 +54,7 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
     static {
         PARSER.declareObjectArray(constructorArg(), (p, c) -> CompositeValuesSourceParserHelper.fromXContent(p), SOURCES_FIELD_NAME);
         PARSER.declareInt(CompositeAggregationBuilder::size, SIZE_FIELD_NAME);
+        PARSER.declareInt(CompositeAggregationBuilder::prefetchPages, PREFETCH_PAGES_FIELD_NAME);
         PARSER.declareObject(CompositeAggregationBuilder::aggregateAfter, (p, context) -> p.map(), AFTER_FIELD_NAME);
     }
 
@@ -65,6 +69,7 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
     private List<CompositeValuesSourceBuilder<?>> sources;
     private Map<String, Object> after;
     private int size = 10;
+    private int prefetchPages = 1;
 
     public CompositeAggregationBuilder(String name, List<CompositeValuesSourceBuilder<?>> sources) {
         super(name);
@@ -81,6 +86,7 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
         this.sources = new ArrayList<>(clone.sources);
         this.after = clone.after;
         this.size = clone.size;
+        this.prefetchPages = clone.prefetchPages;
     }
 
     @Override
@@ -100,6 +106,9 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
         if (in.readBoolean()) {
             this.after = in.readMap();
         }
+        if (in.getVersion().onOrAfter(Version.V_7_16_3)) {
+            this.prefetchPages = in.readVInt();
+        }
     }
 
     @Override
@@ -113,6 +122,9 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
         if (after != null) {
             out.writeMap(after);
         }
+        if (out.getVersion().onOrAfter(Version.V_7_16_3)) {
+            out.writeVInt(prefetchPages);
+        }
     }
 
     @Override
@@ -151,6 +163,34 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
         return size;
     }
 
+    /**
+     * The number of pages of composite buckets that each shard collects in a single pass. Shards of searches that
+     * use a point in time keep the buckets that follow the requested page so that the next pages are served without
+     * collecting the matching documents again. Defaults to {@code 1}, which disables prefetching.
+     */
+    public CompositeAggregationBuilder prefetchPages(int prefetchPages) {
+        if (prefetchPages < 1) {
+            throw new IllegalArgumentException(
+                "["
+                    + PREFETCH_PAGES_FIELD_NAME.getPreferredName()
+                    + "] must be greater than 0. Found ["
+                    + prefetchPages
+                    + "] in ["
+                    + name
+                    + "]"
+            );
+        }
+        this.prefetchPages = prefetchPages;
+        return this;
+    }
+
+    /**
+     * @return the number of pages of composite buckets that each shard collects in a single pass. Defaults to {@code 1}.
+     */
+    public int prefetchPages() {
+        return prefetchPages;
+    }
+
     @Override
     public BucketCardinality bucketCardinality() {
         /*
@@ -251,13 +291,29 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
         } else {
             afterKey = null;
         }
-        return new CompositeAggregationFactory(name, context, parent, subfactoriesBuilder, metadata, size, configs, afterKey);
+        // prefetched buckets can be reused by requests that only differ by their after key and size
+        final Object prefetchSignature = prefetchPages > 1 ? Arrays.asList(sources, subfactoriesBuilder) : null;
+        return new CompositeAggregationFactory(
+            name,
+            context,
+            parent,
+            subfactoriesBuilder,
+            metadata,
+            size,
+            configs,
+            afterKey,
+            prefetchPages,
+            prefetchSignature
+        );
     }
 
     @Override
     protected XContentBuilder internalXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject();
         builder.field(SIZE_FIELD_NAME.getPreferredName(), size);
+        if (prefetchPages != 1) {
+            builder.field(PREFETCH_PAGES_FIELD_NAME.getPreferredName(), prefetchPages);
+        }
         builder.startArray(SOURCES_FIELD_NAME.getPreferredName());
         for (CompositeValuesSourceBuilder<?> source : sources) {
             CompositeValuesSourceParserHelper.toXContent(source, builder, params);
@@ -272,7 +328,7 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), sources, size, after);
+        return Objects.hash(super.hashCode(), sources, size, after, prefetchPages);
     }
 
     @Override
@@ -281,6 +337,9 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
         if (obj == null || getClass() != obj.getClass()) return false;
         if (super.equals(obj) == false) return false;
         CompositeAggregationBuilder other = (CompositeAggregationBuilder) obj;
-        return size == other.size && Objects.equals(sources, other.sources) && Objects.equals(after, other.after);
+        return size == other.size
+            && prefetchPages == other.prefetchPages
+            && Objects.equals(sources, other.sources)
+            && Objects.equals(after, other.after);
     }
 }
@@ -21,6 +21,8 @@ class CompositeAggregationFactory extends AggregatorFactory {
     private final int size;
     private final CompositeValuesSourceConfig[] sources;
     private final CompositeKey afterKey;
+    private final int prefetchPages;
+    private final Object prefetchSignature;
 
     CompositeAggregationFactory(
         String name,
@@ -30,17 +32,32 @@ class CompositeAggregationFactory extends AggregatorFactory {
         Map<String, Object> metadata,
         int size,
         CompositeValuesSourceConfig[] sources,
-        CompositeKey afterKey
+        CompositeKey afterKey,
+        int prefetchPages,
+        Object prefetchSignature
     ) throws IOException {
         super(name, context, parent, subFactoriesBuilder, metadata);
         this.size = size;
         this.sources = sources;
         this.afterKey = afterKey;
+        this.prefetchPages = prefetchPages;
+        this.prefetchSignature = prefetchSignature;
     }
 
     @Override
     protected Aggregator createInternal(Aggregator parent, CardinalityUpperBound cardinality, Map<String, Object> metadata)
         throws IOException {
-        return new CompositeAggregator(name, factories, context, parent, metadata, size, sources, afterKey);
+        return new CompositeAggregator(
+            name,
+            factories,
+            context,
+            parent,
+            metadata,
+            size,
+            sources,
+            afterKey,
+            prefetchPages,
+            prefetchSignature
+        );
     }
 }
@@ -34,6 +34,9 @@ import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.RoaringDocIdSet;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Rounding;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.io.stream.DelayableWriteable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.search.DocValueFormat;
@@ -50,6 +53,7 @@ import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
 import org.elasticsearch.search.aggregations.bucket.histogram.SizedBucketAggregator;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.searchafter.SearchAfterBuilder;
 import org.elasticsearch.search.sort.SortAndFormats;
 
@@ -65,7 +69,11 @@ import java.util.stream.Collectors;
 import static org.elasticsearch.search.aggregations.MultiBucketConsumerService.MAX_BUCKET_SETTING;
 
 public final class CompositeAggregator extends BucketsAggregator implements SizedBucketAggregator {
+    private static final String PREFETCH_CONTEXT_KEY_PREFIX = "composite_prefetch:";
+
     private final int size;
+    /** the number of buckets to collect, greater than {@link #size} if the aggregation prefetches the next pages */
+    private final int queueSize;
     private final List<String> sourceNames;
     private final int[] reverseMuls;
     private final MissingOrder[] missingOrders;
@@ -76,6 +84,7 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
     private final SingleDimensionValuesSource<?>[] sources;
     private final CompositeValuesCollectorQueue queue;
     private final DateHistogramValuesSource[] innerSizedBucketAggregators;
+    private final Object prefetchSignature;
 
     private final List<Entry> entries = new ArrayList<>();
     private LeafReaderContext currentLeaf;
@@ -83,6 +92,8 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
     private BucketCollector deferredCollectors;
 
     private boolean earlyTerminated;
+    /** the page to return when it could be served from the buckets prefetched by a previous request */
+    private List<InternalComposite.InternalBucket> prefetchedPage;
 
     CompositeAggregator(
         String name,
@@ -92,7 +103,9 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
         Map<String, Object> metadata,
         int size,
         CompositeValuesSourceConfig[] sourceConfigs,
-        CompositeKey rawAfterKey
+        CompositeKey rawAfterKey,
+        int prefetchPages,
+        Object prefetchSignature
     ) throws IOException {
         super(name, factories, context, parent, CardinalityUpperBound.MANY, metadata);
         this.size = size;
@@ -116,13 +129,21 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
                 bucketLimit
             );
         }
+        // prefetched buckets are kept in the reader context, they are only useful if it outlives the request
+        if (prefetchPages > 1 && parent == null && context.readerContext() != null) {
+            this.queueSize = (int) Math.min((long) size * prefetchPages, Math.max(size, bucketLimit));
+            this.prefetchSignature = Arrays.asList(prefetchSignature, context.query(), context.runtimeMappings());
+        } else {
+            this.queueSize = size;
+            this.prefetchSignature = null;
+        }
         this.sourceConfigs = sourceConfigs;
         List<DateHistogramValuesSource> dateHistogramValuesSources = new ArrayList<>();
         for (int i = 0; i < sourceConfigs.length; i++) {
             this.sources[i] = sourceConfigs[i].createValuesSource(
                 context.bigArrays(),
                 context.searcher().getIndexReader(),
-                size,
+                queueSize,
                 this::addRequestCircuitBreakerBytes
             );
             if (this.sources[i] instanceof DateHistogramValuesSource) {
@@ -130,7 +151,7 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
             }
         }
         this.innerSizedBucketAggregators = dateHistogramValuesSources.toArray(new DateHistogramValuesSource[0]);
-        this.queue = new CompositeValuesCollectorQueue(context.bigArrays(), sources, size);
+        this.queue = new CompositeValuesCollectorQueue(context.bigArrays(), sources, queueSize);
         if (rawAfterKey != null) {
             try {
                 this.queue.setAfterKey(rawAfterKey);
@@ -159,6 +180,24 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
     protected void doPreCollection() throws IOException {
         deferredCollectors = MultiBucketCollector.wrap(false, Arrays.asList(subAggregators));
         collectableSubAggregators = BucketCollector.NO_OP_COLLECTOR;
+        if (prefetchSignature != null) {
+            PrefetchedCompositeBuckets prefetched = context.readerContext().getFromContext(PREFETCH_CONTEXT_KEY_PREFIX + name);
+            if (prefetched != null) {
+                prefetchedPage = prefetched.page(prefetchSignature, rawAfterKey == null ? null : afterKey(), size);
+                earlyTerminated = prefetchedPage != null && prefetched.earlyTerminated();
+            }
+        }
+    }
+
+    /**
+     * The after key of the request, with the values parsed the same way as the keys of the buckets.
+     */
+    private CompositeKey afterKey() {
+        Comparable<?>[] values = new Comparable<?>[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            values[i] = sources[i].getAfter();
+        }
+        return new CompositeKey(values);
     }
 
     @Override
@@ -170,13 +209,16 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
     public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
         // Composite aggregator must be at the top of the aggregation tree
         assert owningBucketOrds.length == 1 && owningBucketOrds[0] == 0L;
+        if (prefetchedPage != null) {
+            return new InternalAggregation[] { buildComposite(prefetchedPage) };
+        }
         if (deferredCollectors != NO_OP_COLLECTOR) {
             // Replay all documents that contain at least one top bucket (collected during the first pass).
             runDeferredCollections();
         }
 
         int num = Math.min(size, queue.size());
-        final InternalComposite.InternalBucket[] buckets = new InternalComposite.InternalBucket[num];
+        final InternalComposite.InternalBucket[] buckets = new InternalComposite.InternalBucket[queue.size()];
         long[] bucketOrdsToCollect = new long[queue.size()];
         for (int i = 0; i < queue.size(); i++) {
             bucketOrdsToCollect[i] = i;
@@ -197,20 +239,66 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
                 aggs
             );
         }
-        CompositeKey lastBucket = num > 0 ? buckets[num - 1].getRawKey() : null;
-        return new InternalAggregation[] {
-            new InternalComposite(
-                name,
-                size,
-                sourceNames,
-                formats,
-                Arrays.asList(buckets),
-                lastBucket,
-                reverseMuls,
-                missingOrders,
-                earlyTerminated,
-                metadata()
-            ) };
+        if (prefetchSignature != null) {
+            storePrefetchedBuckets(buckets);
+        }
+        return new InternalAggregation[] { buildComposite(Arrays.asList(buckets).subList(0, num)) };
+    }
+
+    /**
+     * Keeps the collected buckets in the reader context so that the following pages can be served without collecting the
+     * documents again. The buckets stay accounted for in the request circuit breaker until they are replaced by the buckets
+     * of a later request or the reader context is released. Prefetching is only an optimization, so the buckets are simply
+     * not kept if they would trip the breaker.
+     */
+    private void storePrefetchedBuckets(InternalComposite.InternalBucket[] buckets) {
+        long ramBytesUsed = 0;
+        for (InternalComposite.InternalBucket bucket : buckets) {
+            ramBytesUsed += DelayableWriteable.getSerializedSize(bucket);
+        }
+        CircuitBreaker breaker = context.breaker();
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(ramBytesUsed, "<composite_prefetch>");
+        } catch (CircuitBreakingException e) {
+            return;
+        }
+        PrefetchedCompositeBuckets prefetched = new PrefetchedCompositeBuckets(
+            prefetchSignature,
+            rawAfterKey == null ? null : afterKey(),
+            Arrays.asList(buckets),
+            buckets.length < queueSize,
+            earlyTerminated,
+            sourceNames,
+            formats,
+            reverseMuls,
+            missingOrders,
+            breaker,
+            ramBytesUsed
+        );
+        ReaderContext readerContext = context.readerContext();
+        String key = PREFETCH_CONTEXT_KEY_PREFIX + name;
+        PrefetchedCompositeBuckets previous = readerContext.putInContext(key, prefetched);
+        if (previous == null) {
+            readerContext.addOnClose(() -> Releasables.close(readerContext.<PrefetchedCompositeBuckets>getFromContext(key)));
+        } else {
+            previous.close();
+        }
+    }
+
+    private InternalComposite buildComposite(List<InternalComposite.InternalBucket> buckets) {
+        CompositeKey lastBucket = buckets.isEmpty() ? null : buckets.get(buckets.size() - 1).getRawKey();
+        return new InternalComposite(
+            name,
+            size,
+            sourceNames,
+            formats,
+            buckets,
+            lastBucket,
+            reverseMuls,
+            missingOrders,
+            earlyTerminated,
+            metadata()
+        );
     }
 
     @Override
@@ -438,6 +526,10 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
 
     @Override
     protected LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
+        if (prefetchedPage != null) {
+            // The page is served from the buckets collected by a previous request, there is nothing to collect
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
         finishLeaf();
 
         boolean fillDocIdSet = deferredCollectors != NO_OP_COLLECTOR;
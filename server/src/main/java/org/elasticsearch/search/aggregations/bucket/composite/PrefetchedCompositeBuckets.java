@@ -0,0 +1,136 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.internal.ReaderContext;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The composite buckets that a shard collected in a single pass when {@link CompositeAggregationBuilder#prefetchPages} is
+ * greater than one. They are stored in the {@link ReaderContext} of searches that use a point in time so that the
+ * following pages can be served from memory, without collecting the matching documents again.
+ * <p>
+ * The buckets are the top buckets of the shard after the key {@link #from}. They can serve any page whose after key
+ * is greater than or equal to {@link #from}, as long as there are enough buckets left to fill the page or all the
+ * buckets of the shard after {@link #from} have been collected.
+ * <p>
+ * The memory that the buckets use is accounted for in the request circuit breaker until they are closed, which happens
+ * when they are replaced by the buckets of a later request or when the reader context is released.
+ */
+final class PrefetchedCompositeBuckets implements Releasable {
+    private final Object signature;
+    @Nullable
+    private final CompositeKey from;
+    private final List<InternalComposite.InternalBucket> buckets;
+    private final boolean exhausted;
+    private final boolean earlyTerminated;
+    private final List<String> sourceNames;
+    private final List<DocValueFormat> formats;
+    private final int[] reverseMuls;
+    private final MissingOrder[] missingOrders;
+    private final CircuitBreaker breaker;
+    private final long ramBytesUsed;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * @param signature   identifies the request that collected the buckets, excluding the after key and the size
+     * @param from        the after key of the request that collected the buckets, or {@code null} if it had none
+     * @param buckets     the collected buckets, in key order
+     * @param exhausted   whether {@code buckets} contains all buckets of the shard that are after {@code from}
+     * @param breaker     the breaker that {@code ramBytesUsed} has been added to, released when these buckets are closed
+     */
+    PrefetchedCompositeBuckets(
+        Object signature,
+        @Nullable CompositeKey from,
+        List<InternalComposite.InternalBucket> buckets,
+        boolean exhausted,
+        boolean earlyTerminated,
+        List<String> sourceNames,
+        List<DocValueFormat> formats,
+        int[] reverseMuls,
+        MissingOrder[] missingOrders,
+        CircuitBreaker breaker,
+        long ramBytesUsed
+    ) {
+        this.signature = signature;
+        this.from = from;
+        this.buckets = buckets;
+        this.exhausted = exhausted;
+        this.earlyTerminated = earlyTerminated;
+        this.sourceNames = sourceNames;
+        this.formats = formats;
+        this.reverseMuls = reverseMuls;
+        this.missingOrders = missingOrders;
+        this.breaker = breaker;
+        this.ramBytesUsed = ramBytesUsed;
+    }
+
+    boolean earlyTerminated() {
+        return earlyTerminated;
+    }
+
+    /**
+     * Returns the {@code size} buckets that follow {@code after}, or {@code null} if the prefetched buckets can't
+     * answer the request and the shard must collect the documents again.
+     */
+    @Nullable
+    List<InternalComposite.InternalBucket> page(Object signature, @Nullable CompositeKey after, int size) {
+        if (this.signature.equals(signature) == false) {
+            return null;
+        }
+        int start = 0;
+        if (after != null) {
+            final InternalComposite.InternalBucket afterBucket = probe(after);
+            if (from != null && afterBucket.compareKey(probe(from)) < 0) {
+                return null;
+            }
+            start = firstBucketAfter(afterBucket);
+        } else if (from != null) {
+            return null;
+        }
+        final int remaining = buckets.size() - start;
+        if (remaining < size && exhausted == false) {
+            // the next buckets of the shard haven't been collected
+            return null;
+        }
+        return buckets.subList(start, start + Math.min(size, remaining));
+    }
+
+    private int firstBucketAfter(InternalComposite.InternalBucket after) {
+        int low = 0;
+        int high = buckets.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (buckets.get(mid).compareKey(after) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            breaker.addWithoutBreaking(-ramBytesUsed);
+        }
+    }
+
+    private InternalComposite.InternalBucket probe(CompositeKey key) {
+        return new InternalComposite.InternalBucket(sourceNames, formats, key, reverseMuls, missingOrders, 0, InternalAggregations.EMPTY);
+    }
+}
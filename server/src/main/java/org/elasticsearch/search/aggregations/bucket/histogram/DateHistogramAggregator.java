@@ -16,6 +16,7 @@ import org.elasticsearch.common.Rounding.DateTimeUnit;
 import org.elasticsearch.core.CheckedFunction;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.codec.skipindex.DocValuesSkipIndex;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.AdaptingAggregator;
 import org.elasticsearch.search.aggregations.Aggregator;
@@ -265,9 +266,38 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
         SortedNumericDocValues values = valuesSource.longValues(ctx);
+        final DocValuesSkipIndex skipIndex = DocValuesSkipIndex.get(values);
         return new LeafBucketCollectorBase(sub, values) {
+            private int currentBlock = -1;
+            private boolean currentBlockInSingleBucket;
+            private long currentBlockRounded;
+
             @Override
             public void collect(int doc, long owningBucketOrd) throws IOException {
+                if (skipIndex != null) {
+                    final int block = skipIndex.block(doc);
+                    if (block != currentBlock) {
+                        currentBlock = block;
+                        // if all docs of the block have values that round to the same key, we don't need to read them
+                        currentBlockInSingleBucket = false;
+                        if (skipIndex.isDense(block)) {
+                            currentBlockRounded = preparedRounding.round(skipIndex.minValue(block));
+                            currentBlockInSingleBucket = currentBlockRounded == preparedRounding.round(skipIndex.maxValue(block));
+                        }
+                    }
+                    if (currentBlockInSingleBucket) {
+                        if (hardBounds == null || hardBounds.contain(currentBlockRounded)) {
+                            long bucketOrd = bucketOrds.add(owningBucketOrd, currentBlockRounded);
+                            if (bucketOrd < 0) { // already seen
+                                bucketOrd = -1 - bucketOrd;
+                                collectExistingBucket(sub, doc, bucketOrd);
+                            } else {
+                                collectBucket(sub, doc, bucketOrd);
+                            }
+                        }
+                        return;
+                    }
+                }
                 if (values.advanceExact(doc)) {
                     int valuesCount = values.docValueCount();
 
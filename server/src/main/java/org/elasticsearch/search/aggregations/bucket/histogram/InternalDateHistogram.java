@@ -9,6 +9,7 @@ package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.apache.lucene.util.CollectionUtil;
 import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Rounding;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -28,6 +29,7 @@ import java.io.IOException;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
@@ -190,6 +192,11 @@ public final class InternalDateHistogram extends InternalMultiBucketAggregation<
         }
     }
 
+    /**
+     * The version from which buckets are serialized column by column, see {@link #writeColumnarBuckets}.
+     */
+    static final Version COLUMNAR_BUCKETS_VERSION = Version.V_7_16_3;
+
     private final List<Bucket> buckets;
     private final BucketOrder order;
     private final DocValueFormat format;
@@ -235,7 +242,37 @@ public final class InternalDateHistogram extends InternalMultiBucketAggregation<
         offset = in.readLong();
         format = in.readNamedWriteable(DocValueFormat.class);
         keyed = in.readBoolean();
-        buckets = in.readList(stream -> new Bucket(stream, keyed, format));
+        if (in.getVersion().onOrAfter(COLUMNAR_BUCKETS_VERSION)) {
+            buckets = readColumnarBuckets(in);
+        } else {
+            buckets = in.readList(stream -> new Bucket(stream, keyed, format));
+        }
+    }
+
+    /**
+     * Reads the buckets written by {@link #writeColumnarBuckets}.
+     */
+    private List<Bucket> readColumnarBuckets(StreamInput in) throws IOException {
+        final int size = in.readVInt();
+        final long[] docCounts = new long[size];
+        for (int i = 0; i < size; i++) {
+            docCounts[i] = in.readVLong();
+        }
+        final InternalAggregations[] aggregations = new InternalAggregations[size];
+        if (in.readBoolean()) {
+            for (int i = 0; i < size; i++) {
+                aggregations[i] = InternalAggregations.readFrom(in);
+            }
+        } else {
+            Arrays.fill(aggregations, InternalAggregations.EMPTY);
+        }
+        final List<Bucket> buckets = new ArrayList<>(size);
+        long key = 0;
+        for (int i = 0; i < size; i++) {
+            key += in.readZLong();
+            buckets.add(new Bucket(key, docCounts[i], keyed, format, aggregations[i]));
+        }
+        return buckets;
     }
 
     @Override
@@ -248,7 +285,36 @@ public final class InternalDateHistogram extends InternalMultiBucketAggregation<
         out.writeLong(offset);
         out.writeNamedWriteable(format);
         out.writeBoolean(keyed);
-        out.writeList(buckets);
+        if (out.getVersion().onOrAfter(COLUMNAR_BUCKETS_VERSION)) {
+            writeColumnarBuckets(out);
+        } else {
+            out.writeList(buckets);
+        }
+    }
+
+    /**
+     * Writes the buckets column by column rather than bucket by bucket: first the doc counts, then the sub-aggregations,
+     * which are omitted entirely when the buckets have none, and finally the keys. Buckets are mostly sorted by key on the wire
+     * so the keys are written as deltas from the previous key, which are multiples of the interval and take only a few bytes.
+     */
+    private void writeColumnarBuckets(StreamOutput out) throws IOException {
+        out.writeVInt(buckets.size());
+        boolean hasSubAggregations = false;
+        for (Bucket bucket : buckets) {
+            out.writeVLong(bucket.docCount);
+            hasSubAggregations |= bucket.aggregations.asList().isEmpty() == false;
+        }
+        out.writeBoolean(hasSubAggregations);
+        if (hasSubAggregations) {
+            for (Bucket bucket : buckets) {
+                bucket.aggregations.writeTo(out);
+            }
+        }
+        long previous = 0;
+        for (Bucket bucket : buckets) {
+            out.writeZLong(bucket.key - previous);
+            previous = bucket.key;
+        }
     }
 
     @Override
@@ -10,6 +10,7 @@ package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.ScoreMode;
+import org.elasticsearch.index.codec.skipindex.DocValuesSkipIndex;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
@@ -84,9 +85,38 @@ public class NumericHistogramAggregator extends AbstractHistogramAggregator {
         }
 
         final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
+        final DocValuesSkipIndex skipIndex = skipIndex(ctx);
         return new LeafBucketCollectorBase(sub, values) {
+            private int currentBlock = -1;
+            private boolean currentBlockInSingleBucket;
+            private double currentBlockKey;
+
             @Override
             public void collect(int doc, long owningBucketOrd) throws IOException {
+                if (skipIndex != null) {
+                    final int block = skipIndex.block(doc);
+                    if (block != currentBlock) {
+                        currentBlock = block;
+                        // if all docs of the block have values that fall into the same bucket, we don't need to read them
+                        currentBlockInSingleBucket = false;
+                        if (skipIndex.isDense(block)) {
+                            currentBlockKey = Math.floor((skipIndex.minValue(block) - offset) / interval);
+                            currentBlockInSingleBucket = currentBlockKey == Math.floor((skipIndex.maxValue(block) - offset) / interval);
+                        }
+                    }
+                    if (currentBlockInSingleBucket) {
+                        if (hardBounds == null || hardBounds.contain(currentBlockKey * interval)) {
+                            long bucketOrd = bucketOrds.add(owningBucketOrd, Double.doubleToLongBits(currentBlockKey));
+                            if (bucketOrd < 0) { // already seen
+                                bucketOrd = -1 - bucketOrd;
+                                collectExistingBucket(sub, doc, bucketOrd);
+                            } else {
+                                collectBucket(sub, doc, bucketOrd);
+                            }
+                        }
+                        return;
+                    }
+                }
                 if (values.advanceExact(doc)) {
                     final int valuesCount = values.docValueCount();
 
@@ -113,4 +143,15 @@ public class NumericHistogramAggregator extends AbstractHistogramAggregator {
             }
         };
     }
+
+    /**
+     * Returns the skip index of the field if its double values are the casted long values, which are the ones the
+     * skip index is computed on.
+     */
+    private DocValuesSkipIndex skipIndex(LeafReaderContext ctx) throws IOException {
+        if (valuesSource instanceof ValuesSource.Numeric.FieldData && valuesSource.isFloatingPoint() == false) {
+            return DocValuesSkipIndex.get(valuesSource.longValues(ctx));
+        }
+        return null;
+    }
 }
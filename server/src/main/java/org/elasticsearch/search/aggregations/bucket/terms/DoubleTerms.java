@@ -129,7 +129,29 @@ public class DoubleTerms extends InternalMappedTerms<DoubleTerms, DoubleTerms.Bu
      * Read from a stream.
      */
     public DoubleTerms(StreamInput in) throws IOException {
-        super(in, Bucket::new);
+        super(in, Bucket::new, DoubleTerms::readColumnarBuckets);
+    }
+
+    private static List<Bucket> readColumnarBuckets(
+        StreamInput in,
+        DocValueFormat format,
+        boolean showDocCountError,
+        long[] docCounts,
+        long[] docCountErrors,
+        InternalAggregations[] aggregations
+    ) throws IOException {
+        final List<Bucket> buckets = new ArrayList<>(docCounts.length);
+        for (int i = 0; i < docCounts.length; i++) {
+            buckets.add(new Bucket(in.readDouble(), docCounts[i], aggregations[i], showDocCountError, docCountErrors[i], format));
+        }
+        return buckets;
+    }
+
+    @Override
+    protected void writeKeysTo(StreamOutput out, List<Bucket> buckets) throws IOException {
+        for (Bucket bucket : buckets) {
+            out.writeDouble(bucket.term);
+        }
     }
 
     @Override
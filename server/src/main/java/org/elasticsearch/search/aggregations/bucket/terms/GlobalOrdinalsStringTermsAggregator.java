@@ -193,6 +193,7 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
         add.accept("collection_strategy", collectionStrategy.describe());
         add.accept("total_buckets", collectionStrategy.totalBuckets());
         add.accept("result_strategy", resultStrategy.describe());
+        resultStrategy.collectDebugInfo(add);
         add.accept("segments_with_single_valued_ords", segmentsWithSingleValuedOrds);
         add.accept("segments_with_multi_valued_ords", segmentsWithMultiValuedOrds);
         add.accept("has_filter", acceptedGlobalOrdinals != ALWAYS_TRUE);
@@ -638,6 +639,12 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
          */
         abstract String describe();
 
+        /**
+         * Collect debug information to add to the profiling results. This will
+         * only be called if the aggregation is being profiled.
+         */
+        void collectDebugInfo(BiConsumer<String, Object> add) {}
+
         /**
          * Wrap the "standard" numeric terms collector to collect any more
          * information that this result type may need.
@@ -809,6 +816,7 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
         SignificantStringTerms.Bucket> {
 
         private final BackgroundFrequencyForBytes backgroundFrequencies;
+        private final SignificanceLookup significanceLookup;
         private final long supersetSize;
         private final SignificanceHeuristic significanceHeuristic;
 
@@ -820,6 +828,7 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
             CardinalityUpperBound cardinality
         ) {
             backgroundFrequencies = significanceLookup.bytesLookup(bigArrays(), cardinality);
+            this.significanceLookup = significanceLookup;
             supersetSize = significanceLookup.supersetSize();
             this.significanceHeuristic = significanceHeuristic;
             boolean success = false;
@@ -838,6 +847,11 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
             return "significant_terms";
         }
 
+        @Override
+        void collectDebugInfo(BiConsumer<String, Object> add) {
+            significanceLookup.collectDebugInfo(add);
+        }
+
         @Override
         LeafBucketCollector wrapCollector(LeafBucketCollector primary) {
             return new LeafBucketCollectorBase(primary, null) {
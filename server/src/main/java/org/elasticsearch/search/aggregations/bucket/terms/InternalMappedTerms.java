@@ -13,9 +13,11 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -26,6 +28,11 @@ import java.util.stream.Collectors;
  * Common superclass for results of the terms aggregation on mapped fields.
  */
 public abstract class InternalMappedTerms<A extends InternalTerms<A, B>, B extends InternalTerms.Bucket<B>> extends InternalTerms<A, B> {
+    /**
+     * The version from which buckets are serialized column by column, see {@link #writeColumnarBuckets}.
+     */
+    static final Version COLUMNAR_BUCKETS_VERSION = Version.V_7_16_3;
+
     protected final DocValueFormat format;
     protected final int shardSize;
     protected final boolean showTermDocCountError;
@@ -61,7 +68,8 @@ public abstract class InternalMappedTerms<A extends InternalTerms<A, B>, B exten
     /**
      * Read from a stream.
      */
-    protected InternalMappedTerms(StreamInput in, Bucket.Reader<B> bucketReader) throws IOException {
+    protected InternalMappedTerms(StreamInput in, Bucket.Reader<B> bucketReader, ColumnarBucketsReader<B> columnarBucketsReader)
+        throws IOException {
         super(in);
         if (in.getVersion().onOrAfter(Version.V_7_15_0)) {
             if (in.readBoolean()) {
@@ -76,7 +84,41 @@ public abstract class InternalMappedTerms<A extends InternalTerms<A, B>, B exten
         shardSize = readSize(in);
         showTermDocCountError = in.readBoolean();
         otherDocCount = in.readVLong();
-        buckets = in.readList(stream -> bucketReader.read(stream, format, showTermDocCountError));
+        if (in.getVersion().onOrAfter(COLUMNAR_BUCKETS_VERSION)) {
+            buckets = readColumnarBuckets(in, columnarBucketsReader);
+        } else {
+            buckets = in.readList(stream -> bucketReader.read(stream, format, showTermDocCountError));
+        }
+    }
+
+    /**
+     * Reads the buckets written by {@link #writeColumnarBuckets}. The doc counts, the doc count errors and the
+     * sub-aggregations of all buckets are read first, the keys are then read and the buckets are built by the
+     * {@link ColumnarBucketsReader} of the concrete implementation.
+     */
+    private List<B> readColumnarBuckets(StreamInput in, ColumnarBucketsReader<B> columnarBucketsReader) throws IOException {
+        final int size = in.readVInt();
+        final long[] docCounts = new long[size];
+        for (int i = 0; i < size; i++) {
+            docCounts[i] = in.readVLong();
+        }
+        final long[] docCountErrors = new long[size];
+        if (showTermDocCountError) {
+            for (int i = 0; i < size; i++) {
+                docCountErrors[i] = in.readLong();
+            }
+        } else {
+            Arrays.fill(docCountErrors, -1);
+        }
+        final InternalAggregations[] aggregations = new InternalAggregations[size];
+        if (in.readBoolean()) {
+            for (int i = 0; i < size; i++) {
+                aggregations[i] = InternalAggregations.readFrom(in);
+            }
+        } else {
+            Arrays.fill(aggregations, InternalAggregations.EMPTY);
+        }
+        return columnarBucketsReader.read(in, format, showTermDocCountError, docCounts, docCountErrors, aggregations);
     }
 
     @Override
@@ -95,7 +137,58 @@ public abstract class InternalMappedTerms<A extends InternalTerms<A, B>, B exten
         writeSize(shardSize, out);
         out.writeBoolean(showTermDocCountError);
         out.writeVLong(otherDocCount);
-        out.writeList(buckets);
+        if (out.getVersion().onOrAfter(COLUMNAR_BUCKETS_VERSION)) {
+            writeColumnarBuckets(out);
+        } else {
+            out.writeList(buckets);
+        }
+    }
+
+    /**
+     * Writes the buckets column by column rather than bucket by bucket: doc counts and keys are written as runs of
+     * primitives that can be read back without allocating an object per value, and the sub-aggregations are omitted
+     * entirely when the buckets have none.
+     */
+    private void writeColumnarBuckets(StreamOutput out) throws IOException {
+        out.writeVInt(buckets.size());
+        boolean hasSubAggregations = false;
+        for (B bucket : buckets) {
+            out.writeVLong(bucket.getDocCount());
+            hasSubAggregations |= bucket.aggregations.asList().isEmpty() == false;
+        }
+        if (showTermDocCountError) {
+            for (B bucket : buckets) {
+                out.writeLong(bucket.docCountError);
+            }
+        }
+        out.writeBoolean(hasSubAggregations);
+        if (hasSubAggregations) {
+            for (B bucket : buckets) {
+                bucket.aggregations.writeTo(out);
+            }
+        }
+        writeKeysTo(out, buckets);
+    }
+
+    /**
+     * Writes the keys of the buckets, in order, so that they can be read back by the {@link ColumnarBucketsReader} of
+     * this implementation.
+     */
+    protected abstract void writeKeysTo(StreamOutput out, List<B> buckets) throws IOException;
+
+    /**
+     * Reads the keys written by {@link #writeKeysTo} and builds the buckets from them and the other columns.
+     */
+    @FunctionalInterface
+    protected interface ColumnarBucketsReader<B extends InternalTerms.Bucket<B>> {
+        List<B> read(
+            StreamInput in,
+            DocValueFormat format,
+            boolean showDocCountError,
+            long[] docCounts,
+            long[] docCountErrors,
+            InternalAggregations[] aggregations
+        ) throws IOException;
     }
 
     @Override
@@ -141,7 +141,37 @@ public class LongTerms extends InternalMappedTerms<LongTerms, LongTerms.Bucket>
      * Read from a stream.
      */
     public LongTerms(StreamInput in) throws IOException {
-        super(in, Bucket::new);
+        super(in, Bucket::new, LongTerms::readColumnarBuckets);
+    }
+
+    private static List<Bucket> readColumnarBuckets(
+        StreamInput in,
+        DocValueFormat format,
+        boolean showDocCountError,
+        long[] docCounts,
+        long[] docCountErrors,
+        InternalAggregations[] aggregations
+    ) throws IOException {
+        final List<Bucket> buckets = new ArrayList<>(docCounts.length);
+        long term = 0;
+        for (int i = 0; i < docCounts.length; i++) {
+            term += in.readZLong();
+            buckets.add(new Bucket(term, docCounts[i], aggregations[i], showDocCountError, docCountErrors[i], format));
+        }
+        return buckets;
+    }
+
+    /**
+     * Terms are written as deltas from the previous term: buckets are mostly sorted by key on the wire so the deltas
+     * are small and take only a few bytes. Overflowing deltas wrap around on both sides and still round-trip.
+     */
+    @Override
+    protected void writeKeysTo(StreamOutput out, List<Bucket> buckets) throws IOException {
+        long previous = 0;
+        for (Bucket bucket : buckets) {
+            out.writeZLong(bucket.term - previous);
+            previous = bucket.term;
+        }
     }
 
     @Override
@@ -122,6 +122,7 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
         add.accept("collection_strategy", collectorSource.describe());
         collectorSource.collectDebugInfo(add);
         add.accept("result_strategy", resultStrategy.describe());
+        resultStrategy.collectDebugInfo(add);
     }
 
     @Override
@@ -285,6 +286,12 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
          */
         abstract String describe();
 
+        /**
+         * Collect debug information to add to the profiling results. This will
+         * only be called if the aggregation is being profiled.
+         */
+        void collectDebugInfo(BiConsumer<String, Object> add) {}
+
         /**
          * Wrap the "standard" numeric terms collector to collect any more
          * information that this result type may need.
@@ -476,6 +483,7 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
      */
     class SignificantTermsResults extends ResultStrategy<SignificantStringTerms, SignificantStringTerms.Bucket> {
         private final BackgroundFrequencyForBytes backgroundFrequencies;
+        private final SignificanceLookup significanceLookup;
         private final long supersetSize;
         private final SignificanceHeuristic significanceHeuristic;
 
@@ -487,6 +495,7 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
             CardinalityUpperBound cardinality
         ) {
             backgroundFrequencies = significanceLookup.bytesLookup(bigArrays(), cardinality);
+            this.significanceLookup = significanceLookup;
             supersetSize = significanceLookup.supersetSize();
             this.significanceHeuristic = significanceHeuristic;
             boolean success = false;
@@ -505,6 +514,11 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
             return "significant_terms";
         }
 
+        @Override
+        void collectDebugInfo(BiConsumer<String, Object> add) {
+            significanceLookup.collectDebugInfo(add);
+        }
+
         @Override
         LeafBucketCollector wrapCollector(LeafBucketCollector primary) {
             return new LeafBucketCollectorBase(primary, null) {
@@ -130,6 +130,7 @@ public class NumericTermsAggregator extends TermsAggregator {
     public void collectDebugInfo(BiConsumer<String, Object> add) {
         super.collectDebugInfo(add);
         add.accept("result_strategy", resultStrategy.describe());
+        resultStrategy.collectDebugInfo(add);
         add.accept("total_buckets", bucketOrds.size());
     }
 
@@ -188,6 +189,12 @@ public class NumericTermsAggregator extends TermsAggregator {
          */
         abstract String describe();
 
+        /**
+         * Collect debug information to add to the profiling results. This will
+         * only be called if the aggregation is being profiled.
+         */
+        void collectDebugInfo(BiConsumer<String, Object> add) {}
+
         /**
          * Resolve the doc values to collect results of this type.
          */
@@ -477,6 +484,7 @@ public class NumericTermsAggregator extends TermsAggregator {
 
     class SignificantLongTermsResults extends ResultStrategy<SignificantLongTerms, SignificantLongTerms.Bucket> {
         private final BackgroundFrequencyForLong backgroundFrequencies;
+        private final SignificanceLookup significanceLookup;
         private final long supersetSize;
         private final SignificanceHeuristic significanceHeuristic;
         private LongArray subsetSizes;
@@ -487,6 +495,7 @@ public class NumericTermsAggregator extends TermsAggregator {
             CardinalityUpperBound cardinality
         ) {
             backgroundFrequencies = significanceLookup.longLookup(bigArrays(), cardinality);
+            this.significanceLookup = significanceLookup;
             supersetSize = significanceLookup.supersetSize();
             this.significanceHeuristic = significanceHeuristic;
             boolean success = false;
@@ -510,6 +519,11 @@ public class NumericTermsAggregator extends TermsAggregator {
             return "significant_terms";
         }
 
+        @Override
+        void collectDebugInfo(BiConsumer<String, Object> add) {
+            significanceLookup.collectDebugInfo(add);
+        }
+
         @Override
         LeafBucketCollector wrapCollector(LeafBucketCollector primary) {
             return new LeafBucketCollectorBase(primary, null) {
@@ -15,6 +15,7 @@ import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.util.BytesRef;
@@ -28,12 +29,14 @@ import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.indices.IndicesBackgroundFrequencyCache;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.CardinalityUpperBound;
 import org.elasticsearch.search.aggregations.bucket.terms.heuristic.SignificanceHeuristic;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 
 import java.io.IOException;
+import java.util.function.BiConsumer;
 
 /**
  * Looks up values used for {@link SignificanceHeuristic}s.
@@ -57,22 +60,49 @@ class SignificanceLookup {
     private final MappedFieldType fieldType;
     private final DocValueFormat format;
     private final Query backgroundFilter;
-    private final int supersetNumDocs;
+    private final IndicesBackgroundFrequencyCache cache;
+    private final IndexReader.CacheHelper cacheHelper;
+    private final long supersetNumDocs;
     private TermsEnum termsEnum;
+    private int cacheLookups;
+    private int cacheMisses;
 
     SignificanceLookup(AggregationContext context, MappedFieldType fieldType, DocValueFormat format, QueryBuilder backgroundFilter)
         throws IOException {
         this.context = context;
         this.fieldType = fieldType;
         this.format = format;
+        final boolean cacheableBeforeFilter = context.isCacheable();
         this.backgroundFilter = backgroundFilter == null ? null : context.buildQuery(backgroundFilter);
+        IndexSearcher searcher = context.searcher();
+        /*
+         * Frequencies are shared with the next requests on the same reader unless the background
+         * filter depends on the request, for instance because it uses the current time.
+         */
+        if (context.backgroundFrequencyCache() != null && (backgroundFilter == null || (cacheableBeforeFilter && context.isCacheable()))) {
+            this.cacheHelper = IndicesBackgroundFrequencyCache.cacheHelper(searcher.getIndexReader());
+            this.cache = cacheHelper == null ? null : context.backgroundFrequencyCache();
+        } else {
+            this.cacheHelper = null;
+            this.cache = null;
+        }
         /*
          * We need to use a superset size that includes deleted docs or we
          * could end up blowing up with bad statistics that cause us to blow
          * up later on.
          */
-        IndexSearcher searcher = context.searcher();
-        supersetNumDocs = backgroundFilter == null ? searcher.getIndexReader().maxDoc() : searcher.count(this.backgroundFilter);
+        if (backgroundFilter == null) {
+            supersetNumDocs = searcher.getIndexReader().maxDoc();
+        } else if (cache == null) {
+            supersetNumDocs = searcher.count(this.backgroundFilter);
+        } else {
+            supersetNumDocs = cache.getOrCompute(
+                cacheHelper,
+                new MatchAllDocsQuery(),
+                this.backgroundFilter,
+                () -> (long) searcher.count(this.backgroundFilter)
+            );
+        }
     }
 
     /**
@@ -193,6 +223,26 @@ class SignificanceLookup {
     }
 
     private long getBackgroundFrequency(Query query) throws IOException {
+        if (cache == null) {
+            return computeBackgroundFrequency(query);
+        }
+        cacheLookups++;
+        return cache.getOrCompute(cacheHelper, query, backgroundFilter, () -> {
+            cacheMisses++;
+            return computeBackgroundFrequency(query);
+        });
+    }
+
+    /**
+     * Adds the number of background frequencies of terms that were found in the cache and that had to be computed to the
+     * profiling results.
+     */
+    void collectDebugInfo(BiConsumer<String, Object> add) {
+        add.accept("background_frequency_cache_hits", cacheLookups - cacheMisses);
+        add.accept("background_frequency_cache_misses", cacheMisses);
+    }
+
+    private long computeBackgroundFrequency(Query query) throws IOException {
         if (query instanceof TermQuery) {
             // for types that use the inverted index, we prefer using a terms
             // enum that will do a better job at reusing index inputs
@@ -16,6 +16,7 @@ import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -133,7 +134,48 @@ public class StringTerms extends InternalMappedTerms<StringTerms, StringTerms.Bu
      * Read from a stream.
      */
     public StringTerms(StreamInput in) throws IOException {
-        super(in, Bucket::new);
+        super(in, Bucket::new, StringTerms::readColumnarBuckets);
+    }
+
+    /**
+     * The terms of all buckets are read into a single array that the keys of the buckets point into, rather than
+     * allocating an array per term. Reduced buckets copy their term, see {@link #createBucket(long, InternalAggregations,
+     * long, Bucket)}, so that the array of a shard result can be collected once it is reduced.
+     */
+    private static List<Bucket> readColumnarBuckets(
+        StreamInput in,
+        DocValueFormat format,
+        boolean showDocCountError,
+        long[] docCounts,
+        long[] docCountErrors,
+        InternalAggregations[] aggregations
+    ) throws IOException {
+        final int[] lengths = new int[docCounts.length];
+        int totalLength = 0;
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = in.readVInt();
+            totalLength += lengths[i];
+        }
+        final byte[] bytes = new byte[totalLength];
+        in.readBytes(bytes, 0, totalLength);
+        final List<Bucket> buckets = new ArrayList<>(lengths.length);
+        int offset = 0;
+        for (int i = 0; i < lengths.length; i++) {
+            final BytesRef term = new BytesRef(bytes, offset, lengths[i]);
+            buckets.add(new Bucket(term, docCounts[i], aggregations[i], showDocCountError, docCountErrors[i], format));
+            offset += lengths[i];
+        }
+        return buckets;
+    }
+
+    @Override
+    protected void writeKeysTo(StreamOutput out, List<Bucket> buckets) throws IOException {
+        for (Bucket bucket : buckets) {
+            out.writeVInt(bucket.termBytes.length);
+        }
+        for (Bucket bucket : buckets) {
+            out.writeBytes(bucket.termBytes.bytes, bucket.termBytes.offset, bucket.termBytes.length);
+        }
     }
 
     @Override
@@ -173,7 +215,13 @@ public class StringTerms extends InternalMappedTerms<StringTerms, StringTerms.Bu
 
     @Override
     protected Bucket createBucket(long docCount, InternalAggregations aggs, long docCountError, StringTerms.Bucket prototype) {
-        return new Bucket(prototype.termBytes, docCount, aggs, prototype.showDocCountError, docCountError, format);
+        // the term may point into the array that holds the terms of all the buckets of a shard result, which the few buckets
+        // that survive the reduce would otherwise keep alive
+        BytesRef term = prototype.termBytes;
+        if (term.offset != 0 || term.length != term.bytes.length) {
+            term = BytesRef.deepCopyOf(term);
+        }
+        return new Bucket(term, docCount, aggs, prototype.showDocCountError, docCountError, format);
     }
 
     @Override
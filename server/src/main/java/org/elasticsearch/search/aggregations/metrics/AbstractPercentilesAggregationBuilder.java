@@ -66,6 +66,7 @@ public abstract class AbstractPercentilesAggregationBuilder<T extends AbstractPe
          *  - args[0]: values
          *  - args[1]: tdigest config options
          *  - args[2]: hdr config options
+         *  - args[3]: ddsketch config options
          *
          *  If `args` is null or empty, it means all were omitted.  This is usually an anti-pattern for
          *  ConstructingObjectParser, but we're allowing it because of the above-mentioned reasons
@@ -80,19 +81,21 @@ public abstract class AbstractPercentilesAggregationBuilder<T extends AbstractPe
 
             PercentilesConfig tDigestConfig = (PercentilesConfig) args[1];
             PercentilesConfig hdrConfig = (PercentilesConfig) args[2];
+            PercentilesConfig ddSketchConfig = (PercentilesConfig) args[3];
 
             @SuppressWarnings("unchecked")
             double[] values = args[0] != null ? ((List<Double>) args[0]).stream().mapToDouble(Double::doubleValue).toArray() : null;
-            PercentilesConfig percentilesConfig;
-
-            if (tDigestConfig != null && hdrConfig != null) {
-                throw new IllegalArgumentException("Only one percentiles method should be declared.");
-            } else if (tDigestConfig == null && hdrConfig == null) {
+            PercentilesConfig percentilesConfig = null;
+            for (PercentilesConfig config : new PercentilesConfig[] { tDigestConfig, hdrConfig, ddSketchConfig }) {
+                if (config != null) {
+                    if (percentilesConfig != null) {
+                        throw new IllegalArgumentException("Only one percentiles method should be declared.");
+                    }
+                    percentilesConfig = config;
+                }
+            }
+            if (percentilesConfig == null) {
                 percentilesConfig = defaultConfig.get();
-            } else if (tDigestConfig != null) {
-                percentilesConfig = tDigestConfig;
-            } else {
-                percentilesConfig = hdrConfig;
             }
 
             return ctor.apply(name, values, percentilesConfig);
@@ -111,6 +114,11 @@ public abstract class AbstractPercentilesAggregationBuilder<T extends AbstractPe
             PercentilesMethod.HDR_PARSER,
             PercentilesMethod.HDR.getParseField()
         );
+        parser.declareObject(
+            ConstructingObjectParser.optionalConstructorArg(),
+            PercentilesMethod.DDSKETCH_PARSER,
+            PercentilesMethod.DDSKETCH.getParseField()
+        );
 
         return parser;
     }
@@ -161,6 +169,13 @@ public abstract class AbstractPercentilesAggregationBuilder<T extends AbstractPe
     protected void innerWriteTo(StreamOutput out) throws IOException {
         out.writeDoubleArray(values);
         out.writeBoolean(keyed);
+        if (percentilesConfig != null
+            && percentilesConfig.getMethod() == PercentilesMethod.DDSKETCH
+            && out.getVersion().before(Version.V_7_16_3)) {
+            throw new IllegalArgumentException(
+                "percentiles method [" + PercentilesMethod.DDSKETCH + "] requires all nodes to be on version [" + Version.V_7_16_3 + "]"
+            );
+        }
         if (out.getVersion().onOrAfter(Version.V_7_8_0)) {
             out.writeOptionalWriteable(percentilesConfig);
         } else {
@@ -278,6 +293,8 @@ public abstract class AbstractPercentilesAggregationBuilder<T extends AbstractPe
         if (percentilesConfig == null) {
             if (method.equals(PercentilesMethod.TDIGEST)) {
                 this.percentilesConfig = new PercentilesConfig.TDigest();
+            } else if (method.equals(PercentilesMethod.DDSKETCH)) {
+                this.percentilesConfig = new PercentilesConfig.DDSketch();
             } else {
                 this.percentilesConfig = new PercentilesConfig.Hdr();
             }
@@ -286,6 +303,8 @@ public abstract class AbstractPercentilesAggregationBuilder<T extends AbstractPe
             // reset to default for the requested method
             if (method.equals(PercentilesMethod.TDIGEST)) {
                 this.percentilesConfig = new PercentilesConfig.TDigest();
+            } else if (method.equals(PercentilesMethod.DDSKETCH)) {
+                this.percentilesConfig = new PercentilesConfig.DDSketch();
             } else {
                 this.percentilesConfig = new PercentilesConfig.Hdr();
             }
@@ -10,6 +10,7 @@ package org.elasticsearch.search.aggregations.metrics;
 
 import com.carrotsearch.hppc.BitMixer;
 
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
@@ -27,6 +28,7 @@ import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
@@ -45,6 +47,8 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
 
     private final int precision;
     private final ValuesSource valuesSource;
+    @Nullable
+    private final String precomputedHashField;
 
     // Expensive to initialize, so we only initialize it when we have an actual value source
     @Nullable
@@ -57,6 +61,7 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
     private int ordinalsCollectorsUsed;
     private int ordinalsCollectorsOverheadTooHigh;
     private int stringHashingCollectorsUsed;
+    private int precomputedHashCollectorsUsed;
 
     public CardinalityAggregator(
         String name,
@@ -69,10 +74,26 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
         super(name, context, parent, metadata);
         // TODO: Stop using nulls here
         this.valuesSource = valuesSourceConfig.hasValues() ? valuesSourceConfig.getValuesSource() : null;
+        this.precomputedHashField = precomputedHashField(valuesSourceConfig);
         this.precision = precision;
         this.counts = valuesSource == null ? null : new HyperLogLogPlusPlus(precision, context.bigArrays(), 1);
     }
 
+    /**
+     * Returns the name of the doc values field that holds index-time hashes of the values to count, or {@code null} if the values
+     * are not read as-is from a field that has such hashes.
+     */
+    @Nullable
+    static String precomputedHashField(ValuesSourceConfig config) {
+        if (config.script() != null || config.missing() != null) {
+            return null;
+        }
+        if (config.fieldType() instanceof KeywordFieldMapper.KeywordFieldType) {
+            return ((KeywordFieldMapper.KeywordFieldType) config.fieldType()).precomputedHashFieldName();
+        }
+        return null;
+    }
+
     @Override
     public ScoreMode scoreMode() {
         return valuesSource != null && valuesSource.needsScores() ? ScoreMode.COMPLETE : ScoreMode.COMPLETE_NO_SCORES;
@@ -112,6 +133,13 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
             ordinalsCollectorsOverheadTooHigh++;
         }
 
+        // readers that filter fields, like the ones of field level security, may hide the hashes but not the field itself
+        if (precomputedHashField != null && ctx.reader().getFieldInfos().fieldInfo(precomputedHashField) != null) {
+            precomputedHashCollectorsUsed++;
+            final SortedNumericDocValues hashes = DocValues.getSortedNumeric(ctx.reader(), precomputedHashField);
+            return new DirectCollector(counts, MurmurHash3Values.precomputed(hashes));
+        }
+
         stringHashingCollectorsUsed++;
         return new DirectCollector(counts, MurmurHash3Values.hash(valuesSource.bytesValues(ctx)));
     }
@@ -174,6 +202,7 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
         add.accept("ordinals_collectors_used", ordinalsCollectorsUsed);
         add.accept("ordinals_collectors_overhead_too_high", ordinalsCollectorsOverheadTooHigh);
         add.accept("string_hashing_collectors_used", stringHashingCollectorsUsed);
+        add.accept("precomputed_hash_collectors_used", precomputedHashCollectorsUsed);
     }
 
     private abstract static class Collector extends LeafBucketCollector implements Releasable {
@@ -350,6 +379,37 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
             return new Bytes(values);
         }
 
+        /**
+         * Return a {@link MurmurHash3Values} instance that reads hashes that were computed at index time.
+         */
+        public static MurmurHash3Values precomputed(SortedNumericDocValues hashes) {
+            return new Precomputed(hashes);
+        }
+
+        private static class Precomputed extends MurmurHash3Values {
+
+            private final SortedNumericDocValues hashes;
+
+            Precomputed(SortedNumericDocValues hashes) {
+                this.hashes = hashes;
+            }
+
+            @Override
+            public boolean advanceExact(int docId) throws IOException {
+                return hashes.advanceExact(docId);
+            }
+
+            @Override
+            public int count() {
+                return hashes.docValueCount();
+            }
+
+            @Override
+            public long nextValue() throws IOException {
+                return hashes.nextValue();
+            }
+        }
+
         private static class Long extends MurmurHash3Values {
 
             private final SortedNumericDocValues values;
@@ -0,0 +1,427 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * A quantile sketch with relative-error guarantees, based on <a href="https://arxiv.org/abs/1908.10693">DDSketch</a>.
+ * <p>
+ * Values are counted in buckets whose boundaries grow exponentially, so that any value returned by {@link #quantile}
+ * is within {@code relativeAccuracy} of the actual value of that rank. Only the range of buckets that have been used
+ * is allocated, which keeps sketches of small or narrow sets of values tiny. If the values span more than
+ * {@link #MAX_BUCKETS} buckets, the lowest buckets are collapsed together: the accuracy guarantee then only holds for
+ * the higher quantiles, which are the ones that are usually of interest.
+ * <p>
+ * Sketches are fully mergeable: merging two sketches sums their bucket counts, so the result is exactly the sketch that
+ * would have been built from all values, regardless of the order of the merges.
+ */
+public final class DDSketchState implements Accountable {
+
+    /**
+     * The maximum number of buckets to track for each sign, 2048 buckets cover values from 1 to 1e17 with a relative
+     * accuracy of 1%.
+     */
+    public static final int MAX_BUCKETS = 2048;
+
+    private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(DDSketchState.class);
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double multiplier;
+    private final double minIndexableValue;
+    private final Store positive = new Store();
+    private final Store negative = new Store();
+    private long zeroCount;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public DDSketchState(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("[relative_accuracy] must be in (0, 1), got [" + relativeAccuracy + "]");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.multiplier = 1 / Math.log(gamma);
+        // smaller values are counted as zeros, they would map to the same bucket as subnormal values anyway
+        this.minIndexableValue = Double.MIN_NORMAL * gamma;
+    }
+
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Adds a value to the sketch.
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Cannot add NaN");
+        }
+        if (value >= minIndexableValue) {
+            positive.add(index(value), 1);
+        } else if (value <= -minIndexableValue) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Merges all values of the other sketch into this sketch.
+     */
+    public void add(DDSketchState other) {
+        if (relativeAccuracy != other.relativeAccuracy) {
+            throw new IllegalArgumentException(
+                "Cannot merge sketches with different relative accuracies [" + relativeAccuracy + "] and [" + other.relativeAccuracy + "]"
+            );
+        }
+        positive.add(other.positive);
+        negative.add(other.negative);
+        zeroCount += other.zeroCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * The number of values in the sketch.
+     */
+    public long size() {
+        return negative.total + zeroCount + positive.total;
+    }
+
+    /**
+     * Returns the approximate value at the given quantile, or {@link Double#NaN} if the sketch is empty.
+     *
+     * @param q a quantile between 0 and 1
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("q should be in [0,1], got " + q);
+        }
+        final long size = size();
+        if (size == 0) {
+            return Double.NaN;
+        }
+        // the extreme values are tracked exactly
+        if (q == 0) {
+            return min;
+        } else if (q == 1) {
+            return max;
+        }
+        final double rank = q * (size - 1);
+        long count = 0;
+        // negative values in increasing order are the ones of decreasing magnitude
+        for (int index = negative.maxIndex; index >= negative.minIndex; index--) {
+            count += negative.count(index);
+            if (count > rank) {
+                return clamp(-value(index));
+            }
+        }
+        count += zeroCount;
+        if (count > rank) {
+            return clamp(0);
+        }
+        for (int index = positive.minIndex; index <= positive.maxIndex; index++) {
+            count += positive.count(index);
+            if (count > rank) {
+                return clamp(value(index));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the approximate fraction of the values that are less than or equal to the given value, or {@link Double#NaN}
+     * if the sketch is empty.
+     */
+    public double cdf(double value) {
+        final long size = size();
+        if (size == 0) {
+            return Double.NaN;
+        }
+        if (value < min) {
+            return 0;
+        }
+        if (value >= max) {
+            return 1;
+        }
+        long count = 0;
+        for (int index = negative.maxIndex; index >= negative.minIndex; index--) {
+            if (-value(index) > value) {
+                return (double) count / size;
+            }
+            count += negative.count(index);
+        }
+        if (value < 0) {
+            return (double) count / size;
+        }
+        count += zeroCount;
+        for (int index = positive.minIndex; index <= positive.maxIndex; index++) {
+            if (value(index) > value) {
+                break;
+            }
+            count += positive.count(index);
+        }
+        return (double) count / size;
+    }
+
+    private int index(double value) {
+        final double index = Math.ceil(Math.log(value) * multiplier);
+        // keep some room so that iterating over indices never overflows
+        return (int) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE - 1, index));
+    }
+
+    /**
+     * The value that represents the bucket with the given index, which is at the same relative distance of both bounds
+     * of the bucket.
+     */
+    private double value(int index) {
+        final double upperBound = Math.exp(index / multiplier);
+        return 2 * upperBound / (1 + gamma);
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return SHALLOW_SIZE + positive.ramBytesUsed() + negative.ramBytesUsed();
+    }
+
+    public static void write(DDSketchState state, StreamOutput out) throws IOException {
+        out.writeDouble(state.relativeAccuracy);
+        out.writeVLong(state.zeroCount);
+        final boolean hasValues = state.size() > 0;
+        out.writeBoolean(hasValues);
+        if (hasValues) {
+            out.writeDouble(state.min);
+            out.writeDouble(state.max);
+        }
+        state.positive.writeTo(out);
+        state.negative.writeTo(out);
+    }
+
+    public static DDSketchState read(StreamInput in) throws IOException {
+        DDSketchState state = new DDSketchState(in.readDouble());
+        state.zeroCount = in.readVLong();
+        if (in.readBoolean()) {
+            state.min = in.readDouble();
+            state.max = in.readDouble();
+        }
+        state.positive.readFrom(in);
+        state.negative.readFrom(in);
+        return state;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        DDSketchState that = (DDSketchState) obj;
+        return relativeAccuracy == that.relativeAccuracy
+            && zeroCount == that.zeroCount
+            && Double.compare(min, that.min) == 0
+            && Double.compare(max, that.max) == 0
+            && positive.equals(that.positive)
+            && negative.equals(that.negative);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = getClass().hashCode();
+        h = 31 * h + Double.hashCode(relativeAccuracy);
+        h = 31 * h + Long.hashCode(zeroCount);
+        h = 31 * h + Double.hashCode(min);
+        h = 31 * h + Double.hashCode(max);
+        h = 31 * h + positive.hashCode();
+        h = 31 * h + negative.hashCode();
+        return h;
+    }
+
+    /**
+     * Dense counts of a contiguous range of bucket indices, that grows on demand and collapses its lowest buckets
+     * when the range would span more than {@link #MAX_BUCKETS} buckets.
+     */
+    private static final class Store {
+
+        private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(Store.class);
+        private static final long[] EMPTY = new long[0];
+
+        private long[] counts = EMPTY;
+        /** the bucket index of {@code counts[0]} */
+        private int offset;
+        /** the range of buckets that may be non-empty, only meaningful if {@code total > 0} */
+        private int minIndex = Integer.MAX_VALUE;
+        private int maxIndex = Integer.MIN_VALUE;
+        private long total;
+
+        long count(int index) {
+            return counts[index - offset];
+        }
+
+        void add(int index, long count) {
+            final int target = extendRange(index);
+            counts[target - offset] += count;
+            total += count;
+        }
+
+        void add(Store other) {
+            if (other.total == 0) {
+                return;
+            }
+            // adding from the lowest bucket collapses buckets the same way as if the values had been added one by one
+            for (int index = other.minIndex; index <= other.maxIndex; index++) {
+                final long count = other.count(index);
+                if (count > 0) {
+                    add(index, count);
+                }
+            }
+        }
+
+        /**
+         * Extends the tracked range to the given index and returns the index of the bucket that must count it, which
+         * is different from the given index if the bucket has been collapsed.
+         */
+        private int extendRange(int index) {
+            if (total == 0) {
+                minIndex = maxIndex = index;
+                ensureCapacity();
+                return index;
+            }
+            if (index < minIndex) {
+                if ((long) maxIndex - index + 1 > MAX_BUCKETS) {
+                    // the value is in the collapsed range, count it in the lowest bucket
+                    minIndex = maxIndex - MAX_BUCKETS + 1;
+                    ensureCapacity();
+                    return minIndex;
+                }
+                minIndex = index;
+                ensureCapacity();
+            } else if (index > maxIndex) {
+                if ((long) index - minIndex + 1 > MAX_BUCKETS) {
+                    final int newMinIndex = index - MAX_BUCKETS + 1;
+                    long collapsed = 0;
+                    for (int i = minIndex; i < newMinIndex && i <= maxIndex; i++) {
+                        collapsed += counts[i - offset];
+                        counts[i - offset] = 0;
+                    }
+                    minIndex = newMinIndex;
+                    maxIndex = index;
+                    ensureCapacity();
+                    counts[minIndex - offset] += collapsed;
+                } else {
+                    maxIndex = index;
+                    ensureCapacity();
+                }
+            }
+            return index;
+        }
+
+        private void ensureCapacity() {
+            if (minIndex >= offset && (long) maxIndex < (long) offset + counts.length) {
+                return;
+            }
+            final int length = maxIndex - minIndex + 1;
+            final int newLength = Math.max(length, Math.min(MAX_BUCKETS, ArrayUtil.oversize(length, Long.BYTES)));
+            // leave room on both sides since values may grow in either direction
+            final int newOffset = (int) Math.max(Integer.MIN_VALUE, (long) minIndex - (newLength - length) / 2);
+            final long[] newCounts = new long[newLength];
+            // all non-empty buckets are in [minIndex, maxIndex] so it is safe to drop the others
+            final long from = Math.max(offset, newOffset);
+            final long to = Math.min((long) offset + counts.length, (long) newOffset + newLength);
+            if (from < to) {
+                System.arraycopy(counts, (int) (from - offset), newCounts, (int) (from - newOffset), (int) (to - from));
+            }
+            counts = newCounts;
+            offset = newOffset;
+        }
+
+        long ramBytesUsed() {
+            return SHALLOW_SIZE + RamUsageEstimator.sizeOf(counts);
+        }
+
+        void writeTo(StreamOutput out) throws IOException {
+            if (total == 0) {
+                out.writeVInt(0);
+                return;
+            }
+            out.writeVInt(maxIndex - minIndex + 1);
+            out.writeZLong(minIndex);
+            for (int index = minIndex; index <= maxIndex; index++) {
+                out.writeVLong(count(index));
+            }
+        }
+
+        void readFrom(StreamInput in) throws IOException {
+            final int numBuckets = in.readVInt();
+            if (numBuckets == 0) {
+                return;
+            }
+            final int first = Math.toIntExact(in.readZLong());
+            for (int i = 0; i < numBuckets; i++) {
+                final long count = in.readVLong();
+                if (count > 0) {
+                    add(first + i, count);
+                }
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            Store that = (Store) obj;
+            if (total != that.total) {
+                return false;
+            }
+            if (total == 0) {
+                return true;
+            }
+            final int from = Math.min(minIndex, that.minIndex);
+            final int to = Math.max(maxIndex, that.maxIndex);
+            for (int index = from; index <= to; index++) {
+                if (countOrZero(index) != that.countOrZero(index)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long countOrZero(int index) {
+            return index < minIndex || index > maxIndex ? 0 : count(index);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = Long.hashCode(total);
+            if (total > 0) {
+                for (int index = minIndex; index <= maxIndex; index++) {
+                    final long count = count(index);
+                    if (count > 0) {
+                        h = 31 * h + index;
+                        h = 31 * h + Long.hashCode(count);
+                    }
+                }
+            }
+            return h;
+        }
+    }
+}
@@ -43,6 +43,14 @@ public class MetricInspectionHelper {
         return agg.aggregationsList().size() > 0;
     }
 
+    public static boolean hasValue(InternalDDSketchPercentileRanks agg) {
+        return agg.getState().size() > 0;
+    }
+
+    public static boolean hasValue(InternalDDSketchPercentiles agg) {
+        return agg.getState().size() > 0;
+    }
+
     public static boolean hasValue(InternalTDigestPercentileRanks agg) {
         return agg.getState().size() > 0;
     }
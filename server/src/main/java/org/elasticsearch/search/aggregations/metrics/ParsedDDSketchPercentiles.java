@@ -0,0 +1,58 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.elasticsearch.xcontent.ObjectParser;
+import org.elasticsearch.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.stream.Collectors;
+
+public class ParsedDDSketchPercentiles extends ParsedPercentiles implements Percentiles {
+
+    @Override
+    public String getType() {
+        return InternalDDSketchPercentiles.NAME;
+    }
+
+    @Override
+    public double percentile(double percent) {
+        return getPercentile(percent);
+    }
+
+    @Override
+    public String percentileAsString(double percent) {
+        return getPercentileAsString(percent);
+    }
+
+    @Override
+    public double value(String name) {
+        return percentile(Double.parseDouble(name));
+    }
+
+    @Override
+    public Iterable<String> valueNames() {
+        return percentiles.keySet().stream().map(d -> d.toString()).collect(Collectors.toList());
+    }
+
+    private static final ObjectParser<ParsedDDSketchPercentiles, Void> PARSER = new ObjectParser<>(
+        ParsedDDSketchPercentiles.class.getSimpleName(),
+        true,
+        ParsedDDSketchPercentiles::new
+    );
+    static {
+        ParsedPercentiles.declarePercentilesFields(PARSER);
+    }
+
+    public static ParsedDDSketchPercentiles fromXContent(XContentParser parser, String name) throws IOException {
+        ParsedDDSketchPercentiles aggregation = PARSER.parse(parser, null);
+        aggregation.setName(name);
+        return aggregation;
+    }
+}
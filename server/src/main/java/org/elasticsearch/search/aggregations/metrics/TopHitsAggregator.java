@@ -46,6 +46,7 @@ import org.elasticsearch.search.sort.SortAndFormats;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -156,12 +157,70 @@ class TopHitsAggregator extends MetricsAggregator {
         };
     }
 
+    /**
+     * Builds the hits of all the buckets that the shard returns with a single execution of the fetch phase. The hits are
+     * still fetched on the shard, before the coordinating node knows which buckets make it into the final response.
+     */
+    @Override
+    public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
+        if (owningBucketOrds.length == 1) {
+            return new InternalAggregation[] { buildAggregation(owningBucketOrds[0]) };
+        }
+        final TopDocsAndMaxScore[] topDocs = new TopDocsAndMaxScore[owningBucketOrds.length];
+        int numDocs = 0;
+        for (int ordIdx = 0; ordIdx < owningBucketOrds.length; ordIdx++) {
+            Collectors collectors = topDocsCollectors.get(owningBucketOrds[ordIdx]);
+            if (collectors != null) {
+                topDocs[ordIdx] = topDocs(collectors);
+                numDocs += topDocs[ordIdx].topDocs.scoreDocs.length;
+            }
+        }
+        final int[] docIdsToLoad = new int[numDocs];
+        int offset = 0;
+        for (TopDocsAndMaxScore bucketTopDocs : topDocs) {
+            if (bucketTopDocs != null) {
+                for (ScoreDoc scoreDoc : bucketTopDocs.topDocs.scoreDocs) {
+                    docIdsToLoad[offset++] = scoreDoc.doc;
+                }
+            }
+        }
+        final InternalAggregation[] results = new InternalAggregation[owningBucketOrds.length];
+        if (hasDuplicates(docIdsToLoad)) {
+            // documents that are in several buckets need a hit per bucket, fetch the buckets one by one
+            for (int ordIdx = 0; ordIdx < owningBucketOrds.length; ordIdx++) {
+                results[ordIdx] = topDocs[ordIdx] == null ? buildEmptyAggregation() : buildTopHits(topDocs[ordIdx]);
+            }
+            return results;
+        }
+        /*
+         * Fetch the hits of all buckets at once rather than bucket by bucket, the
+         * fetch phase has a fixed cost per execution to set up its sub phases and
+         * to visit the stored fields of every segment.
+         */
+        final SearchHit[] hits = fetch(docIdsToLoad);
+        offset = 0;
+        for (int ordIdx = 0; ordIdx < owningBucketOrds.length; ordIdx++) {
+            if (topDocs[ordIdx] == null) {
+                results[ordIdx] = buildEmptyAggregation();
+            } else {
+                final int length = topDocs[ordIdx].topDocs.scoreDocs.length;
+                results[ordIdx] = buildTopHits(topDocs[ordIdx], Arrays.copyOfRange(hits, offset, offset + length));
+                offset += length;
+            }
+        }
+        return results;
+    }
+
     @Override
     public InternalAggregation buildAggregation(long owningBucketOrdinal) throws IOException {
         Collectors collectors = topDocsCollectors.get(owningBucketOrdinal);
         if (collectors == null) {
             return buildEmptyAggregation();
         }
+        return buildTopHits(topDocs(collectors));
+    }
+
+    private TopDocsAndMaxScore topDocs(Collectors collectors) throws IOException {
         TopDocsCollector<?> topDocsCollector = collectors.topDocsCollector;
         TopDocs topDocs = topDocsCollector.topDocs();
         float maxScore = Float.NaN;
@@ -180,22 +239,32 @@ class TopHitsAggregator extends MetricsAggregator {
             TopFieldCollector.populateScores(topDocs.scoreDocs, subSearchContext.searcher(), subSearchContext.query());
             maxScore = collectors.maxScoreCollector.getMaxScore();
         }
-        final TopDocsAndMaxScore topDocsAndMaxScore = new TopDocsAndMaxScore(topDocs, maxScore);
-        subSearchContext.queryResult()
-            .topDocs(topDocsAndMaxScore, subSearchContext.sort() == null ? null : subSearchContext.sort().formats);
-        int[] docIdsToLoad = new int[topDocs.scoreDocs.length];
-        for (int i = 0; i < topDocs.scoreDocs.length; i++) {
-            docIdsToLoad[i] = topDocs.scoreDocs[i].doc;
+        return new TopDocsAndMaxScore(topDocs, maxScore);
+    }
+
+    private InternalTopHits buildTopHits(TopDocsAndMaxScore topDocsAndMaxScore) {
+        ScoreDoc[] scoreDocs = topDocsAndMaxScore.topDocs.scoreDocs;
+        int[] docIdsToLoad = new int[scoreDocs.length];
+        for (int i = 0; i < scoreDocs.length; i++) {
+            docIdsToLoad[i] = scoreDocs[i].doc;
         }
+        return buildTopHits(topDocsAndMaxScore, fetch(docIdsToLoad));
+    }
+
+    private SearchHit[] fetch(int[] docIdsToLoad) {
         subSearchContext.docIdsToLoad(docIdsToLoad, docIdsToLoad.length);
         subSearchContext.fetchPhase().execute(subSearchContext);
         FetchSearchResult fetchResult = subSearchContext.fetchResult();
         if (fetchProfiles != null) {
             fetchProfiles.add(fetchResult.profileResult());
         }
-        SearchHit[] internalHits = fetchResult.fetchResult().hits().getHits();
+        return fetchResult.fetchResult().hits().getHits();
+    }
+
+    private InternalTopHits buildTopHits(TopDocsAndMaxScore topDocsAndMaxScore, SearchHit[] internalHits) {
+        ScoreDoc[] scoreDocs = topDocsAndMaxScore.topDocs.scoreDocs;
         for (int i = 0; i < internalHits.length; i++) {
-            ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+            ScoreDoc scoreDoc = scoreDocs[i];
             SearchHit searchHitFields = internalHits[i];
             searchHitFields.shard(subSearchContext.shardTarget());
             searchHitFields.score(scoreDoc.score);
@@ -209,11 +278,22 @@ class TopHitsAggregator extends MetricsAggregator {
             subSearchContext.from(),
             subSearchContext.size(),
             topDocsAndMaxScore,
-            fetchResult.hits(),
+            new SearchHits(internalHits, topDocsAndMaxScore.topDocs.totalHits, topDocsAndMaxScore.maxScore),
             metadata()
         );
     }
 
+    private static boolean hasDuplicates(int[] docIds) {
+        int[] sorted = docIds.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] == sorted[i - 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public InternalTopHits buildEmptyAggregation() {
         TopDocs topDocs;
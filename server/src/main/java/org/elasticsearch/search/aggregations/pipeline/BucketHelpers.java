@@ -46,7 +46,7 @@ public class BucketHelpers {
     public enum GapPolicy implements Writeable {
         INSERT_ZEROS((byte) 0, "insert_zeros", false) {
             @Override
-            public Double processValue(long docCount, Double value) {
+            public double processValue(long docCount, double value) {
                 if (Double.isInfinite(value) || Double.isNaN(value) || docCount == 0) {
                     return 0.0;
                 } else {
@@ -57,7 +57,7 @@ public class BucketHelpers {
 
         SKIP((byte) 1, "skip", true) {
             @Override
-            public Double processValue(long docCount, Double value) {
+            public double processValue(long docCount, double value) {
                 if (Double.isInfinite(value) || docCount == 0) {
                     return Double.NaN;
                 } else {
@@ -67,7 +67,7 @@ public class BucketHelpers {
         },
 
         KEEP_VALUES((byte) 2, "keep_values", true) {
-            public Double processValue(long docCount, Double value) {
+            public double processValue(long docCount, double value) {
                 if (Double.isInfinite(value) || Double.isNaN(value)) {
                     return Double.NaN;
                 } else {
@@ -152,7 +152,7 @@ public class BucketHelpers {
             return parseField.getPreferredName();
         }
 
-        public abstract Double processValue(long docCount, Double value);
+        public abstract double processValue(long docCount, double value);
     }
 
     /**
@@ -194,33 +194,67 @@ public class BucketHelpers {
         GapPolicy gapPolicy
     ) {
         try {
-            Object propertyValue = bucket.getProperty(agg.getName(), aggPathAsList);
+            return resolvePrimitiveBucketValue(agg, bucket, aggPathAsList, gapPolicy);
+        } catch (InvalidAggregationPathException e) {
+            return null;
+        }
+    }
 
-            if (propertyValue == null) {
-                throw new AggregationExecutionException(
-                    AbstractPipelineAggregationBuilder.BUCKETS_PATH_FIELD.getPreferredName()
-                        + " must reference either a number value or a single value numeric metric aggregation"
-                );
-            } else {
-                double value;
-                if (propertyValue instanceof Number) {
-                    value = ((Number) propertyValue).doubleValue();
-                } else if (propertyValue instanceof InternalNumericMetricsAggregation.SingleValue) {
-                    value = ((InternalNumericMetricsAggregation.SingleValue) propertyValue).value();
-                } else {
-                    throw formatResolutionError(agg, aggPathAsList, propertyValue);
-                }
-                // doc count never has missing values so gap policy doesn't apply here
-                if (aggPathAsList.size() == 1 && "_count".equals(aggPathAsList.get(0))) {
-                    return value;
-                } else {
-                    return gapPolicy.processValue(bucket.getDocCount(), value);
-                }
+    private static double resolvePrimitiveBucketValue(
+        MultiBucketsAggregation agg,
+        InternalMultiBucketAggregation.InternalBucket bucket,
+        List<String> aggPathAsList,
+        GapPolicy gapPolicy
+    ) {
+        Object propertyValue = bucket.getProperty(agg.getName(), aggPathAsList);
+
+        if (propertyValue == null) {
+            throw new AggregationExecutionException(
+                AbstractPipelineAggregationBuilder.BUCKETS_PATH_FIELD.getPreferredName()
+                    + " must reference either a number value or a single value numeric metric aggregation"
+            );
+        }
+        double value;
+        if (propertyValue instanceof Number) {
+            value = ((Number) propertyValue).doubleValue();
+        } else if (propertyValue instanceof InternalNumericMetricsAggregation.SingleValue) {
+            value = ((InternalNumericMetricsAggregation.SingleValue) propertyValue).value();
+        } else {
+            throw formatResolutionError(agg, aggPathAsList, propertyValue);
+        }
+        // doc count never has missing values so gap policy doesn't apply here
+        if (aggPathAsList.size() == 1 && "_count".equals(aggPathAsList.get(0))) {
+            return value;
+        } else {
+            return gapPolicy.processValue(bucket.getDocCount(), value);
+        }
+    }
 
+    /**
+     * Resolves the value at <code>aggPath</code> for all <code>buckets</code> at once, parsing the path a single time
+     * and returning the values as a primitive array, so that pipeline aggregations that walk over many buckets can
+     * work on the array rather than on boxed values. The value at index <code>i</code> is the value of the bucket at
+     * index <code>i</code>, or {@link Double#NaN} if the path couldn't be resolved for that bucket, which is how
+     * {@link #resolveBucketValue} results are usually treated.
+     */
+    public static double[] resolveBucketValues(
+        MultiBucketsAggregation agg,
+        List<? extends InternalMultiBucketAggregation.InternalBucket> buckets,
+        String aggPath,
+        GapPolicy gapPolicy
+    ) {
+        List<String> aggPathsList = AggregationPath.parse(aggPath).getPathElementsAsStringList();
+        double[] values = new double[buckets.size()];
+        int i = 0;
+        for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
+            try {
+                values[i] = resolvePrimitiveBucketValue(agg, bucket, aggPathsList, gapPolicy);
+            } catch (InvalidAggregationPathException e) {
+                values[i] = Double.NaN;
             }
-        } catch (InvalidAggregationPathException e) {
-            return null;
+            i++;
         }
+        return values;
     }
 
     /**
@@ -26,7 +26,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
-import static org.elasticsearch.search.aggregations.pipeline.BucketHelpers.resolveBucketValue;
+import static org.elasticsearch.search.aggregations.pipeline.BucketHelpers.resolveBucketValues;
 
 public class CumulativeSumPipelineAggregator extends PipelineAggregator {
     private final DocValueFormat formatter;
@@ -65,13 +65,14 @@ public class CumulativeSumPipelineAggregator extends PipelineAggregator {
         List<? extends InternalMultiBucketAggregation.InternalBucket> buckets = histo.getBuckets();
         HistogramFactory factory = (HistogramFactory) histo;
         List<Bucket> newBuckets = new ArrayList<>(buckets.size());
+        double[] values = resolveBucketValues(histo, buckets, bucketsPaths()[0], GapPolicy.INSERT_ZEROS);
         double sum = 0;
-        for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
-            Double thisBucketValue = resolveBucketValue(histo, bucket, bucketsPaths()[0], GapPolicy.INSERT_ZEROS);
+        for (int i = 0; i < buckets.size(); i++) {
+            InternalMultiBucketAggregation.InternalBucket bucket = buckets.get(i);
 
             // Only increment the sum if it's a finite value, otherwise "increment by zero" is correct
-            if (thisBucketValue != null && thisBucketValue.isInfinite() == false && thisBucketValue.isNaN() == false) {
-                sum += thisBucketValue;
+            if (Double.isFinite(values[i])) {
+                sum += values[i];
             }
 
             List<InternalAggregation> aggs = StreamSupport.stream(bucket.getAggregations().spliterator(), false)
@@ -18,6 +18,7 @@ import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation.Bucket;
 import org.elasticsearch.search.aggregations.bucket.histogram.HistogramFactory;
 import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.support.AggregationPath;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -80,12 +81,14 @@ public class DerivativePipelineAggregator extends PipelineAggregator {
         List<? extends InternalMultiBucketAggregation.InternalBucket> buckets = histo.getBuckets();
         HistogramFactory factory = (HistogramFactory) histo;
 
-        List<Bucket> newBuckets = new ArrayList<>();
+        List<Bucket> newBuckets = new ArrayList<>(buckets.size());
+        // Unlike most other parent pipelines, unresolvable paths (null) and gaps (NaN) behave differently here
+        List<String> bucketsPath = AggregationPath.parse(bucketsPaths()[0]).getPathElementsAsStringList();
         Number lastBucketKey = null;
         Double lastBucketValue = null;
         for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
             Number thisBucketKey = factory.getKey(bucket);
-            Double thisBucketValue = resolveBucketValue(histo, bucket, bucketsPaths()[0], gapPolicy);
+            Double thisBucketValue = resolveBucketValue(histo, bucket, bucketsPath, gapPolicy);
             if (lastBucketValue != null && thisBucketValue != null) {
                 double gradient = thisBucketValue - lastBucketValue;
                 double xDiff = -1;
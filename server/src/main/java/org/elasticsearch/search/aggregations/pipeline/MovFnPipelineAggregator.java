@@ -21,13 +21,14 @@ import org.elasticsearch.search.aggregations.bucket.histogram.HistogramFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
-import static org.elasticsearch.search.aggregations.pipeline.BucketHelpers.resolveBucketValue;
+import static org.elasticsearch.search.aggregations.pipeline.BucketHelpers.resolveBucketValues;
 
 /**
  * This pipeline aggregation gives the user the ability to script functions that "move" across a window
@@ -115,7 +116,7 @@ public class MovFnPipelineAggregator extends PipelineAggregator {
         List<? extends InternalMultiBucketAggregation.InternalBucket> buckets = histo.getBuckets();
         HistogramFactory factory = (HistogramFactory) histo;
 
-        List<MultiBucketsAggregation.Bucket> newBuckets = new ArrayList<>();
+        List<MultiBucketsAggregation.Bucket> newBuckets = new ArrayList<>(buckets.size());
 
         // Initialize the script
         MovingFunctionScript.Factory scriptFactory = reduceContext.scriptService().compile(script, MovingFunctionScript.CONTEXT);
@@ -126,29 +127,32 @@ public class MovFnPipelineAggregator extends PipelineAggregator {
 
         MovingFunctionScript executableScript = scriptFactory.newInstance();
 
-        List<Double> values = buckets.stream()
-            .map(b -> resolveBucketValue(histo, b, bucketsPaths()[0], gapPolicy))
-            .filter(v -> v != null && v.isNaN() == false)
-            .collect(Collectors.toList());
+        double[] bucketValues = resolveBucketValues(histo, buckets, bucketsPaths()[0], gapPolicy);
+        // The values of the buckets that have one, in bucket order, which the windows are taken from
+        double[] values = new double[bucketValues.length];
+        int numValues = 0;
+        for (double value : bucketValues) {
+            if (Double.isNaN(value) == false) {
+                values[numValues++] = value;
+            }
+        }
 
         int index = 0;
-        for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
-            Double thisBucketValue = resolveBucketValue(histo, bucket, bucketsPaths()[0], gapPolicy);
+        for (int i = 0; i < buckets.size(); i++) {
+            InternalMultiBucketAggregation.InternalBucket bucket = buckets.get(i);
+            double thisBucketValue = bucketValues[i];
 
             // Default is to reuse existing bucket. Simplifies the rest of the logic,
             // since we only change newBucket if we can add to it
             MultiBucketsAggregation.Bucket newBucket = bucket;
 
-            if (thisBucketValue != null && thisBucketValue.isNaN() == false) {
+            if (Double.isNaN(thisBucketValue) == false) {
 
                 // The custom context mandates that the script returns a double (not Double) so we
                 // don't need null checks, etc.
-                int fromIndex = clamp(index - window + shift, values);
-                int toIndex = clamp(index + shift, values);
-                double movavg = executableScript.execute(
-                    vars,
-                    values.subList(fromIndex, toIndex).stream().mapToDouble(Double::doubleValue).toArray()
-                );
+                int fromIndex = clamp(index - window + shift, numValues);
+                int toIndex = clamp(index + shift, numValues);
+                double movavg = executableScript.execute(vars, Arrays.copyOfRange(values, fromIndex, toIndex));
 
                 List<InternalAggregation> aggs = StreamSupport.stream(bucket.getAggregations().spliterator(), false)
                     .map(InternalAggregation.class::cast)
@@ -163,12 +167,12 @@ public class MovFnPipelineAggregator extends PipelineAggregator {
         return factory.createAggregation(newBuckets);
     }
 
-    private int clamp(int index, List<Double> list) {
+    private static int clamp(int index, int size) {
         if (index < 0) {
             return 0;
         }
-        if (index > list.size()) {
-            return list.size();
+        if (index > size) {
+            return size;
         }
         return index;
     }
@@ -8,7 +8,6 @@
 
 package org.elasticsearch.search.aggregations.pipeline;
 
-import org.elasticsearch.common.collect.EvictingQueue;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.core.Nullable;
@@ -28,7 +27,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
-import static org.elasticsearch.search.aggregations.pipeline.BucketHelpers.resolveBucketValue;
+import static org.elasticsearch.search.aggregations.pipeline.BucketHelpers.resolveBucketValues;
 
 public class SerialDiffPipelineAggregator extends PipelineAggregator {
     private DocValueFormat formatter;
@@ -82,28 +81,17 @@ public class SerialDiffPipelineAggregator extends PipelineAggregator {
         List<? extends InternalMultiBucketAggregation.InternalBucket> buckets = histo.getBuckets();
         HistogramFactory factory = (HistogramFactory) histo;
 
-        List<Bucket> newBuckets = new ArrayList<>();
-        EvictingQueue<Double> lagWindow = new EvictingQueue<>(lag);
-        int counter = 0;
+        List<Bucket> newBuckets = new ArrayList<>(buckets.size());
+        // Unresolved values are NaN, like empty buckets
+        double[] values = resolveBucketValues(histo, buckets, bucketsPaths()[0], gapPolicy);
 
-        for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
-            Double thisBucketValue = resolveBucketValue(histo, bucket, bucketsPaths()[0], gapPolicy);
+        for (int i = 0; i < buckets.size(); i++) {
+            InternalMultiBucketAggregation.InternalBucket bucket = buckets.get(i);
+            double thisBucketValue = values[i];
             Bucket newBucket = bucket;
 
-            counter += 1;
-
             // Still under the initial lag period, add nothing and move on
-            Double lagValue;
-            if (counter <= lag) {
-                lagValue = Double.NaN;
-            } else {
-                lagValue = lagWindow.peek();  // Peek here, because we rely on add'ing to always move the window
-            }
-
-            // Normalize null's to NaN
-            if (thisBucketValue == null) {
-                thisBucketValue = Double.NaN;
-            }
+            double lagValue = i < lag ? Double.NaN : values[i - lag];
 
             // Both have values, calculate diff and replace the "empty" bucket
             if (Double.isNaN(thisBucketValue) == false && Double.isNaN(lagValue) == false) {
@@ -117,7 +105,6 @@ public class SerialDiffPipelineAggregator extends PipelineAggregator {
             }
 
             newBuckets.add(newBucket);
-            lagWindow.add(thisBucketValue);
         }
         return factory.createAggregation(newBuckets);
     }
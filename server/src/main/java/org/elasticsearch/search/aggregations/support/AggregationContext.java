@@ -30,11 +30,13 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.index.query.support.NestedScope;
+import org.elasticsearch.indices.IndicesBackgroundFrequencyCache;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptContext;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.bucket.filter.FilterByFilterAggregator;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.SubSearchContext;
 import org.elasticsearch.search.lookup.SearchLookup;
 import org.elasticsearch.search.profile.aggregation.AggregationProfiler;
@@ -46,6 +48,7 @@ import org.elasticsearch.search.sort.SortBuilder;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
@@ -285,6 +288,30 @@ public abstract class AggregationContext implements Releasable {
      */
     public abstract boolean enableRewriteToFilterByFilter();
 
+    /**
+     * The {@link ReaderContext} of the search if it is kept open for the
+     * following requests, like searches that use a point in time, and
+     * {@code null} if the reader is released at the end of the request.
+     * Aggregations may keep state in the reader context that later requests
+     * on the same reader can reuse.
+     */
+    @Nullable
+    public abstract ReaderContext readerContext();
+
+    /**
+     * The runtime fields defined in the search request, as they were parsed
+     * from the request body.
+     */
+    public abstract Map<String, Object> runtimeMappings();
+
+    /**
+     * The node level cache of the background frequencies looked up by the
+     * {@code significant_terms} and {@code significant_text} aggregations,
+     * or {@code null} if frequencies shouldn't be cached.
+     */
+    @Nullable
+    public abstract IndicesBackgroundFrequencyCache backgroundFrequencyCache();
+
     /**
      * Implementation of {@linkplain AggregationContext} for production usage
      * that wraps our ubiquitous {@link SearchExecutionContext} and anything else
@@ -307,6 +334,9 @@ public abstract class AggregationContext implements Releasable {
         private final Function<Query, Query> filterQuery;
         private final boolean enableRewriteToFilterByFilter;
         private final AnalysisRegistry analysisRegistry;
+        private final ReaderContext readerContext;
+        private final Map<String, Object> runtimeMappings;
+        private final IndicesBackgroundFrequencyCache backgroundFrequencyCache;
 
         private final List<Aggregator> releaseMe = new ArrayList<>();
 
@@ -324,7 +354,10 @@ public abstract class AggregationContext implements Releasable {
             LongSupplier relativeTimeInMillis,
             Supplier<Boolean> isCancelled,
             Function<Query, Query> filterQuery,
-            boolean enableRewriteToFilterByFilter
+            boolean enableRewriteToFilterByFilter,
+            @Nullable ReaderContext readerContext,
+            Map<String, Object> runtimeMappings,
+            @Nullable IndicesBackgroundFrequencyCache backgroundFrequencyCache
         ) {
             this.analysisRegistry = analysisRegistry;
             this.context = context;
@@ -357,6 +390,9 @@ public abstract class AggregationContext implements Releasable {
             this.isCancelled = isCancelled;
             this.filterQuery = filterQuery;
             this.enableRewriteToFilterByFilter = enableRewriteToFilterByFilter;
+            this.readerContext = readerContext;
+            this.runtimeMappings = runtimeMappings;
+            this.backgroundFrequencyCache = backgroundFrequencyCache;
         }
 
         @Override
@@ -539,6 +575,21 @@ public abstract class AggregationContext implements Releasable {
             return enableRewriteToFilterByFilter;
         }
 
+        @Override
+        public ReaderContext readerContext() {
+            return readerContext;
+        }
+
+        @Override
+        public Map<String, Object> runtimeMappings() {
+            return runtimeMappings;
+        }
+
+        @Override
+        public IndicesBackgroundFrequencyCache backgroundFrequencyCache() {
+            return backgroundFrequencyCache;
+        }
+
         @Override
         public void close() {
             /*
@@ -29,6 +29,8 @@ import org.elasticsearch.search.aggregations.bucket.terms.UnmappedSignificantTer
 import org.elasticsearch.search.aggregations.bucket.terms.UnmappedTerms;
 import org.elasticsearch.search.aggregations.metrics.InternalAvg;
 import org.elasticsearch.search.aggregations.metrics.InternalCardinality;
+import org.elasticsearch.search.aggregations.metrics.InternalDDSketchPercentileRanks;
+import org.elasticsearch.search.aggregations.metrics.InternalDDSketchPercentiles;
 import org.elasticsearch.search.aggregations.metrics.InternalExtendedStats;
 import org.elasticsearch.search.aggregations.metrics.InternalGeoBounds;
 import org.elasticsearch.search.aggregations.metrics.InternalGeoCentroid;
@@ -199,6 +201,14 @@ public class AggregationInspectionHelper {
         return agg.getCount() > 0;
     }
 
+    public static boolean hasValue(InternalDDSketchPercentileRanks agg) {
+        return MetricInspectionHelper.hasValue(agg);
+    }
+
+    public static boolean hasValue(InternalDDSketchPercentiles agg) {
+        return MetricInspectionHelper.hasValue(agg);
+    }
+
     public static boolean hasValue(InternalTDigestPercentileRanks agg) {
         return MetricInspectionHelper.hasValue(agg);
     }
@@ -293,12 +293,11 @@ public abstract class ValuesSource {
                 @Override
                 public LongUnaryOperator globalOrdinalsMapping(LeafReaderContext context) throws IOException {
                     final IndexOrdinalsFieldData global = indexFieldData.loadGlobal((DirectoryReader) context.parent.reader());
-                    final OrdinalMap map = global.getOrdinalMap();
-                    if (map == null) {
+                    final org.apache.lucene.util.LongValues segmentToGlobalOrd = global.getGlobalOrdinalsMapping(context.ord);
+                    if (segmentToGlobalOrd == null) {
                         // segments and global ordinals are the same
                         return LongUnaryOperator.identity();
                     }
-                    final org.apache.lucene.util.LongValues segmentToGlobalOrd = map.getGlobalOrds(context.ord);
                     return segmentToGlobalOrd::get;
                 }
             }
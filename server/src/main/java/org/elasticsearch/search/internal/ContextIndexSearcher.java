@@ -92,6 +92,14 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         this.profiler = profiler;
     }
 
+    /**
+     * Whether the queries that this searcher runs are profiled, so that their weights know whether to measure the time of
+     * the phases that they report as debug information.
+     */
+    public boolean isProfiling() {
+        return profiler != null;
+    }
+
     /**
      * Add a {@link Runnable} that will be run on a regular basis while accessing documents in the
      * DirectoryReader but also while collecting them and check for query cancellation or timeout.
@@ -121,6 +129,14 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         return this.cancellable.isEnabled();
     }
 
+    /**
+     * Throws if the search was cancelled. Queries that search the index on their own when they are rewritten, rather than
+     * through the readers and collectors of this searcher, call it regularly so that they can be cancelled too.
+     */
+    public void checkCancelled() {
+        this.cancellable.checkCancelled();
+    }
+
     public void setAggregatedDfs(AggregatedDfs aggregatedDfs) {
         this.aggregatedDfs = aggregatedDfs;
     }
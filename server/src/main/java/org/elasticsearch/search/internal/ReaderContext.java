@@ -172,21 +172,25 @@ public class ReaderContext implements Releasable {
 
     /**
      * Returns the object or <code>null</code> if the given key does not have a
-     * value in the context
+     * value in the context. Readers that are not single session may be used by
+     * concurrent requests, so access to the context is synchronized.
      */
     @SuppressWarnings("unchecked") // (T)object
-    public <T> T getFromContext(String key) {
+    public synchronized <T> T getFromContext(String key) {
         return context != null ? (T) context.get(key) : null;
     }
 
     /**
-     * Puts the object into the context
+     * Puts the object into the context and returns the object that was
+     * previously stored under the given key, or <code>null</code> if there
+     * was none.
      */
-    public void putInContext(String key, Object value) {
+    @SuppressWarnings("unchecked") // (T)object
+    public synchronized <T> T putInContext(String key, Object value) {
         if (context == null) {
             context = new HashMap<>();
         }
-        context.put(key, value);
+        return (T) context.put(key, value);
     }
 
     public long getStartTimeInNano() {
@@ -42,6 +42,7 @@ public class SearchLookup {
     private final SourceLookup sourceLookup;
     private final Function<String, MappedFieldType> fieldTypeLookup;
     private final BiFunction<MappedFieldType, Supplier<SearchLookup>, IndexFieldData<?>> fieldDataLookup;
+    private final boolean mappedRuntimeFieldsOnly;
 
     /**
      * Create the top level field lookup for a search request. Provides a way to look up fields from  doc_values,
@@ -50,11 +51,25 @@ public class SearchLookup {
     public SearchLookup(
         Function<String, MappedFieldType> fieldTypeLookup,
         BiFunction<MappedFieldType, Supplier<SearchLookup>, IndexFieldData<?>> fieldDataLookup
+    ) {
+        this(fieldTypeLookup, fieldDataLookup, false);
+    }
+
+    /**
+     * Create the top level field lookup for a search request. Provides a way to look up fields from  doc_values,
+     * stored fields, or _source.
+     * @param mappedRuntimeFieldsOnly whether all runtime fields that can be looked up are defined in the mapping
+     */
+    public SearchLookup(
+        Function<String, MappedFieldType> fieldTypeLookup,
+        BiFunction<MappedFieldType, Supplier<SearchLookup>, IndexFieldData<?>> fieldDataLookup,
+        boolean mappedRuntimeFieldsOnly
     ) {
         this.fieldTypeLookup = fieldTypeLookup;
         this.fieldChain = Collections.emptySet();
         this.sourceLookup = new SourceLookup();
         this.fieldDataLookup = fieldDataLookup;
+        this.mappedRuntimeFieldsOnly = mappedRuntimeFieldsOnly;
     }
 
     /**
@@ -69,6 +84,7 @@ public class SearchLookup {
         this.sourceLookup = searchLookup.sourceLookup;
         this.fieldTypeLookup = searchLookup.fieldTypeLookup;
         this.fieldDataLookup = searchLookup.fieldDataLookup;
+        this.mappedRuntimeFieldsOnly = searchLookup.mappedRuntimeFieldsOnly;
     }
 
     /**
@@ -109,6 +125,15 @@ public class SearchLookup {
         return fieldDataLookup.apply(fieldType, () -> forkAndTrackFieldReferences(fieldType.name()));
     }
 
+    /**
+     * Whether all runtime fields that can be looked up are defined in the mapping, which isn't the case when the search
+     * request defines runtime fields of its own. The values of a runtime field with a deterministic script then only depend
+     * on the documents and on the mapping.
+     */
+    public boolean mappedRuntimeFieldsOnly() {
+        return mappedRuntimeFieldsOnly;
+    }
+
     public SourceLookup source() {
         return sourceLookup;
     }
@@ -0,0 +1,27 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.profile.query;
+
+import org.apache.lucene.search.Weight;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link Weight} that reports extra debugging information about its execution, like the time spent in its internal
+ * phases. The information is added to the {@code debug} section of the profile results of its query.
+ */
+public interface DebugInfoProvider {
+
+    /**
+     * Collect debug information to add to the profiling results. This will
+     * only be called when the profiling results are built, after the query
+     * has been executed.
+     */
+    void collectDebugInfo(BiConsumer<String, Object> add);
+}
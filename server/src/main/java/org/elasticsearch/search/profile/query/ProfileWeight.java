@@ -35,6 +35,9 @@ public final class ProfileWeight extends Weight {
         super(query);
         this.subQueryWeight = subQueryWeight;
         this.profile = profile;
+        if (subQueryWeight instanceof DebugInfoProvider) {
+            profile.setDebugInfoProvider((DebugInfoProvider) subQueryWeight);
+        }
     }
 
     @Override
@@ -10,6 +10,12 @@ package org.elasticsearch.search.profile.query;
 
 import org.elasticsearch.search.profile.AbstractProfileBreakdown;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
+
 /**
  * A record of timings for the various operations that may happen during query execution.
  * A node's time may be composed of several internal attributes (rewriting, weighting,
@@ -17,8 +23,30 @@ import org.elasticsearch.search.profile.AbstractProfileBreakdown;
  */
 public final class QueryProfileBreakdown extends AbstractProfileBreakdown<QueryTimingType> {
 
+    private DebugInfoProvider debugInfoProvider;
+
     /** Sole constructor. */
     public QueryProfileBreakdown() {
         super(QueryTimingType.class);
     }
+
+    /**
+     * Sets the weight that reports extra debugging information about the execution of the query.
+     */
+    public void setDebugInfoProvider(DebugInfoProvider debugInfoProvider) {
+        this.debugInfoProvider = debugInfoProvider;
+    }
+
+    @Override
+    protected Map<String, Object> toDebugMap() {
+        if (debugInfoProvider == null) {
+            return emptyMap();
+        }
+        Map<String, Object> debug = new HashMap<>();
+        debugInfoProvider.collectDebugInfo((key, value) -> {
+            Object old = debug.put(key, value);
+            assert old == null : "debug info duplicate key [" + key + "] was [" + old + "] is [" + value + "]";
+        });
+        return unmodifiableMap(debug);
+    }
 }
@@ -69,6 +69,7 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.indices.SystemDataStreamDescriptor;
 import org.elasticsearch.indices.SystemIndices;
 import org.elasticsearch.repositories.FinalizeSnapshotContext;
@@ -139,6 +140,10 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
     // TODO: Update to 7.16 after backporting
     public static final Version FILE_INFO_WRITER_UUIDS_IN_SHARD_DATA_VERSION = Version.CURRENT;
 
+    public static final Version BLOCK_DEDUPLICATION_VERSION = BlobStoreIndexShardSnapshot.FileInfo.BLOCKS_VERSION;
+
+    public static final Version PARTITIONED_REPO_DATA_VERSION = Version.V_7_16_3;
+
     public static final Version OLD_SNAPSHOT_FORMAT = Version.V_7_5_0;
 
     public static final Version MULTI_DELETE_VERSION = Version.V_7_8_0;
@@ -3007,6 +3012,20 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
         return repositoryMetaVersion.onOrAfter(FILE_INFO_WRITER_UUIDS_IN_SHARD_DATA_VERSION);
     }
 
+    /**
+     * Checks whether the metadata version supports splitting files into deduplicated blocks.
+     *
+     * @param repositoryMetaVersion version to check
+     * @return true if version supports files stored in blocks
+     */
+    public static boolean useBlockDeduplication(Version repositoryMetaVersion) {
+        return repositoryMetaVersion.onOrAfter(BLOCK_DEDUPLICATION_VERSION);
+    }
+
+    public static boolean usePartitionedRepositoryData(Version repositoryMetaVersion) {
+        return repositoryMetaVersion.onOrAfter(PARTITIONED_REPO_DATA_VERSION);
+    }
+
     /** Deletes snapshot from repository
      *
      * @param deleteEntry       delete entry in cluster state
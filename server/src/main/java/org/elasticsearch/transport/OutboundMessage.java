@@ -11,6 +11,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -18,8 +19,11 @@ import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.Tuple;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 abstract class OutboundMessage extends NetworkMessage {
@@ -53,7 +57,9 @@ abstract class OutboundMessage extends NetworkMessage {
         }
 
         final boolean compress = TransportStatus.isCompress(status);
-        final StreamOutput stream = compress ? wrapCompressed(bytesStream) : bytesStream;
+        // file regions can only be sent as they are if the message isn't compressed, otherwise their bytes are copied into the stream
+        final FileRegionSplicingStreamOutput splicingStream = compress ? null : new FileRegionSplicingStreamOutput(bytesStream);
+        final StreamOutput stream = compress ? wrapCompressed(bytesStream) : splicingStream;
         final BytesReference zeroCopyBuffer;
         try {
             stream.setVersion(version);
@@ -82,7 +88,7 @@ abstract class OutboundMessage extends NetworkMessage {
                 stream.close();
             }
         }
-        final BytesReference message = bytesStream.bytes();
+        final BytesReference message = compress ? bytesStream.bytes() : splicingStream.bytes();
         if (zeroCopyBuffer.length() == 0) {
             reference = message;
         } else {
@@ -111,6 +117,71 @@ abstract class OutboundMessage extends NetworkMessage {
         threadContext.writeTo(stream);
     }
 
+    /**
+     * Writes through to the underlying bytes stream, except for {@link FileRegionBytesReference} instances whose bytes are not copied
+     * but spliced into the serialized message so that the transport can send them straight from the file.
+     */
+    private static final class FileRegionSplicingStreamOutput extends StreamOutput implements FileRegionBytesReference.FileRegionOutput {
+
+        private final BytesStreamOutput delegate;
+        private final List<Tuple<Integer, FileRegionBytesReference>> fileRegions = new ArrayList<>();
+
+        FileRegionSplicingStreamOutput(BytesStreamOutput delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void writeFileRegion(FileRegionBytesReference fileRegion) {
+            if (fileRegion.length() > 0) {
+                fileRegions.add(Tuple.tuple(Math.toIntExact(delegate.position()), fileRegion));
+            }
+        }
+
+        @Override
+        public void writeByte(byte b) {
+            delegate.writeByte(b);
+        }
+
+        @Override
+        public void writeBytes(byte[] b, int offset, int length) {
+            delegate.writeBytes(b, offset, length);
+        }
+
+        @Override
+        public long position() {
+            return delegate.position();
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+
+        @Override
+        public void reset() {
+            delegate.reset();
+            fileRegions.clear();
+        }
+
+        BytesReference bytes() {
+            final BytesReference bytes = delegate.bytes();
+            if (fileRegions.isEmpty()) {
+                return bytes;
+            }
+            final BytesReference[] references = new BytesReference[fileRegions.size() * 2 + 1];
+            int index = 0;
+            int offset = 0;
+            for (Tuple<Integer, FileRegionBytesReference> fileRegion : fileRegions) {
+                references[index++] = bytes.slice(offset, fileRegion.v1() - offset);
+                references[index++] = fileRegion.v2();
+                offset = fileRegion.v1();
+            }
+            references[index] = bytes.slice(offset, bytes.length() - offset);
+            return CompositeBytesReference.of(references);
+        }
+    }
+
     static class Request extends OutboundMessage {
 
         private final String[] features;
@@ -55,6 +55,14 @@ public interface TcpChannel extends CloseableChannel {
      */
     void sendMessage(BytesReference reference, ActionListener<Void> listener);
 
+    /**
+     * Indicates if this channel sends the {@link org.elasticsearch.common.bytes.FileRegionBytesReference}s of the messages straight from
+     * their files. Channels that do not, e.g. because they encrypt the bytes they send, read the file regions into memory instead.
+     */
+    default boolean supportsFileRegions() {
+        return false;
+    }
+
     /**
      * Adds a listener that will be executed when the channel is connected. If the channel is still
      * unconnected when this listener is added, the listener will be executed by the thread that eventually
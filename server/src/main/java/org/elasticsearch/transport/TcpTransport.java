@@ -244,6 +244,12 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             return channels;
         }
 
+        @Override
+        public boolean supportsFileRegions() {
+            // file regions are read into memory to compress the messages that contain them
+            return compress != Compression.Enabled.TRUE && channels.stream().allMatch(TcpChannel::supportsFileRegions);
+        }
+
         public TcpChannel channel(TransportRequestOptions.Type type) {
             ConnectionProfile.ConnectionTypeHandle connectionTypeHandle = typeMapping.get(type);
             if (connectionTypeHandle == null) {
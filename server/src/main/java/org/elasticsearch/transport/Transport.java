@@ -125,6 +125,15 @@ public interface Transport extends LifecycleComponent {
             return this;
         }
 
+        /**
+         * Indicates if this connection sends the {@link org.elasticsearch.common.bytes.FileRegionBytesReference}s of the requests straight
+         * from their files, in which case senders may prefer them to buffers they would have to read the files into. Delegating
+         * subclasses must delegate method call to the original connection.
+         */
+        default boolean supportsFileRegions() {
+            return false;
+        }
+
         @Override
         void close();
 
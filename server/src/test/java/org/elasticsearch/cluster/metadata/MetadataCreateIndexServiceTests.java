@@ -1431,6 +1431,59 @@ public class MetadataCreateIndexServiceTests extends ESTestCase {
         );
     }
 
+    public void testValidateDocValuesSkipIndexSetting() {
+        request = new CreateIndexClusterStateUpdateRequest("create index", "test", "test");
+        final Version indexVersionCreated = VersionUtils.randomVersionBetween(
+            random(),
+            Version.V_7_0_0,
+            VersionUtils.getPreviousVersion(Version.V_7_16_3)
+        );
+        request.settings(
+            Settings.builder()
+                .put(IndexMetadata.SETTING_VERSION_CREATED, indexVersionCreated)
+                .put(IndexSettings.INDEX_DOC_VALUES_SKIP_INDEX_SETTING.getKey(), true)
+                .build()
+        );
+        final IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> aggregateIndexSettings(
+                ClusterState.EMPTY_STATE,
+                request,
+                Settings.EMPTY,
+                null,
+                Settings.EMPTY,
+                IndexScopedSettings.DEFAULT_SCOPED_SETTINGS,
+                randomShardLimitService(),
+                Collections.emptySet(),
+                randomBoolean()
+            )
+        );
+        assertThat(
+            e.getMessage(),
+            equalTo(
+                "[index.doc_values.skip_index] requires all nodes of the cluster to be on version ["
+                    + Version.V_7_16_3
+                    + "] or later but the index is created with version ["
+                    + indexVersionCreated
+                    + "]"
+            )
+        );
+
+        request.settings(Settings.builder().put(IndexSettings.INDEX_DOC_VALUES_SKIP_INDEX_SETTING.getKey(), true).build());
+        final Settings indexSettings = aggregateIndexSettings(
+            ClusterState.EMPTY_STATE,
+            request,
+            Settings.EMPTY,
+            null,
+            Settings.EMPTY,
+            IndexScopedSettings.DEFAULT_SCOPED_SETTINGS,
+            randomShardLimitService(),
+            Collections.emptySet(),
+            randomBoolean()
+        );
+        assertTrue(IndexSettings.INDEX_DOC_VALUES_SKIP_INDEX_SETTING.get(indexSettings));
+    }
+
     private IndexTemplateMetadata addMatchingTemplate(Consumer<IndexTemplateMetadata.Builder> configurator) {
         IndexTemplateMetadata.Builder builder = templateMetadataBuilder("template1", "te*");
         configurator.accept(builder);
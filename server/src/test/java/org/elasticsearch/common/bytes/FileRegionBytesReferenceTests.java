@@ -0,0 +1,88 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.bytes;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class FileRegionBytesReferenceTests extends AbstractBytesReferenceTestCase {
+
+    @Override
+    protected BytesReference newBytesReference(int length) throws IOException {
+        return newFileRegion(randomIntBetween(0, PAGE_SIZE), length);
+    }
+
+    @Override
+    protected BytesReference newBytesReferenceWithOffsetOfZero(int length) throws IOException {
+        return newFileRegion(0, length);
+    }
+
+    private FileRegionBytesReference newFileRegion(int position, int length) throws IOException {
+        final Path file = createTempFile();
+        Files.write(file, randomByteArrayOfLength(position + length + randomIntBetween(0, PAGE_SIZE)));
+        return new FileRegionBytesReference(file, position, length);
+    }
+
+    @Override
+    public void testSliceArrayOffset() {
+        // slices of a FileRegionBytesReference read their own region of the file
+    }
+
+    @Override
+    public void testSliceToBytesRef() {
+        // slices of a FileRegionBytesReference read their own region of the file
+    }
+
+    public void testWriteToFileRegionOutput() throws IOException {
+        final FileRegionBytesReference fileRegion = newFileRegion(randomIntBetween(0, PAGE_SIZE), randomIntBetween(1, PAGE_SIZE));
+        final List<FileRegionBytesReference> fileRegions = new ArrayList<>();
+        try (FileRegionCollectingOutput output = new FileRegionCollectingOutput(fileRegions)) {
+            fileRegion.writeTo(output);
+            assertThat(output.size(), equalTo(0));
+        }
+        assertThat(fileRegions.size(), equalTo(1));
+        assertThat(fileRegions.get(0), sameInstance(fileRegion));
+        assertThat(fileRegion.ramBytesUsed(), equalTo(new FileRegionBytesReference(fileRegion.path(), 0L, 0).ramBytesUsed()));
+    }
+
+    public void testReadBeyondEndOfFile() throws IOException {
+        final Path file = createTempFile();
+        final int fileLength = randomIntBetween(0, PAGE_SIZE);
+        Files.write(file, randomByteArrayOfLength(fileLength));
+        final FileRegionBytesReference fileRegion = new FileRegionBytesReference(
+            file,
+            randomIntBetween(0, fileLength),
+            randomIntBetween(fileLength + 1, fileLength + PAGE_SIZE)
+        );
+        expectThrows(UncheckedIOException.class, fileRegion::toBytesRef);
+    }
+
+    private static class FileRegionCollectingOutput extends BytesStreamOutput implements FileRegionBytesReference.FileRegionOutput {
+
+        private final List<FileRegionBytesReference> fileRegions;
+
+        FileRegionCollectingOutput(List<FileRegionBytesReference> fileRegions) {
+            this.fileRegions = fileRegions;
+        }
+
+        @Override
+        public void writeFileRegion(FileRegionBytesReference fileRegion) {
+            fileRegions.add(fileRegion);
+        }
+    }
+}
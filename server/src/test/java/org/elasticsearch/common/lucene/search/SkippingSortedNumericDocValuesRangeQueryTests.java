@@ -0,0 +1,85 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.lucene.search;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.index.codec.skipindex.SkipIndexDocValuesFormat;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class SkippingSortedNumericDocValuesRangeQueryTests extends ESTestCase {
+
+    public void testSameHitsAsSlowRangeQuery() throws IOException {
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = new IndexWriterConfig(null);
+            if (randomBoolean()) {
+                iwc.setCodec(TestUtil.alwaysDocValuesFormat(new SkipIndexDocValuesFormat(randomIntBetween(2, 6))));
+            }
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                int numDocs = randomIntBetween(0, 2000);
+                // mostly increasing values, so that the skip index actually skips blocks
+                long value = randomLongBetween(-1000, 1000);
+                for (int i = 0; i < numDocs; i++) {
+                    Document doc = new Document();
+                    int numValues = randomBoolean() ? 1 : randomIntBetween(0, 3);
+                    for (int j = 0; j < numValues; j++) {
+                        value += randomIntBetween(-1, 5);
+                        doc.add(new SortedNumericDocValuesField("field", value));
+                    }
+                    writer.addDocument(doc);
+                    if (rarely()) {
+                        writer.flush();
+                    }
+                }
+                if (randomBoolean()) {
+                    writer.forceMerge(1);
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                for (int i = 0; i < 50; i++) {
+                    long lower = randomLongBetween(-2000, 10000);
+                    long upper = randomBoolean() ? lower : lower + randomIntBetween(0, 5000);
+                    Query expected = SortedNumericDocValuesField.newSlowRangeQuery("field", lower, upper);
+                    Query actual = new SkippingSortedNumericDocValuesRangeQuery("field", lower, upper);
+                    assertThat(searcher.count(actual), equalTo(searcher.count(expected)));
+                }
+            }
+        }
+    }
+
+    public void testRewriteUnboundedRange() throws IOException {
+        Query query = new SkippingSortedNumericDocValuesRangeQuery("field", Long.MIN_VALUE, Long.MAX_VALUE);
+        assertThat(query.rewrite(null), instanceOf(DocValuesFieldExistsQuery.class));
+    }
+
+    public void testEqualsAndHashCode() {
+        Query query = new SkippingSortedNumericDocValuesRangeQuery("field", 1, 10);
+        assertEquals(query, new SkippingSortedNumericDocValuesRangeQuery("field", 1, 10));
+        assertEquals(query.hashCode(), new SkippingSortedNumericDocValuesRangeQuery("field", 1, 10).hashCode());
+        assertNotEquals(query, new SkippingSortedNumericDocValuesRangeQuery("other", 1, 10));
+        assertNotEquals(query, new SkippingSortedNumericDocValuesRangeQuery("field", 2, 10));
+        assertNotEquals(query, new SkippingSortedNumericDocValuesRangeQuery("field", 1, 11));
+        assertThat(query.toString("field"), equalTo("[1 TO 10]"));
+        assertThat(query.toString("other"), equalTo("field:[1 TO 10]"));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.skipindex;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class SkipIndexDocValuesFormatTests extends ESTestCase {
+
+    public void testSkipIndexMatchesValues() throws IOException {
+        final int blockShift = randomIntBetween(2, 6);
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = new IndexWriterConfig(null);
+            iwc.setCodec(TestUtil.alwaysDocValuesFormat(new SkipIndexDocValuesFormat(blockShift)));
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                int numDocs = randomIntBetween(0, 1000);
+                for (int i = 0; i < numDocs; i++) {
+                    Document doc = new Document();
+                    if (randomBoolean()) {
+                        doc.add(new NumericDocValuesField("single", randomLongBetween(-1000, 1000)));
+                    }
+                    int numValues = randomIntBetween(0, 3);
+                    for (int j = 0; j < numValues; j++) {
+                        doc.add(new SortedNumericDocValuesField("multi", randomLong()));
+                    }
+                    doc.add(new SortedSetDocValuesField("keyword", new BytesRef(randomAlphaOfLength(5))));
+                    writer.addDocument(doc);
+                    if (rarely()) {
+                        writer.flush();
+                    }
+                }
+                if (randomBoolean()) {
+                    writer.forceMerge(1);
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                for (LeafReaderContext context : reader.leaves()) {
+                    assertSkipIndex(context.reader(), "single", blockShift);
+                    assertSkipIndex(context.reader(), "multi", blockShift);
+                    SortedSetDocValues keywords = DocValues.getSortedSet(context.reader(), "keyword");
+                    assertThat(keywords.nextDoc(), equalTo(0));
+                }
+            }
+        }
+    }
+
+    private void assertSkipIndex(LeafReader reader, String field, int blockShift) throws IOException {
+        if (reader.getFieldInfos().fieldInfo(field) == null) {
+            return;
+        }
+        final DocValuesSkipIndex skipIndex = DocValuesSkipIndex.get(DocValues.getSortedNumeric(reader, field));
+        assertNotNull(skipIndex);
+        assertThat(skipIndex.blockShift(), equalTo(blockShift));
+        assertThat(skipIndex.numBlocks(), equalTo(DocValuesSkipIndex.numBlocks(reader.maxDoc(), blockShift)));
+
+        final int numBlocks = skipIndex.numBlocks();
+        final long[] expectedMin = new long[numBlocks];
+        final long[] expectedMax = new long[numBlocks];
+        final int[] expectedDocCount = new int[numBlocks];
+        for (int block = 0; block < numBlocks; block++) {
+            expectedMin[block] = Long.MAX_VALUE;
+            expectedMax[block] = Long.MIN_VALUE;
+        }
+        final SortedNumericDocValues values = DocValues.getSortedNumeric(reader, field);
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            final int block = doc >>> blockShift;
+            expectedDocCount[block]++;
+            for (int i = 0; i < values.docValueCount(); i++) {
+                final long value = values.nextValue();
+                expectedMin[block] = Math.min(expectedMin[block], value);
+                expectedMax[block] = Math.max(expectedMax[block], value);
+            }
+        }
+        for (int block = 0; block < numBlocks; block++) {
+            assertThat(skipIndex.docCount(block), equalTo(expectedDocCount[block]));
+            if (expectedDocCount[block] > 0) {
+                assertThat(skipIndex.minValue(block), equalTo(expectedMin[block]));
+                assertThat(skipIndex.maxValue(block), equalTo(expectedMax[block]));
+                assertTrue(skipIndex.intersects(block, expectedMin[block], expectedMin[block]));
+                assertTrue(skipIndex.within(block, expectedMin[block], expectedMax[block]));
+            } else {
+                assertFalse(skipIndex.intersects(block, Long.MIN_VALUE, Long.MAX_VALUE));
+            }
+            final int blockDocs = Math.min(1 << blockShift, reader.maxDoc() - (block << blockShift));
+            assertThat(skipIndex.isDense(block), equalTo(expectedDocCount[block] == blockDocs));
+        }
+    }
+
+    public void testInvalidBlockShift() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> new SkipIndexDocValuesFormat(0));
+        assertThat(e.getMessage(), equalTo("blockShift must be in [1, 30], got [0]"));
+    }
+}
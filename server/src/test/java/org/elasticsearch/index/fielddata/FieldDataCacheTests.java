@@ -16,10 +16,18 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.LogDocMergePolicy;
 import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.fielddata.plain.AbstractLeafOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.plain.PagedBytesIndexFieldData;
 import org.elasticsearch.index.fielddata.plain.SortedSetOrdinalsIndexFieldData;
@@ -30,6 +38,8 @@ import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.FieldMaskingReader;
 
+import java.io.IOException;
+
 import static org.hamcrest.Matchers.equalTo;
 
 public class FieldDataCacheTests extends ESTestCase {
@@ -72,6 +82,131 @@ public class FieldDataCacheTests extends ESTestCase {
         dir.close();
     }
 
+    public void testLoadGlobalDirectReusesOrdinalMapIfSegmentsAreUnchanged() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+        int numDocs = scaledRandomIntBetween(32, 128);
+        for (int i = 1; i <= numDocs; i++) {
+            Document doc = new Document();
+            doc.add(new SortedSetDocValuesField("field1", new BytesRef(String.valueOf(i))));
+            doc.add(new StringField("id", String.valueOf(i), Field.Store.NO));
+            iw.addDocument(doc);
+            if (i % 16 == 0) {
+                iw.flush();
+            }
+        }
+        iw.flush();
+
+        SortedSetOrdinalsIndexFieldData fieldData = createSortedDV("field1", new IndexFieldDataCache.None());
+        DirectoryReader first = DirectoryReader.open(iw);
+        GlobalOrdinalsIndexFieldData firstGlobal = (GlobalOrdinalsIndexFieldData) fieldData.loadGlobalDirect(first, null);
+        assertFalse(firstGlobal.isReused());
+        assertThat(firstGlobal.getValueCount(), equalTo((long) numDocs));
+
+        // a refresh that only applies deletes keeps the same segment cores
+        iw.deleteDocuments(new Term("id", "1"));
+        DirectoryReader second = DirectoryReader.openIfChanged(first, iw);
+        assertNotNull(second);
+        GlobalOrdinalsIndexFieldData secondGlobal = (GlobalOrdinalsIndexFieldData) fieldData.loadGlobalDirect(second, firstGlobal);
+        assertTrue(secondGlobal.isReused());
+        assertSame(firstGlobal.getOrdinalMap(), secondGlobal.getOrdinalMap());
+
+        IOUtils.close(first, second, iw, dir);
+    }
+
+    public void testLoadGlobalDirectMergesTermsOfNewSegmentsIntoPreviousOrdinalMap() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        LogDocMergePolicy mergePolicy = new LogDocMergePolicy();
+        // segments are only merged when forced
+        mergePolicy.setMergeFactor(1000);
+        iwc.setMergePolicy(mergePolicy);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+        int numSegments = 8;
+        int docsPerSegment = 16;
+        for (int i = 0; i < numSegments * docsPerSegment; i++) {
+            Document doc = new Document();
+            // shared values across segments, and values that only exist in a single segment
+            doc.add(new SortedSetDocValuesField("field1", new BytesRef(String.valueOf(i % 10))));
+            doc.add(new SortedSetDocValuesField("field1", new BytesRef(randomAlphaOfLength(5))));
+            iw.addDocument(doc);
+            if ((i + 1) % docsPerSegment == 0) {
+                iw.flush();
+            }
+        }
+
+        SortedSetOrdinalsIndexFieldData fieldData = createSortedDV("field1", new IndexFieldDataCache.None());
+        DirectoryReader first = DirectoryReader.open(iw);
+        assertThat(first.leaves().size(), equalTo(numSegments));
+        GlobalOrdinalsIndexFieldData firstGlobal = (GlobalOrdinalsIndexFieldData) fieldData.loadGlobalDirect(first, null);
+        assertFalse(firstGlobal.isReused());
+        assertGlobalOrdinals(fieldData, first, firstGlobal);
+
+        // a new segment with new terms, terms that exist already and terms that sort before and after all existing terms
+        for (String value : new String[] { "", "5", "new_value", "~", randomAlphaOfLength(5) }) {
+            Document doc = new Document();
+            doc.add(new SortedSetDocValuesField("field1", new BytesRef(value)));
+            iw.addDocument(doc);
+        }
+        DirectoryReader second = DirectoryReader.openIfChanged(first, iw);
+        assertNotNull(second);
+        assertThat(second.leaves().size(), equalTo(numSegments + 1));
+        GlobalOrdinalsIndexFieldData secondGlobal = (GlobalOrdinalsIndexFieldData) fieldData.loadGlobalDirect(second, firstGlobal);
+        assertTrue(secondGlobal.isReused());
+        assertGlobalOrdinals(fieldData, second, secondGlobal);
+
+        // merging a few segments keeps the others
+        iw.forceMerge(numSegments - 1);
+        DirectoryReader third = DirectoryReader.openIfChanged(second, iw);
+        assertNotNull(third);
+        assertThat(third.leaves().size(), equalTo(numSegments - 1));
+        GlobalOrdinalsIndexFieldData thirdGlobal = (GlobalOrdinalsIndexFieldData) fieldData.loadGlobalDirect(third, secondGlobal);
+        assertTrue(thirdGlobal.isReused());
+        // the previous readers aren't needed to use incrementally built global ordinals
+        IOUtils.close(first, second);
+        assertGlobalOrdinals(fieldData, third, thirdGlobal);
+
+        // a merge of most segments may add more terms than the segments that are shared with the previous reader
+        iw.forceMerge(2);
+        DirectoryReader fourth = DirectoryReader.openIfChanged(third, iw);
+        assertNotNull(fourth);
+        GlobalOrdinalsIndexFieldData fourthGlobal = (GlobalOrdinalsIndexFieldData) fieldData.loadGlobalDirect(fourth, thirdGlobal);
+        assertGlobalOrdinals(fieldData, fourth, fourthGlobal);
+
+        IOUtils.close(third, fourth, iw, dir);
+    }
+
+    /**
+     * Checks that the provided global ordinals are the same as the ones of a Lucene {@link OrdinalMap} built from scratch.
+     */
+    private static void assertGlobalOrdinals(IndexOrdinalsFieldData fieldData, DirectoryReader reader, GlobalOrdinalsIndexFieldData global)
+        throws IOException {
+        final SortedSetDocValues[] subs = new SortedSetDocValues[reader.leaves().size()];
+        for (int i = 0; i < subs.length; i++) {
+            subs[i] = fieldData.load(reader.leaves().get(i)).getOrdinalsValues();
+        }
+        final OrdinalMap expected = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        assertThat(global.getValueCount(), equalTo(expected.getValueCount()));
+        final IndexOrdinalsFieldData consumer = global.loadGlobal(reader);
+        for (LeafReaderContext context : reader.leaves()) {
+            final LongValues globalOrds = global.getGlobalOrdinalsMapping(context.ord);
+            final SortedSetDocValues globalValues = consumer.load(context).getOrdinalsValues();
+            for (long ord = 0; ord < subs[context.ord].getValueCount(); ord++) {
+                assertThat(globalOrds.get(ord), equalTo(expected.getGlobalOrds(context.ord).get(ord)));
+                assertThat(globalValues.lookupOrd(globalOrds.get(ord)), equalTo(subs[context.ord].lookupOrd(ord)));
+            }
+        }
+        // callers that need a Lucene ordinal map get an equivalent one
+        final OrdinalMap ordinalMap = global.getOrdinalMap();
+        for (int i = 0; i < subs.length; i++) {
+            for (long ord = 0; ord < subs[i].getValueCount(); ord++) {
+                assertThat(ordinalMap.getGlobalOrds(i).get(ord), equalTo(expected.getGlobalOrds(i).get(ord)));
+            }
+        }
+    }
+
     private SortedSetOrdinalsIndexFieldData createSortedDV(String fieldName, IndexFieldDataCache indexFieldDataCache) {
         return new SortedSetOrdinalsIndexFieldData(
             indexFieldDataCache,
@@ -11,15 +11,24 @@ import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.common.FieldMemoryStatsTests;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.fielddata.FieldDataStats.GlobalOrdinalFieldStats;
+import org.elasticsearch.index.fielddata.FieldDataStats.GlobalOrdinalsStats;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class FieldDataStatsTests extends ESTestCase {
 
     public void testSerialize() throws IOException {
         FieldMemoryStats map = randomBoolean() ? null : FieldMemoryStatsTests.randomFieldMemoryStats();
-        FieldDataStats stats = new FieldDataStats(randomNonNegativeLong(), randomNonNegativeLong(), map);
+        FieldDataStats stats = new FieldDataStats(
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            map,
+            randomGlobalOrdinalsStats()
+        );
         BytesStreamOutput out = new BytesStreamOutput();
         stats.writeTo(out);
         StreamInput input = out.bytes().streamInput();
@@ -28,5 +37,37 @@ public class FieldDataStatsTests extends ESTestCase {
         assertEquals(stats.getEvictions(), read.getEvictions());
         assertEquals(stats.getMemorySize(), read.getMemorySize());
         assertEquals(stats.getFields(), read.getFields());
+        assertEquals(stats.getGlobalOrdinalsStats(), read.getGlobalOrdinalsStats());
+    }
+
+    public void testAddGlobalOrdinalsStats() {
+        FieldDataStats stats = new FieldDataStats();
+        stats.add(
+            new FieldDataStats(0, 0, null, new GlobalOrdinalsStats(10, 1, Map.of("field", new GlobalOrdinalFieldStats(10, 1, 100))))
+        );
+        stats.add(
+            new FieldDataStats(0, 0, null, new GlobalOrdinalsStats(5, 0, Map.of("field", new GlobalOrdinalFieldStats(5, 0, 40))))
+        );
+        assertEquals(15, stats.getGlobalOrdinalsStats().getBuildTimeMillis());
+        assertEquals(1, stats.getGlobalOrdinalsStats().getReuseCount());
+        GlobalOrdinalFieldStats fieldStats = stats.getGlobalOrdinalsStats().getFieldGlobalOrdinalsStats().get("field");
+        assertEquals(15, fieldStats.getTotalBuildingTime());
+        assertEquals(1, fieldStats.getReuseCount());
+        assertEquals(100, fieldStats.getValueCount());
+    }
+
+    private static GlobalOrdinalsStats randomGlobalOrdinalsStats() {
+        Map<String, GlobalOrdinalFieldStats> fieldStats = null;
+        if (randomBoolean()) {
+            fieldStats = new HashMap<>();
+            int numFields = randomIntBetween(0, 5);
+            for (int i = 0; i < numFields; i++) {
+                fieldStats.put(
+                    randomAlphaOfLength(8),
+                    new GlobalOrdinalFieldStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong())
+                );
+            }
+        }
+        return new GlobalOrdinalsStats(randomNonNegativeLong(), randomNonNegativeLong(), fieldStats);
     }
 }
@@ -23,6 +23,7 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.store.Directory;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.lucene.search.SkippingSortedNumericDocValuesRangeQuery;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.time.DateFormatter;
 import org.elasticsearch.common.time.DateFormatters;
@@ -38,6 +39,7 @@ import org.elasticsearch.index.mapper.MappedFieldType.Relation;
 import org.elasticsearch.index.query.DateRangeIncludingNowQuery;
 import org.elasticsearch.index.query.QueryRewriteContext;
 import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.test.VersionUtils;
 import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
@@ -271,6 +273,74 @@ public class DateFieldTypeTests extends FieldTypeTestCase {
         assertEquals("Cannot search on field [field] since it is not indexed.", e.getMessage());
     }
 
+    public void testQueriesOnDocValuesWithSkipIndex() {
+        MappedFieldType unsearchable = new DateFieldType(
+            "field",
+            false,
+            false,
+            true,
+            DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER,
+            Resolution.MILLISECONDS,
+            null,
+            null,
+            Collections.emptyMap()
+        );
+        String date1 = "2015-10-12T14:10:55";
+        String date2 = "2016-04-28T11:33:52";
+        long instant1 = DateFormatters.from(DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER.parse(date1)).toInstant().toEpochMilli();
+        long instant2 = DateFormatters.from(DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER.parse(date2)).toInstant().toEpochMilli() + 999;
+
+        SearchExecutionContext context = skipIndexContext(Version.CURRENT);
+        assertEquals(
+            new SkippingSortedNumericDocValuesRangeQuery("field", instant1, instant1 + 999),
+            unsearchable.termQuery(date1, context)
+        );
+        assertEquals(
+            new SkippingSortedNumericDocValuesRangeQuery("field", instant1, instant2),
+            unsearchable.rangeQuery(date1, date2, true, true, null, null, null, context).rewrite(new MultiReader())
+        );
+
+        // indices created before the skip index was introduced don't have it
+        SearchExecutionContext oldContext = skipIndexContext(
+            VersionUtils.randomVersionBetween(random(), Version.V_7_0_0, VersionUtils.getPreviousVersion(Version.V_7_16_3))
+        );
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> unsearchable.rangeQuery(date1, date2, true, true, null, null, null, oldContext)
+        );
+        assertEquals("Cannot search on field [field] since it is not indexed.", e.getMessage());
+    }
+
+    private SearchExecutionContext skipIndexContext(Version indexCreatedVersion) {
+        Settings indexSettings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, indexCreatedVersion)
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 1)
+            .put(IndexSettings.INDEX_DOC_VALUES_SKIP_INDEX_SETTING.getKey(), true)
+            .build();
+        return new SearchExecutionContext(
+            0,
+            0,
+            new IndexSettings(IndexMetadata.builder("foo").settings(indexSettings).build(), indexSettings),
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            xContentRegistry(),
+            writableRegistry(),
+            null,
+            null,
+            () -> nowInMillis,
+            null,
+            null,
+            () -> true,
+            null,
+            emptyMap()
+        );
+    }
+
     public void testRangeQueryWithIndexSort() {
         Settings settings = Settings.builder()
             .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
@@ -32,12 +32,24 @@ import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.CheckedSupplier;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.geo.ShapeRelation;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.lucene.search.function.ScriptScoreQuery;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.time.DateFormatter;
 import org.elasticsearch.index.fielddata.DateScriptFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.LeafFieldData;
+import org.elasticsearch.index.fielddata.LeafNumericFieldData;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
 import org.elasticsearch.script.DateFieldScript;
 import org.elasticsearch.script.DocReader;
 import org.elasticsearch.script.ScoreScript;
@@ -55,13 +67,17 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Collections.emptyMap;
 import static org.hamcrest.Matchers.arrayWithSize;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class DateScriptFieldTypeTests extends AbstractNonTextScriptFieldTypeTestCase {
 
@@ -181,11 +197,153 @@ public class DateScriptFieldTypeTests extends AbstractNonTextScriptFieldTypeTest
                         };
                     }
                 });
-                assertThat(results, equalTo(org.elasticsearch.core.List.of(1595518581354L, 1595518581351L, 1595518581356L)));
+                assertThat(results, equalTo(expected));
             }
         }
     }
 
+    public void testCachedDocValues() throws IOException {
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter iw = new RandomIndexWriter(random(), directory)) {
+                iw.addDocument(
+                    org.elasticsearch.core.List.of(new StoredField("_source", new BytesRef("{\"timestamp\": [1595432181354]}")))
+                );
+                iw.commit();
+                iw.addDocument(
+                    org.elasticsearch.core.List.of(
+                        new StoredField("_source", new BytesRef("{\"timestamp\": [1595432181356, 1595432181351]}"))
+                    )
+                );
+            }
+            ShardId shardId = new ShardId("test", "_na_", 0);
+            CircuitBreakerService breakerService = breakerService(Settings.EMPTY);
+            CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.FIELDDATA);
+            IndicesFieldDataCache indicesCache = indicesFieldDataCache(breaker);
+            IndexFieldDataCache cache = indicesCache.buildIndexFieldDataCache(
+                new IndexFieldDataCache.Listener() {
+                },
+                shardId.getIndex(),
+                "test",
+                "add_days"
+            );
+            IndexFieldData<?> ifd = build("add_days", org.elasticsearch.core.Map.of("days", 1)).fielddataBuilder(
+                "test",
+                mockContext()::lookup
+            ).buildCached(cache, breakerService);
+            List<Long> expected = org.elasticsearch.core.List.of(1595518581354L, 1595518581351L, 1595518581356L);
+            try (DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(directory), shardId)) {
+                List<LeafFieldData> loaded = new ArrayList<>();
+                assertThat(readLongs(ifd, reader, loaded), equalTo(expected));
+                long cachedBytes = loaded.stream().mapToLong(LeafFieldData::ramBytesUsed).sum();
+                assertThat(cachedBytes, greaterThan(0L));
+                assertThat(breaker.getUsed(), equalTo(cachedBytes));
+                assertThat(indicesCache.getCache().count(), equalTo(reader.leaves().size()));
+
+                // the values of every segment are reused rather than computed again
+                for (LeafReaderContext context : reader.leaves()) {
+                    assertThat(ifd.load(context), sameInstance(loaded.get(context.ord)));
+                }
+                assertThat(breaker.getUsed(), equalTo(cachedBytes));
+
+                // clearing the cache drops the values and releases their memory
+                cache.clear();
+                assertThat(indicesCache.getCache().count(), equalTo(0));
+                assertThat(breaker.getUsed(), equalTo(0L));
+
+                List<LeafFieldData> reloaded = new ArrayList<>();
+                assertThat(readLongs(ifd, reader, reloaded), equalTo(expected));
+                for (LeafReaderContext context : reader.leaves()) {
+                    assertThat(reloaded.get(context.ord), not(sameInstance(loaded.get(context.ord))));
+                }
+                assertThat(breaker.getUsed(), equalTo(cachedBytes));
+            }
+            // closing the reader drops the values of its segments too
+            assertThat(indicesCache.getCache().count(), equalTo(0));
+            assertThat(breaker.getUsed(), equalTo(0L));
+            indicesCache.close();
+        }
+    }
+
+    public void testCachedDocValuesTripBreaker() throws IOException {
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter iw = new RandomIndexWriter(random(), directory)) {
+                for (int i = 0; i < 100; i++) {
+                    iw.addDocument(
+                        org.elasticsearch.core.List.of(new StoredField("_source", new BytesRef("{\"timestamp\": [" + i + "]}")))
+                    );
+                }
+            }
+            ShardId shardId = new ShardId("test", "_na_", 0);
+            CircuitBreakerService breakerService = breakerService(
+                Settings.builder().put(HierarchyCircuitBreakerService.FIELDDATA_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), "100b").build()
+            );
+            CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.FIELDDATA);
+            IndicesFieldDataCache indicesCache = indicesFieldDataCache(breaker);
+            IndexFieldDataCache cache = indicesCache.buildIndexFieldDataCache(
+                new IndexFieldDataCache.Listener() {
+                },
+                shardId.getIndex(),
+                "test",
+                "add_days"
+            );
+            IndexFieldData<?> ifd = build("add_days", org.elasticsearch.core.Map.of("days", 1)).fielddataBuilder(
+                "test",
+                mockContext()::lookup
+            ).buildCached(cache, breakerService);
+            try (DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(directory), shardId)) {
+                // the values of the segments don't fit in the breaker so they are computed on the fly instead
+                List<Long> expected = new ArrayList<>();
+                for (long i = 0; i < 100; i++) {
+                    expected.add(i + TimeUnit.DAYS.toMillis(1));
+                }
+                List<Long> results = readLongs(ifd, reader, new ArrayList<>());
+                Collections.sort(results);
+                assertThat(results, equalTo(expected));
+                assertThat(indicesCache.getCache().count(), equalTo(0));
+                assertThat(breaker.getUsed(), equalTo(0L));
+                assertThat(breaker.getTrippedCount(), greaterThan(0L));
+            }
+            indicesCache.close();
+        }
+    }
+
+    private static List<Long> readLongs(IndexFieldData<?> ifd, DirectoryReader reader, List<LeafFieldData> loaded) throws IOException {
+        List<Long> results = new ArrayList<>();
+        for (LeafReaderContext context : reader.leaves()) {
+            LeafNumericFieldData leafData = (LeafNumericFieldData) ifd.load(context);
+            loaded.add(leafData);
+            SortedNumericDocValues dv = leafData.getLongValues();
+            for (int doc = 0; doc < context.reader().maxDoc(); doc++) {
+                if (dv.advanceExact(doc)) {
+                    for (int i = 0; i < dv.docValueCount(); i++) {
+                        results.add(dv.nextValue());
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static CircuitBreakerService breakerService(Settings settings) {
+        return new HierarchyCircuitBreakerService(
+            Settings.builder().put(settings).put(HierarchyCircuitBreakerService.USE_REAL_MEMORY_USAGE_SETTING.getKey(), false).build(),
+            Collections.emptyList(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)
+        );
+    }
+
+    /**
+     * Builds a cache that releases the memory of the values it drops, like {@code IndicesService} does.
+     */
+    private static IndicesFieldDataCache indicesFieldDataCache(CircuitBreaker breaker) {
+        return new IndicesFieldDataCache(Settings.EMPTY, new IndexFieldDataCache.Listener() {
+            @Override
+            public void onRemoval(ShardId shardId, String fieldName, boolean wasEvicted, long sizeInBytes) {
+                breaker.addWithoutBreaking(-sizeInBytes);
+            }
+        });
+    }
+
     @Override
     public void testSort() throws IOException {
         try (Directory directory = newDirectory(); RandomIndexWriter iw = new RandomIndexWriter(random(), directory)) {
@@ -21,6 +21,7 @@ import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.IndexableFieldType;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.hash.MurmurHash3;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.analysis.AnalyzerScope;
 import org.elasticsearch.index.analysis.CharFilterFactory;
@@ -162,6 +163,7 @@ public class KeywordFieldMapperTests extends MapperTestCase {
         checker.registerConflictCheck("null_value", b -> b.field("null_value", "foo"));
         checker.registerConflictCheck("similarity", b -> b.field("similarity", "boolean"));
         checker.registerConflictCheck("normalizer", b -> b.field("normalizer", "lowercase"));
+        checker.registerConflictCheck("precompute_hash", b -> b.field("precompute_hash", true));
 
         checker.registerUpdateCheck(b -> b.field("eager_global_ordinals", true), m -> assertTrue(m.fieldType().eagerGlobalOrdinals()));
         checker.registerUpdateCheck(
@@ -313,6 +315,45 @@ public class KeywordFieldMapperTests extends MapperTestCase {
         assertEquals(0, fieldNamesFields.length);
     }
 
+    public void testPrecomputeHash() throws IOException {
+        DocumentMapper mapper = createDocumentMapper(fieldMapping(b -> b.field("type", "keyword").field("precompute_hash", true)));
+        ParsedDocument doc = mapper.parse(source(b -> b.field("field", "1234")));
+        IndexableField[] fields = doc.rootDoc().getFields("field._hash");
+        assertEquals(1, fields.length);
+        assertEquals(DocValuesType.SORTED_NUMERIC, fields[0].fieldType().docValuesType());
+        BytesRef value = new BytesRef("1234");
+        MurmurHash3.Hash128 hash = MurmurHash3.hash128(value.bytes, value.offset, value.length, 0, new MurmurHash3.Hash128());
+        assertEquals(hash.h1, fields[0].numericValue().longValue());
+
+        doc = mapper.parse(source(b -> b.nullField("field")));
+        assertEquals(0, doc.rootDoc().getFields("field._hash").length);
+
+        Exception e = expectThrows(
+            MapperParsingException.class,
+            () -> createDocumentMapper(
+                fieldMapping(b -> b.field("type", "keyword").field("precompute_hash", true).field("doc_values", false))
+            )
+        );
+        assertThat(e.getCause().getMessage(), containsString("Field [precompute_hash] requires that [doc_values] is true"));
+
+        // the hashes would be written to the same field as the multi-field
+        e = expectThrows(
+            MapperParsingException.class,
+            () -> createDocumentMapper(fieldMapping(b -> {
+                b.field("type", "keyword").field("precompute_hash", true);
+                b.startObject("fields").startObject("_hash").field("type", "keyword").endObject().endObject();
+            }))
+        );
+        assertThat(e.getCause().getMessage(), containsString("Field [precompute_hash] can't be used with a multi-field named [_hash]"));
+
+        // other multi-fields are fine
+        mapper = createDocumentMapper(fieldMapping(b -> {
+            b.field("type", "keyword").field("precompute_hash", true);
+            b.startObject("fields").startObject("hash").field("type", "keyword").endObject().endObject();
+        }));
+        assertEquals(1, mapper.parse(source(b -> b.field("field", "1234"))).rootDoc().getFields("field._hash").length);
+    }
+
     public void testDimension() throws IOException {
         // Test default setting
         MapperService mapperService = createMapperService(fieldMapping(b -> minimalMapping(b)));
@@ -20,6 +20,9 @@ import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.IndexOrDocValuesQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.IndexSortSortedNumericDocValuesRangeQuery;
@@ -29,9 +32,11 @@ import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
 import org.apache.lucene.util.TestUtil;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.lucene.search.SkippingSortedNumericDocValuesRangeQuery;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
@@ -60,6 +65,8 @@ import static java.util.Collections.emptyMap;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class NumberFieldTypeTests extends FieldTypeTestCase {
 
@@ -336,6 +343,54 @@ public class NumberFieldTypeTests extends FieldTypeTestCase {
         assertEquals("Cannot search on field [field] since it is not indexed.", e.getMessage());
     }
 
+    public void testQueriesOnDocValuesWithSkipIndex() {
+        SearchExecutionContext context = mock(SearchExecutionContext.class);
+        when(context.docValuesSkipIndexEnabled()).thenReturn(true);
+        MappedFieldType unsearchable = unsearchable();
+        assertEquals(new SkippingSortedNumericDocValuesRangeQuery("field", 42, 42), unsearchable.termQuery("42", context));
+        assertEquals(
+            new SkippingSortedNumericDocValuesRangeQuery("field", 1, 3),
+            unsearchable.rangeQuery("1", "3", true, true, null, null, null, context)
+        );
+        BooleanQuery.Builder expected = new BooleanQuery.Builder();
+        expected.add(new SkippingSortedNumericDocValuesRangeQuery("field", 1, 1), BooleanClause.Occur.SHOULD);
+        expected.add(new SkippingSortedNumericDocValuesRangeQuery("field", 3, 3), BooleanClause.Occur.SHOULD);
+        assertEquals(new ConstantScoreQuery(expected.build()), unsearchable.termsQuery(Arrays.asList(1, 3), context));
+
+        MappedFieldType doubleField = new NumberFieldType(
+            "field",
+            NumberType.DOUBLE,
+            false,
+            false,
+            true,
+            true,
+            null,
+            Collections.emptyMap(),
+            null,
+            false,
+            null
+        );
+        long sortable = NumericUtils.doubleToSortableLong(4.2);
+        assertEquals(new SkippingSortedNumericDocValuesRangeQuery("field", sortable, sortable), doubleField.termQuery("4.2", context));
+
+        // without doc values there is nothing to search on
+        MappedFieldType noDocValues = new NumberFieldType(
+            "field",
+            NumberType.LONG,
+            false,
+            false,
+            false,
+            true,
+            null,
+            Collections.emptyMap(),
+            null,
+            false,
+            null
+        );
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> noDocValues.termQuery("42", context));
+        assertEquals("Cannot search on field [field] since it is not indexed.", e.getMessage());
+    }
+
     public void testConversions() {
         assertEquals((byte) 3, NumberType.BYTE.parse(3d, true));
         assertEquals((short) 3, NumberType.SHORT.parse(3d, true));
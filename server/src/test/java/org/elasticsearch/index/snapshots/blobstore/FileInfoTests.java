@@ -23,7 +23,9 @@ import org.elasticsearch.xcontent.XContentType;
 import org.elasticsearch.xcontent.json.JsonXContent;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import static org.elasticsearch.index.store.StoreFileMetadata.UNAVAILABLE_WRITER_UUID;
 import static org.hamcrest.Matchers.containsString;
@@ -198,4 +200,49 @@ public class FileInfoTests extends ESTestCase {
             assertEquals(numBytes, metadata.length());
         }
     }
+
+    public void testBlocks() throws IOException {
+        final List<BlobStoreIndexShardSnapshot.Block> blocks = new ArrayList<>();
+        final int numberOfBlocks = randomIntBetween(1, 10);
+        long length = 0L;
+        for (int i = 0; i < numberOfBlocks; i++) {
+            final BlobStoreIndexShardSnapshot.Block block = new BlobStoreIndexShardSnapshot.Block(
+                randomAlphaOfLength(64),
+                randomLongBetween(1L, 1000L)
+            );
+            blocks.add(block);
+            length += block.length();
+        }
+        final FileInfo info = new FileInfo(
+            "_foobar",
+            new StoreFileMetadata("foobar", length, "666", MIN_SUPPORTED_LUCENE_VERSION.toString()),
+            randomBoolean() ? null : new ByteSizeValue(randomIntBetween(1, 1000)),
+            blocks
+        );
+        assertThat(info.numberOfParts(), equalTo(numberOfBlocks));
+        for (int i = 0; i < numberOfBlocks; i++) {
+            assertThat(info.partName(i), equalTo(BlobStoreIndexShardSnapshot.Block.BLOB_PREFIX + blocks.get(i).hash()));
+            assertThat(info.partBytes(i), equalTo(blocks.get(i).length()));
+        }
+
+        final XContentBuilder builder = XContentFactory.contentBuilder(XContentType.JSON);
+        FileInfo.toXContent(info, builder, ToXContent.EMPTY_PARAMS);
+        final FileInfo parsedInfo;
+        try (XContentParser parser = createParser(JsonXContent.jsonXContent, BytesReference.bytes(builder))) {
+            parser.nextToken();
+            parsedInfo = FileInfo.fromXContent(parser);
+        }
+        assertThat(parsedInfo.blocks(), equalTo(blocks));
+        assertTrue(parsedInfo.isSame(info));
+
+        final FileInfo deserializedInfo = copyWriteable(info, writableRegistry(), FileInfo::new);
+        assertThat(deserializedInfo.blocks(), equalTo(blocks));
+        assertTrue(deserializedInfo.isSame(info));
+
+        final IllegalStateException e = expectThrows(
+            IllegalStateException.class,
+            () -> copyWriteable(info, writableRegistry(), FileInfo::new, org.elasticsearch.Version.V_7_16_1)
+        );
+        assertThat(e.getMessage(), containsString("stored in blocks"));
+    }
 }
@@ -37,6 +37,7 @@ import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.NIOFSDirectory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.TestUtil;
@@ -93,6 +94,7 @@ import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 
 public class StoreTests extends ESTestCase {
 
@@ -1179,6 +1181,30 @@ public class StoreTests extends ESTestCase {
         }
     }
 
+    public void testLocalFilesDirectory() throws IOException {
+        final ShardId shardId = new ShardId("index", "_na_", 1);
+        final Path path = createTempDir();
+        final Directory fsDirectory = randomBoolean() ? new NIOFSDirectory(path) : new MMapDirectory(path);
+        try (Store store = new Store(shardId, INDEX_SETTINGS, fsDirectory, new DummyShardLock(shardId))) {
+            assertThat(store.localFilesDirectory(), equalTo(path));
+        }
+        // a wrapper may transform the bytes of the files
+        try (
+            Store store = new Store(
+                shardId,
+                INDEX_SETTINGS,
+                new FilterDirectory(new NIOFSDirectory(createTempDir())) {
+                },
+                new DummyShardLock(shardId)
+            )
+        ) {
+            assertThat(store.localFilesDirectory(), nullValue());
+        }
+        try (Store store = new Store(shardId, INDEX_SETTINGS, new ByteBuffersDirectory(), new DummyShardLock(shardId))) {
+            assertThat(store.localFilesDirectory(), nullValue());
+        }
+    }
+
     public void testVersionIsIncludedInBootstrapCommit() throws IOException {
         final ShardId shardId = new ShardId("index", "_na_", 1);
         try (Store store = new Store(shardId, INDEX_SETTINGS, StoreTests.newDirectory(random()), new DummyShardLock(shardId))) {
@@ -0,0 +1,244 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.FilterDirectoryReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class IndicesBackgroundFrequencyCacheTests extends ESTestCase {
+
+    public void testCachePerReaderAndFilter() throws IOException {
+        CircuitBreaker breaker = newRequestBreaker("100mb");
+        IndicesBackgroundFrequencyCache cache = new IndicesBackgroundFrequencyCache(Settings.EMPTY, breaker);
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            writer.addDocument(newDoc("foo"));
+            AtomicInteger loads = new AtomicInteger();
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                IndexReader.CacheHelper cacheHelper = IndicesBackgroundFrequencyCache.cacheHelper(reader);
+                assertNotNull(cacheHelper);
+                TermQuery query = new TermQuery(new Term("field", "foo"));
+                TermQuery filter = new TermQuery(new Term("field", "bar"));
+
+                assertThat(cache.getOrCompute(cacheHelper, query, null, () -> (long) loads.incrementAndGet()), equalTo(1L));
+                assertThat(cache.getOrCompute(cacheHelper, query, null, () -> (long) loads.incrementAndGet()), equalTo(1L));
+                assertThat(loads.get(), equalTo(1));
+                assertThat(cache.getOrCompute(cacheHelper, query, filter, () -> (long) loads.incrementAndGet()), equalTo(2L));
+                assertThat(cache.getOrCompute(cacheHelper, query, filter, () -> (long) loads.incrementAndGet()), equalTo(2L));
+                assertThat(loads.get(), equalTo(2));
+                assertThat(cache.count(), equalTo(2));
+                assertThat(cache.ramBytesUsed(), greaterThan(0L));
+                assertThat(breaker.getUsed(), equalTo(cache.ramBytesUsed()));
+                assertThat(cache.stats().getHits(), equalTo(2L));
+                assertThat(cache.stats().getMisses(), equalTo(2L));
+
+                writer.addDocument(newDoc("bar"));
+                try (DirectoryReader newReader = DirectoryReader.openIfChanged(reader)) {
+                    IndexReader.CacheHelper newCacheHelper = IndicesBackgroundFrequencyCache.cacheHelper(newReader);
+                    assertThat(cache.getOrCompute(newCacheHelper, query, null, () -> (long) loads.incrementAndGet()), equalTo(3L));
+                }
+                assertThat(cache.count(), equalTo(3));
+                cache.cleanCache();
+                assertThat(cache.count(), equalTo(2));
+                assertThat(breaker.getUsed(), equalTo(cache.ramBytesUsed()));
+            }
+            cache.cleanCache();
+            assertThat(cache.count(), equalTo(0));
+            assertThat(breaker.getUsed(), equalTo(0L));
+        }
+        cache.close();
+    }
+
+    public void testFrequenciesThatTripTheBreakerAreNotCached() throws IOException {
+        CircuitBreaker breaker = newRequestBreaker("10b");
+        IndicesBackgroundFrequencyCache cache = new IndicesBackgroundFrequencyCache(Settings.EMPTY, breaker);
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            writer.addDocument(newDoc("foo"));
+            AtomicInteger loads = new AtomicInteger();
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                IndexReader.CacheHelper cacheHelper = IndicesBackgroundFrequencyCache.cacheHelper(reader);
+                TermQuery query = new TermQuery(new Term("field", "foo"));
+                assertThat(cache.getOrCompute(cacheHelper, query, null, () -> (long) loads.incrementAndGet()), equalTo(1L));
+                assertThat(cache.getOrCompute(cacheHelper, query, null, () -> (long) loads.incrementAndGet()), equalTo(2L));
+                assertThat(cache.count(), equalTo(0));
+                assertThat(breaker.getUsed(), equalTo(0L));
+                assertThat(breaker.getTrippedCount(), equalTo(2L));
+            }
+        }
+        cache.close();
+    }
+
+    private static CircuitBreaker newRequestBreaker(String limit) {
+        Settings settings = Settings.builder()
+            .put(HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), limit)
+            .put(HierarchyCircuitBreakerService.USE_REAL_MEMORY_USAGE_SETTING.getKey(), false)
+            .build();
+        return new HierarchyCircuitBreakerService(
+            settings,
+            Collections.emptyList(),
+            new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)
+        ).getBreaker(CircuitBreaker.REQUEST);
+    }
+
+    public void testNoCacheHelperIfLeavesHideDocuments() throws IOException {
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            writer.addDocument(newDoc("foo"));
+            try (DirectoryReader reader = new NoReaderCacheKeyDirectoryReader(DirectoryReader.open(writer))) {
+                assertNull(IndicesBackgroundFrequencyCache.cacheHelper(reader));
+            }
+        }
+    }
+
+    public void testNoCacheHelperIfLeavesHideFields() throws IOException {
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            Document doc = newDoc("foo");
+            doc.add(new StringField("secret", "bar", Field.Store.NO));
+            writer.addDocument(doc);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                // both readers share the cache key of the reader they wrap but only the first one sees all the fields
+                DirectoryReader allFields = new HiddenFieldsDirectoryReader(reader, null);
+                DirectoryReader someFields = new HiddenFieldsDirectoryReader(reader, "secret");
+                assertThat(someFields.getReaderCacheHelper().getKey(), equalTo(allFields.getReaderCacheHelper().getKey()));
+                assertThat(IndicesBackgroundFrequencyCache.cacheHelper(allFields), equalTo(reader.getReaderCacheHelper()));
+                assertNull(IndicesBackgroundFrequencyCache.cacheHelper(someFields));
+            }
+        }
+    }
+
+    private static Document newDoc(String value) {
+        Document doc = new Document();
+        doc.add(new StringField("field", value, Field.Store.NO));
+        return doc;
+    }
+
+    /**
+     * Mimics the readers of document level security, that don't expose a reader cache key on their segments since
+     * they change their live documents.
+     */
+    private static class NoReaderCacheKeyDirectoryReader extends FilterDirectoryReader {
+        NoReaderCacheKeyDirectoryReader(DirectoryReader in) throws IOException {
+            super(in, new SubReaderWrapper() {
+                @Override
+                public LeafReader wrap(LeafReader reader) {
+                    return new FilterLeafReader(reader) {
+                        @Override
+                        public CacheHelper getCoreCacheHelper() {
+                            return in.getCoreCacheHelper();
+                        }
+
+                        @Override
+                        public CacheHelper getReaderCacheHelper() {
+                            return null;
+                        }
+                    };
+                }
+            });
+        }
+
+        @Override
+        protected DirectoryReader doWrapDirectoryReader(DirectoryReader in) throws IOException {
+            return new NoReaderCacheKeyDirectoryReader(in);
+        }
+
+        @Override
+        public CacheHelper getReaderCacheHelper() {
+            return in.getReaderCacheHelper();
+        }
+    }
+
+    /**
+     * Mimics the readers of field level security, that hide fields but share the cache keys of the readers they wrap.
+     */
+    private static class HiddenFieldsDirectoryReader extends FilterDirectoryReader {
+        private final String hiddenField;
+
+        HiddenFieldsDirectoryReader(DirectoryReader in, @Nullable String hiddenField) throws IOException {
+            super(in, new SubReaderWrapper() {
+                @Override
+                public LeafReader wrap(LeafReader reader) {
+                    if (hiddenField == null) {
+                        return new PassThroughLeafReader(reader);
+                    }
+                    List<FieldInfo> fieldInfos = new ArrayList<>();
+                    for (FieldInfo fieldInfo : reader.getFieldInfos()) {
+                        if (fieldInfo.name.equals(hiddenField) == false) {
+                            fieldInfos.add(fieldInfo);
+                        }
+                    }
+                    FieldInfos filteredFieldInfos = new FieldInfos(fieldInfos.toArray(new FieldInfo[0]));
+                    return new PassThroughLeafReader(reader) {
+                        @Override
+                        public FieldInfos getFieldInfos() {
+                            return filteredFieldInfos;
+                        }
+
+                        @Override
+                        public Terms terms(String field) throws IOException {
+                            return field.equals(hiddenField) ? null : super.terms(field);
+                        }
+                    };
+                }
+            });
+            this.hiddenField = hiddenField;
+        }
+
+        @Override
+        protected DirectoryReader doWrapDirectoryReader(DirectoryReader in) throws IOException {
+            return new HiddenFieldsDirectoryReader(in, hiddenField);
+        }
+
+        @Override
+        public CacheHelper getReaderCacheHelper() {
+            return in.getReaderCacheHelper();
+        }
+    }
+
+    private static class PassThroughLeafReader extends FilterLeafReader {
+        PassThroughLeafReader(LeafReader in) {
+            super(in);
+        }
+
+        @Override
+        public CacheHelper getCoreCacheHelper() {
+            return in.getCoreCacheHelper();
+        }
+
+        @Override
+        public CacheHelper getReaderCacheHelper() {
+            return in.getReaderCacheHelper();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.fielddata.cache;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.plain.AbstractLeafOrdinalsFieldData;
+import org.elasticsearch.index.fielddata.plain.SortedSetOrdinalsIndexFieldData;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class IndicesFieldDataCacheTests extends ESTestCase {
+
+    public void testLastGlobalKeyIsRemovedWhenReaderIsClosed() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+        for (int i = 1; i <= 32; i++) {
+            Document doc = new Document();
+            doc.add(new SortedSetDocValuesField("field1", new BytesRef(String.valueOf(i))));
+            iw.addDocument(doc);
+            if (i % 8 == 0) {
+                iw.flush();
+            }
+        }
+        ShardId shardId = new ShardId("_index", "_na_", 0);
+        IndicesFieldDataCache indicesCache = new IndicesFieldDataCache(Settings.EMPTY, new IndexFieldDataCache.Listener() {
+        });
+        IndicesFieldDataCache.IndexFieldCache cache = (IndicesFieldDataCache.IndexFieldCache) indicesCache.buildIndexFieldDataCache(
+            new IndexFieldDataCache.Listener() {
+            },
+            shardId.getIndex(),
+            "field1"
+        );
+        SortedSetOrdinalsIndexFieldData fieldData = new SortedSetOrdinalsIndexFieldData(
+            cache,
+            "field1",
+            CoreValuesSourceType.KEYWORD,
+            new NoneCircuitBreakerService(),
+            AbstractLeafOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION
+        );
+
+        DirectoryReader first = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(iw), shardId);
+        assertThat(fieldData.loadGlobal(first).load(first.leaves().get(0)).getOrdinalsValues().getValueCount(), equalTo(32L));
+        IndicesFieldDataCache.Key firstKey = cache.lastGlobalKey(shardId);
+        assertNotNull(firstKey);
+
+        Document doc = new Document();
+        doc.add(new SortedSetDocValuesField("field1", new BytesRef("new_value")));
+        iw.addDocument(doc);
+        DirectoryReader second = DirectoryReader.openIfChanged(first, iw);
+        assertNotNull(second);
+        assertThat(fieldData.loadGlobal(second).load(second.leaves().get(0)).getOrdinalsValues().getValueCount(), equalTo(33L));
+        IndicesFieldDataCache.Key secondKey = cache.lastGlobalKey(shardId);
+        assertNotSame(firstKey, secondKey);
+
+        // closing an older reader keeps the entry of the latest one
+        first.close();
+        assertSame(secondKey, cache.lastGlobalKey(shardId));
+        // closing the latest reader, e.g. because the shard is closed, forgets about it
+        second.close();
+        assertNull(cache.lastGlobalKey(shardId));
+
+        IOUtils.close(indicesCache, iw, dir);
+    }
+
+    public void testReusedOrdinalMapIsAccountedOnce() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+        for (int i = 1; i <= 32; i++) {
+            Document doc = new Document();
+            doc.add(new SortedSetDocValuesField("field1", new BytesRef(String.valueOf(i))));
+            doc.add(new StringField("id", String.valueOf(i), Field.Store.NO));
+            iw.addDocument(doc);
+            if (i % 8 == 0) {
+                iw.flush();
+            }
+        }
+        ShardId shardId = new ShardId("_index", "_na_", 0);
+        CircuitBreakerService breakerService = new HierarchyCircuitBreakerService(
+            Settings.EMPTY,
+            Collections.emptyList(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)
+        );
+        CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.FIELDDATA);
+        IndicesFieldDataCache indicesCache = new IndicesFieldDataCache(Settings.EMPTY, new IndexFieldDataCache.Listener() {
+            @Override
+            public void onRemoval(ShardId shardId, String fieldName, boolean wasEvicted, long sizeInBytes) {
+                breaker.addWithoutBreaking(-sizeInBytes);
+            }
+        });
+        AtomicLong memorySize = new AtomicLong();
+        IndicesFieldDataCache.IndexFieldCache cache = (IndicesFieldDataCache.IndexFieldCache) indicesCache.buildIndexFieldDataCache(
+            new IndexFieldDataCache.Listener() {
+                @Override
+                public void onCache(ShardId shardId, String fieldName, Accountable ramUsage) {
+                    memorySize.addAndGet(ramUsage.ramBytesUsed());
+                }
+
+                @Override
+                public void onRemoval(ShardId shardId, String fieldName, boolean wasEvicted, long sizeInBytes) {
+                    memorySize.addAndGet(-sizeInBytes);
+                }
+            },
+            shardId.getIndex(),
+            "field1"
+        );
+        SortedSetOrdinalsIndexFieldData fieldData = new SortedSetOrdinalsIndexFieldData(
+            cache,
+            "field1",
+            CoreValuesSourceType.KEYWORD,
+            breakerService,
+            AbstractLeafOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION
+        );
+
+        DirectoryReader first = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(iw), shardId);
+        Accountable firstGlobal = (Accountable) fieldData.loadGlobal(first);
+        long ordinalMapSize = firstGlobal.ramBytesUsed();
+        assertThat(ordinalMapSize, greaterThan(0L));
+        assertThat(breaker.getUsed(), equalTo(ordinalMapSize));
+        assertThat(memorySize.get(), equalTo(ordinalMapSize));
+
+        // a refresh that only applies deletes reuses the ordinal map, which is then only accounted by the newer global ordinals
+        iw.deleteDocuments(new Term("id", "1"));
+        DirectoryReader second = DirectoryReader.openIfChanged(first, iw);
+        assertNotNull(second);
+        Accountable secondGlobal = (Accountable) fieldData.loadGlobal(second);
+        assertThat(secondGlobal.ramBytesUsed(), equalTo(ordinalMapSize));
+        assertThat(firstGlobal.ramBytesUsed(), equalTo(0L));
+        assertThat(breaker.getUsed(), equalTo(ordinalMapSize));
+        assertThat(memorySize.get(), equalTo(ordinalMapSize));
+
+        first.close();
+        assertThat(breaker.getUsed(), equalTo(ordinalMapSize));
+        assertThat(memorySize.get(), equalTo(ordinalMapSize));
+        second.close();
+        assertThat(breaker.getUsed(), equalTo(0L));
+        assertThat(memorySize.get(), equalTo(0L));
+
+        IOUtils.close(indicesCache, iw, dir);
+    }
+}
@@ -16,11 +16,13 @@ import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.BaseDirectoryWrapper;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.NIOFSDirectory;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
@@ -36,6 +38,7 @@ import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.lucene.store.IndexOutputOutputStream;
@@ -226,6 +229,92 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         IOUtils.close(reader, store, multiFileWriter, targetStore);
     }
 
+    public void testSendFilesAsFileRegionsOnlyIfTargetSupportsThem() throws Throwable {
+        final RecoverySettings recoverySettings = new RecoverySettings(Settings.EMPTY, service);
+        final StartRecoveryRequest request = getStartRecoveryRequest();
+        // the files of a store over a plain file system directory can be sent as file regions
+        final Store store = new Store(shardId, INDEX_SETTINGS, new NIOFSDirectory(createTempDir()), new DummyShardLock(shardId));
+        assertThat(store.localFilesDirectory(), notNullValue());
+        try (IndexWriter writer = new IndexWriter(store.directory(), newIndexWriterConfig())) {
+            for (int i = between(10, 100); i > 0; i--) {
+                final Document document = new Document();
+                document.add(newField("field", randomUnicodeOfCodepointLengthBetween(1, 10), TextField.TYPE_STORED));
+                writer.addDocument(document);
+            }
+            writer.commit();
+        }
+
+        final Store.MetadataSnapshot metadata = store.getMetadata(null);
+        final List<StoreFileMetadata> metas = new ArrayList<>();
+        for (StoreFileMetadata md : metadata) {
+            metas.add(md);
+        }
+        final boolean supportsFileRegions = randomBoolean();
+        final AtomicInteger fileRegionChunks = new AtomicInteger();
+        final Store targetStore = newStore(createTempDir());
+        final MultiFileWriter multiFileWriter = new MultiFileWriter(targetStore, mock(RecoveryState.Index.class), "", logger, () -> {});
+        final RecoveryTargetHandler target = new TestRecoveryTargetHandler() {
+            @Override
+            public boolean supportsFileRegions() {
+                return supportsFileRegions;
+            }
+
+            @Override
+            public void writeFileChunk(
+                StoreFileMetadata md,
+                long position,
+                ReleasableBytesReference content,
+                boolean lastChunk,
+                int totalTranslogOps,
+                ActionListener<Void> listener
+            ) {
+                ActionListener.completeWith(listener, () -> {
+                    final FileRegionCountingOutputStream output = new FileRegionCountingOutputStream();
+                    content.writeTo(output);
+                    fileRegionChunks.addAndGet(output.fileRegions);
+                    multiFileWriter.writeFileChunk(md, position, content, lastChunk);
+                    return null;
+                });
+            }
+        };
+        final RecoverySourceHandler handler = new RecoverySourceHandler(
+            null,
+            new AsyncRecoveryTarget(target, recoveryExecutor),
+            threadPool,
+            request,
+            Math.toIntExact(recoverySettings.getChunkSize().getBytes()),
+            between(1, 5),
+            between(1, 5),
+            between(1, 5),
+            false,
+            recoveryPlannerService
+        );
+        final PlainActionFuture<Void> sendFilesFuture = new PlainActionFuture<>();
+        handler.sendFiles(store, metas.toArray(new StoreFileMetadata[0]), () -> 0, sendFilesFuture);
+        sendFilesFuture.actionGet();
+
+        assertThat(fileRegionChunks.get() > 0, equalTo(supportsFileRegions));
+        final Store.RecoveryDiff recoveryDiff = targetStore.getMetadata(null).recoveryDiff(metadata);
+        assertEquals(metas.size(), recoveryDiff.identical.size());
+        IOUtils.close(store, multiFileWriter, targetStore);
+    }
+
+    /**
+     * Counts the file regions written to it, and discards the other bytes.
+     */
+    private static class FileRegionCountingOutputStream extends OutputStream implements FileRegionBytesReference.FileRegionOutput {
+
+        private int fileRegions;
+
+        @Override
+        public void writeFileRegion(FileRegionBytesReference fileRegion) {
+            fileRegions++;
+        }
+
+        @Override
+        public void write(int b) {}
+    }
+
     public StartRecoveryRequest getStartRecoveryRequest() throws IOException {
         Store.MetadataSnapshot metadataSnapshot = randomBoolean()
             ? Store.MetadataSnapshot.EMPTY
@@ -37,8 +37,11 @@ import java.util.stream.Collectors;
 import static org.elasticsearch.repositories.RepositoryData.EMPTY_REPO_GEN;
 import static org.elasticsearch.repositories.RepositoryData.MISSING_UUID;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
 
 /**
  * Tests for the {@link RepositoryData} class.
@@ -78,6 +81,42 @@ public class RepositoryDataTests extends ESTestCase {
         }
     }
 
+    public void testXContentWithIndexPartitions() throws IOException {
+        final RepositoryData repositoryData = generateRandomRepoData().withClusterUuid(UUIDs.randomBase64UUID(random()));
+        final int partitions = randomIntBetween(1, 10);
+        final Map<String, RepositoryData.IndicesPartition> indexPartitions = new HashMap<>();
+        final Set<IndexId> partitionedIndices = new HashSet<>();
+        for (RepositoryData.IndicesPartition indexPartition : repositoryData.partitionIndices(partitions)) {
+            assertThat(indexPartition.indices(), not(empty()));
+            partitionedIndices.addAll(indexPartition.indices());
+            final BytesReference bytes = BytesReference.bytes(indexPartition.toXContent(JsonXContent.contentBuilder()));
+            // partitions serialize deterministically so that unchanged partitions can be reused
+            assertEquals(bytes, BytesReference.bytes(indexPartition.toXContent(JsonXContent.contentBuilder())));
+            try (XContentParser parser = createParser(JsonXContent.jsonXContent, bytes)) {
+                indexPartitions.put("partition-" + indexPartitions.size(), RepositoryData.IndicesPartition.fromXContent(parser));
+            }
+        }
+        assertThat(indexPartitions.size(), lessThanOrEqualTo(partitions));
+        assertEquals(new HashSet<>(repositoryData.getIndices().values()), partitionedIndices);
+
+        final XContentBuilder builder = JsonXContent.contentBuilder();
+        repositoryData.snapshotsToXContent(builder, Version.CURRENT, false, indexPartitions.keySet());
+        try (XContentParser parser = createParser(JsonXContent.jsonXContent, BytesReference.bytes(builder))) {
+            assertEquals(new HashSet<>(RepositoryData.indexPartitionBlobsFromXContent(parser)), indexPartitions.keySet());
+        }
+        try (XContentParser parser = createParser(JsonXContent.jsonXContent, BytesReference.bytes(builder))) {
+            final long gen = randomIntBetween(0, 500);
+            final RepositoryData fromXContent = RepositoryData.snapshotsFromXContent(
+                parser,
+                gen,
+                randomBoolean(),
+                blobNames -> blobNames.stream().map(indexPartitions::get).collect(Collectors.toList())
+            );
+            assertEquals(repositoryData, fromXContent);
+            assertEquals(gen, fromXContent.getGenId());
+        }
+    }
+
     public void testAddSnapshots() {
         RepositoryData repositoryData = generateRandomRepoData();
         // test that adding the same snapshot id to the repository data throws an exception
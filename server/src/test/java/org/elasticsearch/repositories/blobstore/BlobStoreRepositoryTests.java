@@ -10,6 +10,7 @@ package org.elasticsearch.repositories.blobstore;
 
 import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.cluster.snapshots.create.CreateSnapshotResponse;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.Client;
@@ -18,12 +19,20 @@ import org.elasticsearch.cluster.metadata.RepositoryMetadata;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.blobstore.support.FilterBlobContainer;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
+import org.elasticsearch.core.CheckedConsumer;
 import org.elasticsearch.env.Environment;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshots;
+import org.elasticsearch.index.snapshots.blobstore.SnapshotFiles;
 import org.elasticsearch.indices.recovery.RecoverySettings;
 import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.plugins.RepositoryPlugin;
@@ -41,13 +50,24 @@ import org.elasticsearch.test.ESIntegTestCase;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.xcontent.NamedXContentRegistry;
+import org.elasticsearch.xcontent.XContentParser;
+import org.elasticsearch.xcontent.XContentType;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -56,9 +76,13 @@ import static org.elasticsearch.repositories.RepositoryDataTests.generateRandomR
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 
 /**
@@ -68,10 +92,20 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
 
     static final String REPO_TYPE = "fsLike";
 
+    private static final int SNAPSHOT_POOL_SIZE = 4;
+
+    // called with each batch of unreferenced shard level blobs that the deletion of snapshots deletes
+    private static volatile CheckedConsumer<List<String>, IOException> shardBlobsDeletionHook;
+
     protected Collection<Class<? extends Plugin>> getPlugins() {
         return Arrays.asList(FsLikeRepoPlugin.class);
     }
 
+    @Override
+    protected Settings nodeSettings() {
+        return Settings.builder().put("thread_pool.snapshot.max", SNAPSHOT_POOL_SIZE).build();
+    }
+
     // the reason for this plug-in is to drop any assertSnapshotOrGenericThread as mostly all access in this test goes from test threads
     public static class FsLikeRepoPlugin extends Plugin implements RepositoryPlugin {
 
@@ -90,6 +124,27 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
                     protected void assertSnapshotOrGenericThread() {
                         // eliminate thread name check as we access blobStore on test/main threads
                     }
+
+                    @Override
+                    protected BlobContainer blobContainer() {
+                        return new FilterBlobContainer(super.blobContainer()) {
+                            @Override
+                            protected BlobContainer wrapChild(BlobContainer child) {
+                                return child;
+                            }
+
+                            @Override
+                            public void deleteBlobsIgnoringIfNotExists(Iterator<String> blobNames) throws IOException {
+                                final List<String> names = new ArrayList<>();
+                                blobNames.forEachRemaining(names::add);
+                                final CheckedConsumer<List<String>, IOException> hook = shardBlobsDeletionHook;
+                                if (hook != null && names.stream().allMatch(name -> name.startsWith("indices/"))) {
+                                    hook.accept(names);
+                                }
+                                super.deleteBlobsIgnoringIfNotExists(names.iterator());
+                            }
+                        };
+                    }
                 }
             );
         }
@@ -358,6 +413,388 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
         snapshotDetailsAsserter.accept(PlainActionFuture.get(repository::getRepositoryData).getSnapshotDetails(snapshotId));
     }
 
+    public void testBlockDeduplication() throws Exception {
+        final Client client = client();
+        final Path location = ESIntegTestCase.randomRepoPath(node().settings());
+        final String repositoryName = "test-repo";
+        assertAcked(
+            client.admin()
+                .cluster()
+                .preparePutRepository(repositoryName)
+                .setType(REPO_TYPE)
+                .setSettings(
+                    Settings.builder()
+                        .put(node().settings())
+                        .put("location", location)
+                        .put(BlobStoreRepository.BLOCK_DEDUPLICATION_SETTING.getKey(), true)
+                        .put(BlobStoreRepository.BLOCK_DEDUPLICATION_AVERAGE_SIZE_SETTING.getKey(), "4kb")
+                )
+        );
+
+        final String indexName = "test-idx";
+        createIndex(indexName, Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1).build());
+        ensureGreen();
+        int numDocs = 0;
+        final List<SnapshotId> snapshotIds = new ArrayList<>();
+        for (int snapshot = 1; snapshot <= 2; snapshot++) {
+            final int docs = randomIntBetween(100, 200);
+            for (int i = 0; i < docs; i++) {
+                client().prepareIndex(indexName, "_doc", Integer.toString(numDocs++)).setSource("text", randomAlphaOfLength(100)).get();
+            }
+            if (snapshot > 1) {
+                client().admin().indices().prepareForceMerge(indexName).setMaxNumSegments(1).get();
+            }
+            client().admin().indices().prepareFlush(indexName).get();
+            final CreateSnapshotResponse createSnapshotResponse = client.admin()
+                .cluster()
+                .prepareCreateSnapshot(repositoryName, "test-snap-" + snapshot)
+                .setWaitForCompletion(true)
+                .setIndices(indexName)
+                .get();
+            assertThat(createSnapshotResponse.getSnapshotInfo().state(), equalTo(SnapshotState.SUCCESS));
+            snapshotIds.add(createSnapshotResponse.getSnapshotInfo().snapshotId());
+        }
+
+        final RepositoriesService repositoriesService = getInstanceFromNode(RepositoriesService.class);
+        final BlobStoreRepository repository = (BlobStoreRepository) repositoriesService.repository(repositoryName);
+        final IndexId indexId = ESBlobStoreRepositoryIntegTestCase.getRepositoryData(repository).resolveIndexId(indexName);
+        final BlobContainer shardContainer = repository.shardContainer(indexId, 0);
+        for (SnapshotId snapshotId : snapshotIds) {
+            // the incremental size of a shard snapshot does not include the bytes of the blocks that were already stored
+            final BlobStoreIndexShardSnapshot shardSnapshot = repository.loadShardSnapshot(shardContainer, snapshotId);
+            assertThat(shardSnapshot.incrementalSize(), allOf(greaterThan(0L), lessThanOrEqualTo(shardSnapshot.totalSize())));
+        }
+        assertThat(shardBlobs(shardContainer, BlobStoreRepository.UPLOADED_DATA_BLOB_PREFIX), empty());
+        assertThat(shardBlobs(shardContainer, BlobStoreIndexShardSnapshot.Block.BLOB_PREFIX), not(empty()));
+
+        logger.info("--> deleting the first snapshot only deletes the blocks that are not referenced by the second one");
+        assertAcked(client.admin().cluster().prepareDeleteSnapshot(repositoryName, "test-snap-1").get());
+        final RepositoryData repositoryData = ESBlobStoreRepositoryIntegTestCase.getRepositoryData(repository);
+        final Set<String> referencedBlocks = repository.getBlobStoreIndexShardSnapshots(
+            indexId,
+            0,
+            repositoryData.shardGenerations().getShardGen(indexId, 0)
+        ).blockBlobNames();
+        assertThat(shardBlobs(shardContainer, BlobStoreIndexShardSnapshot.Block.BLOB_PREFIX), equalTo(referencedBlocks));
+
+        logger.info("--> restoring the second snapshot");
+        assertAcked(client().admin().indices().prepareDelete(indexName));
+        final RestoreSnapshotResponse restoreSnapshotResponse = client.admin()
+            .cluster()
+            .prepareRestoreSnapshot(repositoryName, "test-snap-2")
+            .setWaitForCompletion(true)
+            .get();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().failedShards(), equalTo(0));
+        ensureGreen();
+        assertThat(client().prepareSearch(indexName).setSize(0).get().getHits().getTotalHits().value, equalTo((long) numDocs));
+    }
+
+    public void testPartitionedRepositoryData() throws Exception {
+        final Client client = client();
+        final Path location = ESIntegTestCase.randomRepoPath(node().settings());
+        final String repositoryName = "test-repo";
+        assertAcked(
+            client.admin()
+                .cluster()
+                .preparePutRepository(repositoryName)
+                .setType(REPO_TYPE)
+                .setSettings(
+                    Settings.builder()
+                        .put(node().settings())
+                        .put("location", location)
+                        .put(BlobStoreRepository.REPOSITORY_DATA_PARTITIONS_SETTING.getKey(), between(1, 4))
+                )
+        );
+
+        final int numIndices = between(2, 5);
+        for (int i = 0; i < numIndices; i++) {
+            createIndex("test-idx-" + i, Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1).build());
+            client().prepareIndex("test-idx-" + i, "_doc", "1").setSource("text", randomAlphaOfLength(10)).get();
+        }
+        ensureGreen();
+        final CreateSnapshotResponse firstSnapshot = client.admin()
+            .cluster()
+            .prepareCreateSnapshot(repositoryName, "test-snap-1")
+            .setWaitForCompletion(true)
+            .setIndices("test-idx-*")
+            .get();
+        assertThat(firstSnapshot.getSnapshotInfo().state(), equalTo(SnapshotState.SUCCESS));
+        final CreateSnapshotResponse secondSnapshot = client.admin()
+            .cluster()
+            .prepareCreateSnapshot(repositoryName, "test-snap-2")
+            .setWaitForCompletion(true)
+            .setIndices("test-idx-0")
+            .get();
+        assertThat(secondSnapshot.getSnapshotInfo().state(), equalTo(SnapshotState.SUCCESS));
+
+        final RepositoriesService repositoriesService = getInstanceFromNode(RepositoriesService.class);
+        final BlobStoreRepository repository = (BlobStoreRepository) repositoriesService.repository(repositoryName);
+        RepositoryData repositoryData = ESBlobStoreRepositoryIntegTestCase.getRepositoryData(repository);
+        assertThat(repositoryData.getIndices().size(), equalTo(numIndices));
+        assertThat(repositoryData.getSnapshots(repositoryData.resolveIndexId("test-idx-0")).size(), equalTo(2));
+        List<String> indexPartitionBlobs = indexPartitionBlobs(repository, repositoryData.getGenId());
+        assertThat(indexPartitionBlobs, not(empty()));
+        assertThat(
+            repository.blobContainer().listBlobsByPrefix(BlobStoreRepository.INDICES_PARTITION_PREFIX).keySet(),
+            hasItems(indexPartitionBlobs.toArray(new String[0]))
+        );
+
+        logger.info("--> deleting the first snapshot keeps the index partitions of the current and of the previous generation");
+        final List<String> previousIndexPartitionBlobs = indexPartitionBlobs;
+        assertAcked(client.admin().cluster().prepareDeleteSnapshot(repositoryName, "test-snap-1").get());
+        repositoryData = ESBlobStoreRepositoryIntegTestCase.getRepositoryData(repository);
+        assertThat(repositoryData.getIndices().keySet(), equalTo(Collections.singleton("test-idx-0")));
+        indexPartitionBlobs = indexPartitionBlobs(repository, repositoryData.getGenId());
+        assertThat(indexPartitionBlobs.size(), equalTo(1));
+        final Set<String> liveIndexPartitionBlobs = new HashSet<>(indexPartitionBlobs);
+        liveIndexPartitionBlobs.addAll(previousIndexPartitionBlobs);
+        assertThat(
+            repository.blobContainer().listBlobsByPrefix(BlobStoreRepository.INDICES_PARTITION_PREFIX).keySet(),
+            equalTo(liveIndexPartitionBlobs)
+        );
+
+        logger.info("--> cleaning up the repository after another snapshot deletes the index partitions that are not referenced any more");
+        final CreateSnapshotResponse thirdSnapshot = client.admin()
+            .cluster()
+            .prepareCreateSnapshot(repositoryName, "test-snap-3")
+            .setWaitForCompletion(true)
+            .setIndices("test-idx-0")
+            .get();
+        assertThat(thirdSnapshot.getSnapshotInfo().state(), equalTo(SnapshotState.SUCCESS));
+        client.admin().cluster().prepareCleanupRepository(repositoryName).get();
+        repositoryData = ESBlobStoreRepositoryIntegTestCase.getRepositoryData(repository);
+        assertThat(
+            repository.blobContainer().listBlobsByPrefix(BlobStoreRepository.INDICES_PARTITION_PREFIX).keySet(),
+            equalTo(new HashSet<>(indexPartitionBlobs(repository, repositoryData.getGenId())))
+        );
+
+        logger.info("--> restoring the second snapshot");
+        assertAcked(client().admin().indices().prepareDelete("test-idx-0"));
+        final RestoreSnapshotResponse restoreSnapshotResponse = client.admin()
+            .cluster()
+            .prepareRestoreSnapshot(repositoryName, "test-snap-2")
+            .setWaitForCompletion(true)
+            .get();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().failedShards(), equalTo(0));
+    }
+
+    private static List<String> indexPartitionBlobs(BlobStoreRepository repository, long generation) throws IOException {
+        try (
+            InputStream blob = repository.blobContainer().readBlob(BlobStoreRepository.INDEX_FILE_PREFIX + generation);
+            XContentParser parser = XContentType.JSON.xContent()
+                .createParser(NamedXContentRegistry.EMPTY, LoggingDeprecationHandler.INSTANCE, blob)
+        ) {
+            return RepositoryData.indexPartitionBlobsFromXContent(parser);
+        }
+    }
+
+    public void testDeleteSnapshotDeletesUnreferencedBlobs() throws Exception {
+        final Client client = client();
+        final Path location = ESIntegTestCase.randomRepoPath(node().settings());
+        final String repositoryName = "test-repo";
+        assertAcked(
+            client.admin()
+                .cluster()
+                .preparePutRepository(repositoryName)
+                .setType(REPO_TYPE)
+                .setSettings(Settings.builder().put(node().settings()).put("location", location))
+        );
+
+        final int numIndices = between(2, 5);
+        final int numShards = between(1, 3);
+        for (int i = 0; i < numIndices; i++) {
+            createIndex("test-idx-" + i, Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, numShards).build());
+        }
+        ensureGreen();
+        int docId = 0;
+        for (int snapshot = 1; snapshot <= 2; snapshot++) {
+            for (int i = 0; i < numIndices; i++) {
+                final int docs = between(1, 20);
+                for (int j = 0; j < docs; j++) {
+                    client().prepareIndex("test-idx-" + i, "_doc", Integer.toString(docId++))
+                        .setSource("text", randomAlphaOfLength(10))
+                        .get();
+                }
+            }
+            client().admin().indices().prepareFlush("test-idx-*").get();
+            // the second snapshot only contains the first index, so the blobs of the other indices must be deleted as a whole
+            final CreateSnapshotResponse createSnapshotResponse = client.admin()
+                .cluster()
+                .prepareCreateSnapshot(repositoryName, "test-snap-" + snapshot)
+                .setWaitForCompletion(true)
+                .setIndices(snapshot == 1 ? "test-idx-*" : "test-idx-0")
+                .get();
+            assertThat(createSnapshotResponse.getSnapshotInfo().state(), equalTo(SnapshotState.SUCCESS));
+            client().admin().indices().prepareForceMerge("test-idx-*").setMaxNumSegments(1).get();
+        }
+
+        logger.info("--> deleting the first snapshot");
+        assertAcked(client.admin().cluster().prepareDeleteSnapshot(repositoryName, "test-snap-1").get());
+
+        final RepositoriesService repositoriesService = getInstanceFromNode(RepositoriesService.class);
+        final BlobStoreRepository repository = (BlobStoreRepository) repositoriesService.repository(repositoryName);
+        final RepositoryData repositoryData = ESBlobStoreRepositoryIntegTestCase.getRepositoryData(repository);
+        final IndexId indexId = repositoryData.resolveIndexId("test-idx-0");
+        assertThat(
+            repository.blobStore().blobContainer(repository.basePath().add("indices")).children().keySet(),
+            equalTo(Collections.singleton(indexId.getId()))
+        );
+        for (int shardId = 0; shardId < numShards; shardId++) {
+            final BlobStoreIndexShardSnapshots shardSnapshots = repository.getBlobStoreIndexShardSnapshots(
+                indexId,
+                shardId,
+                repositoryData.shardGenerations().getShardGen(indexId, shardId)
+            );
+            final Set<String> referencedBlobs = new HashSet<>();
+            for (SnapshotFiles snapshotFiles : shardSnapshots.snapshots()) {
+                for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : snapshotFiles.indexFiles()) {
+                    for (int part = 0; part < fileInfo.numberOfParts(); part++) {
+                        referencedBlobs.add(fileInfo.partName(part));
+                    }
+                }
+            }
+            assertThat(
+                shardBlobs(repository.shardContainer(indexId, shardId), BlobStoreRepository.UPLOADED_DATA_BLOB_PREFIX),
+                equalTo(
+                    referencedBlobs.stream()
+                        .filter(blob -> blob.startsWith(BlobStoreRepository.UPLOADED_DATA_BLOB_PREFIX))
+                        .collect(Collectors.toSet())
+                )
+            );
+        }
+    }
+
+    public void testDeleteSnapshotDeletesBatchesInParallel() throws Exception {
+        final String repositoryName = "test-repo";
+        final BlobStoreRepository repository = createSnapshotsWithUnreferencedBlobs(repositoryName, "test-idx");
+
+        final CyclicBarrier barrier = new CyclicBarrier(SNAPSHOT_POOL_SIZE);
+        final AtomicInteger batches = new AtomicInteger();
+        final Set<Integer> batchSizes = ConcurrentCollections.newConcurrentSet();
+        shardBlobsDeletionHook = names -> {
+            batchSizes.add(names.size());
+            if (batches.getAndIncrement() < SNAPSHOT_POOL_SIZE) {
+                // only completes if as many batches as there are snapshot threads are deleted at the same time
+                try {
+                    barrier.await(10L, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+        try {
+            assertAcked(client().admin().cluster().prepareDeleteSnapshot(repositoryName, "test-snap-1").get());
+        } finally {
+            shardBlobsDeletionHook = null;
+        }
+
+        assertThat(batches.get(), greaterThan(SNAPSHOT_POOL_SIZE));
+        assertThat(batchSizes, equalTo(Collections.singleton(1)));
+        assertThat(unreferencedDataBlobs(repository, "test-idx"), empty());
+    }
+
+    public void testDeleteSnapshotStopsDeletingBatchesAfterFailure() throws Exception {
+        final String repositoryName = "test-repo";
+        final BlobStoreRepository repository = createSnapshotsWithUnreferencedBlobs(repositoryName, "test-idx");
+
+        final CyclicBarrier barrier = new CyclicBarrier(SNAPSHOT_POOL_SIZE);
+        final AtomicInteger batches = new AtomicInteger();
+        shardBlobsDeletionHook = names -> {
+            final int batch = batches.getAndIncrement();
+            if (batch < SNAPSHOT_POOL_SIZE) {
+                try {
+                    barrier.await(10L, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+                if (batch == 0) {
+                    throw new IOException("simulated");
+                }
+            }
+        };
+        try {
+            client().admin().cluster().prepareDeleteSnapshot(repositoryName, "test-snap-1").get();
+        } catch (Exception e) {
+            // the failure to delete the unreferenced blobs fails the deletion
+        } finally {
+            shardBlobsDeletionHook = null;
+        }
+
+        // the remaining batches are not deleted, their blobs are left for a later deletion or cleanup
+        assertThat(unreferencedDataBlobs(repository, "test-idx"), not(empty()));
+    }
+
+    /**
+     * Creates a repository whose deletions delete one blob per batch, and two snapshots of an index such that the deletion of the first
+     * snapshot leaves many unreferenced shard level blobs.
+     */
+    private BlobStoreRepository createSnapshotsWithUnreferencedBlobs(String repositoryName, String indexName) {
+        final Path location = ESIntegTestCase.randomRepoPath(node().settings());
+        assertAcked(
+            client().admin()
+                .cluster()
+                .preparePutRepository(repositoryName)
+                .setType(REPO_TYPE)
+                .setSettings(
+                    Settings.builder()
+                        .put(node().settings())
+                        .put("location", location)
+                        .put(BlobStoreRepository.DELETION_BATCH_SIZE_SETTING.getKey(), 1)
+                )
+        );
+
+        createIndex(indexName, Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1).build());
+        ensureGreen();
+        int docId = 0;
+        for (int segment = 0; segment < 8; segment++) {
+            for (int i = 0; i < 5; i++) {
+                client().prepareIndex(indexName, "_doc", Integer.toString(docId++)).setSource("text", randomAlphaOfLength(10)).get();
+            }
+            client().admin().indices().prepareFlush(indexName).get();
+        }
+        for (int snapshot = 1; snapshot <= 2; snapshot++) {
+            final CreateSnapshotResponse createSnapshotResponse = client().admin()
+                .cluster()
+                .prepareCreateSnapshot(repositoryName, "test-snap-" + snapshot)
+                .setWaitForCompletion(true)
+                .setIndices(indexName)
+                .get();
+            assertThat(createSnapshotResponse.getSnapshotInfo().state(), equalTo(SnapshotState.SUCCESS));
+            // the second snapshot does not reference any of the segments of the first one
+            client().admin().indices().prepareForceMerge(indexName).setMaxNumSegments(1).get();
+        }
+        final RepositoriesService repositoriesService = getInstanceFromNode(RepositoriesService.class);
+        return (BlobStoreRepository) repositoriesService.repository(repositoryName);
+    }
+
+    /**
+     * @return the data blobs of the single shard of the given index that no snapshot references
+     */
+    private static Set<String> unreferencedDataBlobs(BlobStoreRepository repository, String indexName) throws IOException {
+        final RepositoryData repositoryData = ESBlobStoreRepositoryIntegTestCase.getRepositoryData(repository);
+        final IndexId indexId = repositoryData.resolveIndexId(indexName);
+        final BlobStoreIndexShardSnapshots shardSnapshots = repository.getBlobStoreIndexShardSnapshots(
+            indexId,
+            0,
+            repositoryData.shardGenerations().getShardGen(indexId, 0)
+        );
+        final Set<String> unreferencedBlobs = new HashSet<>(
+            shardBlobs(repository.shardContainer(indexId, 0), BlobStoreRepository.UPLOADED_DATA_BLOB_PREFIX)
+        );
+        for (SnapshotFiles snapshotFiles : shardSnapshots.snapshots()) {
+            for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : snapshotFiles.indexFiles()) {
+                for (int part = 0; part < fileInfo.numberOfParts(); part++) {
+                    unreferencedBlobs.remove(fileInfo.partName(part));
+                }
+            }
+        }
+        return unreferencedBlobs;
+    }
+
+    private static Set<String> shardBlobs(BlobContainer shardContainer, String prefix) throws IOException {
+        return shardContainer.listBlobsByPrefix(prefix).keySet();
+    }
+
     private static void writeIndexGen(BlobStoreRepository repository, RepositoryData repositoryData, long generation) throws Exception {
         PlainActionFuture.<RepositoryData, Exception>get(
             f -> repository.writeIndexGen(repositoryData, generation, Version.CURRENT, Function.identity(), f)
@@ -0,0 +1,117 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ContentDefinedBlockSplitterTests extends ESTestCase {
+
+    public void testSplit() {
+        final long averageSize = 1L << randomIntBetween(6, 12);
+        final long maxSize = randomLongBetween(averageSize, 4L * averageSize);
+        final byte[] bytes = randomByteArrayOfLength(randomIntBetween(0, 1 << 16));
+
+        final List<BlobStoreIndexShardSnapshot.Block> blocks = split(averageSize, maxSize, bytes, bytes.length);
+        assertThat(split(averageSize, maxSize, bytes, bytes.length), equalTo(blocks));
+
+        int offset = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            final BlobStoreIndexShardSnapshot.Block block = blocks.get(i);
+            assertThat(block.length(), lessThanOrEqualTo(maxSize));
+            if (i < blocks.size() - 1) {
+                assertThat(block.length(), greaterThanOrEqualTo(Math.min(averageSize / 4L, maxSize)));
+            }
+            final int length = Math.toIntExact(block.length());
+            final byte[] hash = MessageDigests.sha256().digest(Arrays.copyOfRange(bytes, offset, offset + length));
+            assertThat(block.hash(), equalTo(MessageDigests.toHexString(hash)));
+            offset += length;
+        }
+        assertThat(offset, equalTo(bytes.length));
+    }
+
+    public void testFindBlockEndInChunks() {
+        final long averageSize = 1L << randomIntBetween(6, 12);
+        final long maxSize = randomLongBetween(averageSize, 4L * averageSize);
+        final byte[] bytes = randomByteArrayOfLength(randomIntBetween(0, 1 << 16));
+
+        // scanning the bytes in arbitrary chunks finds the same boundaries as scanning them at once
+        assertThat(
+            split(averageSize, maxSize, bytes, randomIntBetween(1, Math.toIntExact(2L * maxSize))),
+            equalTo(split(averageSize, maxSize, bytes, bytes.length))
+        );
+    }
+
+    public void testBoundariesAreContentDefined() {
+        final long averageSize = 1L << randomIntBetween(8, 10);
+        final byte[] bytes = randomByteArrayOfLength(Math.toIntExact(averageSize * 64L));
+
+        // inserts a few bytes in the middle of the file
+        final int insertionPoint = randomIntBetween(0, bytes.length);
+        final byte[] insertion = randomByteArrayOfLength(randomIntBetween(1, 16));
+        final byte[] modified = new byte[bytes.length + insertion.length];
+        System.arraycopy(bytes, 0, modified, 0, insertionPoint);
+        System.arraycopy(insertion, 0, modified, insertionPoint, insertion.length);
+        System.arraycopy(bytes, insertionPoint, modified, insertionPoint + insertion.length, bytes.length - insertionPoint);
+
+        final List<BlobStoreIndexShardSnapshot.Block> blocks = split(averageSize, 4L * averageSize, bytes, bytes.length);
+        final Set<BlobStoreIndexShardSnapshot.Block> modifiedBlocks = new HashSet<>(
+            split(averageSize, 4L * averageSize, modified, modified.length)
+        );
+        long sharedBytes = 0L;
+        for (BlobStoreIndexShardSnapshot.Block block : blocks) {
+            if (modifiedBlocks.contains(block)) {
+                sharedBytes += block.length();
+            }
+        }
+        // only the blocks around the insertion point change, whereas with fixed-size blocks all the following ones would change
+        assertThat(sharedBytes, greaterThan(bytes.length / 2L));
+    }
+
+    /**
+     * Splits the given bytes into blocks by passing them to {@link ContentDefinedBlockSplitter#findBlockEnd} in chunks of the given size,
+     * like a file that is read into a buffer.
+     */
+    private static List<BlobStoreIndexShardSnapshot.Block> split(long averageSize, long maxSize, byte[] bytes, int chunkSize) {
+        final ContentDefinedBlockSplitter splitter = new ContentDefinedBlockSplitter(averageSize, maxSize);
+        final List<BlobStoreIndexShardSnapshot.Block> blocks = new ArrayList<>();
+        int blockStart = 0;
+        int offset = 0;
+        while (offset < bytes.length) {
+            final int chunkEnd = Math.min(bytes.length, offset + chunkSize);
+            final int blockEnd = splitter.findBlockEnd(bytes, offset, chunkEnd - offset);
+            offset = blockEnd < 0 ? chunkEnd : blockEnd;
+            if (blockEnd >= 0) {
+                blocks.add(block(bytes, blockStart, blockEnd));
+                blockStart = blockEnd;
+            }
+        }
+        if (blockStart < bytes.length) {
+            blocks.add(block(bytes, blockStart, bytes.length));
+        }
+        return blocks;
+    }
+
+    private static BlobStoreIndexShardSnapshot.Block block(byte[] bytes, int from, int to) {
+        final byte[] hash = MessageDigests.sha256().digest(Arrays.copyOfRange(bytes, from, to));
+        return new BlobStoreIndexShardSnapshot.Block(MessageDigests.toHexString(hash), to - from);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.script.field;
+
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DoubleDocValuesFieldTests extends ESTestCase {
+    public void testDoubles() throws IOException {
+        double[][] values = new double[between(3, 10)][];
+        for (int d = 0; d < values.length; d++) {
+            values[d] = new double[randomBoolean() ? randomBoolean() ? 0 : 1 : between(2, 100)];
+            for (int i = 0; i < values[d].length; i++) {
+                values[d][i] = randomDouble();
+            }
+        }
+
+        DoubleDocValuesField field = wrap(values);
+        assertEquals("test", field.getName());
+
+        for (int round = 0; round < 10; round++) {
+            int d = between(0, values.length - 1);
+            field.setNextDocId(d);
+            double defaultValue = randomDouble();
+            assertEquals(values[d].length, field.size());
+            assertEquals(values[d].length == 0, field.isEmpty());
+            if (values[d].length > 0) {
+                assertEquals(values[d][0], field.getValue(defaultValue), 0d);
+            } else {
+                assertEquals(defaultValue, field.getValue(defaultValue), 0d);
+            }
+            List<Double> expected = new ArrayList<>();
+            for (int i = 0; i < values[d].length; i++) {
+                assertEquals(values[d][i], field.getValue(i, defaultValue), 0d);
+                expected.add(values[d][i]);
+            }
+            assertEquals(expected, field.getValues());
+            assertEquals(defaultValue, field.getValue(-1, defaultValue), 0d);
+            assertEquals(defaultValue, field.getValue(values[d].length, defaultValue), 0d);
+        }
+    }
+
+    public void testFewerValuesAfterMoreValues() throws IOException {
+        DoubleDocValuesField field = wrap(new double[][] { new double[] { 1.5, 2.5, 3.5 }, new double[] { 4.5 } });
+        field.setNextDocId(0);
+        assertEquals(3, field.size());
+        field.setNextDocId(1);
+        assertEquals(1, field.size());
+        assertEquals(4.5, field.getValue(0, -1), 0d);
+        // values of the previous document are not visible anymore
+        assertEquals(-1, field.getValue(1, -1), 0d);
+    }
+
+    private DoubleDocValuesField wrap(double[][] values) {
+        return new DoubleDocValuesField(new SortedNumericDoubleValues() {
+            double[] current;
+            int i;
+
+            @Override
+            public boolean advanceExact(int doc) {
+                i = 0;
+                current = values[doc];
+                return current.length > 0;
+            }
+
+            @Override
+            public int docValueCount() {
+                return current.length;
+            }
+
+            @Override
+            public double nextValue() {
+                return current[i++];
+            }
+        }, "test");
+    }
+}
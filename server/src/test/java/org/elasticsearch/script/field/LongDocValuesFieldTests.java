@@ -0,0 +1,87 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.script.field;
+
+import org.elasticsearch.index.fielddata.AbstractSortedNumericDocValues;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LongDocValuesFieldTests extends ESTestCase {
+    public void testLongs() throws IOException {
+        long[][] values = new long[between(3, 10)][];
+        for (int d = 0; d < values.length; d++) {
+            values[d] = new long[randomBoolean() ? randomBoolean() ? 0 : 1 : between(2, 100)];
+            for (int i = 0; i < values[d].length; i++) {
+                values[d][i] = randomLong();
+            }
+        }
+
+        LongDocValuesField field = wrap(values);
+        assertEquals("test", field.getName());
+
+        for (int round = 0; round < 10; round++) {
+            int d = between(0, values.length - 1);
+            field.setNextDocId(d);
+            long defaultValue = randomLong();
+            assertEquals(values[d].length, field.size());
+            assertEquals(values[d].length == 0, field.isEmpty());
+            if (values[d].length > 0) {
+                assertEquals(values[d][0], field.getValue(defaultValue));
+            } else {
+                assertEquals(defaultValue, field.getValue(defaultValue));
+            }
+            List<Long> expected = new ArrayList<>();
+            for (int i = 0; i < values[d].length; i++) {
+                assertEquals(values[d][i], field.getValue(i, defaultValue));
+                expected.add(values[d][i]);
+            }
+            assertEquals(expected, field.getValues());
+            assertEquals(defaultValue, field.getValue(-1, defaultValue));
+            assertEquals(defaultValue, field.getValue(values[d].length, defaultValue));
+        }
+    }
+
+    public void testFewerValuesAfterMoreValues() throws IOException {
+        LongDocValuesField field = wrap(new long[][] { new long[] { 1, 2, 3 }, new long[] { 4 } });
+        field.setNextDocId(0);
+        assertEquals(3, field.size());
+        field.setNextDocId(1);
+        assertEquals(1, field.size());
+        assertEquals(4, field.getValue(0, -1));
+        // values of the previous document are not visible anymore
+        assertEquals(-1, field.getValue(1, -1));
+    }
+
+    private LongDocValuesField wrap(long[][] values) {
+        return new LongDocValuesField(new AbstractSortedNumericDocValues() {
+            long[] current;
+            int i;
+
+            @Override
+            public boolean advanceExact(int doc) {
+                i = 0;
+                current = values[doc];
+                return current.length > 0;
+            }
+
+            @Override
+            public int docValueCount() {
+                return current.length;
+            }
+
+            @Override
+            public long nextValue() {
+                return current[i++];
+            }
+        }, "test");
+    }
+}
@@ -41,6 +41,8 @@ import org.elasticsearch.search.aggregations.bucket.terms.StringRareTermsTests;
 import org.elasticsearch.search.aggregations.bucket.terms.StringTermsTests;
 import org.elasticsearch.search.aggregations.metrics.InternalAvgTests;
 import org.elasticsearch.search.aggregations.metrics.InternalCardinalityTests;
+import org.elasticsearch.search.aggregations.metrics.InternalDDSketchPercentilesRanksTests;
+import org.elasticsearch.search.aggregations.metrics.InternalDDSketchPercentilesTests;
 import org.elasticsearch.search.aggregations.metrics.InternalExtendedStatsTests;
 import org.elasticsearch.search.aggregations.metrics.InternalGeoBoundsTests;
 import org.elasticsearch.search.aggregations.metrics.InternalGeoCentroidTests;
@@ -101,6 +103,8 @@ public class AggregationsTests extends ESTestCase {
         aggsTests.add(new InternalCardinalityTests());
         aggsTests.add(new InternalTDigestPercentilesTests());
         aggsTests.add(new InternalTDigestPercentilesRanksTests());
+        aggsTests.add(new InternalDDSketchPercentilesTests());
+        aggsTests.add(new InternalDDSketchPercentilesRanksTests());
         aggsTests.add(new InternalHDRPercentilesTests());
         aggsTests.add(new InternalHDRPercentilesRanksTests());
         aggsTests.add(new InternalPercentilesBucketTests());
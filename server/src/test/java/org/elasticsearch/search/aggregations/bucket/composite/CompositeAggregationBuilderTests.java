@@ -18,6 +18,8 @@ import org.elasticsearch.search.sort.SortOrder;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.hamcrest.Matchers.equalTo;
+
 public class CompositeAggregationBuilderTests extends BaseAggregationTestCase<CompositeAggregationBuilder> {
     private DateHistogramValuesSourceBuilder randomDateHistogramSourceBuilder() {
         DateHistogramValuesSourceBuilder histo = new DateHistogramValuesSourceBuilder(randomAlphaOfLengthBetween(5, 10));
@@ -115,6 +117,16 @@ public class CompositeAggregationBuilderTests extends BaseAggregationTestCase<Co
                     throw new AssertionError("wrong branch");
             }
         }
-        return new CompositeAggregationBuilder(randomAlphaOfLength(10), sources);
+        CompositeAggregationBuilder builder = new CompositeAggregationBuilder(randomAlphaOfLength(10), sources);
+        if (randomBoolean()) {
+            builder.prefetchPages(randomIntBetween(1, 10));
+        }
+        return builder;
+    }
+
+    public void testInvalidPrefetchPages() {
+        CompositeAggregationBuilder builder = new CompositeAggregationBuilder("name", List.of(randomTermsSourceBuilder()));
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> builder.prefetchPages(0));
+        assertThat(e.getMessage(), equalTo("[prefetch_pages] must be greater than 0. Found [0] in [name]"));
     }
 }
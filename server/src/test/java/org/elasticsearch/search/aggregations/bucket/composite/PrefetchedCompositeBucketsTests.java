@@ -0,0 +1,134 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PrefetchedCompositeBucketsTests extends ESTestCase {
+
+    private static final List<String> SOURCE_NAMES = List.of("value");
+    private static final List<DocValueFormat> FORMATS = List.of(DocValueFormat.RAW);
+    private static final MissingOrder[] MISSING_ORDERS = new MissingOrder[] { MissingOrder.DEFAULT };
+
+    public void testFirstPages() {
+        PrefetchedCompositeBuckets prefetched = prefetched(null, 1, false, 0L, 10L, 20L, 30L, 40L, 50L);
+        assertThat(keys(prefetched.page("signature", null, 3)), contains(0L, 10L, 20L));
+        assertThat(keys(prefetched.page("signature", key(20L), 3)), contains(30L, 40L, 50L));
+        // the after key of the coordinating node may be smaller than the last key returned by this shard
+        assertThat(keys(prefetched.page("signature", key(15L), 3)), contains(20L, 30L, 40L));
+        // not enough buckets were collected to fill the page
+        assertThat(prefetched.page("signature", key(30L), 3), nullValue());
+        assertThat(prefetched.page("other_signature", null, 3), nullValue());
+    }
+
+    public void testExhausted() {
+        PrefetchedCompositeBuckets prefetched = prefetched(null, 1, true, 0L, 10L, 20L);
+        assertThat(keys(prefetched.page("signature", key(10L), 3)), contains(20L));
+        assertThat(prefetched.page("signature", key(20L), 3), empty());
+        assertThat(prefetched.page("signature", key(100L), 3), empty());
+    }
+
+    public void testPagesAfterKey() {
+        PrefetchedCompositeBuckets prefetched = prefetched(key(5L), 1, false, 10L, 20L, 30L, 40L);
+        // the buckets before the after key of the collecting request are unknown
+        assertThat(prefetched.page("signature", null, 2), nullValue());
+        assertThat(prefetched.page("signature", key(0L), 2), nullValue());
+        assertThat(keys(prefetched.page("signature", key(5L), 2)), contains(10L, 20L));
+        assertThat(keys(prefetched.page("signature", key(20L), 2)), contains(30L, 40L));
+    }
+
+    public void testReverseOrder() {
+        PrefetchedCompositeBuckets prefetched = prefetched(null, -1, false, 50L, 40L, 30L, 20L);
+        assertThat(keys(prefetched.page("signature", null, 2)), contains(50L, 40L));
+        assertThat(keys(prefetched.page("signature", key(45L), 2)), contains(40L, 30L));
+        assertThat(prefetched.page("signature", key(30L), 2), nullValue());
+    }
+
+    public void testCloseReleasesBreakerOnce() {
+        AtomicLong used = new AtomicLong();
+        CircuitBreaker breaker = new NoopCircuitBreaker(CircuitBreaker.REQUEST) {
+            @Override
+            public void addWithoutBreaking(long bytes) {
+                used.addAndGet(bytes);
+            }
+        };
+        long ramBytesUsed = randomLongBetween(1, 1024);
+        used.addAndGet(ramBytesUsed);
+        PrefetchedCompositeBuckets prefetched = prefetched(null, 1, true, breaker, ramBytesUsed, 0L, 10L);
+        prefetched.close();
+        assertThat(used.get(), equalTo(0L));
+        prefetched.close();
+        assertThat(used.get(), equalTo(0L));
+    }
+
+    private static PrefetchedCompositeBuckets prefetched(CompositeKey from, int reverseMul, boolean exhausted, Long... keys) {
+        return prefetched(from, reverseMul, exhausted, new NoopCircuitBreaker(CircuitBreaker.REQUEST), 0L, keys);
+    }
+
+    private static PrefetchedCompositeBuckets prefetched(
+        CompositeKey from,
+        int reverseMul,
+        boolean exhausted,
+        CircuitBreaker breaker,
+        long ramBytesUsed,
+        Long... keys
+    ) {
+        int[] reverseMuls = new int[] { reverseMul };
+        List<InternalComposite.InternalBucket> buckets = new ArrayList<>();
+        for (Long key : keys) {
+            buckets.add(
+                new InternalComposite.InternalBucket(
+                    SOURCE_NAMES,
+                    FORMATS,
+                    key(key),
+                    reverseMuls,
+                    MISSING_ORDERS,
+                    1,
+                    InternalAggregations.EMPTY
+                )
+            );
+        }
+        return new PrefetchedCompositeBuckets(
+            "signature",
+            from,
+            buckets,
+            exhausted,
+            false,
+            SOURCE_NAMES,
+            FORMATS,
+            reverseMuls,
+            MISSING_ORDERS,
+            breaker,
+            ramBytesUsed
+        );
+    }
+
+    private static CompositeKey key(long value) {
+        return new CompositeKey(value);
+    }
+
+    private static List<Long> keys(List<InternalComposite.InternalBucket> buckets) {
+        assertNotNull(buckets);
+        return buckets.stream().map(bucket -> (Long) bucket.getRawKey().get(0)).collect(Collectors.toList());
+    }
+}
@@ -9,21 +9,27 @@
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.apache.logging.log4j.Level;
+import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.TestUtil;
 import org.elasticsearch.common.time.DateFormatter;
 import org.elasticsearch.common.time.DateFormatters;
 import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.codec.skipindex.SkipIndexDocValuesFormat;
 import org.elasticsearch.index.mapper.BooleanFieldMapper;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.FieldNamesFieldMapper;
@@ -34,6 +40,7 @@ import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
 import org.elasticsearch.search.aggregations.bucket.range.RangeAggregator;
 import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MinAggregationBuilder;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
@@ -1464,6 +1471,67 @@ public class DateHistogramAggregatorTests extends DateHistogramAggregatorTestCas
         }
     }
 
+    public void testSkipIndexCollectsSameBucketsAsDocValues() throws IOException {
+        int numDocs = randomIntBetween(1, 5000);
+        long[][] docs = new long[numDocs][];
+        long start = asLong("2021-01-01T00:00:00");
+        long value = start;
+        for (int i = 0; i < numDocs; i++) {
+            // mostly increasing dates, so that whole blocks of documents fall into a single bucket
+            value += randomLongBetween(0, 60_000);
+            if (rarely()) {
+                docs[i] = new long[0];
+            } else if (randomBoolean()) {
+                docs[i] = new long[] { value };
+            } else {
+                docs[i] = new long[] { value, value + randomLongBetween(0, 60_000) };
+            }
+        }
+        DateHistogramAggregationBuilder aggBuilder = new DateHistogramAggregationBuilder("_name").field(AGGREGABLE_DATE)
+            .fixedInterval(new DateHistogramInterval(randomIntBetween(1, 120) + "m"))
+            .subAggregation(new MinAggregationBuilder("min").field(AGGREGABLE_DATE));
+        if (randomBoolean()) {
+            long lower = randomLongBetween(start, value);
+            aggBuilder.hardBounds(new LongBounds(lower, lower + randomLongBetween(0, 86_400_000)));
+        }
+        // the field isn't searchable so that the aggregation can't be rewritten to a range aggregation
+        DateFieldMapper.DateFieldType fieldType = aggregableDateFieldType(false, false);
+        InternalDateHistogram expected = dateHistogramWithDocValuesFormat(docs, aggBuilder, fieldType, null);
+        InternalDateHistogram actual = dateHistogramWithDocValuesFormat(
+            docs,
+            aggBuilder,
+            fieldType,
+            new SkipIndexDocValuesFormat(randomIntBetween(2, 6))
+        );
+        assertEquals(expected, actual);
+    }
+
+    private InternalDateHistogram dateHistogramWithDocValuesFormat(
+        long[][] docs,
+        DateHistogramAggregationBuilder aggBuilder,
+        DateFieldMapper.DateFieldType fieldType,
+        @Nullable DocValuesFormat docValuesFormat
+    ) throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(null);
+        if (docValuesFormat != null) {
+            config.setCodec(TestUtil.alwaysDocValuesFormat(docValuesFormat));
+        }
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter indexWriter = new IndexWriter(directory, config)) {
+                for (long[] values : docs) {
+                    Document document = new Document();
+                    for (long value : values) {
+                        document.add(new SortedNumericDocValuesField(AGGREGABLE_DATE, value));
+                    }
+                    indexWriter.addDocument(document);
+                }
+            }
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                return searchAndReduce(new IndexSearcher(indexReader), new MatchAllDocsQuery(), aggBuilder, fieldType);
+            }
+        }
+    }
+
     private static long asLong(String dateTime) {
         return DateFormatters.from(DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER.parse(dateTime)).toInstant().toEpochMilli();
     }
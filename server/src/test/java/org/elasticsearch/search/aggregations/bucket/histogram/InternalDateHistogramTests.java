@@ -8,6 +8,7 @@
 
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Rounding;
 import org.elasticsearch.common.Rounding.DateTimeUnit;
 import org.elasticsearch.core.TimeValue;
@@ -17,7 +18,9 @@ import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.test.InternalMultiBucketAggregationTestCase;
+import org.elasticsearch.test.VersionUtils;
 
+import java.io.IOException;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -237,4 +240,13 @@ public class InternalDateHistogramTests extends InternalMultiBucketAggregationTe
             100000
         );
     }
+
+    public void testSerializationBeforeColumnarBuckets() throws IOException {
+        Version version = VersionUtils.randomVersionBetween(
+            random(),
+            Version.V_7_15_0,
+            VersionUtils.getPreviousVersion(InternalDateHistogram.COLUMNAR_BUCKETS_VERSION)
+        );
+        assertSerialization(createTestInstance(), version);
+    }
 }
@@ -8,18 +8,28 @@
 
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.NumericUtils;
+import org.apache.lucene.util.TestUtil;
 import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.codec.skipindex.DocValuesSkipIndex;
+import org.elasticsearch.index.codec.skipindex.SkipIndexDocValuesFormat;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
@@ -443,4 +453,64 @@ public class NumericHistogramAggregatorTests extends AggregatorTestCase {
         };
         testCase(request, new MatchAllDocsQuery(), buildIndex, verify, longField("outer"), longField("inner"), longField("n"));
     }
+
+    public void testSkipIndexCollectsSameBucketsAsDocValues() throws IOException {
+        int numDocs = randomIntBetween(1, 5000);
+        long[][] docs = new long[numDocs][];
+        long value = randomLongBetween(-1000, 1000);
+        for (int i = 0; i < numDocs; i++) {
+            // mostly increasing values, so that whole blocks of documents fall into a single bucket
+            value += randomIntBetween(0, 2);
+            if (rarely()) {
+                docs[i] = new long[0];
+            } else if (randomBoolean()) {
+                docs[i] = new long[] { value };
+            } else {
+                docs[i] = new long[] { value, value + randomIntBetween(0, 3) };
+            }
+        }
+        HistogramAggregationBuilder aggBuilder = new HistogramAggregationBuilder("my_agg").field("field")
+            .interval(randomIntBetween(1, 200))
+            .offset(randomIntBetween(0, 10))
+            .subAggregation(new MinAggregationBuilder("min").field("field"));
+        if (randomBoolean()) {
+            double lower = randomDoubleBetween(-1000, value, true);
+            aggBuilder.hardBounds(new DoubleBounds(lower, lower + randomDoubleBetween(0, 5000, true)));
+        }
+        InternalHistogram expected = histogramWithDocValuesFormat(docs, aggBuilder, null);
+        InternalHistogram actual = histogramWithDocValuesFormat(docs, aggBuilder, new SkipIndexDocValuesFormat(randomIntBetween(2, 6)));
+        assertEquals(expected, actual);
+    }
+
+    private InternalHistogram histogramWithDocValuesFormat(
+        long[][] docs,
+        HistogramAggregationBuilder aggBuilder,
+        @Nullable DocValuesFormat docValuesFormat
+    ) throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(null);
+        if (docValuesFormat != null) {
+            config.setCodec(TestUtil.alwaysDocValuesFormat(docValuesFormat));
+        }
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter w = new IndexWriter(dir, config)) {
+                for (long[] values : docs) {
+                    Document doc = new Document();
+                    for (long value : values) {
+                        doc.add(new SortedNumericDocValuesField("field", value));
+                    }
+                    w.addDocument(doc);
+                }
+            }
+            try (IndexReader reader = DirectoryReader.open(dir)) {
+                if (docValuesFormat != null) {
+                    for (LeafReaderContext ctx : reader.leaves()) {
+                        if (ctx.reader().getFieldInfos().fieldInfo("field") != null) {
+                            assertNotNull(DocValuesSkipIndex.get(DocValues.getSortedNumeric(ctx.reader(), "field")));
+                        }
+                    }
+                }
+                return searchAndReduce(new IndexSearcher(reader), new MatchAllDocsQuery(), aggBuilder, longField("field"));
+            }
+        }
+    }
 }
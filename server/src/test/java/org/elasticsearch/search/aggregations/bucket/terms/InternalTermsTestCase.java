@@ -8,10 +8,13 @@
 
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.test.InternalMultiBucketAggregationTestCase;
+import org.elasticsearch.test.VersionUtils;
 import org.junit.Before;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +93,15 @@ public abstract class InternalTermsTestCase extends InternalMultiBucketAggregati
         }
     }
 
+    public void testSerializationBeforeColumnarBuckets() throws IOException {
+        Version version = VersionUtils.randomVersionBetween(
+            random(),
+            Version.V_7_15_0,
+            VersionUtils.getPreviousVersion(InternalMappedTerms.COLUMNAR_BUCKETS_VERSION)
+        );
+        assertSerialization(createTestInstance(), version);
+    }
+
     private static Map<Object, Long> toCounts(Stream<? extends Terms.Bucket> buckets) {
         return buckets.collect(Collectors.toMap(Terms.Bucket::getKey, Terms.Bucket::getDocCount, Long::sum));
     }
@@ -12,6 +12,7 @@ import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.StoredField;
@@ -26,7 +27,11 @@ import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.mapper.BinaryFieldMapper;
+import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.index.mapper.NumberFieldMapper.NumberFieldType;
@@ -37,7 +42,9 @@ import org.elasticsearch.index.mapper.TextFieldMapper;
 import org.elasticsearch.index.mapper.TextFieldMapper.TextFieldType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.indices.IndicesBackgroundFrequencyCache;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
 import org.elasticsearch.search.aggregations.bucket.terms.SignificantTermsAggregatorFactory.ExecutionMode;
 import org.elasticsearch.search.aggregations.bucket.terms.heuristic.ChiSquare;
@@ -54,12 +61,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.elasticsearch.search.aggregations.AggregationBuilders.significantTerms;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 
 public class SignificantTermsAggregatorTests extends AggregatorTestCase {
 
+    private IndicesBackgroundFrequencyCache backgroundFrequencyCache;
+
     static SignificanceHeuristic getRandomSignificanceheuristic() {
         List<SignificanceHeuristic> heuristics = new ArrayList<>();
         heuristics.add(new JLHScore());
@@ -70,6 +82,11 @@ public class SignificantTermsAggregatorTests extends AggregatorTestCase {
         return heuristics.get(randomInt(4));
     }
 
+    @Override
+    protected IndicesBackgroundFrequencyCache backgroundFrequencyCache() {
+        return backgroundFrequencyCache != null ? backgroundFrequencyCache : super.backgroundFrequencyCache();
+    }
+
     @Override
     protected AggregationBuilder createAggBuilderForTypeTest(MappedFieldType fieldType, String fieldName) {
         return new SignificantTermsAggregationBuilder("foo").field(fieldName);
@@ -579,6 +596,85 @@ public class SignificantTermsAggregatorTests extends AggregatorTestCase {
         }
     }
 
+    public void testBackgroundFrequenciesAreNotCachedIfFilterDependsOnTheRequest() throws IOException {
+        TextFieldType textFieldType = new TextFieldType("text");
+        textFieldType.setFielddata(true);
+        DateFieldMapper.DateFieldType dateFieldType = new DateFieldMapper.DateFieldType("date");
+        long now = System.currentTimeMillis();
+
+        try (Directory dir = newDirectory(); IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(new StandardAnalyzer()))) {
+            for (int i = 0; i < 10; i++) {
+                Document doc = new Document();
+                doc.add(new Field("text", i % 2 == 0 ? "common odd" : "common even", TextFieldMapper.Defaults.FIELD_TYPE));
+                long date = now - TimeUnit.DAYS.toMillis(i);
+                doc.add(new LongPoint("date", date));
+                doc.add(new SortedNumericDocValuesField("date", date));
+                w.addDocument(doc);
+            }
+            backgroundFrequencyCache = new IndicesBackgroundFrequencyCache(
+                Settings.EMPTY,
+                new NoopCircuitBreaker(CircuitBreaker.REQUEST)
+            );
+            try (IndexReader reader = DirectoryReader.open(w)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                SignificantTermsAggregationBuilder sigAgg = new SignificantTermsAggregationBuilder("sig_text").field("text");
+
+                sigAgg.backgroundFilter(QueryBuilders.rangeQuery("date").gte("now-5d"));
+                searchAndReduce(searcher, new TermQuery(new Term("text", "odd")), sigAgg, textFieldType, dateFieldType);
+                assertThat(backgroundFrequencyCache.count(), equalTo(0));
+
+                sigAgg.backgroundFilter(QueryBuilders.rangeQuery("date").gte(now - TimeUnit.DAYS.toMillis(5)));
+                searchAndReduce(searcher, new TermQuery(new Term("text", "odd")), sigAgg, textFieldType, dateFieldType);
+                assertThat(backgroundFrequencyCache.count(), greaterThan(0));
+            } finally {
+                backgroundFrequencyCache.close();
+                backgroundFrequencyCache = null;
+            }
+        }
+    }
+
+    public void testBackgroundFrequencyCacheProfile() throws IOException {
+        TextFieldType textFieldType = new TextFieldType("text");
+        textFieldType.setFielddata(true);
+
+        try (Directory dir = newDirectory(); IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(new StandardAnalyzer()))) {
+            addMixedTextDocs(w);
+            backgroundFrequencyCache = new IndicesBackgroundFrequencyCache(
+                Settings.EMPTY,
+                new NoopCircuitBreaker(CircuitBreaker.REQUEST)
+            );
+            try (IndexReader reader = DirectoryReader.open(w)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                SignificantTermsAggregationBuilder sigAgg = new SignificantTermsAggregationBuilder("sig_text").field("text");
+
+                debugTestCase(
+                    sigAgg,
+                    new TermQuery(new Term("text", "odd")),
+                    searcher,
+                    (SignificantStringTerms result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                        assertThat(debug.get("sig_text").get("background_frequency_cache_hits"), equalTo(0));
+                        assertThat((Integer) debug.get("sig_text").get("background_frequency_cache_misses"), greaterThan(0));
+                    },
+                    textFieldType
+                );
+                // the next request finds the frequencies in the cache
+                debugTestCase(
+                    sigAgg,
+                    new TermQuery(new Term("text", "odd")),
+                    searcher,
+                    (SignificantStringTerms result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                        assertThat((Integer) debug.get("sig_text").get("background_frequency_cache_hits"), greaterThan(0));
+                        assertThat(debug.get("sig_text").get("background_frequency_cache_misses"), equalTo(0));
+                    },
+                    textFieldType
+                );
+            } finally {
+                backgroundFrequencyCache.close();
+                backgroundFrequencyCache = null;
+            }
+        }
+    }
+
     private void addMixedTextDocs(IndexWriter w) throws IOException {
         for (int i = 0; i < 10; i++) {
             Document doc = new Document();
@@ -12,13 +12,17 @@ import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.document.IntPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.geo.GeoPoint;
 import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.MapperBuilderContext;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.index.mapper.RangeFieldMapper;
 import org.elasticsearch.index.mapper.RangeType;
@@ -156,6 +160,46 @@ public class CardinalityAggregatorTests extends AggregatorTestCase {
         });
     }
 
+    public void testPrecomputedHashes() throws IOException {
+        MappedFieldType fieldType = new KeywordFieldMapper.Builder("keyword").precomputeHash(true)
+            .build(MapperBuilderContext.ROOT)
+            .fieldType();
+        // a low precision makes the aggregator hash values instead of collecting ordinals
+        CardinalityAggregationBuilder aggregationBuilder = new CardinalityAggregationBuilder("name").field("keyword")
+            .precisionThreshold(0);
+        testAggregation(aggregationBuilder, new MatchAllDocsQuery(), iw -> {
+            for (int i = 0; i < 10; i++) {
+                // all values share the same fake hash, so they are counted as a single value if the hashes are used
+                iw.addDocument(
+                    Arrays.asList(
+                        new SortedSetDocValuesField("keyword", new BytesRef("value" + i)),
+                        new SortedNumericDocValuesField("keyword" + KeywordFieldMapper.HASH_FIELD_SUFFIX, 42L)
+                    )
+                );
+            }
+        }, card -> {
+            assertEquals(1, card.getValue(), 0);
+            assertTrue(AggregationInspectionHelper.hasValue(card));
+        }, fieldType);
+    }
+
+    public void testPrecomputedHashesMissingFromSegment() throws IOException {
+        MappedFieldType fieldType = new KeywordFieldMapper.Builder("keyword").precomputeHash(true)
+            .build(MapperBuilderContext.ROOT)
+            .fieldType();
+        CardinalityAggregationBuilder aggregationBuilder = new CardinalityAggregationBuilder("name").field("keyword")
+            .precisionThreshold(0);
+        // readers that filter fields may hide the hashes, which are then computed from the values
+        testAggregation(aggregationBuilder, new MatchAllDocsQuery(), iw -> {
+            for (int i = 0; i < 10; i++) {
+                iw.addDocument(singleton(new SortedSetDocValuesField("keyword", new BytesRef("value" + i))));
+            }
+        }, card -> {
+            assertEquals(10, card.getValue(), 0);
+            assertTrue(AggregationInspectionHelper.hasValue(card));
+        }, fieldType);
+    }
+
     private void testAggregation(
         Query query,
         CheckedConsumer<RandomIndexWriter, IOException> buildIndex,
@@ -0,0 +1,166 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
+import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
+import org.elasticsearch.search.aggregations.support.ValuesSourceType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+
+public class DDSketchPercentilesAggregatorTests extends AggregatorTestCase {
+
+    @Override
+    protected AggregationBuilder createAggBuilderForTypeTest(MappedFieldType fieldType, String fieldName) {
+        return new PercentilesAggregationBuilder("ddsketch_percentiles").field(fieldName)
+            .percentilesConfig(new PercentilesConfig.DDSketch());
+    }
+
+    @Override
+    protected List<ValuesSourceType> getSupportedValuesSourceTypes() {
+        return Arrays.asList(CoreValuesSourceType.NUMERIC, CoreValuesSourceType.DATE, CoreValuesSourceType.BOOLEAN);
+    }
+
+    public void testNoDocs() throws IOException {
+        testCase(new MatchAllDocsQuery(), iw -> {
+            // Intentionally not writing any docs
+        }, ddsketch -> {
+            assertEquals(0L, ddsketch.state.size());
+            assertFalse(AggregationInspectionHelper.hasValue(ddsketch));
+        });
+    }
+
+    public void testNoMatchingField() throws IOException {
+        testCase(new MatchAllDocsQuery(), iw -> {
+            iw.addDocument(singleton(new SortedNumericDocValuesField("wrong_number", 7)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("wrong_number", 1)));
+        }, ddsketch -> {
+            assertEquals(0L, ddsketch.state.size());
+            assertFalse(AggregationInspectionHelper.hasValue(ddsketch));
+        });
+    }
+
+    public void testSomeMatchesSortedNumericDocValues() throws IOException {
+        testCase(new DocValuesFieldExistsQuery("number"), iw -> {
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 8)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 5)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 3)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 2)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 1)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 1)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 0)));
+        }, ddsketch -> {
+            assertEquals(7L, ddsketch.state.size());
+            // the minimum and maximum are exact, other values are within the relative accuracy
+            assertEquals(0.0d, ddsketch.percentile(0), 0.0d);
+            assertEquals(8.0d, ddsketch.percentile(100), 0.0d);
+            assertEquals(3.0d, ddsketch.percentile(75), 3.0d * 0.01);
+            assertEquals(2.0d, ddsketch.percentile(50), 2.0d * 0.01);
+            assertEquals(1.0d, ddsketch.percentile(22), 1.0d * 0.01);
+            assertTrue(AggregationInspectionHelper.hasValue(ddsketch));
+        });
+    }
+
+    public void testSomeMatchesNumericDocValues() throws IOException {
+        testCase(new DocValuesFieldExistsQuery("number"), iw -> {
+            iw.addDocument(singleton(new NumericDocValuesField("number", 8)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 5)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 3)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 2)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 1)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 1)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 0)));
+        }, ddsketch -> {
+            assertEquals(7L, ddsketch.state.size());
+            assertEquals(8.0d, ddsketch.percentile(100), 0.0d);
+            assertEquals("8.0", ddsketch.percentileAsString(100));
+            assertEquals(2.0d, ddsketch.percentile(60), 2.0d * 0.01);
+            assertEquals(1.0d, ddsketch.percentile(33), 1.0d * 0.01);
+            assertEquals(0.0d, ddsketch.percentile(1), 0.0d);
+            assertEquals("0.0", ddsketch.percentileAsString(1));
+            assertTrue(AggregationInspectionHelper.hasValue(ddsketch));
+        });
+    }
+
+    public void testQueryFiltering() throws IOException {
+        final CheckedConsumer<RandomIndexWriter, IOException> docs = iw -> {
+            iw.addDocument(asList(new LongPoint("row", 7), new SortedNumericDocValuesField("number", 8)));
+            iw.addDocument(asList(new LongPoint("row", 6), new SortedNumericDocValuesField("number", 5)));
+            iw.addDocument(asList(new LongPoint("row", 5), new SortedNumericDocValuesField("number", 3)));
+            iw.addDocument(asList(new LongPoint("row", 4), new SortedNumericDocValuesField("number", 2)));
+            iw.addDocument(asList(new LongPoint("row", 3), new SortedNumericDocValuesField("number", 1)));
+            iw.addDocument(asList(new LongPoint("row", 2), new SortedNumericDocValuesField("number", 1)));
+            iw.addDocument(asList(new LongPoint("row", 1), new SortedNumericDocValuesField("number", 0)));
+        };
+
+        testCase(LongPoint.newRangeQuery("row", 1, 4), docs, ddsketch -> {
+            assertEquals(4L, ddsketch.state.size());
+            assertEquals(2.0d, ddsketch.percentile(100), 0.0d);
+            assertEquals(1.0d, ddsketch.percentile(50), 1.0d * 0.01);
+            assertTrue(AggregationInspectionHelper.hasValue(ddsketch));
+        });
+
+        testCase(LongPoint.newRangeQuery("row", 100, 110), docs, ddsketch -> {
+            assertEquals(0L, ddsketch.state.size());
+            assertFalse(AggregationInspectionHelper.hasValue(ddsketch));
+        });
+    }
+
+    private void testCase(
+        Query query,
+        CheckedConsumer<RandomIndexWriter, IOException> buildIndex,
+        Consumer<InternalDDSketchPercentiles> verify
+    ) throws IOException {
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                buildIndex.accept(indexWriter);
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+
+                PercentilesAggregationBuilder builder;
+                if (randomBoolean()) {
+                    builder = new PercentilesAggregationBuilder("test").field("number").method(PercentilesMethod.DDSKETCH);
+                } else {
+                    PercentilesConfig ddsketch = new PercentilesConfig.DDSketch(randomDoubleBetween(0.0001, 0.01, true));
+                    builder = new PercentilesAggregationBuilder("test").field("number").percentilesConfig(ddsketch);
+                }
+
+                MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType("number", NumberFieldMapper.NumberType.LONG);
+                DDSketchPercentilesAggregator aggregator = createAggregator(builder, indexSearcher, fieldType);
+                aggregator.preCollection();
+                indexSearcher.search(query, aggregator);
+                aggregator.postCollection();
+                verify.accept((InternalDDSketchPercentiles) aggregator.buildAggregation(0L));
+            }
+        }
+    }
+}
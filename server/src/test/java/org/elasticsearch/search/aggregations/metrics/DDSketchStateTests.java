@@ -0,0 +1,127 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class DDSketchStateTests extends ESTestCase {
+
+    public void testRelativeAccuracy() {
+        // values span less than MAX_BUCKETS buckets with these accuracies, so that no bucket gets collapsed
+        final double relativeAccuracy = randomDoubleBetween(0.01, 0.1, true);
+        final DDSketchState sketch = new DDSketchState(relativeAccuracy);
+        final double[] values = new double[randomIntBetween(1, 5000)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = randomBoolean() ? randomDoubleBetween(-1e6, 1e6, true) : Math.exp(randomDoubleBetween(-15, 15, true));
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+        assertThat(sketch.size(), equalTo((long) values.length));
+        assertThat(sketch.quantile(0), equalTo(values[0]));
+        assertThat(sketch.quantile(1), equalTo(values[values.length - 1]));
+        for (double q : new double[] { 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, randomDouble() }) {
+            final double expected = values[(int) (q * (values.length - 1))];
+            final double actual = sketch.quantile(q);
+            assertThat("q=" + q, Math.abs(actual - expected), lessThanOrEqualTo(relativeAccuracy * Math.abs(expected) + 1e-9));
+        }
+    }
+
+    public void testMergeIsExact() {
+        final DDSketchState all = new DDSketchState(0.01);
+        final DDSketchState merged = new DDSketchState(0.01);
+        final int numSketches = randomIntBetween(1, 10);
+        for (int i = 0; i < numSketches; i++) {
+            final DDSketchState sketch = new DDSketchState(0.01);
+            final int numValues = randomIntBetween(0, 500);
+            for (int j = 0; j < numValues; j++) {
+                final double value = randomDoubleBetween(-1e4, 1e5, true);
+                sketch.add(value);
+                all.add(value);
+            }
+            merged.add(sketch);
+        }
+        assertEquals(all, merged);
+        assertEquals(all.hashCode(), merged.hashCode());
+        if (all.size() > 0) {
+            for (double q : new double[] { 0, 0.5, 0.99, 1 }) {
+                assertThat(merged.quantile(q), equalTo(all.quantile(q)));
+            }
+        }
+    }
+
+    public void testMergeDifferentAccuracies() {
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new DDSketchState(0.01).add(new DDSketchState(0.02))
+        );
+        assertThat(e.getMessage(), equalTo("Cannot merge sketches with different relative accuracies [0.01] and [0.02]"));
+    }
+
+    public void testCdf() {
+        final DDSketchState sketch = new DDSketchState(0.01);
+        assertTrue(Double.isNaN(sketch.cdf(randomDouble())));
+        for (int i = 1; i <= 100; i++) {
+            sketch.add(i);
+        }
+        assertThat(sketch.cdf(0), equalTo(0d));
+        assertThat(sketch.cdf(100), equalTo(1d));
+        assertEquals(0.5, sketch.cdf(50), 0.02);
+        assertEquals(0.9, sketch.cdf(90), 0.02);
+    }
+
+    public void testCollapsesLowestBuckets() {
+        final DDSketchState sketch = new DDSketchState(0.01);
+        final long before = sketch.ramBytesUsed();
+        // these values span far more than MAX_BUCKETS buckets
+        for (int exponent = -300; exponent <= 300; exponent++) {
+            sketch.add(Math.pow(10, exponent));
+        }
+        assertThat(sketch.size(), equalTo(601L));
+        assertThat(sketch.ramBytesUsed() - before, lessThanOrEqualTo(2L * DDSketchState.MAX_BUCKETS * Long.BYTES + 1024));
+        // the highest quantiles remain accurate
+        assertEquals(1e300, sketch.quantile(1), 0);
+        assertEquals(1e299, sketch.quantile(599d / 600), 1e299 * 0.01);
+    }
+
+    public void testSerialization() throws IOException {
+        final DDSketchState sketch = new DDSketchState(randomDoubleBetween(0.0001, 0.1, true));
+        final int numValues = randomIntBetween(0, 1000);
+        for (int i = 0; i < numValues; i++) {
+            sketch.add(randomBoolean() ? 0 : randomDoubleBetween(-1e9, 1e9, true));
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            DDSketchState.write(sketch, out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                final DDSketchState read = DDSketchState.read(in);
+                assertEquals(sketch, read);
+                assertThat(read.size(), equalTo(sketch.size()));
+                if (numValues > 0) {
+                    assertThat(read.quantile(0.5), equalTo(sketch.quantile(0.5)));
+                }
+            }
+        }
+    }
+
+    public void testInvalidRelativeAccuracy() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> new DDSketchState(0));
+        assertThat(e.getMessage(), equalTo("[relative_accuracy] must be in (0, 1), got [0.0]"));
+    }
+
+    public void testNaN() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> new DDSketchState(0.01).add(Double.NaN));
+        assertThat(e.getMessage(), equalTo("Cannot add NaN"));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.elasticsearch.search.DocValueFormat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.emptyMap;
+
+public class InternalDDSketchPercentilesTests extends InternalPercentilesTestCase<InternalDDSketchPercentiles> {
+
+    @Override
+    protected InternalDDSketchPercentiles createTestInstance(
+        String name,
+        Map<String, Object> metadata,
+        boolean keyed,
+        DocValueFormat format,
+        double[] percents,
+        double[] values
+    ) {
+        final DDSketchState state = new DDSketchState(0.01);
+        Arrays.stream(values).forEach(state::add);
+
+        assertEquals(state.size(), values.length);
+        return new InternalDDSketchPercentiles(name, percents, state, keyed, format, metadata);
+    }
+
+    @Override
+    protected void assertReduced(InternalDDSketchPercentiles reduced, List<InternalDDSketchPercentiles> inputs) {
+        final DDSketchState expectedState = new DDSketchState(reduced.state.relativeAccuracy());
+
+        long totalCount = 0;
+        for (InternalDDSketchPercentiles input : inputs) {
+            assertArrayEquals(reduced.keys, input.keys, 0d);
+            expectedState.add(input.state);
+            totalCount += input.state.size();
+        }
+
+        assertEquals(totalCount, reduced.state.size());
+        // merging sketches is exact
+        assertEquals(expectedState, reduced.state);
+    }
+
+    @Override
+    protected Class<? extends ParsedPercentiles> implementationClass() {
+        return ParsedDDSketchPercentiles.class;
+    }
+
+    @Override
+    protected InternalDDSketchPercentiles mutateInstance(InternalDDSketchPercentiles instance) {
+        String name = instance.getName();
+        double[] percents = instance.keys;
+        DDSketchState state = instance.state;
+        boolean keyed = instance.keyed;
+        DocValueFormat formatter = instance.formatter();
+        Map<String, Object> metadata = instance.getMetadata();
+        switch (between(0, 4)) {
+            case 0:
+                name += randomAlphaOfLength(5);
+                break;
+            case 1:
+                percents = Arrays.copyOf(percents, percents.length + 1);
+                percents[percents.length - 1] = randomDouble() * 100;
+                Arrays.sort(percents);
+                break;
+            case 2:
+                DDSketchState newState = new DDSketchState(state.relativeAccuracy());
+                newState.add(state);
+                for (int i = 0; i < between(10, 100); i++) {
+                    newState.add(randomDouble());
+                }
+                state = newState;
+                break;
+            case 3:
+                keyed = keyed == false;
+                break;
+            case 4:
+                if (metadata == null) {
+                    metadata = new HashMap<>(1);
+                } else {
+                    metadata = new HashMap<>(instance.getMetadata());
+                }
+                metadata.put(randomAlphaOfLength(15), randomInt());
+                break;
+            default:
+                throw new AssertionError("Illegal randomisation branch");
+        }
+        return new InternalDDSketchPercentiles(name, percents, state, keyed, formatter, metadata);
+    }
+
+    public void testIterator() {
+        final double[] percents = randomPercents(false);
+        final double[] values = new double[frequently() ? randomIntBetween(1, 10) : 0];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = randomDouble();
+        }
+
+        InternalDDSketchPercentiles aggregation = createTestInstance(
+            "test",
+            emptyMap(),
+            false,
+            randomNumericDocValueFormat(),
+            percents,
+            values
+        );
+
+        Iterator<Percentile> iterator = aggregation.iterator();
+        Iterator<String> nameIterator = aggregation.valueNames().iterator();
+        for (double percent : percents) {
+            assertTrue(iterator.hasNext());
+
+            Percentile percentile = iterator.next();
+            String percentileName = nameIterator.next();
+
+            assertEquals(percent, Double.valueOf(percentileName), 0.0d);
+            assertEquals(percent, percentile.getPercent(), 0.0d);
+
+            assertEquals(aggregation.percentile(percent), percentile.getValue(), 0.0d);
+            assertEquals(aggregation.value(String.valueOf(percent)), percentile.getValue(), 0.0d);
+        }
+        assertFalse(iterator.hasNext());
+        assertFalse(nameIterator.hasNext());
+    }
+}
@@ -32,6 +32,7 @@ import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.Aggregation;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
@@ -42,9 +43,13 @@ import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper
 import org.elasticsearch.search.sort.SortOrder;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.topHits;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 
 public class TopHitsAggregatorTests extends AggregatorTestCase {
     public void testTopLevel() throws Exception {
@@ -118,14 +123,43 @@ public class TopHitsAggregatorTests extends AggregatorTestCase {
         assertTrue(AggregationInspectionHelper.hasValue(((InternalTopHits) terms.getBucketByKey("d").getAggregations().get("top"))));
     }
 
+    /**
+     * Tests {@code top_hits} inside of {@code terms} on a single valued field, the hits of all buckets are fetched at once.
+     */
+    public void testInsideTermsSingleValued() throws Exception {
+        Aggregation result = testCase(
+            new MatchAllDocsQuery(),
+            terms("term").field("string").subAggregation(topHits("top")),
+            Arrays.asList(document("1", "a"), document("2", "b"), document("3", "a"), document("4", "c"), document("5", "a"))
+        );
+        Terms terms = (Terms) result;
+        assertThat(hitIds(terms, "a"), containsInAnyOrder("1", "3", "5"));
+        assertThat(hitIds(terms, "b"), containsInAnyOrder("2"));
+        assertThat(hitIds(terms, "c"), containsInAnyOrder("4"));
+        SearchHits searchHits = ((TopHits) terms.getBucketByKey("a").getAggregations().get("top")).getHits();
+        assertEquals(3L, searchHits.getTotalHits().value);
+    }
+
+    private static List<String> hitIds(Terms terms, String key) {
+        List<String> ids = new ArrayList<>();
+        for (SearchHit hit : ((TopHits) terms.getBucketByKey(key).getAggregations().get("top")).getHits()) {
+            ids.add(hit.getId());
+        }
+        return ids;
+    }
+
     private static final MappedFieldType STRING_FIELD_TYPE = new KeywordFieldMapper.KeywordFieldType("string");
 
     private Aggregation testCase(Query query, AggregationBuilder builder) throws IOException {
+        return testCase(query, builder, Arrays.asList(document("1", "a", "b"), document("2", "c", "a"), document("3", "b", "d")));
+    }
+
+    private Aggregation testCase(Query query, AggregationBuilder builder, List<Document> documents) throws IOException {
         Directory directory = newDirectory();
         RandomIndexWriter iw = new RandomIndexWriter(random(), directory);
-        iw.addDocument(document("1", "a", "b"));
-        iw.addDocument(document("2", "c", "a"));
-        iw.addDocument(document("3", "b", "d"));
+        for (Document document : documents) {
+            iw.addDocument(document);
+        }
         iw.close();
 
         IndexReader indexReader = DirectoryReader.open(directory);
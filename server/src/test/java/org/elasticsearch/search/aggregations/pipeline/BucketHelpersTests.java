@@ -12,12 +12,15 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.aggregations.AggregationExecutionException;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.InvalidAggregationPathException;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
 import org.elasticsearch.search.aggregations.metrics.InternalTDigestPercentiles;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -185,4 +188,91 @@ public class BucketHelpersTests extends ESTestCase {
             )
         );
     }
+
+    public void testResolveBucketValues() {
+        MultiBucketsAggregation agg = mock(MultiBucketsAggregation.class);
+        List<InternalMultiBucketAggregation.InternalBucket> buckets = Arrays.asList(
+            bucket(5, 1.0),
+            bucket(0, 2.0),
+            bucket(3, Double.POSITIVE_INFINITY),
+            bucket(2, null),
+            bucket(7, Double.NaN)
+        );
+
+        assertArrayEquals(
+            new double[] { 1.0, 0.0, 0.0, Double.NaN, 0.0 },
+            BucketHelpers.resolveBucketValues(agg, buckets, "foo", BucketHelpers.GapPolicy.INSERT_ZEROS),
+            0d
+        );
+        assertArrayEquals(
+            new double[] { 1.0, Double.NaN, Double.NaN, Double.NaN, Double.NaN },
+            BucketHelpers.resolveBucketValues(agg, buckets, "foo", BucketHelpers.GapPolicy.SKIP),
+            0d
+        );
+        assertArrayEquals(
+            new double[] { 1.0, 2.0, Double.NaN, Double.NaN, Double.NaN },
+            BucketHelpers.resolveBucketValues(agg, buckets, "foo", BucketHelpers.GapPolicy.KEEP_VALUES),
+            0d
+        );
+        // doc counts are never gaps
+        assertArrayEquals(
+            new double[] { 5, 0, 3, 2, 7 },
+            BucketHelpers.resolveBucketValues(agg, buckets, "_count", BucketHelpers.GapPolicy.SKIP),
+            0d
+        );
+
+        for (int i = 0; i < buckets.size(); i++) {
+            Double value = BucketHelpers.resolveBucketValue(agg, buckets.get(i), "foo", BucketHelpers.GapPolicy.SKIP);
+            double[] values = BucketHelpers.resolveBucketValues(agg, buckets, "foo", BucketHelpers.GapPolicy.SKIP);
+            assertEquals(value == null ? Double.NaN : value, values[i], 0d);
+        }
+    }
+
+    /**
+     * A bucket whose metric is {@code value}, or that doesn't have the metric if {@code value} is {@code null}.
+     */
+    private static InternalMultiBucketAggregation.InternalBucket bucket(long docCount, Double value) {
+        return new InternalMultiBucketAggregation.InternalBucket() {
+            @Override
+            public void writeTo(StreamOutput out) throws IOException {
+
+            }
+
+            @Override
+            public Object getKey() {
+                return null;
+            }
+
+            @Override
+            public String getKeyAsString() {
+                return null;
+            }
+
+            @Override
+            public long getDocCount() {
+                return docCount;
+            }
+
+            @Override
+            public Aggregations getAggregations() {
+                return null;
+            }
+
+            @Override
+            public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+                return null;
+            }
+
+            @Override
+            public Object getProperty(String containingAggName, List<String> path) {
+                if (path.equals(Collections.singletonList("_count"))) {
+                    return docCount;
+                }
+                if (value == null) {
+                    throw new InvalidAggregationPathException("no metric in this bucket");
+                }
+                return value;
+            }
+        };
+    }
 }
@@ -18,6 +18,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.FilterWeight;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.LRUQueryCache;
 import org.apache.lucene.search.LeafCollector;
@@ -42,9 +43,11 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
@@ -123,6 +126,16 @@ public class QueryProfilerTests extends ESTestCase {
         assertThat(rewriteTime, greaterThan(0L));
     }
 
+    public void testDebugInfo() throws IOException {
+        QueryProfiler profiler = new QueryProfiler();
+        searcher.setProfiler(profiler);
+        Query query = new DebugInfoQuery(new TermQuery(new Term("foo", "bar")));
+        searcher.search(query, 1);
+        List<ProfileResult> results = profiler.getTree();
+        assertEquals(1, results.size());
+        assertThat(results.get(0).getDebugInfo(), equalTo(Collections.singletonMap("scorers", reader.leaves().size())));
+    }
+
     public void testNodeTime() throws IOException {
         QueryProfiler profiler = new QueryProfiler();
         searcher.setProfiler(profiler);
@@ -277,6 +290,58 @@ public class QueryProfilerTests extends ESTestCase {
         }
     }
 
+    /**
+     * Wraps a query with a weight that reports how many scorers it built.
+     */
+    private static class DebugInfoQuery extends Query {
+
+        private final Query in;
+
+        DebugInfoQuery(Query in) {
+            this.in = in;
+        }
+
+        @Override
+        public String toString(String field) {
+            return getClass().getSimpleName() + "(" + in.toString(field) + ")";
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return sameClassAs(obj) && in.equals(((DebugInfoQuery) obj).in);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * classHash() + in.hashCode();
+        }
+
+        @Override
+        public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+            return new DebugInfoWeight(in.createWeight(searcher, scoreMode, boost));
+        }
+    }
+
+    private static class DebugInfoWeight extends FilterWeight implements DebugInfoProvider {
+
+        private int scorers;
+
+        DebugInfoWeight(Weight in) {
+            super(in);
+        }
+
+        @Override
+        public Scorer scorer(LeafReaderContext context) throws IOException {
+            scorers++;
+            return super.scorer(context);
+        }
+
+        @Override
+        public void collectDebugInfo(BiConsumer<String, Object> add) {
+            add.accept("scorers", scorers);
+        }
+    }
+
     public void testScorerSupplier() throws IOException {
         Directory dir = newDirectory();
         IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
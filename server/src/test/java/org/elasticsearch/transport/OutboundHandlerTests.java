@@ -20,8 +20,12 @@ import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.FileRegionBytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.common.util.BigArrays;
@@ -39,6 +43,8 @@ import org.junit.Before;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -48,7 +54,9 @@ import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class OutboundHandlerTests extends ESTestCase {
 
@@ -191,6 +199,32 @@ public class OutboundHandlerTests extends ESTestCase {
         assertEquals("header_value", header.getHeaders().v1().get("header"));
     }
 
+    public void testSendRequestWithFileRegion() throws IOException {
+        final Path file = createTempFile();
+        final byte[] fileContent = randomByteArrayOfLength(between(1, 1 << 16));
+        Files.write(file, fileContent);
+        final int position = between(0, fileContent.length - 1);
+        final int length = between(1, fileContent.length - position);
+        final FileRegionBytesReference fileRegion = new FileRegionBytesReference(file, position, length);
+        final String value = randomAlphaOfLength(10);
+        final FileRegionRequest request = new FileRegionRequest(value, fileRegion);
+        final long requestId = randomLongBetween(0, 300);
+        handler.sendRequest(node, channel, requestId, "action", request, options, Version.CURRENT, null, false);
+
+        // the file region is spliced into the message rather than copied
+        final BytesReference reference = channel.getMessageCaptor().get();
+        assertThat(reference, instanceOf(CompositeBytesReference.class));
+        assertThat(((CompositeBytesReference) reference).references(), hasItem(sameInstance(fileRegion)));
+        channel.getListenerCaptor().get().onResponse(null);
+
+        pipeline.handleBytes(channel, new ReleasableBytesReference(reference, () -> {}));
+        final Tuple<Header, BytesReference> tuple = message.get();
+        assertEquals(requestId, tuple.v1().getRequestId());
+        final FileRegionRequest message = new FileRegionRequest(tuple.v2().streamInput());
+        assertEquals(value, message.value);
+        assertEquals(new BytesArray(fileContent, position, length), message.content);
+    }
+
     public void testSendResponse() throws IOException {
         ThreadContext threadContext = threadPool.getThreadContext();
         Version version = randomFrom(Version.CURRENT, Version.CURRENT.minimumCompatibilityVersion());
@@ -347,4 +381,30 @@ public class OutboundHandlerTests extends ESTestCase {
             mockAppender.stop();
         }
     }
+
+    private static class FileRegionRequest extends TransportRequest {
+
+        private final String value;
+        private final BytesReference content;
+
+        FileRegionRequest(String value, BytesReference content) {
+            this.value = value;
+            this.content = content;
+        }
+
+        FileRegionRequest(StreamInput in) throws IOException {
+            super(in);
+            value = in.readString();
+            content = in.readBytesReference();
+            assertEquals(value, in.readString());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeString(value);
+            out.writeBytesReference(content);
+            out.writeString(value);
+        }
+    }
 }
@@ -102,6 +102,11 @@ public class AsyncRecoveryTarget implements RecoveryTargetHandler {
         executor.execute(() -> target.cleanFiles(totalTranslogOps, globalCheckpoint, sourceMetadata, listener));
     }
 
+    @Override
+    public boolean supportsFileRegions() {
+        return target.supportsFileRegions();
+    }
+
     @Override
     public void writeFileChunk(
         StoreFileMetadata fileMetadata,
@@ -45,6 +45,7 @@ import org.elasticsearch.common.TriConsumer;
 import org.elasticsearch.common.TriFunction;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -54,6 +55,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.Index;
@@ -93,6 +95,7 @@ import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesBackgroundFrequencyCache;
 import org.elasticsearch.indices.IndicesModule;
 import org.elasticsearch.indices.analysis.AnalysisModule;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
@@ -241,6 +244,19 @@ public abstract class AggregatorTestCase extends ESTestCase {
         return aggregator;
     }
 
+    /**
+     * The cache of background frequencies of the {@code significant_terms} and
+     * {@code significant_text} aggregations that the {@link AggregationContext}s
+     * use, or {@code null} if they shouldn't cache frequencies.
+     */
+    @Nullable
+    protected IndicesBackgroundFrequencyCache backgroundFrequencyCache() {
+        if (randomBoolean()) {
+            return new IndicesBackgroundFrequencyCache(Settings.EMPTY, new NoopCircuitBreaker(CircuitBreaker.REQUEST));
+        }
+        return null;
+    }
+
     /**
      * Create a {@linkplain AggregationContext} for testing an {@link Aggregator}.
      * While {@linkplain AggregationContext} is {@link Releasable} the caller is
@@ -334,7 +350,10 @@ public abstract class AggregatorTestCase extends ESTestCase {
             () -> 0L,
             () -> false,
             q -> q,
-            true
+            true,
+            null,
+            emptyMap(),
+            backgroundFrequencyCache()
         );
         releasables.add(context);
         return context;
@@ -267,6 +267,11 @@ public class StubbableTransport implements Transport {
             return connection.getCacheKey();
         }
 
+        @Override
+        public boolean supportsFileRegions() {
+            return connection.supportsFileRegions();
+        }
+
         @Override
         public void close() {
             connection.close();
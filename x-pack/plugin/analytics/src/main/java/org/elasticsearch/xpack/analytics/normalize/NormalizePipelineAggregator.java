@@ -24,7 +24,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
-import static org.elasticsearch.search.aggregations.pipeline.BucketHelpers.resolveBucketValue;
+import static org.elasticsearch.search.aggregations.pipeline.BucketHelpers.resolveBucketValues;
 
 public class NormalizePipelineAggregator extends PipelineAggregator {
     private final DocValueFormat formatter;
@@ -51,9 +51,7 @@ public class NormalizePipelineAggregator extends PipelineAggregator {
         List<? extends InternalMultiBucketAggregation.InternalBucket> buckets = originalAgg.getBuckets();
         List<InternalMultiBucketAggregation.InternalBucket> newBuckets = new ArrayList<>(buckets.size());
 
-        double[] values = buckets.stream()
-            .mapToDouble(bucket -> resolveBucketValue(originalAgg, bucket, bucketsPaths()[0], GapPolicy.SKIP))
-            .toArray();
+        double[] values = resolveBucketValues(originalAgg, buckets, bucketsPaths()[0], GapPolicy.SKIP);
 
         DoubleUnaryOperator method = methodSupplier.apply(values);
 
@@ -151,6 +151,8 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
         private final TimedCounter optimizedBytesRead;
         private final Counter blobStoreBytesRequested;
         private final Counter luceneBytesRead;
+        private final Counter readAheadBytesRequested;
+        private final Counter readAheadBytesHit;
         private final long currentIndexCacheFills;
 
         public CacheIndexInputStats(
@@ -174,6 +176,8 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             TimedCounter optimizedBytesRead,
             Counter blobStoreBytesRequested,
             Counter luceneBytesRead,
+            Counter readAheadBytesRequested,
+            Counter readAheadBytesHit,
             long currentIndexCacheFills
         ) {
             this.fileExt = fileExt;
@@ -196,6 +200,8 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             this.optimizedBytesRead = optimizedBytesRead;
             this.blobStoreBytesRequested = blobStoreBytesRequested;
             this.luceneBytesRead = luceneBytesRead;
+            this.readAheadBytesRequested = readAheadBytesRequested;
+            this.readAheadBytesHit = readAheadBytesHit;
             this.currentIndexCacheFills = currentIndexCacheFills;
         }
 
@@ -247,6 +253,13 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 this.luceneBytesRead = new Counter(0, 0, 0, 0);
                 this.currentIndexCacheFills = 0;
             }
+            if (in.getVersion().onOrAfter(Version.V_7_16_3)) {
+                this.readAheadBytesRequested = new Counter(in);
+                this.readAheadBytesHit = new Counter(in);
+            } else {
+                this.readAheadBytesRequested = new Counter(0, 0, 0, 0);
+                this.readAheadBytesHit = new Counter(0, 0, 0, 0);
+            }
         }
 
         public static CacheIndexInputStats combine(CacheIndexInputStats cis1, CacheIndexInputStats cis2) {
@@ -277,6 +290,8 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 cis1.optimizedBytesRead.add(cis2.optimizedBytesRead),
                 cis1.blobStoreBytesRequested.add(cis2.blobStoreBytesRequested),
                 cis1.luceneBytesRead.add(cis2.luceneBytesRead),
+                cis1.readAheadBytesRequested.add(cis2.readAheadBytesRequested),
+                cis1.readAheadBytesHit.add(cis2.readAheadBytesHit),
                 cis1.currentIndexCacheFills + cis2.currentIndexCacheFills
             );
         }
@@ -321,6 +336,10 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 }
                 out.writeVLong(currentIndexCacheFills);
             }
+            if (out.getVersion().onOrAfter(Version.V_7_16_3)) {
+                readAheadBytesRequested.writeTo(out);
+                readAheadBytesHit.writeTo(out);
+            }
         }
 
         public String getFileExt() {
@@ -408,6 +427,14 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             return luceneBytesRead;
         }
 
+        public Counter getReadAheadBytesRequested() {
+            return readAheadBytesRequested;
+        }
+
+        public Counter getReadAheadBytesHit() {
+            return readAheadBytesHit;
+        }
+
         public long getCurrentIndexCacheFills() {
             return currentIndexCacheFills;
         }
@@ -449,6 +476,8 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 }
                 builder.field("blob_store_bytes_requested", getBlobStoreBytesRequested(), params);
                 builder.field("lucene_bytes_read", getLuceneBytesRead(), params);
+                builder.field("read_ahead_bytes_requested", getReadAheadBytesRequested(), params);
+                builder.field("read_ahead_bytes_hit", getReadAheadBytesHit(), params);
                 builder.field("current_index_cache_fills", getCurrentIndexCacheFills());
             }
             return builder.endObject();
@@ -483,6 +512,8 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 && Objects.equals(optimizedBytesRead, stats.optimizedBytesRead)
                 && Objects.equals(blobStoreBytesRequested, stats.blobStoreBytesRequested)
                 && Objects.equals(luceneBytesRead, stats.luceneBytesRead)
+                && Objects.equals(readAheadBytesRequested, stats.readAheadBytesRequested)
+                && Objects.equals(readAheadBytesHit, stats.readAheadBytesHit)
                 && currentIndexCacheFills == stats.currentIndexCacheFills;
         }
 
@@ -509,6 +540,8 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 optimizedBytesRead,
                 blobStoreBytesRequested,
                 luceneBytesRead,
+                readAheadBytesRequested,
+                readAheadBytesHit,
                 currentIndexCacheFills
             );
         }
@@ -69,6 +69,8 @@ public class SearchableSnapshotShardStatsTests extends AbstractWireSerializingTe
             randomTimedCounter(),
             randomCounter(),
             randomCounter(),
+            randomCounter(),
+            randomCounter(),
             randomNonNegativeLong()
         );
     }
@@ -59,6 +59,7 @@ import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.mapper.FieldNamesFieldMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.indices.IndicesBackgroundFrequencyCache;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.xcontent.XContentType;
 import org.elasticsearch.xpack.core.security.authz.permission.FieldPermissions;
@@ -114,6 +115,27 @@ public class FieldSubsetReaderTests extends ESTestCase {
         IOUtils.close(ir, iw, dir);
     }
 
+    public void testBackgroundFrequenciesAreNotCached() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+
+        Document doc = new Document();
+        doc.add(new StringField("fieldA", "test", Field.Store.NO));
+        doc.add(new StringField("fieldB", "test", Field.Store.NO));
+        iw.addDocument(doc);
+
+        DirectoryReader ir = DirectoryReader.open(iw);
+        assertNotNull(IndicesBackgroundFrequencyCache.cacheHelper(ir));
+
+        // the wrapped reader shares the cache key of the reader it wraps, but sees fewer fields
+        DirectoryReader fieldSubset = FieldSubsetReader.wrap(ir, new CharacterRunAutomaton(Automata.makeString("fieldA")));
+        assertSame(ir.getReaderCacheHelper(), fieldSubset.getReaderCacheHelper());
+        assertNull(IndicesBackgroundFrequencyCache.cacheHelper(fieldSubset));
+
+        IOUtils.close(fieldSubset, iw, dir);
+    }
+
     /**
      * test filtering two int points
      */
@@ -191,6 +191,23 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
         Setting.Property.IndexScope,
         Setting.Property.NotCopyableOnResize
     );
+    // The number of ranges to read ahead into the cache once sequential reads are detected, zero disables read-ahead
+    public static final Setting<Integer> SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING = Setting.intSetting(
+        "index.store.snapshot.cache.read_ahead.ranges",
+        0,
+        0,
+        16,
+        Setting.Property.IndexScope,
+        Setting.Property.NotCopyableOnResize
+    );
+    // The maximum number of read-ahead requests that can be in flight at the same time for a given shard
+    public static final Setting<Integer> SNAPSHOT_CACHE_READ_AHEAD_MAX_CONCURRENT_SETTING = Setting.intSetting(
+        "index.store.snapshot.cache.read_ahead.max_concurrent",
+        4,
+        1,
+        Setting.Property.IndexScope,
+        Setting.Property.NotCopyableOnResize
+    );
     // The file extensions that are excluded from the cache
     public static final Setting<List<String>> SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING = Setting.listSetting(
         "index.store.snapshot.cache.excluded_file_types",
@@ -236,6 +253,15 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
         Setting.Property.NotCopyableOnResize
     );
 
+    // Whether the cached blobs of a shard's files are retrieved in batches when the shard is loaded, before Lucene opens them. Disabled
+    // by default since it retrieves the cached blobs of all files, including the ones that Lucene may never open.
+    public static final Setting<Boolean> SNAPSHOT_BLOB_CACHE_PRELOAD_ENABLED_SETTING = Setting.boolSetting(
+        "index.store.snapshot.blob_cache.preload.enabled",
+        false,
+        Setting.Property.IndexScope,
+        Setting.Property.NotCopyableOnResize
+    );
+
     /**
      * Prefer to allocate to the data content tier and then the hot tier.
      * This affects the system searchable snapshot cache index (not the searchable snapshot index itself)
@@ -286,24 +312,31 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
             SNAPSHOT_INDEX_ID_SETTING,
             SNAPSHOT_CACHE_ENABLED_SETTING,
             SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING,
+            SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING,
+            SNAPSHOT_CACHE_READ_AHEAD_MAX_CONCURRENT_SETTING,
             SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING,
             SNAPSHOT_UNCACHED_CHUNK_SIZE_SETTING,
             SearchableSnapshotsSettings.SNAPSHOT_PARTIAL_SETTING,
             SNAPSHOT_BLOB_CACHE_METADATA_FILES_MAX_LENGTH_SETTING,
+            SNAPSHOT_BLOB_CACHE_PRELOAD_ENABLED_SETTING,
             CacheService.SNAPSHOT_CACHE_RANGE_SIZE_SETTING,
             CacheService.SNAPSHOT_CACHE_RECOVERY_RANGE_SIZE_SETTING,
             CacheService.SNAPSHOT_CACHE_SYNC_INTERVAL_SETTING,
             CacheService.SNAPSHOT_CACHE_MAX_FILES_TO_SYNC_AT_ONCE_SETTING,
             CacheService.SNAPSHOT_CACHE_SYNC_SHUTDOWN_TIMEOUT,
+            PersistentCache.PERSISTENT_CACHE_FORMAT_SETTING,
             SearchableSnapshotEnableAllocationDecider.SEARCHABLE_SNAPSHOTS_ALLOCATE_ON_ROLLING_RESTART,
             FrozenCacheService.SHARED_CACHE_SIZE_SETTING,
             FrozenCacheService.SHARED_CACHE_SIZE_MAX_HEADROOM_SETTING,
             FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING,
+            FrozenCacheService.SHARED_CACHE_SMALL_REGION_SIZE_SETTING,
+            FrozenCacheService.SHARED_CACHE_SMALL_REGIONS_RATIO_SETTING,
             FrozenCacheService.SHARED_CACHE_RANGE_SIZE_SETTING,
             FrozenCacheService.SHARED_CACHE_RECOVERY_RANGE_SIZE_SETTING,
             FrozenCacheService.SHARED_CACHE_MAX_FREQ_SETTING,
             FrozenCacheService.SHARED_CACHE_DECAY_INTERVAL_SETTING,
             FrozenCacheService.SHARED_CACHE_MIN_TIME_DELTA_SETTING,
+            FrozenCacheService.SHARED_CACHE_ADMISSION_POLICY_SETTING,
             BlobStoreCacheMaintenanceService.SNAPSHOT_SNAPSHOT_CLEANUP_INTERVAL_SETTING,
             BlobStoreCacheMaintenanceService.SNAPSHOT_SNAPSHOT_CLEANUP_KEEP_ALIVE_SETTING,
             BlobStoreCacheMaintenanceService.SNAPSHOT_SNAPSHOT_CLEANUP_BATCH_SIZE_SETTING,
@@ -330,7 +363,8 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
         this.threadPool.set(threadPool);
         this.failShardsListener.set(new FailShardsOnInvalidLicenseClusterListener(getLicenseState(), clusterService.getRerouteService()));
         if (DiscoveryNode.canContainData(settings)) {
-            final CacheService cacheService = new CacheService(settings, clusterService, threadPool, new PersistentCache(nodeEnvironment));
+            final PersistentCache persistentCache = new PersistentCache(settings, nodeEnvironment);
+            final CacheService cacheService = new CacheService(settings, clusterService, threadPool, persistentCache);
             this.cacheService.set(cacheService);
             final FrozenCacheService frozenCacheService = new FrozenCacheService(nodeEnvironment, settings, threadPool);
             this.frozenCacheService.set(frozenCacheService);
@@ -341,6 +375,7 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
                 SNAPSHOT_BLOB_CACHE_INDEX
             );
             this.blobStoreCacheService.set(blobStoreCacheService);
+            clusterService.addListener(blobStoreCacheService);
             clusterService.addListener(
                 new BlobStoreCacheMaintenanceService(settings, clusterService, threadPool, client, SNAPSHOT_BLOB_CACHE_INDEX)
             );
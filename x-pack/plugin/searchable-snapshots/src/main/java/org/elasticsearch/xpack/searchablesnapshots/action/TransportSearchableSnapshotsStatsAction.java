@@ -119,6 +119,8 @@ public class TransportSearchableSnapshotsStatsAction extends AbstractTransportSe
             toTimedCounter(inputStats.getOptimizedBytesRead()),
             toCounter(inputStats.getBlobStoreBytesRequested()),
             toCounter(inputStats.getLuceneBytesRead()),
+            toCounter(inputStats.getReadAheadBytesRequested()),
+            toCounter(inputStats.getReadAheadBytesHit()),
             inputStats.getCurrentIndexCacheFills()
         );
     }
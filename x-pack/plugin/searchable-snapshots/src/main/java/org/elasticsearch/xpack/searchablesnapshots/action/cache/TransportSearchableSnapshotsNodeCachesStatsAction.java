@@ -6,6 +6,7 @@
  */
 package org.elasticsearch.xpack.searchablesnapshots.action.cache;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionType;
 import org.elasticsearch.action.FailedNodeException;
 import org.elasticsearch.action.support.ActionFilters;
@@ -131,7 +132,13 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
             frozenCacheStats.getWriteBytes(),
             frozenCacheStats.getReadCount(),
             frozenCacheStats.getReadBytes(),
-            frozenCacheStats.getEvictCount()
+            frozenCacheStats.getEvictCount(),
+            frozenCacheStats.getAdmissionPolicy(),
+            frozenCacheStats.getHitCount(),
+            frozenCacheStats.getMissCount(),
+            frozenCacheStats.getRejectCount(),
+            frozenCacheStats.getNumberOfSmallRegions(),
+            frozenCacheStats.getSmallRegionSize()
         );
     }
 
@@ -175,6 +182,12 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
         private final long reads;
         private final long bytesRead;
         private final long evictions;
+        private final String admissionPolicy;
+        private final long hits;
+        private final long misses;
+        private final long rejections;
+        private final int numSmallRegions;
+        private final long smallRegionSize;
 
         public NodeCachesStatsResponse(
             DiscoveryNode node,
@@ -185,7 +198,13 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
             long bytesWritten,
             long reads,
             long bytesRead,
-            long evictions
+            long evictions,
+            String admissionPolicy,
+            long hits,
+            long misses,
+            long rejections,
+            int numSmallRegions,
+            long smallRegionSize
         ) {
             super(node);
             this.numRegions = numRegions;
@@ -196,6 +215,12 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
             this.reads = reads;
             this.bytesRead = bytesRead;
             this.evictions = evictions;
+            this.admissionPolicy = admissionPolicy;
+            this.hits = hits;
+            this.misses = misses;
+            this.rejections = rejections;
+            this.numSmallRegions = numSmallRegions;
+            this.smallRegionSize = smallRegionSize;
         }
 
         public NodeCachesStatsResponse(StreamInput in) throws IOException {
@@ -208,6 +233,21 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
             this.reads = in.readVLong();
             this.bytesRead = in.readVLong();
             this.evictions = in.readVLong();
+            if (in.getVersion().onOrAfter(Version.V_7_16_3)) {
+                this.admissionPolicy = in.readString();
+                this.hits = in.readVLong();
+                this.misses = in.readVLong();
+                this.rejections = in.readVLong();
+                this.numSmallRegions = in.readVInt();
+                this.smallRegionSize = in.readVLong();
+            } else {
+                this.admissionPolicy = FrozenCacheService.Stats.EMPTY.getAdmissionPolicy();
+                this.hits = 0L;
+                this.misses = 0L;
+                this.rejections = 0L;
+                this.numSmallRegions = 0;
+                this.smallRegionSize = 0L;
+            }
         }
 
         @Override
@@ -221,6 +261,14 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
             out.writeVLong(reads);
             out.writeVLong(bytesRead);
             out.writeVLong(evictions);
+            if (out.getVersion().onOrAfter(Version.V_7_16_3)) {
+                out.writeString(admissionPolicy);
+                out.writeVLong(hits);
+                out.writeVLong(misses);
+                out.writeVLong(rejections);
+                out.writeVInt(numSmallRegions);
+                out.writeVLong(smallRegionSize);
+            }
         }
 
         @Override
@@ -237,6 +285,16 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
                     builder.field("num_regions", numRegions);
                     builder.humanReadableField("size_in_bytes", "size", ByteSizeValue.ofBytes(size));
                     builder.humanReadableField("region_size_in_bytes", "region_size", ByteSizeValue.ofBytes(regionSize));
+                    builder.field("num_small_regions", numSmallRegions);
+                    builder.humanReadableField("small_region_size_in_bytes", "small_region_size", ByteSizeValue.ofBytes(smallRegionSize));
+                    builder.startObject("admission");
+                    {
+                        builder.field("policy", admissionPolicy);
+                        builder.field("hits", hits);
+                        builder.field("misses", misses);
+                        builder.field("rejections", rejections);
+                    }
+                    builder.endObject();
                 }
                 builder.endObject();
             }
@@ -275,6 +333,30 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
         public long getEvictions() {
             return evictions;
         }
+
+        public String getAdmissionPolicy() {
+            return admissionPolicy;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getRejections() {
+            return rejections;
+        }
+
+        public int getNumSmallRegions() {
+            return numSmallRegions;
+        }
+
+        public long getSmallRegionSize() {
+            return smallRegionSize;
+        }
     }
 
     public static class NodesCachesStatsResponse extends BaseNodesResponse<NodeCachesStatsResponse> implements ToXContentObject {
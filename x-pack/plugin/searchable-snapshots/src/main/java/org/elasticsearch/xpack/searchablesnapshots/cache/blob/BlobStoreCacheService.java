@@ -17,13 +17,20 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.support.GroupedActionListener;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.TransportActions;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.OriginSettingClient;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.metadata.RepositoriesMetadata;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.cache.Cache;
@@ -31,6 +38,7 @@ import org.elasticsearch.common.cache.CacheBuilder;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.RunOnce;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.shard.ShardId;
@@ -45,15 +53,21 @@ import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import static org.elasticsearch.xcontent.XContentFactory.jsonBuilder;
 import static org.elasticsearch.xpack.core.ClientHelper.SEARCHABLE_SNAPSHOTS_ORIGIN;
 
-public class BlobStoreCacheService extends AbstractLifecycleComponent {
+public class BlobStoreCacheService extends AbstractLifecycleComponent implements ClusterStateListener {
 
     private static final Logger logger = LogManager.getLogger(BlobStoreCacheService.class);
 
@@ -69,6 +83,19 @@ public class BlobStoreCacheService extends AbstractLifecycleComponent {
 
     static final int MAX_IN_FLIGHT_CACHE_FILLS = Integer.MAX_VALUE;
 
+    /**
+     * Maximum number of cached blobs retrieved by a single multi-get request when preloading the cached blobs of a shard.
+     */
+    static final int PRELOAD_BATCH_SIZE = 100;
+
+    /**
+     * Maximum number of concurrent multi-get requests for the cached blobs of a same repository, so that mounting many shards at once
+     * does not flood the blob cache system index.
+     */
+    static final int MAX_CONCURRENT_PRELOADS_PER_REPOSITORY = 4;
+
+    private final Map<String, PreloadQueue> preloadQueues = ConcurrentCollections.newConcurrentMap();
+
     private final ClusterService clusterService;
     private final Semaphore inFlightCacheFills;
     private final AtomicBoolean closed;
@@ -167,36 +194,12 @@ public class BlobStoreCacheService extends AbstractLifecycleComponent {
         innerGet(request, new ActionListener<GetResponse>() {
             @Override
             public void onResponse(GetResponse response) {
-                if (response.isExists()) {
-                    logger.debug("cache hit : [{}]", request.id());
-                    assert response.isSourceEmpty() == false;
-
-                    final CachedBlob cachedBlob = CachedBlob.fromSource(response.getSource());
-                    assert assertDocId(response, repository, snapshotId, indexId, shardId, name, range);
-                    if (cachedBlob.from() != range.start() || cachedBlob.to() != range.end()) {
-                        // expected range in cache might differ with the returned cached blob; this can happen if the range to put in cache
-                        // is changed between versions or through the index setting. In this case we assume it is a cache miss to force the
-                        // blob to be cached again
-                        listener.onResponse(CachedBlob.CACHE_MISS);
-                    } else {
-                        listener.onResponse(cachedBlob);
-                    }
-                } else {
-                    logger.debug("cache miss: [{}]", request.id());
-                    listener.onResponse(CachedBlob.CACHE_MISS);
-                }
+                listener.onResponse(toCachedBlob(response, repository, snapshotId, indexId, shardId, name, range));
             }
 
             @Override
             public void onFailure(Exception e) {
-                // In case the blob cache system index is unavailable, we indicate it's not ready and move on. We do not fail the request:
-                // a failure here is not fatal since the data exists in the blob store, so we can simply indicate the cache is not ready.
-                if (isExpectedCacheGetException(e)) {
-                    logger.debug(() -> new ParameterizedMessage("failed to retrieve cached blob from system index [{}]", index), e);
-                } else {
-                    logger.warn(() -> new ParameterizedMessage("failed to retrieve cached blob from system index [{}]", index), e);
-                    assert false : e;
-                }
+                onGetFailure(e);
                 listener.onResponse(CachedBlob.CACHE_NOT_READY);
             }
         });
@@ -206,6 +209,184 @@ public class BlobStoreCacheService extends AbstractLifecycleComponent {
         client.get(request, listener);
     }
 
+    /**
+     * Retrieves the cached blobs of several files of a shard using batched multi-get requests, without blocking the calling thread. At
+     * most {@link #MAX_CONCURRENT_PRELOADS_PER_REPOSITORY} requests run concurrently per repository, the other requests are queued.
+     * Cached blobs are passed to the given consumer as soon as the batch they belong to is retrieved, so that the results of the batches
+     * that succeeded are kept when other batches fail. Files for which the cached blob could not be retrieved are not passed to the
+     * consumer.
+     *
+     * @param ranges   the range of the cached blob to retrieve for every file name
+     * @param consumer the consumer of the cached blobs, or {@link CachedBlob#CACHE_MISS}, by file name
+     * @param listener the listener to notify once all batches are completed, never failed
+     */
+    public void getAllAsync(
+        final String repository,
+        final SnapshotId snapshotId,
+        final IndexId indexId,
+        final ShardId shardId,
+        final Map<String, ByteRange> ranges,
+        final BiConsumer<String, CachedBlob> consumer,
+        final ActionListener<Void> listener
+    ) {
+        if (closed.get() || ranges.isEmpty()) {
+            listener.onResponse(null);
+            return;
+        }
+        final List<Map.Entry<String, ByteRange>> entries = new ArrayList<>(ranges.entrySet());
+        final int batches = (entries.size() + PRELOAD_BATCH_SIZE - 1) / PRELOAD_BATCH_SIZE;
+        final GroupedActionListener<Void> batchesListener = new GroupedActionListener<>(listener.map(r -> null), batches);
+        final PreloadQueue queue = preloadQueues.computeIfAbsent(repository, r -> new PreloadQueue());
+        for (int batch = 0; batch < batches; batch++) {
+            final List<Map.Entry<String, ByteRange>> batchEntries = entries.subList(
+                batch * PRELOAD_BATCH_SIZE,
+                Math.min(entries.size(), (batch + 1) * PRELOAD_BATCH_SIZE)
+            );
+            queue.submit(release -> {
+                final ActionListener<Void> batchListener = ActionListener.runBefore(batchesListener, release::run);
+                if (closed.get()) {
+                    logger.debug("skipping preload of [{}] cached blobs of shard {}, service is closed", batchEntries.size(), shardId);
+                    batchListener.onResponse(null);
+                    return;
+                }
+                final MultiGetRequest request = new MultiGetRequest();
+                for (Map.Entry<String, ByteRange> entry : batchEntries) {
+                    request.add(index, generateId(repository, snapshotId, indexId, shardId, entry.getKey(), entry.getValue()));
+                }
+                // not ActionListener#wrap, which would also call onFailure if the consumer throws and complete the batch twice
+                innerMultiGet(request, new ActionListener<MultiGetResponse>() {
+                    @Override
+                    public void onResponse(MultiGetResponse response) {
+                        final MultiGetItemResponse[] items = response.getResponses();
+                        assert items.length == batchEntries.size() : items.length + " vs " + batchEntries.size();
+                        for (int i = 0; i < items.length; i++) {
+                            if (items[i].isFailed()) {
+                                onGetFailure(items[i].getFailure().getFailure());
+                                continue;
+                            }
+                            final String name = batchEntries.get(i).getKey();
+                            final ByteRange range = batchEntries.get(i).getValue();
+                            try {
+                                consumer.accept(
+                                    name,
+                                    toCachedBlob(items[i].getResponse(), repository, snapshotId, indexId, shardId, name, range)
+                                );
+                            } catch (Exception e) {
+                                logger.warn(
+                                    () -> new ParameterizedMessage("failed to preload cached blob of file [{}] of shard {}", name, shardId),
+                                    e
+                                );
+                            }
+                        }
+                        batchListener.onResponse(null);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        onGetFailure(e);
+                        batchListener.onResponse(null);
+                    }
+                });
+            });
+        }
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (event.metadataChanged() && preloadQueues.isEmpty() == false) {
+            final RepositoriesMetadata repositories = event.state()
+                .metadata()
+                .custom(RepositoriesMetadata.TYPE, RepositoriesMetadata.EMPTY);
+            // queued preloads of a removed repository still complete, they just stop sharing a queue with later preloads
+            preloadQueues.keySet().removeIf(repository -> repositories.repository(repository) == null);
+        }
+    }
+
+    // pkg private for tests
+    boolean hasPreloadQueue(String repository) {
+        return preloadQueues.containsKey(repository);
+    }
+
+    /**
+     * Runs the preload requests of a repository, at most {@link #MAX_CONCURRENT_PRELOADS_PER_REPOSITORY} at a time. Each task is given a
+     * {@link Runnable} that it must run once its request is completed.
+     */
+    private static final class PreloadQueue {
+
+        private final Semaphore permits = new Semaphore(MAX_CONCURRENT_PRELOADS_PER_REPOSITORY);
+        private final Queue<Consumer<Runnable>> tasks = ConcurrentCollections.newQueue();
+
+        void submit(Consumer<Runnable> task) {
+            tasks.add(task);
+            maybeRunTasks();
+        }
+
+        private void maybeRunTasks() {
+            while (tasks.isEmpty() == false && permits.tryAcquire()) {
+                final Consumer<Runnable> task = tasks.poll();
+                if (task == null) {
+                    // another thread ran the task, check again in case a task was added since
+                    permits.release();
+                    continue;
+                }
+                final RunOnce release = new RunOnce(() -> {
+                    permits.release();
+                    maybeRunTasks();
+                });
+                try {
+                    task.accept(release);
+                } catch (Exception e) {
+                    assert false : e;
+                    logger.warn("failed to preload cached blobs", e);
+                    release.run();
+                }
+            }
+        }
+    }
+
+    protected void innerMultiGet(final MultiGetRequest request, final ActionListener<MultiGetResponse> listener) {
+        client.multiGet(request, listener);
+    }
+
+    private static CachedBlob toCachedBlob(
+        final GetResponse response,
+        final String repository,
+        final SnapshotId snapshotId,
+        final IndexId indexId,
+        final ShardId shardId,
+        final String name,
+        final ByteRange range
+    ) {
+        if (response.isExists()) {
+            logger.debug("cache hit : [{}]", response.getId());
+            assert response.isSourceEmpty() == false;
+
+            final CachedBlob cachedBlob = CachedBlob.fromSource(response.getSource());
+            assert assertDocId(response, repository, snapshotId, indexId, shardId, name, range);
+            if (cachedBlob.from() != range.start() || cachedBlob.to() != range.end()) {
+                // expected range in cache might differ with the returned cached blob; this can happen if the range to put in cache
+                // is changed between versions or through the index setting. In this case we assume it is a cache miss to force the
+                // blob to be cached again
+                return CachedBlob.CACHE_MISS;
+            }
+            return cachedBlob;
+        } else {
+            logger.debug("cache miss: [{}]", response.getId());
+            return CachedBlob.CACHE_MISS;
+        }
+    }
+
+    private void onGetFailure(Exception e) {
+        // In case the blob cache system index is unavailable, we indicate it's not ready and move on. We do not fail the request:
+        // a failure here is not fatal since the data exists in the blob store, so we can simply indicate the cache is not ready.
+        if (isExpectedCacheGetException(e)) {
+            logger.debug(() -> new ParameterizedMessage("failed to retrieve cached blob from system index [{}]", index), e);
+        } else {
+            logger.warn(() -> new ParameterizedMessage("failed to retrieve cached blob from system index [{}]", index), e);
+            assert false : e;
+        }
+    }
+
     private static boolean assertDocId(
         final GetResponse response,
         final String repository,
@@ -360,35 +360,75 @@ public class CacheFile {
                 rangeToRead,
                 rangeListener(rangeToRead, reader, future, reference, decrementRef)
             );
+            fillGaps(gaps, reference, writer, executor);
+        } catch (Exception e) {
+            releaseAndFail(future, decrementRef, e);
+        }
+        return future;
+    }
+
+    /**
+     * Populates any missing ranges within {@code rangeToWrite} using the {@link RangeMissingHandler}, without reading anything back from
+     * the file. The given listener is notified once the whole range is available in the file or if populating it failed. This is used to
+     * read ahead ranges of the file that are likely to be accessed soon.
+     */
+    public void populate(
+        final ByteRange rangeToWrite,
+        final RangeMissingHandler writer,
+        final Executor executor,
+        final ActionListener<Void> listener
+    ) {
+        final ActionListener<Void> notifyOnce = ActionListener.notifyOnce(listener);
+        Releasable decrementRef = null;
+        try {
+            final FileChannelReference reference = acquireFileChannelReference();
+            decrementRef = Releasables.releaseOnce(reference::decRef);
+            final List<SparseFileTracker.Gap> gaps = tracker.waitForRange(
+                rangeToWrite,
+                rangeToWrite,
+                ActionListener.runAfter(notifyOnce, decrementRef::close)
+            );
+            fillGaps(gaps, reference, writer, executor);
+        } catch (Exception e) {
+            try {
+                Releasables.close(decrementRef);
+            } catch (Exception ex) {
+                e.addSuppressed(ex);
+            }
+            notifyOnce.onFailure(e);
+        }
+    }
 
-            for (SparseFileTracker.Gap gap : gaps) {
-                executor.execute(new AbstractRunnable() {
+    private void fillGaps(
+        final List<SparseFileTracker.Gap> gaps,
+        final FileChannelReference reference,
+        final RangeMissingHandler writer,
+        final Executor executor
+    ) {
+        for (SparseFileTracker.Gap gap : gaps) {
+            executor.execute(new AbstractRunnable() {
 
-                    @Override
-                    protected void doRun() throws Exception {
-                        if (reference.tryIncRef() == false) {
-                            throw new AlreadyClosedException("Cache file channel has been released and closed");
-                        }
-                        try {
-                            ensureOpen();
-                            writer.fillCacheRange(reference.fileChannel, gap.start(), gap.end(), gap::onProgress);
-                            gap.onCompletion();
-                            markAsNeedsFSync();
-                        } finally {
-                            reference.decRef();
-                        }
+                @Override
+                protected void doRun() throws Exception {
+                    if (reference.tryIncRef() == false) {
+                        throw new AlreadyClosedException("Cache file channel has been released and closed");
                     }
-
-                    @Override
-                    public void onFailure(Exception e) {
-                        gap.onFailure(e);
+                    try {
+                        ensureOpen();
+                        writer.fillCacheRange(reference.fileChannel, gap.start(), gap.end(), gap::onProgress);
+                        gap.onCompletion();
+                        markAsNeedsFSync();
+                    } finally {
+                        reference.decRef();
                     }
-                });
-            }
-        } catch (Exception e) {
-            releaseAndFail(future, decrementRef, e);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    gap.onFailure(e);
+                }
+            });
         }
-        return future;
     }
 
     /**
@@ -6,32 +6,37 @@
  */
 package org.elasticsearch.xpack.searchablesnapshots.cache.common;
 
-import org.elasticsearch.Assertions;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.support.GroupedActionListener;
 import org.elasticsearch.core.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
  * Keeps track of the contents of a file that may not be completely present.
+ *
+ * The ranges are kept in an immutable sorted array which is replaced as a whole using compare-and-set when ranges are added, completed
+ * or failed. Readers never block: looking up a range that is already present or pending only reads the current array, so that many
+ * threads reading the same hot file do not contend with each other.
  */
 public class SparseFileTracker {
 
+    private static final Range[] EMPTY_RANGES = new Range[0];
+
     /**
      * The byte ranges of the file which are present or pending. These ranges are nonempty, disjoint (and in order) and the non-pending
-     * ranges are not contiguous (i.e. contiguous non-pending ranges are merged together). See {@link SparseFileTracker#invariant()} for
-     * details.
+     * ranges are not contiguous (i.e. contiguous non-pending ranges are merged together). See {@link SparseFileTracker#invariant(Range[])}
+     * for details. The array is never modified once published.
      */
-    private final TreeSet<Range> ranges = new TreeSet<>(Comparator.comparingLong(r -> r.start));
-
-    private final Object mutex = new Object();
+    private final AtomicReference<Range[]> ranges = new AtomicReference<>(EMPTY_RANGES);
 
     private final String description;
 
@@ -68,26 +73,26 @@ public class SparseFileTracker {
         }
         long initialLength = 0;
         if (ranges.isEmpty() == false) {
-            synchronized (mutex) {
-                Range previous = null;
-                for (ByteRange next : ranges) {
-                    if (next.length() == 0L) {
-                        throw new IllegalArgumentException("Range " + next + " cannot be empty");
-                    }
-                    if (length < next.end()) {
-                        throw new IllegalArgumentException("Range " + next + " is exceeding maximum length [" + length + ']');
-                    }
-                    final Range range = new Range(next);
-                    if (previous != null && range.start <= previous.end) {
-                        throw new IllegalArgumentException("Range " + range + " is overlapping a previous range " + previous);
-                    }
-                    final boolean added = this.ranges.add(range);
-                    assert added : range + " already exist in " + this.ranges;
-                    previous = range;
-                    initialLength += range.end - range.start;
+            final List<Range> initialRanges = new ArrayList<>(ranges.size());
+            Range previous = null;
+            for (ByteRange next : ranges) {
+                if (next.length() == 0L) {
+                    throw new IllegalArgumentException("Range " + next + " cannot be empty");
                 }
-                assert invariant();
+                if (length < next.end()) {
+                    throw new IllegalArgumentException("Range " + next + " is exceeding maximum length [" + length + ']');
+                }
+                final Range range = new Range(next);
+                if (previous != null && range.start <= previous.end) {
+                    throw new IllegalArgumentException("Range " + range + " is overlapping a previous range " + previous);
+                }
+                initialRanges.add(range);
+                previous = range;
+                initialLength += range.end - range.start;
             }
+            final Range[] newRanges = initialRanges.toArray(EMPTY_RANGES);
+            assert invariant(newRanges);
+            this.ranges.set(newRanges);
         }
         this.initialLength = initialLength;
     }
@@ -98,17 +103,16 @@ public class SparseFileTracker {
 
     public SortedSet<ByteRange> getCompletedRanges() {
         SortedSet<ByteRange> completedRanges = null;
-        synchronized (mutex) {
-            assert invariant();
-            for (Range range : ranges) {
-                if (range.isPending()) {
-                    continue;
-                }
-                if (completedRanges == null) {
-                    completedRanges = new TreeSet<>();
-                }
-                completedRanges.add(ByteRange.of(range.start, range.end));
+        final Range[] currentRanges = ranges.get();
+        assert invariant(currentRanges);
+        for (Range range : currentRanges) {
+            if (range.isPending()) {
+                continue;
+            }
+            if (completedRanges == null) {
+                completedRanges = new TreeSet<>();
             }
+            completedRanges.add(ByteRange.of(range.start, range.end));
         }
         return completedRanges == null ? Collections.emptySortedSet() : completedRanges;
     }
@@ -125,9 +129,8 @@ public class SparseFileTracker {
     /**
      * @return the sum of the length of the ranges
      */
-    private long computeLengthOfRanges() {
-        assert Thread.holdsLock(mutex) : "sum of length of the ranges must be computed under mutex";
-        return ranges.stream().mapToLong(range -> range.end - range.start).sum();
+    private static long computeLengthOfRanges(Range[] ranges) {
+        return Arrays.stream(ranges).mapToLong(range -> range.end - range.start).sum();
     }
 
     /**
@@ -165,101 +168,120 @@ public class SparseFileTracker {
             );
         }
 
-        final ActionListener<Void> wrappedListener = wrapWithAssertions(listener);
-        final List<Range> requiredRanges;
+        List<Range> pendingRanges;
+        List<Gap> gaps;
+        while (true) {
+            final Range[] currentRanges = ranges.get();
+            assert invariant(currentRanges);
 
-        final List<Gap> gaps = new ArrayList<>();
-        synchronized (mutex) {
-            assert invariant();
+            pendingRanges = new ArrayList<>();
+            gaps = new ArrayList<>();
 
-            final List<Range> pendingRanges = new ArrayList<>();
+            // ranges with strictly earlier starts are kept as they are
+            int index = lastIndexStartingBefore(currentRanges, range.start(), false) + 1;
+            final int firstIndex = index;
 
-            final Range targetRange = new Range(range);
-            final SortedSet<Range> earlierRanges = ranges.headSet(targetRange, false); // ranges with strictly earlier starts
-            if (earlierRanges.isEmpty() == false) {
-                final Range lastEarlierRange = earlierRanges.last();
+            long targetStart = range.start();
+            if (index > 0) {
+                final Range lastEarlierRange = currentRanges[index - 1];
                 if (range.start() < lastEarlierRange.end) {
                     if (lastEarlierRange.isPending()) {
                         pendingRanges.add(lastEarlierRange);
                     }
-                    targetRange.start = Math.min(range.end(), lastEarlierRange.end);
+                    targetStart = Math.min(range.end(), lastEarlierRange.end);
                 }
             }
 
-            while (targetRange.start < range.end()) {
-                assert 0 <= targetRange.start : targetRange;
-                assert invariant();
+            // scan for the gaps first, the ranges are only copied if there are gaps to publish
+            while (targetStart < range.end()) {
+                assert 0 <= targetStart : targetStart;
 
-                final SortedSet<Range> existingRanges = ranges.tailSet(targetRange);
-                if (existingRanges.isEmpty()) {
+                if (index == currentRanges.length) {
                     final Range newPendingRange = new Range(
-                        targetRange.start,
+                        targetStart,
                         range.end(),
-                        new ProgressListenableActionFuture(targetRange.start, range.end())
+                        new ProgressListenableActionFuture(targetStart, range.end())
                     );
-                    ranges.add(newPendingRange);
                     pendingRanges.add(newPendingRange);
                     gaps.add(new Gap(newPendingRange));
-                    targetRange.start = range.end();
+                    targetStart = range.end();
                 } else {
-                    final Range firstExistingRange = existingRanges.first();
-                    assert targetRange.start <= firstExistingRange.start : targetRange + " vs " + firstExistingRange;
+                    final Range firstExistingRange = currentRanges[index];
+                    assert targetStart <= firstExistingRange.start : targetStart + " vs " + firstExistingRange;
 
-                    if (targetRange.start == firstExistingRange.start) {
+                    if (targetStart == firstExistingRange.start) {
                         if (firstExistingRange.isPending()) {
                             pendingRanges.add(firstExistingRange);
                         }
-                        targetRange.start = Math.min(range.end(), firstExistingRange.end);
+                        index += 1;
+                        targetStart = Math.min(range.end(), firstExistingRange.end);
                     } else {
                         final long newPendingRangeEnd = Math.min(range.end(), firstExistingRange.start);
                         final Range newPendingRange = new Range(
-                            targetRange.start,
+                            targetStart,
                             newPendingRangeEnd,
-                            new ProgressListenableActionFuture(targetRange.start, newPendingRangeEnd)
+                            new ProgressListenableActionFuture(targetStart, newPendingRangeEnd)
                         );
-                        ranges.add(newPendingRange);
                         pendingRanges.add(newPendingRange);
                         gaps.add(new Gap(newPendingRange));
-                        targetRange.start = newPendingRange.end;
+                        targetStart = newPendingRange.end;
                     }
                 }
             }
-            assert targetRange.start == targetRange.end : targetRange;
-            assert targetRange.start == range.end() : targetRange;
-            assert invariant();
-
-            assert ranges.containsAll(pendingRanges) : ranges + " vs " + pendingRanges;
+            assert targetStart == range.end() : targetStart + " vs " + range;
             assert pendingRanges.stream().allMatch(Range::isPending) : pendingRanges;
             assert pendingRanges.size() != 1 || gaps.size() <= 1 : gaps;
 
-            // Pending ranges that needs to be filled before executing the listener
-            requiredRanges = range.equals(subRange)
-                ? pendingRanges
-                : pendingRanges.stream()
-                    .filter(pendingRange -> pendingRange.start < subRange.end())
-                    .filter(pendingRange -> subRange.start() < pendingRange.end)
-                    .sorted(Comparator.comparingLong(r -> r.start))
-                    .collect(Collectors.toList());
+            if (gaps.isEmpty()) {
+                // the range is entirely present or pending, nothing to publish
+                break;
+            }
+            // the existing ranges and the gaps are both sorted and don't overlap, so they are merged in a single pass
+            final Range[] updatedRanges = new Range[currentRanges.length + gaps.size()];
+            System.arraycopy(currentRanges, 0, updatedRanges, 0, firstIndex);
+            int existing = firstIndex;
+            int updated = firstIndex;
+            for (Gap gap : gaps) {
+                while (existing < index && currentRanges[existing].start < gap.range.start) {
+                    updatedRanges[updated++] = currentRanges[existing++];
+                }
+                updatedRanges[updated++] = gap.range;
+            }
+            System.arraycopy(currentRanges, existing, updatedRanges, updated, currentRanges.length - existing);
+            assert invariant(updatedRanges);
+            if (ranges.compareAndSet(currentRanges, updatedRanges)) {
+                break;
+            }
+            // ranges were concurrently modified, the new pending ranges have not been published yet so it is safe to discard them
         }
 
-        // NB we work with ranges outside the mutex here, but only to interact with their completion listeners which are `final` so
-        // there is no risk of concurrent modification.
+        // Pending ranges that needs to be filled before executing the listener
+        final List<Range> requiredRanges = range.equals(subRange)
+            ? pendingRanges
+            : pendingRanges.stream()
+                .filter(pendingRange -> pendingRange.start < subRange.end())
+                .filter(pendingRange -> subRange.start() < pendingRange.end)
+                .sorted(Comparator.comparingLong(r -> r.start))
+                .collect(Collectors.toList());
+
+        // NB we work with ranges that may have been completed or failed concurrently here, but only to interact with their completion
+        // listeners which are `final` and which notify listeners added after completion immediately.
 
         switch (requiredRanges.size()) {
             case 0:
                 // no need to wait for the gaps to be filled, the listener can be executed immediately
-                wrappedListener.onResponse(null);
+                listener.onResponse(null);
                 break;
             case 1:
                 final Range requiredRange = requiredRanges.get(0);
                 requiredRange.completionListener.addListener(
-                    wrappedListener.map(progress -> null),
+                    listener.map(progress -> null),
                     Math.min(requiredRange.completionListener.end, subRange.end())
                 );
                 break;
             default:
                 final GroupedActionListener<Long> groupedActionListener = new GroupedActionListener<>(
-                    wrappedListener.map(progress -> null),
+                    listener.map(progress -> null),
                     requiredRanges.size()
                 );
                 requiredRanges.forEach(
@@ -287,67 +309,59 @@ public class SparseFileTracker {
             throw new IllegalArgumentException("invalid range [" + range + ", length=" + length + "]");
         }
 
-        final ActionListener<Void> wrappedListener = wrapWithAssertions(listener);
         final List<Range> pendingRanges = new ArrayList<>();
 
-        synchronized (mutex) {
-            assert invariant();
+        final Range[] currentRanges = ranges.get();
+        assert invariant(currentRanges);
 
-            final Range targetRange = new Range(range);
-            final SortedSet<Range> earlierRanges = ranges.headSet(targetRange, false); // ranges with strictly earlier starts
-            if (earlierRanges.isEmpty() == false) {
-                final Range lastEarlierRange = earlierRanges.last();
-                if (range.start() < lastEarlierRange.end) {
-                    if (lastEarlierRange.isPending()) {
-                        pendingRanges.add(lastEarlierRange);
-                    }
-                    targetRange.start = Math.min(range.end(), lastEarlierRange.end);
+        int index = lastIndexStartingBefore(currentRanges, range.start(), false) + 1;
+        long targetStart = range.start();
+        if (index > 0) {
+            final Range lastEarlierRange = currentRanges[index - 1];
+            if (range.start() < lastEarlierRange.end) {
+                if (lastEarlierRange.isPending()) {
+                    pendingRanges.add(lastEarlierRange);
                 }
+                targetStart = Math.min(range.end(), lastEarlierRange.end);
             }
+        }
 
-            while (targetRange.start < range.end()) {
-                assert 0 <= targetRange.start : targetRange;
-                assert invariant();
+        while (targetStart < range.end()) {
+            assert 0 <= targetStart : targetStart;
 
-                final SortedSet<Range> existingRanges = ranges.tailSet(targetRange);
-                if (existingRanges.isEmpty()) {
-                    return false;
-                } else {
-                    final Range firstExistingRange = existingRanges.first();
-                    assert targetRange.start <= firstExistingRange.start : targetRange + " vs " + firstExistingRange;
+            if (index == currentRanges.length) {
+                return false;
+            } else {
+                final Range firstExistingRange = currentRanges[index];
+                assert targetStart <= firstExistingRange.start : targetStart + " vs " + firstExistingRange;
 
-                    if (targetRange.start == firstExistingRange.start) {
-                        if (firstExistingRange.isPending()) {
-                            pendingRanges.add(firstExistingRange);
-                        }
-                        targetRange.start = Math.min(range.end(), firstExistingRange.end);
-                    } else {
-                        return false;
+                if (targetStart == firstExistingRange.start) {
+                    if (firstExistingRange.isPending()) {
+                        pendingRanges.add(firstExistingRange);
                     }
+                    index += 1;
+                    targetStart = Math.min(range.end(), firstExistingRange.end);
+                } else {
+                    return false;
                 }
             }
-            assert targetRange.start == targetRange.end : targetRange;
-            assert targetRange.start == range.end() : targetRange;
-            assert invariant();
         }
-
-        // NB we work with ranges outside the mutex here, but only to interact with their completion listeners which are `final` so
-        // there is no risk of concurrent modification.
+        assert targetStart == range.end() : targetStart + " vs " + range;
 
         switch (pendingRanges.size()) {
             case 0:
-                wrappedListener.onResponse(null);
+                listener.onResponse(null);
                 break;
             case 1:
                 final Range pendingRange = pendingRanges.get(0);
                 pendingRange.completionListener.addListener(
-                    wrappedListener.map(progress -> null),
+                    listener.map(progress -> null),
                     Math.min(pendingRange.completionListener.end, range.end())
                 );
                 return true;
             default:
                 final GroupedActionListener<Long> groupedActionListener = new GroupedActionListener<>(
-                    wrappedListener.map(progress -> null),
+                    listener.map(progress -> null),
                     pendingRanges.size()
                 );
                 pendingRanges.forEach(
@@ -358,17 +372,6 @@ public class SparseFileTracker {
         return true;
     }
 
-    private ActionListener<Void> wrapWithAssertions(ActionListener<Void> listener) {
-        if (Assertions.ENABLED) {
-            return ActionListener.runAfter(
-                listener,
-                () -> { assert Thread.holdsLock(mutex) == false : "mutex unexpectedly held in listener"; }
-            );
-        } else {
-            return listener;
-        }
-    }
-
     /**
      * Returns a range that contains all bytes of the target range which are absent (possibly pending). The returned range may include
      * some ranges of present bytes. It tries to return the smallest possible range, but does so on a best-effort basis. This method does
@@ -379,133 +382,142 @@ public class SparseFileTracker {
      */
     @Nullable
     public ByteRange getAbsentRangeWithin(ByteRange range) {
-        synchronized (mutex) {
-
-            final long start = range.start();
-            // Find the first absent byte in the range
-            final SortedSet<Range> startRanges = ranges.headSet(new Range(start, start, null), true); // ranges which start <= 'start'
-            long resultStart;
-            if (startRanges.isEmpty()) {
+        final Range[] currentRanges = ranges.get();
+
+        final long start = range.start();
+        // Find the first absent byte in the range
+        final int startIndex = lastIndexStartingBefore(currentRanges, start, true); // last range which starts <= 'start'
+        long resultStart;
+        if (startIndex < 0) {
+            resultStart = start;
+        } else {
+            final Range lastStartRange = currentRanges[startIndex];
+            // last range which starts <= 'start' and which therefore may contain the first byte of the range
+            if (lastStartRange.end < start) {
+                resultStart = start;
+            } else if (lastStartRange.isPending()) {
                 resultStart = start;
             } else {
-                final Range lastStartRange = startRanges.last();
-                // last range which starts <= 'start' and which therefore may contain the first byte of the range
-                if (lastStartRange.end < start) {
-                    resultStart = start;
-                } else if (lastStartRange.isPending()) {
-                    resultStart = start;
-                } else {
-                    resultStart = lastStartRange.end;
-                }
+                resultStart = lastStartRange.end;
             }
-            assert resultStart >= start;
-
-            final long end = range.end();
-            // Find the last absent byte in the range
-            final SortedSet<Range> endRanges = ranges.headSet(new Range(end, end, null), false); // ranges which start < 'end'
-            final long resultEnd;
-            if (endRanges.isEmpty()) {
+        }
+        assert resultStart >= start;
+
+        final long end = range.end();
+        // Find the last absent byte in the range
+        final int endIndex = lastIndexStartingBefore(currentRanges, end, false); // last range which starts < 'end'
+        final long resultEnd;
+        if (endIndex < 0) {
+            resultEnd = end;
+        } else {
+            final Range lastEndRange = currentRanges[endIndex];
+            // last range which starts < 'end' and which therefore may contain the last byte of the range
+            if (lastEndRange.end < end) {
+                resultEnd = end;
+            } else if (lastEndRange.isPending()) {
                 resultEnd = end;
             } else {
-                final Range lastEndRange = endRanges.last();
-                // last range which starts < 'end' and which therefore may contain the last byte of the range
-                if (lastEndRange.end < end) {
-                    resultEnd = end;
-                } else if (lastEndRange.isPending()) {
-                    resultEnd = end;
-                } else {
-                    resultEnd = lastEndRange.start;
-                }
+                resultEnd = lastEndRange.start;
             }
-            assert resultEnd <= end;
+        }
+        assert resultEnd <= end;
+
+        return resultStart < resultEnd ? ByteRange.of(resultStart, resultEnd) : null;
+    }
 
-            return resultStart < resultEnd ? ByteRange.of(resultStart, resultEnd) : null;
+    /**
+     * Returns the index of the last range which starts before {@code position} (or at {@code position} if {@code inclusive} is set), or
+     * {@code -1} if there is no such range.
+     */
+    private static int lastIndexStartingBefore(Range[] ranges, long position, boolean inclusive) {
+        int low = 0;
+        int high = ranges.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final long start = ranges[mid].start;
+            if (start < position || (inclusive && start == position)) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
         }
+        return high;
     }
 
-    private boolean assertPendingRangeExists(Range range) {
-        assert Thread.holdsLock(mutex);
-        final SortedSet<Range> existingRanges = ranges.tailSet(range);
-        assert existingRanges.isEmpty() == false;
-        final Range existingRange = existingRanges.first();
-        assert existingRange == range;
-        assert existingRange.isPending();
-        return true;
+    /**
+     * Returns the index of the given pending range, which must exist in the given ranges.
+     */
+    private static int indexOfPendingRange(Range[] ranges, Range range) {
+        final int index = lastIndexStartingBefore(ranges, range.start, true);
+        assert index >= 0 : range + " not found";
+        assert ranges[index] == range : ranges[index] + " vs " + range;
+        assert range.isPending() : range;
+        return index;
     }
 
     private void onGapSuccess(final Range gapRange) {
-        final ProgressListenableActionFuture completionListener;
+        while (true) {
+            final Range[] currentRanges = ranges.get();
+            assert invariant(currentRanges);
 
-        synchronized (mutex) {
-            assert invariant();
-            assert assertPendingRangeExists(gapRange);
-            completionListener = gapRange.completionListener;
-            ranges.remove(gapRange);
+            final int index = indexOfPendingRange(currentRanges, gapRange);
 
-            final SortedSet<Range> prevRanges = ranges.headSet(gapRange);
-            final Range prevRange = prevRanges.isEmpty() ? null : prevRanges.last();
+            final Range prevRange = index > 0 ? currentRanges[index - 1] : null;
             assert prevRange == null || prevRange.end <= gapRange.start : prevRange + " vs " + gapRange;
             final boolean mergeWithPrev = prevRange != null && prevRange.isPending() == false && prevRange.end == gapRange.start;
 
-            final SortedSet<Range> nextRanges = ranges.tailSet(gapRange);
-            final Range nextRange = nextRanges.isEmpty() ? null : nextRanges.first();
+            final Range nextRange = index < currentRanges.length - 1 ? currentRanges[index + 1] : null;
             assert nextRange == null || gapRange.end <= nextRange.start : gapRange + " vs " + nextRange;
             final boolean mergeWithNext = nextRange != null && nextRange.isPending() == false && gapRange.end == nextRange.start;
 
-            if (mergeWithPrev && mergeWithNext) {
-                assert prevRange.isPending() == false : prevRange;
-                assert nextRange.isPending() == false : nextRange;
-                assert prevRange.end == gapRange.start : prevRange + " vs " + gapRange;
-                assert gapRange.end == nextRange.start : gapRange + " vs " + nextRange;
-                prevRange.end = nextRange.end;
-                ranges.remove(nextRange);
-            } else if (mergeWithPrev) {
-                assert prevRange.isPending() == false : prevRange;
-                assert prevRange.end == gapRange.start : prevRange + " vs " + gapRange;
-                prevRange.end = gapRange.end;
-            } else if (mergeWithNext) {
-                assert nextRange.isPending() == false : nextRange;
-                assert gapRange.end == nextRange.start : gapRange + " vs " + nextRange;
-                nextRange.start = gapRange.start;
-            } else {
-                ranges.add(new Range(gapRange.start, gapRange.end, null));
-            }
+            // the ranges [from, to) of the current ranges are replaced by a single completed range
+            final int from = mergeWithPrev ? index - 1 : index;
+            final int to = mergeWithNext ? index + 2 : index + 1;
+            final Range completedRange = new Range(
+                mergeWithPrev ? prevRange.start : gapRange.start,
+                mergeWithNext ? nextRange.end : gapRange.end,
+                null
+            );
 
-            assert invariant();
+            final Range[] updatedRanges = new Range[currentRanges.length - (to - from) + 1];
+            System.arraycopy(currentRanges, 0, updatedRanges, 0, from);
+            updatedRanges[from] = completedRange;
+            System.arraycopy(currentRanges, to, updatedRanges, from + 1, currentRanges.length - to);
+            assert invariant(updatedRanges);
+
+            if (ranges.compareAndSet(currentRanges, updatedRanges)) {
+                break;
+            }
         }
 
-        completionListener.onResponse(gapRange.end);
+        gapRange.completionListener.onResponse(gapRange.end);
     }
 
     private void onGapProgress(final Range gapRange, long value) {
-        final ProgressListenableActionFuture completionListener;
-
-        synchronized (mutex) {
-            assert invariant();
-            assert assertPendingRangeExists(gapRange);
-            completionListener = gapRange.completionListener;
-            assert invariant();
-        }
-
-        completionListener.onProgress(value);
+        assert indexOfPendingRange(ranges.get(), gapRange) >= 0;
+        gapRange.completionListener.onProgress(value);
     }
 
     private void onGapFailure(final Range gapRange, Exception e) {
-        final ProgressListenableActionFuture completionListener;
+        while (true) {
+            final Range[] currentRanges = ranges.get();
+            assert invariant(currentRanges);
+
+            final int index = indexOfPendingRange(currentRanges, gapRange);
+            final Range[] updatedRanges = new Range[currentRanges.length - 1];
+            System.arraycopy(currentRanges, 0, updatedRanges, 0, index);
+            System.arraycopy(currentRanges, index + 1, updatedRanges, index, currentRanges.length - index - 1);
+            assert invariant(updatedRanges);
 
-        synchronized (mutex) {
-            assert invariant();
-            assert assertPendingRangeExists(gapRange);
-            completionListener = gapRange.completionListener;
-            final boolean removed = ranges.remove(gapRange);
-            assert removed : gapRange + " not found";
-            assert invariant();
+            if (ranges.compareAndSet(currentRanges, updatedRanges)) {
+                break;
+            }
         }
 
-        completionListener.onFailure(e);
+        gapRange.completionListener.onFailure(e);
     }
 
-    private boolean invariant() {
+    private boolean invariant(Range[] ranges) {
         long lengthOfRanges = 0L;
         Range previousRange = null;
         for (final Range range : ranges) {
@@ -529,10 +541,10 @@ public class SparseFileTracker {
         }
 
         // sum of ranges lengths never exceed maximum length
-        assert computeLengthOfRanges() <= length;
+        assert computeLengthOfRanges(ranges) <= length;
 
         // computed length of ranges is equal to the sum of range lengths
-        assert computeLengthOfRanges() == lengthOfRanges;
+        assert computeLengthOfRanges(ranges) == lengthOfRanges;
 
         return true;
     }
@@ -587,12 +599,12 @@ public class SparseFileTracker {
         /**
          * Inclusive start point of this range
          */
-        long start;
+        final long start;
 
         /**
          * Exclusive end point of this range
          */
-        long end;
+        final long end;
 
         @Nullable // if not pending
         final ProgressListenableActionFuture completionListener;
@@ -0,0 +1,422 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.cache.full;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.CacheFile;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.CacheKey;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+import static java.util.Collections.unmodifiableSortedSet;
+
+/**
+ * An append-only log that persists the metadata of the cache files of a single searchable snapshot shard. The log is located in the
+ * shard's snapshot cache directory, next to the cache files it describes, so that it can be read when the shard is allocated on the node
+ * instead of when the node starts.
+ *
+ * Every update of a cache file appends a record with the latest completed ranges of the file and every deletion appends a tombstone. The
+ * log is compacted by rewriting the live records in a new file once it contains too many obsolete records. Records are checksummed: a
+ * truncated or corrupted record at the end of the log (for example after a crash in the middle of a write) is discarded along with any
+ * record that follows it.
+ */
+class CacheFilesMetadataLog implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(CacheFilesMetadataLog.class);
+
+    static final String LOG_FILE_NAME = "cache_files.log";
+    static final String TEMP_LOG_FILE_NAME = "cache_files.log.tmp";
+
+    private static final int MAGIC = 0x53534346; // "SSCF"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+
+    private static final byte PUT = 0;
+    private static final byte DELETE = 1;
+
+    /**
+     * The log is only compacted if it contains at least this number of records...
+     */
+    static final int MIN_RECORDS_FOR_COMPACTION = 128;
+
+    /**
+     * ... and if the number of records is larger than this multiple of the number of live records.
+     */
+    static final int COMPACTION_RATIO = 2;
+
+    private final Path shardCachePath;
+    private final Map<String, BytesReference> liveRecords;
+    private FileChannel channel;
+    private long numberOfRecords;
+    private boolean dirty;
+
+    private CacheFilesMetadataLog(Path shardCachePath, Map<String, BytesReference> liveRecords, long numberOfRecords, FileChannel channel) {
+        this.shardCachePath = shardCachePath;
+        this.liveRecords = liveRecords;
+        this.numberOfRecords = numberOfRecords;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the log of the given shard cache directory for appending, creating it if it does not exist yet. A truncated or corrupted tail
+     * is removed from the log.
+     *
+     * @param shardCachePath the snapshot cache directory of the shard
+     * @return the opened log
+     */
+    static CacheFilesMetadataLog open(Path shardCachePath) throws IOException {
+        final Path logFile = shardCachePath.resolve(LOG_FILE_NAME);
+        final Contents contents = Files.exists(logFile) ? read(logFile) : null;
+        if (contents == null) {
+            Files.createDirectories(shardCachePath);
+            return new CacheFilesMetadataLog(shardCachePath, new HashMap<>(), 0L, createLogFile(logFile, Collections.emptyMap()));
+        }
+        final FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE);
+        boolean success = false;
+        try {
+            if (contents.validLength < channel.size()) {
+                logger.warn("truncating persistent cache log [{}] from [{}] to [{}] bytes", logFile, channel.size(), contents.validLength);
+                channel.truncate(contents.validLength);
+                channel.force(false);
+            }
+            channel.position(contents.validLength);
+            success = true;
+            return new CacheFilesMetadataLog(shardCachePath, contents.liveRecords, contents.numberOfRecords, channel);
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(channel);
+            }
+        }
+    }
+
+    /**
+     * Reads the live records of the log of the given shard cache directory, without opening it for appending.
+     *
+     * @param shardCachePath the snapshot cache directory of the shard
+     * @return the live records of the log, or an empty map if the log does not exist
+     */
+    static Map<String, CacheFileEntry> readEntries(Path shardCachePath) throws IOException {
+        final Path logFile = shardCachePath.resolve(LOG_FILE_NAME);
+        final Contents contents;
+        try {
+            contents = read(logFile);
+        } catch (NoSuchFileException e) {
+            return Collections.emptyMap();
+        }
+        if (contents == null) {
+            return Collections.emptyMap();
+        }
+        final Map<String, CacheFileEntry> entries = new HashMap<>();
+        for (Map.Entry<String, BytesReference> record : contents.liveRecords.entrySet()) {
+            entries.put(record.getKey(), CacheFileEntry.fromRecord(record.getValue()));
+        }
+        return entries;
+    }
+
+    static boolean isLogFile(Path file) {
+        final String fileName = file.getFileName().toString();
+        return fileName.equals(LOG_FILE_NAME) || fileName.equals(TEMP_LOG_FILE_NAME);
+    }
+
+    Path shardCachePath() {
+        return shardCachePath;
+    }
+
+    synchronized Map<String, CacheFileEntry> entries() throws IOException {
+        final Map<String, CacheFileEntry> entries = new HashMap<>();
+        for (Map.Entry<String, BytesReference> record : liveRecords.entrySet()) {
+            entries.put(record.getKey(), CacheFileEntry.fromRecord(record.getValue()));
+        }
+        return entries;
+    }
+
+    synchronized int size() {
+        return liveRecords.size();
+    }
+
+    synchronized void put(CacheFile cacheFile, SortedSet<ByteRange> ranges) throws IOException {
+        final String cacheFileId = cacheFile.getFile().getFileName().toString();
+        final CacheKey cacheKey = cacheFile.getCacheKey();
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            output.writeByte(PUT);
+            output.writeString(cacheFileId);
+            output.writeString(cacheKey.getSnapshotUUID());
+            output.writeString(cacheKey.getSnapshotIndexName());
+            output.writeString(cacheKey.getFileName());
+            output.writeVLong(cacheFile.getLength());
+            output.writeVInt(ranges.size());
+            for (ByteRange range : ranges) {
+                output.writeVLong(range.start());
+                output.writeVLong(range.end());
+            }
+            final BytesReference record = output.copyBytes();
+            append(record);
+            liveRecords.put(cacheFileId, record);
+        }
+    }
+
+    synchronized void delete(String cacheFileId) throws IOException {
+        if (liveRecords.containsKey(cacheFileId) == false) {
+            return;
+        }
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            output.writeByte(DELETE);
+            output.writeString(cacheFileId);
+            append(output.bytes());
+            liveRecords.remove(cacheFileId);
+        }
+    }
+
+    /**
+     * Removes the given cache file from the live records without writing a tombstone, for cache files that are known to be absent. The
+     * obsolete record is removed from the log on the next compaction.
+     */
+    synchronized void forget(String cacheFileId) {
+        liveRecords.remove(cacheFileId);
+    }
+
+    private void append(BytesReference record) throws IOException {
+        ensureOpen();
+        Channels.writeToChannel(BytesReference.toBytes(frame(record)), channel);
+        numberOfRecords += 1L;
+        dirty = true;
+    }
+
+    /**
+     * Makes the appended records durable, compacting the log first if it contains too many obsolete records.
+     */
+    synchronized void sync() throws IOException {
+        ensureOpen();
+        if (numberOfRecords >= MIN_RECORDS_FOR_COMPACTION && numberOfRecords > (long) COMPACTION_RATIO * liveRecords.size()) {
+            compact();
+        } else if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    /**
+     * Rewrites the live records in a new log file that atomically replaces the current one.
+     */
+    private void compact() throws IOException {
+        final Path logFile = shardCachePath.resolve(LOG_FILE_NAME);
+        final Path tempLogFile = shardCachePath.resolve(TEMP_LOG_FILE_NAME);
+        logger.debug("compacting persistent cache log [{}] from [{}] to [{}] records", logFile, numberOfRecords, liveRecords.size());
+        IOUtils.close(createLogFile(tempLogFile, liveRecords));
+        Files.move(tempLogFile, logFile, StandardCopyOption.ATOMIC_MOVE);
+        IOUtils.fsync(shardCachePath, true, false);
+
+        final FileChannel previous = channel;
+        channel = null;
+        IOUtils.close(previous);
+        channel = FileChannel.open(logFile, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        numberOfRecords = liveRecords.size();
+        dirty = false;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel == null) {
+            throw new IOException("persistent cache log [" + shardCachePath.resolve(LOG_FILE_NAME) + "] is closed");
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        final FileChannel previous = channel;
+        channel = null;
+        IOUtils.close(previous);
+    }
+
+    @Override
+    public String toString() {
+        return "[persistent cache log][" + shardCachePath + ']';
+    }
+
+    /**
+     * Creates a new log file containing the given records, and makes it durable.
+     */
+    private static FileChannel createLogFile(Path logFile, Map<String, BytesReference> records) throws IOException {
+        final FileChannel channel = FileChannel.open(
+            logFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE
+        );
+        boolean success = false;
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.flip();
+            Channels.writeToChannel(header, channel);
+            for (BytesReference record : records.values()) {
+                Channels.writeToChannel(BytesReference.toBytes(frame(record)), channel);
+            }
+            channel.force(true);
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(channel);
+            }
+        }
+        IOUtils.fsync(logFile.getParent(), true, false);
+        return channel;
+    }
+
+    /**
+     * Frames a record as its length, followed by its bytes and their CRC32 checksum.
+     */
+    private static BytesReference frame(BytesReference record) throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput(record.length() + 2 * Integer.BYTES)) {
+            output.writeInt(record.length());
+            record.writeTo(output);
+            output.writeInt(checksum(record));
+            return output.copyBytes();
+        }
+    }
+
+    /**
+     * Reads the records of a log file up to the first truncated or corrupted one.
+     *
+     * @return the contents of the log, or {@code null} if the log file has no valid header
+     */
+    private static Contents read(Path logFile) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(logFile));
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            logger.warn("ignoring persistent cache log [{}] with an invalid header", logFile);
+            return null;
+        }
+        final int version = buffer.getInt();
+        if (version != VERSION) {
+            logger.warn("ignoring persistent cache log [{}] with unsupported version [{}]", logFile, version);
+            return null;
+        }
+        final Map<String, BytesReference> liveRecords = new HashMap<>();
+        long numberOfRecords = 0L;
+        long validLength = buffer.position();
+        while (buffer.remaining() >= Integer.BYTES) {
+            final int length = buffer.getInt();
+            if (length <= 0 || buffer.remaining() < length + Integer.BYTES) {
+                break;
+            }
+            final BytesReference record = new BytesArray(buffer.array(), buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            if (buffer.getInt() != checksum(record)) {
+                break;
+            }
+            try (StreamInput input = record.streamInput()) {
+                final byte type = input.readByte();
+                final String cacheFileId = input.readString();
+                if (type == PUT) {
+                    liveRecords.put(cacheFileId, record);
+                } else if (type == DELETE) {
+                    liveRecords.remove(cacheFileId);
+                } else {
+                    break;
+                }
+            }
+            numberOfRecords += 1L;
+            validLength = buffer.position();
+        }
+        if (validLength < buffer.limit()) {
+            logger.debug("persistent cache log [{}] has [{}] trailing invalid bytes", logFile, buffer.limit() - validLength);
+        }
+        return new Contents(liveRecords, numberOfRecords, validLength);
+    }
+
+    private static class Contents {
+
+        private final Map<String, BytesReference> liveRecords;
+        private final long numberOfRecords;
+        private final long validLength;
+
+        private Contents(Map<String, BytesReference> liveRecords, long numberOfRecords, long validLength) {
+            this.liveRecords = liveRecords;
+            this.numberOfRecords = numberOfRecords;
+            this.validLength = validLength;
+        }
+    }
+
+    private static int checksum(BytesReference record) {
+        final CRC32 crc32 = new CRC32();
+        final BytesRef bytesRef = record.toBytesRef();
+        crc32.update(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * The persisted metadata of a cache file.
+     */
+    static class CacheFileEntry {
+
+        final String snapshotUUID;
+        final String snapshotIndexName;
+        final String fileName;
+        final long fileLength;
+        final SortedSet<ByteRange> ranges;
+
+        private CacheFileEntry(
+            String snapshotUUID,
+            String snapshotIndexName,
+            String fileName,
+            long fileLength,
+            SortedSet<ByteRange> ranges
+        ) {
+            this.snapshotUUID = snapshotUUID;
+            this.snapshotIndexName = snapshotIndexName;
+            this.fileName = fileName;
+            this.fileLength = fileLength;
+            this.ranges = ranges;
+        }
+
+        private static CacheFileEntry fromRecord(BytesReference record) throws IOException {
+            try (StreamInput input = record.streamInput()) {
+                final byte type = input.readByte();
+                assert type == PUT : type;
+                input.readString(); // cache file id
+                final String snapshotUUID = input.readString();
+                final String snapshotIndexName = input.readString();
+                final String fileName = input.readString();
+                final long fileLength = input.readVLong();
+                final int numberOfRanges = input.readVInt();
+                final SortedSet<ByteRange> ranges = new TreeSet<>();
+                for (int i = 0; i < numberOfRanges; i++) {
+                    final ByteRange range = ByteRange.of(input.readVLong(), input.readVLong());
+                    assert range.length() > 0 : range;
+                    assert range.end() <= fileLength : range + " vs " + fileLength;
+                    ranges.add(range);
+                }
+                return new CacheFileEntry(snapshotUUID, snapshotIndexName, fileName, fileLength, unmodifiableSortedSet(ranges));
+            }
+        }
+    }
+}
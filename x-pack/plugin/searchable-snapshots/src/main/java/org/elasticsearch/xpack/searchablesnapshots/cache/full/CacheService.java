@@ -267,6 +267,8 @@ public class CacheService extends AbstractLifecycleComponent {
      */
     public CacheFile get(final CacheKey cacheKey, final long fileLength, final Path cacheDir) throws Exception {
         ensureLifecycleStarted();
+        // the cache directory is the snapshot directory within the shard's cache directory
+        persistentCache.loadShardIfNeeded(cacheKey.getShardId(), cacheDir.getParent(), this);
         return cache.computeIfAbsent(cacheKey, key -> {
             ensureLifecycleStarted();
             // generate a random UUID for the name of the cache file on disk
@@ -312,6 +314,31 @@ public class CacheService extends AbstractLifecycleComponent {
     ) throws Exception {
 
         ensureLifecycleInitializing();
+        putCacheFile(cacheKey, fileLength, cacheDir, cacheFileUuid, cacheFileRanges);
+    }
+
+    /**
+     * Same as {@link #put(CacheKey, long, Path, String, SortedSet)} but for cache files that are loaded once the {@link CacheService} is
+     * started, when the persistent cache is loaded lazily for each shard.
+     */
+    void load(
+        final CacheKey cacheKey,
+        final long fileLength,
+        final Path cacheDir,
+        final String cacheFileUuid,
+        final SortedSet<ByteRange> cacheFileRanges
+    ) throws Exception {
+        ensureLifecycleStarted();
+        putCacheFile(cacheKey, fileLength, cacheDir, cacheFileUuid, cacheFileRanges);
+    }
+
+    private void putCacheFile(
+        final CacheKey cacheKey,
+        final long fileLength,
+        final Path cacheDir,
+        final String cacheFileUuid,
+        final SortedSet<ByteRange> cacheFileRanges
+    ) throws Exception {
         final Path path = cacheDir.resolve(cacheFileUuid);
         if (Files.exists(path) == false) {
             throw new FileNotFoundException("Cache file [" + path + "] not found");
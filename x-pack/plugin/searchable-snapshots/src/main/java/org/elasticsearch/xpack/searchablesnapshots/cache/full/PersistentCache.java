@@ -9,6 +9,7 @@ package org.elasticsearch.xpack.searchablesnapshots.cache.full;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
@@ -39,11 +40,16 @@ import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.io.stream.ByteBufferStreamInput;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.settings.SettingsException;
+import org.elasticsearch.common.util.concurrent.FutureUtils;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.index.Index;
@@ -70,12 +76,16 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.function.IntPredicate;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static java.util.Collections.synchronizedMap;
 import static java.util.Collections.unmodifiableList;
@@ -89,15 +99,57 @@ public class PersistentCache implements Closeable {
 
     private static final String NODE_VERSION_COMMIT_KEY = "node_version";
 
+    public static final String INDEX_FORMAT = "index";
+    public static final String LOG_FORMAT = "log";
+
+    /**
+     * The format used to persist the metadata of the cache files. With the {@code index} format the metadata of all cache files are kept
+     * in a Lucene index on every data path, which is entirely read when the node starts. With the {@code log} format the metadata of the
+     * cache files of a shard are kept in an append-only log in the shard's cache directory, which is only read when the shard is first
+     * accessed after the node started (see {@link CacheFilesMetadataLog}).
+     */
+    public static final Setting<String> PERSISTENT_CACHE_FORMAT_SETTING = new Setting<>(
+        "xpack.searchable.snapshot.cache.persistent.format",
+        INDEX_FORMAT,
+        Function.identity(),
+        value -> {
+            if (INDEX_FORMAT.equals(value) == false && LOG_FORMAT.equals(value) == false) {
+                throw new SettingsException(
+                    "setting [{}] must be one of [{}, {}] but was [{}]",
+                    "xpack.searchable.snapshot.cache.persistent.format",
+                    INDEX_FORMAT,
+                    LOG_FORMAT,
+                    value
+                );
+            }
+        },
+        Setting.Property.NodeScope
+    );
+
     private final NodeEnvironment nodeEnvironment;
     private final Map<String, Document> documents;
     private final List<CacheIndexWriter> writers;
     private final AtomicBoolean started;
     private final AtomicBoolean closed;
 
+    @Nullable // if the metadata of the cache files are persisted in the persistent cache index
+    private final Map<Path, ShardLog> shardsLogs;
+
     public PersistentCache(NodeEnvironment nodeEnvironment) {
-        this.documents = synchronizedMap(loadDocuments(nodeEnvironment));
-        this.writers = createWriters(nodeEnvironment);
+        this(Settings.EMPTY, nodeEnvironment);
+    }
+
+    public PersistentCache(Settings settings, NodeEnvironment nodeEnvironment) {
+        if (LOG_FORMAT.equals(PERSISTENT_CACHE_FORMAT_SETTING.get(settings))) {
+            deleteCacheIndices(nodeEnvironment);
+            this.documents = Collections.emptyMap();
+            this.writers = Collections.emptyList();
+            this.shardsLogs = new ConcurrentHashMap<>();
+        } else {
+            this.documents = synchronizedMap(loadDocuments(nodeEnvironment));
+            this.writers = createWriters(nodeEnvironment);
+            this.shardsLogs = null;
+        }
         this.nodeEnvironment = nodeEnvironment;
         this.started = new AtomicBoolean();
         this.closed = new AtomicBoolean();
@@ -133,20 +185,62 @@ public class PersistentCache implements Closeable {
 
     public void addCacheFile(CacheFile cacheFile, SortedSet<ByteRange> ranges) throws IOException {
         ensureStarted();
+        if (shardsLogs != null) {
+            final CacheFilesMetadataLog shardLog = getShardLog(cacheFile);
+            if (shardLog != null) {
+                shardLog.put(cacheFile, ranges);
+            }
+            return;
+        }
         getWriter(cacheFile).updateCacheFile(cacheFile, ranges);
     }
 
     public void removeCacheFile(CacheFile cacheFile) throws IOException {
         ensureStarted();
+        if (shardsLogs != null) {
+            final CacheFilesMetadataLog shardLog = getShardLog(cacheFile);
+            if (shardLog != null) {
+                shardLog.delete(buildId(cacheFile));
+            }
+            return;
+        }
         getWriter(cacheFile).deleteCacheFile(cacheFile);
     }
 
+    /**
+     * @return the {@link CacheFilesMetadataLog} of the shard the given {@link CacheFile} belongs to, or {@code null} if the shard has
+     * been removed from disk in the meantime
+     */
+    @Nullable
+    private CacheFilesMetadataLog getShardLog(CacheFile cacheFile) throws IOException {
+        ensureOpen();
+        // cache files are located in <shard cache path>/<snapshot uuid>/<cache file uuid>
+        final Path shardCachePath = cacheFile.getFile().toAbsolutePath().getParent().getParent();
+        final ShardLog shardLog = shardsLogs.get(shardCachePath);
+        final CacheFilesMetadataLog log = shardLog != null ? shardLog.getIfLoaded() : null;
+        if (log == null) {
+            assert false : "shard of cache file [" + cacheFile.getFile() + "] is not loaded";
+            return null;
+        }
+        if (Files.isDirectory(shardCachePath) == false) {
+            logger.debug("shard cache directory [{}] does not exist anymore, closing [{}]", shardCachePath, log);
+            if (shardsLogs.remove(shardCachePath, shardLog)) {
+                log.close();
+            }
+            return null;
+        }
+        return log;
+    }
+
     public long getCacheSize(ShardId shardId, SnapshotId snapshotId) {
         return getCacheSize(shardId, snapshotId, Files::exists);
     }
 
     // pkg private for tests
     long getCacheSize(ShardId shardId, SnapshotId snapshotId, Predicate<Path> predicate) {
+        if (shardsLogs != null) {
+            return getCacheSizeFromShardLogs(shardId, snapshotId, predicate);
+        }
         long aggregateSize = 0L;
         for (CacheIndexWriter writer : writers) {
             final Path snapshotCacheDir = resolveSnapshotCache(writer.nodePath().resolve(shardId)).resolve(snapshotId.getUUID());
@@ -196,6 +290,42 @@ public class PersistentCache implements Closeable {
         return 0L;
     }
 
+    private long getCacheSizeFromShardLogs(ShardId shardId, SnapshotId snapshotId, Predicate<Path> predicate) {
+        for (NodeEnvironment.NodePath nodePath : nodeEnvironment.nodePaths()) {
+            final Path shardCachePath = resolveSnapshotCache(nodePath.resolve(shardId)).toAbsolutePath();
+            final Path snapshotCacheDir = shardCachePath.resolve(snapshotId.getUUID());
+            if (Files.exists(snapshotCacheDir) == false) {
+                continue; // searchable snapshot shard is not present on this node path, not need to read the log
+            }
+            long aggregateSize = 0L;
+            try {
+                // reuse the log of the shard if it is already loaded, otherwise only read it
+                final ShardLog loadedShardLog = shardsLogs.get(shardCachePath);
+                final CacheFilesMetadataLog shardLog = loadedShardLog != null ? loadedShardLog.getIfLoaded() : null;
+                final Map<String, CacheFilesMetadataLog.CacheFileEntry> entries = shardLog != null
+                    ? shardLog.entries()
+                    : CacheFilesMetadataLog.readEntries(shardCachePath);
+                for (Map.Entry<String, CacheFilesMetadataLog.CacheFileEntry> entry : entries.entrySet()) {
+                    final CacheFilesMetadataLog.CacheFileEntry cacheFileEntry = entry.getValue();
+                    if (snapshotId.getUUID().equals(cacheFileEntry.snapshotUUID) == false) {
+                        continue;
+                    }
+                    if (predicate.test(snapshotCacheDir.resolve(entry.getKey()))) {
+                        final long size = cacheFileEntry.ranges.stream().mapToLong(ByteRange::length).sum();
+                        logger.trace("cache file [{}] has size [{}]", entry.getKey(), size);
+                        aggregateSize += size;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (aggregateSize > 0L) {
+                return aggregateSize;
+            }
+        }
+        return 0L;
+    }
+
     /**
      * This method repopulates the {@link CacheService} by looking at the files on the disk and for each file found, retrieves the latest
      * synchronized information and puts the cache file into the searchable snapshots cache.
@@ -210,11 +340,18 @@ public class PersistentCache implements Closeable {
      * file to the cache service might trigger evictions so previously reindexed Lucene cache files might be delete again (see
      * CacheService#onCacheFileRemoval(CacheFile) method which calls {@link #removeCacheFile(CacheFile)}.
      *
+     * When the metadata of the cache files are persisted in per-shard logs, this method does nothing and the cache files of every shard
+     * are loaded when the shard is first accessed instead (see {@link #loadShardIfNeeded(ShardId, Path, CacheService)}).
+     *
      * @param cacheService the {@link CacheService} to use when repopulating {@link CacheFile}.
      */
     void repopulateCache(CacheService cacheService) {
         ensureOpen();
         if (started.compareAndSet(false, true)) {
+            if (shardsLogs != null) {
+                logger.info("persistent cache will be loaded lazily for each shard");
+                return;
+            }
             try {
                 for (CacheIndexWriter writer : writers) {
                     final NodeEnvironment.NodePath nodePath = writer.nodePath();
@@ -278,8 +415,137 @@ public class PersistentCache implements Closeable {
         }
     }
 
+    /**
+     * Loads the cache files of a shard in the {@link CacheService} if the metadata of the cache files are persisted in per-shard logs and
+     * if the shard has not been loaded yet. Cache files found on disk are added to the cache with the completed ranges found in the log
+     * of the shard, and cache files that are not in the log are deleted.
+     *
+     * @param shardId        the {@link ShardId} of the shard
+     * @param shardCachePath the snapshot cache directory of the shard
+     * @param cacheService   the {@link CacheService} to use when repopulating {@link CacheFile}.
+     */
+    void loadShardIfNeeded(ShardId shardId, Path shardCachePath, CacheService cacheService) {
+        if (shardsLogs == null) {
+            return;
+        }
+        final Path path = shardCachePath.toAbsolutePath();
+        ShardLog shardLog = shardsLogs.get(path);
+        if (shardLog != null && shardLog.isLoaded()) {
+            return;
+        }
+        ensureOpen();
+        ensureStarted();
+        if (shardLog == null) {
+            final ShardLog newShardLog = new ShardLog();
+            shardLog = shardsLogs.putIfAbsent(path, newShardLog);
+            if (shardLog == null) {
+                shardLog = newShardLog;
+                // loads the log outside of the map so that the other shards are not blocked in the meantime
+                shardLog.load(shardId, path, cacheService);
+                if (closed.get() && shardsLogs.remove(path, shardLog)) {
+                    shardLog.closeIfLoaded();
+                }
+            }
+        }
+        try {
+            // waits for the log to be loaded if another thread is loading it
+            shardLog.get();
+        } catch (RuntimeException e) {
+            // the next access to the shard tries to load the log again
+            shardsLogs.remove(path, shardLog);
+            throw e;
+        }
+    }
+
+    /**
+     * Holds the {@link CacheFilesMetadataLog} of a shard, which is loaded once by the first thread that accesses the shard while the other
+     * threads accessing the shard wait for it.
+     */
+    private static final class ShardLog {
+
+        private final PlainActionFuture<CacheFilesMetadataLog> future = PlainActionFuture.newFuture();
+        private volatile boolean loaded;
+
+        void load(ShardId shardId, Path shardCachePath, CacheService cacheService) {
+            try {
+                future.onResponse(loadShard(shardId, shardCachePath, cacheService));
+                loaded = true;
+            } catch (IOException e) {
+                future.onFailure(new UncheckedIOException("Failed to load persistent cache of shard " + shardId, e));
+            } catch (Exception e) {
+                future.onFailure(e);
+            }
+        }
+
+        boolean isLoaded() {
+            return loaded;
+        }
+
+        CacheFilesMetadataLog get() {
+            return FutureUtils.get(future);
+        }
+
+        @Nullable
+        CacheFilesMetadataLog getIfLoaded() {
+            return loaded ? get() : null;
+        }
+
+        void closeIfLoaded() throws IOException {
+            final CacheFilesMetadataLog log = getIfLoaded();
+            if (log != null) {
+                log.close();
+            }
+        }
+    }
+
+    private static CacheFilesMetadataLog loadShard(ShardId shardId, Path shardCachePath, CacheService cacheService) throws IOException {
+        logger.debug("loading persistent cache of shard {} from [{}]", shardId, shardCachePath);
+        final CacheFilesMetadataLog shardLog = CacheFilesMetadataLog.open(shardCachePath);
+        boolean success = false;
+        try {
+            final Map<String, CacheFilesMetadataLog.CacheFileEntry> entries = shardLog.entries();
+            Files.walkFileTree(shardCachePath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (CacheFilesMetadataLog.isLogFile(file)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    try {
+                        final String id = buildId(file);
+                        final CacheFilesMetadataLog.CacheFileEntry entry = entries.remove(id);
+                        if (entry != null && entry.snapshotUUID.equals(file.getParent().getFileName().toString())) {
+                            final CacheKey cacheKey = new CacheKey(entry.snapshotUUID, entry.snapshotIndexName, shardId, entry.fileName);
+                            logger.trace("adding cache file with [id={}, key={}, ranges={}]", id, cacheKey, entry.ranges);
+                            cacheService.load(cacheKey, entry.fileLength, file.getParent(), id, entry.ranges);
+                        } else {
+                            logger.trace("deleting cache file [{}] (does not exist in persistent cache log)", file);
+                            Files.delete(file);
+                            shardLog.forget(id);
+                        }
+                    } catch (Exception e) {
+                        throw ExceptionsHelper.convertToRuntime(e);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            // cache files that are in the log but not on disk anymore
+            entries.keySet().forEach(shardLog::forget);
+            logger.debug("persistent cache of shard {} loaded with [{}] cache files", shardId, shardLog.size());
+            success = true;
+            return shardLog;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(shardLog);
+            }
+        }
+    }
+
     void commit() throws IOException {
         ensureOpen();
+        if (shardsLogs != null) {
+            syncShardsLogs();
+            return;
+        }
         try {
             for (CacheIndexWriter writer : writers) {
                 writer.commit();
@@ -297,6 +563,31 @@ public class PersistentCache implements Closeable {
         }
     }
 
+    private void syncShardsLogs() throws IOException {
+        IOException exception = null;
+        for (Map.Entry<Path, ShardLog> shardLog : shardsLogs.entrySet()) {
+            final CacheFilesMetadataLog log = shardLog.getValue().getIfLoaded();
+            if (log == null) {
+                continue; // still loading
+            }
+            if (Files.isDirectory(shardLog.getKey()) == false) {
+                if (shardsLogs.remove(shardLog.getKey(), shardLog.getValue())) {
+                    IOUtils.closeWhileHandlingException(log);
+                }
+                continue;
+            }
+            try {
+                log.sync();
+            } catch (IOException e) {
+                logger.warn(() -> new ParameterizedMessage("failed to synchronize [{}]", log), e);
+                exception = ExceptionsHelper.useOrSuppress(exception, e);
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
     private void closeIfAnyIndexWriterHasTragedyOrIsClosed() {
         if (writers.stream().map(writer -> writer.indexWriter).anyMatch(iw -> iw.getTragicException() != null || iw.isOpen() == false)) {
             try {
@@ -309,6 +600,14 @@ public class PersistentCache implements Closeable {
 
     public long getNumDocs() {
         ensureOpen();
+        if (shardsLogs != null) {
+            return shardsLogs.values()
+                .stream()
+                .map(ShardLog::getIfLoaded)
+                .filter(Objects::nonNull)
+                .mapToLong(CacheFilesMetadataLog::size)
+                .sum();
+        }
         long count = 0L;
         for (CacheIndexWriter writer : writers) {
             count += writer.indexWriter.getPendingNumDocs();
@@ -322,7 +621,15 @@ public class PersistentCache implements Closeable {
             try {
                 IOUtils.close(writers);
             } finally {
-                documents.clear();
+                if (shardsLogs != null) {
+                    try {
+                        IOUtils.close(shardsLogs.values().stream().map(ShardLog::getIfLoaded).collect(Collectors.toList()));
+                    } finally {
+                        shardsLogs.clear();
+                    }
+                } else {
+                    documents.clear();
+                }
             }
         }
     }
@@ -437,6 +744,26 @@ public class PersistentCache implements Closeable {
         return documents;
     }
 
+    /**
+     * Deletes the persistent cache indices located at the root of every node path, which are not used nor updated when the metadata of
+     * the cache files are persisted in per-shard logs.
+     *
+     * @param nodeEnvironment the data node environment
+     */
+    private static void deleteCacheIndices(NodeEnvironment nodeEnvironment) {
+        try {
+            for (NodeEnvironment.NodePath nodePath : nodeEnvironment.nodePaths()) {
+                final Path cacheIndexDir = resolveCacheIndexFolder(nodePath);
+                if (Files.isDirectory(cacheIndexDir)) {
+                    logger.debug("deleting persistent cache index directory [{}]", cacheIndexDir);
+                    IOUtils.rm(cacheIndexDir);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete persistent cache indices", e);
+        }
+    }
+
     /**
      * Cleans any leftover searchable snapshot caches (files and Lucene indices) when a non-data node is starting up.
      * This is useful when the node is repurposed and is not a data node anymore.
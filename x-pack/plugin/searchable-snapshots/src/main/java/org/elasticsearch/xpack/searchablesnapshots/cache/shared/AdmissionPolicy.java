@@ -0,0 +1,82 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.cache.shared;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides whether a region that is not in the shared cache yet should be cached when there is no free region left, in which case caching
+ * it requires evicting another region. Admission policies are consulted in front of the frequency-based eviction of the
+ * {@link FrozenCacheService} and allow regions that are only accessed once, for instance by a scan, to be read directly from the blob
+ * store instead of pushing frequently accessed regions out of the cache.
+ */
+interface AdmissionPolicy {
+
+    /**
+     * Name of the policy that admits every region, the shared cache then always evicts the least frequently used region.
+     */
+    String ALWAYS = "always";
+
+    /**
+     * Name of the policy that only admits regions that are estimated to be accessed more frequently than the region they would evict.
+     */
+    String TINY_LFU = "tinylfu";
+
+    List<String> NAMES = Arrays.asList(ALWAYS, TINY_LFU);
+
+    /**
+     * @return the name of the policy, as configured and reported in the cache stats
+     */
+    String name();
+
+    /**
+     * Records an access to the region with the given hash. Called concurrently by all the threads that read from the cache.
+     *
+     * @param hash the hash of the region key
+     */
+    void onAccess(int hash);
+
+    /**
+     * @param candidateHash the hash of the region key that is not cached yet
+     * @param victimHash    the hash of the region key that would be evicted to make room for the candidate
+     * @return true if the candidate region should be cached in place of the victim region
+     */
+    boolean admit(int candidateHash, int victimHash);
+
+    static AdmissionPolicy create(String name, int numRegions) {
+        switch (name) {
+            case ALWAYS:
+                return AlwaysAdmit.INSTANCE;
+            case TINY_LFU:
+                return new TinyLfuAdmissionPolicy(numRegions);
+            default:
+                throw new IllegalArgumentException("unknown admission policy [" + name + "], must be one of " + NAMES);
+        }
+    }
+
+    final class AlwaysAdmit implements AdmissionPolicy {
+
+        static final AlwaysAdmit INSTANCE = new AlwaysAdmit();
+
+        private AlwaysAdmit() {}
+
+        @Override
+        public String name() {
+            return ALWAYS;
+        }
+
+        @Override
+        public void onAccess(int hash) {}
+
+        @Override
+        public boolean admit(int candidateHash, int victimHash) {
+            return true;
+        }
+    }
+}
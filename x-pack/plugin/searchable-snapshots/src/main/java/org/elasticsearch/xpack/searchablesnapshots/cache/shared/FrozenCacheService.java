@@ -33,6 +33,7 @@ import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.LuceneFilesExtensions;
 import org.elasticsearch.monitor.fs.FsProbe;
 import org.elasticsearch.node.NodeRoleSettings;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -59,6 +60,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -93,6 +95,56 @@ public class FrozenCacheService implements Releasable {
         Setting.Property.NodeScope
     );
 
+    /**
+     * Size of the small regions, which cache metadata files and files smaller than a small region instead of the regular regions. Small
+     * regions are disabled by default.
+     */
+    public static final Setting<ByteSizeValue> SHARED_CACHE_SMALL_REGION_SIZE_SETTING = new Setting<>(
+        SHARED_CACHE_SETTINGS_PREFIX + "small_region_size",
+        ByteSizeValue.ZERO.getStringRep(),
+        s -> ByteSizeValue.parseBytesSizeValue(s, SHARED_CACHE_SETTINGS_PREFIX + "small_region_size"),
+        new Setting.Validator<ByteSizeValue>() {
+            private final Collection<Setting<?>> dependencies = Collections.singletonList(SHARED_CACHE_REGION_SIZE_SETTING);
+
+            @Override
+            public Iterator<Setting<?>> settings() {
+                return dependencies.iterator();
+            }
+
+            @Override
+            public void validate(ByteSizeValue value) {
+                getPageSizeAlignedByteSizeValueValidator(SHARED_CACHE_SETTINGS_PREFIX + "small_region_size").validate(value);
+            }
+
+            @Override
+            public void validate(ByteSizeValue value, Map<Setting<?>, Object> settings) {
+                final ByteSizeValue regionSize = (ByteSizeValue) settings.get(SHARED_CACHE_REGION_SIZE_SETTING);
+                if (value.getBytes() >= regionSize.getBytes()) {
+                    throw new SettingsException(
+                        "setting [{}={}] must be smaller than [{}={}]",
+                        SHARED_CACHE_SETTINGS_PREFIX + "small_region_size",
+                        value.getStringRep(),
+                        SHARED_CACHE_REGION_SIZE_SETTING.getKey(),
+                        regionSize.getStringRep()
+                    );
+                }
+            }
+        },
+        Setting.Property.NodeScope
+    );
+
+    /**
+     * Fraction of the shared cache that is split into small regions, if small regions are enabled. The rest of the cache must still hold at
+     * least one regular region, which is checked once the size of the cache is known.
+     */
+    public static final Setting<Double> SHARED_CACHE_SMALL_REGIONS_RATIO_SETTING = Setting.doubleSetting(
+        SHARED_CACHE_SETTINGS_PREFIX + "small_regions_ratio",
+        0.1d,                       // default
+        0.0d,                       // min
+        0.9d,                       // max
+        Setting.Property.NodeScope
+    );
+
     private static Setting.Validator<ByteSizeValue> getPageSizeAlignedByteSizeValueValidator(String settingName) {
         return value -> {
             if (value.getBytes() == -1) {
@@ -248,6 +300,23 @@ public class FrozenCacheService implements Releasable {
         Setting.Property.NodeScope
     );
 
+    public static final Setting<String> SHARED_CACHE_ADMISSION_POLICY_SETTING = new Setting<>(
+        SHARED_CACHE_SETTINGS_PREFIX + "admission_policy",
+        AdmissionPolicy.ALWAYS,
+        Function.identity(),
+        value -> {
+            if (AdmissionPolicy.NAMES.contains(value) == false) {
+                throw new SettingsException(
+                    "setting [{}] must be one of {} but was [{}]",
+                    SHARED_CACHE_SETTINGS_PREFIX + "admission_policy",
+                    AdmissionPolicy.NAMES,
+                    value
+                );
+            }
+        },
+        Setting.Property.NodeScope
+    );
+
     private static final Logger logger = LogManager.getLogger(FrozenCacheService.class);
     private static final DeprecationLogger deprecationLogger = DeprecationLogger.getLogger(FrozenCacheService.class);
 
@@ -260,14 +329,18 @@ public class FrozenCacheService implements Releasable {
     private final SharedBytes sharedBytes;
     private final long cacheSize;
     private final long regionSize;
+    private final long smallRegionSize;
     private final ByteSizeValue rangeSize;
     private final ByteSizeValue recoveryRangeSize;
 
     private final int numRegions;
+    private final int numSmallRegions;
     private final ConcurrentLinkedQueue<Integer> freeRegions = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Integer> freeSmallRegions = new ConcurrentLinkedQueue<>();
     private final Entry<CacheFileRegion>[] freqs;
     private final int maxFreq;
     private final long minTimeDelta;
+    private final AdmissionPolicy admissionPolicy;
 
     private final AtomicReference<CacheFileRegion>[] regionOwners; // to assert exclusive access of regions
 
@@ -281,6 +354,10 @@ public class FrozenCacheService implements Releasable {
 
     private final LongAdder evictCount = new LongAdder();
 
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder rejectCount = new LongAdder();
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public FrozenCacheService(NodeEnvironment environment, Settings settings, ThreadPool threadPool) {
         this.currentTimeSupplier = threadPool::relativeTimeInMillis;
@@ -292,11 +369,28 @@ public class FrozenCacheService implements Releasable {
         }
         this.cacheSize = calculateCacheSize(settings, totalFsSize);
         final long regionSize = SHARED_CACHE_REGION_SIZE_SETTING.get(settings).getBytes();
-        this.numRegions = Math.toIntExact(cacheSize / regionSize);
+        final long smallRegionSize = SHARED_CACHE_SMALL_REGION_SIZE_SETTING.get(settings).getBytes();
+        if (smallRegionSize > 0L) {
+            final long smallRegionsSize = (long) (cacheSize * SHARED_CACHE_SMALL_REGIONS_RATIO_SETTING.get(settings));
+            this.numSmallRegions = Math.toIntExact(smallRegionsSize / smallRegionSize);
+        } else {
+            this.numSmallRegions = 0;
+        }
+        this.numRegions = Math.toIntExact((cacheSize - numSmallRegions * smallRegionSize) / regionSize);
+        if (numSmallRegions > 0 && numRegions == 0) {
+            throw new SettingsException(
+                "setting [{}={}] leaves no room for a region of [{}={}] in a shared cache of [{}]",
+                SHARED_CACHE_SMALL_REGIONS_RATIO_SETTING.getKey(),
+                SHARED_CACHE_SMALL_REGIONS_RATIO_SETTING.get(settings),
+                SHARED_CACHE_REGION_SIZE_SETTING.getKey(),
+                ByteSizeValue.ofBytes(regionSize).getStringRep(),
+                ByteSizeValue.ofBytes(cacheSize).getStringRep()
+            );
+        }
         keyMapping = new ConcurrentHashMap<>();
         if (Assertions.ENABLED) {
-            regionOwners = new AtomicReference[numRegions];
-            for (int i = 0; i < numRegions; i++) {
+            regionOwners = new AtomicReference[numRegions + numSmallRegions];
+            for (int i = 0; i < regionOwners.length; i++) {
                 regionOwners[i] = new AtomicReference<>();
             }
         } else {
@@ -305,13 +399,27 @@ public class FrozenCacheService implements Releasable {
         for (int i = 0; i < numRegions; i++) {
             freeRegions.add(i);
         }
+        for (int i = 0; i < numSmallRegions; i++) {
+            freeSmallRegions.add(numRegions + i);
+        }
         this.regionSize = regionSize;
+        this.smallRegionSize = smallRegionSize;
         assert regionSize > 0L;
+        assert smallRegionSize < regionSize;
         this.maxFreq = SHARED_CACHE_MAX_FREQ_SETTING.get(settings);
         this.minTimeDelta = SHARED_CACHE_MIN_TIME_DELTA_SETTING.get(settings).millis();
         freqs = new Entry[maxFreq];
+        this.admissionPolicy = AdmissionPolicy.create(SHARED_CACHE_ADMISSION_POLICY_SETTING.get(settings), numRegions + numSmallRegions);
         try {
-            sharedBytes = new SharedBytes(numRegions, regionSize, environment, writeBytes::add, readBytes::add);
+            sharedBytes = new SharedBytes(
+                numRegions,
+                regionSize,
+                numSmallRegions,
+                smallRegionSize,
+                environment,
+                writeBytes::add,
+                readBytes::add
+            );
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -335,33 +443,48 @@ public class FrozenCacheService implements Releasable {
         return toIntBytes(recoveryRangeSize.getBytes());
     }
 
-    private int getRegion(long position) {
+    /**
+     * Metadata files and files that fit in a single small region are cached in small regions if there are any, so that they do not use a
+     * large region for a few bytes. Other files are cached in regular regions, which need fewer blob store requests to be populated.
+     */
+    private boolean useSmallRegions(CacheKey cacheKey, long fileLength) {
+        if (numSmallRegions == 0) {
+            return false;
+        }
+        if (fileLength <= smallRegionSize) {
+            return true;
+        }
+        final LuceneFilesExtensions extension = LuceneFilesExtensions.fromFile(cacheKey.getFileName());
+        return extension != null && extension.isMetadata();
+    }
+
+    private static int getRegion(long position, long regionSize) {
         return Math.toIntExact(position / regionSize);
     }
 
-    private long getRegionRelativePosition(long position) {
+    private static long getRegionRelativePosition(long position, long regionSize) {
         return position % regionSize;
     }
 
-    private long getRegionStart(int region) {
+    private static long getRegionStart(int region, long regionSize) {
         return region * regionSize;
     }
 
-    private long getRegionEnd(int region) {
+    private static long getRegionEnd(int region, long regionSize) {
         return (region + 1) * regionSize;
     }
 
-    private int getEndingRegion(long position) {
+    private static int getEndingRegion(long position, long regionSize) {
         assert position > 0L;
         if (position % regionSize == 0L) {
-            return getRegion(position - 1);
+            return getRegion(position - 1, regionSize);
         }
-        return getRegion(position);
+        return getRegion(position, regionSize);
     }
 
-    private ByteRange mapSubRangeToRegion(ByteRange range, int region) {
-        final long regionStart = getRegionStart(region);
-        final long regionEnd = getRegionEnd(region);
+    private static ByteRange mapSubRangeToRegion(ByteRange range, int region, long regionSize) {
+        final long regionStart = getRegionStart(region, regionSize);
+        final long regionEnd = getRegionEnd(region, regionSize);
         if (range.start() >= regionEnd || range.end() <= regionStart) {
             return ByteRange.EMPTY;
         }
@@ -371,41 +494,45 @@ public class FrozenCacheService implements Releasable {
             return ByteRange.EMPTY;
         }
         return ByteRange.of(
-            getRegionRelativePosition(rangeStart),
-            rangeEnd == regionEnd ? regionSize : getRegionRelativePosition(rangeEnd)
+            getRegionRelativePosition(rangeStart, regionSize),
+            rangeEnd == regionEnd ? regionSize : getRegionRelativePosition(rangeEnd, regionSize)
         );
     }
 
-    private long getRegionSize(long fileLength, int region) {
+    private static long getRegionSize(long fileLength, int region, long regionSize) {
         assert fileLength > 0;
-        final int maxRegion = getEndingRegion(fileLength);
+        final int maxRegion = getEndingRegion(fileLength, regionSize);
         assert region >= 0 && region <= maxRegion : region + " - " + maxRegion;
         final long effectiveRegionSize;
         if (region == maxRegion && (region + 1) * regionSize != fileLength) {
-            assert getRegionRelativePosition(fileLength) != 0L;
-            effectiveRegionSize = getRegionRelativePosition(fileLength);
+            assert getRegionRelativePosition(fileLength, regionSize) != 0L;
+            effectiveRegionSize = getRegionRelativePosition(fileLength, regionSize);
         } else {
             effectiveRegionSize = regionSize;
         }
-        assert getRegionStart(region) + effectiveRegionSize <= fileLength;
+        assert getRegionStart(region, regionSize) + effectiveRegionSize <= fileLength;
         return effectiveRegionSize;
     }
 
     public CacheFileRegion get(CacheKey cacheKey, long fileLength, int region) {
-        final long effectiveRegionSize = getRegionSize(fileLength, region);
+        final boolean smallRegion = useSmallRegions(cacheKey, fileLength);
+        final long effectiveRegionSize = getRegionSize(fileLength, region, smallRegion ? smallRegionSize : regionSize);
+        final ConcurrentLinkedQueue<Integer> freeSlots = smallRegion ? freeSmallRegions : freeRegions;
         try (Releasable ignore = keyedLock.acquire(cacheKey)) {
             final RegionKey regionKey = new RegionKey(cacheKey, region);
             final long now = currentTimeSupplier.getAsLong();
             final Entry<CacheFileRegion> entry = keyMapping.computeIfAbsent(
                 regionKey,
-                key -> new Entry<>(new CacheFileRegion(regionKey, effectiveRegionSize), now)
+                key -> new Entry<>(new CacheFileRegion(regionKey, effectiveRegionSize, smallRegion), now)
             );
+            admissionPolicy.onAccess(regionKey.hashCode());
             if (entry.chunk.sharedBytesPos == -1) {
                 // new item
+                missCount.increment();
                 assert entry.freq == 0;
                 assert entry.prev == null;
                 assert entry.next == null;
-                final Integer freeSlot = freeRegions.poll();
+                final Integer freeSlot = freeSlots.poll();
                 if (freeSlot != null) {
                     // no need to evict an item, just add
                     entry.chunk.sharedBytesPos = freeSlot;
@@ -414,11 +541,18 @@ public class FrozenCacheService implements Releasable {
                         pushEntryToBack(entry);
                     }
                 } else {
-                    // need to evict something
+                    // need to evict something, unless the admission policy prefers to keep the region that would be evicted
                     synchronized (this) {
-                        maybeEvict();
+                        final Entry<CacheFileRegion> victim = firstEvictionCandidate(smallRegion);
+                        if (victim != null && admissionPolicy.admit(regionKey.hashCode(), victim.chunk.regionKey.hashCode()) == false) {
+                            rejectCount.increment();
+                            boolean removed = keyMapping.remove(regionKey, entry);
+                            assert removed;
+                            throw new AlreadyClosedException("region " + regionKey + " not admitted in the shared cache");
+                        }
+                        maybeEvict(smallRegion);
                     }
-                    final Integer freeSlotRetry = freeRegions.poll();
+                    final Integer freeSlotRetry = freeSlots.poll();
                     if (freeSlotRetry != null) {
                         entry.chunk.sharedBytesPos = freeSlotRetry;
                         assert regionOwners[freeSlotRetry].compareAndSet(null, entry.chunk);
@@ -433,6 +567,7 @@ public class FrozenCacheService implements Releasable {
                 }
             } else {
                 // check if we need to promote item
+                hitCount.increment();
                 synchronized (this) {
                     if (now - entry.lastAccessed >= minTimeDelta && entry.freq + 1 < maxFreq) {
                         unlink(entry);
@@ -448,7 +583,7 @@ public class FrozenCacheService implements Releasable {
 
     public void onClose(CacheFileRegion chunk) {
         assert regionOwners[chunk.sharedBytesPos].compareAndSet(chunk, null);
-        freeRegions.add(chunk.sharedBytesPos);
+        (chunk.smallRegion ? freeSmallRegions : freeRegions).add(chunk.sharedBytesPos);
     }
 
     // used by tests
@@ -456,16 +591,27 @@ public class FrozenCacheService implements Releasable {
         return freeRegions.size();
     }
 
+    // used by tests
+    int freeSmallRegionCount() {
+        return freeSmallRegions.size();
+    }
+
     public Stats getStats() {
         return new Stats(
             numRegions,
             cacheSize,
             regionSize,
+            numSmallRegions,
+            smallRegionSize,
             evictCount.sum(),
             writeCount.sum(),
             writeBytes.sum(),
             readCount.sum(),
-            readBytes.sum()
+            readBytes.sum(),
+            admissionPolicy.name(),
+            hitCount.sum(),
+            missCount.sum(),
+            rejectCount.sum()
         );
     }
 
@@ -498,10 +644,29 @@ public class FrozenCacheService implements Releasable {
         return true;
     }
 
-    private void maybeEvict() {
+    /**
+     * @return the entry that {@link #maybeEvict(boolean)} evicts first if it can, or {@code null} if there is no such region in the cache
+     */
+    private Entry<CacheFileRegion> firstEvictionCandidate(boolean smallRegion) {
         assert Thread.holdsLock(this);
         for (int i = 0; i < maxFreq; i++) {
             for (Entry<CacheFileRegion> entry = freqs[i]; entry != null; entry = entry.next) {
+                if (entry.chunk.smallRegion == smallRegion) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void maybeEvict(boolean smallRegion) {
+        assert Thread.holdsLock(this);
+        for (int i = 0; i < maxFreq; i++) {
+            for (Entry<CacheFileRegion> entry = freqs[i]; entry != null; entry = entry.next) {
+                if (entry.chunk.smallRegion != smallRegion) {
+                    // evicting a region of another size does not make room for this one
+                    continue;
+                }
                 boolean evicted = entry.chunk.tryEvict();
                 if (evicted) {
                     unlink(entry);
@@ -695,10 +860,12 @@ public class FrozenCacheService implements Releasable {
     class CacheFileRegion extends AbstractRefCounted {
         final RegionKey regionKey;
         final SparseFileTracker tracker;
+        final boolean smallRegion;
         volatile int sharedBytesPos = -1;
 
-        CacheFileRegion(RegionKey regionKey, long regionSize) {
+        CacheFileRegion(RegionKey regionKey, long regionSize, boolean smallRegion) {
             this.regionKey = regionKey;
+            this.smallRegion = smallRegion;
             assert regionSize > 0L;
             tracker = new SparseFileTracker("file", regionSize);
         }
@@ -708,7 +875,7 @@ public class FrozenCacheService implements Releasable {
         }
 
         public long physicalEndOffset() {
-            return sharedBytes.getPhysicalOffset(sharedBytesPos + 1);
+            return sharedBytes.getPhysicalOffset(sharedBytesPos) + sharedBytes.getRegionSize(sharedBytesPos);
         }
 
         // If true this file region has been evicted from the cache and should not be used any more
@@ -863,10 +1030,12 @@ public class FrozenCacheService implements Releasable {
 
         private final CacheKey cacheKey;
         private final long length;
+        private final long regionSize;
 
         private FrozenCacheFile(CacheKey cacheKey, long length) {
             this.cacheKey = cacheKey;
             this.length = length;
+            this.regionSize = useSmallRegions(cacheKey, length) ? smallRegionSize : FrozenCacheService.this.regionSize;
         }
 
         public long getLength() {
@@ -887,9 +1056,10 @@ public class FrozenCacheService implements Releasable {
             StepListener<Integer> stepListener = null;
             final long writeStart = rangeToWrite.start();
             final long readStart = rangeToRead.start();
-            for (int region = getRegion(rangeToWrite.start()); region <= getEndingRegion(rangeToWrite.end()); region++) {
-                final ByteRange subRangeToWrite = mapSubRangeToRegion(rangeToWrite, region);
-                final ByteRange subRangeToRead = mapSubRangeToRegion(rangeToRead, region);
+            final int endingRegion = getEndingRegion(rangeToWrite.end(), regionSize);
+            for (int region = getRegion(rangeToWrite.start(), regionSize); region <= endingRegion; region++) {
+                final ByteRange subRangeToWrite = mapSubRangeToRegion(rangeToWrite, region, regionSize);
+                final ByteRange subRangeToRead = mapSubRangeToRegion(rangeToRead, region, regionSize);
                 if (subRangeToRead.length() == 0L) {
                     // nothing to read, skip
                     if (stepListener == null) {
@@ -899,7 +1069,7 @@ public class FrozenCacheService implements Releasable {
                     continue;
                 }
                 final CacheFileRegion fileRegion = get(cacheKey, length, region);
-                final long regionStart = getRegionStart(region);
+                final long regionStart = getRegionStart(region, regionSize);
                 final long writeOffset = writeStart - regionStart;
                 final long readOffset = readStart - regionStart;
                 final StepListener<Integer> lis = fileRegion.populateAndRead(
@@ -953,35 +1123,53 @@ public class FrozenCacheService implements Releasable {
 
     public static class Stats {
 
-        public static final Stats EMPTY = new Stats(0, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+        public static final Stats EMPTY = new Stats(0, 0L, 0L, 0, 0L, 0L, 0L, 0L, 0L, 0L, AdmissionPolicy.ALWAYS, 0L, 0L, 0L);
 
         private final int numberOfRegions;
         private final long size;
         private final long regionSize;
+        private final int numberOfSmallRegions;
+        private final long smallRegionSize;
         private final long evictCount;
         private final long writeCount;
         private final long writeBytes;
         private final long readCount;
         private final long readBytes;
+        private final String admissionPolicy;
+        private final long hitCount;
+        private final long missCount;
+        private final long rejectCount;
 
         private Stats(
             int numberOfRegions,
             long size,
             long regionSize,
+            int numberOfSmallRegions,
+            long smallRegionSize,
             long evictCount,
             long writeCount,
             long writeBytes,
             long readCount,
-            long readBytes
+            long readBytes,
+            String admissionPolicy,
+            long hitCount,
+            long missCount,
+            long rejectCount
         ) {
             this.numberOfRegions = numberOfRegions;
             this.size = size;
             this.regionSize = regionSize;
+            this.numberOfSmallRegions = numberOfSmallRegions;
+            this.smallRegionSize = smallRegionSize;
             this.evictCount = evictCount;
             this.writeCount = writeCount;
             this.writeBytes = writeBytes;
             this.readCount = readCount;
             this.readBytes = readBytes;
+            this.admissionPolicy = admissionPolicy;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.rejectCount = rejectCount;
         }
 
         public int getNumberOfRegions() {
@@ -996,6 +1184,14 @@ public class FrozenCacheService implements Releasable {
             return regionSize;
         }
 
+        public int getNumberOfSmallRegions() {
+            return numberOfSmallRegions;
+        }
+
+        public long getSmallRegionSize() {
+            return smallRegionSize;
+        }
+
         public long getEvictCount() {
             return evictCount;
         }
@@ -1015,5 +1211,21 @@ public class FrozenCacheService implements Releasable {
         public long getReadBytes() {
             return readBytes;
         }
+
+        public String getAdmissionPolicy() {
+            return admissionPolicy;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getRejectCount() {
+            return rejectCount;
+        }
     }
 }
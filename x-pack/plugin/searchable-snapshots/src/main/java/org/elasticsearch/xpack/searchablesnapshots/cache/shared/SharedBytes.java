@@ -43,6 +43,10 @@ public class SharedBytes extends AbstractRefCounted {
     final int numRegions;
     final long regionSize;
 
+    // small regions are located after the regions in the cache file, their positions start at numRegions
+    final int numSmallRegions;
+    final long smallRegionSize;
+
     // TODO: for systems like Windows without true p-write/read support we should split this up into multiple channels since positional
     // operations in #IO are not contention-free there (https://bugs.java.com/bugdatabase/view_bug.do?bug_id=6265734)
     private final FileChannel fileChannel;
@@ -51,11 +55,20 @@ public class SharedBytes extends AbstractRefCounted {
     private final IntConsumer writeBytes;
     private final IntConsumer readBytes;
 
-    SharedBytes(int numRegions, long regionSize, NodeEnvironment environment, IntConsumer writeBytes, IntConsumer readBytes)
-        throws IOException {
+    SharedBytes(
+        int numRegions,
+        long regionSize,
+        int numSmallRegions,
+        long smallRegionSize,
+        NodeEnvironment environment,
+        IntConsumer writeBytes,
+        IntConsumer readBytes
+    ) throws IOException {
         this.numRegions = numRegions;
         this.regionSize = regionSize;
-        final long fileSize = numRegions * regionSize;
+        this.numSmallRegions = numSmallRegions;
+        this.smallRegionSize = smallRegionSize;
+        final long fileSize = numRegions * regionSize + numSmallRegions * smallRegionSize;
         Path cacheFile = null;
         if (fileSize > 0) {
             cacheFile = findCacheSnapshotCacheFilePath(environment, fileSize);
@@ -128,20 +141,29 @@ public class SharedBytes extends AbstractRefCounted {
         });
     }
 
-    long getPhysicalOffset(long chunkPosition) {
-        long physicalOffset = chunkPosition * regionSize;
-        assert physicalOffset <= numRegions * regionSize;
-        return physicalOffset;
+    long getPhysicalOffset(int sharedBytesPos) {
+        assert sharedBytesPos >= 0 && sharedBytesPos < numRegions + numSmallRegions : sharedBytesPos;
+        if (sharedBytesPos < numRegions) {
+            return sharedBytesPos * regionSize;
+        }
+        return numRegions * regionSize + (sharedBytesPos - numRegions) * smallRegionSize;
+    }
+
+    long getRegionSize(int sharedBytesPos) {
+        assert sharedBytesPos >= 0 && sharedBytesPos < numRegions + numSmallRegions : sharedBytesPos;
+        return sharedBytesPos < numRegions ? regionSize : smallRegionSize;
     }
 
     public final class IO extends AbstractRefCounted {
 
         private final int sharedBytesPos;
         private final long pageStart;
+        private final long pageEnd;
 
         private IO(final int sharedBytesPos) {
             this.sharedBytesPos = sharedBytesPos;
             pageStart = getPhysicalOffset(sharedBytesPos);
+            pageEnd = pageStart + getRegionSize(sharedBytesPos);
         }
 
         @SuppressForbidden(reason = "Use positional reads on purpose")
@@ -164,7 +186,6 @@ public class SharedBytes extends AbstractRefCounted {
         }
 
         private void checkOffsets(long position, long length) {
-            long pageEnd = pageStart + regionSize;
             if (position < pageStart || position > pageEnd || position + length > pageEnd) {
                 assert false;
                 throw new IllegalArgumentException("bad access");
@@ -0,0 +1,131 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.cache.shared;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An {@link AdmissionPolicy} based on TinyLFU: the access frequencies of regions, including regions that are not cached, are estimated with
+ * a Count-Min sketch of 4-bit counters that is periodically halved so that old accesses age out. A region is admitted only if its estimated
+ * frequency is greater than the one of the region it would evict.
+ *
+ * Every access is recorded. Accesses are recorded by every searching thread, so the counters are updated with compare-and-set rather than
+ * under a lock: concurrent accesses never block each other, and a few increments racing with the periodic halving only make the estimates
+ * slightly less accurate.
+ */
+final class TinyLfuAdmissionPolicy implements AdmissionPolicy {
+
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    /**
+     * Number of recorded accesses per counter slot after which all counters are halved.
+     */
+    static final int SAMPLE_SIZE_MULTIPLIER = 10;
+
+    private final AtomicLongArray table; // sixteen 4-bit counters per long
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+    private final AtomicBoolean resetting = new AtomicBoolean();
+
+    TinyLfuAdmissionPolicy(int numRegions) {
+        final int size = Integer.highestOneBit(Math.max(16, Math.min(numRegions, 1 << 24)) - 1) << 1;
+        this.table = new AtomicLongArray(size);
+        this.tableMask = size - 1;
+        this.sampleSize = SAMPLE_SIZE_MULTIPLIER * size;
+    }
+
+    @Override
+    public String name() {
+        return TINY_LFU;
+    }
+
+    @Override
+    public void onAccess(int hash) {
+        final int item = spread(hash);
+        if (increment(item) && additions.incrementAndGet() >= sampleSize) {
+            // only one thread halves the counters, the others keep recording accesses meanwhile
+            if (resetting.compareAndSet(false, true)) {
+                try {
+                    if (additions.get() >= sampleSize) {
+                        reset();
+                    }
+                } finally {
+                    resetting.set(false);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean admit(int candidateHash, int victimHash) {
+        return frequency(spread(candidateHash)) > frequency(spread(victimHash));
+    }
+
+    // used by tests
+    int frequency(int hash) {
+        return frequencyOf(spread(hash));
+    }
+
+    private int frequencyOf(int item) {
+        final int start = (item & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            final int offset = (start + i) << 2;
+            final int count = (int) ((table.get(indexOf(item, i)) >>> offset) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Increments the counters of the item that are not saturated yet and returns whether any was incremented.
+     */
+    private boolean increment(int item) {
+        final int start = (item & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            final int index = indexOf(item, i);
+            final int offset = (start + i) << 2;
+            while (true) {
+                final long value = table.get(index);
+                if (((value >>> offset) & 0xfL) >= MAX_COUNT) {
+                    break;
+                }
+                if (table.compareAndSet(index, value, value + (1L << offset))) {
+                    added = true;
+                    break;
+                }
+            }
+        }
+        return added;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length(); i++) {
+            table.getAndUpdate(i, value -> (value >>> 1) & RESET_MASK);
+        }
+        additions.getAndUpdate(value -> value >>> 1);
+    }
+
+    private int indexOf(int item, int i) {
+        long hash = (item + SEEDS[i]) * SEEDS[i];
+        hash += hash >>> 32;
+        return ((int) hash) & tableMask;
+    }
+
+    private static int spread(int hash) {
+        int x = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -57,6 +57,9 @@ public class IndexInputStats {
 
     private final Counter luceneBytesRead = new Counter();
 
+    private final Counter readAheadBytesRequested = new Counter();
+    private final Counter readAheadBytesHit = new Counter();
+
     public IndexInputStats(long numFiles, long totalSize, long minSize, long maxSize, LongSupplier currentTimeNanos) {
         this(numFiles, totalSize, minSize, maxSize, SEEKING_THRESHOLD.getBytes(), currentTimeNanos);
     }
@@ -155,6 +158,14 @@ public class IndexInputStats {
         luceneBytesRead.add(bytesRead);
     }
 
+    public void addReadAheadBytesRequested(long bytesRequested) {
+        readAheadBytesRequested.add(bytesRequested);
+    }
+
+    public void addReadAheadBytesHit(long bytesHit) {
+        readAheadBytesHit.add(bytesHit);
+    }
+
     public long getNumFiles() {
         return numFiles;
     }
@@ -231,6 +242,14 @@ public class IndexInputStats {
         return luceneBytesRead;
     }
 
+    public Counter getReadAheadBytesRequested() {
+        return readAheadBytesRequested;
+    }
+
+    public Counter getReadAheadBytesHit() {
+        return readAheadBytesHit;
+    }
+
     @SuppressForbidden(reason = "Handles Long.MIN_VALUE before using Math.abs()")
     public boolean isLargeSeek(long delta) {
         return delta != Long.MIN_VALUE && Math.abs(delta) > seekingThreshold;
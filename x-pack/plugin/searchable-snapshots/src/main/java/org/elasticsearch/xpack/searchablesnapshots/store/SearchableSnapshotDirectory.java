@@ -34,6 +34,8 @@ import org.elasticsearch.common.util.LazyInitializable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.core.CheckedRunnable;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.core.internal.io.IOUtils;
@@ -73,6 +75,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -81,8 +84,10 @@ import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
@@ -91,9 +96,12 @@ import static org.elasticsearch.index.IndexModule.INDEX_STORE_TYPE_SETTING;
 import static org.elasticsearch.snapshots.SearchableSnapshotsSettings.SEARCHABLE_SNAPSHOT_STORE_TYPE;
 import static org.elasticsearch.snapshots.SearchableSnapshotsSettings.SNAPSHOT_PARTIAL_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_BLOB_CACHE_METADATA_FILES_MAX_LENGTH_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_BLOB_CACHE_PRELOAD_ENABLED_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_ENABLED_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_READ_AHEAD_MAX_CONCURRENT_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_INDEX_ID_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_INDEX_NAME_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_REPOSITORY_NAME_SETTING;
@@ -130,6 +138,8 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
     private final CacheService cacheService;
     private final boolean useCache;
     private final boolean prewarmCache;
+    private final int readAheadRanges;
+    private final Semaphore readAheadPermits;
     private final Set<String> excludedFileTypes;
     private final long uncachedChunkSize; // if negative use BlobContainer#readBlobPreferredLength, see #getUncachedChunkSize()
     private final Path cacheDir;
@@ -138,6 +148,10 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
     private final boolean partial;
     private final FrozenCacheService frozenCacheService;
     private final ByteSizeValue blobStoreCacheMaxLength;
+    private final boolean preloadCachedBlobs;
+
+    // cached blobs retrieved when the snapshot is loaded, by file name; entries are removed once used or when the directory is closed
+    private final Map<String, Tuple<ByteRange, CachedBlob>> preloadedCachedBlobs = ConcurrentCollections.newConcurrentMap();
 
     // volatile fields are updated once under `this` lock, all together, iff loaded is not true.
     private volatile BlobStoreIndexShardSnapshot snapshot;
@@ -178,9 +192,12 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         this.useCache = SNAPSHOT_CACHE_ENABLED_SETTING.get(indexSettings);
         this.partial = SNAPSHOT_PARTIAL_SETTING.get(indexSettings);
         this.prewarmCache = partial == false && useCache ? SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING.get(indexSettings) : false;
+        this.readAheadRanges = useCache ? SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING.get(indexSettings) : 0;
+        this.readAheadPermits = new Semaphore(SNAPSHOT_CACHE_READ_AHEAD_MAX_CONCURRENT_SETTING.get(indexSettings));
         this.excludedFileTypes = new HashSet<>(SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING.get(indexSettings));
         this.uncachedChunkSize = SNAPSHOT_UNCACHED_CHUNK_SIZE_SETTING.get(indexSettings).getBytes();
         this.blobStoreCacheMaxLength = SNAPSHOT_BLOB_CACHE_METADATA_FILES_MAX_LENGTH_SETTING.get(indexSettings);
+        this.preloadCachedBlobs = useCache && SNAPSHOT_BLOB_CACHE_PRELOAD_ENABLED_SETTING.get(indexSettings);
         this.threadPool = threadPool;
         this.loaded = false;
         this.frozenCacheService = frozenCacheService;
@@ -225,7 +242,20 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
                 alreadyLoaded = this.loaded;
                 if (alreadyLoaded == false) {
                     this.blobContainer = blobContainerSupplier.get();
-                    this.snapshot = snapshotSupplier.get();
+                    final BlobStoreIndexShardSnapshot snapshot = snapshotSupplier.get();
+                    for (BlobStoreIndexShardSnapshot.FileInfo file : snapshot.indexFiles()) {
+                        // the inputs of searchable snapshots expect files to be stored in parts of the same size
+                        if (file.blocks().isEmpty() == false) {
+                            throw new IllegalArgumentException(
+                                "file ["
+                                    + file.physicalName()
+                                    + "] of snapshot ["
+                                    + snapshot.snapshot()
+                                    + "] is stored in deduplicated blocks and cannot be mounted as a searchable snapshot"
+                            );
+                        }
+                    }
+                    this.snapshot = snapshot;
                     this.loaded = true;
                     cleanExistingRegularShardFiles();
                     waitForPendingEvictions();
@@ -233,6 +263,9 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
                     prewarmCache(preWarmListener);
                 }
             }
+            if (alreadyLoaded == false) {
+                preloadCachedBlobs();
+            }
         }
         assert invariant();
         return alreadyLoaded == false;
@@ -352,6 +385,7 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
     public final void close() {
         if (closed.compareAndSet(false, true)) {
             isOpen = false;
+            preloadedCachedBlobs.clear();
         }
     }
 
@@ -387,6 +421,29 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         return threadPool.executor(SearchableSnapshots.CACHE_PREWARMING_THREAD_POOL_NAME);
     }
 
+    /**
+     * @return the number of ranges that index inputs should read ahead into the cache once they detect sequential reads, or zero if
+     *         read-ahead is disabled.
+     */
+    public int getReadAheadRanges() {
+        return readAheadRanges;
+    }
+
+    /**
+     * Tries to acquire a permit to read ahead a range into the cache. The number of permits is bounded so that read-ahead requests of
+     * the shard do not monopolize the cache fetch thread pool.
+     *
+     * @return a {@link Releasable} that releases the permit once the read-ahead request completed, or {@code null} if too many read-ahead
+     *         requests are already in flight
+     */
+    @Nullable
+    public Releasable tryAcquireReadAheadPermit() {
+        if (closed.get() == false && readAheadPermits.tryAcquire()) {
+            return Releasables.releaseOnce(readAheadPermits::release);
+        }
+        return null;
+    }
+
     @Override
     public IndexInput openInput(final String name, final IOContext context) throws IOException {
         ensureOpen();
@@ -492,6 +549,39 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         cacheService.waitForCacheFilesEvictionIfNeeded(snapshotId.getUUID(), indexId.getName(), shardId);
     }
 
+    /**
+     * Retrieves the cached blobs of all the files of the shard in the background, so that opening the files does not require one request
+     * to the blob cache system index per file. Files that are opened before their cached blob is preloaded retrieve it on their own.
+     */
+    private void preloadCachedBlobs() {
+        assert Thread.holdsLock(this) == false;
+        if (preloadCachedBlobs == false) {
+            return;
+        }
+        final Map<String, ByteRange> ranges = new HashMap<>();
+        for (BlobStoreIndexShardSnapshot.FileInfo file : snapshot().indexFiles()) {
+            if (file.metadata().hashEqualsContents() || isExcludedFromCache(file.physicalName())) {
+                continue;
+            }
+            final ByteRange range = getBlobCacheByteRange(file.physicalName(), file.length());
+            if (range.length() > 0L) {
+                ranges.put(file.physicalName(), range);
+            }
+        }
+        final AtomicInteger preloaded = new AtomicInteger();
+        blobStoreCacheService.getAllAsync(repository, snapshotId, indexId, shardId, ranges, (name, cachedBlob) -> {
+            final ByteRange range = ranges.get(name);
+            assert range != null : name;
+            if (closed.get() == false) {
+                preloadedCachedBlobs.put(name, Tuple.tuple(range, cachedBlob));
+                preloaded.incrementAndGet();
+                if (closed.get()) {
+                    preloadedCachedBlobs.clear();
+                }
+            }
+        }, ActionListener.wrap(() -> logger.debug("{} preloaded [{}/{}] cached blobs", shardId, preloaded.get(), ranges.size())));
+    }
+
     private void prewarmCache(ActionListener<Void> listener) {
         if (prewarmCache == false) {
             recoveryState.setPreWarmComplete();
@@ -710,6 +800,10 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
     }
 
     public CachedBlob getCachedBlob(String name, ByteRange range) {
+        final Tuple<ByteRange, CachedBlob> preloaded = preloadedCachedBlobs.get(name);
+        if (preloaded != null && preloaded.v1().equals(range) && preloadedCachedBlobs.remove(name, preloaded)) {
+            return preloaded.v2();
+        }
         return blobStoreCacheService.get(repository, snapshotId, indexId, shardId, name, range);
     }
 
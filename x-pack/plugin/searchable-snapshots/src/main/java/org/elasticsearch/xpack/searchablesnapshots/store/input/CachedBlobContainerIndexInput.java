@@ -13,6 +13,7 @@ import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
 import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
@@ -136,6 +137,13 @@ public class CachedBlobContainerIndexInput extends MetadataCachingIndexInput {
         assert bytesRead == length : bytesRead + " vs " + length;
     }
 
+    @Override
+    protected void readAhead(ByteRange range, ActionListener<Void> listener) throws Exception {
+        ensureContext(ctx -> ctx != CACHE_WARMING_CONTEXT);
+        final CacheFile cacheFile = cacheFileReference.get();
+        cacheFile.populate(range, this::writeCacheFile, directory.cacheFetchAsyncExecutor(), listener);
+    }
+
     /**
      * Prefetches a complete part and writes it in cache. This method is used to prewarm the cache.
      * @return a tuple with {@code Tuple<Persistent Cache Length, Prefetched Length>} values
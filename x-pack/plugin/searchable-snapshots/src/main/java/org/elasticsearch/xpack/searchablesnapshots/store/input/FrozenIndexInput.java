@@ -14,6 +14,7 @@ import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.StepListener;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
@@ -176,6 +177,22 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
         }
     }
 
+    @Override
+    protected void readAhead(ByteRange range, ActionListener<Void> listener) {
+        frozenCacheFile.populateAndRead(
+            range,
+            range,
+            (channel, pos, relativePos, len) -> Math.toIntExact(len),
+            (channel, channelPos, relativePos, len, progressUpdater) -> {
+                final long startTimeNanos = stats.currentTimeNanos();
+                try (InputStream input = openInputStreamFromBlobStore(range.start() + relativePos, len)) {
+                    writeCacheFile(channel, input, channelPos, relativePos, len, progressUpdater, startTimeNanos);
+                }
+            },
+            directory.cacheFetchAsyncExecutor()
+        ).whenComplete(bytesRead -> listener.onResponse(null), listener::onFailure);
+    }
+
     private static int positionalWrite(SharedBytes.IO fc, long start, ByteBuffer byteBuffer) throws IOException {
         assert assertCurrentThreadMayWriteCacheFile();
         byteBuffer.flip();
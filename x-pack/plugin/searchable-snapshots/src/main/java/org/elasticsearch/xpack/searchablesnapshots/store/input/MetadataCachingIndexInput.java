@@ -48,6 +48,17 @@ public abstract class MetadataCachingIndexInput extends BaseSearchableSnapshotIn
 
     protected static final int COPY_BUFFER_SIZE = ByteSizeUnit.KB.toIntBytes(8);
 
+    /**
+     * Number of consecutive forward reads after which an index input starts reading ahead the next ranges of the file into the cache.
+     */
+    static final int SEQUENTIAL_READS_BEFORE_READ_AHEAD = 4;
+
+    /**
+     * Minimum number of bytes that are read at once directly from the blob store when the cache can't hold them, for instance because
+     * the shared cache didn't admit their region. The bytes are kept by the index input for the next reads.
+     */
+    static final int DIRECT_READ_SIZE = ByteSizeUnit.KB.toIntBytes(256);
+
     protected final CacheFileReference cacheFileReference;
 
     /**
@@ -64,6 +75,17 @@ public abstract class MetadataCachingIndexInput extends BaseSearchableSnapshotIn
     // last seek position is kept around in order to detect forward/backward seeks for stats
     protected long lastSeekPosition;
 
+    // number of consecutive forward reads, used to detect sequential access patterns and to trigger read-ahead
+    private int sequentialReads;
+    // absolute positions of the bytes that have been requested by read-ahead and that have not been read yet by this input
+    private long readAheadStart;
+    private long readAheadEnd;
+
+    // absolute positions and content of the bytes that were last read directly from the blob store, never modified once read so that
+    // clones can share them
+    private ByteRange directReadRange = ByteRange.EMPTY;
+    private byte[] directReadBytes;
+
     public MetadataCachingIndexInput(
         Logger logger,
         String name,
@@ -87,6 +109,8 @@ public abstract class MetadataCachingIndexInput extends BaseSearchableSnapshotIn
         this.recoveryRangeSize = recoveryRangeSize;
         this.lastReadPosition = offset;
         this.lastSeekPosition = offset;
+        this.readAheadStart = offset;
+        this.readAheadEnd = offset;
         assert offset >= compoundFileOffset;
         assert getBufferSize() <= BlobStoreCacheService.DEFAULT_CACHED_BLOB_SIZE; // must be able to cache at least one buffer's worth
     }
@@ -97,6 +121,7 @@ public abstract class MetadataCachingIndexInput extends BaseSearchableSnapshotIn
         final int length = b.remaining();
 
         logger.trace("readInternal: read [{}-{}] ([{}] bytes) from [{}]", position, position + length, length, this);
+        final boolean sequential = isSequentialRead(position);
 
         try {
             final ByteRange blobCacheByteRange = rangeToReadFromBlobCache(position, length);
@@ -113,10 +138,69 @@ public abstract class MetadataCachingIndexInput extends BaseSearchableSnapshotIn
         }
 
         readComplete(position, length);
+        maybeReadAhead(position, length, sequential);
     }
 
     protected abstract void readWithoutBlobCache(ByteBuffer b) throws Exception;
 
+    /**
+     * Asynchronously populates the cache with the given range of the file, notifying the listener once the range is available. This is
+     * used to read ahead ranges of the file when sequential reads are detected.
+     */
+    protected abstract void readAhead(ByteRange range, ActionListener<Void> listener) throws Exception;
+
+    private boolean isSequentialRead(long position) {
+        // small forward skips are common when reading stored fields of many documents, so they still count as sequential reads
+        return position >= lastReadPosition && position - lastReadPosition < getDefaultRangeSize();
+    }
+
+    private void maybeReadAhead(long position, int length, boolean sequential) {
+        final long end = position + length;
+        if (readAheadStart <= position && position < readAheadEnd) {
+            final long hitEnd = Math.min(end, readAheadEnd);
+            stats.addReadAheadBytesHit(hitEnd - position);
+            readAheadStart = hitEnd;
+        }
+        if (sequential == false) {
+            sequentialReads = 0;
+            return;
+        }
+        sequentialReads += 1;
+        final int readAheadRanges = directory.getReadAheadRanges();
+        if (readAheadRanges == 0 || sequentialReads < SEQUENTIAL_READS_BEFORE_READ_AHEAD) {
+            return;
+        }
+        final ByteRange currentRange = computeRange(end - 1);
+        final long readAheadLimit = Math.min(currentRange.end() + readAheadRanges * getDefaultRangeSize(), this.offset + length());
+        long nextRangeStart = Math.max(readAheadEnd, currentRange.end());
+        while (nextRangeStart < readAheadLimit) {
+            final Releasable permit = directory.tryAcquireReadAheadPermit();
+            if (permit == null) {
+                // too many read-ahead requests in flight, the next sequential read will try again
+                break;
+            }
+            final ByteRange rangeToReadAhead = computeRange(nextRangeStart);
+            assert rangeToReadAhead.start() == nextRangeStart : rangeToReadAhead + " vs " + nextRangeStart;
+            logger.trace("read-ahead of range [{}] for [{}]", rangeToReadAhead, this);
+            try {
+                readAhead(rangeToReadAhead, ActionListener.wrap(ignored -> permit.close(), e -> {
+                    permit.close();
+                    logger.debug(() -> new ParameterizedMessage("failed to read ahead range [{}] of [{}]", rangeToReadAhead, this), e);
+                }));
+            } catch (Exception e) {
+                permit.close();
+                logger.debug(() -> new ParameterizedMessage("failed to read ahead range [{}] of [{}]", rangeToReadAhead, this), e);
+                break;
+            }
+            stats.addReadAheadBytesRequested(rangeToReadAhead.length());
+            if (readAheadEnd < nextRangeStart) {
+                readAheadStart = nextRangeStart;
+            }
+            readAheadEnd = rangeToReadAhead.end();
+            nextRangeStart = rangeToReadAhead.end();
+        }
+    }
+
     private void readWithBlobCache(ByteBuffer b, ByteRange blobCacheByteRange) throws Exception {
         final long position = getAbsolutePosition();
         final int length = b.remaining();
@@ -366,46 +450,18 @@ public abstract class MetadataCachingIndexInput extends BaseSearchableSnapshotIn
     protected int readDirectlyIfAlreadyClosed(long position, ByteBuffer b, Exception e) throws IOException {
         if (e instanceof AlreadyClosedException || (e.getCause() != null && e.getCause() instanceof AlreadyClosedException)) {
             try {
-                // cache file was evicted during the range fetching, read bytes directly from blob container
-                final long length = b.remaining();
-                final byte[] copyBuffer = new byte[toIntBytes(Math.min(COPY_BUFFER_SIZE, length))];
-                logger.trace(
-                    () -> new ParameterizedMessage(
-                        "direct reading of range [{}-{}] for cache file [{}]",
-                        position,
-                        position + length,
-                        cacheFileReference
-                    )
-                );
-
-                int bytesCopied = 0;
-                final long startTimeNanos = stats.currentTimeNanos();
-                try (InputStream input = openInputStreamFromBlobStore(position, length)) {
-                    long remaining = length;
-                    while (remaining > 0) {
-                        final int len = (remaining < copyBuffer.length) ? (int) remaining : copyBuffer.length;
-                        int bytesRead = input.read(copyBuffer, 0, len);
-                        if (bytesRead == -1) {
-                            throw new EOFException(
-                                String.format(
-                                    Locale.ROOT,
-                                    "unexpected EOF reading [%d-%d] ([%d] bytes remaining) from %s",
-                                    position,
-                                    position + length,
-                                    remaining,
-                                    cacheFileReference
-                                )
-                            );
-                        }
-                        b.put(copyBuffer, 0, bytesRead);
-                        bytesCopied += bytesRead;
-                        remaining -= bytesRead;
-                        assert remaining == b.remaining() : remaining + " vs " + b.remaining();
-                    }
-                    final long endTimeNanos = stats.currentTimeNanos();
-                    stats.addDirectBytesRead(bytesCopied, endTimeNanos - startTimeNanos);
+                // cache file was evicted during the range fetching or its region wasn't admitted in the cache, read bytes directly from
+                // blob container
+                final int length = b.remaining();
+                if (directReadBytes == null || directReadRange.contains(position, position + length) == false) {
+                    // read more than requested in a single request, so that the next reads of a sequential scan don't each fetch a few
+                    // bytes from the blob store
+                    final long end = Math.min(fileInfo.length(), position + Math.max(length, DIRECT_READ_SIZE));
+                    directReadBytes = readDirectly(position, end);
+                    directReadRange = ByteRange.of(position, end);
                 }
-                return bytesCopied;
+                b.put(directReadBytes, toIntBytes(position - directReadRange.start()), length);
+                return length;
             } catch (Exception inner) {
                 e.addSuppressed(inner);
             }
@@ -413,6 +469,33 @@ public abstract class MetadataCachingIndexInput extends BaseSearchableSnapshotIn
         throw new IOException("failed to read data from cache", e);
     }
 
+    private byte[] readDirectly(long start, long end) throws IOException {
+        logger.trace(() -> new ParameterizedMessage("direct reading of range [{}-{}] for cache file [{}]", start, end, cacheFileReference));
+        final byte[] bytes = new byte[toIntBytes(end - start)];
+        final long startTimeNanos = stats.currentTimeNanos();
+        try (InputStream input = openInputStreamFromBlobStore(start, bytes.length)) {
+            int bytesCopied = 0;
+            while (bytesCopied < bytes.length) {
+                final int bytesRead = input.read(bytes, bytesCopied, Math.min(COPY_BUFFER_SIZE, bytes.length - bytesCopied));
+                if (bytesRead == -1) {
+                    throw new EOFException(
+                        String.format(
+                            Locale.ROOT,
+                            "unexpected EOF reading [%d-%d] ([%d] bytes remaining) from %s",
+                            start,
+                            end,
+                            bytes.length - bytesCopied,
+                            cacheFileReference
+                        )
+                    );
+                }
+                bytesCopied += bytesRead;
+            }
+        }
+        stats.addDirectBytesRead(bytes.length, stats.currentTimeNanos() - startTimeNanos);
+        return bytes;
+    }
+
     protected abstract long getDefaultRangeSize();
 
     protected ByteRange computeRange(long position) {
@@ -434,6 +517,15 @@ public abstract class MetadataCachingIndexInput extends BaseSearchableSnapshotIn
         lastSeekPosition = position;
     }
 
+    @Override
+    public MetadataCachingIndexInput clone() {
+        final MetadataCachingIndexInput clone = (MetadataCachingIndexInput) super.clone();
+        // every clone detects its own access pattern
+        clone.sequentialReads = 0;
+        clone.readAheadStart = clone.readAheadEnd = clone.lastReadPosition;
+        return clone;
+    }
+
     @Override
     public void doClose() {
         if (isClone == false) {
@@ -7,42 +7,67 @@
 
 package org.elasticsearch.xpack.searchablesnapshots.cache.blob;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRunnable;
 import org.elasticsearch.action.get.GetAction;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexAction;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.metadata.RepositoriesMetadata;
+import org.elasticsearch.cluster.metadata.RepositoryMetadata;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.get.GetResult;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.snapshots.SnapshotId;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.xcontent.ToXContent;
+import org.elasticsearch.xcontent.XContentFactory;
 import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
 import org.junit.After;
 import org.junit.Before;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
 import static org.elasticsearch.index.mapper.MapperService.SINGLE_MAPPING_NAME;
 import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_PRIMARY_TERM;
 import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_SEQ_NO;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_BLOB_CACHE_INDEX;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -200,4 +225,193 @@ public class BlobStoreCacheServiceTests extends ESTestCase {
         assertTrue(blobCacheService.waitForInFlightCacheFillsToComplete(30L, TimeUnit.SECONDS));
         assertTrue(futures.stream().allMatch(Future::isDone));
     }
+
+    public void testGetAllInBatches() throws Exception {
+        final int numFiles = randomIntBetween(1, 5 * BlobStoreCacheService.PRELOAD_BATCH_SIZE);
+        final Map<String, ByteRange> ranges = new HashMap<>();
+        final Map<String, Boolean> cached = new HashMap<>();
+        for (int i = 0; i < numFiles; i++) {
+            final String name = "file_" + i;
+            ranges.put(name, ByteRange.of(0L, randomLongBetween(1L, 1024L)));
+            cached.put(name, randomBoolean());
+        }
+
+        final int numBatches = (numFiles + BlobStoreCacheService.PRELOAD_BATCH_SIZE - 1) / BlobStoreCacheService.PRELOAD_BATCH_SIZE;
+        final int failingRequest = randomBoolean() ? randomIntBetween(0, numBatches - 1) : -1;
+        final Set<String> failedFiles = ConcurrentCollections.newConcurrentSet();
+
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final BlobStoreCacheService blobCacheService = new BlobStoreCacheService(null, mockClient, SNAPSHOT_BLOB_CACHE_INDEX) {
+            @Override
+            protected void innerMultiGet(MultiGetRequest request, ActionListener<MultiGetResponse> listener) {
+                assertThat(request.getItems().size(), lessThanOrEqualTo(PRELOAD_BATCH_SIZE));
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                if (requests.getAndIncrement() == failingRequest) {
+                    request.getItems().forEach(item -> failedFiles.add(item.id().split("/")[4]));
+                    threadPool.generic().execute(() -> {
+                        inFlight.decrementAndGet();
+                        listener.onFailure(new IndexNotFoundException(SNAPSHOT_BLOB_CACHE_INDEX));
+                    });
+                    return;
+                }
+                threadPool.generic().execute(ActionRunnable.supply(ActionListener.runBefore(listener, inFlight::decrementAndGet), () -> {
+                    final MultiGetItemResponse[] responses = new MultiGetItemResponse[request.getItems().size()];
+                    for (int i = 0; i < responses.length; i++) {
+                        final MultiGetRequest.Item item = request.getItems().get(i);
+                        final String name = item.id().split("/")[4];
+                        final boolean exists = cached.get(name);
+                        final BytesReference source = exists ? source(name, ranges.get(name)) : null;
+                        responses[i] = new MultiGetItemResponse(
+                            new GetResponse(
+                                new GetResult(
+                                    item.index(),
+                                    SINGLE_MAPPING_NAME,
+                                    item.id(),
+                                    exists ? 0L : UNASSIGNED_SEQ_NO,
+                                    exists ? 1L : UNASSIGNED_PRIMARY_TERM,
+                                    exists ? 1L : -1L,
+                                    exists,
+                                    source,
+                                    emptyMap(),
+                                    emptyMap()
+                                )
+                            ),
+                            null
+                        );
+                    }
+                    return new MultiGetResponse(responses);
+                }));
+            }
+        };
+        blobCacheService.start();
+
+        final Map<String, CachedBlob> cachedBlobs = ConcurrentCollections.newConcurrentMap();
+        final PlainActionFuture<Void> future = PlainActionFuture.newFuture();
+        blobCacheService.getAllAsync(repository, snapshotId, indexId, shardId, ranges, cachedBlobs::put, future);
+        future.get(30L, TimeUnit.SECONDS);
+
+        // the cached blobs of the batches that succeeded are kept
+        assertThat(failedFiles.isEmpty(), equalTo(failingRequest < 0));
+        assertThat(cachedBlobs.size(), equalTo(numFiles - failedFiles.size()));
+        for (Map.Entry<String, CachedBlob> cachedBlob : cachedBlobs.entrySet()) {
+            if (cached.get(cachedBlob.getKey())) {
+                final ByteRange expectedRange = ranges.get(cachedBlob.getKey());
+                assertThat(cachedBlob.getValue().from(), equalTo(expectedRange.start()));
+                assertThat(cachedBlob.getValue().to(), equalTo(expectedRange.end()));
+            } else {
+                assertThat(cachedBlob.getValue(), equalTo(CachedBlob.CACHE_MISS));
+            }
+        }
+        assertThat(requests.get(), equalTo(numBatches));
+        assertThat(maxInFlight.get(), lessThanOrEqualTo(BlobStoreCacheService.MAX_CONCURRENT_PRELOADS_PER_REPOSITORY));
+
+        blobCacheService.stop();
+        final PlainActionFuture<Void> stoppedFuture = PlainActionFuture.newFuture();
+        blobCacheService.getAllAsync(repository, snapshotId, indexId, shardId, ranges, (name, cachedBlob) -> fail(name), stoppedFuture);
+        stoppedFuture.get(30L, TimeUnit.SECONDS);
+        assertThat(requests.get(), equalTo(numBatches));
+    }
+
+    public void testPreloadQueueRemovedWithRepository() throws Exception {
+        final BlobStoreCacheService blobCacheService = new BlobStoreCacheService(null, mockClient, SNAPSHOT_BLOB_CACHE_INDEX) {
+            @Override
+            protected void innerMultiGet(MultiGetRequest request, ActionListener<MultiGetResponse> listener) {
+                listener.onFailure(new IndexNotFoundException(SNAPSHOT_BLOB_CACHE_INDEX));
+            }
+        };
+        blobCacheService.start();
+
+        final String otherRepository = randomValueOtherThan(repository, () -> randomAlphaOfLength(5).toLowerCase(Locale.ROOT));
+        for (String repositoryName : Arrays.asList(repository, otherRepository)) {
+            final PlainActionFuture<Void> future = PlainActionFuture.newFuture();
+            blobCacheService.getAllAsync(repositoryName, snapshotId, indexId, shardId, singletonMap(fileName, range), (n, b) -> {}, future);
+            future.get(30L, TimeUnit.SECONDS);
+            assertTrue(blobCacheService.hasPreloadQueue(repositoryName));
+        }
+
+        final ClusterState previousState = clusterStateWithRepositories(repository, otherRepository);
+        final ClusterState currentState = clusterStateWithRepositories(otherRepository);
+        blobCacheService.clusterChanged(new ClusterChangedEvent("test", currentState, previousState));
+        assertFalse(blobCacheService.hasPreloadQueue(repository));
+        assertTrue(blobCacheService.hasPreloadQueue(otherRepository));
+        blobCacheService.stop();
+    }
+
+    public void testGetAllCompletesOnceWhenConsumerFails() throws Exception {
+        final BlobStoreCacheService blobCacheService = new BlobStoreCacheService(null, mockClient, SNAPSHOT_BLOB_CACHE_INDEX) {
+            @Override
+            protected void innerMultiGet(MultiGetRequest request, ActionListener<MultiGetResponse> listener) {
+                final MultiGetItemResponse[] responses = new MultiGetItemResponse[request.getItems().size()];
+                for (int i = 0; i < responses.length; i++) {
+                    final MultiGetRequest.Item item = request.getItems().get(i);
+                    responses[i] = new MultiGetItemResponse(
+                        new GetResponse(
+                            new GetResult(
+                                item.index(),
+                                SINGLE_MAPPING_NAME,
+                                item.id(),
+                                UNASSIGNED_SEQ_NO,
+                                UNASSIGNED_PRIMARY_TERM,
+                                -1L,
+                                false,
+                                null,
+                                emptyMap(),
+                                emptyMap()
+                            )
+                        ),
+                        null
+                    );
+                }
+                listener.onResponse(new MultiGetResponse(responses));
+            }
+        };
+        blobCacheService.start();
+
+        final Map<String, ByteRange> ranges = new HashMap<>();
+        final int numFiles = randomIntBetween(1, 10);
+        for (int i = 0; i < numFiles; i++) {
+            ranges.put("file_" + i, range);
+        }
+        final String failingFile = randomFrom(ranges.keySet());
+        final Set<String> consumedFiles = ConcurrentCollections.newConcurrentSet();
+        final AtomicInteger completions = new AtomicInteger();
+        final PlainActionFuture<Void> future = PlainActionFuture.newFuture();
+        blobCacheService.getAllAsync(repository, snapshotId, indexId, shardId, ranges, (name, cachedBlob) -> {
+            if (name.equals(failingFile)) {
+                throw new IllegalStateException("simulated");
+            }
+            consumedFiles.add(name);
+        }, ActionListener.runBefore(future, completions::incrementAndGet));
+        future.get(30L, TimeUnit.SECONDS);
+
+        // the other files of the batch are still passed to the consumer, and the batch completes only once
+        assertThat(consumedFiles.size(), equalTo(numFiles - 1));
+        assertThat(completions.get(), equalTo(1));
+        blobCacheService.stop();
+    }
+
+    private static ClusterState clusterStateWithRepositories(String... repositories) {
+        final List<RepositoryMetadata> repositoriesMetadata = new ArrayList<>();
+        for (String repository : repositories) {
+            repositoriesMetadata.add(new RepositoryMetadata(repository, "fs", Settings.EMPTY));
+        }
+        return ClusterState.builder(ClusterName.DEFAULT)
+            .metadata(Metadata.builder().putCustom(RepositoriesMetadata.TYPE, new RepositoriesMetadata(repositoriesMetadata)))
+            .build();
+    }
+
+    private BytesReference source(String name, ByteRange range) throws IOException {
+        final CachedBlob cachedBlob = new CachedBlob(
+            Instant.now(),
+            Version.CURRENT,
+            repository,
+            name,
+            "path",
+            new BytesArray(randomByteArrayOfLength(Math.toIntExact(range.length()))),
+            range.start()
+        );
+        return BytesReference.bytes(cachedBlob.toXContent(XContentFactory.jsonBuilder(), ToXContent.EMPTY_PARAMS));
+    }
 }
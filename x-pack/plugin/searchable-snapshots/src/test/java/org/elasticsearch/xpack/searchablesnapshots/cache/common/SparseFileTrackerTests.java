@@ -11,6 +11,7 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.util.concurrent.DeterministicTaskQueue;
 import org.elasticsearch.test.ESTestCase;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -400,6 +401,58 @@ public class SparseFileTrackerTests extends ESTestCase {
         checkThread.join();
     }
 
+    public void testConcurrentWaitForRangeReturnsDisjointGaps() throws InterruptedException {
+        final long length = between(1, 1000);
+        final SparseFileTracker sparseFileTracker = new SparseFileTracker("test", length);
+        final Thread[] threads = new Thread[between(2, 8)];
+        final List<SparseFileTracker.Gap> gaps = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch startLatch = new CountDownLatch(1);
+
+        for (int threadIndex = 0; threadIndex < threads.length; threadIndex++) {
+            threads[threadIndex] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                for (int i = 0; i < 100; i++) {
+                    final long start = randomLongBetween(0L, length - 1L);
+                    final ByteRange range = ByteRange.of(start, randomLongBetween(start + 1L, length));
+                    gaps.addAll(sparseFileTracker.waitForRange(range, range, ActionListener.wrap(() -> {})));
+                }
+            });
+            threads[threadIndex].start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // every byte must have been handed out to at most one gap
+        final byte[] fileContents = new byte[toIntBytes(length)];
+        for (SparseFileTracker.Gap gap : gaps) {
+            for (long i = gap.start(); i < gap.end(); i++) {
+                assertThat("byte [" + i + "] is part of several gaps", fileContents[toIntBytes(i)], equalTo(UNAVAILABLE));
+                fileContents[toIntBytes(i)] = AVAILABLE;
+            }
+        }
+        for (SparseFileTracker.Gap gap : gaps) {
+            gap.onCompletion();
+        }
+        final SortedSet<ByteRange> completedRanges = sparseFileTracker.getCompletedRanges();
+        long completedLength = 0L;
+        for (ByteRange completedRange : completedRanges) {
+            completedLength += completedRange.length();
+        }
+        long expectedLength = 0L;
+        for (byte b : fileContents) {
+            if (b == AVAILABLE) {
+                expectedLength += 1L;
+            }
+        }
+        assertThat(completedLength, equalTo(expectedLength));
+    }
+
     public void testSparseFileTrackerCreatedWithCompletedRanges() {
         final long fileLength = between(0, 1000);
         final SortedSet<ByteRange> completedRanges = randomRanges(fileLength);
@@ -12,6 +12,9 @@ import org.apache.lucene.mockfile.FilterPath;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.client.Client;
@@ -337,6 +340,11 @@ public final class TestUtils {
             listener.onFailure(new IndexNotFoundException(request.index()));
         }
 
+        @Override
+        protected void innerMultiGet(MultiGetRequest request, ActionListener<MultiGetResponse> listener) {
+            listener.onFailure(new IndexNotFoundException(SNAPSHOT_BLOB_CACHE_INDEX));
+        }
+
         @Override
         protected void innerPut(IndexRequest request, ActionListener<IndexResponse> listener) {
             listener.onFailure(new IndexNotFoundException(request.index()));
@@ -382,6 +390,33 @@ public final class TestUtils {
             );
         }
 
+        @Override
+        protected void innerMultiGet(MultiGetRequest request, ActionListener<MultiGetResponse> listener) {
+            final MultiGetItemResponse[] responses = new MultiGetItemResponse[request.getItems().size()];
+            for (int i = 0; i < responses.length; i++) {
+                final MultiGetRequest.Item item = request.getItems().get(i);
+                final BytesArray bytes = blobs.get(item.id());
+                responses[i] = new MultiGetItemResponse(
+                    new GetResponse(
+                        new GetResult(
+                            item.index(),
+                            item.type(),
+                            item.id(),
+                            UNASSIGNED_SEQ_NO,
+                            UNASSIGNED_PRIMARY_TERM,
+                            0L,
+                            bytes != null,
+                            bytes,
+                            null,
+                            null
+                        )
+                    ),
+                    null
+                );
+            }
+            listener.onResponse(new MultiGetResponse(responses));
+        }
+
         @Override
         protected void innerPut(IndexRequest request, ActionListener<IndexResponse> listener) {
             final BytesArray bytesArray = blobs.put(request.id(), new BytesArray(request.source().toBytesRef(), true));
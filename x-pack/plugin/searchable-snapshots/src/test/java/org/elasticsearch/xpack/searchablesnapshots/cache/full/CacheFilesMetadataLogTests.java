@@ -0,0 +1,150 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.cache.full;
+
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.CacheFile;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.CacheKey;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class CacheFilesMetadataLogTests extends ESTestCase {
+
+    private static final CacheFile.ModificationListener NOOP = new CacheFile.ModificationListener() {
+        @Override
+        public void onCacheFileNeedsFsync(CacheFile cacheFile) {}
+
+        @Override
+        public void onCacheFileDelete(CacheFile cacheFile) {}
+    };
+
+    public void testPutAndDeleteSurviveReopening() throws IOException {
+        final Path shardCachePath = createTempDir();
+        final Map<String, SortedSet<ByteRange>> expected = new HashMap<>();
+        try (CacheFilesMetadataLog log = CacheFilesMetadataLog.open(shardCachePath)) {
+            final int numberOfCacheFiles = between(1, 20);
+            for (int i = 0; i < numberOfCacheFiles; i++) {
+                final CacheFile cacheFile = randomCacheFile(shardCachePath);
+                final SortedSet<ByteRange> ranges = randomRanges(cacheFile.getLength());
+                log.put(cacheFile, ranges);
+                expected.put(cacheFile.getFile().getFileName().toString(), ranges);
+            }
+            for (String cacheFileId : randomSubsetOf(expected.keySet())) {
+                log.delete(cacheFileId);
+                expected.remove(cacheFileId);
+            }
+            log.sync();
+            assertThat(log.size(), equalTo(expected.size()));
+        }
+
+        assertEntries(CacheFilesMetadataLog.readEntries(shardCachePath), expected);
+        try (CacheFilesMetadataLog log = CacheFilesMetadataLog.open(shardCachePath)) {
+            assertEntries(log.entries(), expected);
+        }
+    }
+
+    public void testTruncatedTailIsDiscarded() throws IOException {
+        final Path shardCachePath = createTempDir();
+        final CacheFile cacheFile = randomCacheFile(shardCachePath);
+        final SortedSet<ByteRange> ranges = randomRanges(cacheFile.getLength());
+        final Path logFile = shardCachePath.resolve(CacheFilesMetadataLog.LOG_FILE_NAME);
+        final long validLength;
+        try (CacheFilesMetadataLog log = CacheFilesMetadataLog.open(shardCachePath)) {
+            log.put(cacheFile, ranges);
+            log.sync();
+            validLength = Files.size(logFile);
+            log.put(randomCacheFile(shardCachePath), randomRanges(cacheFile.getLength()));
+            log.sync();
+        }
+
+        // simulates a crash in the middle of the last write
+        final long tornLength = randomLongBetween(validLength + 1L, Files.size(logFile) - 1L);
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(tornLength);
+        }
+
+        final Map<String, SortedSet<ByteRange>> expected = singletonMap(cacheFile.getFile().getFileName().toString(), ranges);
+        assertEntries(CacheFilesMetadataLog.readEntries(shardCachePath), expected);
+        try (CacheFilesMetadataLog log = CacheFilesMetadataLog.open(shardCachePath)) {
+            assertThat(Files.size(logFile), equalTo(validLength));
+            assertEntries(log.entries(), expected);
+        }
+    }
+
+    public void testCompaction() throws IOException {
+        final Path shardCachePath = createTempDir();
+        final Path logFile = shardCachePath.resolve(CacheFilesMetadataLog.LOG_FILE_NAME);
+        final CacheFile cacheFile = randomCacheFile(shardCachePath);
+        final SortedSet<ByteRange> ranges = randomRanges(cacheFile.getLength());
+        try (CacheFilesMetadataLog log = CacheFilesMetadataLog.open(shardCachePath)) {
+            for (int i = 0; i < CacheFilesMetadataLog.MIN_RECORDS_FOR_COMPACTION; i++) {
+                log.put(cacheFile, randomRanges(cacheFile.getLength()));
+            }
+            log.put(cacheFile, ranges);
+            final long sizeBeforeCompaction = Files.size(logFile);
+            log.sync();
+            assertThat(Files.size(logFile), lessThan(sizeBeforeCompaction));
+            assertFalse(Files.exists(shardCachePath.resolve(CacheFilesMetadataLog.TEMP_LOG_FILE_NAME)));
+
+            // the log is still appendable after compaction
+            log.delete(cacheFile.getFile().getFileName().toString());
+            log.put(cacheFile, ranges);
+            log.sync();
+        }
+        final Map<String, SortedSet<ByteRange>> expected = singletonMap(cacheFile.getFile().getFileName().toString(), ranges);
+        assertEntries(CacheFilesMetadataLog.readEntries(shardCachePath), expected);
+    }
+
+    private static void assertEntries(
+        Map<String, CacheFilesMetadataLog.CacheFileEntry> entries,
+        Map<String, SortedSet<ByteRange>> expected
+    ) {
+        assertThat(entries.keySet(), equalTo(expected.keySet()));
+        for (Map.Entry<String, CacheFilesMetadataLog.CacheFileEntry> entry : entries.entrySet()) {
+            assertThat(entry.getValue().ranges, equalTo(expected.get(entry.getKey())));
+        }
+    }
+
+    private static CacheFile randomCacheFile(Path shardCachePath) {
+        final CacheKey cacheKey = new CacheKey(
+            UUIDs.randomBase64UUID(random()),
+            randomAlphaOfLength(5),
+            new ShardId(randomAlphaOfLength(5), UUIDs.randomBase64UUID(random()), randomInt(5)),
+            randomAlphaOfLength(10)
+        );
+        final Path file = shardCachePath.resolve(cacheKey.getSnapshotUUID()).resolve(UUIDs.randomBase64UUID(random()));
+        return new CacheFile(cacheKey, randomLongBetween(1L, 1_000_000L), file, NOOP);
+    }
+
+    private static SortedSet<ByteRange> randomRanges(long length) {
+        final SortedSet<ByteRange> ranges = new TreeSet<>();
+        long position = 0L;
+        while (position < length && randomBoolean()) {
+            final long start = randomLongBetween(position, length - 1L);
+            final long end = randomLongBetween(start + 1L, length);
+            ranges.add(ByteRange.of(start, end));
+            position = end + 1L;
+        }
+        return ranges;
+    }
+}
@@ -41,7 +41,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
@@ -54,6 +56,7 @@ import static org.elasticsearch.xpack.searchablesnapshots.cache.common.TestUtils
 import static org.elasticsearch.xpack.searchablesnapshots.cache.common.TestUtils.sumOfCompletedRangesLengths;
 import static org.elasticsearch.xpack.searchablesnapshots.cache.full.PersistentCache.createCacheIndexWriter;
 import static org.elasticsearch.xpack.searchablesnapshots.cache.full.PersistentCache.resolveCacheIndexFolder;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
@@ -177,6 +180,96 @@ public class PersistentCacheTests extends AbstractSearchableSnapshotsTestCase {
         newCacheService.stop();
     }
 
+    public void testRepopulateCacheLazilyWithLogFormat() throws Exception {
+        final CacheService cacheService = logFormatCacheService();
+        cacheService.setCacheSyncInterval(TimeValue.ZERO);
+        cacheService.start();
+
+        final List<CacheFile> cacheFiles = randomCacheFiles(cacheService);
+        cacheService.synchronizeCache();
+        assertThat(cacheService.getPersistentCache().getNumDocs(), equalTo((long) cacheFiles.size()));
+
+        final List<CacheFile> removedCacheFiles = randomSubsetOf(cacheFiles);
+        for (CacheFile removedCacheFile : removedCacheFiles) {
+            if (randomBoolean()) {
+                // evict cache file from the cache
+                cacheService.removeFromCache(removedCacheFile.getCacheKey());
+            } else {
+                IOUtils.rm(removedCacheFile.getFile());
+            }
+            cacheFiles.remove(removedCacheFile);
+        }
+        cacheService.stop();
+
+        final CacheService newCacheService = logFormatCacheService();
+        newCacheService.start();
+        // shards are only loaded when they are first accessed
+        assertThat(newCacheService.getPersistentCache().getNumDocs(), equalTo(0L));
+
+        for (CacheFile cacheFile : cacheFiles) {
+            final CacheKey cacheKey = cacheFile.getCacheKey();
+            final long cacheSize = newCacheService.getPersistentCache()
+                .getCacheSize(cacheKey.getShardId(), new SnapshotId("_ignored_", cacheKey.getSnapshotUUID()));
+            assertThat(cacheSize, greaterThanOrEqualTo(sumOfCompletedRangesLengths(cacheFile)));
+        }
+        for (CacheFile cacheFile : cacheFiles) {
+            CacheFile newCacheFile = newCacheService.get(cacheFile.getCacheKey(), cacheFile.getLength(), cacheFile.getFile().getParent());
+            assertThat(newCacheFile, notNullValue());
+            assertThat(newCacheFile, not(sameInstance(cacheFile)));
+            assertCacheFileEquals(newCacheFile, cacheFile);
+        }
+        newCacheService.stop();
+    }
+
+    public void testRepopulateCacheConcurrentlyWithLogFormat() throws Exception {
+        final CacheService cacheService = logFormatCacheService();
+        cacheService.setCacheSyncInterval(TimeValue.ZERO);
+        cacheService.start();
+
+        final List<CacheFile> cacheFiles = randomCacheFiles(cacheService);
+        cacheService.synchronizeCache();
+        cacheService.stop();
+
+        final CacheService newCacheService = logFormatCacheService();
+        newCacheService.start();
+
+        // threads accessing the same shards at the same time load the log of each shard once
+        final Thread[] threads = new Thread[between(2, 8)];
+        final CyclicBarrier barrier = new CyclicBarrier(threads.length);
+        final List<Throwable> failures = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (CacheFile cacheFile : shuffledList(cacheFiles)) {
+                        final CacheFile newCacheFile = newCacheService.get(
+                            cacheFile.getCacheKey(),
+                            cacheFile.getLength(),
+                            cacheFile.getFile().getParent()
+                        );
+                        assertCacheFileEquals(newCacheFile, cacheFile);
+                    }
+                } catch (Exception | AssertionError e) {
+                    failures.add(e);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(failures, empty());
+        assertThat(newCacheService.getPersistentCache().getNumDocs(), equalTo((long) cacheFiles.size()));
+        newCacheService.stop();
+    }
+
+    private CacheService logFormatCacheService() {
+        final Settings settings = Settings.builder()
+            .put(PersistentCache.PERSISTENT_CACHE_FORMAT_SETTING.getKey(), PersistentCache.LOG_FORMAT)
+            .build();
+        return new CacheService(settings, clusterService, threadPool, new PersistentCache(settings, nodeEnvironment));
+    }
+
     public void testCleanUp() throws Exception {
         final List<Path> cacheFiles;
         try (CacheService cacheService = defaultCacheService()) {
@@ -7,6 +7,7 @@
 
 package org.elasticsearch.xpack.searchablesnapshots.cache.shared;
 
+import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.cluster.node.DiscoveryNodeRole;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
@@ -19,6 +20,7 @@ import org.elasticsearch.common.util.concurrent.DeterministicTaskQueue;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.core.List;
 import org.elasticsearch.core.Set;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.env.TestEnvironment;
@@ -29,13 +31,16 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
 import org.elasticsearch.xpack.searchablesnapshots.cache.common.CacheKey;
 import org.elasticsearch.xpack.searchablesnapshots.cache.shared.FrozenCacheService.CacheFileRegion;
+import org.hamcrest.Matchers.containsString;
 
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.node.Node.NODE_NAME_SETTING;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
@@ -209,6 +214,228 @@ public class FrozenCacheServiceTests extends ESTestCase {
         }
     }
 
+    public void testScanResistantAdmission() throws IOException {
+        Settings settings = Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(size(200)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(100)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_MIN_TIME_DELTA_SETTING.getKey(), TimeValue.ZERO)
+            .put(FrozenCacheService.SHARED_CACHE_ADMISSION_POLICY_SETTING.getKey(), AdmissionPolicy.TINY_LFU)
+            .put("path.home", createTempDir())
+            .build();
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        try (
+            NodeEnvironment environment = new NodeEnvironment(settings, TestEnvironment.newEnvironment(settings));
+            FrozenCacheService cacheService = new FrozenCacheService(environment, settings, taskQueue.getThreadPool())
+        ) {
+            final CacheKey hotKey = generateCacheKey();
+            final CacheFileRegion hotRegion0 = cacheService.get(hotKey, size(200), 0);
+            final CacheFileRegion hotRegion1 = cacheService.get(hotKey, size(200), 1);
+            for (int i = 0; i < 2; i++) {
+                assertSame(hotRegion0, cacheService.get(hotKey, size(200), 0));
+                assertSame(hotRegion1, cacheService.get(hotKey, size(200), 1));
+            }
+            assertEquals(0, cacheService.freeRegionCount());
+
+            // scanning a file once does not push the frequently accessed regions out of the cache
+            final CacheKey scanKey = generateCacheKey();
+            final int scannedRegions = randomIntBetween(1, 10);
+            for (int region = 0; region < scannedRegions; region++) {
+                final int scannedRegion = region;
+                expectThrows(AlreadyClosedException.class, () -> cacheService.get(scanKey, size(1000), scannedRegion));
+            }
+            assertFalse(hotRegion0.isEvicted());
+            assertFalse(hotRegion1.isEvicted());
+
+            FrozenCacheService.Stats stats = cacheService.getStats();
+            assertThat(stats.getAdmissionPolicy(), equalTo(AdmissionPolicy.TINY_LFU));
+            assertThat(stats.getHitCount(), equalTo(4L));
+            assertThat(stats.getMissCount(), equalTo(2L + scannedRegions));
+            assertThat(stats.getRejectCount(), equalTo((long) scannedRegions));
+            assertThat(stats.getEvictCount(), equalTo(0L));
+
+            // a scanned region is admitted once it is accessed more frequently than the region it evicts
+            for (int i = 0; i < 2; i++) {
+                expectThrows(AlreadyClosedException.class, () -> cacheService.get(scanKey, size(1000), 0));
+            }
+            final CacheFileRegion scannedRegion0 = cacheService.get(scanKey, size(1000), 0);
+            assertFalse(scannedRegion0.isEvicted());
+            assertTrue(hotRegion0.isEvicted());
+            assertFalse(hotRegion1.isEvicted());
+
+            stats = cacheService.getStats();
+            assertThat(stats.getRejectCount(), equalTo(scannedRegions + 2L));
+            assertThat(stats.getEvictCount(), equalTo(1L));
+        }
+    }
+
+    public void testAlwaysAdmitByDefault() throws IOException {
+        Settings settings = Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(size(100)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(100)).getStringRep())
+            .put("path.home", createTempDir())
+            .build();
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        try (
+            NodeEnvironment environment = new NodeEnvironment(settings, TestEnvironment.newEnvironment(settings));
+            FrozenCacheService cacheService = new FrozenCacheService(environment, settings, taskQueue.getThreadPool())
+        ) {
+            final CacheKey cacheKey = generateCacheKey();
+            final CacheFileRegion region0 = cacheService.get(cacheKey, size(200), 0);
+            assertSame(region0, cacheService.get(cacheKey, size(200), 0));
+            final CacheFileRegion region1 = cacheService.get(cacheKey, size(200), 1);
+            assertTrue(region0.isEvicted());
+            assertFalse(region1.isEvicted());
+
+            final FrozenCacheService.Stats stats = cacheService.getStats();
+            assertThat(stats.getAdmissionPolicy(), equalTo(AdmissionPolicy.ALWAYS));
+            assertThat(stats.getHitCount(), equalTo(1L));
+            assertThat(stats.getMissCount(), equalTo(2L));
+            assertThat(stats.getRejectCount(), equalTo(0L));
+        }
+    }
+
+    public void testUnknownAdmissionPolicyRejected() {
+        final Settings settings = Settings.builder()
+            .put(FrozenCacheService.SHARED_CACHE_ADMISSION_POLICY_SETTING.getKey(), "lru")
+            .build();
+        final IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> FrozenCacheService.SHARED_CACHE_ADMISSION_POLICY_SETTING.get(settings)
+        );
+        assertThat(e.getCause(), instanceOf(SettingsException.class));
+        assertThat(
+            e.getCause().getMessage(),
+            is(
+                "setting ["
+                    + FrozenCacheService.SHARED_CACHE_ADMISSION_POLICY_SETTING.getKey()
+                    + "] must be one of [always, tinylfu] but was [lru]"
+            )
+        );
+    }
+
+    public void testSmallRegions() throws IOException {
+        Settings settings = Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(size(500)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(100)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_SMALL_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(10)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_SMALL_REGIONS_RATIO_SETTING.getKey(), 0.2d)
+            .put("path.home", createTempDir())
+            .build();
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        try (
+            NodeEnvironment environment = new NodeEnvironment(settings, TestEnvironment.newEnvironment(settings));
+            FrozenCacheService cacheService = new FrozenCacheService(environment, settings, taskQueue.getThreadPool())
+        ) {
+            final FrozenCacheService.Stats stats = cacheService.getStats();
+            assertThat(stats.getNumberOfRegions(), equalTo(4));
+            assertThat(stats.getRegionSize(), equalTo(size(100)));
+            assertThat(stats.getNumberOfSmallRegions(), equalTo(10));
+            assertThat(stats.getSmallRegionSize(), equalTo(size(10)));
+            assertEquals(4, cacheService.freeRegionCount());
+            assertEquals(10, cacheService.freeSmallRegionCount());
+
+            // large files use regular regions
+            final CacheKey storedFields = generateCacheKey("_0.fdt");
+            final CacheFileRegion storedFieldsRegion = cacheService.get(storedFields, size(250), 2);
+            assertEquals(size(50), storedFieldsRegion.tracker.getLength());
+            assertEquals(3, cacheService.freeRegionCount());
+            assertEquals(10, cacheService.freeSmallRegionCount());
+
+            // metadata files use small regions, whatever their length
+            final CacheKey segmentInfos = generateCacheKey("_0.si");
+            final CacheFileRegion segmentInfosRegion = cacheService.get(segmentInfos, size(25), 2);
+            assertEquals(size(5), segmentInfosRegion.tracker.getLength());
+            assertEquals(3, cacheService.freeRegionCount());
+            assertEquals(9, cacheService.freeSmallRegionCount());
+            assertThat(segmentInfosRegion.physicalStartOffset(), greaterThanOrEqualTo(4 * size(100)));
+            assertEquals(size(10), segmentInfosRegion.physicalEndOffset() - segmentInfosRegion.physicalStartOffset());
+
+            // files that fit in a small region use small regions
+            final CacheKey liveDocs = generateCacheKey("_0_1.liv");
+            final CacheFileRegion liveDocsRegion = cacheService.get(liveDocs, size(10), 0);
+            assertEquals(size(10), liveDocsRegion.tracker.getLength());
+            assertEquals(3, cacheService.freeRegionCount());
+            assertEquals(8, cacheService.freeSmallRegionCount());
+
+            // filling small regions only evicts small regions
+            final CacheKey otherSegmentInfos = generateCacheKey("_1.si");
+            for (int region = 0; region < 8; region++) {
+                cacheService.get(otherSegmentInfos, size(90), region);
+            }
+            assertEquals(0, cacheService.freeSmallRegionCount());
+            assertFalse(segmentInfosRegion.isEvicted());
+            cacheService.get(otherSegmentInfos, size(90), 8);
+            assertTrue(segmentInfosRegion.isEvicted());
+            assertFalse(storedFieldsRegion.isEvicted());
+            assertEquals(3, cacheService.freeRegionCount());
+            assertEquals(0, cacheService.freeSmallRegionCount());
+        }
+    }
+
+    public void testSmallRegionSizeMustBeSmallerThanRegionSize() {
+        final Settings settings = Settings.builder()
+            .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(100)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_SMALL_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(100)).getStringRep())
+            .build();
+        final IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> FrozenCacheService.SHARED_CACHE_SMALL_REGION_SIZE_SETTING.get(settings)
+        );
+        assertThat(e.getCause(), instanceOf(SettingsException.class));
+        assertThat(
+            e.getCause().getMessage(),
+            is(
+                "setting ["
+                    + FrozenCacheService.SHARED_CACHE_SMALL_REGION_SIZE_SETTING.getKey()
+                    + "=400kb] must be smaller than ["
+                    + FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey()
+                    + "=400kb]"
+            )
+        );
+    }
+
+    public void testSmallRegionsRatioMustBeSmallerThanOne() {
+        final Settings settings = Settings.builder()
+            .put(FrozenCacheService.SHARED_CACHE_SMALL_REGIONS_RATIO_SETTING.getKey(), randomFrom(0.95d, 1.0d))
+            .build();
+        final IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> FrozenCacheService.SHARED_CACHE_SMALL_REGIONS_RATIO_SETTING.get(settings)
+        );
+        assertThat(e.getMessage(), containsString("must be <= 0.9"));
+    }
+
+    public void testSmallRegionsMustLeaveRoomForARegion() throws IOException {
+        Settings settings = Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(size(150)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(100)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_SMALL_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(10)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_SMALL_REGIONS_RATIO_SETTING.getKey(), 0.5d)
+            .put("path.home", createTempDir())
+            .build();
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        try (NodeEnvironment environment = new NodeEnvironment(settings, TestEnvironment.newEnvironment(settings))) {
+            final SettingsException e = expectThrows(
+                SettingsException.class,
+                () -> new FrozenCacheService(environment, settings, taskQueue.getThreadPool())
+            );
+            assertThat(
+                e.getMessage(),
+                is(
+                    "setting ["
+                        + FrozenCacheService.SHARED_CACHE_SMALL_REGIONS_RATIO_SETTING.getKey()
+                        + "=0.5] leaves no room for a region of ["
+                        + FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey()
+                        + "=400kb] in a shared cache of [600kb]"
+                )
+            );
+        }
+    }
+
     public void testCacheSizeDeprecatedOnNonFrozenNodes() {
         String cacheSize = randomBoolean() ? new ByteSizeValue(size(500)).getStringRep() : new RatioValue(between(1, 100)).toString();
         final Settings settings = Settings.builder()
@@ -350,11 +577,15 @@ public class FrozenCacheServiceTests extends ESTestCase {
     }
 
     private static CacheKey generateCacheKey() {
+        return generateCacheKey(randomAlphaOfLength(10));
+    }
+
+    private static CacheKey generateCacheKey(String fileName) {
         return new CacheKey(
             randomAlphaOfLength(10),
             randomAlphaOfLength(10),
             new ShardId(randomAlphaOfLength(10), randomAlphaOfLength(10), randomInt(10)),
-            randomAlphaOfLength(10)
+            fileName
         );
     }
 
@@ -0,0 +1,96 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.cache.shared;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.concurrent.CyclicBarrier;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class TinyLfuAdmissionPolicyTests extends ESTestCase {
+
+    public void testAdmitsMoreFrequentlyAccessedRegions() {
+        final TinyLfuAdmissionPolicy policy = new TinyLfuAdmissionPolicy(randomIntBetween(1, 1024));
+        final int frequent = randomInt();
+        final int infrequent = randomValueOtherThan(frequent, ESTestCase::randomInt);
+        final int accesses = randomIntBetween(2, 15);
+        for (int i = 0; i < accesses; i++) {
+            policy.onAccess(frequent);
+        }
+        policy.onAccess(infrequent);
+
+        // the sketch never underestimates frequencies
+        assertThat(policy.frequency(frequent), greaterThanOrEqualTo(accesses));
+        assertThat(policy.frequency(infrequent), greaterThanOrEqualTo(1));
+        assertTrue(policy.admit(frequent, infrequent));
+        assertFalse(policy.admit(infrequent, frequent));
+        assertFalse(policy.admit(frequent, frequent));
+    }
+
+    public void testEveryAccessIsRecorded() {
+        final TinyLfuAdmissionPolicy policy = new TinyLfuAdmissionPolicy(randomIntBetween(1, 1024));
+        final int hash = randomInt();
+        final int accesses = randomIntBetween(1, 15);
+        for (int i = 0; i < accesses; i++) {
+            policy.onAccess(hash);
+        }
+        assertThat(policy.frequency(hash), greaterThanOrEqualTo(accesses));
+    }
+
+    public void testConcurrentAccesses() throws Exception {
+        // large enough for the counters of a few regions not to collide nor to be halved
+        final TinyLfuAdmissionPolicy policy = new TinyLfuAdmissionPolicy(1 << 16);
+        final int[] hashes = new int[randomIntBetween(1, 4)];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = randomInt();
+        }
+        final Thread[] threads = new Thread[randomIntBetween(2, 8)];
+        final CyclicBarrier barrier = new CyclicBarrier(threads.length);
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                for (int i = 0; i < 15; i++) {
+                    for (int hash : hashes) {
+                        policy.onAccess(hash);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // no increment is lost, counters saturate
+        for (int hash : hashes) {
+            assertThat(policy.frequency(hash), equalTo(15));
+        }
+    }
+
+    public void testCountersAreBoundedAndAged() {
+        final TinyLfuAdmissionPolicy policy = new TinyLfuAdmissionPolicy(16);
+        final int hash = randomInt();
+        for (int i = 0; i < 100; i++) {
+            policy.onAccess(hash);
+        }
+        assertThat(policy.frequency(hash), equalTo(15));
+
+        // enough accesses to other regions to reach the sample size halve all counters
+        for (int i = 0; i < 16 * TinyLfuAdmissionPolicy.SAMPLE_SIZE_MULTIPLIER; i++) {
+            policy.onAccess(randomValueOtherThan(hash, ESTestCase::randomInt));
+        }
+        assertThat(policy.frequency(hash), greaterThanOrEqualTo(7));
+        assertThat(policy.frequency(hash), lessThan(15));
+    }
+}
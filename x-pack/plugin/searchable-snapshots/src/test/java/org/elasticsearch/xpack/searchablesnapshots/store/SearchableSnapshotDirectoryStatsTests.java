@@ -38,6 +38,7 @@ import org.elasticsearch.xpack.searchablesnapshots.AbstractSearchableSnapshotsTe
 import org.elasticsearch.xpack.searchablesnapshots.cache.common.TestUtils;
 import org.elasticsearch.xpack.searchablesnapshots.cache.common.TestUtils.NoopBlobStoreCacheService;
 import org.elasticsearch.xpack.searchablesnapshots.cache.full.CacheService;
+import org.elasticsearch.xpack.searchablesnapshots.cache.full.PersistentCache;
 import org.elasticsearch.xpack.searchablesnapshots.cache.shared.FrozenCacheService;
 import org.elasticsearch.xpack.searchablesnapshots.cache.shared.SharedBytes;
 import org.elasticsearch.xpack.searchablesnapshots.recovery.SearchableSnapshotRecoveryState;
@@ -52,6 +53,7 @@ import java.util.function.LongSupplier;
 
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_ENABLED_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_UNCACHED_CHUNK_SIZE_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshotsUtils.toIntBytes;
 import static org.elasticsearch.xpack.searchablesnapshots.cache.common.TestUtils.assertCounter;
@@ -62,6 +64,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -200,6 +203,7 @@ public class SearchableSnapshotDirectoryStatsTests extends AbstractSearchableSna
                 .put(SNAPSHOT_CACHE_ENABLED_SETTING.getKey(), true)
                 .put(SearchableSnapshotsSettings.SNAPSHOT_PARTIAL_SETTING.getKey(), true)
                 .build(),
+            randomIntBetween(10, MAX_FILE_LENGTH),
             (fileName, fileContent, directory) -> {
                 assertThat(directory.getStats(fileName), nullValue());
 
@@ -214,14 +218,6 @@ public class SearchableSnapshotDirectoryStatsTests extends AbstractSearchableSna
                     }
                     final IndexInputStats inputStats = directory.getStats(fileName);
 
-                    // account for internal buffered reads
-                    final long bufferSize = BufferedIndexInput.bufferSize(ioContext);
-                    final long remaining = input.length() % bufferSize;
-                    final long expectedTotal = input.length();
-                    final long expectedCount = input.length() / bufferSize + (remaining > 0L ? 1L : 0L);
-                    final long minRead = remaining > 0L ? remaining : bufferSize;
-                    final long maxRead = Math.min(input.length(), bufferSize);
-
                     // read all index input sequentially as it simplifies testing
                     final byte[] readBuffer = new byte[512];
                     for (long i = 0L; i < input.length();) {
@@ -229,14 +225,10 @@ public class SearchableSnapshotDirectoryStatsTests extends AbstractSearchableSna
                         input.readBytes(readBuffer, 0, size);
                         i += size;
 
-                        // direct cache file reads are aligned with the internal buffer
-                        long currentCount = i / bufferSize + (i % bufferSize > 0L ? 1L : 0L);
-                        if (currentCount < expectedCount) {
-                            assertCounter(inputStats.getDirectBytesRead(), currentCount * bufferSize, currentCount, bufferSize, bufferSize);
-                        } else {
-                            assertCounter(inputStats.getDirectBytesRead(), expectedTotal, expectedCount, minRead, maxRead);
-                        }
-                        assertThat(inputStats.getDirectBytesRead().totalNanoseconds(), equalTo(currentCount * FAKE_CLOCK_ADVANCE_NANOS));
+                        // the first direct read fetches the whole file, which is smaller than the minimum size of direct reads, and the
+                        // next reads use the fetched bytes
+                        assertCounter(inputStats.getDirectBytesRead(), input.length(), 1L, input.length(), input.length());
+                        assertThat(inputStats.getDirectBytesRead().totalNanoseconds(), equalTo(FAKE_CLOCK_ADVANCE_NANOS));
                     }
 
                     // cache file has never been written nor read
@@ -547,6 +539,67 @@ public class SearchableSnapshotDirectoryStatsTests extends AbstractSearchableSna
         });
     }
 
+    public void testReadAhead() throws Exception {
+        // small ranges, also used during recovery, so that the file spans multiple ranges
+        final ByteSizeValue rangeSize = new ByteSizeValue(SharedBytes.PAGE_SIZE, ByteSizeUnit.BYTES);
+        final int readAheadRanges = randomIntBetween(1, 3);
+
+        executeTestCase(
+            new CacheService(
+                Settings.builder()
+                    .put(CacheService.SNAPSHOT_CACHE_RANGE_SIZE_SETTING.getKey(), rangeSize)
+                    .put(CacheService.SNAPSHOT_CACHE_RECOVERY_RANGE_SIZE_SETTING.getKey(), rangeSize)
+                    .build(),
+                clusterService,
+                threadPool,
+                new PersistentCache(nodeEnvironment)
+            ),
+            new FrozenCacheService(
+                singlePathNodeEnvironment,
+                Settings.builder()
+                    .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), ByteSizeValue.ofMb(10))
+                    .put(FrozenCacheService.SHARED_CACHE_RANGE_SIZE_SETTING.getKey(), rangeSize)
+                    .put(FrozenCacheService.SHARED_CACHE_RECOVERY_RANGE_SIZE_SETTING.getKey(), rangeSize)
+                    .build(),
+                threadPool
+            ),
+            Settings.builder()
+                .put(SNAPSHOT_CACHE_ENABLED_SETTING.getKey(), true)
+                .put(SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING.getKey(), false) // disable prewarming as it impacts the stats
+                .put(SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING.getKey(), readAheadRanges)
+                .put(SearchableSnapshotsSettings.SNAPSHOT_PARTIAL_SETTING.getKey(), randomBoolean())
+                .build(),
+            randomIntBetween(toIntBytes(rangeSize.getBytes()) * 2, MAX_FILE_LENGTH),
+            (fileName, fileContent, directory) -> {
+                try (IndexInput input = directory.openInput(fileName, IOContext.DEFAULT)) {
+                    final IndexInputStats inputStats = directory.getStats(fileName);
+                    assertThat(inputStats, notNullValue());
+
+                    // small sequential reads, like a doc values scan would do
+                    final byte[] result = new byte[fileContent.length];
+                    int position = 0;
+                    while (position < result.length) {
+                        final int len = Math.min(randomIntBetween(1, 512), result.length - position);
+                        input.readBytes(result, position, len);
+                        position += len;
+                    }
+                    assertArrayEquals(fileContent, result);
+
+                    final IndexInputStats.Counter requested = inputStats.getReadAheadBytesRequested();
+                    final long numberOfRanges = TestUtils.numberOfRanges(result.length, rangeSize.getBytes());
+                    assertThat(requested.count(), allOf(greaterThan(0L), lessThan(numberOfRanges)));
+                    assertThat(requested.total(), lessThan((long) result.length));
+                    assertThat(requested.max(), lessThanOrEqualTo(rangeSize.getBytes()));
+
+                    final IndexInputStats.Counter hits = inputStats.getReadAheadBytesHit();
+                    assertThat(hits.total(), allOf(greaterThan(0L), lessThanOrEqualTo(requested.total())));
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        );
+    }
+
     private void executeTestCase(final TriConsumer<String, byte[], SearchableSnapshotDirectory> test) throws Exception {
         executeTestCase(
             randomCacheService(),
@@ -556,6 +609,7 @@ public class SearchableSnapshotDirectoryStatsTests extends AbstractSearchableSna
                 .put(SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING.getKey(), false) // disable prewarming as it impacts the stats
                 .put(SearchableSnapshotsSettings.SNAPSHOT_PARTIAL_SETTING.getKey(), randomBoolean())
                 .build(),
+            randomIntBetween(10, MAX_FILE_LENGTH),
             test
         );
     }
@@ -572,6 +626,7 @@ public class SearchableSnapshotDirectoryStatsTests extends AbstractSearchableSna
                 .put(SNAPSHOT_CACHE_ENABLED_SETTING.getKey(), false)
                 .put(SearchableSnapshotsSettings.SNAPSHOT_PARTIAL_SETTING.getKey(), randomBoolean())
                 .build(),
+            randomIntBetween(10, MAX_FILE_LENGTH),
             test
         );
     }
@@ -588,6 +643,7 @@ public class SearchableSnapshotDirectoryStatsTests extends AbstractSearchableSna
                 .put(SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING.getKey(), false) // disable prewarming as it impacts the stats
                 .put(SearchableSnapshotsSettings.SNAPSHOT_PARTIAL_SETTING.getKey(), randomBoolean())
                 .build(),
+            randomIntBetween(10, MAX_FILE_LENGTH),
             test
         );
     }
@@ -605,6 +661,7 @@ public class SearchableSnapshotDirectoryStatsTests extends AbstractSearchableSna
                 .put(SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING.getKey(), false) // disable prewarming as it impacts the stats
                 .put(SearchableSnapshotsSettings.SNAPSHOT_PARTIAL_SETTING.getKey(), randomBoolean())
                 .build(),
+            randomIntBetween(10, MAX_FILE_LENGTH),
             test
         );
     }
@@ -613,6 +670,7 @@ public class SearchableSnapshotDirectoryStatsTests extends AbstractSearchableSna
         final CacheService cacheService,
         final FrozenCacheService frozenCacheService,
         final Settings indexSettings,
+        final int fileLength,
         final TriConsumer<String, byte[], SearchableSnapshotDirectory> test
     ) throws Exception {
 
@@ -623,7 +681,7 @@ public class SearchableSnapshotDirectoryStatsTests extends AbstractSearchableSna
             fileName = randomAlphaOfLength(10) + randomFileExtension();
         }
 
-        final byte[] fileContent = randomByteArrayOfLength(randomIntBetween(10, MAX_FILE_LENGTH));
+        final byte[] fileContent = randomByteArrayOfLength(fileLength);
         final SnapshotId snapshotId = new SnapshotId("_name", "_uuid");
         final IndexId indexId = new IndexId("_name", "_uuid");
         final ShardId shardId = new ShardId("_name", "_uuid", 0);
@@ -39,6 +39,11 @@ import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.RepositoryMetadata;
@@ -89,6 +94,8 @@ import org.elasticsearch.test.DummyShardLock;
 import org.elasticsearch.test.IndexSettingsModule;
 import org.elasticsearch.xcontent.NamedXContentRegistry;
 import org.elasticsearch.xpack.searchablesnapshots.AbstractSearchableSnapshotsTestCase;
+import org.elasticsearch.xpack.searchablesnapshots.cache.blob.CachedBlob;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
 import org.elasticsearch.xpack.searchablesnapshots.cache.common.TestUtils;
 import org.elasticsearch.xpack.searchablesnapshots.cache.full.CacheService;
 import org.elasticsearch.xpack.searchablesnapshots.cache.shared.FrozenCacheService;
@@ -118,11 +125,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_BLOB_CACHE_PRELOAD_ENABLED_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_ENABLED_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING;
@@ -802,6 +811,121 @@ public class SearchableSnapshotDirectoryTests extends AbstractSearchableSnapshot
         }
     }
 
+    public void testPreloadedCachedBlobs() throws Exception {
+        try (CacheService cacheService = defaultCacheService()) {
+            cacheService.start();
+
+            final int nbRandomFiles = randomIntBetween(1, 10);
+            final List<BlobStoreIndexShardSnapshot.FileInfo> randomFiles = new ArrayList<>(nbRandomFiles);
+            for (int i = 0; i < nbRandomFiles; i++) {
+                final String fileName = "_" + i + randomFileExtension();
+                final int length = randomIntBetween(1, 100_000);
+                randomFiles.add(
+                    new BlobStoreIndexShardSnapshot.FileInfo(
+                        randomAlphaOfLength(15),
+                        new StoreFileMetadata(fileName, length, "_checksum", Version.CURRENT.luceneVersion.toString()),
+                        new ByteSizeValue(length)
+                    )
+                );
+            }
+            final BlobStoreIndexShardSnapshot snapshot = new BlobStoreIndexShardSnapshot("_snapshot", 0L, randomFiles, 0L, 0L, 0, 0L);
+            // the blobs of the files are never read
+            final Path shardSnapshotDir = createTempDir();
+            final BlobContainer blobContainer = new FsBlobContainer(
+                new FsBlobStore(1024, shardSnapshotDir, true),
+                BlobPath.EMPTY,
+                shardSnapshotDir
+            );
+
+            final SnapshotId snapshotId = new SnapshotId("_name", "_uuid");
+            final IndexId indexId = new IndexId("_id", "_uuid");
+            final ShardId shardId = new ShardId(new Index("_name", "_id"), 0);
+            final Path shardDir = randomShardPath(shardId);
+            final ShardPath shardPath = new ShardPath(false, shardDir, shardDir, shardId);
+            final Path cacheDir = Files.createDirectories(resolveSnapshotCache(shardDir).resolve(snapshotId.getUUID()));
+
+            final AtomicInteger gets = new AtomicInteger();
+            final PlainActionFuture<Void> multiGetsAllowed = PlainActionFuture.newFuture();
+            final AtomicInteger multiGets = new AtomicInteger();
+            final TestUtils.SimpleBlobStoreCacheService blobStoreCacheService = new TestUtils.SimpleBlobStoreCacheService() {
+                @Override
+                protected void innerGet(GetRequest request, ActionListener<GetResponse> listener) {
+                    gets.incrementAndGet();
+                    super.innerGet(request, listener);
+                }
+
+                @Override
+                protected void innerMultiGet(MultiGetRequest request, ActionListener<MultiGetResponse> listener) {
+                    multiGetsAllowed.addListener(ActionListener.wrap(() -> {
+                        super.innerMultiGet(request, listener);
+                        multiGets.incrementAndGet();
+                    }));
+                }
+            };
+            blobStoreCacheService.start();
+
+            final FrozenCacheService frozenCacheService = defaultFrozenCacheService();
+            try (
+                SearchableSnapshotDirectory directory = new SearchableSnapshotDirectory(
+                    () -> blobContainer,
+                    () -> snapshot,
+                    blobStoreCacheService,
+                    "_repo",
+                    snapshotId,
+                    indexId,
+                    shardId,
+                    Settings.builder()
+                        .put(SNAPSHOT_CACHE_ENABLED_SETTING.getKey(), true)
+                        .put(SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING.getKey(), false)
+                        .put(SNAPSHOT_BLOB_CACHE_PRELOAD_ENABLED_SETTING.getKey(), true)
+                        .build(),
+                    () -> 0L,
+                    cacheService,
+                    cacheDir,
+                    shardPath,
+                    threadPool,
+                    frozenCacheService
+                )
+            ) {
+                final PlainActionFuture<Void> f = PlainActionFuture.newFuture();
+                // loading the snapshot does not wait for the cached blobs to be preloaded
+                assertThat("Failed to load snapshot", directory.loadSnapshot(createRecoveryState(randomBoolean()), f), is(true));
+                f.get();
+
+                // files opened before their cached blob is preloaded retrieve it on their own
+                final BlobStoreIndexShardSnapshot.FileInfo earlyFile = randomFrom(randomFiles);
+                final ByteRange earlyRange = directory.getBlobCacheByteRange(earlyFile.physicalName(), earlyFile.length());
+                assertThat(directory.getCachedBlob(earlyFile.physicalName(), earlyRange), equalTo(CachedBlob.CACHE_MISS));
+                assertThat(gets.get(), equalTo(1));
+
+                multiGetsAllowed.onResponse(null);
+                assertBusy(() -> assertThat(multiGets.get(), equalTo(1)));
+
+                for (BlobStoreIndexShardSnapshot.FileInfo file : randomFiles) {
+                    final ByteRange range = directory.getBlobCacheByteRange(file.physicalName(), file.length());
+                    final int expectedGets = gets.get();
+                    if (randomBoolean()) {
+                        // a preloaded cached blob is only used for the range it was retrieved for
+                        final ByteRange otherRange = ByteRange.of(range.start(), range.end() + 1L);
+                        assertThat(directory.getCachedBlob(file.physicalName(), otherRange), equalTo(CachedBlob.CACHE_MISS));
+                        assertThat(gets.get(), equalTo(expectedGets + 1));
+                    }
+                    final int getsBefore = gets.get();
+                    assertThat(directory.getCachedBlob(file.physicalName(), range), equalTo(CachedBlob.CACHE_MISS));
+                    assertThat("preloaded cached blob must be used", gets.get(), equalTo(getsBefore));
+
+                    // preloaded cached blobs are only used once, then the cached blob is retrieved on its own again
+                    assertThat(directory.getCachedBlob(file.physicalName(), range), equalTo(CachedBlob.CACHE_MISS));
+                    assertThat(gets.get(), equalTo(getsBefore + 1));
+                }
+            } finally {
+                frozenCacheService.close();
+                blobStoreCacheService.stop();
+                assertThreadPoolNotBusy(threadPool);
+            }
+        }
+    }
+
     public void testRequiresAdditionalSettings() {
         final List<Setting<String>> requiredSettings = org.elasticsearch.core.List.of(
             SNAPSHOT_REPOSITORY_NAME_SETTING,
@@ -32,6 +32,7 @@ import org.elasticsearch.common.settings.SecureString;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.indices.IndicesRequestCache;
@@ -40,12 +41,18 @@ import org.elasticsearch.join.ParentJoinPlugin;
 import org.elasticsearch.percolator.PercolateQueryBuilder;
 import org.elasticsearch.percolator.PercolatorPlugin;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.plugins.ScriptPlugin;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.script.LongFieldScript;
+import org.elasticsearch.script.ScriptContext;
+import org.elasticsearch.script.ScriptEngine;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.Max;
 import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
+import org.elasticsearch.search.lookup.SearchLookup;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.ESIntegTestCase;
 import org.elasticsearch.test.InternalSettingsPlugin;
@@ -66,6 +73,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.elasticsearch.action.support.WriteRequest.RefreshPolicy.IMMEDIATE;
 import static org.elasticsearch.index.query.QueryBuilders.constantScoreQuery;
@@ -91,6 +99,56 @@ public class FieldLevelSecurityTests extends SecurityIntegTestCase {
 
     protected static final SecureString USERS_PASSWD = SecuritySettingsSourceField.TEST_PASSWORD_SECURE_STRING;
 
+    /**
+     * Provides the {@code sum_fields} runtime field script, which sums up the values of {@code field1} and {@code field2}
+     * that it finds in the source.
+     */
+    public static class SumFieldsScriptPlugin extends Plugin implements ScriptPlugin {
+        @Override
+        public ScriptEngine getScriptEngine(Settings settings, Collection<ScriptContext<?>> contexts) {
+            return new ScriptEngine() {
+                @Override
+                public String getType() {
+                    return "test";
+                }
+
+                @Override
+                public <T> T compile(String name, String code, ScriptContext<T> context, Map<String, String> params) {
+                    assert code.equals("sum_fields");
+                    assert context == LongFieldScript.CONTEXT;
+                    LongFieldScript.Factory factory = new LongFieldScript.Factory() {
+                        @Override
+                        public LongFieldScript.LeafFactory newFactory(String field, Map<String, Object> p, SearchLookup lookup) {
+                            return ctx -> new LongFieldScript(field, p, lookup, ctx) {
+                                @Override
+                                public void execute() {
+                                    long sum = 0;
+                                    for (String path : Arrays.asList("field1", "field2")) {
+                                        for (Object value : extractFromSource(path)) {
+                                            sum += ((Number) value).longValue();
+                                        }
+                                    }
+                                    emit(sum);
+                                }
+                            };
+                        }
+
+                        @Override
+                        public boolean isResultDeterministic() {
+                            return true;
+                        }
+                    };
+                    return context.factoryClazz.cast(factory);
+                }
+
+                @Override
+                public Set<ScriptContext<?>> getSupportedContexts() {
+                    return Collections.singleton(LongFieldScript.CONTEXT);
+                }
+            };
+        }
+    }
+
     @Override
     protected Collection<Class<? extends Plugin>> nodePlugins() {
         return Arrays.asList(
@@ -99,7 +157,8 @@ public class FieldLevelSecurityTests extends SecurityIntegTestCase {
             ParentJoinPlugin.class,
             InternalSettingsPlugin.class,
             PercolatorPlugin.class,
-            SpatialPlugin.class
+            SpatialPlugin.class,
+            SumFieldsScriptPlugin.class
         );
     }
 
@@ -115,6 +174,7 @@ public class FieldLevelSecurityTests extends SecurityIntegTestCase {
         transportPlugins.addAll(nodePlugins());
         // the SpatialPlugin cannot be bind with guice on a client because the plugin itself has a dependency back on a client
         transportPlugins.remove(SpatialPlugin.class);
+        transportPlugins.remove(SumFieldsScriptPlugin.class);
         return transportPlugins;
     }
 
@@ -1637,6 +1697,52 @@ public class FieldLevelSecurityTests extends SecurityIntegTestCase {
         assertThat(((Terms) response.getAggregations().get("_name")).getBucketByKey("value1"), nullValue());
     }
 
+    public void testCachedRuntimeFieldValues() throws Exception {
+        XContentBuilder mapping = XContentFactory.jsonBuilder()
+            .startObject()
+            .startObject("runtime")
+            .startObject("sum")
+            .field("type", "long")
+            .startObject("script")
+            .field("source", "sum_fields")
+            .field("lang", "test")
+            .endObject()
+            .endObject()
+            .endObject()
+            .startObject("properties")
+            .startObject("field1")
+            .field("type", "long")
+            .endObject()
+            .startObject("field2")
+            .field("type", "long")
+            .endObject()
+            .endObject()
+            .endObject();
+        assertAcked(
+            client().admin()
+                .indices()
+                .prepareCreate("test")
+                .setSettings(Settings.builder().put(IndexFieldDataService.INDEX_FIELDDATA_CACHE_RUNTIME_FIELDS.getKey(), true))
+                .addMapping("_doc", mapping)
+        );
+        client().prepareIndex("test", "_doc", "1").setSource("field1", 1, "field2", 2).setRefreshPolicy(IMMEDIATE).get();
+
+        // the values of the runtime field are cached for the segment, but users that see different fields must still see
+        // the values that the script computes from the fields that they are allowed to see
+        Map<String, Double> expectedSums = new HashMap<>();
+        expectedSums.put("user1", 1.0);
+        expectedSums.put("user2", 2.0);
+        expectedSums.put("user5", 3.0);
+        for (int i = 0; i < 10; i++) {
+            String user = randomFrom(expectedSums.keySet());
+            SearchResponse response = client().filterWithHeader(
+                Collections.singletonMap(BASIC_AUTH_HEADER, basicAuthHeaderValue(user, USERS_PASSWD))
+            ).prepareSearch("test").setSize(0).addAggregation(AggregationBuilders.max("max_sum").field("sum")).get();
+            assertHitCount(response, 1);
+            assertThat(user, ((Max) response.getAggregations().get("max_sum")).getValue(), equalTo(expectedSums.get(user)));
+        }
+    }
+
     public void testTVApi() throws Exception {
         assertAcked(
             client().admin()
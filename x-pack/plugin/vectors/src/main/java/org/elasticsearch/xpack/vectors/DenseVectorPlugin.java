@@ -11,15 +11,18 @@ import org.elasticsearch.common.inject.Module;
 import org.elasticsearch.index.mapper.Mapper;
 import org.elasticsearch.plugins.MapperPlugin;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.plugins.SearchPlugin;
 import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper;
 import org.elasticsearch.xpack.vectors.mapper.SparseVectorFieldMapper;
+import org.elasticsearch.xpack.vectors.query.KnnQueryBuilder;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-public class DenseVectorPlugin extends Plugin implements MapperPlugin {
+public class DenseVectorPlugin extends Plugin implements MapperPlugin, SearchPlugin {
 
     public DenseVectorPlugin() {}
 
@@ -34,4 +37,9 @@ public class DenseVectorPlugin extends Plugin implements MapperPlugin {
         mappers.put(SparseVectorFieldMapper.CONTENT_TYPE, SparseVectorFieldMapper.PARSER);
         return Collections.unmodifiableMap(mappers);
     }
+
+    @Override
+    public List<QuerySpec<?>> getQueries() {
+        return Collections.singletonList(new QuerySpec<>(KnnQueryBuilder.NAME, KnnQueryBuilder::new, KnnQueryBuilder::fromXContent));
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+
+/**
+ * Binary doc values that carry additional vector data structures of a segment next to the values, which are found by
+ * walking the chain of wrapped doc values, since vector formats can wrap each other.
+ */
+abstract class FilterVectorsBinaryDocValues extends BinaryDocValues {
+
+    protected final BinaryDocValues in;
+
+    FilterVectorsBinaryDocValues(BinaryDocValues in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns the first doc values of the provided type in the chain starting at {@code values}, or {@code null}.
+     */
+    static <T extends FilterVectorsBinaryDocValues> T unwrap(BinaryDocValues values, Class<T> type) {
+        while (values instanceof FilterVectorsBinaryDocValues) {
+            if (type.isInstance(values)) {
+                return type.cast(values);
+            }
+            values = ((FilterVectorsBinaryDocValues) values).in;
+        }
+        return null;
+    }
+
+    @Override
+    public BytesRef binaryValue() throws IOException {
+        return in.binaryValue();
+    }
+
+    @Override
+    public boolean advanceExact(int target) throws IOException {
+        return in.advanceExact(target);
+    }
+
+    @Override
+    public int docID() {
+        return in.docID();
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+        return in.nextDoc();
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+        return in.advance(target);
+    }
+
+    @Override
+    public long cost() {
+        return in.cost();
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RandomAccessInput;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+
+/**
+ * A hierarchical navigable small world graph (see <a href="https://arxiv.org/abs/1603.09320">Malkov and Yashunin</a>)
+ * over the vectors of a segment. Nodes are vector ordinals. Every node is on level 0 and each level above holds a
+ * random subset of the nodes of the level below, so that searches can quickly get close to the query on the sparse
+ * upper levels before exploring the dense bottom level. The graph is built on heap by {@link HnswGraphBuilder} when
+ * segments are written, and read from the data file without loading it on heap when they are opened: the neighbors of
+ * every node of a level are stored in a slot of a fixed size so that they can be read at random.
+ */
+public final class HnswGraph implements Accountable {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(HnswGraph.class);
+
+    private final Level[] levels;
+    private final int entryNode;
+
+    HnswGraph(Level[] levels, int entryNode) {
+        this.levels = levels;
+        this.entryNode = entryNode;
+    }
+
+    /**
+     * A graph whose neighbors are held on heap, {@code neighbors[level][node]} being the neighbors of the node on the
+     * level or {@code null} if the node isn't on that level.
+     */
+    static HnswGraph onHeap(int[][][] neighbors, int entryNode) {
+        Level[] levels = new Level[neighbors.length];
+        for (int level = 0; level < neighbors.length; level++) {
+            levels[level] = new OnHeapLevel(neighbors[level]);
+        }
+        return new HnswGraph(levels, entryNode);
+    }
+
+    int numLevels() {
+        return levels.length;
+    }
+
+    /**
+     * Returns the nodes that are the most similar to the query, at most {@code topK} of them and only among the nodes
+     * that {@code acceptOrds} accepts, as a min-heap whose top is the least similar node.
+     */
+    NeighborQueue search(
+        float[] query,
+        int topK,
+        RandomAccessVectors vectors,
+        VectorSimilarity similarity,
+        @Nullable Bits acceptOrds
+    ) throws IOException {
+        if (numLevels() == 0) {
+            return new NeighborQueue(1, false);
+        }
+        VisitedNodes visited = new VisitedNodes(vectors.size());
+        int[] entryNodes = new int[] { entryNode };
+        int visitedCount = 0;
+        for (int level = numLevels() - 1; level > 0; level--) {
+            NeighborQueue closest = searchLevel(query, entryNodes, 1, levels[level], vectors, similarity, null, visited);
+            visitedCount += closest.visitedCount();
+            entryNodes[0] = closest.topNode();
+            visited.clear();
+        }
+        NeighborQueue results = searchLevel(query, entryNodes, topK, levels[0], vectors, similarity, acceptOrds, visited);
+        results.setVisitedCount(visitedCount + results.visitedCount());
+        return results;
+    }
+
+    /**
+     * Greedily explores a single level of a graph from the provided entry nodes and returns the {@code topK} most
+     * similar nodes that it found, as a min-heap. Nodes that {@code acceptOrds} rejects are explored but not returned.
+     *
+     * @param level the neighbors of the nodes of the level
+     */
+    static NeighborQueue searchLevel(
+        float[] query,
+        int[] entryNodes,
+        int topK,
+        Level level,
+        RandomAccessVectors vectors,
+        VectorSimilarity similarity,
+        @Nullable Bits acceptOrds,
+        VisitedNodes visited
+    ) throws IOException {
+        NeighborQueue results = new NeighborQueue(topK, false);
+        NeighborQueue candidates = new NeighborQueue(topK, true);
+        for (int node : entryNodes) {
+            if (visited.visit(node)) {
+                float score = similarity.score(query, vectors.vectorValue(node));
+                candidates.add(node, score);
+                if (acceptOrds == null || acceptOrds.get(node)) {
+                    results.insertWithOverflow(node, score, topK);
+                }
+            }
+        }
+        // once the results are full, nodes must be more similar than the least similar result to be worth exploring
+        float minScore = results.size() >= topK ? results.topScore() : Float.NEGATIVE_INFINITY;
+        while (candidates.size() > 0 && candidates.topScore() >= minScore) {
+            int candidate = candidates.pop();
+            int numNeighbors = level.seek(candidate);
+            for (int i = 0; i < numNeighbors; i++) {
+                int neighbor = level.neighbor(i);
+                if (visited.visit(neighbor) == false) {
+                    continue;
+                }
+                float score = similarity.score(query, vectors.vectorValue(neighbor));
+                if (score < minScore) {
+                    continue;
+                }
+                candidates.add(neighbor, score);
+                if ((acceptOrds == null || acceptOrds.get(neighbor))
+                    && results.insertWithOverflow(neighbor, score, topK)
+                    && results.size() >= topK) {
+                    minScore = results.topScore();
+                }
+            }
+        }
+        results.setVisitedCount(visited.count());
+        return results;
+    }
+
+    /**
+     * Writes the neighbors of the nodes of this graph, which must be held on heap, to {@code data} and what is needed to
+     * read them back to {@code meta}.
+     *
+     * @param maxConn the maximum number of neighbors of a node on the levels above 0, twice as many on level 0
+     */
+    void writeTo(DataOutput meta, IndexOutput data, int maxConn) throws IOException {
+        meta.writeVInt(levels.length);
+        if (levels.length == 0) {
+            return;
+        }
+        meta.writeVInt(entryNode);
+        for (int level = 0; level < levels.length; level++) {
+            final int[][] neighbors = ((OnHeapLevel) levels[level]).neighbors;
+            final int slotSize = 1 + (level == 0 ? maxConn * 2 : maxConn);
+            int nodeCount = 0;
+            for (int[] nodeNeighbors : neighbors) {
+                if (nodeNeighbors != null) {
+                    nodeCount++;
+                }
+            }
+            meta.writeVInt(nodeCount);
+            meta.writeVInt(slotSize);
+            // every node is on level 0, the nodes of the levels above are looked up by binary search
+            if (level > 0) {
+                meta.writeVLong(data.getFilePointer());
+                for (int node = 0; node < neighbors.length; node++) {
+                    if (neighbors[node] != null) {
+                        data.writeInt(node);
+                    }
+                }
+            }
+            meta.writeVLong(data.getFilePointer());
+            for (int[] nodeNeighbors : neighbors) {
+                if (nodeNeighbors == null) {
+                    continue;
+                }
+                assert nodeNeighbors.length < slotSize;
+                data.writeInt(nodeNeighbors.length);
+                for (int i = 0; i < slotSize - 1; i++) {
+                    data.writeInt(i < nodeNeighbors.length ? nodeNeighbors[i] : -1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads what is needed to read a graph that was written with {@link #writeTo}. The neighbors are read from the data
+     * file by the copies that {@link #withData} returns.
+     */
+    static HnswGraph readFrom(DataInput meta, int numNodes) throws IOException {
+        final int numLevels = meta.readVInt();
+        final Level[] levels = new Level[numLevels];
+        if (numLevels == 0) {
+            return new HnswGraph(levels, -1);
+        }
+        final int entryNode = meta.readVInt();
+        for (int level = 0; level < numLevels; level++) {
+            final int nodeCount = meta.readVInt();
+            final int slotSize = meta.readVInt();
+            final long nodesOffset = level > 0 ? meta.readVLong() : -1L;
+            final long neighborsOffset = meta.readVLong();
+            if (level == 0 && nodeCount != numNodes) {
+                throw new IOException("level 0 of the graph has [" + nodeCount + "] nodes instead of [" + numNodes + "]");
+            }
+            levels[level] = new OffHeapLevel(null, nodesOffset, nodeCount, neighborsOffset, slotSize);
+        }
+        return new HnswGraph(levels, entryNode);
+    }
+
+    /**
+     * Returns a copy of this graph, which must have been read with {@link #readFrom}, that reads its neighbors from the
+     * data file for use by a single thread.
+     */
+    HnswGraph withData(RandomAccessInput data) {
+        final Level[] copy = new Level[levels.length];
+        for (int level = 0; level < levels.length; level++) {
+            copy[level] = ((OffHeapLevel) levels[level]).withData(data);
+        }
+        return new HnswGraph(copy, entryNode);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(levels);
+        for (Level level : levels) {
+            ramBytesUsed += level.ramBytesUsed();
+        }
+        return ramBytesUsed;
+    }
+
+    /**
+     * The neighbors of the nodes of a level of the graph.
+     */
+    abstract static class Level implements Accountable {
+
+        /**
+         * Moves to the neighbors of the node and returns how many there are.
+         */
+        abstract int seek(int node) throws IOException;
+
+        /**
+         * Returns the neighbor at the provided index of the node that {@link #seek} moved to.
+         */
+        abstract int neighbor(int index) throws IOException;
+    }
+
+    /**
+     * A level whose neighbors are held on heap while the graph is built.
+     */
+    static final class OnHeapLevel extends Level {
+
+        private final int[][] neighbors;
+        private int[] current;
+
+        OnHeapLevel(int[][] neighbors) {
+            this.neighbors = neighbors;
+        }
+
+        @Override
+        int seek(int node) {
+            current = neighbors[node];
+            return current.length;
+        }
+
+        @Override
+        int neighbor(int index) {
+            return current[index];
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            long ramBytesUsed = RamUsageEstimator.shallowSizeOf(neighbors);
+            for (int[] nodeNeighbors : neighbors) {
+                if (nodeNeighbors != null) {
+                    ramBytesUsed += RamUsageEstimator.sizeOf(nodeNeighbors);
+                }
+            }
+            return ramBytesUsed;
+        }
+    }
+
+    /**
+     * A level whose neighbors are read from the data file. Each node of the level has a slot of {@code slotSize} ints
+     * holding the number of its neighbors followed by the neighbors.
+     */
+    private static final class OffHeapLevel extends Level {
+
+        private static final long RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(OffHeapLevel.class);
+
+        private final RandomAccessInput data;
+        // the sorted nodes of the level, -1 on level 0 that has all nodes
+        private final long nodesOffset;
+        private final int nodeCount;
+        private final long neighborsOffset;
+        private final int slotSize;
+        private long currentSlot;
+
+        OffHeapLevel(RandomAccessInput data, long nodesOffset, int nodeCount, long neighborsOffset, int slotSize) {
+            this.data = data;
+            this.nodesOffset = nodesOffset;
+            this.nodeCount = nodeCount;
+            this.neighborsOffset = neighborsOffset;
+            this.slotSize = slotSize;
+        }
+
+        OffHeapLevel withData(RandomAccessInput data) {
+            return new OffHeapLevel(data, nodesOffset, nodeCount, neighborsOffset, slotSize);
+        }
+
+        @Override
+        int seek(int node) throws IOException {
+            final int index = nodesOffset == -1L ? node : indexOf(node);
+            currentSlot = neighborsOffset + (long) index * slotSize * Integer.BYTES;
+            return data.readInt(currentSlot);
+        }
+
+        private int indexOf(int node) throws IOException {
+            int low = 0;
+            int high = nodeCount - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final int midNode = data.readInt(nodesOffset + (long) mid * Integer.BYTES);
+                if (midNode < node) {
+                    low = mid + 1;
+                } else if (midNode > node) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            throw new IllegalStateException("node [" + node + "] isn't on the level");
+        }
+
+        @Override
+        int neighbor(int index) throws IOException {
+            return data.readInt(currentSlot + (long) (index + 1) * Integer.BYTES);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return RAM_BYTES_USED;
+        }
+    }
+}
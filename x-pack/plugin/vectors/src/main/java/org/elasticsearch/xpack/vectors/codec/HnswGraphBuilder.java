@@ -0,0 +1,197 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Builds a {@link HnswGraph} by inserting vectors one at a time in ordinal order. Every node is assigned a random top
+ * level, with exponentially fewer nodes on higher levels. On each level from its top level down, the node is linked
+ * to a diverse subset of the {@code efConstruction} most similar nodes found by a search of the level, and these
+ * nodes are linked back to it, dropping their least similar neighbor when they exceed the maximum number of
+ * connections.
+ */
+final class HnswGraphBuilder {
+
+    // a fixed seed makes graphs reproducible
+    private static final long SEED = 42L;
+    private static final int[] NO_NEIGHBORS = new int[0];
+    private static final float[] NO_SCORES = new float[0];
+
+    private final RandomAccessVectors vectors;
+    private final RandomAccessVectors otherVectors;
+    private final VectorSimilarity similarity;
+    private final int maxConn;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(SEED);
+    private final VisitedNodes visited;
+    private final float[] query;
+
+    // neighbors[level][node] and scores[level][node] are the neighbors of the node on the level and their similarity
+    private int[][][] neighbors = new int[0][][];
+    private float[][][] scores = new float[0][][];
+    private int entryNode = -1;
+
+    /**
+     * @param vectors the vectors to build the graph of
+     * @param otherVectors another reader of the same vectors, to compare two vectors of the graph with each other
+     * @param maxConn the maximum number of neighbors of a node on the levels above 0, twice as many on level 0
+     * @param efConstruction the number of similar nodes to select neighbors from
+     */
+    HnswGraphBuilder(
+        RandomAccessVectors vectors,
+        RandomAccessVectors otherVectors,
+        VectorSimilarity similarity,
+        int maxConn,
+        int efConstruction
+    ) {
+        this.vectors = vectors;
+        this.otherVectors = otherVectors;
+        this.similarity = similarity;
+        this.maxConn = maxConn;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(maxConn);
+        this.visited = new VisitedNodes(vectors.size());
+        this.query = new float[vectors.dims()];
+    }
+
+    HnswGraph build() throws IOException {
+        for (int node = 0; node < vectors.size(); node++) {
+            addNode(node);
+        }
+        return HnswGraph.onHeap(neighbors, entryNode);
+    }
+
+    private void addNode(int node) throws IOException {
+        final int nodeLevel = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        final int numLevels = neighbors.length;
+        if (nodeLevel >= numLevels) {
+            neighbors = Arrays.copyOf(neighbors, nodeLevel + 1);
+            scores = Arrays.copyOf(scores, nodeLevel + 1);
+            for (int level = numLevels; level <= nodeLevel; level++) {
+                neighbors[level] = new int[vectors.size()][];
+                scores[level] = new float[vectors.size()][];
+            }
+        }
+        for (int level = 0; level <= nodeLevel; level++) {
+            neighbors[level][node] = NO_NEIGHBORS;
+            scores[level][node] = NO_SCORES;
+        }
+        if (entryNode == -1) {
+            entryNode = node;
+            return;
+        }
+
+        System.arraycopy(vectors.vectorValue(node), 0, query, 0, query.length);
+        int[] entryNodes = new int[] { entryNode };
+        for (int level = numLevels - 1; level > nodeLevel; level--) {
+            visited.clear();
+            NeighborQueue closest = HnswGraph.searchLevel(
+                query,
+                entryNodes,
+                1,
+                new HnswGraph.OnHeapLevel(neighbors[level]),
+                vectors,
+                similarity,
+                null,
+                visited
+            );
+            entryNodes[0] = closest.topNode();
+        }
+        for (int level = Math.min(nodeLevel, numLevels - 1); level >= 0; level--) {
+            visited.clear();
+            NeighborQueue candidates = HnswGraph.searchLevel(
+                query,
+                entryNodes,
+                efConstruction,
+                new HnswGraph.OnHeapLevel(neighbors[level]),
+                vectors,
+                similarity,
+                null,
+                visited
+            );
+            // most similar candidates first
+            int[] candidateNodes = new int[candidates.size()];
+            float[] candidateScores = new float[candidates.size()];
+            for (int i = candidateNodes.length - 1; i >= 0; i--) {
+                candidateScores[i] = candidates.topScore();
+                candidateNodes[i] = candidates.pop();
+            }
+            selectNeighbors(node, level, candidateNodes, candidateScores);
+            entryNodes = candidateNodes;
+        }
+        if (nodeLevel >= numLevels) {
+            entryNode = node;
+        }
+    }
+
+    private int maxConn(int level) {
+        return level == 0 ? maxConn * 2 : maxConn;
+    }
+
+    /**
+     * Links the node to the candidates that are more similar to it than to any candidate that is already linked, most
+     * similar candidates first, which keeps links to distinct areas of the graph rather than only to its closest area.
+     */
+    private void selectNeighbors(int node, int level, int[] candidateNodes, float[] candidateScores) throws IOException {
+        final int maxConn = maxConn(level);
+        int[] selected = new int[Math.min(maxConn, candidateNodes.length)];
+        float[] selectedScores = new float[selected.length];
+        int numSelected = 0;
+        for (int i = 0; i < candidateNodes.length && numSelected < selected.length; i++) {
+            if (isDiverse(candidateNodes[i], candidateScores[i], selected, numSelected)) {
+                selected[numSelected] = candidateNodes[i];
+                selectedScores[numSelected] = candidateScores[i];
+                numSelected++;
+            }
+        }
+        neighbors[level][node] = Arrays.copyOf(selected, numSelected);
+        scores[level][node] = Arrays.copyOf(selectedScores, numSelected);
+        for (int i = 0; i < numSelected; i++) {
+            addNeighbor(level, selected[i], node, selectedScores[i], maxConn);
+        }
+    }
+
+    private boolean isDiverse(int candidate, float score, int[] selected, int numSelected) throws IOException {
+        float[] candidateVector = vectors.vectorValue(candidate);
+        for (int i = 0; i < numSelected; i++) {
+            if (similarity.score(candidateVector, otherVectors.vectorValue(selected[i])) >= score) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addNeighbor(int level, int node, int neighbor, float score, int maxConn) {
+        int[] nodeNeighbors = neighbors[level][node];
+        float[] nodeScores = scores[level][node];
+        if (nodeNeighbors.length < maxConn) {
+            nodeNeighbors = Arrays.copyOf(nodeNeighbors, nodeNeighbors.length + 1);
+            nodeScores = Arrays.copyOf(nodeScores, nodeScores.length + 1);
+            nodeNeighbors[nodeNeighbors.length - 1] = neighbor;
+            nodeScores[nodeScores.length - 1] = score;
+            neighbors[level][node] = nodeNeighbors;
+            scores[level][node] = nodeScores;
+            return;
+        }
+        // full, replace the least similar neighbor if the new one is more similar
+        int worst = 0;
+        for (int i = 1; i < nodeScores.length; i++) {
+            if (nodeScores[i] < nodeScores[worst]) {
+                worst = i;
+            }
+        }
+        if (score > nodeScores[worst]) {
+            nodeNeighbors[worst] = neighbor;
+            nodeScores[worst] = score;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.engine.SegmentsStats;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes doc values through the delegate consumer, and the vectors, doc ids and {@link HnswGraph} of binary fields to the
+ * data file, with what is needed to read them in the index file. Merges go through {@link DocValuesConsumer#merge} which
+ * calls {@link #addBinaryField} with the merged values, so the graph of merged segments is rebuilt from scratch. The size
+ * and build time of the graphs are recorded as segment attributes, which segment stats report.
+ */
+final class HnswVectorsConsumer extends DocValuesConsumer {
+
+    private final DocValuesConsumer delegate;
+    private final SegmentWriteState state;
+    private final int dims;
+    private final VectorSimilarity similarity;
+    private final int m;
+    private final int efConstruction;
+    private IndexOutput index;
+    private IndexOutput data;
+
+    HnswVectorsConsumer(
+        DocValuesConsumer delegate,
+        SegmentWriteState state,
+        int dims,
+        VectorSimilarity similarity,
+        int m,
+        int efConstruction
+    ) throws IOException {
+        this.delegate = delegate;
+        this.state = state;
+        this.dims = dims;
+        this.similarity = similarity;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        boolean success = false;
+        try {
+            index = createOutput(HnswVectorsFormat.INDEX_EXTENSION, HnswVectorsFormat.INDEX_CODEC_NAME);
+            data = createOutput(HnswVectorsFormat.DATA_EXTENSION, HnswVectorsFormat.DATA_CODEC_NAME);
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(index, data, delegate);
+            }
+        }
+    }
+
+    private IndexOutput createOutput(String extension, String codecName) throws IOException {
+        final String fileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, extension);
+        final IndexOutput out = state.directory.createOutput(fileName, state.context);
+        CodecUtil.writeIndexHeader(out, codecName, HnswVectorsFormat.VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+        return out;
+    }
+
+    @Override
+    public void addNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addNumericField(field, valuesProducer);
+    }
+
+    @Override
+    public void addBinaryField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addBinaryField(field, valuesProducer);
+        writeVectors(field, valuesProducer.getBinary(field));
+    }
+
+    @Override
+    public void addSortedField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedNumericField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedSetField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedSetField(field, valuesProducer);
+    }
+
+    private void writeVectors(FieldInfo field, BinaryDocValues values) throws IOException {
+        // vectors are first written to a temporary file, so that the graph can be built without holding them in memory
+        int[] docs = new int[16];
+        int size = 0;
+        final String tempFileName;
+        try (IndexOutput temp = state.directory.createTempOutput(data.getName(), "temp", state.context)) {
+            tempFileName = temp.getName();
+            final float[] vector = new float[dims];
+            for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+                decode(field, values.binaryValue(), vector);
+                for (float value : vector) {
+                    temp.writeInt(Float.floatToIntBits(value));
+                }
+                docs = ArrayUtil.grow(docs, size + 1);
+                docs[size++] = doc;
+            }
+        }
+
+        final long startTime = System.nanoTime();
+        final HnswGraph graph;
+        final long dataOffset = data.getFilePointer();
+        try (IndexInput in = state.directory.openInput(tempFileName, state.context)) {
+            graph = new HnswGraphBuilder(
+                new RandomAccessVectors(in.randomAccessSlice(0, in.length()), size, dims),
+                new RandomAccessVectors(in.randomAccessSlice(0, in.length()), size, dims),
+                similarity,
+                m,
+                efConstruction
+            ).build();
+            data.copyBytes(in, in.length());
+        } finally {
+            IOUtils.deleteFilesIgnoringExceptions(state.directory, tempFileName);
+        }
+        final long buildTimeInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        index.writeInt(field.number);
+        index.writeByte((byte) similarity.ordinal());
+        index.writeVInt(dims);
+        index.writeVInt(size);
+        index.writeVLong(dataOffset);
+        index.writeVLong(data.getFilePointer() - dataOffset);
+
+        // the doc ids of the vectors and the graph are read at random from the data file rather than loaded on heap
+        final long graphOffset = data.getFilePointer();
+        index.writeVLong(graphOffset);
+        for (int i = 0; i < size; i++) {
+            data.writeInt(docs[i]);
+        }
+        graph.writeTo(index, data, m);
+        addToAttribute(state.segmentInfo, SegmentsStats.VECTOR_GRAPH_MEMORY_ATTRIBUTE, data.getFilePointer() - graphOffset);
+        addToAttribute(state.segmentInfo, SegmentsStats.VECTOR_GRAPH_BUILD_TIME_ATTRIBUTE, buildTimeInMillis);
+    }
+
+    private void decode(FieldInfo field, BytesRef bytes, float[] vector) {
+        if (bytes.length < dims * Float.BYTES) {
+            throw new IllegalStateException(
+                "field [" + field.name + "] has a vector of [" + bytes.length + "] bytes, expected at least [" + dims * Float.BYTES + "]"
+            );
+        }
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes.bytes, bytes.offset, bytes.length);
+        for (int i = 0; i < dims; i++) {
+            vector[i] = byteBuffer.getFloat();
+        }
+        if (similarity.normalizesVectors()) {
+            VectorSimilarity.normalize(vector);
+        }
+    }
+
+    private static void addToAttribute(SegmentInfo segmentInfo, String key, long value) {
+        final String previous = segmentInfo.getAttribute(key);
+        final long total = previous == null ? value : Long.parseLong(previous) + value;
+        segmentInfo.putAttribute(key, Long.toString(total));
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean success = false;
+        try {
+            if (index != null) {
+                index.writeInt(-1); // end of fields marker
+                CodecUtil.writeFooter(index);
+            }
+            if (data != null) {
+                CodecUtil.writeFooter(data);
+            }
+            success = true;
+        } finally {
+            if (success) {
+                IOUtils.close(delegate, index, data);
+            } else {
+                IOUtils.closeWhileHandlingException(delegate, index, data);
+            }
+            index = null;
+            data = null;
+        }
+    }
+}
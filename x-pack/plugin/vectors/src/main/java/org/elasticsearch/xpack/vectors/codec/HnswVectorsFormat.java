@@ -0,0 +1,86 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+
+import java.io.IOException;
+
+/**
+ * A {@link DocValuesFormat} for {@code dense_vector} fields that stores their doc values with
+ * {@link Lucene80DocValuesFormat} and additionally builds a {@link HnswGraph} of their vectors every time a segment is
+ * flushed or merged. The vectors, their doc ids and the graphs are written to a data file that is read at random while
+ * graphs are searched, so that they don't use heap memory, and the small metadata needed to read them to an index file
+ * that is loaded when the segment is opened. Doc values read through this format expose the graph through
+ * {@link IndexedVectors#get}.
+ */
+public final class HnswVectorsFormat extends DocValuesFormat {
+
+    public static final String NAME = "ES716HnswVectors";
+
+    static final String INDEX_CODEC_NAME = "ES716HnswVectorsIndex";
+    static final String DATA_CODEC_NAME = "ES716HnswVectorsData";
+    static final String INDEX_EXTENSION = "vgi";
+    static final String DATA_EXTENSION = "vgd";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+
+    private final DocValuesFormat delegate;
+    private final int dims;
+    private final VectorSimilarity similarity;
+    private final int m;
+    private final int efConstruction;
+
+    /**
+     * Only used to read segments, which record the parameters that their graphs were built with.
+     */
+    public HnswVectorsFormat() {
+        this(1, VectorSimilarity.L2_NORM, DEFAULT_M, DEFAULT_EF_CONSTRUCTION);
+    }
+
+    /**
+     * @param dims the number of dimensions of the vectors
+     * @param similarity the similarity to build the graph with, which queries must use too
+     * @param m the maximum number of neighbors of a node on the upper levels of the graph, twice as many on the
+     *          bottom level
+     * @param efConstruction the number of similar nodes to select the neighbors of a node from
+     */
+    public HnswVectorsFormat(int dims, VectorSimilarity similarity, int m, int efConstruction) {
+        super(NAME);
+        if (m < 2) {
+            throw new IllegalArgumentException("m must be at least 2, got [" + m + "]");
+        }
+        if (efConstruction < 1) {
+            throw new IllegalArgumentException("ef_construction must be at least 1, got [" + efConstruction + "]");
+        }
+        // Always enable compression on binary doc values, like the default Elasticsearch codec
+        this.delegate = new Lucene80DocValuesFormat(Lucene80DocValuesFormat.Mode.BEST_COMPRESSION);
+        this.dims = dims;
+        this.similarity = similarity;
+        this.m = m;
+        this.efConstruction = efConstruction;
+    }
+
+    @Override
+    public DocValuesConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+        return new HnswVectorsConsumer(delegate.fieldsConsumer(state), state, dims, similarity, m, efConstruction);
+    }
+
+    @Override
+    public DocValuesProducer fieldsProducer(SegmentReadState state) throws IOException {
+        return new HnswVectorsProducer(delegate.fieldsProducer(state), state);
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.RandomAccessInput;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads doc values through the delegate producer and attaches the {@link IndexedVectors} of binary fields to the doc
+ * values that it returns. Only the metadata of the fields is loaded on heap when the segment is opened, the vectors, their
+ * doc ids and the graphs are read from the data file on demand.
+ */
+final class HnswVectorsProducer extends DocValuesProducer {
+
+    private final DocValuesProducer delegate;
+    private final Map<String, FieldEntry> fields;
+    private final IndexInput data;
+
+    HnswVectorsProducer(DocValuesProducer delegate, SegmentReadState state) throws IOException {
+        this.delegate = delegate;
+        boolean success = false;
+        IndexInput data = null;
+        try {
+            this.fields = readFields(state);
+            final String dataFileName = IndexFileNames.segmentFileName(
+                state.segmentInfo.name,
+                state.segmentSuffix,
+                HnswVectorsFormat.DATA_EXTENSION
+            );
+            data = state.directory.openInput(dataFileName, state.context);
+            CodecUtil.checkIndexHeader(
+                data,
+                HnswVectorsFormat.DATA_CODEC_NAME,
+                HnswVectorsFormat.VERSION_START,
+                HnswVectorsFormat.VERSION_CURRENT,
+                state.segmentInfo.getId(),
+                state.segmentSuffix
+            );
+            // only checks the footer structure, the whole file is verified by checkIntegrity
+            CodecUtil.retrieveChecksum(data);
+            this.data = data;
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(data, delegate);
+            }
+        }
+    }
+
+    private static Map<String, FieldEntry> readFields(SegmentReadState state) throws IOException {
+        final String fileName = IndexFileNames.segmentFileName(
+            state.segmentInfo.name,
+            state.segmentSuffix,
+            HnswVectorsFormat.INDEX_EXTENSION
+        );
+        final Map<String, FieldEntry> fields = new HashMap<>();
+        try (ChecksumIndexInput in = state.directory.openChecksumInput(fileName, state.context)) {
+            Throwable priorE = null;
+            try {
+                CodecUtil.checkIndexHeader(
+                    in,
+                    HnswVectorsFormat.INDEX_CODEC_NAME,
+                    HnswVectorsFormat.VERSION_START,
+                    HnswVectorsFormat.VERSION_CURRENT,
+                    state.segmentInfo.getId(),
+                    state.segmentSuffix
+                );
+                for (int fieldNumber = in.readInt(); fieldNumber != -1; fieldNumber = in.readInt()) {
+                    final FieldInfo fieldInfo = state.fieldInfos.fieldInfo(fieldNumber);
+                    if (fieldInfo == null) {
+                        throw new CorruptIndexException("invalid field number: " + fieldNumber, in);
+                    }
+                    final int similarityOrdinal = in.readByte();
+                    if (similarityOrdinal < 0 || similarityOrdinal >= VectorSimilarity.values().length) {
+                        throw new CorruptIndexException("invalid similarity: " + similarityOrdinal, in);
+                    }
+                    final VectorSimilarity similarity = VectorSimilarity.values()[similarityOrdinal];
+                    final int dims = in.readVInt();
+                    final int size = in.readVInt();
+                    final long dataOffset = in.readVLong();
+                    final long dataLength = in.readVLong();
+                    if (dataLength != (long) size * dims * Float.BYTES) {
+                        throw new CorruptIndexException(
+                            "invalid vector data length: " + dataLength + " for " + size + " vectors of " + dims + " dimensions",
+                            in
+                        );
+                    }
+                    final long ordToDocOffset = in.readVLong();
+                    final HnswGraph graph = HnswGraph.readFrom(in, size);
+                    fields.put(fieldInfo.name, new FieldEntry(similarity, dims, size, dataOffset, dataLength, ordToDocOffset, graph));
+                }
+            } catch (Throwable exception) {
+                priorE = exception;
+            } finally {
+                CodecUtil.checkFooter(in, priorE);
+            }
+        }
+        return fields;
+    }
+
+    @Override
+    public NumericDocValues getNumeric(FieldInfo field) throws IOException {
+        return delegate.getNumeric(field);
+    }
+
+    @Override
+    public BinaryDocValues getBinary(FieldInfo field) throws IOException {
+        final BinaryDocValues values = delegate.getBinary(field);
+        final FieldEntry entry = fields.get(field.name);
+        if (entry == null) {
+            return values;
+        }
+        final RandomAccessVectors vectors = new RandomAccessVectors(
+            data.randomAccessSlice(entry.dataOffset, entry.dataLength),
+            entry.size,
+            entry.dims
+        );
+        final RandomAccessInput graphData = data.randomAccessSlice(0, data.length());
+        final IndexedVectors indexedVectors = new IndexedVectors(
+            entry.similarity,
+            new OrdToDoc(graphData, entry.ordToDocOffset, entry.size),
+            entry.graph.withData(graphData),
+            vectors
+        );
+        return new IndexedBinaryDocValues(values, indexedVectors);
+    }
+
+    @Override
+    public SortedDocValues getSorted(FieldInfo field) throws IOException {
+        return delegate.getSorted(field);
+    }
+
+    @Override
+    public SortedNumericDocValues getSortedNumeric(FieldInfo field) throws IOException {
+        return delegate.getSortedNumeric(field);
+    }
+
+    @Override
+    public SortedSetDocValues getSortedSet(FieldInfo field) throws IOException {
+        return delegate.getSortedSet(field);
+    }
+
+    @Override
+    public void checkIntegrity() throws IOException {
+        // the index file is fully verified when it is loaded
+        delegate.checkIntegrity();
+        CodecUtil.checksumEntireFile(data);
+    }
+
+    @Override
+    public DocValuesProducer getMergeInstance() throws IOException {
+        // merges rebuild the graph from the merged values
+        return delegate.getMergeInstance();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOUtils.close(delegate, data);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = delegate.ramBytesUsed();
+        for (FieldEntry entry : fields.values()) {
+            ramBytesUsed += entry.ramBytesUsed();
+        }
+        return ramBytesUsed;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        final List<Accountable> resources = new ArrayList<>();
+        resources.add(Accountables.namedAccountable("delegate", delegate));
+        resources.addAll(Accountables.namedAccountables("vector graph", fields));
+        return Collections.unmodifiableList(resources);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(delegate=" + delegate + ")";
+    }
+
+    private static final class FieldEntry implements Accountable {
+
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(FieldEntry.class);
+
+        private final VectorSimilarity similarity;
+        private final int dims;
+        private final int size;
+        private final long dataOffset;
+        private final long dataLength;
+        private final long ordToDocOffset;
+        private final HnswGraph graph;
+
+        FieldEntry(
+            VectorSimilarity similarity,
+            int dims,
+            int size,
+            long dataOffset,
+            long dataLength,
+            long ordToDocOffset,
+            HnswGraph graph
+        ) {
+            this.similarity = similarity;
+            this.dims = dims;
+            this.size = size;
+            this.dataOffset = dataOffset;
+            this.dataLength = dataLength;
+            this.ordToDocOffset = ordToDocOffset;
+            this.graph = graph;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return BASE_RAM_BYTES_USED + graph.ramBytesUsed();
+        }
+    }
+
+    /**
+     * Binary doc values of a field that is indexed with {@link HnswVectorsFormat}, see {@link IndexedVectors#get}.
+     */
+    static final class IndexedBinaryDocValues extends FilterVectorsBinaryDocValues {
+
+        private final IndexedVectors indexedVectors;
+
+        IndexedBinaryDocValues(BinaryDocValues in, IndexedVectors indexedVectors) {
+            super(in);
+            this.indexedVectors = indexedVectors;
+        }
+
+        IndexedVectors indexedVectors() {
+            return indexedVectors;
+        }
+    }
+}
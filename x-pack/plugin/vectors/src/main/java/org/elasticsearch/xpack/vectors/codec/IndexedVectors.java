@@ -0,0 +1,139 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The vectors of a {@code dense_vector} field of a segment together with their {@link HnswGraph}, which support
+ * approximate nearest neighbour searches. Instances are obtained from the doc values of fields that are written with
+ * {@link HnswVectorsFormat} through {@link #get} and must not be shared across threads.
+ */
+public final class IndexedVectors {
+
+    private final VectorSimilarity similarity;
+    private final OrdToDoc ordToDoc;
+    private final HnswGraph graph;
+    private final RandomAccessVectors vectors;
+
+    IndexedVectors(VectorSimilarity similarity, OrdToDoc ordToDoc, HnswGraph graph, RandomAccessVectors vectors) {
+        this.similarity = similarity;
+        this.ordToDoc = ordToDoc;
+        this.graph = graph;
+        this.vectors = vectors;
+    }
+
+    /**
+     * Returns the indexed vectors of the provided doc values, or {@code null} if the field isn't indexed for nearest
+     * neighbour search.
+     */
+    @Nullable
+    public static IndexedVectors get(BinaryDocValues values) {
+        HnswVectorsProducer.IndexedBinaryDocValues indexedValues = FilterVectorsBinaryDocValues.unwrap(
+            values,
+            HnswVectorsProducer.IndexedBinaryDocValues.class
+        );
+        return indexedValues == null ? null : indexedValues.indexedVectors();
+    }
+
+    public VectorSimilarity similarity() {
+        return similarity;
+    }
+
+    public int dims() {
+        return vectors.dims();
+    }
+
+    /**
+     * The number of documents that have a vector.
+     */
+    public int size() {
+        return vectors.size();
+    }
+
+    /**
+     * Returns approximately the {@code k} documents whose vectors are the most similar to the query, among the
+     * documents that {@code acceptDocs} accepts, by exploring the graph until it found the {@code numCandidates} most
+     * similar ones. Larger values of {@code numCandidates} find the true nearest neighbours more often but take longer.
+     * The total hits are the number of vectors that the search compared with the query.
+     */
+    public TopDocs search(float[] query, int k, int numCandidates, @Nullable Bits acceptDocs) throws IOException {
+        Bits acceptOrds = acceptDocs == null ? null : new Bits() {
+            @Override
+            public boolean get(int index) {
+                try {
+                    return acceptDocs.get(ordToDoc.doc(index));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public int length() {
+                return ordToDoc.size();
+            }
+        };
+        NeighborQueue results = graph.search(prepareQuery(query), Math.max(k, numCandidates), vectors, similarity, acceptOrds);
+        while (results.size() > k) {
+            results.pop();
+        }
+        ScoreDoc[] scoreDocs = new ScoreDoc[results.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--) {
+            float score = results.topScore();
+            scoreDocs[i] = new ScoreDoc(ordToDoc.doc(results.pop()), score);
+        }
+        return new TopDocs(new TotalHits(results.visitedCount(), TotalHits.Relation.EQUAL_TO), scoreDocs);
+    }
+
+    /**
+     * Returns exactly the {@code k} documents whose vectors are the most similar to the query, among the provided
+     * documents, by comparing all of them with the query. This is faster than {@link #search} when there are few
+     * documents to compare.
+     */
+    public TopDocs exactSearch(float[] query, int k, DocIdSetIterator docs) throws IOException {
+        float[] preparedQuery = prepareQuery(query);
+        NeighborQueue results = new NeighborQueue(k, false);
+        int visitedCount = 0;
+        for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
+            int ord = ordToDoc.ord(doc);
+            if (ord >= 0) {
+                visitedCount++;
+                results.insertWithOverflow(doc, similarity.score(preparedQuery, vectors.vectorValue(ord)), k);
+            }
+        }
+        ScoreDoc[] scoreDocs = new ScoreDoc[results.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--) {
+            float score = results.topScore();
+            scoreDocs[i] = new ScoreDoc(results.pop(), score);
+        }
+        return new TopDocs(new TotalHits(visitedCount, TotalHits.Relation.EQUAL_TO), scoreDocs);
+    }
+
+    private float[] prepareQuery(float[] query) {
+        if (query.length != dims()) {
+            throw new IllegalArgumentException(
+                "the query vector has a different number of dimensions [" + query.length + "] than the indexed vectors [" + dims() + "]"
+            );
+        }
+        if (similarity.normalizesVectors() == false) {
+            return query;
+        }
+        float[] normalized = query.clone();
+        VectorSimilarity.normalize(normalized);
+        return normalized;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.NumericUtils;
+
+/**
+ * A binary heap of graph nodes and their scores. Each entry is encoded into a single long, the sortable bits of the
+ * score in the upper half and the node in the lower half, so that entries compare by score first. A max-heap stores
+ * the complement of the encoded entries, which reverses their order.
+ */
+final class NeighborQueue {
+
+    private final boolean maxHeap;
+    private long[] heap;
+    private int size;
+    private int visitedCount;
+
+    /**
+     * @param maxHeap whether the top of the queue is the node with the highest score rather than the lowest
+     */
+    NeighborQueue(int initialSize, boolean maxHeap) {
+        this.heap = new long[Math.max(initialSize, 1) + 1];
+        this.maxHeap = maxHeap;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(int node, float score) {
+        long entry = encode(node, score);
+        heap = ArrayUtil.grow(heap, size + 2);
+        heap[++size] = entry;
+        upHeap(size);
+    }
+
+    /**
+     * Adds the node if the queue holds fewer than {@code maxSize} nodes, or replaces the top of the queue with it if it
+     * compares better than the top, which keeps the best {@code maxSize} nodes of a min-heap.
+     *
+     * @return whether the node was added
+     */
+    boolean insertWithOverflow(int node, float score, int maxSize) {
+        if (size < maxSize) {
+            add(node, score);
+            return true;
+        }
+        long entry = encode(node, score);
+        if (entry > heap[1]) {
+            heap[1] = entry;
+            downHeap(1);
+            return true;
+        }
+        return false;
+    }
+
+    int topNode() {
+        return decodeNode(heap[1]);
+    }
+
+    float topScore() {
+        return decodeScore(heap[1]);
+    }
+
+    /**
+     * Removes the top of the queue and returns its node.
+     */
+    int pop() {
+        int node = topNode();
+        heap[1] = heap[size];
+        size--;
+        downHeap(1);
+        return node;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * The number of nodes whose similarity was computed to fill this queue.
+     */
+    int visitedCount() {
+        return visitedCount;
+    }
+
+    void setVisitedCount(int visitedCount) {
+        this.visitedCount = visitedCount;
+    }
+
+    private long encode(int node, float score) {
+        long entry = (((long) NumericUtils.floatToSortableInt(score)) << 32) | (node & 0xFFFFFFFFL);
+        return maxHeap ? ~entry : entry;
+    }
+
+    private int decodeNode(long entry) {
+        return (int) (maxHeap ? ~entry : entry);
+    }
+
+    private float decodeScore(long entry) {
+        return NumericUtils.sortableIntToFloat((int) ((maxHeap ? ~entry : entry) >> 32));
+    }
+
+    private void upHeap(int i) {
+        long value = heap[i];
+        int parent = i >>> 1;
+        while (parent > 0 && value < heap[parent]) {
+            heap[i] = heap[parent];
+            i = parent;
+            parent = i >>> 1;
+        }
+        heap[i] = value;
+    }
+
+    private void downHeap(int i) {
+        long value = heap[i];
+        int child = i << 1;
+        while (child <= size) {
+            if (child < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= value) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+            child = i << 1;
+        }
+        heap[i] = value;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.store.RandomAccessInput;
+
+import java.io.IOException;
+
+/**
+ * The doc ids of the vectors of a segment by vector ordinal, which are increasing. They are stored as ints in the data file
+ * and read at random rather than loaded on heap.
+ */
+final class OrdToDoc {
+
+    private final RandomAccessInput input;
+    private final long offset;
+    private final int size;
+
+    OrdToDoc(RandomAccessInput input, long offset, int size) {
+        this.input = input;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int doc(int ord) throws IOException {
+        return input.readInt(offset + (long) ord * Integer.BYTES);
+    }
+
+    /**
+     * Returns the ordinal of the vector of the document, or a negative value if the document doesn't have a vector.
+     */
+    int ord(int doc) throws IOException {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midDoc = doc(mid);
+            if (midDoc < doc) {
+                low = mid + 1;
+            } else if (midDoc > doc) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The vectors of a {@code dense_vector} field of a segment quantized to one unsigned byte per dimension. A segment maps
+ * the range {@code [min, max]} of the values of the field linearly to {@code [0, 255]}, so each value is approximated
+ * within {@code (max - min) / 510}. Instances are obtained from the doc values of fields that are written with
+ * {@link QuantizedVectorsFormat} through {@link #get}, and must not be shared across threads.
+ */
+public final class QuantizedVectors {
+
+    private static final int MAX_CODE = 255;
+
+    private final int dims;
+    private final float minValue;
+    private final float scale;
+    private final int size;
+    private final int[] ordToDoc;
+    private final IndexInput data;
+    private final byte[] codes;
+    private int doc = -1;
+    private float magnitude;
+
+    QuantizedVectors(int dims, float minValue, float scale, int size, @Nullable int[] ordToDoc, IndexInput data) {
+        this.dims = dims;
+        this.minValue = minValue;
+        this.scale = scale;
+        this.size = size;
+        this.ordToDoc = ordToDoc;
+        this.data = data;
+        this.codes = new byte[dims];
+    }
+
+    /**
+     * Returns the quantized vectors of the provided doc values, or {@code null} if the field isn't quantized.
+     */
+    @Nullable
+    public static QuantizedVectors get(BinaryDocValues values) {
+        QuantizedVectorsProducer.QuantizedBinaryDocValues quantizedValues = FilterVectorsBinaryDocValues.unwrap(
+            values,
+            QuantizedVectorsProducer.QuantizedBinaryDocValues.class
+        );
+        return quantizedValues == null ? null : quantizedValues.quantizedVectors();
+    }
+
+    public int dims() {
+        return dims;
+    }
+
+    /**
+     * Moves to the vector of the provided document, and returns whether the document has a vector.
+     */
+    public boolean advanceExact(int target) throws IOException {
+        if (target == doc) {
+            return true;
+        }
+        final int ord;
+        if (ordToDoc == null) {
+            ord = target < size ? target : -1;
+        } else {
+            ord = Arrays.binarySearch(ordToDoc, target);
+        }
+        if (ord < 0) {
+            doc = -1;
+            return false;
+        }
+        data.seek((long) ord * recordLength(dims));
+        data.readBytes(codes, 0, dims);
+        magnitude = Float.intBitsToFloat(data.readInt());
+        doc = target;
+        return true;
+    }
+
+    /**
+     * The magnitude of the float vector of the current document.
+     */
+    public float magnitude() {
+        return magnitude;
+    }
+
+    /**
+     * The dot product of the query with the quantized vector of the current document.
+     */
+    public double dotProduct(float[] query) {
+        double querySum = 0;
+        double codeDotProduct = 0;
+        for (int i = 0; i < dims; i++) {
+            querySum += query[i];
+            codeDotProduct += query[i] * (codes[i] & 0xFF);
+        }
+        return minValue * querySum + scale * codeDotProduct;
+    }
+
+    /**
+     * The l1 distance between the query and the quantized vector of the current document.
+     */
+    public double l1Norm(float[] query) {
+        double l1norm = 0;
+        for (int i = 0; i < dims; i++) {
+            l1norm += Math.abs(query[i] - value(i));
+        }
+        return l1norm;
+    }
+
+    /**
+     * The l2 distance between the query and the quantized vector of the current document.
+     */
+    public double l2Norm(float[] query) {
+        double l2norm = 0;
+        for (int i = 0; i < dims; i++) {
+            double diff = query[i] - value(i);
+            l2norm += diff * diff;
+        }
+        return Math.sqrt(l2norm);
+    }
+
+    private float value(int dim) {
+        return minValue + scale * (codes[dim] & 0xFF);
+    }
+
+    /**
+     * The number of bytes of a quantized vector and its magnitude.
+     */
+    static int recordLength(int dims) {
+        return dims + Float.BYTES;
+    }
+
+    /**
+     * The difference between the values of two consecutive codes for values in {@code [minValue, maxValue]}.
+     */
+    static float scale(float minValue, float maxValue) {
+        return (maxValue - minValue) / MAX_CODE;
+    }
+
+    static byte quantize(float value, float minValue, float scale) {
+        if (scale == 0) {
+            // all values of the segment are equal
+            return 0;
+        }
+        final int code = Math.round((value - minValue) / scale);
+        return (byte) Math.max(0, Math.min(MAX_CODE, code));
+    }
+}
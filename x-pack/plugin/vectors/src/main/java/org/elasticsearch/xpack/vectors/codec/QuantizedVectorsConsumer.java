@@ -0,0 +1,195 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes doc values through the delegate consumer, and the quantized vectors of binary fields to the data file. The
+ * values of a field are read twice: once to calibrate the quantization on the range of the values of the segment and
+ * once to quantize them. Merges go through {@link DocValuesConsumer#merge} which calls {@link #addBinaryField} with
+ * the merged values, so merged segments are calibrated again.
+ */
+final class QuantizedVectorsConsumer extends DocValuesConsumer {
+
+    private final SegmentWriteState state;
+    private final int dims;
+    private DocValuesConsumer delegate;
+    private IndexOutput meta;
+    private IndexOutput data;
+
+    QuantizedVectorsConsumer(DocValuesFormat delegateFormat, SegmentWriteState state, int dims) throws IOException {
+        this.state = state;
+        this.dims = dims;
+        boolean success = false;
+        try {
+            meta = createOutput(QuantizedVectorsFormat.META_EXTENSION, QuantizedVectorsFormat.META_CODEC_NAME);
+            // the producer opens the doc values with the same format
+            meta.writeString(delegateFormat.getName());
+            data = createOutput(QuantizedVectorsFormat.DATA_EXTENSION, QuantizedVectorsFormat.DATA_CODEC_NAME);
+            delegate = delegateFormat.fieldsConsumer(state);
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(meta, data);
+            }
+        }
+    }
+
+    private IndexOutput createOutput(String extension, String codecName) throws IOException {
+        final String fileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, extension);
+        final IndexOutput out = state.directory.createOutput(fileName, state.context);
+        CodecUtil.writeIndexHeader(
+            out,
+            codecName,
+            QuantizedVectorsFormat.VERSION_CURRENT,
+            state.segmentInfo.getId(),
+            state.segmentSuffix
+        );
+        return out;
+    }
+
+    @Override
+    public void addNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addNumericField(field, valuesProducer);
+    }
+
+    @Override
+    public void addBinaryField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addBinaryField(field, valuesProducer);
+        writeQuantizedVectors(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedNumericField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedSetField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedSetField(field, valuesProducer);
+    }
+
+    private void writeQuantizedVectors(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        final float[] vector = new float[dims];
+
+        // calibrate on the range of the values of the segment
+        float minValue = Float.POSITIVE_INFINITY;
+        float maxValue = Float.NEGATIVE_INFINITY;
+        int[] docs = new int[16];
+        int size = 0;
+        BinaryDocValues values = valuesProducer.getBinary(field);
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            decode(field, values.binaryValue(), vector);
+            for (float value : vector) {
+                minValue = Math.min(minValue, value);
+                maxValue = Math.max(maxValue, value);
+            }
+            docs = ArrayUtil.grow(docs, size + 1);
+            docs[size++] = doc;
+        }
+        if (size == 0) {
+            return;
+        }
+        final float scale = QuantizedVectors.scale(minValue, maxValue);
+
+        final long dataOffset = data.getFilePointer();
+        final byte[] codes = new byte[dims];
+        values = valuesProducer.getBinary(field);
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            final BytesRef bytes = values.binaryValue();
+            final float magnitude = decode(field, bytes, vector);
+            for (int i = 0; i < dims; i++) {
+                codes[i] = QuantizedVectors.quantize(vector[i], minValue, scale);
+            }
+            data.writeBytes(codes, dims);
+            data.writeInt(Float.floatToIntBits(magnitude));
+        }
+
+        meta.writeInt(field.number);
+        meta.writeVInt(dims);
+        meta.writeVInt(size);
+        meta.writeInt(Float.floatToIntBits(minValue));
+        meta.writeInt(Float.floatToIntBits(scale));
+        meta.writeVLong(dataOffset);
+        if (size == state.segmentInfo.maxDoc()) {
+            // all documents have a vector, the ordinal of a vector is its document
+            meta.writeByte((byte) 1);
+        } else {
+            meta.writeByte((byte) 0);
+            int previousDoc = 0;
+            for (int i = 0; i < size; i++) {
+                meta.writeVInt(docs[i] - previousDoc);
+                previousDoc = docs[i];
+            }
+        }
+    }
+
+    /**
+     * Decodes the vector of a document and returns its magnitude, which {@code dense_vector} fields encode after the
+     * vector.
+     */
+    private float decode(FieldInfo field, BytesRef bytes, float[] vector) {
+        if (bytes.length < dims * Float.BYTES) {
+            throw new IllegalStateException(
+                "field [" + field.name + "] has a vector of [" + bytes.length + "] bytes, expected at least [" + dims * Float.BYTES + "]"
+            );
+        }
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes.bytes, bytes.offset, bytes.length);
+        double magnitude = 0;
+        for (int i = 0; i < dims; i++) {
+            vector[i] = byteBuffer.getFloat();
+            magnitude += vector[i] * vector[i];
+        }
+        return byteBuffer.remaining() >= Float.BYTES ? byteBuffer.getFloat() : (float) Math.sqrt(magnitude);
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean success = false;
+        try {
+            if (meta != null) {
+                meta.writeInt(-1); // end of fields marker
+                CodecUtil.writeFooter(meta);
+            }
+            if (data != null) {
+                CodecUtil.writeFooter(data);
+            }
+            success = true;
+        } finally {
+            if (success) {
+                IOUtils.close(delegate, meta, data);
+            } else {
+                IOUtils.closeWhileHandlingException(delegate, meta, data);
+            }
+            delegate = null;
+            meta = null;
+            data = null;
+        }
+    }
+}
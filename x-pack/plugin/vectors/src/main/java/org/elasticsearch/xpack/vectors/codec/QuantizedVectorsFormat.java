@@ -0,0 +1,68 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+
+/**
+ * A {@link DocValuesFormat} for {@code dense_vector} fields that stores their doc values with a delegate format and
+ * additionally writes a copy of their vectors quantized to one byte per dimension every time a segment is flushed or
+ * merged. Each segment calibrates the quantization of a field on the range of its values. Quantized vectors are four
+ * times smaller than the float vectors of the doc values, so scoring them reads four times less data. Doc values read
+ * through this format expose the quantized vectors through {@link QuantizedVectors#get}.
+ */
+public final class QuantizedVectorsFormat extends DocValuesFormat {
+
+    public static final String NAME = "ES716QuantizedVectors";
+
+    static final String META_CODEC_NAME = "ES716QuantizedVectorsMeta";
+    static final String DATA_CODEC_NAME = "ES716QuantizedVectorsData";
+    static final String META_EXTENSION = "vqm";
+    static final String DATA_EXTENSION = "vqd";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+
+    private final int dims;
+    private final DocValuesFormat delegate;
+
+    /**
+     * Only used to read segments, which record the delegate format that their doc values were written with.
+     */
+    public QuantizedVectorsFormat() {
+        this(1, null);
+    }
+
+    /**
+     * @param dims the number of dimensions of the vectors
+     * @param delegate the format to write doc values with, or {@code null} for the default format of Elasticsearch
+     */
+    public QuantizedVectorsFormat(int dims, @Nullable DocValuesFormat delegate) {
+        super(NAME);
+        this.dims = dims;
+        // Always enable compression on binary doc values, like the default Elasticsearch codec
+        this.delegate = delegate == null ? new Lucene80DocValuesFormat(Lucene80DocValuesFormat.Mode.BEST_COMPRESSION) : delegate;
+    }
+
+    @Override
+    public DocValuesConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+        return new QuantizedVectorsConsumer(delegate, state, dims);
+    }
+
+    @Override
+    public DocValuesProducer fieldsProducer(SegmentReadState state) throws IOException {
+        return new QuantizedVectorsProducer(state);
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads doc values through the delegate producer that the segment was written with and attaches the
+ * {@link QuantizedVectors} of binary fields to the doc values that it returns. Quantized vectors are read from the
+ * data file on demand.
+ */
+final class QuantizedVectorsProducer extends DocValuesProducer {
+
+    private final DocValuesProducer delegate;
+    private final Map<String, FieldEntry> fields;
+    private final IndexInput data;
+
+    QuantizedVectorsProducer(SegmentReadState state) throws IOException {
+        boolean success = false;
+        DocValuesProducer delegate = null;
+        IndexInput data = null;
+        try {
+            this.fields = new HashMap<>();
+            final String delegateName = readFields(state, fields);
+            delegate = DocValuesFormat.forName(delegateName).fieldsProducer(state);
+            final String dataFileName = IndexFileNames.segmentFileName(
+                state.segmentInfo.name,
+                state.segmentSuffix,
+                QuantizedVectorsFormat.DATA_EXTENSION
+            );
+            data = state.directory.openInput(dataFileName, state.context);
+            CodecUtil.checkIndexHeader(
+                data,
+                QuantizedVectorsFormat.DATA_CODEC_NAME,
+                QuantizedVectorsFormat.VERSION_START,
+                QuantizedVectorsFormat.VERSION_CURRENT,
+                state.segmentInfo.getId(),
+                state.segmentSuffix
+            );
+            // only checks the footer structure, the whole file is verified by checkIntegrity
+            CodecUtil.retrieveChecksum(data);
+            this.delegate = delegate;
+            this.data = data;
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(data, delegate);
+            }
+        }
+    }
+
+    /**
+     * Reads the entries of the quantized fields into {@code fields} and returns the name of the delegate format.
+     */
+    private static String readFields(SegmentReadState state, Map<String, FieldEntry> fields) throws IOException {
+        final String fileName = IndexFileNames.segmentFileName(
+            state.segmentInfo.name,
+            state.segmentSuffix,
+            QuantizedVectorsFormat.META_EXTENSION
+        );
+        String delegateName = null;
+        try (ChecksumIndexInput in = state.directory.openChecksumInput(fileName, state.context)) {
+            Throwable priorE = null;
+            try {
+                CodecUtil.checkIndexHeader(
+                    in,
+                    QuantizedVectorsFormat.META_CODEC_NAME,
+                    QuantizedVectorsFormat.VERSION_START,
+                    QuantizedVectorsFormat.VERSION_CURRENT,
+                    state.segmentInfo.getId(),
+                    state.segmentSuffix
+                );
+                delegateName = in.readString();
+                for (int fieldNumber = in.readInt(); fieldNumber != -1; fieldNumber = in.readInt()) {
+                    final FieldInfo fieldInfo = state.fieldInfos.fieldInfo(fieldNumber);
+                    if (fieldInfo == null) {
+                        throw new CorruptIndexException("invalid field number: " + fieldNumber, in);
+                    }
+                    final int dims = in.readVInt();
+                    final int size = in.readVInt();
+                    final float minValue = Float.intBitsToFloat(in.readInt());
+                    final float scale = Float.intBitsToFloat(in.readInt());
+                    final long dataOffset = in.readVLong();
+                    final int[] ordToDoc;
+                    final byte dense = in.readByte();
+                    if (dense == 1) {
+                        if (size != state.segmentInfo.maxDoc()) {
+                            throw new CorruptIndexException("invalid size: " + size + " for a dense field", in);
+                        }
+                        ordToDoc = null;
+                    } else if (dense == 0) {
+                        ordToDoc = new int[size];
+                        int doc = 0;
+                        for (int ord = 0; ord < size; ord++) {
+                            doc += in.readVInt();
+                            ordToDoc[ord] = doc;
+                        }
+                    } else {
+                        throw new CorruptIndexException("invalid dense flag: " + dense, in);
+                    }
+                    fields.put(fieldInfo.name, new FieldEntry(dims, size, minValue, scale, dataOffset, ordToDoc));
+                }
+            } catch (Throwable exception) {
+                priorE = exception;
+            } finally {
+                CodecUtil.checkFooter(in, priorE);
+            }
+        }
+        return delegateName;
+    }
+
+    @Override
+    public NumericDocValues getNumeric(FieldInfo field) throws IOException {
+        return delegate.getNumeric(field);
+    }
+
+    @Override
+    public BinaryDocValues getBinary(FieldInfo field) throws IOException {
+        final BinaryDocValues values = delegate.getBinary(field);
+        final FieldEntry entry = fields.get(field.name);
+        if (entry == null) {
+            return values;
+        }
+        final IndexInput slice = data.slice("quantized-vectors", entry.dataOffset, entry.dataLength());
+        return new QuantizedBinaryDocValues(
+            values,
+            new QuantizedVectors(entry.dims, entry.minValue, entry.scale, entry.size, entry.ordToDoc, slice)
+        );
+    }
+
+    @Override
+    public SortedDocValues getSorted(FieldInfo field) throws IOException {
+        return delegate.getSorted(field);
+    }
+
+    @Override
+    public SortedNumericDocValues getSortedNumeric(FieldInfo field) throws IOException {
+        return delegate.getSortedNumeric(field);
+    }
+
+    @Override
+    public SortedSetDocValues getSortedSet(FieldInfo field) throws IOException {
+        return delegate.getSortedSet(field);
+    }
+
+    @Override
+    public void checkIntegrity() throws IOException {
+        // the metadata file is fully verified when it is loaded
+        delegate.checkIntegrity();
+        CodecUtil.checksumEntireFile(data);
+    }
+
+    @Override
+    public DocValuesProducer getMergeInstance() throws IOException {
+        // merges quantize the merged values again
+        return delegate.getMergeInstance();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOUtils.close(delegate, data);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = delegate.ramBytesUsed();
+        for (FieldEntry entry : fields.values()) {
+            ramBytesUsed += entry.ramBytesUsed();
+        }
+        return ramBytesUsed;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        final List<Accountable> resources = new ArrayList<>();
+        resources.add(Accountables.namedAccountable("delegate", delegate));
+        resources.addAll(Accountables.namedAccountables("quantized vectors", fields));
+        return Collections.unmodifiableList(resources);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(delegate=" + delegate + ")";
+    }
+
+    private static final class FieldEntry implements Accountable {
+
+        private final int dims;
+        private final int size;
+        private final float minValue;
+        private final float scale;
+        private final long dataOffset;
+        private final int[] ordToDoc;
+
+        FieldEntry(int dims, int size, float minValue, float scale, long dataOffset, int[] ordToDoc) {
+            this.dims = dims;
+            this.size = size;
+            this.minValue = minValue;
+            this.scale = scale;
+            this.dataOffset = dataOffset;
+            this.ordToDoc = ordToDoc;
+        }
+
+        long dataLength() {
+            return (long) size * QuantizedVectors.recordLength(dims);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return ordToDoc == null ? 0L : RamUsageEstimator.sizeOf(ordToDoc);
+        }
+    }
+
+    /**
+     * Binary doc values of a field that is written with {@link QuantizedVectorsFormat}, see {@link QuantizedVectors#get}.
+     */
+    static final class QuantizedBinaryDocValues extends FilterVectorsBinaryDocValues {
+
+        private final QuantizedVectors quantizedVectors;
+
+        QuantizedBinaryDocValues(BinaryDocValues in, QuantizedVectors quantizedVectors) {
+            super(in);
+            this.quantizedVectors = quantizedVectors;
+        }
+
+        QuantizedVectors quantizedVectors() {
+            return quantizedVectors;
+        }
+    }
+}
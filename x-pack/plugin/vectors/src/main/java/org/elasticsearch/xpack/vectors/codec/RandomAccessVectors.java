@@ -0,0 +1,49 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.store.RandomAccessInput;
+
+import java.io.IOException;
+
+/**
+ * Vectors of a segment that can be read in any order, by ordinal. Ordinals are assigned to documents that have a
+ * vector in increasing doc id order. Vectors are stored one after the other as big-endian floats.
+ */
+final class RandomAccessVectors {
+
+    private final RandomAccessInput input;
+    private final int size;
+    private final float[] vector;
+
+    RandomAccessVectors(RandomAccessInput input, int size, int dims) {
+        this.input = input;
+        this.size = size;
+        this.vector = new float[dims];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int dims() {
+        return vector.length;
+    }
+
+    /**
+     * Reads the vector with the provided ordinal. The returned array is reused by the next call.
+     */
+    float[] vectorValue(int ord) throws IOException {
+        long position = (long) ord * vector.length * Float.BYTES;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = Float.intBitsToFloat(input.readInt(position));
+            position += Float.BYTES;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The similarity that the nearest neighbour graph of a {@code dense_vector} field is built and searched with. Scores
+ * are positive and grow as vectors get more similar, so that they can be used as document scores directly.
+ */
+public enum VectorSimilarity {
+    /**
+     * {@code 1 / (1 + l2_norm(a, b)^2)}
+     */
+    L2_NORM {
+        @Override
+        public float score(float[] a, float[] b) {
+            float squareDistance = 0;
+            for (int i = 0; i < a.length; i++) {
+                float diff = a[i] - b[i];
+                squareDistance += diff * diff;
+            }
+            return 1 / (1 + squareDistance);
+        }
+    },
+    /**
+     * {@code (1 + dot_product(a, b)) / 2}, vectors must have unit length.
+     */
+    DOT_PRODUCT {
+        @Override
+        public float score(float[] a, float[] b) {
+            return (1 + dotProduct(a, b)) / 2;
+        }
+    },
+    /**
+     * {@code (1 + cosine(a, b)) / 2}. Vectors are normalized when they are indexed, so this is computed like
+     * {@link #DOT_PRODUCT}.
+     */
+    COSINE {
+        @Override
+        public float score(float[] a, float[] b) {
+            return (1 + dotProduct(a, b)) / 2;
+        }
+
+        @Override
+        boolean normalizesVectors() {
+            return true;
+        }
+    };
+
+    /**
+     * Scores the similarity of two vectors of the same length.
+     */
+    public abstract float score(float[] a, float[] b);
+
+    /**
+     * Whether vectors are scaled to unit length before they are indexed or searched.
+     */
+    boolean normalizesVectors() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static VectorSimilarity fromString(String name) {
+        for (VectorSimilarity similarity : values()) {
+            if (similarity.toString().equals(name)) {
+                return similarity;
+            }
+        }
+        throw new IllegalArgumentException("unknown similarity [" + name + "], expected one of " + Arrays.toString(values()));
+    }
+
+    private static float dotProduct(float[] a, float[] b) {
+        float dotProduct = 0;
+        for (int i = 0; i < a.length; i++) {
+            dotProduct += a[i] * b[i];
+        }
+        return dotProduct;
+    }
+
+    /**
+     * Scales the provided vector to unit length in place.
+     */
+    static void normalize(float[] vector) {
+        double magnitude = 0;
+        for (float value : vector) {
+            magnitude += value * value;
+        }
+        magnitude = Math.sqrt(magnitude);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= magnitude;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.SparseFixedBitSet;
+
+/**
+ * The set of graph nodes that a search already visited. Its memory grows with the number of visited nodes rather than
+ * with the size of the graph, and clearing it only costs as much as the visits, so that it can be reused for every
+ * level of a search and every insertion of a graph build.
+ */
+final class VisitedNodes {
+
+    private final SparseFixedBitSet bits;
+    private int[] nodes = new int[16];
+    private int count;
+
+    VisitedNodes(int numNodes) {
+        this.bits = new SparseFixedBitSet(Math.max(numNodes, 1));
+    }
+
+    /**
+     * Marks the node as visited and returns whether it wasn't visited before.
+     */
+    boolean visit(int node) {
+        if (bits.get(node)) {
+            return false;
+        }
+        bits.set(node);
+        nodes = ArrayUtil.grow(nodes, count + 1);
+        nodes[count++] = node;
+        return true;
+    }
+
+    int count() {
+        return count;
+    }
+
+    void clear() {
+        for (int i = 0; i < count; i++) {
+            bits.clear(nodes[i]);
+        }
+        count = 0;
+    }
+}
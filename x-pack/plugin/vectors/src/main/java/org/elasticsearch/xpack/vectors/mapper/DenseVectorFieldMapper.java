@@ -7,6 +7,7 @@
 
 package org.elasticsearch.xpack.vectors.mapper;
 
+import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.BytesRef;
@@ -19,21 +20,29 @@ import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperBuilderContext;
 import org.elasticsearch.index.mapper.MapperParsingException;
+import org.elasticsearch.index.mapper.MappingParser;
 import org.elasticsearch.index.mapper.TextSearchInfo;
 import org.elasticsearch.index.mapper.ValueFetcher;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.lookup.SearchLookup;
+import org.elasticsearch.xcontent.ToXContentObject;
+import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentParser.Token;
+import org.elasticsearch.xpack.vectors.codec.HnswVectorsFormat;
+import org.elasticsearch.xpack.vectors.codec.QuantizedVectorsFormat;
+import org.elasticsearch.xpack.vectors.codec.VectorSimilarity;
 import org.elasticsearch.xpack.vectors.query.VectorIndexFieldData;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.time.ZoneId;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Supplier;
 
 import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpectedToken;
@@ -46,6 +55,8 @@ public class DenseVectorFieldMapper extends FieldMapper {
     public static final String CONTENT_TYPE = "dense_vector";
     public static short MAX_DIMS_COUNT = 2048; // maximum allowed number of dimensions
     private static final byte INT_BYTES = 4;
+    static final String NO_QUANTIZATION = "none";
+    static final String INT8_QUANTIZATION = "int8";
 
     private static DenseVectorFieldMapper toType(FieldMapper in) {
         return (DenseVectorFieldMapper) in;
@@ -75,6 +86,33 @@ public class DenseVectorFieldMapper extends FieldMapper {
                 );
             }
         });
+        Parameter<Boolean> indexed = Parameter.indexParam(m -> toType(m).indexed, false);
+        Parameter<VectorSimilarity> similarity = new Parameter<>(
+            "similarity",
+            false,
+            () -> null,
+            (n, c, o) -> parseSimilarity(n, o),
+            m -> toType(m).similarity
+        ).setSerializer((b, n, v) -> b.field(n, v.toString()), Objects::toString)
+            .setSerializerCheck((includeDefaults, isConfigured, v) -> v != null)
+            .requiresParameters(indexed);
+        Parameter<IndexOptions> indexOptions = new Parameter<>(
+            "index_options",
+            false,
+            () -> null,
+            (n, c, o) -> o == null ? null : IndexOptions.parse(n, o),
+            m -> toType(m).indexOptions
+        ).setSerializer((b, n, v) -> b.field(n, v), Objects::toString)
+            .setSerializerCheck((includeDefaults, isConfigured, v) -> v != null)
+            .requiresParameters(indexed)
+            .acceptsNull();
+        Parameter<String> quantization = Parameter.restrictedStringParam(
+            "quantization",
+            false,
+            m -> toType(m).quantization,
+            NO_QUANTIZATION,
+            INT8_QUANTIZATION
+        );
         Parameter<Map<String, String>> meta = Parameter.metaParam();
 
         final Version indexVersionCreated;
@@ -86,15 +124,41 @@ public class DenseVectorFieldMapper extends FieldMapper {
 
         @Override
         protected List<Parameter<?>> getParameters() {
-            return Arrays.asList(dims, meta);
+            return Arrays.asList(dims, indexed, similarity, indexOptions, quantization, meta);
         }
 
         @Override
         public DenseVectorFieldMapper build(MapperBuilderContext context) {
+            if (indexed.getValue()) {
+                if (indexVersionCreated.before(Version.V_7_16_3)) {
+                    throw new MapperParsingException(
+                        "Field [" + name + "] of type [" + CONTENT_TYPE + "] can only be indexed on indices created on or after 7.16.3"
+                    );
+                }
+                if (similarity.getValue() == null) {
+                    throw new MapperParsingException("Field [index] requires field [similarity] to be configured");
+                }
+            }
+            if (NO_QUANTIZATION.equals(quantization.getValue()) == false && indexVersionCreated.before(Version.V_7_16_3)) {
+                throw new MapperParsingException(
+                    "Field [" + name + "] of type [" + CONTENT_TYPE + "] can only be quantized on indices created on or after 7.16.3"
+                );
+            }
             return new DenseVectorFieldMapper(
                 name,
-                new DenseVectorFieldType(context.buildFullName(name), indexVersionCreated, dims.getValue(), meta.getValue()),
+                new DenseVectorFieldType(
+                    context.buildFullName(name),
+                    indexVersionCreated,
+                    dims.getValue(),
+                    indexed.getValue(),
+                    similarity.getValue(),
+                    meta.getValue()
+                ),
                 dims.getValue(),
+                indexed.getValue(),
+                similarity.getValue(),
+                indexOptions.getValue(),
+                quantization.getValue(),
                 indexVersionCreated,
                 multiFieldsBuilder.build(this, context),
                 copyTo.build()
@@ -102,6 +166,93 @@ public class DenseVectorFieldMapper extends FieldMapper {
         }
     }
 
+    private static VectorSimilarity parseSimilarity(String fieldName, Object propNode) {
+        try {
+            return VectorSimilarity.fromString(XContentMapValues.nodeStringValue(propNode));
+        } catch (IllegalArgumentException e) {
+            throw new MapperParsingException("Unable to parse [similarity] of field [" + fieldName + "]: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The options of the {@code hnsw} graph that indexed vectors are searched with.
+     */
+    static final class IndexOptions implements ToXContentObject {
+
+        static final String HNSW_TYPE = "hnsw";
+
+        private final int m;
+        private final int efConstruction;
+
+        IndexOptions(int m, int efConstruction) {
+            this.m = m;
+            this.efConstruction = efConstruction;
+        }
+
+        static IndexOptions parse(String fieldName, Object propNode) {
+            @SuppressWarnings("unchecked")
+            Map<String, ?> indexOptionsMap = new HashMap<>((Map<String, ?>) propNode);
+            Object typeNode = indexOptionsMap.remove("type");
+            if (typeNode == null) {
+                throw new MapperParsingException("[index_options] of field [" + fieldName + "] requires field [type] to be configured");
+            }
+            String type = XContentMapValues.nodeStringValue(typeNode);
+            if (HNSW_TYPE.equals(type) == false) {
+                throw new MapperParsingException(
+                    "Unknown [index_options] type [" + type + "] for field [" + fieldName + "], expected [" + HNSW_TYPE + "]"
+                );
+            }
+            Object mNode = indexOptionsMap.remove("m");
+            Object efConstructionNode = indexOptionsMap.remove("ef_construction");
+            int m = mNode == null ? HnswVectorsFormat.DEFAULT_M : XContentMapValues.nodeIntegerValue(mNode);
+            int efConstruction = efConstructionNode == null
+                ? HnswVectorsFormat.DEFAULT_EF_CONSTRUCTION
+                : XContentMapValues.nodeIntegerValue(efConstructionNode);
+            if (m < 2) {
+                throw new MapperParsingException("[index_options.m] of field [" + fieldName + "] must be at least 2, got [" + m + "]");
+            }
+            if (efConstruction < 1) {
+                throw new MapperParsingException(
+                    "[index_options.ef_construction] of field [" + fieldName + "] must be at least 1, got [" + efConstruction + "]"
+                );
+            }
+            MappingParser.checkNoRemainingFields(fieldName, indexOptionsMap);
+            return new IndexOptions(m, efConstruction);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("type", HNSW_TYPE);
+            builder.field("m", m);
+            builder.field("ef_construction", efConstruction);
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            IndexOptions that = (IndexOptions) o;
+            return m == that.m && efConstruction == that.efConstruction;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(m, efConstruction);
+        }
+
+        @Override
+        public String toString() {
+            return "{type=" + HNSW_TYPE + ", m=" + m + ", ef_construction=" + efConstruction + "}";
+        }
+    }
+
     public static final TypeParser PARSER = new TypeParser(
         (n, c) -> new Builder(n, c.indexVersionCreated()),
         notInMultiFields(CONTENT_TYPE)
@@ -109,18 +260,38 @@ public class DenseVectorFieldMapper extends FieldMapper {
 
     public static final class DenseVectorFieldType extends MappedFieldType {
         private final int dims;
+        private final VectorSimilarity similarity;
         private final Version indexVersionCreated;
 
         public DenseVectorFieldType(String name, Version indexVersionCreated, int dims, Map<String, String> meta) {
-            super(name, false, false, true, TextSearchInfo.NONE, meta);
+            this(name, indexVersionCreated, dims, false, null, meta);
+        }
+
+        public DenseVectorFieldType(
+            String name,
+            Version indexVersionCreated,
+            int dims,
+            boolean indexed,
+            VectorSimilarity similarity,
+            Map<String, String> meta
+        ) {
+            super(name, indexed, false, true, TextSearchInfo.NONE, meta);
             this.dims = dims;
+            this.similarity = similarity;
             this.indexVersionCreated = indexVersionCreated;
         }
 
-        int dims() {
+        public int dims() {
             return dims;
         }
 
+        /**
+         * The similarity that indexed vectors are compared with, or {@code null} if the field isn't indexed.
+         */
+        public VectorSimilarity similarity() {
+            return similarity;
+        }
+
         @Override
         public String typeName() {
             return CONTENT_TYPE;
@@ -158,17 +329,28 @@ public class DenseVectorFieldMapper extends FieldMapper {
 
         @Override
         public Query termQuery(Object value, SearchExecutionContext context) {
-            throw new IllegalArgumentException("Field [" + name() + "] of type [" + typeName() + "] doesn't support queries");
+            throw new IllegalArgumentException(
+                "Field [" + name() + "] of type [" + typeName() + "] doesn't support term queries, use a [knn] query instead"
+            );
         }
     }
 
     private final Version indexCreatedVersion;
     private final int dims;
+    private final boolean indexed;
+    private final VectorSimilarity similarity;
+    private final IndexOptions indexOptions;
+    private final String quantization;
+    private final DocValuesFormat docValuesFormat;
 
     private DenseVectorFieldMapper(
         String simpleName,
         MappedFieldType mappedFieldType,
         int dims,
+        boolean indexed,
+        VectorSimilarity similarity,
+        IndexOptions indexOptions,
+        String quantization,
         Version indexCreatedVersion,
         MultiFields multiFields,
         CopyTo copyTo
@@ -176,6 +358,21 @@ public class DenseVectorFieldMapper extends FieldMapper {
         super(simpleName, mappedFieldType, multiFields, copyTo);
         this.indexCreatedVersion = indexCreatedVersion;
         this.dims = dims;
+        this.indexed = indexed;
+        this.similarity = similarity;
+        this.indexOptions = indexOptions;
+        this.quantization = quantization;
+        DocValuesFormat docValuesFormat = null;
+        if (indexed) {
+            int m = indexOptions == null ? HnswVectorsFormat.DEFAULT_M : indexOptions.m;
+            int efConstruction = indexOptions == null ? HnswVectorsFormat.DEFAULT_EF_CONSTRUCTION : indexOptions.efConstruction;
+            docValuesFormat = new HnswVectorsFormat(dims, similarity, m, efConstruction);
+        }
+        if (INT8_QUANTIZATION.equals(quantization)) {
+            // vector functions score the quantized vectors, the float vectors stay in doc values for exact scoring
+            docValuesFormat = new QuantizedVectorsFormat(dims, docValuesFormat);
+        }
+        this.docValuesFormat = docValuesFormat;
     }
 
     @Override
@@ -188,6 +385,11 @@ public class DenseVectorFieldMapper extends FieldMapper {
         return true;
     }
 
+    @Override
+    public DocValuesFormat docValuesFormat() {
+        return docValuesFormat;
+    }
+
     @Override
     public void parse(DocumentParserContext context) throws IOException {
         int dims = fieldType().dims(); // number of vector dimensions
@@ -236,9 +438,12 @@ public class DenseVectorFieldMapper extends FieldMapper {
             );
         }
 
+        float vectorMagnitude = (float) Math.sqrt(dotProduct);
+        if (indexed) {
+            checkVectorMagnitude(context, vectorMagnitude);
+        }
         if (indexCreatedVersion.onOrAfter(Version.V_7_5_0)) {
             // encode vector magnitude at the end
-            float vectorMagnitude = (float) Math.sqrt(dotProduct);
             byteBuffer.putFloat(vectorMagnitude);
         }
         BinaryDocValuesField field = new BinaryDocValuesField(fieldType().name(), new BytesRef(bytes));
@@ -254,6 +459,33 @@ public class DenseVectorFieldMapper extends FieldMapper {
         context.doc().addWithKey(fieldType().name(), field);
     }
 
+    private void checkVectorMagnitude(DocumentParserContext context, float vectorMagnitude) {
+        if (similarity == VectorSimilarity.DOT_PRODUCT && Math.abs(vectorMagnitude - 1f) > 1e-4f) {
+            throw new IllegalArgumentException(
+                "The ["
+                    + similarity
+                    + "] similarity can only be used with unit-length vectors, but the vector of field ["
+                    + name()
+                    + "] of doc ["
+                    + context.sourceToParse().id()
+                    + "] has a magnitude of ["
+                    + vectorMagnitude
+                    + "]"
+            );
+        }
+        if (similarity == VectorSimilarity.COSINE && vectorMagnitude == 0f) {
+            throw new IllegalArgumentException(
+                "The ["
+                    + similarity
+                    + "] similarity doesn't support vectors with zero magnitude, but the vector of field ["
+                    + name()
+                    + "] of doc ["
+                    + context.sourceToParse().id()
+                    + "] has only zeros"
+            );
+        }
+    }
+
     @Override
     protected void parseCreateField(DocumentParserContext context) {
         throw new AssertionError("parse is implemented directly");
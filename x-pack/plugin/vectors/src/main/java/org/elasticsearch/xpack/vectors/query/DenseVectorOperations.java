@@ -0,0 +1,51 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Computes the similarity between a query vector and the dense vectors of documents. The document vectors are read
+ * directly from their doc values encoding, a sequence of big-endian floats, without being decoded into a
+ * {@code float[]} first. Only the first {@code queryVector.length} floats of the encoded vector are read, so the
+ * magnitude that follows them in indices created on or after 7.5 is ignored.
+ */
+public abstract class DenseVectorOperations {
+
+    private static final DenseVectorOperations INSTANCE = DenseVectorOperationsProvider.create();
+
+    /**
+     * The fastest implementation available on this JVM, which uses the Vector API if the
+     * {@code jdk.incubator.vector} module is available and scalar loops otherwise.
+     */
+    public static DenseVectorOperations getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * The implementation that uses scalar loops, whatever the JVM.
+     */
+    public static DenseVectorOperations scalar() {
+        return ScalarDenseVectorOperations.INSTANCE;
+    }
+
+    /**
+     * The dot product of the query vector and the encoded document vector.
+     */
+    public abstract double dotProduct(float[] queryVector, BytesRef vector);
+
+    /**
+     * The l1 norm (Manhattan distance) between the query vector and the encoded document vector.
+     */
+    public abstract double l1Norm(float[] queryVector, BytesRef vector);
+
+    /**
+     * The l2 norm (Euclidean distance) between the query vector and the encoded document vector.
+     */
+    public abstract double l2Norm(float[] queryVector, BytesRef vector);
+}
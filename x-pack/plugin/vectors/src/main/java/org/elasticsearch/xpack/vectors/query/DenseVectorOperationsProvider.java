@@ -0,0 +1,21 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+/**
+ * Picks the {@link DenseVectorOperations} to use. The Vector API requires Java 17, so there is a multi-release
+ * variant of this class that may pick an implementation based on it.
+ */
+final class DenseVectorOperationsProvider {
+
+    private DenseVectorOperationsProvider() {}
+
+    static DenseVectorOperations create() {
+        return ScalarDenseVectorOperations.INSTANCE;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lucene.search.Queries;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.query.AbstractQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryRewriteContext;
+import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.xcontent.ConstructingObjectParser;
+import org.elasticsearch.xcontent.ParseField;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentParser;
+import org.elasticsearch.xpack.vectors.codec.VectorSimilarity;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.DenseVectorFieldType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static org.elasticsearch.xcontent.ConstructingObjectParser.constructorArg;
+import static org.elasticsearch.xcontent.ConstructingObjectParser.optionalConstructorArg;
+
+/**
+ * A query that finds approximately the {@code k} documents whose vectors are the nearest to a query vector, among the
+ * documents that match an optional filter. It requires a {@code dense_vector} field that is indexed.
+ */
+public class KnnQueryBuilder extends AbstractQueryBuilder<KnnQueryBuilder> {
+    public static final String NAME = "knn";
+
+    public static final int DEFAULT_NUM_CANDIDATES = 100;
+    public static final int MAX_NUM_CANDIDATES = 10000;
+
+    private static final ParseField FIELD_FIELD = new ParseField("field");
+    private static final ParseField QUERY_VECTOR_FIELD = new ParseField("query_vector");
+    private static final ParseField K_FIELD = new ParseField("k");
+    private static final ParseField NUM_CANDIDATES_FIELD = new ParseField("num_candidates");
+    private static final ParseField FILTER_FIELD = new ParseField("filter");
+
+    @SuppressWarnings("unchecked")
+    private static final ConstructingObjectParser<KnnQueryBuilder, Void> PARSER = new ConstructingObjectParser<>(NAME, false, args -> {
+        List<Float> vector = (List<Float>) args[1];
+        float[] queryVector = new float[vector.size()];
+        for (int i = 0; i < queryVector.length; i++) {
+            queryVector[i] = vector.get(i);
+        }
+        int k = (Integer) args[2];
+        int numCandidates = args[3] == null ? Math.max(k, DEFAULT_NUM_CANDIDATES) : (Integer) args[3];
+        return new KnnQueryBuilder((String) args[0], queryVector, k, numCandidates);
+    });
+
+    static {
+        PARSER.declareString(constructorArg(), FIELD_FIELD);
+        PARSER.declareFloatArray(constructorArg(), QUERY_VECTOR_FIELD);
+        PARSER.declareInt(constructorArg(), K_FIELD);
+        PARSER.declareInt(optionalConstructorArg(), NUM_CANDIDATES_FIELD);
+        PARSER.declareObject(KnnQueryBuilder::filter, (p, c) -> parseInnerQueryBuilder(p), FILTER_FIELD);
+        declareStandardFields(PARSER);
+    }
+
+    private final String field;
+    private final float[] queryVector;
+    private final int k;
+    private final int numCandidates;
+    private QueryBuilder filter;
+
+    public KnnQueryBuilder(String field, float[] queryVector, int k, int numCandidates) {
+        if (k < 1) {
+            throw new IllegalArgumentException("[" + K_FIELD.getPreferredName() + "] must be greater than 0");
+        }
+        if (numCandidates < k) {
+            throw new IllegalArgumentException(
+                "[" + NUM_CANDIDATES_FIELD.getPreferredName() + "] cannot be less than [" + K_FIELD.getPreferredName() + "]"
+            );
+        }
+        if (numCandidates > MAX_NUM_CANDIDATES) {
+            throw new IllegalArgumentException(
+                "[" + NUM_CANDIDATES_FIELD.getPreferredName() + "] cannot exceed [" + MAX_NUM_CANDIDATES + "]"
+            );
+        }
+        this.field = Objects.requireNonNull(field);
+        this.queryVector = Objects.requireNonNull(queryVector);
+        this.k = k;
+        this.numCandidates = numCandidates;
+    }
+
+    public KnnQueryBuilder(StreamInput in) throws IOException {
+        super(in);
+        field = in.readString();
+        queryVector = in.readFloatArray();
+        k = in.readVInt();
+        numCandidates = in.readVInt();
+        filter = in.readOptionalNamedWriteable(QueryBuilder.class);
+    }
+
+    public static KnnQueryBuilder fromXContent(XContentParser parser) {
+        return PARSER.apply(parser, null);
+    }
+
+    /**
+     * Only returns the nearest neighbours among the documents that match the provided filter.
+     */
+    public KnnQueryBuilder filter(@Nullable QueryBuilder filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    public String fieldName() {
+        return field;
+    }
+
+    public float[] queryVector() {
+        return queryVector;
+    }
+
+    public int k() {
+        return k;
+    }
+
+    public int numCandidates() {
+        return numCandidates;
+    }
+
+    @Nullable
+    public QueryBuilder filter() {
+        return filter;
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeString(field);
+        out.writeFloatArray(queryVector);
+        out.writeVInt(k);
+        out.writeVInt(numCandidates);
+        out.writeOptionalNamedWriteable(filter);
+    }
+
+    @Override
+    protected void doXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(NAME);
+        builder.field(FIELD_FIELD.getPreferredName(), field);
+        builder.array(QUERY_VECTOR_FIELD.getPreferredName(), queryVector);
+        builder.field(K_FIELD.getPreferredName(), k);
+        builder.field(NUM_CANDIDATES_FIELD.getPreferredName(), numCandidates);
+        if (filter != null) {
+            builder.field(FILTER_FIELD.getPreferredName(), filter);
+        }
+        printBoostAndQueryName(builder);
+        builder.endObject();
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+
+    @Override
+    protected QueryBuilder doRewrite(QueryRewriteContext queryRewriteContext) throws IOException {
+        if (filter != null) {
+            QueryBuilder rewrittenFilter = filter.rewrite(queryRewriteContext);
+            if (rewrittenFilter != filter) {
+                return new KnnQueryBuilder(field, queryVector, k, numCandidates).filter(rewrittenFilter);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    protected Query doToQuery(SearchExecutionContext context) throws IOException {
+        MappedFieldType fieldType = context.getFieldType(field);
+        if (fieldType == null) {
+            return Queries.newMatchNoDocsQuery("Can't run [" + NAME + "] query on unmapped fields!");
+        }
+        if (fieldType instanceof DenseVectorFieldType == false) {
+            throw new IllegalArgumentException(
+                "["
+                    + NAME
+                    + "] queries are only supported on [dense_vector] fields, but ["
+                    + field
+                    + "] is of type ["
+                    + fieldType.typeName()
+                    + "]"
+            );
+        }
+        DenseVectorFieldType vectorFieldType = (DenseVectorFieldType) fieldType;
+        if (vectorFieldType.isSearchable() == false) {
+            throw new IllegalArgumentException(
+                "[" + NAME + "] queries are only supported on [dense_vector] fields that are indexed, but [" + field + "] isn't"
+            );
+        }
+        if (queryVector.length != vectorFieldType.dims()) {
+            throw new IllegalArgumentException(
+                "the query vector has a different number of dimensions ["
+                    + queryVector.length
+                    + "] than the field ["
+                    + field
+                    + "] ["
+                    + vectorFieldType.dims()
+                    + "]"
+            );
+        }
+        if (vectorFieldType.similarity() == VectorSimilarity.DOT_PRODUCT) {
+            double dotProduct = 0;
+            for (float value : queryVector) {
+                dotProduct += value * value;
+            }
+            float vectorMagnitude = (float) Math.sqrt(dotProduct);
+            if (Math.abs(vectorMagnitude - 1f) > 1e-4f) {
+                throw new IllegalArgumentException(
+                    "The ["
+                        + VectorSimilarity.DOT_PRODUCT
+                        + "] similarity can only be used with unit-length vectors, but the query vector has a magnitude of ["
+                        + vectorMagnitude
+                        + "]"
+                );
+            }
+        }
+        Query filterQuery = filter == null ? null : filter.toQuery(context);
+        IndexSearcher searcher = context.searcher();
+        Runnable checkCancelled = searcher instanceof ContextIndexSearcher ? ((ContextIndexSearcher) searcher)::checkCancelled : () -> {};
+        return new KnnVectorQuery(fieldType.name(), queryVector, k, numCandidates, filterQuery, checkCancelled);
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(field, Arrays.hashCode(queryVector), k, numCandidates, filter);
+    }
+
+    @Override
+    protected boolean doEquals(KnnQueryBuilder other) {
+        return field.equals(other.field)
+            && Arrays.equals(queryVector, other.queryVector)
+            && k == other.k
+            && numCandidates == other.numCandidates
+            && Objects.equals(filter, other.filter);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Matches a fixed set of documents of a reader with precomputed scores, which are the results of a
+ * {@link KnnVectorQuery} once it has been rewritten against this reader.
+ */
+class KnnScoreDocQuery extends Query {
+
+    private final int[] docs;
+    private final float[] scores;
+    // the index in docs of the first document of each segment
+    private final int[] segmentStarts;
+    private final IndexReader reader;
+
+    KnnScoreDocQuery(ScoreDoc[] scoreDocs, IndexReader reader) {
+        ScoreDoc[] sortedScoreDocs = scoreDocs.clone();
+        Arrays.sort(sortedScoreDocs, Comparator.comparingInt(scoreDoc -> scoreDoc.doc));
+        this.docs = new int[sortedScoreDocs.length];
+        this.scores = new float[sortedScoreDocs.length];
+        for (int i = 0; i < sortedScoreDocs.length; i++) {
+            docs[i] = sortedScoreDocs[i].doc;
+            scores[i] = sortedScoreDocs[i].score;
+        }
+        this.segmentStarts = new int[reader.leaves().size() + 1];
+        for (LeafReaderContext context : reader.leaves()) {
+            int start = Arrays.binarySearch(docs, context.docBase);
+            segmentStarts[context.ord] = start < 0 ? -1 - start : start;
+        }
+        segmentStarts[segmentStarts.length - 1] = docs.length;
+        this.reader = reader;
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        if (searcher.getIndexReader() != reader) {
+            throw new IllegalStateException("This query was rewritten against a different reader than the one it is executed with");
+        }
+        return new Weight(this) {
+            @Override
+            public void extractTerms(Set<Term> terms) {}
+
+            @Override
+            public Explanation explain(LeafReaderContext context, int doc) {
+                int found = Arrays.binarySearch(docs, doc + context.docBase);
+                if (found < 0) {
+                    return Explanation.noMatch("not in the top k documents");
+                }
+                return Explanation.match(scores[found] * boost, "within the top k documents");
+            }
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) {
+                int lower = segmentStarts[context.ord];
+                int upper = segmentStarts[context.ord + 1];
+                if (lower == upper) {
+                    return null;
+                }
+                return new Scorer(this) {
+                    int upTo = -1;
+
+                    @Override
+                    public DocIdSetIterator iterator() {
+                        return new DocIdSetIterator() {
+                            @Override
+                            public int docID() {
+                                return currentDoc();
+                            }
+
+                            @Override
+                            public int nextDoc() {
+                                upTo = upTo == -1 ? lower : upTo + 1;
+                                return currentDoc();
+                            }
+
+                            @Override
+                            public int advance(int target) throws IOException {
+                                return slowAdvance(target);
+                            }
+
+                            @Override
+                            public long cost() {
+                                return upper - lower;
+                            }
+                        };
+                    }
+
+                    private int currentDoc() {
+                        if (upTo == -1) {
+                            return -1;
+                        }
+                        if (upTo >= upper) {
+                            return NO_MORE_DOCS;
+                        }
+                        return docs[upTo] - context.docBase;
+                    }
+
+                    @Override
+                    public int docID() {
+                        return currentDoc();
+                    }
+
+                    @Override
+                    public float getMaxScore(int target) {
+                        return Float.POSITIVE_INFINITY;
+                    }
+
+                    @Override
+                    public float score() {
+                        return scores[upTo] * boost;
+                    }
+                };
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext context) {
+                // the query holds a reference to the top-level reader, it shouldn't outlive the request
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        visitor.visitLeaf(this);
+    }
+
+    @Override
+    public String toString(String field) {
+        return "KnnScoreDocQuery";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        KnnScoreDocQuery other = (KnnScoreDocQuery) obj;
+        return reader == other.reader && Arrays.equals(docs, other.docs) && Arrays.equals(scores, other.scores);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), Arrays.hashCode(docs), Arrays.hashCode(scores));
+    }
+}
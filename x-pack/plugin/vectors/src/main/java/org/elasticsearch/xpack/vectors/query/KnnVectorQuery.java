@@ -0,0 +1,165 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BitSetIterator;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FilteredDocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.xpack.vectors.codec.IndexedVectors;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Finds the {@code k} documents whose vectors are the nearest to a query vector, optionally among the documents that
+ * match a filter. Nearest neighbours are searched in the graph of every segment when the query is rewritten, and the
+ * rewritten query matches the top {@code k} documents across segments with their similarity as a score. Segments
+ * where the filter matches at most {@code numCandidates} documents are searched exactly since visiting these
+ * documents is cheaper than exploring the graph.
+ */
+class KnnVectorQuery extends Query {
+
+    private static final TopDocs NO_RESULTS = new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]);
+
+    private final String field;
+    private final float[] queryVector;
+    private final int k;
+    private final int numCandidates;
+    private final Query filter;
+    // throws if the search was cancelled, checked before searching every segment since the search doesn't go through the
+    // cancellable readers and collectors of the shard's searcher
+    private final Runnable checkCancelled;
+
+    KnnVectorQuery(String field, float[] queryVector, int k, int numCandidates, @Nullable Query filter) {
+        this(field, queryVector, k, numCandidates, filter, () -> {});
+    }
+
+    KnnVectorQuery(String field, float[] queryVector, int k, int numCandidates, @Nullable Query filter, Runnable checkCancelled) {
+        this.field = field;
+        this.queryVector = queryVector;
+        this.k = k;
+        this.numCandidates = numCandidates;
+        this.filter = filter;
+        this.checkCancelled = checkCancelled;
+    }
+
+    @Override
+    public Query rewrite(IndexReader reader) throws IOException {
+        Weight filterWeight = null;
+        if (filter != null) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            // don't cache the filter in the default query cache of Lucene, which is neither bounded by nor accounted in the node
+            searcher.setQueryCache(null);
+            filterWeight = searcher.createWeight(searcher.rewrite(filter), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        }
+        TopDocs[] perLeafResults = new TopDocs[reader.leaves().size()];
+        for (LeafReaderContext context : reader.leaves()) {
+            checkCancelled.run();
+            TopDocs results = searchLeaf(context, filterWeight);
+            for (ScoreDoc scoreDoc : results.scoreDocs) {
+                scoreDoc.doc += context.docBase;
+            }
+            perLeafResults[context.ord] = results;
+        }
+        TopDocs topK = TopDocs.merge(k, perLeafResults);
+        if (topK.scoreDocs.length == 0) {
+            return new MatchNoDocsQuery("no vectors were found for field [" + field + "]");
+        }
+        return new KnnScoreDocQuery(topK.scoreDocs, reader);
+    }
+
+    private TopDocs searchLeaf(LeafReaderContext context, Weight filterWeight) throws IOException {
+        BinaryDocValues values = context.reader().getBinaryDocValues(field);
+        if (values == null) {
+            return NO_RESULTS;
+        }
+        IndexedVectors vectors = IndexedVectors.get(values);
+        if (vectors == null) {
+            throw new IllegalStateException("field [" + field + "] isn't indexed for nearest neighbour search");
+        }
+        Bits liveDocs = context.reader().getLiveDocs();
+        if (filterWeight == null) {
+            return vectors.search(queryVector, k, numCandidates, liveDocs);
+        }
+        Scorer scorer = filterWeight.scorer(context);
+        if (scorer == null) {
+            return NO_RESULTS;
+        }
+        DocIdSetIterator filterIterator = scorer.iterator();
+        if (liveDocs != null) {
+            filterIterator = new FilteredDocIdSetIterator(filterIterator) {
+                @Override
+                protected boolean match(int doc) {
+                    return liveDocs.get(doc);
+                }
+            };
+        }
+        BitSet acceptDocs = BitSet.of(filterIterator, context.reader().maxDoc());
+        int cardinality = acceptDocs.cardinality();
+        if (cardinality <= numCandidates) {
+            return vectors.exactSearch(queryVector, k, new BitSetIterator(acceptDocs, cardinality));
+        }
+        return vectors.search(queryVector, k, numCandidates, acceptDocs);
+    }
+
+    String getField() {
+        return field;
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+    }
+
+    @Override
+    public String toString(String field) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("KnnVectorQuery:").append(this.field).append("[").append(queryVector[0]).append(",...][").append(k).append("]");
+        if (filter != null) {
+            builder.append("[").append(filter).append("]");
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        KnnVectorQuery other = (KnnVectorQuery) obj;
+        return field.equals(other.field)
+            && Arrays.equals(queryVector, other.queryVector)
+            && k == other.k
+            && numCandidates == other.numCandidates
+            && Objects.equals(filter, other.filter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, Arrays.hashCode(queryVector), k, numCandidates, filter);
+    }
+}
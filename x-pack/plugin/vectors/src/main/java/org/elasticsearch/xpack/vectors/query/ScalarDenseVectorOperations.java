@@ -0,0 +1,53 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.util.BytesRef;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link DenseVectorOperations} that compute one dimension at a time.
+ */
+final class ScalarDenseVectorOperations extends DenseVectorOperations {
+
+    static final ScalarDenseVectorOperations INSTANCE = new ScalarDenseVectorOperations();
+
+    private ScalarDenseVectorOperations() {}
+
+    @Override
+    public double dotProduct(float[] queryVector, BytesRef vector) {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(vector.bytes, vector.offset, vector.length);
+        double dotProduct = 0;
+        for (float queryValue : queryVector) {
+            dotProduct += queryValue * byteBuffer.getFloat();
+        }
+        return dotProduct;
+    }
+
+    @Override
+    public double l1Norm(float[] queryVector, BytesRef vector) {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(vector.bytes, vector.offset, vector.length);
+        double l1norm = 0;
+        for (float queryValue : queryVector) {
+            l1norm += Math.abs(queryValue - byteBuffer.getFloat());
+        }
+        return l1norm;
+    }
+
+    @Override
+    public double l2Norm(float[] queryVector, BytesRef vector) {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(vector.bytes, vector.offset, vector.length);
+        double l2norm = 0;
+        for (float queryValue : queryVector) {
+            double diff = queryValue - byteBuffer.getFloat();
+            l2norm += diff * diff;
+        }
+        return Math.sqrt(l2norm);
+    }
+}
@@ -13,13 +13,13 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.logging.DeprecationCategory;
 import org.elasticsearch.common.logging.DeprecationLogger;
 import org.elasticsearch.script.ScoreScript;
+import org.elasticsearch.xpack.vectors.codec.QuantizedVectors;
 import org.elasticsearch.xpack.vectors.mapper.SparseVectorFieldMapper;
 import org.elasticsearch.xpack.vectors.mapper.VectorEncoderDecoder;
 import org.elasticsearch.xpack.vectors.query.VectorScriptDocValues.DenseVectorScriptDocValues;
 import org.elasticsearch.xpack.vectors.query.VectorScriptDocValues.SparseVectorScriptDocValues;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 
@@ -36,6 +36,8 @@ public class ScoreScriptUtils {
     // Also, constructors for some functions accept queryVector to calculate and cache queryVectorMagnitude only once
     // per script execution for all documents.
 
+    private static final DenseVectorOperations OPERATIONS = DenseVectorOperations.getInstance();
+
     public static class DenseVectorFunction {
         final ScoreScript scoreScript;
         final float[] queryVector;
@@ -104,6 +106,26 @@ public class ScoreScriptUtils {
             }
             return vector;
         }
+
+        /**
+         * Returns the quantized vector of the current document, or {@code null} if the field isn't quantized, in which
+         * case the vector must be read with {@link #getEncodedVector()}.
+         */
+        QuantizedVectors getQuantizedVector() {
+            QuantizedVectors quantizedVectors = docValues.quantizedVectors();
+            if (quantizedVectors == null) {
+                return null;
+            }
+            try {
+                docValues.setNextDocId(scoreScript._getDocId());
+            } catch (IOException e) {
+                throw ExceptionsHelper.convertToElastic(e);
+            }
+            if (docValues.size() == 0) {
+                throw new IllegalArgumentException("A document doesn't have a value for a vector field!");
+            }
+            return quantizedVectors;
+        }
     }
 
     // Calculate l1 norm (Manhattan distance) between a query's dense vector and documents' dense vectors
@@ -114,15 +136,11 @@ public class ScoreScriptUtils {
         }
 
         public double l1norm() {
-            BytesRef vector = getEncodedVector();
-            ByteBuffer byteBuffer = ByteBuffer.wrap(vector.bytes, vector.offset, vector.length);
-
-            double l1norm = 0;
-
-            for (float queryValue : queryVector) {
-                l1norm += Math.abs(queryValue - byteBuffer.getFloat());
+            QuantizedVectors quantizedVectors = getQuantizedVector();
+            if (quantizedVectors != null) {
+                return quantizedVectors.l1Norm(queryVector);
             }
-            return l1norm;
+            return OPERATIONS.l1Norm(queryVector, getEncodedVector());
         }
     }
 
@@ -134,15 +152,11 @@ public class ScoreScriptUtils {
         }
 
         public double l2norm() {
-            BytesRef vector = getEncodedVector();
-            ByteBuffer byteBuffer = ByteBuffer.wrap(vector.bytes, vector.offset, vector.length);
-
-            double l2norm = 0;
-            for (float queryValue : queryVector) {
-                double diff = queryValue - byteBuffer.getFloat();
-                l2norm += diff * diff;
+            QuantizedVectors quantizedVectors = getQuantizedVector();
+            if (quantizedVectors != null) {
+                return quantizedVectors.l2Norm(queryVector);
             }
-            return Math.sqrt(l2norm);
+            return OPERATIONS.l2Norm(queryVector, getEncodedVector());
         }
     }
 
@@ -154,14 +168,11 @@ public class ScoreScriptUtils {
         }
 
         public double dotProduct() {
-            BytesRef vector = getEncodedVector();
-            ByteBuffer byteBuffer = ByteBuffer.wrap(vector.bytes, vector.offset, vector.length);
-
-            double dotProduct = 0;
-            for (float queryValue : queryVector) {
-                dotProduct += queryValue * byteBuffer.getFloat();
+            QuantizedVectors quantizedVectors = getQuantizedVector();
+            if (quantizedVectors != null) {
+                return quantizedVectors.dotProduct(queryVector);
             }
-            return dotProduct;
+            return OPERATIONS.dotProduct(queryVector, getEncodedVector());
         }
     }
 
@@ -173,13 +184,62 @@ public class ScoreScriptUtils {
         }
 
         public double cosineSimilarity() {
-            BytesRef vector = getEncodedVector();
-            ByteBuffer byteBuffer = ByteBuffer.wrap(vector.bytes, vector.offset, vector.length);
-            double dotProduct = 0.0;
-            for (float queryValue : queryVector) {
-                dotProduct += queryValue * byteBuffer.getFloat();
+            QuantizedVectors quantizedVectors = getQuantizedVector();
+            if (quantizedVectors != null) {
+                return quantizedVectors.dotProduct(queryVector) / quantizedVectors.magnitude();
             }
-            return dotProduct / docValues.getMagnitude();
+            return OPERATIONS.dotProduct(queryVector, getEncodedVector()) / docValues.getMagnitude();
+        }
+    }
+
+    // The exact variants of the functions above always read the float vectors, even if the field is quantized, so that
+    // the top hits of a query scored with quantized vectors can be rescored exactly.
+
+    // Calculate the exact l1 norm (Manhattan distance) between a query's dense vector and documents' dense vectors
+    public static final class ExactL1Norm extends DenseVectorFunction {
+
+        public ExactL1Norm(ScoreScript scoreScript, List<Number> queryVector, Object field) {
+            super(scoreScript, queryVector, field);
+        }
+
+        public double l1normExact() {
+            return OPERATIONS.l1Norm(queryVector, getEncodedVector());
+        }
+    }
+
+    // Calculate the exact l2 norm (Euclidean distance) between a query's dense vector and documents' dense vectors
+    public static final class ExactL2Norm extends DenseVectorFunction {
+
+        public ExactL2Norm(ScoreScript scoreScript, List<Number> queryVector, Object field) {
+            super(scoreScript, queryVector, field);
+        }
+
+        public double l2normExact() {
+            return OPERATIONS.l2Norm(queryVector, getEncodedVector());
+        }
+    }
+
+    // Calculate the exact dot product between a query's dense vector and documents' dense vectors
+    public static final class ExactDotProduct extends DenseVectorFunction {
+
+        public ExactDotProduct(ScoreScript scoreScript, List<Number> queryVector, Object field) {
+            super(scoreScript, queryVector, field);
+        }
+
+        public double dotProductExact() {
+            return OPERATIONS.dotProduct(queryVector, getEncodedVector());
+        }
+    }
+
+    // Calculate the exact cosine similarity between a query's dense vector and documents' dense vectors
+    public static final class ExactCosineSimilarity extends DenseVectorFunction {
+
+        public ExactCosineSimilarity(ScoreScript scoreScript, List<Number> queryVector, Object field) {
+            super(scoreScript, queryVector, field, true);
+        }
+
+        public double cosineSimilarityExact() {
+            return OPERATIONS.dotProduct(queryVector, getEncodedVector()) / docValues.getMagnitude();
         }
     }
 
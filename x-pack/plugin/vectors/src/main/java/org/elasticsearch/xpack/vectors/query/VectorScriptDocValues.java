@@ -11,9 +11,11 @@ import org.apache.lucene.index.BinaryDocValues;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.xpack.vectors.codec.QuantizedVectors;
 import org.elasticsearch.xpack.vectors.mapper.VectorEncoderDecoder;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
  * VectorScriptDocValues represents docValues for dense and sparse vector fields
@@ -22,6 +24,7 @@ public abstract class VectorScriptDocValues extends ScriptDocValues<BytesRef> {
 
     private final BinaryDocValues in;
     final Version indexVersion;
+    boolean hasValue;
     BytesRef value;
 
     VectorScriptDocValues(BinaryDocValues in, Version indexVersion) {
@@ -31,15 +34,20 @@ public abstract class VectorScriptDocValues extends ScriptDocValues<BytesRef> {
 
     @Override
     public void setNextDocId(int docId) throws IOException {
-        if (in.advanceExact(docId)) {
-            value = in.binaryValue();
-        } else {
-            value = null;
-        }
+        hasValue = in.advanceExact(docId);
+        // the value is only read when it is used, since quantized vectors may be scored instead
+        value = null;
     }
 
     // package private access only for {@link ScoreScriptUtils}
     BytesRef getEncodedValue() {
+        if (hasValue && value == null) {
+            try {
+                value = in.binaryValue();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
         return value;
     }
 
@@ -50,10 +58,10 @@ public abstract class VectorScriptDocValues extends ScriptDocValues<BytesRef> {
 
     @Override
     public int size() {
-        if (value == null) {
-            return 0;
-        } else {
+        if (hasValue) {
             return 1;
+        } else {
+            return 0;
         }
     }
 
@@ -61,11 +69,21 @@ public abstract class VectorScriptDocValues extends ScriptDocValues<BytesRef> {
     public static class DenseVectorScriptDocValues extends VectorScriptDocValues {
         private final int dims;
         private final float[] vector;
+        private final QuantizedVectors quantizedVectors;
 
         public DenseVectorScriptDocValues(BinaryDocValues in, Version indexVersion, int dims) {
             super(in, indexVersion);
             this.dims = dims;
             this.vector = new float[dims];
+            this.quantizedVectors = QuantizedVectors.get(in);
+        }
+
+        @Override
+        public void setNextDocId(int docId) throws IOException {
+            super.setNextDocId(docId);
+            if (hasValue && quantizedVectors != null && quantizedVectors.advanceExact(docId) == false) {
+                throw new IllegalStateException("document [" + docId + "] has a vector but no quantized vector");
+            }
         }
 
         @Override
@@ -80,11 +98,20 @@ public abstract class VectorScriptDocValues extends ScriptDocValues<BytesRef> {
             return dims;
         }
 
+        /**
+         * The quantized vectors of the field, positioned on the current document, or {@code null} if the field isn't
+         * quantized.
+         */
+        // package private access only for {@link ScoreScriptUtils}
+        QuantizedVectors quantizedVectors() {
+            return quantizedVectors;
+        }
+
         /**
          * Get dense vector's value as an array of floats
          */
         public float[] getVectorValue() {
-            VectorEncoderDecoder.decodeDenseVector(value, vector);
+            VectorEncoderDecoder.decodeDenseVector(getEncodedValue(), vector);
             return vector;
         }
 
@@ -92,7 +119,11 @@ public abstract class VectorScriptDocValues extends ScriptDocValues<BytesRef> {
          * Get dense vector's magnitude
          */
         public float getMagnitude() {
-            return VectorEncoderDecoder.getMagnitude(indexVersion, value);
+            if (quantizedVectors != null && hasValue) {
+                // quantized vectors keep the exact magnitude next to them
+                return quantizedVectors.magnitude();
+            }
+            return VectorEncoderDecoder.getMagnitude(indexVersion, getEncodedValue());
         }
     }
 
@@ -0,0 +1,46 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Picks the {@link DenseVectorOperations} to use, preferring the ones based on the Vector API when the
+ * {@code jdk.incubator.vector} module is available, which requires starting the JVM with
+ * {@code --add-modules=jdk.incubator.vector}.
+ */
+final class DenseVectorOperationsProvider {
+
+    private static final Logger logger = LogManager.getLogger(DenseVectorOperationsProvider.class);
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    // incubating APIs change between releases, so only use the one of the release we were compiled against
+    private static final int VECTOR_API_VERSION = 17;
+
+    private DenseVectorOperationsProvider() {}
+
+    static DenseVectorOperations create() {
+        if (Runtime.version().feature() != VECTOR_API_VERSION) {
+            logger.debug("the Vector API is only used on Java {}, using scalar vector functions", VECTOR_API_VERSION);
+            return ScalarDenseVectorOperations.INSTANCE;
+        }
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent() == false) {
+            logger.debug("the [{}] module is not available, using scalar vector functions", VECTOR_MODULE);
+            return ScalarDenseVectorOperations.INSTANCE;
+        }
+        try {
+            DenseVectorOperations operations = new PanamaDenseVectorOperations();
+            logger.debug("using the Vector API for vector functions");
+            return operations;
+        } catch (LinkageError e) {
+            logger.warn("failed to load the Vector API, using scalar vector functions", e);
+            return ScalarDenseVectorOperations.INSTANCE;
+        }
+    }
+}
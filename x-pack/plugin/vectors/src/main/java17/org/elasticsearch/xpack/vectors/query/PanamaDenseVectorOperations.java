@@ -0,0 +1,86 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.apache.lucene.util.BytesRef;
+
+import java.nio.ByteOrder;
+
+/**
+ * {@link DenseVectorOperations} that compute as many dimensions at a time as the preferred vector species allows,
+ * loading the document vectors straight from their big-endian encoding. Sums are accumulated per lane in floats, so
+ * results may differ from the scalar implementation in the last bits.
+ */
+final class PanamaDenseVectorOperations extends DenseVectorOperations {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public double dotProduct(float[] queryVector, BytesRef vector) {
+        final int bound = SPECIES.loopBound(queryVector.length);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector query = FloatVector.fromArray(SPECIES, queryVector, i);
+            acc = acc.add(query.mul(load(vector, i)));
+        }
+        double dotProduct = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < queryVector.length; i++) {
+            dotProduct += queryVector[i] * get(vector, i);
+        }
+        return dotProduct;
+    }
+
+    @Override
+    public double l1Norm(float[] queryVector, BytesRef vector) {
+        final int bound = SPECIES.loopBound(queryVector.length);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector query = FloatVector.fromArray(SPECIES, queryVector, i);
+            acc = acc.add(query.sub(load(vector, i)).abs());
+        }
+        double l1norm = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < queryVector.length; i++) {
+            l1norm += Math.abs(queryVector[i] - get(vector, i));
+        }
+        return l1norm;
+    }
+
+    @Override
+    public double l2Norm(float[] queryVector, BytesRef vector) {
+        final int bound = SPECIES.loopBound(queryVector.length);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector diff = FloatVector.fromArray(SPECIES, queryVector, i).sub(load(vector, i));
+            acc = acc.add(diff.mul(diff));
+        }
+        double l2norm = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < queryVector.length; i++) {
+            double diff = queryVector[i] - get(vector, i);
+            l2norm += diff * diff;
+        }
+        return Math.sqrt(l2norm);
+    }
+
+    private static FloatVector load(BytesRef vector, int dim) {
+        return FloatVector.fromByteArray(SPECIES, vector.bytes, vector.offset + dim * Float.BYTES, ByteOrder.BIG_ENDIAN);
+    }
+
+    private static float get(BytesRef vector, int dim) {
+        final int offset = vector.offset + dim * Float.BYTES;
+        final byte[] bytes = vector.bytes;
+        final int bits = ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8)
+            | (bytes[offset + 3] & 0xFF);
+        return Float.intBitsToFloat(bits);
+    }
+}
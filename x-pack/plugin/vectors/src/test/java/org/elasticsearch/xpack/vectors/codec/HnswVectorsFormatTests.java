@@ -0,0 +1,157 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.index.engine.SegmentsStats;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class HnswVectorsFormatTests extends ESTestCase {
+
+    public void testSearchFindsNearestNeighbours() throws IOException {
+        final int dims = randomIntBetween(2, 16);
+        final VectorSimilarity similarity = randomFrom(VectorSimilarity.values());
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = new IndexWriterConfig(null);
+            iwc.setCodec(TestUtil.alwaysDocValuesFormat(new HnswVectorsFormat(dims, similarity, randomIntBetween(4, 16), 100)));
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                int numDocs = randomIntBetween(1, 1000);
+                for (int i = 0; i < numDocs; i++) {
+                    Document doc = new Document();
+                    if (randomBoolean() || i == 0) {
+                        doc.add(new BinaryDocValuesField("vector", encode(randomVector(dims, similarity))));
+                    }
+                    doc.add(new NumericDocValuesField("id", i));
+                    writer.addDocument(doc);
+                    if (rarely()) {
+                        writer.flush();
+                    }
+                }
+                if (randomBoolean()) {
+                    writer.forceMerge(1);
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                for (LeafReaderContext context : reader.leaves()) {
+                    if (context.reader().getFieldInfos().fieldInfo("vector") == null) {
+                        continue;
+                    }
+                    IndexedVectors vectors = IndexedVectors.get(context.reader().getBinaryDocValues("vector"));
+                    assertNotNull(vectors);
+                    assertThat(vectors.similarity(), equalTo(similarity));
+                    assertThat(vectors.dims(), equalTo(dims));
+                    assertThat(vectors.size(), equalTo(context.reader().getDocCount("vector")));
+
+                    SegmentReader segmentReader = (SegmentReader) context.reader();
+                    String memory = segmentReader.getSegmentInfo().info.getAttribute(SegmentsStats.VECTOR_GRAPH_MEMORY_ATTRIBUTE);
+                    assertThat(Long.parseLong(memory), greaterThan(0L));
+                    assertNotNull(segmentReader.getSegmentInfo().info.getAttribute(SegmentsStats.VECTOR_GRAPH_BUILD_TIME_ATTRIBUTE));
+
+                    int k = randomIntBetween(1, 10);
+                    float[] query = randomVector(dims, similarity);
+                    DocIdSetIterator allDocs = DocIdSetIterator.all(context.reader().maxDoc());
+                    TopDocs expected = vectors.exactSearch(query, k, allDocs);
+                    assertThat(expected.scoreDocs.length, equalTo(Math.min(k, vectors.size())));
+                    for (int i = 1; i < expected.scoreDocs.length; i++) {
+                        assertThat(expected.scoreDocs[i].score, lessThanOrEqualTo(expected.scoreDocs[i - 1].score));
+                    }
+
+                    // exploring the graph with enough candidates finds almost all true nearest neighbours on such small graphs
+                    TopDocs actual = vectors.search(query, k, 100, null);
+                    assertThat(actual.scoreDocs.length, equalTo(expected.scoreDocs.length));
+                    assertThat(recall(expected, actual), greaterThanOrEqualTo(0.8));
+
+                    FixedBitSet acceptDocs = new FixedBitSet(context.reader().maxDoc());
+                    for (int doc = 0; doc < acceptDocs.length(); doc += 2) {
+                        acceptDocs.set(doc);
+                    }
+                    for (ScoreDoc scoreDoc : vectors.search(query, k, 100, acceptDocs).scoreDocs) {
+                        assertTrue(acceptDocs.get(scoreDoc.doc));
+                    }
+                }
+            }
+        }
+    }
+
+    public void testInvalidParameters() {
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new HnswVectorsFormat(3, VectorSimilarity.L2_NORM, 1, 100)
+        );
+        assertThat(e.getMessage(), equalTo("m must be at least 2, got [1]"));
+        e = expectThrows(IllegalArgumentException.class, () -> new HnswVectorsFormat(3, VectorSimilarity.L2_NORM, 16, 0));
+        assertThat(e.getMessage(), equalTo("ef_construction must be at least 1, got [0]"));
+    }
+
+    private static double recall(TopDocs expected, TopDocs actual) {
+        if (expected.scoreDocs.length == 0) {
+            return 1;
+        }
+        Set<Integer> expectedDocs = new HashSet<>();
+        for (ScoreDoc scoreDoc : expected.scoreDocs) {
+            expectedDocs.add(scoreDoc.doc);
+        }
+        int found = 0;
+        for (ScoreDoc scoreDoc : actual.scoreDocs) {
+            if (expectedDocs.contains(scoreDoc.doc)) {
+                found++;
+            }
+        }
+        return (double) found / expectedDocs.size();
+    }
+
+    private static float[] randomVector(int dims, VectorSimilarity similarity) {
+        float[] vector = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            vector[i] = randomFloat() * 2 - 1;
+        }
+        vector[0] += 0.01f; // never a zero vector
+        if (similarity == VectorSimilarity.DOT_PRODUCT) {
+            VectorSimilarity.normalize(vector);
+        }
+        return vector;
+    }
+
+    /**
+     * Encodes the vector the way {@code dense_vector} fields do, with its magnitude at the end.
+     */
+    private static BytesRef encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate((vector.length + 1) * Float.BYTES);
+        double magnitude = 0;
+        for (float value : vector) {
+            buffer.putFloat(value);
+            magnitude += value * value;
+        }
+        buffer.putFloat((float) Math.sqrt(magnitude));
+        return new BytesRef(buffer.array());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class QuantizedVectorsFormatTests extends ESTestCase {
+
+    public void testQuantizedVectorsApproximateVectors() throws IOException {
+        final int dims = randomIntBetween(1, 32);
+        final boolean indexed = randomBoolean();
+        final HnswVectorsFormat delegate = indexed ? new HnswVectorsFormat(dims, VectorSimilarity.L2_NORM, 16, 100) : null;
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = new IndexWriterConfig(null);
+            iwc.setCodec(TestUtil.alwaysDocValuesFormat(new QuantizedVectorsFormat(dims, delegate)));
+            int numDocs = randomIntBetween(1, 500);
+            float[][] vectors = new float[numDocs][];
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                for (int i = 0; i < numDocs; i++) {
+                    Document doc = new Document();
+                    if (randomBoolean() || i == 0) {
+                        vectors[i] = randomVector(dims);
+                        doc.add(new BinaryDocValuesField("vector", encode(vectors[i])));
+                    }
+                    doc.add(new NumericDocValuesField("id", i));
+                    writer.addDocument(doc);
+                    if (rarely()) {
+                        writer.flush();
+                    }
+                }
+                if (randomBoolean()) {
+                    writer.forceMerge(1);
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                float[] query = randomVector(dims);
+                for (LeafReaderContext context : reader.leaves()) {
+                    if (context.reader().getFieldInfos().fieldInfo("vector") == null) {
+                        continue;
+                    }
+                    BinaryDocValues values = context.reader().getBinaryDocValues("vector");
+                    QuantizedVectors quantizedVectors = QuantizedVectors.get(values);
+                    assertNotNull(quantizedVectors);
+                    assertThat(quantizedVectors.dims(), equalTo(dims));
+                    assertThat(IndexedVectors.get(values) != null, equalTo(indexed));
+
+                    float minValue = Float.POSITIVE_INFINITY;
+                    float maxValue = Float.NEGATIVE_INFINITY;
+                    NumericDocValues ids = context.reader().getNumericDocValues("id");
+                    for (int doc = 0; doc < context.reader().maxDoc(); doc++) {
+                        assertTrue(ids.advanceExact(doc));
+                        float[] vector = vectors[(int) ids.longValue()];
+                        if (vector != null) {
+                            for (float value : vector) {
+                                minValue = Math.min(minValue, value);
+                                maxValue = Math.max(maxValue, value);
+                            }
+                        }
+                    }
+                    // each value is rounded to the nearest of 256 values that span the range of the segment
+                    double maxError = (maxValue - minValue) / 510 + 1e-5;
+
+                    ids = context.reader().getNumericDocValues("id");
+                    for (int doc = 0; doc < context.reader().maxDoc(); doc++) {
+                        assertTrue(ids.advanceExact(doc));
+                        float[] vector = vectors[(int) ids.longValue()];
+                        assertThat(quantizedVectors.advanceExact(doc), equalTo(vector != null));
+                        if (vector == null) {
+                            continue;
+                        }
+                        double l1Norm = 0;
+                        double l2Norm = 0;
+                        double dotProduct = 0;
+                        double magnitude = 0;
+                        double queryL1Norm = 0;
+                        for (int i = 0; i < dims; i++) {
+                            l1Norm += Math.abs(query[i] - vector[i]);
+                            l2Norm += (query[i] - vector[i]) * (query[i] - vector[i]);
+                            dotProduct += query[i] * vector[i];
+                            magnitude += vector[i] * vector[i];
+                            queryL1Norm += Math.abs(query[i]);
+                        }
+                        assertThat((double) quantizedVectors.magnitude(), closeTo(Math.sqrt(magnitude), 1e-5));
+                        assertThat(quantizedVectors.l1Norm(query), closeTo(l1Norm, dims * maxError));
+                        assertThat(quantizedVectors.l2Norm(query), closeTo(Math.sqrt(l2Norm), Math.sqrt(dims) * maxError));
+                        assertThat(quantizedVectors.dotProduct(query), closeTo(dotProduct, queryL1Norm * maxError));
+                    }
+                }
+            }
+        }
+    }
+
+    public void testQuantize() {
+        float minValue = randomFloat() * 2 - 1;
+        float maxValue = minValue + randomFloat() * 10;
+        float scale = QuantizedVectors.scale(minValue, maxValue);
+        assertThat(QuantizedVectors.quantize(minValue, minValue, scale), equalTo((byte) 0));
+        assertThat(QuantizedVectors.quantize(maxValue, minValue, scale), equalTo((byte) 255));
+        float value = minValue + randomFloat() * (maxValue - minValue);
+        int code = QuantizedVectors.quantize(value, minValue, scale) & 0xFF;
+        assertThat((double) Math.abs(minValue + code * scale - value), lessThanOrEqualTo(scale / 2 + 1e-5));
+        // a segment whose values are all equal
+        assertThat(QuantizedVectors.quantize(minValue, minValue, 0f), equalTo((byte) 0));
+    }
+
+    private static float[] randomVector(int dims) {
+        float[] vector = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            vector[i] = randomFloat() * 2 - 1;
+        }
+        return vector;
+    }
+
+    /**
+     * Encodes the vector the way {@code dense_vector} fields do, with its magnitude at the end.
+     */
+    private static BytesRef encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate((vector.length + 1) * Float.BYTES);
+        double magnitude = 0;
+        for (float value : vector) {
+            buffer.putFloat(value);
+            magnitude += value * value;
+        }
+        buffer.putFloat((float) Math.sqrt(magnitude));
+        return new BytesRef(buffer.array());
+    }
+}
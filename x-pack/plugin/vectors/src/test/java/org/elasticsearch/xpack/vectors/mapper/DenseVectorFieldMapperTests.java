@@ -20,6 +20,9 @@ import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xpack.vectors.DenseVectorPlugin;
+import org.elasticsearch.xpack.vectors.codec.HnswVectorsFormat;
+import org.elasticsearch.xpack.vectors.codec.QuantizedVectorsFormat;
+import org.elasticsearch.xpack.vectors.codec.VectorSimilarity;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -54,6 +57,29 @@ public class DenseVectorFieldMapperTests extends MapperTestCase {
             fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4)),
             fieldMapping(b -> b.field("type", "dense_vector").field("dims", 5))
         );
+        checker.registerConflictCheck(
+            "index",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4)),
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "l2_norm"))
+        );
+        checker.registerConflictCheck(
+            "similarity",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "l2_norm")),
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "cosine"))
+        );
+        checker.registerConflictCheck(
+            "index_options",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "l2_norm")),
+            fieldMapping(b -> {
+                b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "l2_norm");
+                b.startObject("index_options").field("type", "hnsw").field("m", 5).field("ef_construction", 50).endObject();
+            })
+        );
+        checker.registerConflictCheck(
+            "quantization",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4)),
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("quantization", "int8"))
+        );
     }
 
     @Override
@@ -120,6 +146,115 @@ public class DenseVectorFieldMapperTests extends MapperTestCase {
         assertArrayEquals("Decoded dense vector values is not equal to the indexed one.", validVector, decodedValues, 0.001f);
     }
 
+    public void testIndexedVector() throws Exception {
+        DocumentMapper mapper = createDocumentMapper(fieldMapping(b -> {
+            b.field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "dot_product");
+            b.startObject("index_options").field("type", "hnsw").field("m", 8).field("ef_construction", 50).endObject();
+        }));
+        DenseVectorFieldMapper fieldMapper = (DenseVectorFieldMapper) mapper.mappers().getMapper("field");
+        assertThat(fieldMapper.fieldType().similarity(), equalTo(VectorSimilarity.DOT_PRODUCT));
+        assertTrue(fieldMapper.fieldType().isSearchable());
+        assertThat(fieldMapper.docValuesFormat(), instanceOf(HnswVectorsFormat.class));
+        assertSame(fieldMapper.docValuesFormat(), mapper.mappers().getDocValuesFormat("field"));
+
+        float[] unitVector = { 0.6f, 0.8f, 0f };
+        ParsedDocument doc = mapper.parse(source(b -> b.array("field", unitVector)));
+        assertArrayEquals(unitVector, decodeDenseVector(Version.CURRENT, doc.rootDoc().getField("field").binaryValue()), 0f);
+
+        MapperParsingException e = expectThrows(
+            MapperParsingException.class,
+            () -> mapper.parse(source(b -> b.array("field", new float[] { 1f, 1f, 0f })))
+        );
+        assertThat(e.getCause().getMessage(), containsString("The [dot_product] similarity can only be used with unit-length vectors"));
+    }
+
+    public void testIndexedVectorWithCosineSimilarity() throws Exception {
+        DocumentMapper mapper = createDocumentMapper(
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "cosine"))
+        );
+        mapper.parse(source(b -> b.array("field", new float[] { 2f, -5f, 1f })));
+        MapperParsingException e = expectThrows(
+            MapperParsingException.class,
+            () -> mapper.parse(source(b -> b.array("field", new float[] { 0f, 0f, 0f })))
+        );
+        assertThat(e.getCause().getMessage(), containsString("The [cosine] similarity doesn't support vectors with zero magnitude"));
+    }
+
+    public void testInvalidIndexedVectorMappings() {
+        Exception e = expectThrows(
+            MapperParsingException.class,
+            () -> createMapperService(fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3).field("index", true)))
+        );
+        assertThat(e.getMessage(), containsString("Field [index] requires field [similarity] to be configured"));
+
+        e = expectThrows(
+            MapperParsingException.class,
+            () -> createMapperService(fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3).field("similarity", "l2_norm")))
+        );
+        assertThat(e.getMessage(), containsString("Field [similarity] requires field [index] to be configured"));
+
+        e = expectThrows(
+            MapperParsingException.class,
+            () -> createMapperService(
+                fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "jaccard"))
+            )
+        );
+        assertThat(e.getMessage(), containsString("unknown similarity [jaccard]"));
+
+        e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> {
+            b.field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "l2_norm");
+            b.startObject("index_options").field("type", "flat").endObject();
+        })));
+        assertThat(e.getMessage(), containsString("Unknown [index_options] type [flat] for field [field], expected [hnsw]"));
+
+        e = expectThrows(
+            MapperParsingException.class,
+            () -> createMapperService(
+                Version.V_7_16_2,
+                fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "l2_norm"))
+            )
+        );
+        assertThat(e.getMessage(), containsString("can only be indexed on indices created on or after 7.16.3"));
+    }
+
+    public void testQuantizedVector() throws Exception {
+        DocumentMapper mapper = createDocumentMapper(
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3).field("quantization", "int8"))
+        );
+        DenseVectorFieldMapper fieldMapper = (DenseVectorFieldMapper) mapper.mappers().getMapper("field");
+        assertThat(fieldMapper.docValuesFormat(), instanceOf(QuantizedVectorsFormat.class));
+        assertSame(fieldMapper.docValuesFormat(), mapper.mappers().getDocValuesFormat("field"));
+
+        // quantized vectors are still indexed as floats in doc values
+        float[] vector = { -12.1f, 100.7f, -4 };
+        ParsedDocument doc = mapper.parse(source(b -> b.array("field", vector)));
+        assertArrayEquals(vector, decodeDenseVector(Version.CURRENT, doc.rootDoc().getField("field").binaryValue()), 0f);
+
+        mapper = createDocumentMapper(fieldMapping(b -> {
+            b.field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "l2_norm");
+            b.field("quantization", "int8");
+        }));
+        fieldMapper = (DenseVectorFieldMapper) mapper.mappers().getMapper("field");
+        assertThat(fieldMapper.docValuesFormat(), instanceOf(QuantizedVectorsFormat.class));
+    }
+
+    public void testInvalidQuantization() {
+        Exception e = expectThrows(
+            MapperParsingException.class,
+            () -> createMapperService(fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3).field("quantization", "int4")))
+        );
+        assertThat(e.getMessage(), containsString("Unknown value [int4] for field [quantization] - accepted values are [none, int8]"));
+
+        e = expectThrows(
+            MapperParsingException.class,
+            () -> createMapperService(
+                Version.V_7_16_2,
+                fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3).field("quantization", "int8"))
+            )
+        );
+        assertThat(e.getMessage(), containsString("can only be quantized on indices created on or after 7.16.3"));
+    }
+
     public void testAddDocumentsToIndexBefore_V_7_5_0() throws Exception {
         Version indexVersion = Version.V_7_4_0;
         DocumentMapper mapper = createDocumentMapper(indexVersion, fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3)));
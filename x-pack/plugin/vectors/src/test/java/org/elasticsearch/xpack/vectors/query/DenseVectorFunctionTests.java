@@ -14,6 +14,10 @@ import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.xpack.vectors.mapper.VectorEncoderDecoder;
 import org.elasticsearch.xpack.vectors.query.ScoreScriptUtils.CosineSimilarity;
 import org.elasticsearch.xpack.vectors.query.ScoreScriptUtils.DotProduct;
+import org.elasticsearch.xpack.vectors.query.ScoreScriptUtils.ExactCosineSimilarity;
+import org.elasticsearch.xpack.vectors.query.ScoreScriptUtils.ExactDotProduct;
+import org.elasticsearch.xpack.vectors.query.ScoreScriptUtils.ExactL1Norm;
+import org.elasticsearch.xpack.vectors.query.ScoreScriptUtils.ExactL2Norm;
 import org.elasticsearch.xpack.vectors.query.ScoreScriptUtils.L1Norm;
 import org.elasticsearch.xpack.vectors.query.ScoreScriptUtils.L2Norm;
 import org.elasticsearch.xpack.vectors.query.VectorScriptDocValues.DenseVectorScriptDocValues;
@@ -59,9 +63,18 @@ public class DenseVectorFunctionTests extends ESTestCase {
             testCosineSimilarity(docValues, scoreScript);
             testL1Norm(docValues, scoreScript);
             testL2Norm(docValues, scoreScript);
+            testExactFunctions(scoreScript);
         }
     }
 
+    private void testExactFunctions(ScoreScript scoreScript) {
+        // without quantized vectors, the exact functions return the same results as the default functions
+        assertEquals(65425.624, new ExactDotProduct(scoreScript, queryVector, field).dotProductExact(), 0.001);
+        assertEquals(0.790, new ExactCosineSimilarity(scoreScript, queryVector, field).cosineSimilarityExact(), 0.001);
+        assertEquals(485.184, new ExactL1Norm(scoreScript, queryVector, field).l1normExact(), 0.001);
+        assertEquals(301.361, new ExactL2Norm(scoreScript, queryVector, field).l2normExact(), 0.001);
+    }
+
     private void testDotProduct(DenseVectorScriptDocValues docValues, ScoreScript scoreScript) {
         DotProduct function = new DotProduct(scoreScript, queryVector, field);
         double result = function.dotProduct();
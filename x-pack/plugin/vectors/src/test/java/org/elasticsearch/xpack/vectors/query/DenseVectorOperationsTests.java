@@ -0,0 +1,69 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
+
+import static org.elasticsearch.xpack.vectors.mapper.VectorEncoderDecoderTests.mockEncodeDenseVector;
+
+public class DenseVectorOperationsTests extends ESTestCase {
+
+    public void testScalar() {
+        assertOperations(DenseVectorOperations.scalar());
+    }
+
+    public void testDefault() {
+        assertOperations(DenseVectorOperations.getInstance());
+    }
+
+    private void assertOperations(DenseVectorOperations operations) {
+        for (int iter = 0; iter < 20; iter++) {
+            int dims = randomBoolean() ? randomIntBetween(1, 40) : randomIntBetween(384, 1024);
+            float[] queryVector = randomVector(dims);
+            float[] docVector = randomVector(dims);
+            BytesRef encoded = withRandomOffset(mockEncodeDenseVector(docVector, VersionUtils.randomVersion(random())));
+
+            double dotProduct = 0;
+            double l1norm = 0;
+            double l2norm = 0;
+            for (int i = 0; i < dims; i++) {
+                dotProduct += queryVector[i] * docVector[i];
+                l1norm += Math.abs(queryVector[i] - docVector[i]);
+                double diff = queryVector[i] - docVector[i];
+                l2norm += diff * diff;
+            }
+            l2norm = Math.sqrt(l2norm);
+
+            // implementations may accumulate in floats rather than doubles and in a different order
+            double delta = 1e-4 * dims;
+            assertEquals(dotProduct, operations.dotProduct(queryVector, encoded), delta);
+            assertEquals(l1norm, operations.l1Norm(queryVector, encoded), delta);
+            assertEquals(l2norm, operations.l2Norm(queryVector, encoded), delta);
+        }
+    }
+
+    private static float[] randomVector(int dims) {
+        float[] vector = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            vector[i] = randomFloat() * 2 - 1;
+        }
+        return vector;
+    }
+
+    /**
+     * Moves the encoded vector within a larger array, as doc values may return slices of a shared buffer.
+     */
+    private static BytesRef withRandomOffset(BytesRef vector) {
+        int offset = randomIntBetween(0, 7);
+        byte[] bytes = new byte[offset + vector.length + randomIntBetween(0, 7)];
+        System.arraycopy(vector.bytes, vector.offset, bytes, offset, vector.length);
+        return new BytesRef(bytes, offset, vector.length);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.search.Query;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.test.AbstractQueryTestCase;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
+import org.elasticsearch.xpack.vectors.DenseVectorPlugin;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class KnnQueryBuilderTests extends AbstractQueryTestCase<KnnQueryBuilder> {
+
+    private static final String VECTOR_FIELD = "vector";
+    private static final String NOT_INDEXED_VECTOR_FIELD = "not_indexed_vector";
+    private static final String DOT_PRODUCT_VECTOR_FIELD = "dot_product_vector";
+    private static final int VECTOR_DIMENSION = 3;
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        return Collections.singletonList(DenseVectorPlugin.class);
+    }
+
+    @Override
+    protected Settings createTestIndexSettings() {
+        // indexed vectors require indices created on or after 7.16.3
+        return Settings.builder().put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT).build();
+    }
+
+    @Override
+    protected void initializeAdditionalMappings(MapperService mapperService) throws IOException {
+        XContentBuilder builder = XContentFactory.jsonBuilder()
+            .startObject()
+            .startObject("properties")
+            .startObject(VECTOR_FIELD)
+            .field("type", "dense_vector")
+            .field("dims", VECTOR_DIMENSION)
+            .field("index", true)
+            .field("similarity", "l2_norm")
+            .endObject()
+            .startObject(NOT_INDEXED_VECTOR_FIELD)
+            .field("type", "dense_vector")
+            .field("dims", VECTOR_DIMENSION)
+            .endObject()
+            .startObject(DOT_PRODUCT_VECTOR_FIELD)
+            .field("type", "dense_vector")
+            .field("dims", VECTOR_DIMENSION)
+            .field("index", true)
+            .field("similarity", "dot_product")
+            .endObject()
+            .endObject()
+            .endObject();
+        mapperService.merge(
+            MapperService.SINGLE_MAPPING_NAME,
+            new CompressedXContent(Strings.toString(builder)),
+            MapperService.MergeReason.MAPPING_UPDATE
+        );
+    }
+
+    @Override
+    protected KnnQueryBuilder doCreateTestQueryBuilder() {
+        float[] vector = new float[VECTOR_DIMENSION];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = randomFloat();
+        }
+        int k = randomIntBetween(1, 100);
+        int numCandidates = randomIntBetween(k, 1000);
+        KnnQueryBuilder queryBuilder = new KnnQueryBuilder(VECTOR_FIELD, vector, k, numCandidates);
+        if (randomBoolean()) {
+            queryBuilder.filter(QueryBuilders.termQuery(KEYWORD_FIELD_NAME, randomAlphaOfLength(10)));
+        }
+        return queryBuilder;
+    }
+
+    @Override
+    protected void doAssertLuceneQuery(KnnQueryBuilder queryBuilder, Query query, SearchExecutionContext context) throws IOException {
+        assertThat(query, instanceOf(KnnVectorQuery.class));
+        KnnVectorQuery knnQuery = (KnnVectorQuery) query;
+        assertThat(knnQuery.getField(), equalTo(VECTOR_FIELD));
+        Query filter = queryBuilder.filter() == null ? null : queryBuilder.filter().toQuery(context);
+        assertThat(
+            knnQuery,
+            equalTo(new KnnVectorQuery(VECTOR_FIELD, queryBuilder.queryVector(), queryBuilder.k(), queryBuilder.numCandidates(), filter))
+        );
+    }
+
+    public void testDefaultNumCandidates() throws IOException {
+        String json = "{ \"knn\": { \"field\": \"vector\", \"query_vector\": [1, 2, 3], \"k\": 10 } }";
+        KnnQueryBuilder queryBuilder = (KnnQueryBuilder) parseQuery(json);
+        assertThat(queryBuilder.numCandidates(), equalTo(KnnQueryBuilder.DEFAULT_NUM_CANDIDATES));
+    }
+
+    public void testInvalidParameters() {
+        float[] vector = new float[] { 1, 2, 3 };
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> new KnnQueryBuilder(VECTOR_FIELD, vector, 0, 10));
+        assertThat(e.getMessage(), equalTo("[k] must be greater than 0"));
+        e = expectThrows(IllegalArgumentException.class, () -> new KnnQueryBuilder(VECTOR_FIELD, vector, 10, 5));
+        assertThat(e.getMessage(), equalTo("[num_candidates] cannot be less than [k]"));
+        e = expectThrows(IllegalArgumentException.class, () -> new KnnQueryBuilder(VECTOR_FIELD, vector, 10, 10001));
+        assertThat(e.getMessage(), equalTo("[num_candidates] cannot exceed [10000]"));
+    }
+
+    public void testInvalidFields() {
+        SearchExecutionContext context = createSearchExecutionContext();
+        float[] vector = new float[] { 1, 2, 3 };
+
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new KnnQueryBuilder(KEYWORD_FIELD_NAME, vector, 10, 10).toQuery(context)
+        );
+        assertThat(e.getMessage(), containsString("[knn] queries are only supported on [dense_vector] fields"));
+
+        e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new KnnQueryBuilder(NOT_INDEXED_VECTOR_FIELD, vector, 10, 10).toQuery(context)
+        );
+        assertThat(e.getMessage(), containsString("fields that are indexed, but [" + NOT_INDEXED_VECTOR_FIELD + "] isn't"));
+
+        e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new KnnQueryBuilder(VECTOR_FIELD, new float[] { 1, 2 }, 10, 10).toQuery(context)
+        );
+        assertThat(e.getMessage(), containsString("the query vector has a different number of dimensions [2]"));
+    }
+
+    public void testDotProductRequiresUnitLengthQueryVector() throws IOException {
+        SearchExecutionContext context = createSearchExecutionContext();
+
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new KnnQueryBuilder(DOT_PRODUCT_VECTOR_FIELD, new float[] { 1, 2, 3 }, 10, 10).toQuery(context)
+        );
+        assertThat(e.getMessage(), containsString("The [dot_product] similarity can only be used with unit-length vectors"));
+
+        Query query = new KnnQueryBuilder(DOT_PRODUCT_VECTOR_FIELD, new float[] { 0.6f, 0.8f, 0 }, 10, 10).toQuery(context);
+        assertThat(query, instanceOf(KnnVectorQuery.class));
+    }
+}
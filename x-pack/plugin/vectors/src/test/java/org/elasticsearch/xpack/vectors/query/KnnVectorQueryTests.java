@@ -0,0 +1,135 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.vectors.codec.HnswVectorsFormat;
+import org.elasticsearch.xpack.vectors.codec.VectorSimilarity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class KnnVectorQueryTests extends ESTestCase {
+
+    public void testFindsNearestNeighbours() throws IOException {
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = new IndexWriterConfig(null);
+            iwc.setCodec(TestUtil.alwaysDocValuesFormat(new HnswVectorsFormat(1, VectorSimilarity.L2_NORM, 16, 100)));
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                // one dimension vectors, so that the nearest neighbours of a value are the values around it
+                for (int i = 0; i < 200; i++) {
+                    Document doc = new Document();
+                    doc.add(new BinaryDocValuesField("vector", encode(i)));
+                    doc.add(new StringField("parity", i % 2 == 0 ? "even" : "odd", Field.Store.NO));
+                    writer.addDocument(doc);
+                    if (i % 50 == 49) {
+                        writer.flush();
+                    }
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                // not a wrapping searcher, so that doc values keep their graph
+                IndexSearcher searcher = new IndexSearcher(reader);
+
+                TopDocs topDocs = searcher.search(new KnnVectorQuery("vector", new float[] { 100.2f }, 3, 50, null), 10);
+                assertThat(topDocs.scoreDocs.length, equalTo(3));
+                assertThat(topDocs.scoreDocs[0].doc, equalTo(100));
+                float expectedScore = VectorSimilarity.L2_NORM.score(new float[] { 100.2f }, new float[] { 100 });
+                assertThat(topDocs.scoreDocs[0].score, equalTo(expectedScore));
+                assertThat(topDocs.scoreDocs[1].doc, equalTo(101));
+                assertThat(topDocs.scoreDocs[2].doc, equalTo(99));
+
+                // only few documents match the filter in each segment, which are compared exactly
+                Query filter = new TermQuery(new Term("parity", "odd"));
+                topDocs = searcher.search(new KnnVectorQuery("vector", new float[] { 100.2f }, 2, 50, filter), 10);
+                assertThat(topDocs.scoreDocs.length, equalTo(2));
+                assertThat(topDocs.scoreDocs[0].doc, equalTo(101));
+                assertThat(topDocs.scoreDocs[1].doc, equalTo(99));
+
+                // the filter matches more documents than the number of candidates, the graph is explored
+                topDocs = searcher.search(new KnnVectorQuery("vector", new float[] { 100.2f }, 2, 10, filter), 10);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    assertThat(scoreDoc.doc % 2, equalTo(1));
+                }
+
+                Query missingField = new KnnVectorQuery("missing", new float[] { 1 }, 3, 10, null);
+                assertThat(searcher.rewrite(missingField), instanceOf(MatchNoDocsQuery.class));
+            }
+        }
+    }
+
+    public void testRewrittenQueryCantRunOnOtherReader() throws IOException {
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = new IndexWriterConfig(null);
+            iwc.setCodec(TestUtil.alwaysDocValuesFormat(new HnswVectorsFormat(1, VectorSimilarity.L2_NORM, 16, 100)));
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                Document doc = new Document();
+                doc.add(new BinaryDocValuesField("vector", encode(1)));
+                writer.addDocument(doc);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir); DirectoryReader otherReader = DirectoryReader.open(dir)) {
+                Query rewritten = new IndexSearcher(reader).rewrite(new KnnVectorQuery("vector", new float[] { 1 }, 1, 10, null));
+                expectThrows(IllegalStateException.class, () -> new IndexSearcher(otherReader).search(rewritten, 1));
+            }
+        }
+    }
+
+    public void testCancelledSearch() throws IOException {
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = new IndexWriterConfig(null);
+            iwc.setCodec(TestUtil.alwaysDocValuesFormat(new HnswVectorsFormat(1, VectorSimilarity.L2_NORM, 16, 100)));
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                Document doc = new Document();
+                doc.add(new BinaryDocValuesField("vector", encode(1)));
+                writer.addDocument(doc);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                // not a wrapping searcher, so that doc values keep their graph
+                ContextIndexSearcher searcher = new ContextIndexSearcher(
+                    reader,
+                    IndexSearcher.getDefaultSimilarity(),
+                    IndexSearcher.getDefaultQueryCache(),
+                    IndexSearcher.getDefaultQueryCachingPolicy(),
+                    false
+                );
+                searcher.addQueryCancellation(() -> { throw new TaskCancelledException("cancelled"); });
+                Query query = new KnnVectorQuery("vector", new float[] { 1 }, 1, 10, null, searcher::checkCancelled);
+                expectThrows(TaskCancelledException.class, () -> searcher.rewrite(query));
+            }
+        }
+    }
+
+    private static BytesRef encode(float value) {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Float.BYTES);
+        buffer.putFloat(value);
+        buffer.putFloat(Math.abs(value));
+        return new BytesRef(buffer.array());
+    }
+}